@@ -0,0 +1,322 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a window on a range of samples of another acquisition result,
+ * projected onto a subset of its channels.
+ * <p>
+ * A view does not copy any data upon creation. The individual samples can be
+ * accessed through {@link #getValue(int)} and {@link #getTimestamp(int)},
+ * which read directly from the arrays of the underlying acquisition result.
+ * Only when {@link #getValues()} or {@link #getTimestamps()} are called, the
+ * samples of the window are copied into new arrays, which costs time and
+ * memory proportional to the size of the window, not to the size of the
+ * entire acquisition result.
+ * </p>
+ * <p>
+ * Sample indices of a view are relative to the start of its window, while
+ * timestamps remain absolute, so they can be used directly for annotations
+ * and cursors. The trigger is only available if it lies inside the window.
+ * </p>
+ */
+public final class AcquisitionResultView implements AcquisitionResult
+{
+  // VARIABLES
+
+  private final AcquisitionResult source;
+  private final int offset;
+  private final int length;
+  private final int channelMask;
+
+  private volatile int[] values;
+  private volatile long[] timestamps;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new AcquisitionResultView instance.
+   *
+   * @param aSource
+   *          the acquisition result to create a view on, cannot be
+   *          <code>null</code>;
+   * @param aFirstSampleIdx
+   *          the index of the first sample in the view, &gt;= 0;
+   * @param aLastSampleIdx
+   *          the index of the last sample (inclusive) in the view;
+   * @param aChannelMask
+   *          the bitmask of channels to project the view on, for example,
+   *          0x03 for the first two channels.
+   * @throws IllegalArgumentException
+   *           in case the given source was <code>null</code>, or the given
+   *           sample indices were invalid.
+   */
+  public AcquisitionResultView( final AcquisitionResult aSource, final int aFirstSampleIdx,
+      final int aLastSampleIdx, final int aChannelMask )
+  {
+    if ( aSource == null )
+    {
+      throw new IllegalArgumentException( "Source cannot be null!" );
+    }
+
+    final int sampleCount = aSource.getValues().length;
+    if ( ( aFirstSampleIdx < 0 ) || ( aFirstSampleIdx > sampleCount ) )
+    {
+      throw new IllegalArgumentException( "Invalid first sample index: " + aFirstSampleIdx );
+    }
+    if ( ( aLastSampleIdx < ( aFirstSampleIdx - 1 ) ) || ( aLastSampleIdx >= sampleCount ) )
+    {
+      throw new IllegalArgumentException( "Invalid last sample index: " + aLastSampleIdx );
+    }
+
+    this.source = aSource;
+    this.offset = aFirstSampleIdx;
+    this.length = aLastSampleIdx - aFirstSampleIdx + 1;
+    this.channelMask = aChannelMask;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the timestamp directly following the window, or the absolute
+   * length of the underlying acquisition result if the window extends up to
+   * its last sample.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getAbsoluteLength()
+   */
+  @Override
+  public long getAbsoluteLength()
+  {
+    final int end = this.offset + this.length;
+    if ( end >= this.source.getTimestamps().length )
+    {
+      return this.source.getAbsoluteLength();
+    }
+    return this.source.getTimestamps()[end];
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getChannels()
+   */
+  @Override
+  public int getChannels()
+  {
+    return this.source.getChannels();
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getEnabledChannels()
+   */
+  @Override
+  public int getEnabledChannels()
+  {
+    return this.source.getEnabledChannels() & this.channelMask;
+  }
+
+  /**
+   * Returns the number of samples in this view.
+   *
+   * @return a sample count, &gt;= 0.
+   */
+  public int getLength()
+  {
+    return this.length;
+  }
+
+  /**
+   * Returns the index of the first sample of this view in the underlying
+   * acquisition result.
+   *
+   * @return a sample index, &gt;= 0.
+   */
+  public int getOffset()
+  {
+    return this.offset;
+  }
+
+  /**
+   * Returns the sample index, relative to the start of this window, from the
+   * given absolute time value.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleIndex(long)
+   */
+  @Override
+  public int getSampleIndex( final long aTimeValue )
+  {
+    if ( this.length == 0 )
+    {
+      return 0;
+    }
+    final long[] ts = this.source.getTimestamps();
+    final int idx = CapturedData.binarySearch( ts, this.offset, this.offset + this.length, Long.valueOf( aTimeValue ) );
+    return Math.max( 0, Math.min( this.length - 1, idx - this.offset ) );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getSampleRate()
+   */
+  @Override
+  public int getSampleRate()
+  {
+    return this.source.getSampleRate();
+  }
+
+  /**
+   * Returns the underlying acquisition result of this view.
+   *
+   * @return the source, never <code>null</code>.
+   */
+  public AcquisitionResult getSource()
+  {
+    return this.source;
+  }
+
+  /**
+   * Returns the (absolute) timestamp of a single sample of this view, without
+   * copying any data.
+   *
+   * @param aIndex
+   *          the sample index, relative to the start of this window, &gt;= 0
+   *          &amp;&amp; &lt; {@link #getLength()}.
+   * @return a timestamp.
+   */
+  public long getTimestamp( final int aIndex )
+  {
+    return this.source.getTimestamps()[this.offset + aIndex];
+  }
+
+  /**
+   * Returns a copy of the timestamps of the samples in this window. The copy is
+   * made once, upon the first call to this method.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTimestamps()
+   */
+  @Override
+  public long[] getTimestamps()
+  {
+    long[] result = this.timestamps;
+    if ( result == null )
+    {
+      result = Arrays.copyOfRange( this.source.getTimestamps(), this.offset, this.offset + this.length );
+      this.timestamps = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the index of the trigger sample, relative to the start of this
+   * window.
+   *
+   * @return a sample index, &gt;= 0 &amp;&amp; &lt; {@link #getLength()}, or -1
+   *         if there is no trigger or the trigger lies outside this window.
+   */
+  public int getTriggerIndex()
+  {
+    if ( !hasTriggerData() )
+    {
+      return -1;
+    }
+    return getSampleIndex( this.source.getTriggerPosition() );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getTriggerPosition()
+   */
+  @Override
+  public long getTriggerPosition()
+  {
+    return hasTriggerData() ? this.source.getTriggerPosition() : Ols.NOT_AVAILABLE;
+  }
+
+  /**
+   * Returns the value of a single sample of this view, without copying any
+   * data.
+   *
+   * @param aIndex
+   *          the sample index, relative to the start of this window, &gt;= 0
+   *          &amp;&amp; &lt; {@link #getLength()}.
+   * @return a sample value, projected onto the channels of this view.
+   */
+  public int getValue( final int aIndex )
+  {
+    return this.source.getValues()[this.offset + aIndex] & this.channelMask;
+  }
+
+  /**
+   * Returns a copy of the values of the samples in this window, projected onto
+   * the channels of this view. The copy is made once, upon the first call to
+   * this method.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#getValues()
+   */
+  @Override
+  public int[] getValues()
+  {
+    int[] result = this.values;
+    if ( result == null )
+    {
+      final int[] sourceValues = this.source.getValues();
+
+      result = new int[this.length];
+      for ( int i = 0; i < this.length; i++ )
+      {
+        result[i] = sourceValues[this.offset + i] & this.channelMask;
+      }
+      this.values = result;
+    }
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTimingData()
+   */
+  @Override
+  public boolean hasTimingData()
+  {
+    return this.source.hasTimingData();
+  }
+
+  /**
+   * Returns whether the trigger of the underlying acquisition result lies
+   * inside this window.
+   *
+   * @see nl.lxtreme.ols.api.acquisition.AcquisitionResult#hasTriggerData()
+   */
+  @Override
+  public boolean hasTriggerData()
+  {
+    if ( !this.source.hasTriggerData() || ( this.length == 0 ) )
+    {
+      return false;
+    }
+    final long trigger = this.source.getTriggerPosition();
+    return ( trigger >= getTimestamp( 0 ) ) && ( trigger < getAbsoluteLength() );
+  }
+}
+
+/* EOF */
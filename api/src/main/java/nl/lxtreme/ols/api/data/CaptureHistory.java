@@ -0,0 +1,508 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Keeps a bounded history of the most recent acquisition results.
+ * <p>
+ * The history is bounded in two ways: by a maximum number of acquisition
+ * results, and by a memory budget for the samples of the acquisition results
+ * kept in memory. When the memory budget is exceeded, the oldest acquisition
+ * results are either evicted, or, if a spill directory is given, written to a
+ * binary file in that directory, and read back when requested. The most recent
+ * acquisition result is always kept in memory.
+ * </p>
+ * <p>
+ * Derived data cached on an acquisition result, such as its channel
+ * statistics and prefix sums, is not part of the memory budget. Instead, it is
+ * dropped as soon as a newer acquisition result is added, and when the
+ * acquisition result is spilled or leaves the history, so only the most
+ * recent acquisition result holds on to it.
+ * </p>
+ * <p>
+ * The spill directory is owned by the history: spill files are deleted as
+ * soon as their acquisition result leaves the history, and the directory
+ * itself is deleted when the history is cleared.
+ * </p>
+ * <p>
+ * Each acquisition result added to the history gets an increasing sequence
+ * number, which remains valid as long as it is part of the history.
+ * </p>
+ */
+public final class CaptureHistory
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a single acquisition result in the history.
+   */
+  static final class Entry
+  {
+    // VARIABLES
+
+    final int seqNo;
+    final long memorySize;
+    AcquisitionResult data;
+    File spillFile;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final int aSeqNo, final AcquisitionResult aData )
+    {
+      this.seqNo = aSeqNo;
+      this.memorySize = getMemorySize( aData );
+      this.data = aData;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int SPILL_MAGIC = 0x4f4c5348; // "OLSH"
+  private static final int HEADER_SIZE = 36;
+  private static final int BLOCK_SIZE = 1 << 20;
+
+  // VARIABLES
+
+  private final int maxCaptures;
+  private final long memoryBudget;
+  private final File spillDir;
+  private final List<Entry> entries;
+
+  private long memoryUsage;
+  private int nextSeqNo;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureHistory instance.
+   * 
+   * @param aMaxCaptures
+   *          the maximum number of acquisition results to keep, &gt; 0;
+   * @param aMemoryBudget
+   *          the maximum number of bytes the samples of the acquisition results
+   *          kept in memory may use, &gt;= 0;
+   * @param aSpillDir
+   *          the directory to write acquisition results to that do not fit in
+   *          the memory budget, or <code>null</code> to evict them instead.
+   */
+  public CaptureHistory( final int aMaxCaptures, final long aMemoryBudget, final File aSpillDir )
+  {
+    if ( aMaxCaptures <= 0 )
+    {
+      throw new IllegalArgumentException( "Maximum number of captures should be positive!" );
+    }
+    if ( aMemoryBudget < 0L )
+    {
+      throw new IllegalArgumentException( "Memory budget cannot be negative!" );
+    }
+    if ( ( aSpillDir != null ) && !aSpillDir.isDirectory() )
+    {
+      throw new IllegalArgumentException( "Spill directory does not exist: " + aSpillDir );
+    }
+
+    this.maxCaptures = aMaxCaptures;
+    this.memoryBudget = aMemoryBudget;
+    this.spillDir = aSpillDir;
+    this.entries = new ArrayList<Entry>();
+    this.nextSeqNo = 1;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of bytes used by the samples of the given acquisition
+   * result.
+   * 
+   * @param aData
+   *          the acquisition result to return the size for, cannot be
+   *          <code>null</code>.
+   * @return a size, in bytes.
+   */
+  public static long getMemorySize( final AcquisitionResult aData )
+  {
+    return ( 4L * aData.getValues().length ) + ( 8L * aData.getTimestamps().length );
+  }
+
+  /**
+   * Drops the derived data cached on the given acquisition result, if any.
+   */
+  private static void releaseDerivedData( final AcquisitionResult aData )
+  {
+    if ( aData instanceof CapturedData )
+    {
+      ( ( CapturedData )aData ).releaseDerivedData();
+    }
+  }
+
+  /**
+   * Reads a spilled acquisition result back from the given file.
+   */
+  private static AcquisitionResult readSpillFile( final File aFile ) throws IOException
+  {
+    final FileInputStream fis = new FileInputStream( aFile );
+    try
+    {
+      final FileChannel channel = fis.getChannel();
+
+      final ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+      readFully( channel, header );
+      header.flip();
+
+      if ( header.getInt() != SPILL_MAGIC )
+      {
+        throw new IOException( "Not a spilled capture: " + aFile );
+      }
+      final int rate = header.getInt();
+      final int channels = header.getInt();
+      final int enabledChannels = header.getInt();
+      final long triggerPos = header.getLong();
+      final long absLength = header.getLong();
+      final int count = header.getInt();
+
+      final int[] values = new int[count];
+      final long[] timestamps = new long[count];
+
+      final ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+      for ( int i = 0; i < count; )
+      {
+        final int n = Math.min( count - i, BLOCK_SIZE / 4 );
+        block.clear().limit( n * 4 );
+        readFully( channel, block );
+        block.flip();
+        block.asIntBuffer().get( values, i, n );
+        i += n;
+      }
+      for ( int i = 0; i < count; )
+      {
+        final int n = Math.min( count - i, BLOCK_SIZE / 8 );
+        block.clear().limit( n * 8 );
+        readFully( channel, block );
+        block.flip();
+        block.asLongBuffer().get( timestamps, i, n );
+        i += n;
+      }
+
+      return new CapturedData( values, timestamps, triggerPos, rate, channels, enabledChannels, absLength );
+    }
+    finally
+    {
+      fis.close();
+    }
+  }
+
+  /**
+   * Fills the given buffer completely from the given channel.
+   */
+  private static void readFully( final ReadableByteChannel aChannel, final ByteBuffer aBuffer ) throws IOException
+  {
+    while ( aBuffer.hasRemaining() )
+    {
+      if ( aChannel.read( aBuffer ) < 0 )
+      {
+        throw new EOFException( "Unexpected end of spilled capture!" );
+      }
+    }
+  }
+
+  /**
+   * Writes the given buffer completely to the given channel.
+   */
+  private static void writeFully( final WritableByteChannel aChannel, final ByteBuffer aBuffer ) throws IOException
+  {
+    while ( aBuffer.hasRemaining() )
+    {
+      aChannel.write( aBuffer );
+    }
+  }
+
+  /**
+   * Adds the given acquisition result to this history, evicting or spilling
+   * the oldest acquisition results as needed.
+   * 
+   * @param aData
+   *          the acquisition result to add, cannot be <code>null</code>.
+   * @return the sequence number of the added acquisition result.
+   * @throws IOException
+   *           in case spilling an acquisition result failed.
+   */
+  public synchronized int add( final AcquisitionResult aData ) throws IOException
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+
+    // The older acquisition results are no longer the most recent one...
+    for ( Entry older : this.entries )
+    {
+      if ( older.data != null )
+      {
+        releaseDerivedData( older.data );
+      }
+    }
+
+    final Entry entry = new Entry( this.nextSeqNo++, aData );
+    this.entries.add( entry );
+    this.memoryUsage += entry.memorySize;
+
+    while ( this.entries.size() > this.maxCaptures )
+    {
+      remove( 0 );
+    }
+
+    // Spill or evict the oldest acquisition results that are still in memory,
+    // but always keep the most recent one...
+    int idx = 0;
+    while ( ( this.memoryUsage > this.memoryBudget ) && ( idx < ( this.entries.size() - 1 ) ) )
+    {
+      final Entry oldest = this.entries.get( idx );
+      if ( oldest.data == null )
+      {
+        idx++;
+      }
+      else if ( this.spillDir != null )
+      {
+        spill( oldest );
+        idx++;
+      }
+      else
+      {
+        remove( idx );
+      }
+    }
+
+    return entry.seqNo;
+  }
+
+  /**
+   * Removes all acquisition results from this history, including those that
+   * are spilled, and deletes the spill directory, if any. The spill directory
+   * is created again when an acquisition result needs to be spilled.
+   * 
+   * @return <code>true</code> if all spill files and the spill directory are
+   *         deleted, <code>false</code> otherwise.
+   */
+  public synchronized boolean clear()
+  {
+    boolean deleted = true;
+    while ( !this.entries.isEmpty() )
+    {
+      deleted &= remove( 0 );
+    }
+    if ( ( this.spillDir != null ) && this.spillDir.exists() )
+    {
+      deleted &= this.spillDir.delete();
+    }
+    return deleted;
+  }
+
+  /**
+   * Returns the acquisition result at the given index, reading it back in
+   * case it is spilled.
+   * 
+   * @param aIndex
+   *          the index of the acquisition result, with 0 being the oldest.
+   * @return the acquisition result, never <code>null</code>.
+   * @throws IOException
+   *           in case reading a spilled acquisition result failed.
+   */
+  public synchronized AcquisitionResult get( final int aIndex ) throws IOException
+  {
+    final Entry entry = this.entries.get( aIndex );
+    if ( entry.data != null )
+    {
+      return entry.data;
+    }
+    return readSpillFile( entry.spillFile );
+  }
+
+  /**
+   * Returns the number of bytes used by the samples of the acquisition results
+   * kept in memory.
+   * 
+   * @return a size, in bytes.
+   */
+  public synchronized long getMemoryUsage()
+  {
+    return this.memoryUsage;
+  }
+
+  /**
+   * Returns the sequence number of the acquisition result at the given index.
+   * 
+   * @param aIndex
+   *          the index of the acquisition result, with 0 being the oldest.
+   * @return a sequence number, &gt; 0.
+   */
+  public synchronized int getSequenceNumber( final int aIndex )
+  {
+    return this.entries.get( aIndex ).seqNo;
+  }
+
+  /**
+   * Returns the index of the acquisition result with the given sequence
+   * number.
+   * 
+   * @param aSeqNo
+   *          the sequence number to search for.
+   * @return an index, or -1 if the acquisition result is no longer part of
+   *         this history.
+   */
+  public synchronized int indexOf( final int aSeqNo )
+  {
+    for ( int i = 0; i < this.entries.size(); i++ )
+    {
+      if ( this.entries.get( i ).seqNo == aSeqNo )
+      {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns whether the acquisition result at the given index is spilled to
+   * disk.
+   * 
+   * @param aIndex
+   *          the index of the acquisition result, with 0 being the oldest.
+   * @return <code>true</code> if the acquisition result is spilled,
+   *         <code>false</code> if it is kept in memory.
+   */
+  public synchronized boolean isSpilled( final int aIndex )
+  {
+    return this.entries.get( aIndex ).data == null;
+  }
+
+  /**
+   * Returns the number of acquisition results in this history.
+   * 
+   * @return a size, &gt;= 0.
+   */
+  public synchronized int size()
+  {
+    return this.entries.size();
+  }
+
+  /**
+   * Removes the entry at the given index, deleting its spill file, if any.
+   * 
+   * @return <code>false</code> if the spill file could not be deleted,
+   *         <code>true</code> otherwise.
+   */
+  private boolean remove( final int aIndex )
+  {
+    final Entry entry = this.entries.remove( aIndex );
+    if ( entry.data != null )
+    {
+      releaseDerivedData( entry.data );
+      this.memoryUsage -= entry.memorySize;
+    }
+    return ( entry.spillFile == null ) || entry.spillFile.delete();
+  }
+
+  /**
+   * Writes the acquisition result of the given entry to a spill file, and
+   * releases it from memory.
+   */
+  private void spill( final Entry aEntry ) throws IOException
+  {
+    final AcquisitionResult data = aEntry.data;
+    final int[] values = data.getValues();
+    final long[] timestamps = data.getTimestamps();
+
+    if ( !this.spillDir.isDirectory() && !this.spillDir.mkdirs() )
+    {
+      throw new IOException( "Failed to create spill directory: " + this.spillDir );
+    }
+
+    final File file = File.createTempFile( "capture-" + aEntry.seqNo + "-", ".bin", this.spillDir );
+
+    boolean written = false;
+
+    final FileOutputStream fos = new FileOutputStream( file );
+    try
+    {
+      final FileChannel channel = fos.getChannel();
+
+      final ByteBuffer header = ByteBuffer.allocate( HEADER_SIZE );
+      header.putInt( SPILL_MAGIC );
+      header.putInt( data.getSampleRate() );
+      header.putInt( data.getChannels() );
+      header.putInt( data.getEnabledChannels() );
+      header.putLong( data.getTriggerPosition() );
+      header.putLong( data.getAbsoluteLength() );
+      header.putInt( values.length );
+      header.flip();
+      writeFully( channel, header );
+
+      final ByteBuffer block = ByteBuffer.allocate( BLOCK_SIZE );
+      for ( int i = 0; i < values.length; )
+      {
+        final int n = Math.min( values.length - i, BLOCK_SIZE / 4 );
+        block.clear();
+        block.asIntBuffer().put( values, i, n );
+        block.limit( n * 4 );
+        writeFully( channel, block );
+        i += n;
+      }
+      for ( int i = 0; i < timestamps.length; )
+      {
+        final int n = Math.min( timestamps.length - i, BLOCK_SIZE / 8 );
+        block.clear();
+        block.asLongBuffer().put( timestamps, i, n );
+        block.limit( n * 8 );
+        writeFully( channel, block );
+        i += n;
+      }
+
+      written = true;
+    }
+    finally
+    {
+      fos.close();
+      if ( !written )
+      {
+        file.delete();
+      }
+    }
+
+    releaseDerivedData( data );
+
+    aEntry.spillFile = file;
+    aEntry.data = null;
+    this.memoryUsage -= aEntry.memorySize;
+  }
+}
+
+/* EOF */
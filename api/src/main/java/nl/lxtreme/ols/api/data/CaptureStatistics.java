@@ -0,0 +1,446 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.analysis.*;
+
+
+/**
+ * Provides the statistics of all channels of an acquisition result, like their
+ * edge counts, pulse widths and whether or not they are static.
+ * <p>
+ * The statistics of all channels are calculated in a single pass over the
+ * sample values. For large acquisition results, this pass is split in chunks
+ * that are scanned in parallel, after which the results of all chunks are
+ * merged.
+ * </p>
+ */
+public final class CaptureStatistics
+{
+  // INNER TYPES
+
+  /**
+   * Calculates the statistics for all channels of a consecutive range of
+   * samples; also used to merge the results of multiple ranges.
+   */
+  static final class ChunkScanner implements Callable<ChunkScanner>
+  {
+    // VARIABLES
+
+    private final int[] values;
+    private final long[] timestamps;
+    private final int mask;
+    private final int from;
+    private final int to;
+
+    final long[] firstEdge;
+    final boolean[] firstEdgeRising;
+    final long[] lastEdge;
+    final int[] risingEdges;
+    final int[] fallingEdges;
+    final long[] highTime;
+    final long[] lowTime;
+    final long[] minHighWidth;
+    final long[] maxHighWidth;
+    final long[] minLowWidth;
+    final long[] maxLowWidth;
+    final IntFrequency[] widths;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ChunkScanner instance.
+     */
+    ChunkScanner( final int[] aValues, final long[] aTimestamps, final int aMask, final int aFrom, final int aTo )
+    {
+      this.values = aValues;
+      this.timestamps = aTimestamps;
+      this.mask = aMask;
+      this.from = aFrom;
+      this.to = aTo;
+
+      this.firstEdge = new long[Ols.MAX_CHANNELS];
+      this.firstEdgeRising = new boolean[Ols.MAX_CHANNELS];
+      this.lastEdge = new long[Ols.MAX_CHANNELS];
+      this.risingEdges = new int[Ols.MAX_CHANNELS];
+      this.fallingEdges = new int[Ols.MAX_CHANNELS];
+      this.highTime = new long[Ols.MAX_CHANNELS];
+      this.lowTime = new long[Ols.MAX_CHANNELS];
+      this.minHighWidth = new long[Ols.MAX_CHANNELS];
+      this.maxHighWidth = new long[Ols.MAX_CHANNELS];
+      this.minLowWidth = new long[Ols.MAX_CHANNELS];
+      this.maxLowWidth = new long[Ols.MAX_CHANNELS];
+      this.widths = new IntFrequency[Ols.MAX_CHANNELS];
+
+      Arrays.fill( this.firstEdge, -1L );
+      Arrays.fill( this.lastEdge, -1L );
+      Arrays.fill( this.minHighWidth, -1L );
+      Arrays.fill( this.maxHighWidth, -1L );
+      Arrays.fill( this.minLowWidth, -1L );
+      Arrays.fill( this.maxLowWidth, -1L );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ChunkScanner call() throws InterruptedException
+    {
+      // Edges are detected by comparing a sample with its predecessor...
+      int oldValue = this.values[Math.max( 0, this.from - 1 )] & this.mask;
+
+      for ( int i = Math.max( 1, this.from ); i < this.to; i++ )
+      {
+        final int value = this.values[i] & this.mask;
+
+        int changed = value ^ oldValue;
+        while ( changed != 0 )
+        {
+          final int bit = Integer.numberOfTrailingZeros( changed );
+          changed &= ( changed - 1 );
+
+          addEdge( bit, this.timestamps[i], ( value & ( 1 << bit ) ) != 0 );
+        }
+        oldValue = value;
+
+        if ( ( ( i & 0xFFFF ) == 0 ) && Thread.currentThread().isInterrupted() )
+        {
+          throw new InterruptedException();
+        }
+      }
+
+      return this;
+    }
+
+    /**
+     * Appends the results of the chunk directly following the chunk(s) merged
+     * in this scanner.
+     * 
+     * @param aNext
+     *          the results of the next chunk;
+     * @param aStartTimestamp
+     *          the timestamp of the very first sample, used to determine the
+     *          time before the first edge of a channel.
+     */
+    void append( final ChunkScanner aNext, final long aStartTimestamp )
+    {
+      for ( int bit = 0; bit < Ols.MAX_CHANNELS; bit++ )
+      {
+        if ( aNext.firstEdge[bit] < 0L )
+        {
+          // No edges in the next chunk...
+          continue;
+        }
+
+        // The period spanning both chunks...
+        final long periodStart = ( this.lastEdge[bit] < 0L ) ? aStartTimestamp : this.lastEdge[bit];
+        addPeriod( bit, aNext.firstEdge[bit] - periodStart, aNext.firstEdgeRising[bit], this.lastEdge[bit] >= 0L );
+
+        if ( this.firstEdge[bit] < 0L )
+        {
+          this.firstEdge[bit] = aNext.firstEdge[bit];
+          this.firstEdgeRising[bit] = aNext.firstEdgeRising[bit];
+        }
+        this.lastEdge[bit] = aNext.lastEdge[bit];
+
+        // The periods within the next chunk...
+        this.risingEdges[bit] += aNext.risingEdges[bit];
+        this.fallingEdges[bit] += aNext.fallingEdges[bit];
+        this.highTime[bit] += aNext.highTime[bit];
+        this.lowTime[bit] += aNext.lowTime[bit];
+        this.minHighWidth[bit] = min( this.minHighWidth[bit], aNext.minHighWidth[bit] );
+        this.maxHighWidth[bit] = Math.max( this.maxHighWidth[bit], aNext.maxHighWidth[bit] );
+        this.minLowWidth[bit] = min( this.minLowWidth[bit], aNext.minLowWidth[bit] );
+        this.maxLowWidth[bit] = Math.max( this.maxLowWidth[bit], aNext.maxLowWidth[bit] );
+
+        final IntFrequency nextWidths = aNext.widths[bit];
+        if ( nextWidths != null )
+        {
+          for ( int width : nextWidths.values() )
+          {
+            getWidths( bit ).addValue( width, nextWidths.getCount( width ) );
+          }
+        }
+      }
+    }
+
+    /**
+     * Returns the smallest of two widths, either of which can be -1.
+     */
+    private static long min( final long aWidth1, final long aWidth2 )
+    {
+      if ( ( aWidth1 < 0L ) || ( aWidth2 < 0L ) )
+      {
+        return Math.max( aWidth1, aWidth2 );
+      }
+      return Math.min( aWidth1, aWidth2 );
+    }
+
+    /**
+     * Registers a single edge of a channel.
+     */
+    private void addEdge( final int aBit, final long aTimestamp, final boolean aRising )
+    {
+      if ( this.firstEdge[aBit] < 0L )
+      {
+        this.firstEdge[aBit] = aTimestamp;
+        this.firstEdgeRising[aBit] = aRising;
+      }
+      else
+      {
+        addPeriod( aBit, aTimestamp - this.lastEdge[aBit], aRising, true /* aPulse */);
+      }
+      this.lastEdge[aBit] = aTimestamp;
+
+      if ( aRising )
+      {
+        this.risingEdges[aBit]++;
+      }
+      else
+      {
+        this.fallingEdges[aBit]++;
+      }
+    }
+
+    /**
+     * Registers the period before an edge of a channel.
+     */
+    private void addPeriod( final int aBit, final long aWidth, final boolean aRising, final boolean aPulse )
+    {
+      if ( aRising )
+      {
+        // Low to high transition: previously seen a low-state...
+        this.lowTime[aBit] += aWidth;
+        if ( aPulse )
+        {
+          this.minLowWidth[aBit] = min( this.minLowWidth[aBit], aWidth );
+          this.maxLowWidth[aBit] = Math.max( this.maxLowWidth[aBit], aWidth );
+        }
+      }
+      else
+      {
+        // High to low transition: previously seen a high-state...
+        this.highTime[aBit] += aWidth;
+        if ( aPulse )
+        {
+          this.minHighWidth[aBit] = min( this.minHighWidth[aBit], aWidth );
+          this.maxHighWidth[aBit] = Math.max( this.maxHighWidth[aBit], aWidth );
+        }
+      }
+
+      if ( aPulse )
+      {
+        getWidths( aBit ).addValue( ( int )Math.min( Integer.MAX_VALUE, aWidth ) );
+      }
+    }
+
+    /**
+     * Returns the pulse width distribution of a channel, creating it if needed.
+     */
+    private IntFrequency getWidths( final int aBit )
+    {
+      IntFrequency result = this.widths[aBit];
+      if ( result == null )
+      {
+        result = new IntFrequency();
+        this.widths[aBit] = result;
+      }
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The minimal number of samples scanned by a single thread. */
+  private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+  // VARIABLES
+
+  private final ChannelStatistics[] channels;
+  private final int enabledChannels;
+  private final int sampleRate;
+  private final long startTimestamp;
+  private final long absoluteLength;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureStatistics instance.
+   */
+  private CaptureStatistics( final AcquisitionResult aData, final ChunkScanner aResult )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    this.enabledChannels = aData.getEnabledChannels();
+    this.sampleRate = aData.getSampleRate();
+    this.startTimestamp = ( timestamps.length > 0 ) ? timestamps[0] : 0L;
+    this.absoluteLength = aData.getAbsoluteLength();
+
+    this.channels = new ChannelStatistics[Ols.MAX_CHANNELS];
+    for ( int i = 0; i < this.channels.length; i++ )
+    {
+      final IntFrequency widths = aResult.widths[i];
+      final int mostCommonWidth = ( widths == null ) ? -1 : widths.getHighestRanked( -1 );
+
+      this.channels[i] = new ChannelStatistics( i, aResult.risingEdges[i], aResult.fallingEdges[i],
+          aResult.highTime[i], aResult.lowTime[i], aResult.minHighWidth[i], aResult.maxHighWidth[i],
+          aResult.minLowWidth[i], aResult.maxLowWidth[i], mostCommonWidth );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Calculates the statistics of all enabled channels of the given acquisition
+   * result, using as many threads as there are processors.
+   * 
+   * @param aData
+   *          the acquisition result to calculate the statistics for, cannot be
+   *          <code>null</code>.
+   * @return the statistics, never <code>null</code>.
+   * @throws InterruptedException
+   *           in case the calculation was interrupted.
+   */
+  public static CaptureStatistics calculate( final AcquisitionResult aData ) throws InterruptedException
+  {
+    return calculate( aData, ParallelUtils.getParallelism() );
+  }
+
+  /**
+   * Calculates the statistics of all enabled channels of the given acquisition
+   * result.
+   * 
+   * @param aData
+   *          the acquisition result to calculate the statistics for, cannot be
+   *          <code>null</code>;
+   * @param aThreadCount
+   *          the maximum number of threads to use, &gt; 0.
+   * @return the statistics, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given data was <code>null</code> or the given thread
+   *           count was less than one;
+   * @throws InterruptedException
+   *           in case the calculation was interrupted.
+   */
+  public static CaptureStatistics calculate( final AcquisitionResult aData, final int aThreadCount )
+      throws InterruptedException
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+    if ( aThreadCount < 1 )
+    {
+      throw new IllegalArgumentException( "Thread count should be at least one!" );
+    }
+
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = aData.getEnabledChannels();
+    final int sampleCount = values.length;
+    final long startTimestamp = ( sampleCount > 0 ) ? timestamps[0] : 0L;
+
+    final ChunkScanner result = new ChunkScanner( values, timestamps, mask, 0, 0 );
+
+    final List<ChunkScanner> scanners = ParallelUtils.invokeChunked( 0, sampleCount, aThreadCount, MIN_CHUNK_SIZE,
+        new ParallelUtils.ChunkTaskFactory<ChunkScanner>()
+        {
+          @Override
+          public Callable<ChunkScanner> createTask( final int aStartIdx, final int aEndIdx )
+          {
+            return new ChunkScanner( values, timestamps, mask, aStartIdx, aEndIdx );
+          }
+        } );
+    for ( ChunkScanner scanner : scanners )
+    {
+      result.append( scanner, startTimestamp );
+    }
+
+    return new CaptureStatistics( aData, result );
+  }
+
+  /**
+   * Returns the statistics of a single channel.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the channel statistics, never <code>null</code>.
+   */
+  public ChannelStatistics getChannelStatistics( final int aChannelIdx )
+  {
+    return this.channels[aChannelIdx];
+  }
+
+  /**
+   * Returns the time over which the statistics are calculated, from the first
+   * sample up to the end of the acquisition result.
+   * 
+   * @return a time, in seconds.
+   */
+  public double getMeasureTime()
+  {
+    return Math.abs( ( this.absoluteLength - this.startTimestamp ) / ( double )this.sampleRate );
+  }
+
+  /**
+   * Returns the mask of all enabled channels that have no edges at all.
+   * 
+   * @return a channel mask.
+   */
+  public int getStaticChannels()
+  {
+    int result = 0;
+    for ( int i = 0; i < this.channels.length; i++ )
+    {
+      if ( this.channels[i].isStatic() )
+      {
+        result |= ( 1 << i );
+      }
+    }
+    return result & this.enabledChannels;
+  }
+
+  /**
+   * Returns the total number of edges of all channels.
+   * 
+   * @return an edge count, &gt;= 0.
+   */
+  public long getTotalEdgeCount()
+  {
+    long result = 0L;
+    for ( ChannelStatistics channel : this.channels )
+    {
+      result += channel.getEdgeCount();
+    }
+    return result;
+  }
+}
+
+/* EOF */
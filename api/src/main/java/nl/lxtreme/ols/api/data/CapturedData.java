@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.api.data;
 
 
+import java.lang.ref.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.*;
@@ -62,6 +63,16 @@ public class CapturedData implements AcquisitionResult
   /** absolute sample length */
   private final long absoluteLength;
 
+  /** the (lazily calculated) channel statistics */
+  private volatile CaptureStatistics statistics;
+
+  /**
+   * the (lazily created) prefix sums of each channel; these can be reclaimed
+   * when memory runs low, as they can always be created again
+   */
+  @SuppressWarnings( "unchecked" )
+  private final SoftReference<ChannelPrefixSums>[] prefixSums = new SoftReference[Ols.MAX_CHANNELS];
+
   // CONSTRUCTORS
 
   /**
@@ -283,6 +294,74 @@ public class CapturedData implements AcquisitionResult
     return this.channels;
   }
 
+  /**
+   * Returns the prefix sums of the given channel, creating them on first use,
+   * or after they have been reclaimed.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the prefix sums of the channel, never <code>null</code>.
+   */
+  public final ChannelPrefixSums getChannelPrefixSums( final int aChannelIdx )
+  {
+    return getChannelPrefixSums( new int[] { aChannelIdx } )[0];
+  }
+
+  /**
+   * Returns the prefix sums of the given channels, creating all missing ones
+   * in a single pass over the samples.
+   * 
+   * @param aChannelIndices
+   *          the indices of the channels, each &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the prefix sums of each of the given channels, in the same order
+   *         as the given channel indices.
+   */
+  public final ChannelPrefixSums[] getChannelPrefixSums( final int[] aChannelIndices )
+  {
+    synchronized ( this.prefixSums )
+    {
+      // Hold on to the cached prefix sums while creating the missing ones...
+      final ChannelPrefixSums[] result = new ChannelPrefixSums[aChannelIndices.length];
+
+      int missingMask = 0;
+      for ( int i = 0; i < result.length; i++ )
+      {
+        final SoftReference<ChannelPrefixSums> ref = this.prefixSums[aChannelIndices[i]];
+        result[i] = ( ref == null ) ? null : ref.get();
+        if ( result[i] == null )
+        {
+          missingMask |= ( 1 << aChannelIndices[i] );
+        }
+      }
+
+      if ( missingMask != 0 )
+      {
+        final int[] missing = new int[Integer.bitCount( missingMask )];
+        for ( int i = 0; i < missing.length; i++ )
+        {
+          missing[i] = Integer.numberOfTrailingZeros( missingMask );
+          missingMask &= ( missingMask - 1 );
+        }
+
+        final ChannelPrefixSums[] created = ChannelPrefixSums.create( this, missing );
+        for ( int i = 0; i < missing.length; i++ )
+        {
+          this.prefixSums[missing[i]] = new SoftReference<ChannelPrefixSums>( created[i] );
+        }
+
+        for ( int i = 0; i < result.length; i++ )
+        {
+          if ( result[i] == null )
+          {
+            result[i] = created[Arrays.binarySearch( missing, aChannelIndices[i] )];
+          }
+        }
+      }
+
+      return result;
+    }
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getEnabledChannels()
    */
@@ -310,6 +389,19 @@ public class CapturedData implements AcquisitionResult
     return this.rate;
   }
 
+  /**
+   * Returns the channel statistics of this captured data, if already
+   * calculated.
+   * 
+   * @return the channel statistics, or <code>null</code> if not (yet)
+   *         calculated.
+   * @see #setStatistics(CaptureStatistics)
+   */
+  public final CaptureStatistics getStatistics()
+  {
+    return this.statistics;
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTimestamps()
    */
@@ -355,4 +447,31 @@ public class CapturedData implements AcquisitionResult
     return ( this.triggerPosition != Ols.NOT_AVAILABLE );
   }
 
+  /**
+   * Drops the cached channel statistics and prefix sums of this captured data,
+   * for example when it is no longer shown. They are calculated again on their
+   * next use.
+   */
+  public final void releaseDerivedData()
+  {
+    this.statistics = null;
+
+    synchronized ( this.prefixSums )
+    {
+      Arrays.fill( this.prefixSums, null );
+    }
+  }
+
+  /**
+   * Caches the channel statistics of this captured data, so they need to be
+   * calculated only once.
+   * 
+   * @param aStatistics
+   *          the channel statistics of this captured data, can be
+   *          <code>null</code>.
+   */
+  public final void setStatistics( final CaptureStatistics aStatistics )
+  {
+    this.statistics = aStatistics;
+  }
 }
@@ -54,6 +54,23 @@ public interface Channel extends Comparable<Channel>
    */
   Collection<Annotation<?>> getAnnotations();
 
+  /**
+   * Returns the data annotations of this channel that (partially) fall inside
+   * the given boundaries.
+   * <p>
+   * Unlike {@link #getAnnotations()}, this method only creates the annotations
+   * that are actually returned, making it suitable for painting.
+   * </p>
+   * 
+   * @param aStartTimestamp
+   *          the start timestamp;
+   * @param aEndTimestamp
+   *          the end timestamp.
+   * @return a list with data annotations, in the order they were added, never
+   *         <code>null</code>.
+   */
+  List<DataAnnotation<?>> getDataAnnotations( long aStartTimestamp, long aEndTimestamp );
+
   /**
    * Returns the index of this channel.
    * 
@@ -76,6 +93,15 @@ public interface Channel extends Comparable<Channel>
    */
   int getMask();
 
+  /**
+   * Returns whether or not this channel has any annotations, without creating
+   * them.
+   * 
+   * @return <code>true</code> if this channel has annotations,
+   *         <code>false</code> otherwise.
+   */
+  boolean hasAnnotations();
+
   /**
    * Returns whether or not this channel has a name.
    * 
@@ -0,0 +1,435 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides the cumulative edge counts and high/low times of a single channel,
+ * allowing these to be determined for any range of samples with two binary
+ * searches, instead of iterating over all samples in that range.
+ * <p>
+ * The high (low) time of a range is the sum of the periods before each
+ * falling (rising) edge in that range, where the period before the first edge
+ * starts at the first sample of the range.
+ * </p>
+ */
+public final class ChannelPrefixSums
+{
+  // INNER TYPES
+
+  /**
+   * Provides the edge counts and high/low times of a range of samples.
+   */
+  public static final class Measurement
+  {
+    // VARIABLES
+
+    private final int risingEdgeCount;
+    private final int fallingEdgeCount;
+    private final long highTime;
+    private final long lowTime;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Measurement instance.
+     */
+    Measurement( final int aRisingEdgeCount, final int aFallingEdgeCount, final long aHighTime, final long aLowTime )
+    {
+      this.risingEdgeCount = aRisingEdgeCount;
+      this.fallingEdgeCount = aFallingEdgeCount;
+      this.highTime = aHighTime;
+      this.lowTime = aLowTime;
+    }
+
+    // METHODS
+
+    /**
+     * @return the number of falling edges, &gt;= 0.
+     */
+    public int getFallingEdgeCount()
+    {
+      return this.fallingEdgeCount;
+    }
+
+    /**
+     * @return the total time the channel was high before each falling edge,
+     *         &gt;= 0.
+     */
+    public long getHighTime()
+    {
+      return this.highTime;
+    }
+
+    /**
+     * @return the total time the channel was low before each rising edge,
+     *         &gt;= 0.
+     */
+    public long getLowTime()
+    {
+      return this.lowTime;
+    }
+
+    /**
+     * @return the number of rising edges, &gt;= 0.
+     */
+    public int getRisingEdgeCount()
+    {
+      return this.risingEdgeCount;
+    }
+  }
+
+  // VARIABLES
+
+  private final int channelIdx;
+  private final long[] timestamps;
+  /** the sample indices of all edges. */
+  private final int[] edges;
+  /** the total high time between the first edge and each edge. */
+  private final long[] highBefore;
+  /** the total low time between the first edge and each edge. */
+  private final long[] lowBefore;
+  /** whether the first edge is a rising edge. */
+  private final boolean firstRising;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChannelPrefixSums instance.
+   */
+  private ChannelPrefixSums( final int aChannelIdx, final long[] aTimestamps, final int[] aEdges,
+      final long[] aHighBefore, final long[] aLowBefore, final boolean aFirstRising )
+  {
+    this.channelIdx = aChannelIdx;
+    this.timestamps = aTimestamps;
+    this.edges = aEdges;
+    this.highBefore = aHighBefore;
+    this.lowBefore = aLowBefore;
+    this.firstRising = aFirstRising;
+  }
+
+  // METHODS
+
+  /**
+   * Creates the prefix sums for a single channel of the given acquisition
+   * result, which takes a single pass over all samples.
+   * 
+   * @param aData
+   *          the acquisition result to create the prefix sums for, cannot be
+   *          <code>null</code>;
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the prefix sums, never <code>null</code>.
+   */
+  public static ChannelPrefixSums create( final AcquisitionResult aData, final int aChannelIdx )
+  {
+    return create( aData, new int[] { aChannelIdx } )[0];
+  }
+
+  /**
+   * Creates the prefix sums for several channels of the given acquisition
+   * result, which takes a single pass over all samples for all channels
+   * together.
+   * 
+   * @param aData
+   *          the acquisition result to create the prefix sums for, cannot be
+   *          <code>null</code>;
+   * @param aChannelIndices
+   *          the indices of the channels, each &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the prefix sums of each of the given channels, in the same order
+   *         as the given channel indices.
+   */
+  public static ChannelPrefixSums[] create( final AcquisitionResult aData, final int[] aChannelIndices )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+
+    int mask = 0;
+    for ( int channelIdx : aChannelIndices )
+    {
+      mask |= ( 1 << channelIdx );
+    }
+
+    final int[] counts = new int[32];
+    final int[][] edges = new int[32][];
+    final long[][] highBefore = new long[32][];
+    final long[][] lowBefore = new long[32][];
+    final long[] high = new long[32];
+    final long[] low = new long[32];
+    for ( int channelIdx : aChannelIndices )
+    {
+      edges[channelIdx] = new int[64];
+      highBefore[channelIdx] = new long[64];
+      lowBefore[channelIdx] = new long[64];
+    }
+
+    int lastValue = ( values.length > 0 ) ? ( values[0] & mask ) : 0;
+    for ( int i = 1; i < values.length; i++ )
+    {
+      final int value = values[i] & mask;
+
+      int changed = value ^ lastValue;
+      while ( changed != 0 )
+      {
+        final int ch = Integer.numberOfTrailingZeros( changed );
+        changed &= ( changed - 1 );
+
+        int count = counts[ch];
+        if ( count == edges[ch].length )
+        {
+          final int newSize = count * 2;
+          edges[ch] = Arrays.copyOf( edges[ch], newSize );
+          highBefore[ch] = Arrays.copyOf( highBefore[ch], newSize );
+          lowBefore[ch] = Arrays.copyOf( lowBefore[ch], newSize );
+        }
+
+        if ( count > 0 )
+        {
+          final long period = timestamps[i] - timestamps[edges[ch][count - 1]];
+          if ( ( value & ( 1 << ch ) ) != 0 )
+          {
+            low[ch] += period;
+          }
+          else
+          {
+            high[ch] += period;
+          }
+        }
+
+        edges[ch][count] = i;
+        highBefore[ch][count] = high[ch];
+        lowBefore[ch][count] = low[ch];
+        counts[ch] = count + 1;
+      }
+
+      lastValue = value;
+    }
+
+    final ChannelPrefixSums[] result = new ChannelPrefixSums[aChannelIndices.length];
+    final ChannelPrefixSums[] byChannel = new ChannelPrefixSums[32];
+    for ( int i = 0; i < aChannelIndices.length; i++ )
+    {
+      final int ch = aChannelIndices[i];
+      if ( byChannel[ch] == null )
+      {
+        final int count = counts[ch];
+        final boolean firstRising = ( count > 0 ) && ( ( values[edges[ch][0]] & ( 1 << ch ) ) != 0 );
+
+        byChannel[ch] = new ChannelPrefixSums( ch, timestamps, Arrays.copyOf( edges[ch], count ), Arrays.copyOf(
+            highBefore[ch], count ), Arrays.copyOf( lowBefore[ch], count ), firstRising );
+      }
+      result[i] = byChannel[ch];
+    }
+    return result;
+  }
+
+  /**
+   * Returns the prefix sums for several channels of the given acquisition
+   * result. In case the acquisition result is a {@link CapturedData}, the
+   * prefix sums it already holds are reused, and all missing ones are created
+   * in a single pass over its samples.
+   * 
+   * @param aData
+   *          the acquisition result to return the prefix sums for, cannot be
+   *          <code>null</code>;
+   * @param aChannelIndices
+   *          the indices of the channels, each &gt;= 0 &amp;&amp; &lt; 32.
+   * @return the prefix sums of each of the given channels, in the same order
+   *         as the given channel indices.
+   */
+  public static ChannelPrefixSums[] get( final AcquisitionResult aData, final int... aChannelIndices )
+  {
+    if ( aData instanceof CapturedData )
+    {
+      return ( ( CapturedData )aData ).getChannelPrefixSums( aChannelIndices );
+    }
+    return create( aData, aChannelIndices );
+  }
+
+  /**
+   * Returns the index of the first edge that occurs after the given sample.
+   * <p>
+   * This also equals the number of edges that occur at or before the given
+   * sample.
+   * </p>
+   * 
+   * @param aSampleIdx
+   *          the index of the sample to search from.
+   * @return an edge index, &gt;= 0 &amp;&amp; &lt;= {@link #getEdgeCount()}.
+   */
+  public int findNextEdge( final int aSampleIdx )
+  {
+    int low = 0;
+    int high = this.edges.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.edges[mid] <= aSampleIdx )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first edge whose timestamp is at or after the
+   * given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search from.
+   * @return an edge index, &gt;= 0 &amp;&amp; &lt;= {@link #getEdgeCount()}.
+   */
+  public int findNextEdgeAtTime( final long aTimestamp )
+  {
+    int low = 0;
+    int high = this.edges.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.timestamps[this.edges[mid]] < aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the channel of these prefix sums.
+   * 
+   * @return a channel index, &gt;= 0 &amp;&amp; &lt; 32.
+   */
+  public int getChannelIdx()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * Returns the index of the sample at which the given edge occurs, that is,
+   * the first sample with the new channel value.
+   * 
+   * @param aEdgeIdx
+   *          the index of the edge, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #getEdgeCount()}.
+   * @return a sample index, &gt; 0.
+   */
+  public int getEdge( final int aEdgeIdx )
+  {
+    return this.edges[aEdgeIdx];
+  }
+
+  /**
+   * Returns the total number of edges of the channel.
+   * 
+   * @return an edge count, &gt;= 0.
+   */
+  public int getEdgeCount()
+  {
+    return this.edges.length;
+  }
+
+  /**
+   * Returns the timestamp at which the given edge occurs.
+   * 
+   * @param aEdgeIdx
+   *          the index of the edge, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #getEdgeCount()}.
+   * @return a timestamp.
+   */
+  public long getEdgeTimestamp( final int aEdgeIdx )
+  {
+    return this.timestamps[this.edges[aEdgeIdx]];
+  }
+
+  /**
+   * Returns whether the edge with the given index is a rising edge.
+   * 
+   * @param aEdgeIdx
+   *          the index of the edge, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #getEdgeCount()}.
+   * @return <code>true</code> if the channel goes from low to high at the
+   *         given edge, <code>false</code> if it goes from high to low.
+   */
+  public boolean isRising( final int aEdgeIdx )
+  {
+    // Edges alternate between rising and falling...
+    return this.firstRising == ( ( aEdgeIdx & 1 ) == 0 );
+  }
+
+  /**
+   * Measures the edges and high/low times of all edges that occur after the
+   * given start sample, up to and including the given end sample.
+   * 
+   * @param aStartIdx
+   *          the index of the first sample of the range;
+   * @param aEndIdx
+   *          the index of the last sample of the range.
+   * @return the measurement, never <code>null</code>.
+   */
+  public Measurement measure( final int aStartIdx, final int aEndIdx )
+  {
+    // The edges in the range are [first, last)...
+    final int first = findNextEdge( aStartIdx );
+    final int last = Math.max( first, findNextEdge( aEndIdx ) );
+    if ( first == last )
+    {
+      return new Measurement( 0, 0, 0L, 0L );
+    }
+
+    final int edgeCount = last - first;
+    // Edges alternate between rising and falling...
+    final int evenEdgeCount = ( ( last + 1 ) >>> 1 ) - ( ( first + 1 ) >>> 1 );
+    final int risingEdgeCount = this.firstRising ? evenEdgeCount : ( edgeCount - evenEdgeCount );
+
+    // The periods between the first and last edge in the range...
+    long highTime = this.highBefore[last - 1] - this.highBefore[first];
+    long lowTime = this.lowBefore[last - 1] - this.lowBefore[first];
+
+    // The period before the first edge in the range starts at the range...
+    final long firstPeriod = this.timestamps[this.edges[first]] - this.timestamps[aStartIdx];
+    if ( isRising( first ) )
+    {
+      lowTime += firstPeriod;
+    }
+    else
+    {
+      highTime += firstPeriod;
+    }
+
+    return new Measurement( risingEdgeCount, edgeCount - risingEdgeCount, highTime, lowTime );
+  }
+}
+
+/* EOF */
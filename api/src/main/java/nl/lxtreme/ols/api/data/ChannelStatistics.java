@@ -0,0 +1,197 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+/**
+ * Provides the statistics of a single channel over an entire acquisition
+ * result, as calculated by {@link CaptureStatistics}.
+ * <p>
+ * All times and widths are expressed in the time unit of the acquisition
+ * result. A pulse is the interval between two consecutive edges of a channel;
+ * the (partial) intervals before the first and after the last edge are not
+ * considered to be pulses.
+ * </p>
+ */
+public final class ChannelStatistics
+{
+  // VARIABLES
+
+  private final int channelIdx;
+  private final int risingEdgeCount;
+  private final int fallingEdgeCount;
+  private final long highTime;
+  private final long lowTime;
+  private final long minHighWidth;
+  private final long maxHighWidth;
+  private final long minLowWidth;
+  private final long maxLowWidth;
+  private final int mostCommonWidth;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChannelStatistics instance.
+   */
+  ChannelStatistics( final int aChannelIdx, final int aRisingEdgeCount, final int aFallingEdgeCount,
+      final long aHighTime, final long aLowTime, final long aMinHighWidth, final long aMaxHighWidth,
+      final long aMinLowWidth, final long aMaxLowWidth, final int aMostCommonWidth )
+  {
+    this.channelIdx = aChannelIdx;
+    this.risingEdgeCount = aRisingEdgeCount;
+    this.fallingEdgeCount = aFallingEdgeCount;
+    this.highTime = aHighTime;
+    this.lowTime = aLowTime;
+    this.minHighWidth = aMinHighWidth;
+    this.maxHighWidth = aMaxHighWidth;
+    this.minLowWidth = aMinLowWidth;
+    this.maxLowWidth = aMaxLowWidth;
+    this.mostCommonWidth = aMostCommonWidth;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the index of the channel these statistics belong to.
+   * 
+   * @return a channel index, &gt;= 0 &amp;&amp; &lt; 32.
+   */
+  public int getChannelIndex()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * Returns the total number of edges of this channel.
+   * 
+   * @return an edge count, &gt;= 0.
+   */
+  public int getEdgeCount()
+  {
+    return this.risingEdgeCount + this.fallingEdgeCount;
+  }
+
+  /**
+   * Returns the number of falling edges of this channel.
+   * 
+   * @return a falling edge count, &gt;= 0.
+   */
+  public int getFallingEdgeCount()
+  {
+    return this.fallingEdgeCount;
+  }
+
+  /**
+   * Returns the total time this channel was high before each of its falling
+   * edges, measured from the start of the acquisition result.
+   * 
+   * @return a total high time, &gt;= 0.
+   */
+  public long getHighTime()
+  {
+    return this.highTime;
+  }
+
+  /**
+   * Returns the total time this channel was low before each of its rising
+   * edges, measured from the start of the acquisition result.
+   * 
+   * @return a total low time, &gt;= 0.
+   */
+  public long getLowTime()
+  {
+    return this.lowTime;
+  }
+
+  /**
+   * Returns the width of the longest high pulse.
+   * 
+   * @return a pulse width, or -1 if this channel has no high pulses.
+   */
+  public long getMaxHighWidth()
+  {
+    return this.maxHighWidth;
+  }
+
+  /**
+   * Returns the width of the longest low pulse.
+   * 
+   * @return a pulse width, or -1 if this channel has no low pulses.
+   */
+  public long getMaxLowWidth()
+  {
+    return this.maxLowWidth;
+  }
+
+  /**
+   * Returns the width of the shortest high pulse.
+   * 
+   * @return a pulse width, or -1 if this channel has no high pulses.
+   */
+  public long getMinHighWidth()
+  {
+    return this.minHighWidth;
+  }
+
+  /**
+   * Returns the width of the shortest low pulse.
+   * 
+   * @return a pulse width, or -1 if this channel has no low pulses.
+   */
+  public long getMinLowWidth()
+  {
+    return this.minLowWidth;
+  }
+
+  /**
+   * Returns the most common width of the pulses of this channel, which, for
+   * example, corresponds to the bit length of an asynchronous serial signal.
+   * 
+   * @return a pulse width, or -1 if this channel has no pulses.
+   */
+  public int getMostCommonPulseWidth()
+  {
+    return this.mostCommonWidth;
+  }
+
+  /**
+   * Returns the number of rising edges of this channel.
+   * 
+   * @return a rising edge count, &gt;= 0.
+   */
+  public int getRisingEdgeCount()
+  {
+    return this.risingEdgeCount;
+  }
+
+  /**
+   * Returns whether this channel is static, that is, has no edges at all.
+   * 
+   * @return <code>true</code> if this channel is static, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isStatic()
+  {
+    return ( this.risingEdgeCount + this.fallingEdgeCount ) == 0;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,67 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.export;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+
+
+/**
+ * Provides an importer for importing data from an external entity, such as a
+ * file.
+ */
+public interface Importer
+{
+  // METHODS
+
+  /**
+   * Imports the data from the given stream into the given project.
+   * 
+   * @param aProject
+   *          the project to import the data into, can never be
+   *          <code>null</code>;
+   * @param aStream
+   *          the input stream to read the data from, can never be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the data could not be
+   *           imported.
+   */
+  void importData( final Project aProject, final InputStream aStream ) throws IOException;
+
+  /**
+   * Returns the file extensions supported by this importer.
+   * 
+   * @return the supported file extensions, never <code>null</code>, but may be
+   *         empty.
+   * @see Exporter#getFilenameExtentions()
+   */
+  String[] getFilenameExtentions();
+
+  /**
+   * Returns the name of this importer.
+   * 
+   * @return a name, never <code>null</code> or empty.
+   */
+  String getName();
+}
@@ -82,6 +82,11 @@ public interface ProjectManager
 
   /**
    * Stores a project to the given output stream.
+   * <p>
+   * This method may be called from a background thread; the project can be
+   * changed while it is being stored. The given output stream is closed once
+   * the project is stored.
+   * </p>
    * 
    * @param aOutput
    *          the output to write the project to, cannot be <code>null</code>.
@@ -0,0 +1,192 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.search.CaptureSearch.PulseCondition;
+
+
+/**
+ * Denotes a condition that can be evaluated on an acquisition result, for
+ * example, to decide whether a series of repeated captures can be stopped.
+ * <p>
+ * Conditions are evaluated with a {@link CaptureSearch}, and hence are safe to
+ * evaluate on a background thread.
+ * </p>
+ */
+public abstract class CaptureCondition
+{
+  // INNER TYPES
+
+  /**
+   * Holds when the acquisition result contains a pattern.
+   */
+  static final class PatternCondition extends CaptureCondition
+  {
+    // VARIABLES
+
+    private final int mask;
+    private final int pattern;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new PatternCondition instance.
+     */
+    PatternCondition( final int aMask, final int aPattern )
+    {
+      this.mask = aMask;
+      this.pattern = aPattern;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult evaluate( final AcquisitionResult aData ) throws InterruptedException
+    {
+      return new CaptureSearch( aData ).findPattern( this.mask, this.pattern );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return String.format( "pattern 0x%x (mask 0x%x)", Integer.valueOf( this.pattern & this.mask ),
+          Integer.valueOf( this.mask ) );
+    }
+  }
+
+  /**
+   * Holds when the acquisition result contains a pulse of a certain width.
+   */
+  static final class PulseWidthCondition extends CaptureCondition
+  {
+    // VARIABLES
+
+    private final int channelIdx;
+    private final boolean level;
+    private final PulseCondition condition;
+    private final long threshold;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new PulseWidthCondition instance.
+     */
+    PulseWidthCondition( final int aChannelIdx, final boolean aLevel, final PulseCondition aCondition,
+        final long aThreshold )
+    {
+      this.channelIdx = aChannelIdx;
+      this.level = aLevel;
+      this.condition = aCondition;
+      this.threshold = aThreshold;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SearchResult evaluate( final AcquisitionResult aData ) throws InterruptedException
+    {
+      return new CaptureSearch( aData ).findPulses( this.channelIdx, this.level, this.condition, this.threshold );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return String.format( "%s pulse on channel %d %s %d", this.level ? "high" : "low",
+          Integer.valueOf( this.channelIdx ), ( this.condition == PulseCondition.SHORTER_THAN ) ? "shorter than"
+              : "longer than", Long.valueOf( this.threshold ) );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Creates a condition that holds when the given channels enter the given
+   * pattern.
+   * 
+   * @param aMask
+   *          the mask of channels to match;
+   * @param aPattern
+   *          the levels the masked channels should have.
+   * @return a new condition, never <code>null</code>.
+   * @see CaptureSearch#findPattern(int, int)
+   */
+  public static CaptureCondition pattern( final int aMask, final int aPattern )
+  {
+    return new PatternCondition( aMask, aPattern );
+  }
+
+  /**
+   * Creates a condition that holds when a channel has a pulse that is shorter
+   * or longer than the given threshold.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to search, &gt;= 0 &amp;&amp; &lt; 32;
+   * @param aLevel
+   *          <code>true</code> for high pulses, <code>false</code> for low
+   *          pulses;
+   * @param aCondition
+   *          whether pulses should be shorter or longer than the threshold,
+   *          cannot be <code>null</code>;
+   * @param aThreshold
+   *          the pulse width threshold.
+   * @return a new condition, never <code>null</code>.
+   * @see CaptureSearch#findPulses(int, boolean, PulseCondition, long)
+   */
+  public static CaptureCondition pulseWidth( final int aChannelIdx, final boolean aLevel,
+      final PulseCondition aCondition, final long aThreshold )
+  {
+    if ( aCondition == null )
+    {
+      throw new IllegalArgumentException( "Condition cannot be null!" );
+    }
+    return new PulseWidthCondition( aChannelIdx, aLevel, aCondition, aThreshold );
+  }
+
+  /**
+   * Evaluates this condition on the given acquisition result.
+   * 
+   * @param aData
+   *          the acquisition result to evaluate this condition on, cannot be
+   *          <code>null</code>.
+   * @return the moments at which this condition holds, never
+   *         <code>null</code>. An empty result means that this condition does
+   *         not hold at all.
+   * @throws InterruptedException
+   *           in case the evaluation was interrupted.
+   */
+  public abstract SearchResult evaluate( AcquisitionResult aData ) throws InterruptedException;
+}
+
+/* EOF */
@@ -0,0 +1,427 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Compares two acquisition results, and determines, per channel, the intervals
+ * in which they differ.
+ * <p>
+ * Both acquisition results are first aligned, either on their trigger, on the
+ * first edge of a given channel, or not at all. Then, the transitions of both
+ * are merged in a single pass, keeping track of which channels differ; this
+ * takes time linear to the total number of transitions, and, apart from the
+ * found intervals themselves, a constant amount of memory.
+ * </p>
+ */
+public final class CaptureDiff
+{
+  // INNER TYPES
+
+  /**
+   * Denotes how two acquisition results should be aligned before comparing
+   * them.
+   */
+  public static enum Alignment
+  {
+    /** Compare both acquisition results as-is. */
+    NONE,
+    /** Align both acquisition results on their trigger. */
+    TRIGGER,
+    /** Align both acquisition results on the first edge of a channel. */
+    CHANNEL_EDGE;
+  }
+
+  /**
+   * Collects intervals as pairs of start and end timestamps.
+   */
+  static final class IntervalBuffer
+  {
+    // VARIABLES
+
+    private int[] indices;
+    private long[] starts;
+    private long[] ends;
+    private int size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new IntervalBuffer instance.
+     */
+    IntervalBuffer()
+    {
+      this.indices = new int[8];
+      this.starts = new long[8];
+      this.ends = new long[8];
+      this.size = 0;
+    }
+
+    // METHODS
+
+    /**
+     * Adds a single interval.
+     */
+    void add( final int aSampleIdx, final long aStart, final long aEnd )
+    {
+      if ( this.size == this.starts.length )
+      {
+        this.indices = Arrays.copyOf( this.indices, this.size * 2 );
+        this.starts = Arrays.copyOf( this.starts, this.size * 2 );
+        this.ends = Arrays.copyOf( this.ends, this.size * 2 );
+      }
+      this.indices[this.size] = aSampleIdx;
+      this.starts[this.size] = aStart;
+      this.ends[this.size] = aEnd;
+      this.size++;
+    }
+
+    /**
+     * Returns the collected intervals as search result.
+     */
+    SearchResult toSearchResult()
+    {
+      if ( this.size == 0 )
+      {
+        return SearchResult.EMPTY;
+      }
+      return new SearchResult( Arrays.copyOf( this.indices, this.size ), Arrays.copyOf( this.starts, this.size ),
+          Arrays.copyOf( this.ends, this.size ) );
+    }
+  }
+
+  // VARIABLES
+
+  private final AcquisitionResult reference;
+  private final AcquisitionResult other;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureDiff instance.
+   *
+   * @param aReference
+   *          the acquisition result to compare against, cannot be
+   *          <code>null</code>;
+   * @param aOther
+   *          the acquisition result to compare, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case one of the given acquisition results was
+   *           <code>null</code>, or both have a different sample rate.
+   */
+  public CaptureDiff( final AcquisitionResult aReference, final AcquisitionResult aOther )
+  {
+    if ( ( aReference == null ) || ( aOther == null ) )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+    if ( aReference.getSampleRate() != aOther.getSampleRate() )
+    {
+      throw new IllegalArgumentException( "Cannot compare captures with different sample rates!" );
+    }
+
+    this.reference = aReference;
+    this.other = aOther;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the timestamp of the first edge of the given channel.
+   *
+   * @return a timestamp, or -1 if the channel has no edges at all.
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  private static long findFirstEdge( final AcquisitionResult aData, final int aChannelIdx )
+      throws InterruptedException
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = 1 << aChannelIdx;
+
+    if ( values.length > 0 )
+    {
+      final int first = values[0] & mask;
+      for ( int i = 1; i < values.length; i++ )
+      {
+        if ( ( values[i] & mask ) != first )
+        {
+          return timestamps[i];
+        }
+        if ( ( ( i & 0xFFFF ) == 0 ) && Thread.interrupted() )
+        {
+          throw new InterruptedException();
+        }
+      }
+    }
+    return -1L;
+  }
+
+  /**
+   * Returns the index of the last timestamp that is less than or equal to the
+   * given timestamp.
+   */
+  private static int floorIndex( final long[] aTimestamps, final long aTimestamp )
+  {
+    int low = 0;
+    int high = aTimestamps.length - 1;
+    while ( low < high )
+    {
+      final int mid = ( low + high + 1 ) >>> 1;
+      if ( aTimestamps[mid] <= aTimestamp )
+      {
+        low = mid;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Compares both acquisition results after aligning them in the given way.
+   *
+   * @param aAlignment
+   *          how to align both acquisition results, cannot be
+   *          <code>null</code>;
+   * @param aAlignChannelIdx
+   *          the index of the channel to align on, only used for
+   *          {@link Alignment#CHANNEL_EDGE};
+   * @param aChannelMask
+   *          the mask of channels to compare.
+   * @return the found differences, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the acquisition results could not be aligned in the
+   *           given way;
+   * @throws InterruptedException
+   *           in case the comparison was interrupted.
+   */
+  public CaptureDifferences compare( final Alignment aAlignment, final int aAlignChannelIdx, final int aChannelMask )
+      throws InterruptedException
+  {
+    switch ( aAlignment )
+    {
+      case TRIGGER:
+        return compareByTrigger( aChannelMask );
+
+      case CHANNEL_EDGE:
+        return compareByEdge( aAlignChannelIdx, aChannelMask );
+
+      default:
+        return compare( 0L, aChannelMask );
+    }
+  }
+
+  /**
+   * Compares both acquisition results, with the other acquisition result
+   * shifted by a given offset.
+   *
+   * @param aOffset
+   *          the offset to add to a timestamp of the reference acquisition
+   *          result to obtain the corresponding timestamp in the other
+   *          acquisition result;
+   * @param aChannelMask
+   *          the mask of channels to compare.
+   * @return the found differences, never <code>null</code>.
+   * @throws InterruptedException
+   *           in case the comparison was interrupted.
+   */
+  public CaptureDifferences compare( final long aOffset, final int aChannelMask ) throws InterruptedException
+  {
+    final int[] refValues = this.reference.getValues();
+    final long[] refTimestamps = this.reference.getTimestamps();
+    final int[] otherValues = this.other.getValues();
+    final long[] otherTimestamps = this.other.getTimestamps();
+
+    final int mask = aChannelMask & this.reference.getEnabledChannels() & this.other.getEnabledChannels();
+
+    final IntervalBuffer[] channelBuffers = new IntervalBuffer[Ols.MAX_CHANNELS];
+    for ( int i = 0; i < channelBuffers.length; i++ )
+    {
+      channelBuffers[i] = new IntervalBuffer();
+    }
+    final IntervalBuffer allBuffer = new IntervalBuffer();
+
+    long start = 0L;
+    long end = 0L;
+    if ( ( refValues.length > 0 ) && ( otherValues.length > 0 ) )
+    {
+      start = Math.max( refTimestamps[0], otherTimestamps[0] - aOffset );
+      end = Math.min( this.reference.getAbsoluteLength(), this.other.getAbsoluteLength() - aOffset );
+    }
+
+    if ( start < end )
+    {
+      final long[] openStarts = new long[Ols.MAX_CHANNELS];
+      final int[] openIndices = new int[Ols.MAX_CHANNELS];
+      long allStart = 0L;
+      int allIdx = 0;
+
+      int refIdx = floorIndex( refTimestamps, start );
+      int otherIdx = floorIndex( otherTimestamps, start + aOffset );
+      int prevDiff = 0;
+      int steps = 0;
+
+      long time = start;
+      while ( time < end )
+      {
+        if ( ( ( ++steps & 0xFFFF ) == 0 ) && Thread.interrupted() )
+        {
+          throw new InterruptedException();
+        }
+
+        final int diff = ( refValues[refIdx] ^ otherValues[otherIdx] ) & mask;
+
+        int changed = diff ^ prevDiff;
+        if ( changed != 0 )
+        {
+          while ( changed != 0 )
+          {
+            final int bit = Integer.numberOfTrailingZeros( changed );
+            changed &= changed - 1;
+
+            if ( ( diff & ( 1 << bit ) ) != 0 )
+            {
+              openStarts[bit] = time;
+              openIndices[bit] = refIdx;
+            }
+            else
+            {
+              channelBuffers[bit].add( openIndices[bit], openStarts[bit], time );
+            }
+          }
+
+          if ( prevDiff == 0 )
+          {
+            allStart = time;
+            allIdx = refIdx;
+          }
+          else if ( diff == 0 )
+          {
+            allBuffer.add( allIdx, allStart, time );
+          }
+          prevDiff = diff;
+        }
+
+        // Advance to the next transition of either acquisition result...
+        final long nextRef = ( refIdx + 1 < refValues.length ) ? refTimestamps[refIdx + 1] : Long.MAX_VALUE;
+        final long nextOther = ( otherIdx + 1 < otherValues.length ) ? otherTimestamps[otherIdx + 1] - aOffset
+            : Long.MAX_VALUE;
+
+        time = Math.min( nextRef, nextOther );
+        if ( nextRef == time )
+        {
+          refIdx++;
+        }
+        if ( nextOther == time )
+        {
+          otherIdx++;
+        }
+      }
+
+      // Close all intervals that are still open...
+      int open = prevDiff;
+      while ( open != 0 )
+      {
+        final int bit = Integer.numberOfTrailingZeros( open );
+        open &= open - 1;
+
+        channelBuffers[bit].add( openIndices[bit], openStarts[bit], end );
+      }
+      if ( prevDiff != 0 )
+      {
+        allBuffer.add( allIdx, allStart, end );
+      }
+    }
+    else
+    {
+      // Nothing overlaps; nothing is compared...
+      start = 0L;
+      end = 0L;
+    }
+
+    final SearchResult[] channelDifferences = new SearchResult[Ols.MAX_CHANNELS];
+    for ( int i = 0; i < channelDifferences.length; i++ )
+    {
+      channelDifferences[i] = channelBuffers[i].toSearchResult();
+    }
+
+    return new CaptureDifferences( aOffset, start, end, mask, channelDifferences, allBuffer.toSearchResult() );
+  }
+
+  /**
+   * Compares both acquisition results, aligned on the first edge of the given
+   * channel.
+   *
+   * @param aAlignChannelIdx
+   *          the index of the channel to align on, &gt;= 0 &amp;&amp; &lt; 32;
+   * @param aChannelMask
+   *          the mask of channels to compare.
+   * @return the found differences, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given channel has no edges in one of both
+   *           acquisition results;
+   * @throws InterruptedException
+   *           in case the comparison was interrupted.
+   */
+  public CaptureDifferences compareByEdge( final int aAlignChannelIdx, final int aChannelMask )
+      throws InterruptedException
+  {
+    final long refEdge = findFirstEdge( this.reference, aAlignChannelIdx );
+    final long otherEdge = findFirstEdge( this.other, aAlignChannelIdx );
+    if ( ( refEdge < 0L ) || ( otherEdge < 0L ) )
+    {
+      throw new IllegalArgumentException( "Channel " + aAlignChannelIdx + " has no edges in both captures!" );
+    }
+    return compare( otherEdge - refEdge, aChannelMask );
+  }
+
+  /**
+   * Compares both acquisition results, aligned on their trigger.
+   *
+   * @param aChannelMask
+   *          the mask of channels to compare.
+   * @return the found differences, never <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case one of both acquisition results has no trigger;
+   * @throws InterruptedException
+   *           in case the comparison was interrupted.
+   */
+  public CaptureDifferences compareByTrigger( final int aChannelMask ) throws InterruptedException
+  {
+    if ( !this.reference.hasTriggerData() || !this.other.hasTriggerData() )
+    {
+      throw new IllegalArgumentException( "Both captures should have a trigger!" );
+    }
+    return compare( this.other.getTriggerPosition() - this.reference.getTriggerPosition(), aChannelMask );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,198 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import nl.lxtreme.ols.api.*;
+
+
+/**
+ * Provides the (immutable) outcome of a {@link CaptureDiff}: the intervals in
+ * which the channels of two acquisition results differ.
+ * <p>
+ * All timestamps are expressed in the time base of the reference acquisition
+ * result. The intervals of each channel, as well as the intervals in which any
+ * channel differs, are available as {@link SearchResult}, allowing them to be
+ * navigated.
+ * </p>
+ */
+public final class CaptureDifferences
+{
+  // VARIABLES
+
+  private final long offset;
+  private final long comparedStart;
+  private final long comparedEnd;
+  private final int channelMask;
+  private final SearchResult[] channelDifferences;
+  private final SearchResult allDifferences;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureDifferences instance.
+   */
+  CaptureDifferences( final long aOffset, final long aComparedStart, final long aComparedEnd, final int aChannelMask,
+      final SearchResult[] aChannelDifferences, final SearchResult aAllDifferences )
+  {
+    this.offset = aOffset;
+    this.comparedStart = aComparedStart;
+    this.comparedEnd = aComparedEnd;
+    this.channelMask = aChannelMask;
+    this.channelDifferences = aChannelDifferences;
+    this.allDifferences = aAllDifferences;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the intervals in which any of the compared channels differ.
+   *
+   * @return a search result, never <code>null</code>.
+   */
+  public SearchResult getAllDifferences()
+  {
+    return this.allDifferences;
+  }
+
+  /**
+   * Returns the mask of channels that were compared.
+   *
+   * @return a channel mask.
+   */
+  public int getChannelMask()
+  {
+    return this.channelMask;
+  }
+
+  /**
+   * Returns the end of the time range in which both acquisition results were
+   * compared.
+   *
+   * @return a timestamp (exclusive).
+   */
+  public long getComparedEnd()
+  {
+    return this.comparedEnd;
+  }
+
+  /**
+   * Returns the start of the time range in which both acquisition results
+   * were compared.
+   *
+   * @return a timestamp.
+   */
+  public long getComparedStart()
+  {
+    return this.comparedStart;
+  }
+
+  /**
+   * Returns the number of intervals in which the given channel differs.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return a difference count, &gt;= 0.
+   */
+  public int getDifferenceCount( final int aChannelIdx )
+  {
+    return getDifferences( aChannelIdx ).size();
+  }
+
+  /**
+   * Returns the intervals in which the given channel differs.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return a search result, never <code>null</code>.
+   */
+  public SearchResult getDifferences( final int aChannelIdx )
+  {
+    if ( ( aChannelIdx < 0 ) || ( aChannelIdx >= Ols.MAX_CHANNELS ) )
+    {
+      throw new IllegalArgumentException( "Invalid channel index: " + aChannelIdx );
+    }
+    return this.channelDifferences[aChannelIdx];
+  }
+
+  /**
+   * Returns the total time in which the given channel differs.
+   *
+   * @param aChannelIdx
+   *          the index of the channel, &gt;= 0 &amp;&amp; &lt; 32.
+   * @return a duration, &gt;= 0.
+   */
+  public long getDifferenceTime( final int aChannelIdx )
+  {
+    final SearchResult differences = getDifferences( aChannelIdx );
+
+    long result = 0L;
+    for ( int i = 0; i < differences.size(); i++ )
+    {
+      result += differences.getEndTimestamp( i ) - differences.getStartTimestamp( i );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the mask of channels that differ at least once.
+   *
+   * @return a channel mask, 0 if both acquisition results are equal.
+   */
+  public int getDifferingChannels()
+  {
+    int result = 0;
+    for ( int i = 0; i < this.channelDifferences.length; i++ )
+    {
+      if ( !this.channelDifferences[i].isEmpty() )
+      {
+        result |= ( 1 << i );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the offset that was added to the timestamps of the reference
+   * acquisition result to obtain the corresponding timestamps of the other
+   * acquisition result.
+   *
+   * @return a time offset.
+   */
+  public long getOffset()
+  {
+    return this.offset;
+  }
+
+  /**
+   * Returns whether both acquisition results are equal in the compared time
+   * range.
+   *
+   * @return <code>true</code> if no differences were found, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isEqual()
+  {
+    return this.allDifferences.isEmpty();
+  }
+}
+
+/* EOF */
@@ -0,0 +1,504 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Searches an acquisition result for patterns, sequences of patterns and
+ * pulses.
+ * <p>
+ * A pattern is given as a mask of channels and the levels those channels
+ * should have. All channels of a sample are matched against a pattern at once,
+ * using a single XOR and AND operation. The samples are divided in chunks,
+ * which are scanned in parallel if the acquisition result is large enough.
+ * </p>
+ * <p>
+ * All durations are expressed in the same unit as the timestamps of the
+ * acquisition result.
+ * </p>
+ */
+public final class CaptureSearch
+{
+  // INNER TYPES
+
+  /**
+   * Denotes which pulses should be found.
+   */
+  public static enum PulseCondition
+  {
+    SHORTER_THAN, LONGER_THAN;
+  }
+
+  /**
+   * Describes a single step of a sequence: a pattern that should be entered
+   * within a minimum and maximum time after the previous step was entered.
+   */
+  public static final class SequenceStep
+  {
+    // VARIABLES
+
+    final int mask;
+    final int pattern;
+    final long minDelay;
+    final long maxDelay;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SequenceStep instance without any timing constraints.
+     *
+     * @param aMask
+     *          the mask of channels to match;
+     * @param aPattern
+     *          the levels the masked channels should have.
+     */
+    public SequenceStep( final int aMask, final int aPattern )
+    {
+      this( aMask, aPattern, 0L, -1L );
+    }
+
+    /**
+     * Creates a new SequenceStep instance.
+     *
+     * @param aMask
+     *          the mask of channels to match;
+     * @param aPattern
+     *          the levels the masked channels should have;
+     * @param aMinDelay
+     *          the minimal time between entering the previous step and
+     *          entering this step, &gt;= 0;
+     * @param aMaxDelay
+     *          the maximal time between entering the previous step and
+     *          entering this step, or -1 if there is no maximum. Both delays
+     *          are ignored for the first step of a sequence.
+     */
+    public SequenceStep( final int aMask, final int aPattern, final long aMinDelay, final long aMaxDelay )
+    {
+      this.mask = aMask;
+      this.pattern = aPattern;
+      this.minDelay = aMinDelay;
+      this.maxDelay = aMaxDelay;
+    }
+  }
+
+  /**
+   * Collects the hits of a scan as pairs of start and end sample indices.
+   */
+  static final class HitBuffer
+  {
+    // VARIABLES
+
+    int[] starts;
+    int[] ends;
+    int size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new HitBuffer instance.
+     */
+    HitBuffer()
+    {
+      this.starts = new int[16];
+      this.ends = new int[16];
+      this.size = 0;
+    }
+
+    // METHODS
+
+    /**
+     * Adds a single hit.
+     */
+    void add( final int aStartIdx, final int aEndIdx )
+    {
+      if ( this.size == this.starts.length )
+      {
+        this.starts = Arrays.copyOf( this.starts, this.size * 2 );
+        this.ends = Arrays.copyOf( this.ends, this.size * 2 );
+      }
+      this.starts[this.size] = aStartIdx;
+      this.ends[this.size] = aEndIdx;
+      this.size++;
+    }
+
+    /**
+     * Adds all hits of the given buffer.
+     */
+    void addAll( final HitBuffer aBuffer )
+    {
+      for ( int i = 0; i < aBuffer.size; i++ )
+      {
+        add( aBuffer.starts[i], aBuffer.ends[i] );
+      }
+    }
+
+    /**
+     * Returns the index of the first hit that starts at or after the given
+     * timestamp.
+     */
+    int lowerBound( final long[] aTimestamps, final long aTimestamp )
+    {
+      int low = 0;
+      int high = this.size;
+      while ( low < high )
+      {
+        final int mid = ( low + high ) >>> 1;
+        if ( aTimestamps[this.starts[mid]] < aTimestamp )
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  /**
+   * Scans a single chunk of samples for a pattern.
+   */
+  static final class ChunkScanner implements Callable<HitBuffer>
+  {
+    // VARIABLES
+
+    private final int[] values;
+    private final int mask;
+    private final int pattern;
+    private final int startIdx;
+    private final int endIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ChunkScanner instance.
+     */
+    ChunkScanner( final int[] aValues, final int aMask, final int aPattern, final int aStartIdx, final int aEndIdx )
+    {
+      this.values = aValues;
+      this.mask = aMask;
+      this.pattern = aPattern & aMask;
+      this.startIdx = aStartIdx;
+      this.endIdx = aEndIdx;
+    }
+
+    // METHODS
+
+    /**
+     * Reports all hits that start in this chunk. A hit that is still matching
+     * at the end of this chunk is followed into the next chunk(s) to determine
+     * its end; a hit that was already matching at the start of this chunk is
+     * left to the chunk it started in.
+     */
+    @Override
+    public HitBuffer call() throws InterruptedException
+    {
+      final int[] v = this.values;
+      final int m = this.mask;
+      final int p = this.pattern;
+
+      final HitBuffer result = new HitBuffer();
+
+      boolean matching = ( this.startIdx > 0 ) && ( ( v[this.startIdx - 1] & m ) == p );
+      int hitStart = -1;
+
+      for ( int idx = this.startIdx; idx < this.endIdx; idx++ )
+      {
+        final boolean match = ( ( v[idx] & m ) == p );
+        if ( match != matching )
+        {
+          if ( match )
+          {
+            hitStart = idx;
+          }
+          else if ( hitStart >= 0 )
+          {
+            result.add( hitStart, idx );
+            hitStart = -1;
+          }
+          matching = match;
+        }
+
+        if ( ( ( idx & 0xFFFF ) == 0 ) && Thread.interrupted() )
+        {
+          throw new InterruptedException();
+        }
+      }
+
+      if ( hitStart >= 0 )
+      {
+        int idx = this.endIdx;
+        while ( ( idx < v.length ) && ( ( v[idx] & m ) == p ) )
+        {
+          if ( ( ( ++idx & 0xFFFF ) == 0 ) && Thread.interrupted() )
+          {
+            throw new InterruptedException();
+          }
+        }
+        result.add( hitStart, idx );
+      }
+
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The minimal number of samples a chunk should have. */
+  private static final int MIN_CHUNK_SIZE = 1 << 16;
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+
+  private int threadCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureSearch instance.
+   *
+   * @param aData
+   *          the acquisition result to search, cannot be <code>null</code>.
+   */
+  public CaptureSearch( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+    this.data = aData;
+    this.threadCount = ParallelUtils.getParallelism();
+  }
+
+  // METHODS
+
+  /**
+   * Finds all moments at which the given channels enter the given pattern.
+   *
+   * @param aMask
+   *          the mask of channels to match;
+   * @param aPattern
+   *          the levels the masked channels should have.
+   * @return the search result, never <code>null</code>. Each hit spans the
+   *         time the pattern remains present.
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  public SearchResult findPattern( final int aMask, final int aPattern ) throws InterruptedException
+  {
+    return createResult( scan( aMask, aPattern ) );
+  }
+
+  /**
+   * Finds all complete pulses on a single channel whose width is shorter or
+   * longer than the given threshold.
+   * <p>
+   * Pulses that are already present at the first sample, or are still present
+   * at the last sample, are not considered, as their width is unknown.
+   * </p>
+   *
+   * @param aChannelIdx
+   *          the index of the channel to search, &gt;= 0 &amp;&amp; &lt; 32;
+   * @param aLevel
+   *          <code>true</code> to find high pulses, <code>false</code> to find
+   *          low pulses;
+   * @param aCondition
+   *          whether to find pulses shorter or longer than the threshold;
+   * @param aThreshold
+   *          the pulse width threshold.
+   * @return the search result, never <code>null</code>. Each hit spans the
+   *         found pulse.
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  public SearchResult findPulses( final int aChannelIdx, final boolean aLevel, final PulseCondition aCondition,
+      final long aThreshold ) throws InterruptedException
+  {
+    final int mask = 1 << aChannelIdx;
+    final HitBuffer hits = scan( mask, aLevel ? mask : 0 );
+
+    final long[] timestamps = this.data.getTimestamps();
+    final int sampleCount = timestamps.length;
+    final boolean shorter = ( aCondition == PulseCondition.SHORTER_THAN );
+
+    final HitBuffer result = new HitBuffer();
+    for ( int i = 0; i < hits.size; i++ )
+    {
+      final int start = hits.starts[i];
+      final int end = hits.ends[i];
+      if ( ( start == 0 ) || ( end >= sampleCount ) )
+      {
+        continue;
+      }
+
+      final long width = timestamps[end] - timestamps[start];
+      if ( shorter ? ( width < aThreshold ) : ( width > aThreshold ) )
+      {
+        result.add( start, end );
+      }
+    }
+
+    return createResult( result );
+  }
+
+  /**
+   * Finds all occurrences of a sequence of patterns.
+   * <p>
+   * Each occurrence of the first step starts a candidate sequence. For each
+   * following step, the first moment its pattern is entered within the delays
+   * of that step is taken; if there is no such moment, the candidate is
+   * dropped.
+   * </p>
+   *
+   * @param aSteps
+   *          the steps of the sequence, at least one.
+   * @return the search result, never <code>null</code>. Each hit spans from
+   *         entering the first step up to leaving the last step.
+   * @throws InterruptedException
+   *           in case the search was interrupted.
+   */
+  public SearchResult findSequence( final SequenceStep... aSteps ) throws InterruptedException
+  {
+    if ( ( aSteps == null ) || ( aSteps.length == 0 ) )
+    {
+      throw new IllegalArgumentException( "At least one sequence step should be given!" );
+    }
+
+    final HitBuffer[] stepHits = new HitBuffer[aSteps.length];
+    for ( int s = 0; s < aSteps.length; s++ )
+    {
+      stepHits[s] = scan( aSteps[s].mask, aSteps[s].pattern );
+    }
+
+    final long[] timestamps = this.data.getTimestamps();
+    final HitBuffer first = stepHits[0];
+
+    final HitBuffer result = new HitBuffer();
+    for ( int i = 0; i < first.size; i++ )
+    {
+      int prevStart = first.starts[i];
+      int lastEnd = first.ends[i];
+
+      boolean found = true;
+      for ( int s = 1; found && ( s < aSteps.length ); s++ )
+      {
+        final SequenceStep step = aSteps[s];
+        final HitBuffer hits = stepHits[s];
+        final long prevTime = timestamps[prevStart];
+
+        int h = hits.lowerBound( timestamps, prevTime + step.minDelay );
+        while ( ( h < hits.size ) && ( hits.starts[h] <= prevStart ) )
+        {
+          h++;
+        }
+
+        found = ( h < hits.size )
+            && ( ( step.maxDelay < 0 ) || ( ( timestamps[hits.starts[h]] - prevTime ) <= step.maxDelay ) );
+        if ( found )
+        {
+          prevStart = hits.starts[h];
+          lastEnd = hits.ends[h];
+        }
+      }
+
+      if ( found )
+      {
+        result.add( first.starts[i], lastEnd );
+      }
+    }
+
+    return createResult( result );
+  }
+
+  /**
+   * Sets the maximum number of threads used to scan the samples.
+   *
+   * @param aThreadCount
+   *          the number of threads, &gt; 0.
+   */
+  public void setThreadCount( final int aThreadCount )
+  {
+    if ( aThreadCount < 1 )
+    {
+      throw new IllegalArgumentException( "Thread count should be at least one!" );
+    }
+    this.threadCount = aThreadCount;
+  }
+
+  /**
+   * Converts the given hits to a search result.
+   */
+  private SearchResult createResult( final HitBuffer aHits )
+  {
+    final long[] timestamps = this.data.getTimestamps();
+    final long absLength = this.data.getAbsoluteLength();
+
+    final int[] indices = Arrays.copyOf( aHits.starts, aHits.size );
+    final long[] starts = new long[aHits.size];
+    final long[] ends = new long[aHits.size];
+
+    for ( int i = 0; i < aHits.size; i++ )
+    {
+      final int end = aHits.ends[i];
+      starts[i] = timestamps[indices[i]];
+      ends[i] = ( end < timestamps.length ) ? timestamps[end] : absLength;
+    }
+
+    return new SearchResult( indices, starts, ends );
+  }
+
+  /**
+   * Scans all samples for the given pattern, in parallel chunks if there are
+   * enough samples.
+   */
+  private HitBuffer scan( final int aMask, final int aPattern ) throws InterruptedException
+  {
+    final int[] values = this.data.getValues();
+
+    final List<HitBuffer> hits = ParallelUtils.invokeChunked( 0, values.length, this.threadCount, MIN_CHUNK_SIZE,
+        new ParallelUtils.ChunkTaskFactory<HitBuffer>()
+        {
+          @Override
+          public Callable<HitBuffer> createTask( final int aStartIdx, final int aEndIdx )
+          {
+            return new ChunkScanner( values, aMask, aPattern, aStartIdx, aEndIdx );
+          }
+        } );
+
+    final HitBuffer result = new HitBuffer();
+    for ( HitBuffer hit : hits )
+    {
+      result.addAll( hit );
+    }
+    return result;
+  }
+}
+
+/* EOF */
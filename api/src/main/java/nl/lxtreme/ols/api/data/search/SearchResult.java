@@ -0,0 +1,195 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+/**
+ * Provides the (immutable) list of hits of a {@link CaptureSearch}, ordered by
+ * their start timestamp.
+ * <p>
+ * Besides random access to the individual hits, a search result allows one to
+ * navigate from any given timestamp to the next or previous hit.
+ * </p>
+ */
+public final class SearchResult
+{
+  // CONSTANTS
+
+  /** An empty search result. */
+  public static final SearchResult EMPTY = new SearchResult( new int[0], new long[0], new long[0] );
+
+  // VARIABLES
+
+  private final int[] sampleIndices;
+  private final long[] startTimestamps;
+  private final long[] endTimestamps;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchResult instance.
+   *
+   * @param aSampleIndices
+   *          the sample indices at which the hits start;
+   * @param aStartTimestamps
+   *          the (ordered) timestamps at which the hits start;
+   * @param aEndTimestamps
+   *          the timestamps at which the hits end.
+   */
+  SearchResult( final int[] aSampleIndices, final long[] aStartTimestamps, final long[] aEndTimestamps )
+  {
+    this.sampleIndices = aSampleIndices;
+    this.startTimestamps = aStartTimestamps;
+    this.endTimestamps = aEndTimestamps;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the timestamp at which the hit with the given index ends.
+   *
+   * @param aIndex
+   *          the index of the hit, &gt;= 0 &amp;&amp; &lt; {@link #size()}.
+   * @return a timestamp.
+   */
+  public long getEndTimestamp( final int aIndex )
+  {
+    return this.endTimestamps[aIndex];
+  }
+
+  /**
+   * Returns the index of the sample at which the hit with the given index
+   * starts.
+   *
+   * @param aIndex
+   *          the index of the hit, &gt;= 0 &amp;&amp; &lt; {@link #size()}.
+   * @return a sample index.
+   */
+  public int getSampleIndex( final int aIndex )
+  {
+    return this.sampleIndices[aIndex];
+  }
+
+  /**
+   * Returns the timestamp at which the hit with the given index starts.
+   *
+   * @param aIndex
+   *          the index of the hit, &gt;= 0 &amp;&amp; &lt; {@link #size()}.
+   * @return a timestamp.
+   */
+  public long getStartTimestamp( final int aIndex )
+  {
+    return this.startTimestamps[aIndex];
+  }
+
+  /**
+   * Returns the index of the first hit that starts after the given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search from.
+   * @return the index of the next hit, or -1 if there is no such hit.
+   */
+  public int indexOfNext( final long aTimestamp )
+  {
+    final int idx = upperBound( aTimestamp );
+    return ( idx < this.startTimestamps.length ) ? idx : -1;
+  }
+
+  /**
+   * Returns the index of the last hit that starts before the given timestamp.
+   *
+   * @param aTimestamp
+   *          the timestamp to search from.
+   * @return the index of the previous hit, or -1 if there is no such hit.
+   */
+  public int indexOfPrevious( final long aTimestamp )
+  {
+    return lowerBound( aTimestamp ) - 1;
+  }
+
+  /**
+   * Returns whether this search result has no hits at all.
+   *
+   * @return <code>true</code> if there are no hits, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.startTimestamps.length == 0;
+  }
+
+  /**
+   * Returns the number of hits in this search result.
+   *
+   * @return a hit count, &gt;= 0.
+   */
+  public int size()
+  {
+    return this.startTimestamps.length;
+  }
+
+  /**
+   * @return the index of the first hit starting at or after the given
+   *         timestamp.
+   */
+  private int lowerBound( final long aTimestamp )
+  {
+    int low = 0;
+    int high = this.startTimestamps.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.startTimestamps[mid] < aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first hit starting after the given timestamp.
+   */
+  private int upperBound( final long aTimestamp )
+  {
+    int low = 0;
+    int high = this.startTimestamps.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( this.startTimestamps[mid] <= aTimestamp )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,75 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.tools;
+
+
+/**
+ * Can be used by decoders to be notified about the edges of the channels they
+ * are interested in, instead of scanning all sample values themselves.
+ * <p>
+ * An edge listener is subscribed with a channel mask. It is only called for
+ * samples in which at least one of the channels in its mask changes level.
+ * When multiple channels change in the same sample, they are reported in a
+ * single call.
+ * </p>
+ */
+public interface EdgeListener
+{
+  // METHODS
+
+  /**
+   * Called once before any edges are reported.
+   *
+   * @param aSampleIdx
+   *          the index of the first sample, whose value is used as the initial
+   *          level of all channels;
+   * @param aValue
+   *          the (unmasked) value of the first sample.
+   */
+  void onStart( int aSampleIdx, int aValue );
+
+  /**
+   * Called for each sample in which at least one of the subscribed channels
+   * changes level.
+   *
+   * @param aSampleIdx
+   *          the index of the sample in which the edge(s) occur;
+   * @param aTimestamp
+   *          the timestamp of the sample;
+   * @param aChangedMask
+   *          the mask of subscribed channels that changed, never 0;
+   * @param aValue
+   *          the (unmasked) value of the sample, holding the new levels of the
+   *          changed channels as well as the current levels of all other
+   *          channels.
+   */
+  void onEdge( int aSampleIdx, long aTimestamp, int aChangedMask, int aValue );
+
+  /**
+   * Called once after all edges are reported.
+   *
+   * @param aSampleIdx
+   *          the (exclusive) index of the last sample.
+   */
+  void onEnd( int aSampleIdx );
+}
+
+/* EOF */
@@ -0,0 +1,59 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.tools;
+
+
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+
+
+/**
+ * Denotes a {@link Tool} that can also run without any user interaction, using
+ * the settings it was last run with from its dialog. This allows, for example,
+ * a capture session to decode each of its captures in the background.
+ */
+public interface HeadlessTool<RESULT_TYPE> extends Tool<RESULT_TYPE>
+{
+  // METHODS
+
+  /**
+   * Factory method for creating a new {@link ToolTask} instance that is set up
+   * with the settings this tool was last run with.
+   * <p>
+   * This method can be called from any thread.
+   * </p>
+   * 
+   * @param aContext
+   *          the tool context to use within the tool task, cannot be
+   *          <code>null</code>;
+   * @param aProgressListener
+   *          the tool progress listener the tool can use to report its
+   *          progress, cannot be <code>null</code>;
+   * @param aAnnotationListener
+   *          the annotation listener to report the decoded annotations to,
+   *          cannot be <code>null</code>.
+   * @return a tool task, or <code>null</code> if this tool has not been run
+   *         from its dialog yet.
+   */
+  ToolTask<RESULT_TYPE> createConfiguredToolTask( ToolContext aContext, ToolProgressListener aProgressListener,
+      AnnotationListener aAnnotationListener );
+}
+
+/* EOF */
@@ -84,6 +84,28 @@ public interface ToolContext
    * @return a start sample index, >= 0.
    */
   int getStartSampleIndex();
+
+  /**
+   * Returns a view on the samples between the start and end sample index
+   * (inclusive) of the acquisition result, without copying them.
+   * 
+   * @return the windowed data to be analyzed, or <code>null</code> if there is
+   *         no data.
+   * @see #getWindowedData(int)
+   */
+  AcquisitionResultView getWindowedData();
+
+  /**
+   * Returns a view on the samples between the start and end sample index
+   * (inclusive) of the acquisition result, projected onto the given channels,
+   * without copying them.
+   * 
+   * @param aChannelMask
+   *          the bitmask of channels to project the data on.
+   * @return the windowed data to be analyzed, or <code>null</code> if there is
+   *         no data.
+   */
+  AcquisitionResultView getWindowedData( int aChannelMask );
 }
 
 /* EOF */
@@ -82,6 +82,58 @@ public enum UnitOfTime
     return toUnit( aTime ).format( aTime, 2 );
   }
 
+  /**
+   * Parses a given textual time representation, like "1.5ms", "20 us" or
+   * "0.3", into a time value in seconds.
+   * <p>
+   * Both "u" and "\u03BC" are accepted as prefix for microseconds. If no unit
+   * is given, the value is considered to be in seconds.
+   * </p>
+   * 
+   * @param aText
+   *          the text to parse, cannot be <code>null</code>.
+   * @return the parsed time value, in seconds.
+   * @throws NumberFormatException
+   *           in case the given text could not be parsed.
+   */
+  public static double parse( final String aText )
+  {
+    String text = aText.trim();
+    if ( text.endsWith( BASE_UNIT ) )
+    {
+      text = text.substring( 0, text.length() - BASE_UNIT.length() ).trim();
+    }
+
+    double factor = S.getFactor();
+    if ( !text.isEmpty() )
+    {
+      final char prefix = text.charAt( text.length() - 1 );
+      if ( !Character.isDigit( prefix ) && ( prefix != '.' ) )
+      {
+        final String prefixStr = ( prefix == 'u' ) ? US.displayName.substring( 0, 1 ) : String.valueOf( prefix );
+
+        UnitOfTime unit = null;
+        for ( UnitOfTime value : values() )
+        {
+          if ( value.displayName.equals( prefixStr.concat( BASE_UNIT ) ) )
+          {
+            unit = value;
+            break;
+          }
+        }
+        if ( unit == null )
+        {
+          throw new NumberFormatException( "Unknown unit of time: " + aText );
+        }
+
+        factor = unit.getFactor();
+        text = text.substring( 0, text.length() - 1 ).trim();
+      }
+    }
+
+    return Double.parseDouble( text ) * factor;
+  }
+
   /**
    * Converts a given time value (as double representation, in seconds) to a
    * more suitable unit of time.
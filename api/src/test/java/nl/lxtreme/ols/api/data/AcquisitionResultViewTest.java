@@ -0,0 +1,130 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link AcquisitionResultView}.
+ */
+public class AcquisitionResultViewTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final int[] values = { 0x00, 0x01, 0x03, 0x07, 0x0F, 0x1F, 0x3F, 0x7F, 0xFF, 0x00 };
+    final long[] timestamps = { 0, 10, 20, 30, 40, 50, 60, 70, 80, 90 };
+
+    this.data = new CapturedData( values, timestamps, 30L, 100, 8, 0xFF, 100L );
+  }
+
+  /**
+   * Tests that the values and timestamps of a view are those of its window,
+   * projected on the requested channels.
+   */
+  @Test
+  public void testWindowedValuesOk()
+  {
+    final AcquisitionResultView view = new AcquisitionResultView( this.data, 2, 5, 0x05 );
+
+    assertEquals( 4, view.getLength() );
+    assertEquals( 2, view.getOffset() );
+    assertEquals( 0x05, view.getEnabledChannels() );
+
+    assertArrayEquals( new int[] { 0x01, 0x05, 0x05, 0x05 }, view.getValues() );
+    assertArrayEquals( new long[] { 20, 30, 40, 50 }, view.getTimestamps() );
+
+    assertEquals( 0x05, view.getValue( 1 ) );
+    assertEquals( 50L, view.getTimestamp( 3 ) );
+    assertEquals( 60L, view.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that sample indices of a view are relative to its window.
+   */
+  @Test
+  public void testSampleIndexIsRelativeOk()
+  {
+    final AcquisitionResultView view = new AcquisitionResultView( this.data, 2, 5, 0xFF );
+
+    assertEquals( 0, view.getSampleIndex( 20L ) );
+    assertEquals( 2, view.getSampleIndex( 40L ) );
+    assertEquals( 0, view.getSampleIndex( 0L ) );
+    assertEquals( 3, view.getSampleIndex( 90L ) );
+  }
+
+  /**
+   * Tests that the trigger is remapped onto the window of a view.
+   */
+  @Test
+  public void testTriggerRemappedOk()
+  {
+    final AcquisitionResultView inside = new AcquisitionResultView( this.data, 2, 5, 0xFF );
+    assertTrue( inside.hasTriggerData() );
+    assertEquals( 30L, inside.getTriggerPosition() );
+    assertEquals( 1, inside.getTriggerIndex() );
+
+    final AcquisitionResultView outside = new AcquisitionResultView( this.data, 5, 9, 0xFF );
+    assertFalse( outside.hasTriggerData() );
+    assertEquals( Ols.NOT_AVAILABLE, outside.getTriggerPosition() );
+    assertEquals( -1, outside.getTriggerIndex() );
+    assertEquals( 100L, outside.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that an empty window is allowed.
+   */
+  @Test
+  public void testEmptyWindowOk()
+  {
+    final AcquisitionResultView view = new AcquisitionResultView( this.data, 4, 3, 0xFF );
+
+    assertEquals( 0, view.getLength() );
+    assertEquals( 0, view.getValues().length );
+    assertFalse( view.hasTriggerData() );
+  }
+
+  /**
+   * Tests that an invalid window is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidWindowFail()
+  {
+    new AcquisitionResultView( this.data, 2, 10, 0xFF );
+  }
+}
+
+/* EOF */
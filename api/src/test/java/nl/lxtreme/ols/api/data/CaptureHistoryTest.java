@@ -0,0 +1,186 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+import org.junit.rules.*;
+
+
+/**
+ * Test cases for {@link CaptureHistory}.
+ */
+public class CaptureHistoryTest
+{
+  // VARIABLES
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  // METHODS
+
+  /**
+   * Tests that only the most recent captures are kept.
+   */
+  @Test
+  public void testAddEvictsOldestCapturesOk() throws IOException
+  {
+    final CaptureHistory history = new CaptureHistory( 3, Long.MAX_VALUE, null );
+
+    for ( int i = 0; i < 5; i++ )
+    {
+      assertEquals( i + 1, history.add( createData( 10, i ) ) );
+    }
+
+    assertEquals( 3, history.size() );
+    assertEquals( 3, history.getSequenceNumber( 0 ) );
+    assertEquals( 5, history.getSequenceNumber( 2 ) );
+    assertEquals( -1, history.indexOf( 2 ) );
+    assertEquals( 1, history.indexOf( 4 ) );
+    assertEquals( 3 * 120L, history.getMemoryUsage() );
+  }
+
+  /**
+   * Tests that captures beyond the memory budget are evicted, except for the
+   * most recent one.
+   */
+  @Test
+  public void testAddEvictsCapturesBeyondMemoryBudgetOk() throws IOException
+  {
+    final CaptureHistory history = new CaptureHistory( 10, 250L, null );
+
+    history.add( createData( 10, 1 ) );
+    history.add( createData( 10, 2 ) );
+    history.add( createData( 10, 3 ) );
+
+    assertEquals( 2, history.size() );
+    assertEquals( 2, history.getSequenceNumber( 0 ) );
+    assertEquals( 240L, history.getMemoryUsage() );
+
+    // A single capture larger than the budget is still kept...
+    history.add( createData( 100, 4 ) );
+
+    assertEquals( 1, history.size() );
+    assertEquals( 4, history.getSequenceNumber( 0 ) );
+  }
+
+  /**
+   * Tests that captures beyond the memory budget are spilled to disk and can
+   * be read back.
+   */
+  @Test
+  public void testAddSpillsCapturesBeyondMemoryBudgetOk() throws IOException
+  {
+    final File spillDir = this.folder.newFolder( "spill" );
+    final CaptureHistory history = new CaptureHistory( 3, 250L, spillDir );
+
+    final AcquisitionResult first = createData( 300000, 1 );
+    history.add( first );
+    history.add( createData( 10, 2 ) );
+    history.add( createData( 10, 3 ) );
+
+    assertEquals( 3, history.size() );
+    assertTrue( history.isSpilled( 0 ) );
+    assertFalse( history.isSpilled( 2 ) );
+    assertEquals( 240L, history.getMemoryUsage() );
+    assertEquals( 1, spillDir.list().length );
+
+    final AcquisitionResult restored = history.get( 0 );
+    assertArrayEquals( first.getValues(), restored.getValues() );
+    assertArrayEquals( first.getTimestamps(), restored.getTimestamps() );
+    assertEquals( first.getTriggerPosition(), restored.getTriggerPosition() );
+    assertEquals( first.getSampleRate(), restored.getSampleRate() );
+    assertEquals( first.getChannels(), restored.getChannels() );
+    assertEquals( first.getEnabledChannels(), restored.getEnabledChannels() );
+    assertEquals( first.getAbsoluteLength(), restored.getAbsoluteLength() );
+
+    // Evicting a spilled capture removes its spill file, while the next one is
+    // spilled...
+    history.add( createData( 10, 4 ) );
+    assertEquals( 2, history.getSequenceNumber( 0 ) );
+    assertTrue( history.isSpilled( 0 ) );
+    assertEquals( 1, spillDir.list().length );
+    assertEquals( 2, history.get( 0 ).getValues()[0] );
+
+    assertTrue( history.clear() );
+    assertEquals( 0, history.size() );
+    assertEquals( 0L, history.getMemoryUsage() );
+    assertFalse( spillDir.exists() );
+
+    // The spill directory is created again when needed...
+    history.add( createData( 300000, 5 ) );
+    history.add( createData( 10, 6 ) );
+    assertTrue( history.isSpilled( 0 ) );
+    assertEquals( 1, spillDir.list().length );
+
+    assertTrue( history.clear() );
+    assertFalse( spillDir.exists() );
+  }
+
+  /**
+   * Tests that the derived data of a capture is dropped once a newer capture is
+   * added, as it does not count towards the memory budget.
+   */
+  @Test
+  public void testAddReleasesDerivedDataOfOlderCapturesOk() throws Exception
+  {
+    final CaptureHistory history = new CaptureHistory( 3, Long.MAX_VALUE, null );
+
+    final CapturedData first = ( CapturedData )createData( 10, 1 );
+    first.setStatistics( CaptureStatistics.calculate( first ) );
+    final ChannelPrefixSums prefixSums = first.getChannelPrefixSums( 0 );
+
+    history.add( first );
+    assertNotNull( first.getStatistics() );
+    assertSame( prefixSums, first.getChannelPrefixSums( 0 ) );
+
+    final CapturedData second = ( CapturedData )createData( 10, 2 );
+    second.setStatistics( CaptureStatistics.calculate( second ) );
+
+    history.add( second );
+    assertNull( first.getStatistics() );
+    assertNotSame( prefixSums, first.getChannelPrefixSums( 0 ) );
+    assertNotNull( second.getStatistics() );
+  }
+
+  /**
+   * Creates captured data with the given number of samples.
+   */
+  private AcquisitionResult createData( final int aCount, final int aSeed )
+  {
+    final int[] values = new int[aCount];
+    final long[] timestamps = new long[aCount];
+    for ( int i = 0; i < aCount; i++ )
+    {
+      values[i] = ( i * 31 ) ^ aSeed;
+      timestamps[i] = 2L * i;
+    }
+    return new CapturedData( values, timestamps, aSeed, 1000000, 8, 0xFF, 2L * aCount );
+  }
+}
+
+/* EOF */
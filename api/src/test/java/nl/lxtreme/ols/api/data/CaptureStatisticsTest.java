@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureStatistics}.
+ */
+public class CaptureStatisticsTest
+{
+  // METHODS
+
+  /**
+   * Tests that the statistics of a simple signal are calculated correctly.
+   */
+  @Test
+  public void testCalculateSimpleSignalOk() throws Exception
+  {
+    // ch0: toggles, ch1: static high, ch2: disabled...
+    final CapturedData data = new CapturedData( new int[] { 0x02, 0x03, 0x02, 0x03, 0x06 }, new long[] { 5, 10, 12,
+        15, 25 }, -1L, 100, 8, 0x03, 30L );
+
+    final CaptureStatistics stats = CaptureStatistics.calculate( data, 1 );
+
+    final ChannelStatistics ch0 = stats.getChannelStatistics( 0 );
+    assertEquals( 2, ch0.getRisingEdgeCount() );
+    assertEquals( 2, ch0.getFallingEdgeCount() );
+    assertEquals( 5L + 3L, ch0.getLowTime() );
+    assertEquals( 2L + 10L, ch0.getHighTime() );
+    assertEquals( 2L, ch0.getMinHighWidth() );
+    assertEquals( 10L, ch0.getMaxHighWidth() );
+    assertEquals( 3L, ch0.getMinLowWidth() );
+    assertEquals( 3L, ch0.getMaxLowWidth() );
+    assertEquals( 2, ch0.getMostCommonPulseWidth() );
+    assertFalse( ch0.isStatic() );
+
+    final ChannelStatistics ch1 = stats.getChannelStatistics( 1 );
+    assertTrue( ch1.isStatic() );
+    assertEquals( -1L, ch1.getMinHighWidth() );
+    assertEquals( -1, ch1.getMostCommonPulseWidth() );
+
+    // Disabled channels are not considered...
+    assertTrue( stats.getChannelStatistics( 2 ).isStatic() );
+
+    assertEquals( 0x02, stats.getStaticChannels() );
+    assertEquals( 4L, stats.getTotalEdgeCount() );
+    assertEquals( 0.25, stats.getMeasureTime(), 1.0e-9 );
+  }
+
+  /**
+   * Tests that scanning in parallel chunks yields the same statistics as a
+   * straightforward scan of each individual channel.
+   */
+  @Test
+  public void testCalculateInParallelEqualsNaiveCalculation() throws Exception
+  {
+    final Random rnd = new Random( 4711L );
+
+    final int size = 300000;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      values[i] = ( i == 0 ) ? 0 : ( values[i - 1] ^ ( 1 << rnd.nextInt( 5 ) ) );
+      timestamps[i] = ( i == 0 ) ? 3L : ( timestamps[i - 1] + 1 + rnd.nextInt( 7 ) );
+    }
+    final CapturedData data = new CapturedData( values, timestamps, -1L, 1000, 8, 0x0F, timestamps[size - 1] + 10 );
+
+    for ( int threads : new int[] { 1, 3, 4 } )
+    {
+      final CaptureStatistics stats = CaptureStatistics.calculate( data, threads );
+
+      for ( int ch = 0; ch < 5; ch++ )
+      {
+        assertChannelStatistics( data, ch, stats.getChannelStatistics( ch ) );
+      }
+    }
+  }
+
+  /**
+   * Asserts the given channel statistics by scanning the given channel.
+   */
+  private void assertChannelStatistics( final CapturedData aData, final int aChannel, final ChannelStatistics aStats )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = ( 1 << aChannel ) & aData.getEnabledChannels();
+
+    int rising = 0;
+    int falling = 0;
+    long high = 0L;
+    long low = 0L;
+    long maxHigh = -1L;
+    long maxLow = -1L;
+    final Map<Long, Integer> widths = new HashMap<Long, Integer>();
+
+    long last = timestamps[0];
+    boolean first = true;
+    for ( int i = 1; i < values.length; i++ )
+    {
+      final int oldValue = values[i - 1] & mask;
+      final int value = values[i] & mask;
+      if ( oldValue == value )
+      {
+        continue;
+      }
+
+      final long width = timestamps[i] - last;
+      if ( value != 0 )
+      {
+        rising++;
+        low += width;
+        maxLow = first ? maxLow : Math.max( maxLow, width );
+      }
+      else
+      {
+        falling++;
+        high += width;
+        maxHigh = first ? maxHigh : Math.max( maxHigh, width );
+      }
+      if ( !first )
+      {
+        final Integer count = widths.get( Long.valueOf( width ) );
+        widths.put( Long.valueOf( width ), Integer.valueOf( ( count == null ) ? 1 : count.intValue() + 1 ) );
+      }
+
+      last = timestamps[i];
+      first = false;
+    }
+
+    long mostCommon = -1L;
+    int mostCommonCount = 0;
+    for ( Map.Entry<Long, Integer> entry : widths.entrySet() )
+    {
+      final int count = entry.getValue().intValue();
+      final long width = entry.getKey().longValue();
+      if ( ( count > mostCommonCount ) || ( ( count == mostCommonCount ) && ( width < mostCommon ) ) )
+      {
+        mostCommon = width;
+        mostCommonCount = count;
+      }
+    }
+
+    assertEquals( rising, aStats.getRisingEdgeCount() );
+    assertEquals( falling, aStats.getFallingEdgeCount() );
+    assertEquals( high, aStats.getHighTime() );
+    assertEquals( low, aStats.getLowTime() );
+    assertEquals( maxHigh, aStats.getMaxHighWidth() );
+    assertEquals( maxLow, aStats.getMaxLowWidth() );
+    assertEquals( mostCommon, aStats.getMostCommonPulseWidth() );
+  }
+}
+
+/* EOF */
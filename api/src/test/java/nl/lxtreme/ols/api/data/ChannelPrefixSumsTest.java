@@ -0,0 +1,195 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ChannelPrefixSums}.
+ */
+public class ChannelPrefixSumsTest
+{
+  // METHODS
+
+  /**
+   * Tests that measuring a range of a simple signal yields the correct edge
+   * counts and times.
+   */
+  @Test
+  public void testMeasureSimpleSignalOk()
+  {
+    final CapturedData data = new CapturedData( new int[] { 0, 1, 0, 1, 0, 1 }, new long[] { 0, 10, 15, 30, 32, 50 },
+        -1L, 100, 8, 0xFF, 60L );
+
+    final ChannelPrefixSums sums = data.getChannelPrefixSums( 0 );
+    assertEquals( 5, sums.getEdgeCount() );
+    assertSame( sums, data.getChannelPrefixSums( 0 ) );
+
+    ChannelPrefixSums.Measurement m = sums.measure( 0, 5 );
+    assertEquals( 3, m.getRisingEdgeCount() );
+    assertEquals( 2, m.getFallingEdgeCount() );
+    assertEquals( 5L + 2L, m.getHighTime() );
+    assertEquals( 10L + 15L + 18L, m.getLowTime() );
+
+    m = sums.measure( 2, 3 );
+    assertEquals( 1, m.getRisingEdgeCount() );
+    assertEquals( 0, m.getFallingEdgeCount() );
+    assertEquals( 0L, m.getHighTime() );
+    assertEquals( 15L, m.getLowTime() );
+
+    m = sums.measure( 3, 2 );
+    assertEquals( 0, m.getRisingEdgeCount() + m.getFallingEdgeCount() );
+  }
+
+  /**
+   * Tests that measuring arbitrary ranges yields the same results as iterating
+   * over all samples of those ranges.
+   */
+  @Test
+  public void testMeasureEqualsNaiveMeasurement()
+  {
+    final Random rnd = new Random( 2718L );
+
+    final int size = 5000;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      values[i] = rnd.nextInt( 8 );
+      timestamps[i] = ( i == 0 ) ? 0L : ( timestamps[i - 1] + 1 + rnd.nextInt( 4 ) );
+    }
+    final CapturedData data = new CapturedData( values, timestamps, -1L, 1000, 8, 0xFF, timestamps[size - 1] + 1 );
+
+    for ( int ch = 0; ch < 3; ch++ )
+    {
+      final ChannelPrefixSums sums = ChannelPrefixSums.create( data, ch );
+
+      for ( int run = 0; run < 500; run++ )
+      {
+        final int startIdx = rnd.nextInt( size );
+        final int endIdx = startIdx + rnd.nextInt( size - startIdx );
+
+        final long[] expected = naiveMeasure( data, ch, startIdx, endIdx );
+        final ChannelPrefixSums.Measurement actual = sums.measure( startIdx, endIdx );
+
+        assertEquals( expected[0], actual.getRisingEdgeCount() );
+        assertEquals( expected[1], actual.getFallingEdgeCount() );
+        assertEquals( expected[2], actual.getHighTime() );
+        assertEquals( expected[3], actual.getLowTime() );
+      }
+    }
+  }
+
+  /**
+   * Tests that creating the prefix sums of several channels in a single pass
+   * yields the same edges as creating them for each channel separately, and
+   * that the captured data caches them.
+   */
+  @Test
+  public void testCreateForSeveralChannelsOk()
+  {
+    final Random rnd = new Random( 3141L );
+
+    final int size = 2000;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      values[i] = rnd.nextInt( 16 );
+      timestamps[i] = 2L * i;
+    }
+    final CapturedData data = new CapturedData( values, timestamps, -1L, 1000, 8, 0xFF, 2L * size );
+
+    final ChannelPrefixSums[] all = ChannelPrefixSums.get( data, 3, 1, 3 );
+    assertEquals( 3, all.length );
+    assertSame( all[0], all[2] );
+    assertSame( all[1], data.getChannelPrefixSums( 1 ) );
+    assertSame( all[0], data.getChannelPrefixSums( 3 ) );
+
+    for ( ChannelPrefixSums sums : all )
+    {
+      final ChannelPrefixSums expected = ChannelPrefixSums.create( data, sums.getChannelIdx() );
+      final int mask = 1 << sums.getChannelIdx();
+
+      assertEquals( expected.getEdgeCount(), sums.getEdgeCount() );
+      for ( int i = 0; i < sums.getEdgeCount(); i++ )
+      {
+        final int sampleIdx = sums.getEdge( i );
+        assertEquals( expected.getEdge( i ), sampleIdx );
+        assertEquals( timestamps[sampleIdx], sums.getEdgeTimestamp( i ) );
+        assertEquals( ( values[sampleIdx] & mask ) != 0, sums.isRising( i ) );
+        assertTrue( ( values[sampleIdx - 1] & mask ) != ( values[sampleIdx] & mask ) );
+
+        assertEquals( i, sums.findNextEdge( sampleIdx - 1 ) );
+        assertEquals( i, sums.findNextEdgeAtTime( timestamps[sampleIdx] ) );
+        assertEquals( i, sums.findNextEdgeAtTime( timestamps[sampleIdx] - 1 ) );
+      }
+    }
+  }
+
+  /**
+   * Measures the given range by iterating over all of its samples.
+   * 
+   * @return the rising and falling edge count, the high and low time.
+   */
+  private long[] naiveMeasure( final CapturedData aData, final int aChannel, final int aStartIdx, final int aEndIdx )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = 1 << aChannel;
+
+    final long[] result = new long[4];
+
+    long lastTransition = timestamps[aStartIdx];
+    int lastBitValue = values[aStartIdx] & mask;
+    for ( int i = aStartIdx + 1; i <= aEndIdx; i++ )
+    {
+      final int bitValue = values[i] & mask;
+      if ( bitValue != lastBitValue )
+      {
+        final long period = timestamps[i] - lastTransition;
+        lastTransition = timestamps[i];
+
+        if ( bitValue != 0 )
+        {
+          result[0]++;
+          result[3] += period;
+        }
+        else
+        {
+          result[1]++;
+          result[2] += period;
+        }
+      }
+      lastBitValue = bitValue;
+    }
+
+    return result;
+  }
+}
+
+/* EOF */
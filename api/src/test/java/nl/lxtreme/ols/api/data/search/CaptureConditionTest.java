@@ -0,0 +1,77 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.search.CaptureSearch.PulseCondition;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureCondition}.
+ */
+public class CaptureConditionTest
+{
+  // METHODS
+
+  /**
+   * Tests that a pattern condition only holds when the pattern is present.
+   */
+  @Test
+  public void testPatternConditionOk() throws InterruptedException
+  {
+    final CapturedData data = createData();
+
+    assertEquals( 1, CaptureCondition.pattern( 0x03, 0x03 ).evaluate( data ).size() );
+    assertTrue( CaptureCondition.pattern( 0x07, 0x04 ).evaluate( data ).isEmpty() );
+  }
+
+  /**
+   * Tests that a pulse width condition only holds for pulses of the right
+   * width.
+   */
+  @Test
+  public void testPulseWidthConditionOk() throws InterruptedException
+  {
+    final CapturedData data = createData();
+
+    // channel 0 is high from 10 to 30...
+    assertEquals( 1, CaptureCondition.pulseWidth( 0, true, PulseCondition.LONGER_THAN, 15L ).evaluate( data )
+        .size() );
+    assertTrue( CaptureCondition.pulseWidth( 0, true, PulseCondition.SHORTER_THAN, 15L ).evaluate( data )
+        .isEmpty() );
+  }
+
+  /**
+   * Creates captured data with a sample rate of 100Hz and 8 channels.
+   */
+  private CapturedData createData()
+  {
+    return new CapturedData( new int[] { 0x00, 0x01, 0x03, 0x02, 0x00 }, new long[] { 0, 10, 20, 30, 40 }, -1L,
+        100, 8, 0xFF, 50L );
+  }
+}
+
+/* EOF */
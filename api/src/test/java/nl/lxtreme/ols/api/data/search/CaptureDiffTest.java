@@ -0,0 +1,272 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.search.CaptureDiff.Alignment;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureDiff}.
+ */
+public class CaptureDiffTest
+{
+  // METHODS
+
+  /**
+   * Tests that comparing a capture with itself yields no differences.
+   */
+  @Test
+  public void testCompareEqualCapturesOk() throws Exception
+  {
+    final CapturedData data = createData( new int[] { 0x00, 0x01, 0x03, 0x02 }, new long[] { 0, 10, 20, 30 }, 5L,
+        40L );
+
+    final CaptureDifferences result = new CaptureDiff( data, data ).compare( 0L, 0xFF );
+
+    assertTrue( result.isEqual() );
+    assertEquals( 0, result.getDifferingChannels() );
+    assertEquals( 0L, result.getComparedStart() );
+    assertEquals( 40L, result.getComparedEnd() );
+  }
+
+  /**
+   * Tests that the differences are reported per channel and for all channels
+   * together.
+   */
+  @Test
+  public void testCompareDifferencesOk() throws Exception
+  {
+    final CapturedData reference = createData( new int[] { 0x00, 0x01, 0x03, 0x02 }, new long[] { 0, 10, 20, 30 },
+        5L, 40L );
+    final CapturedData other = createData( new int[] { 0x00, 0x01, 0x00, 0x03, 0x02 },
+        new long[] { 0, 12, 20, 25, 30 }, 5L, 40L );
+
+    final CaptureDifferences result = new CaptureDiff( reference, other ).compare( 0L, 0xFF );
+
+    assertFalse( result.isEqual() );
+    assertEquals( 0x03, result.getDifferingChannels() );
+
+    // channel 0: 10..12 and 20..25...
+    assertEquals( 2, result.getDifferenceCount( 0 ) );
+    assertInterval( result.getDifferences( 0 ), 0, 10L, 12L );
+    assertInterval( result.getDifferences( 0 ), 1, 20L, 25L );
+    assertEquals( 7L, result.getDifferenceTime( 0 ) );
+
+    // channel 1: 20..25...
+    assertEquals( 1, result.getDifferenceCount( 1 ) );
+    assertInterval( result.getDifferences( 1 ), 0, 20L, 25L );
+
+    // all channels...
+    assertEquals( 2, result.getAllDifferences().size() );
+    assertInterval( result.getAllDifferences(), 0, 10L, 12L );
+    assertInterval( result.getAllDifferences(), 1, 20L, 25L );
+
+    // Only comparing channel 1 should ignore the others...
+    assertEquals( 0x02, new CaptureDiff( reference, other ).compare( 0L, 0x02 ).getDifferingChannels() );
+  }
+
+  /**
+   * Tests that captures are aligned on their trigger or a channel edge.
+   */
+  @Test
+  public void testCompareAlignedOk() throws Exception
+  {
+    final CapturedData reference = createData( new int[] { 0x00, 0x01, 0x03, 0x02 }, new long[] { 0, 10, 20, 30 },
+        10L, 40L );
+    // Same signals, but captured 7 time units later...
+    final CapturedData other = createData( new int[] { 0x00, 0x01, 0x03, 0x02 }, new long[] { 0, 17, 27, 37 },
+        17L, 47L );
+
+    final CaptureDiff diff = new CaptureDiff( reference, other );
+
+    assertFalse( diff.compare( Alignment.NONE, 0, 0xFF ).isEqual() );
+
+    final CaptureDifferences byTrigger = diff.compare( Alignment.TRIGGER, 0, 0xFF );
+    assertTrue( byTrigger.isEqual() );
+    assertEquals( 7L, byTrigger.getOffset() );
+    assertEquals( 0L, byTrigger.getComparedStart() );
+    assertEquals( 40L, byTrigger.getComparedEnd() );
+
+    final CaptureDifferences byEdge = diff.compare( Alignment.CHANNEL_EDGE, 1, 0xFF );
+    assertTrue( byEdge.isEqual() );
+    assertEquals( 7L, byEdge.getOffset() );
+  }
+
+  /**
+   * Tests that the merge of both transition arrays yields the same differences
+   * as comparing both captures for each individual time unit.
+   */
+  @Test
+  public void testCompareEqualsNaiveComparison() throws Exception
+  {
+    final Random rnd = new Random( 1357L );
+
+    for ( int run = 0; run < 25; run++ )
+    {
+      final CapturedData reference = createRandomData( rnd, 200 );
+      final CapturedData other = createRandomData( rnd, 150 );
+      final long offset = rnd.nextInt( 50 ) - 25;
+
+      final CaptureDifferences result = new CaptureDiff( reference, other ).compare( offset, 0x0F );
+
+      for ( int ch = 0; ch < 4; ch++ )
+      {
+        final SearchResult expected = naiveCompare( reference, other, offset, ch );
+        final SearchResult actual = result.getDifferences( ch );
+
+        assertEquals( expected.size(), actual.size() );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+          assertInterval( actual, i, expected.getStartTimestamp( i ), expected.getEndTimestamp( i ) );
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that captures with different sample rates are not compared.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testCompareDifferentSampleRatesFail()
+  {
+    final CapturedData reference = createData( new int[] { 0x00 }, new long[] { 0 }, -1L, 10L );
+    final CapturedData other = new CapturedData( new int[] { 0x00 }, new long[] { 0 }, -1L, 200, 8, 0xFF, 10L );
+
+    new CaptureDiff( reference, other );
+  }
+
+  /**
+   * Tests that a comparison stops when its thread is interrupted.
+   */
+  @Test( expected = InterruptedException.class )
+  public void testInterruptedCompareFails() throws Exception
+  {
+    final Random rnd = new Random( 1234L );
+    final CapturedData reference = createRandomData( rnd, 1 << 17 );
+    final CapturedData other = createRandomData( rnd, 1 << 17 );
+
+    Thread.currentThread().interrupt();
+    try
+    {
+      new CaptureDiff( reference, other ).compare( 0L, 0xFF );
+    }
+    finally
+    {
+      // Do not leak the interrupted status to other tests...
+      Thread.interrupted();
+    }
+  }
+
+  /**
+   * Asserts the given interval.
+   */
+  private void assertInterval( final SearchResult aResult, final int aIndex, final long aStart, final long aEnd )
+  {
+    assertEquals( aStart, aResult.getStartTimestamp( aIndex ) );
+    assertEquals( aEnd, aResult.getEndTimestamp( aIndex ) );
+  }
+
+  /**
+   * Creates captured data with a sample rate of 100Hz and 8 channels.
+   */
+  private CapturedData createData( final int[] aValues, final long[] aTimestamps, final long aTriggerPos,
+      final long aAbsLength )
+  {
+    return new CapturedData( aValues, aTimestamps, aTriggerPos, 100, 8, 0xFF, aAbsLength );
+  }
+
+  /**
+   * Creates random captured data with the given number of transitions.
+   */
+  private CapturedData createRandomData( final Random aRandom, final int aCount )
+  {
+    final int[] values = new int[aCount];
+    final long[] timestamps = new long[aCount];
+
+    timestamps[0] = aRandom.nextInt( 10 );
+    values[0] = aRandom.nextInt( 16 );
+    for ( int i = 1; i < aCount; i++ )
+    {
+      timestamps[i] = timestamps[i - 1] + 1 + aRandom.nextInt( 5 );
+      values[i] = aRandom.nextInt( 16 );
+    }
+
+    return createData( values, timestamps, -1L, timestamps[aCount - 1] + 1 + aRandom.nextInt( 5 ) );
+  }
+
+  /**
+   * Compares a single channel of both captures for each time unit.
+   */
+  private SearchResult naiveCompare( final CapturedData aReference, final CapturedData aOther, final long aOffset,
+      final int aChannel )
+  {
+    final long start = Math.max( aReference.getTimestamps()[0], aOther.getTimestamps()[0] - aOffset );
+    final long end = Math.min( aReference.getAbsoluteLength(), aOther.getAbsoluteLength() - aOffset );
+
+    final CaptureDiff.IntervalBuffer buffer = new CaptureDiff.IntervalBuffer();
+
+    long openStart = -1L;
+    for ( long t = start; t < end; t++ )
+    {
+      final boolean differs = ( levelAt( aReference, t, aChannel ) != levelAt( aOther, t + aOffset, aChannel ) );
+      if ( differs && ( openStart < 0L ) )
+      {
+        openStart = t;
+      }
+      else if ( !differs && ( openStart >= 0L ) )
+      {
+        buffer.add( 0, openStart, t );
+        openStart = -1L;
+      }
+    }
+    if ( openStart >= 0L )
+    {
+      buffer.add( 0, openStart, end );
+    }
+
+    return buffer.toSearchResult();
+  }
+
+  /**
+   * Returns the level of a channel at a given time.
+   */
+  private boolean levelAt( final CapturedData aData, final long aTime, final int aChannel )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    int idx = 0;
+    while ( ( idx + 1 < timestamps.length ) && ( timestamps[idx + 1] <= aTime ) )
+    {
+      idx++;
+    }
+    return ( aData.getValues()[idx] & ( 1 << aChannel ) ) != 0;
+  }
+}
+
+/* EOF */
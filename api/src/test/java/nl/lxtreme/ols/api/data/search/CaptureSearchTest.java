@@ -0,0 +1,222 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data.search;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.search.CaptureSearch.PulseCondition;
+import nl.lxtreme.ols.api.data.search.CaptureSearch.SequenceStep;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureSearch}.
+ */
+public class CaptureSearchTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    final int[] values = { 0x00, 0x01, 0x03, 0x01, 0x00, 0x01, 0x03, 0x01, 0x02 };
+    final long[] timestamps = { 0, 10, 15, 40, 45, 60, 62, 70, 90 };
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 100L );
+  }
+
+  /**
+   * Tests that all moments a pattern is entered are found.
+   */
+  @Test
+  public void testFindPatternOk() throws Exception
+  {
+    final SearchResult result = new CaptureSearch( this.data ).findPattern( 0x03, 0x03 );
+
+    assertEquals( 2, result.size() );
+    assertHit( result, 0, 2, 15L, 40L );
+    assertHit( result, 1, 6, 62L, 70L );
+  }
+
+  /**
+   * Tests that only complete pulses are reported, filtered on their width.
+   */
+  @Test
+  public void testFindPulsesOk() throws Exception
+  {
+    final CaptureSearch search = new CaptureSearch( this.data );
+
+    // High pulses on channel 1: 15..40 and 62..70; 90..end is not complete...
+    final SearchResult shortPulses = search.findPulses( 1, true, PulseCondition.SHORTER_THAN, 10L );
+    assertEquals( 1, shortPulses.size() );
+    assertHit( shortPulses, 0, 6, 62L, 70L );
+
+    final SearchResult longPulses = search.findPulses( 1, true, PulseCondition.LONGER_THAN, 10L );
+    assertEquals( 1, longPulses.size() );
+    assertHit( longPulses, 0, 2, 15L, 40L );
+
+    // Low pulses on channel 0: 0..10 and 90..end are not complete...
+    final SearchResult lowPulses = search.findPulses( 0, false, PulseCondition.LONGER_THAN, 0L );
+    assertEquals( 1, lowPulses.size() );
+    assertHit( lowPulses, 0, 4, 45L, 60L );
+  }
+
+  /**
+   * Tests that sequences are found honoring the delays between their steps.
+   */
+  @Test
+  public void testFindSequenceOk() throws Exception
+  {
+    final CaptureSearch search = new CaptureSearch( this.data );
+
+    // channel 0 high, followed within 5 time units by channel 1 high...
+    SearchResult result = search.findSequence( new SequenceStep( 0x03, 0x01 ),
+        new SequenceStep( 0x03, 0x03, 0L, 5L ) );
+    assertEquals( 2, result.size() );
+    assertHit( result, 0, 1, 10L, 40L );
+    assertHit( result, 1, 5, 60L, 70L );
+
+    // ...at least 3 time units later, which rules out the second occurrence...
+    result = search.findSequence( new SequenceStep( 0x03, 0x01 ), new SequenceStep( 0x03, 0x03, 3L, 5L ) );
+    assertEquals( 1, result.size() );
+    assertHit( result, 0, 1, 10L, 40L );
+
+    // ...or any time later, but then followed by channel 1 only...
+    result = search.findSequence( new SequenceStep( 0x03, 0x01 ), new SequenceStep( 0x03, 0x03 ),
+        new SequenceStep( 0x03, 0x02 ) );
+    assertEquals( 3, result.size() );
+    assertHit( result, 0, 1, 10L, 100L );
+    assertHit( result, 1, 3, 40L, 100L );
+    assertHit( result, 2, 5, 60L, 100L );
+  }
+
+  /**
+   * Tests the navigation to the next and previous hits.
+   */
+  @Test
+  public void testNavigateOk() throws Exception
+  {
+    final SearchResult result = new CaptureSearch( this.data ).findPattern( 0x03, 0x03 );
+
+    assertEquals( 0, result.indexOfNext( 0L ) );
+    assertEquals( 1, result.indexOfNext( 15L ) );
+    assertEquals( -1, result.indexOfNext( 62L ) );
+
+    assertEquals( -1, result.indexOfPrevious( 15L ) );
+    assertEquals( 0, result.indexOfPrevious( 16L ) );
+    assertEquals( 0, result.indexOfPrevious( 62L ) );
+    assertEquals( 1, result.indexOfPrevious( 1000L ) );
+
+    assertTrue( SearchResult.EMPTY.isEmpty() );
+    assertEquals( -1, SearchResult.EMPTY.indexOfNext( 0L ) );
+    assertEquals( -1, SearchResult.EMPTY.indexOfPrevious( 0L ) );
+  }
+
+  /**
+   * Tests that scanning in parallel chunks yields the same hits as scanning
+   * sequentially, including hits that span multiple chunks.
+   */
+  @Test
+  public void testParallelScanEqualsSequentialScan() throws Exception
+  {
+    final Random rnd = new Random( 4321L );
+    final int size = 1 << 20;
+
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 1; i < size; i++ )
+    {
+      // Keep channel 3 high for a long time, spanning several chunks...
+      final int level = ( ( i > 100000 ) && ( i < 400000 ) ) ? 0x08 : 0x00;
+      values[i] = ( rnd.nextInt() & 0x07 ) | level;
+      timestamps[i] = timestamps[i - 1] + 1 + rnd.nextInt( 4 );
+    }
+    final CapturedData largeData = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF,
+        timestamps[size - 1] + 1L );
+
+    final CaptureSearch sequential = new CaptureSearch( largeData );
+    sequential.setThreadCount( 1 );
+    final CaptureSearch parallel = new CaptureSearch( largeData );
+    parallel.setThreadCount( 4 );
+
+    assertSameResult( sequential.findPattern( 0x0F, 0x0A ), parallel.findPattern( 0x0F, 0x0A ) );
+    assertSameResult( sequential.findPattern( 0x08, 0x08 ), parallel.findPattern( 0x08, 0x08 ) );
+    assertSameResult( sequential.findPulses( 1, true, PulseCondition.LONGER_THAN, 6L ),
+        parallel.findPulses( 1, true, PulseCondition.LONGER_THAN, 6L ) );
+  }
+
+  /**
+   * Tests that a search stops when its thread is interrupted.
+   */
+  @Test( expected = InterruptedException.class )
+  public void testInterruptedSearchFails() throws Exception
+  {
+    Thread.currentThread().interrupt();
+    try
+    {
+      new CaptureSearch( this.data ).findPattern( 0x03, 0x03 );
+    }
+    finally
+    {
+      // Do not leak the interrupted status to other tests...
+      Thread.interrupted();
+    }
+  }
+
+  /**
+   * Asserts the given hit.
+   */
+  private void assertHit( final SearchResult aResult, final int aIndex, final int aSampleIdx, final long aStart,
+      final long aEnd )
+  {
+    assertEquals( aSampleIdx, aResult.getSampleIndex( aIndex ) );
+    assertEquals( aStart, aResult.getStartTimestamp( aIndex ) );
+    assertEquals( aEnd, aResult.getEndTimestamp( aIndex ) );
+  }
+
+  /**
+   * Asserts that both given results contain the same hits.
+   */
+  private void assertSameResult( final SearchResult aExpected, final SearchResult aActual )
+  {
+    assertFalse( aExpected.isEmpty() );
+    assertEquals( aExpected.size(), aActual.size() );
+    for ( int i = 0; i < aExpected.size(); i++ )
+    {
+      assertHit( aActual, i, aExpected.getSampleIndex( i ), aExpected.getStartTimestamp( i ),
+          aExpected.getEndTimestamp( i ) );
+    }
+  }
+}
+
+/* EOF */
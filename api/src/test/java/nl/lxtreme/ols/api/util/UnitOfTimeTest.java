@@ -74,6 +74,29 @@ public class UnitOfTimeTest
     assertEquals( "1050.607s", UnitOfTime.S.formatHumanReadable( 1.050607e3 ) );
   }
 
+  /**
+   * Test method for {@link nl.lxtreme.ols.api.util.UnitOfTime#parse(String)}.
+   */
+  @Test
+  public void testParseOk()
+  {
+    assertEquals( 0.3, UnitOfTime.parse( "0.3" ), 1.0e-12 );
+    assertEquals( 2.0, UnitOfTime.parse( "2 s" ), 1.0e-12 );
+    assertEquals( 1.5e-3, UnitOfTime.parse( "1.5ms" ), 1.0e-12 );
+    assertEquals( 20.0e-6, UnitOfTime.parse( "20 us" ), 1.0e-12 );
+    assertEquals( 20.0e-6, UnitOfTime.parse( "20\u03BCs" ), 1.0e-12 );
+    assertEquals( -4.0e-9, UnitOfTime.parse( "-4ns" ), 1.0e-15 );
+  }
+
+  /**
+   * Test method for {@link nl.lxtreme.ols.api.util.UnitOfTime#parse(String)}.
+   */
+  @Test( expected = NumberFormatException.class )
+  public void testParseUnknownUnitFail()
+  {
+    UnitOfTime.parse( "10 xs" );
+  }
+
   /**
    * Test method for {@link nl.lxtreme.ols.api.util.UnitOfTime#predecessor()}.
    */
@@ -0,0 +1,351 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Helper class that is capable of reading & writing channel annotations in a
+ * compact binary form.
+ * <p>
+ * The binary form consists of:
+ * </p>
+ * <ol>
+ * <li>a magic number and version;</li>
+ * <li>the number of channels, followed by, per channel, its index, the number
+ * of annotations, and per annotation the difference of its start timestamp
+ * with that of the previous annotation, its length, and the index of its text
+ * in the text table, all encoded as variable-length integers;</li>
+ * <li>the text table, with each distinct text of all annotations only once, as
+ * UTF-8 strings.</li>
+ * </ol>
+ * <p>
+ * Only {@link DataAnnotation}s are stored; their annotation is stored as text.
+ * </p>
+ */
+final class AnnotationDataHelper
+{
+  // CONSTANTS
+
+  private static final int MAGIC = 0x4F4C5341; // "OLSA"
+  private static final int VERSION = 1;
+
+  /**
+   * Arrays are grown while reading up to their stored length, so corrupt
+   * lengths result in an {@link EOFException} instead of huge allocations.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+
+  // METHODS
+
+  /**
+   * Reads the annotations of all channels from the given input stream.
+   * 
+   * @param aInput
+   *          the input stream to read from, cannot be <code>null</code>.
+   * @return the annotations of each channel with annotations, never
+   *         <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the given input does not
+   *           contain (valid) annotations. Truncated input results in an
+   *           {@link EOFException}.
+   */
+  public static List<StoredAnnotations> read( final InputStream aInput ) throws IOException
+  {
+    final DataInputStream dis = new DataInputStream( new BufferedInputStream( aInput ) );
+
+    if ( ( dis.readInt() != MAGIC ) || ( dis.readInt() != VERSION ) )
+    {
+      throw new IOException( "Unsupported or corrupt annotations!" );
+    }
+
+    final int channelCount = dis.readInt();
+    if ( ( channelCount < 0 ) || ( channelCount > Ols.MAX_CHANNELS ) )
+    {
+      throw new IOException( "Corrupt annotations: invalid channel count!" );
+    }
+
+    final int[] channels = new int[channelCount];
+    final long[][] startTimestamps = new long[channelCount][];
+    final long[][] endTimestamps = new long[channelCount][];
+    final int[][] textIndices = new int[channelCount][];
+
+    for ( int ch = 0; ch < channelCount; ch++ )
+    {
+      channels[ch] = dis.readInt();
+      if ( ( channels[ch] < 0 ) || ( channels[ch] >= Ols.MAX_CHANNELS ) )
+      {
+        throw new IOException( "Corrupt annotations: invalid channel index!" );
+      }
+
+      final int count = readCount( dis );
+      long[] starts = new long[Math.min( count, INITIAL_CAPACITY )];
+      long[] ends = new long[starts.length];
+      int[] indices = new int[starts.length];
+
+      long start = 0L;
+      for ( int i = 0; i < count; i++ )
+      {
+        if ( i == starts.length )
+        {
+          final int capacity = ( int )Math.min( count, 2L * i );
+          starts = Arrays.copyOf( starts, capacity );
+          ends = Arrays.copyOf( ends, capacity );
+          indices = Arrays.copyOf( indices, capacity );
+        }
+
+        start += decodeZigZag( readVarLong( dis ) );
+
+        starts[i] = start;
+        ends[i] = start + decodeZigZag( readVarLong( dis ) );
+        indices[i] = readIndex( dis );
+      }
+
+      startTimestamps[ch] = starts;
+      endTimestamps[ch] = ends;
+      textIndices[ch] = indices;
+    }
+
+    final int textCount = readCount( dis );
+    final List<String> textList = new ArrayList<String>( Math.min( textCount, INITIAL_CAPACITY ) );
+    for ( int i = 0; i < textCount; i++ )
+    {
+      textList.add( new String( readBytes( dis, readIndex( dis ) ), "UTF-8" ) );
+    }
+    final String[] texts = textList.toArray( new String[textCount] );
+
+    final List<StoredAnnotations> result = new ArrayList<StoredAnnotations>( channelCount );
+    for ( int ch = 0; ch < channelCount; ch++ )
+    {
+      for ( int textIdx : textIndices[ch] )
+      {
+        if ( textIdx >= texts.length )
+        {
+          throw new IOException( "Corrupt annotations: invalid text index!" );
+        }
+      }
+      result.add( new StoredAnnotations( channels[ch], startTimestamps[ch], endTimestamps[ch], textIndices[ch],
+          texts ) );
+    }
+    return result;
+  }
+
+  /**
+   * Writes the annotations of all given channels to the given output stream.
+   * 
+   * @param aStoredAnnotations
+   *          the annotations to write that were loaded from a project file, per
+   *          channel index, cannot be <code>null</code>. These are written
+   *          without creating them;
+   * @param aAnnotations
+   *          the other annotations to write, per channel index, cannot be
+   *          <code>null</code>. These are written after the stored annotations
+   *          of the same channel;
+   * @param aOutput
+   *          the output stream to write to, cannot be <code>null</code>. This
+   *          stream is flushed, but not closed.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void write( final Map<Integer, StoredAnnotations> aStoredAnnotations,
+      final Map<Integer, ? extends Collection<Annotation<?>>> aAnnotations, final OutputStream aOutput )
+      throws IOException
+  {
+    final DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( aOutput ) );
+
+    final Map<String, Integer> textTable = new LinkedHashMap<String, Integer>();
+
+    final SortedSet<Integer> channels = new TreeSet<Integer>( aStoredAnnotations.keySet() );
+    channels.addAll( aAnnotations.keySet() );
+
+    dos.writeInt( MAGIC );
+    dos.writeInt( VERSION );
+    dos.writeInt( channels.size() );
+
+    for ( Integer channel : channels )
+    {
+      final StoredAnnotations stored = aStoredAnnotations.get( channel );
+      final int storedCount = ( stored == null ) ? 0 : stored.size();
+
+      final List<DataAnnotation<?>> annotations = new ArrayList<DataAnnotation<?>>();
+      final Collection<Annotation<?>> others = aAnnotations.get( channel );
+      if ( others != null )
+      {
+        for ( Annotation<?> annotation : others )
+        {
+          if ( annotation instanceof DataAnnotation<?> )
+          {
+            annotations.add( ( DataAnnotation<?> )annotation );
+          }
+        }
+      }
+
+      dos.writeInt( channel.intValue() );
+      dos.writeInt( storedCount + annotations.size() );
+
+      long lastStart = 0L;
+      for ( int i = 0; i < storedCount; i++ )
+      {
+        final long start = stored.getStartTimestamp( i );
+        writeAnnotation( dos, textTable, lastStart, start, stored.getEndTimestamp( i ), stored.getText( i ) );
+        lastStart = start;
+      }
+      for ( DataAnnotation<?> annotation : annotations )
+      {
+        final long start = annotation.getStartTimestamp();
+        writeAnnotation( dos, textTable, lastStart, start, annotation.getEndTimestamp(),
+            String.valueOf( annotation.getAnnotation() ) );
+        lastStart = start;
+      }
+    }
+
+    dos.writeInt( textTable.size() );
+    for ( String text : textTable.keySet() )
+    {
+      final byte[] bytes = text.getBytes( "UTF-8" );
+      writeVarLong( dos, bytes.length );
+      dos.write( bytes );
+    }
+
+    dos.flush();
+  }
+
+  /**
+   * Decodes a zig-zag encoded value.
+   */
+  private static long decodeZigZag( final long aValue )
+  {
+    return ( aValue >>> 1 ) ^ -( aValue & 1L );
+  }
+
+  /**
+   * Encodes a (possibly negative) value such that small absolute values yield
+   * small unsigned values.
+   */
+  private static long encodeZigZag( final long aValue )
+  {
+    return ( aValue << 1 ) ^ ( aValue >> 63 );
+  }
+
+  /**
+   * Reads the given number of bytes, without allocating them all up front.
+   */
+  private static byte[] readBytes( final DataInputStream aInput, final int aLength ) throws IOException
+  {
+    final ByteArrayOutputStream result = new ByteArrayOutputStream( Math.min( aLength, INITIAL_CAPACITY ) );
+    final byte[] buffer = new byte[Math.min( aLength, 8192 )];
+
+    int remaining = aLength;
+    while ( remaining > 0 )
+    {
+      final int length = Math.min( remaining, buffer.length );
+      aInput.readFully( buffer, 0, length );
+      result.write( buffer, 0, length );
+      remaining -= length;
+    }
+    return result.toByteArray();
+  }
+
+  /**
+   * Reads a count as a 32-bit integer.
+   */
+  private static int readCount( final DataInputStream aInput ) throws IOException
+  {
+    final int result = aInput.readInt();
+    if ( result < 0 )
+    {
+      throw new IOException( "Corrupt annotations: invalid count!" );
+    }
+    return result;
+  }
+
+  /**
+   * Reads a text index or length as a variable-length integer.
+   */
+  private static int readIndex( final DataInputStream aInput ) throws IOException
+  {
+    final long result = readVarLong( aInput );
+    if ( ( result < 0L ) || ( result > Integer.MAX_VALUE ) )
+    {
+      throw new IOException( "Corrupt annotations: invalid index or length!" );
+    }
+    return ( int )result;
+  }
+
+  /**
+   * Reads an unsigned variable-length integer, of which each byte contains
+   * seven bits, least significant first.
+   */
+  private static long readVarLong( final DataInputStream aInput ) throws IOException
+  {
+    long result = 0L;
+    for ( int shift = 0; shift < 64; shift += 7 )
+    {
+      final int b = aInput.readUnsignedByte();
+      result |= ( long )( b & 0x7F ) << shift;
+      if ( ( b & 0x80 ) == 0 )
+      {
+        return result;
+      }
+    }
+    throw new IOException( "Corrupt annotations: invalid variable-length integer!" );
+  }
+
+  /**
+   * Writes a single annotation, adding its text to the given text table if
+   * needed.
+   */
+  private static void writeAnnotation( final DataOutputStream aOutput, final Map<String, Integer> aTextTable,
+      final long aLastStart, final long aStart, final long aEnd, final String aText ) throws IOException
+  {
+    Integer textIdx = aTextTable.get( aText );
+    if ( textIdx == null )
+    {
+      textIdx = Integer.valueOf( aTextTable.size() );
+      aTextTable.put( aText, textIdx );
+    }
+
+    writeVarLong( aOutput, encodeZigZag( aStart - aLastStart ) );
+    writeVarLong( aOutput, encodeZigZag( aEnd - aStart ) );
+    writeVarLong( aOutput, textIdx.intValue() );
+  }
+
+  /**
+   * Writes an unsigned variable-length integer, of which each byte contains
+   * seven bits, least significant first.
+   */
+  private static void writeVarLong( final DataOutputStream aOutput, final long aValue ) throws IOException
+  {
+    long value = aValue;
+    while ( ( value & ~0x7FL ) != 0L )
+    {
+      aOutput.writeByte( ( int )( ( value & 0x7F ) | 0x80 ) );
+      value >>>= 7;
+    }
+    aOutput.writeByte( ( int )value );
+  }
+}
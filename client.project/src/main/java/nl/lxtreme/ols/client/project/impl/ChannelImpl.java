@@ -24,7 +24,6 @@ package nl.lxtreme.ols.client.project.impl;
 import java.beans.*;
 import java.util.*;
 import java.util.List;
-import java.util.concurrent.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.data.*;
@@ -48,7 +47,10 @@ public final class ChannelImpl implements Channel
   private String label;
   private boolean enabled;
 
+  /** Also guards all other annotation fields. */
   private final List<Annotation<?>> annotations;
+  private StoredAnnotations storedAnnotations;
+  private List<Annotation<?>> annotationsView;
   private final PropertyChangeSupport propertyChangeSupport;
 
   // CONSTRUCTORS
@@ -76,8 +78,13 @@ public final class ChannelImpl implements Channel
     this.label = aChannel.getLabel();
     this.enabled = aChannel.isEnabled();
 
-    this.annotations = new CopyOnWriteArrayList<Annotation<?>>();
-    if ( aRetainAnnotation )
+    this.annotations = new ArrayList<Annotation<?>>();
+    if ( aRetainAnnotation && ( aChannel instanceof ChannelImpl ) )
+    {
+      // Retains the stored annotations without creating them...
+      this.storedAnnotations = ( ( ChannelImpl )aChannel ).getAnnotations( this.annotations );
+    }
+    else if ( aRetainAnnotation )
     {
       this.annotations.addAll( aChannel.getAnnotations() );
     }
@@ -103,7 +110,7 @@ public final class ChannelImpl implements Channel
     this.label = null;
     this.enabled = true;
 
-    this.annotations = new CopyOnWriteArrayList<Annotation<?>>();
+    this.annotations = new ArrayList<Annotation<?>>();
   }
 
   // METHODS
@@ -116,7 +123,12 @@ public final class ChannelImpl implements Channel
   {
     if ( aAnnotation instanceof DataAnnotation )
     {
-      this.annotations.add( aAnnotation );
+      synchronized ( this.annotations )
+      {
+        // Follows the stored annotations, if any...
+        this.annotations.add( aAnnotation );
+        this.annotationsView = null;
+      }
     }
     else
     {
@@ -138,7 +150,12 @@ public final class ChannelImpl implements Channel
   @Override
   public void clearAnnotations()
   {
-    this.annotations.clear();
+    synchronized ( this.annotations )
+    {
+      this.storedAnnotations = null;
+      this.annotations.clear();
+      this.annotationsView = null;
+    }
   }
 
   /**
@@ -180,7 +197,52 @@ public final class ChannelImpl implements Channel
   @Override
   public Collection<Annotation<?>> getAnnotations()
   {
-    return Collections.unmodifiableCollection( this.annotations );
+    synchronized ( this.annotations )
+    {
+      if ( this.storedAnnotations != null )
+      {
+        // Keep the annotations in the order they were added...
+        this.annotations.addAll( 0, this.storedAnnotations.getAnnotations() );
+        this.storedAnnotations = null;
+      }
+      if ( this.annotationsView == null )
+      {
+        // Remains valid while this channel changes...
+        this.annotationsView = Collections.unmodifiableList( new ArrayList<Annotation<?>>( this.annotations ) );
+      }
+      return this.annotationsView;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<DataAnnotation<?>> getDataAnnotations( final long aStartTimestamp, final long aEndTimestamp )
+  {
+    final List<DataAnnotation<?>> result = new ArrayList<DataAnnotation<?>>();
+
+    synchronized ( this.annotations )
+    {
+      if ( this.storedAnnotations != null )
+      {
+        this.storedAnnotations.addAnnotations( result, aStartTimestamp, aEndTimestamp );
+      }
+      for ( Annotation<?> annotation : this.annotations )
+      {
+        if ( annotation instanceof DataAnnotation<?> )
+        {
+          final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
+          if ( StoredAnnotations.overlaps( ann.getStartTimestamp(), ann.getEndTimestamp(), aStartTimestamp,
+              aEndTimestamp ) )
+          {
+            result.add( ann );
+          }
+        }
+      }
+    }
+
+    return result;
   }
 
   /**
@@ -226,6 +288,19 @@ public final class ChannelImpl implements Channel
     return result;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasAnnotations()
+  {
+    synchronized ( this.annotations )
+    {
+      return ( ( this.storedAnnotations != null ) && ( this.storedAnnotations.size() > 0 ) )
+          || !this.annotations.isEmpty();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -285,6 +360,45 @@ public final class ChannelImpl implements Channel
     return this.index + ": " + getLabel();
   }
 
+  /**
+   * Sets the annotations of this channel as loaded from a project file,
+   * replacing all current annotations.
+   * <p>
+   * The actual annotations are not created until they are needed.
+   * </p>
+   * 
+   * @param aAnnotations
+   *          the stored annotations to set, cannot be <code>null</code>.
+   */
+  final void setStoredAnnotations( final StoredAnnotations aAnnotations )
+  {
+    synchronized ( this.annotations )
+    {
+      this.annotations.clear();
+      this.storedAnnotations = aAnnotations;
+      this.annotationsView = null;
+    }
+  }
+
+  /**
+   * Returns the annotations of this channel without creating the stored
+   * annotations, for example, to store them again.
+   * 
+   * @param aAnnotations
+   *          the list to add all annotations to that are not stored
+   *          annotations, cannot be <code>null</code>.
+   * @return the stored annotations that precede the added annotations, can be
+   *         <code>null</code>.
+   */
+  final StoredAnnotations getAnnotations( final List<Annotation<?>> aAnnotations )
+  {
+    synchronized ( this.annotations )
+    {
+      aAnnotations.addAll( this.annotations );
+      return this.storedAnnotations;
+    }
+  }
+
   /**
    * Crafts a default channel name for use when a channel has no label set.
    * 
@@ -0,0 +1,360 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides the samples of captured data as a series of independently
+ * compressed chunks, which together form a single deflate stream, in the way
+ * pigz does.
+ * <p>
+ * Each chunk contains the samples in the same (textual) format as a regular
+ * OLS data file, and is deflated on its own, allowing all chunks to be
+ * compressed in parallel. Each chunk ends like a sync flush, so it ends on a
+ * byte boundary without marking the end of the deflate stream; as such, the
+ * chunks can simply be concatenated. As captured data is immutable, the
+ * compressed chunks can be reused as long as the captured data does not
+ * change.
+ * </p>
+ */
+final class CompressedCapture
+{
+  // INNER TYPES
+
+  /**
+   * Provides a single deflated chunk.
+   */
+  static final class Chunk
+  {
+    // VARIABLES
+
+    final byte[] data;
+    final long checksum;
+    final long size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Chunk instance.
+     */
+    Chunk( final byte[] aData, final long aChecksum, final long aSize )
+    {
+      this.data = aData;
+      this.checksum = aChecksum;
+      this.size = aSize;
+    }
+  }
+
+  /**
+   * Compresses the samples of a single chunk.
+   */
+  static final class ChunkCompressor implements Callable<Chunk>
+  {
+    // VARIABLES
+
+    private final AcquisitionResult data;
+    private final int startIdx;
+    private final int endIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ChunkCompressor instance.
+     */
+    ChunkCompressor( final AcquisitionResult aData, final int aStartIdx, final int aEndIdx )
+    {
+      this.data = aData;
+      this.startIdx = aStartIdx;
+      this.endIdx = aEndIdx;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Chunk call() throws IOException
+    {
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream( ( this.endIdx - this.startIdx ) * 16 );
+
+      final Writer writer = new OutputStreamWriter( baos );
+      OlsDataHelper.writeSamples( this.data, this.startIdx, this.endIdx, writer );
+      writer.flush();
+
+      return deflate( baos.toByteArray() );
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of samples in a single chunk. */
+  static final int CHUNK_SIZE = 1 << 16;
+
+  /** An empty, final block with fixed Huffman codes, ending a deflate stream. */
+  private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+  /** The CRC-32 polynomial, in reversed bit order. */
+  private static final long CRC32_POLYNOMIAL = 0xedb88320L;
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final List<Chunk> chunks;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompressedCapture instance.
+   */
+  private CompressedCapture( final AcquisitionResult aData, final List<Chunk> aChunks )
+  {
+    this.data = aData;
+    this.chunks = aChunks;
+  }
+
+  // METHODS
+
+  /**
+   * Combines the CRC-32 checksums of two consecutive blocks of data into the
+   * checksum of both blocks, like zlib's <tt>crc32_combine</tt>.
+   * 
+   * @param aChecksum1
+   *          the checksum of the first block;
+   * @param aChecksum2
+   *          the checksum of the second block;
+   * @param aLength2
+   *          the length of the second block, in bytes.
+   * @return the checksum of the concatenation of both blocks.
+   */
+  static long combineChecksums( final long aChecksum1, final long aChecksum2, final long aLength2 )
+  {
+    if ( aLength2 <= 0L )
+    {
+      return aChecksum1;
+    }
+
+    // The operator for a single zero bit...
+    final long[] odd = new long[32];
+    odd[0] = CRC32_POLYNOMIAL;
+    for ( int n = 1; n < 32; n++ )
+    {
+      odd[n] = 1L << ( n - 1 );
+    }
+
+    // The operators for two and four zero bits...
+    final long[] even = new long[32];
+    gf2MatrixSquare( even, odd );
+    gf2MatrixSquare( odd, even );
+
+    // Apply the operator for each (set) bit of the length, in zero bytes...
+    long checksum = aChecksum1;
+    long length = aLength2;
+    do
+    {
+      gf2MatrixSquare( even, odd );
+      if ( ( length & 1L ) != 0L )
+      {
+        checksum = gf2MatrixTimes( even, checksum );
+      }
+      length >>>= 1;
+
+      if ( length == 0L )
+      {
+        break;
+      }
+
+      gf2MatrixSquare( odd, even );
+      if ( ( length & 1L ) != 0L )
+      {
+        checksum = gf2MatrixTimes( odd, checksum );
+      }
+      length >>>= 1;
+    }
+    while ( length != 0L );
+
+    return checksum ^ aChecksum2;
+  }
+
+  /**
+   * Compresses the samples of the given captured data, using all available
+   * processors.
+   * 
+   * @param aData
+   *          the captured data to compress, cannot be <code>null</code>.
+   * @return the compressed captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case the compression failed, or was interrupted.
+   */
+  public static CompressedCapture compress( final AcquisitionResult aData ) throws IOException
+  {
+    final int sampleCount = aData.getValues().length;
+
+    final List<ChunkCompressor> compressors = new ArrayList<ChunkCompressor>();
+    for ( int start = 0; start < sampleCount; start += CHUNK_SIZE )
+    {
+      compressors.add( new ChunkCompressor( aData, start, Math.min( sampleCount, start + CHUNK_SIZE ) ) );
+    }
+
+    try
+    {
+      return new CompressedCapture( aData, ParallelUtils.invokeAll( compressors, IOException.class ) );
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Compression of captured data interrupted!" );
+    }
+  }
+
+  /**
+   * Deflates the given data into a raw deflate stream that ends like a sync
+   * flush instead of with a final block.
+   * 
+   * @param aData
+   *          the data to deflate, cannot be <code>null</code>.
+   * @return the deflated chunk, never <code>null</code>.
+   * @throws IOException
+   *           in case the deflated data could not be converted.
+   * @see DeflateStreams#toSyncFlushed(byte[])
+   */
+  static Chunk deflate( final byte[] aData ) throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( Math.max( 64, aData.length / 4 ) );
+    final Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true /* nowrap */);
+
+    try
+    {
+      deflater.setInput( aData );
+      deflater.finish();
+
+      final byte[] buffer = new byte[8192];
+      while ( !deflater.finished() )
+      {
+        final int length = deflater.deflate( buffer );
+        baos.write( buffer, 0, length );
+      }
+    }
+    finally
+    {
+      deflater.end();
+    }
+
+    final CRC32 crc = new CRC32();
+    crc.update( aData );
+
+    return new Chunk( DeflateStreams.toSyncFlushed( baos.toByteArray() ), crc.getValue(), aData.length );
+  }
+
+  /**
+   * Returns the number of chunks.
+   * 
+   * @return a chunk count, &gt;= 0.
+   */
+  public int getChunkCount()
+  {
+    return this.chunks.size();
+  }
+
+  /**
+   * Returns whether this is the compressed form of the given captured data.
+   * 
+   * @param aData
+   *          the captured data to test.
+   * @return <code>true</code> if this compressed capture can be used in place
+   *         of the given captured data, <code>false</code> otherwise.
+   */
+  public boolean isCompressionOf( final AcquisitionResult aData )
+  {
+    return this.data == aData;
+  }
+
+  /**
+   * Writes the given header, followed by all compressed chunks, as a single
+   * deflated entry.
+   * 
+   * @param aZipWriter
+   *          the ZIP writer to write the entry to, cannot be <code>null</code>;
+   * @param aName
+   *          the name of the entry to write, cannot be <code>null</code>;
+   * @param aHeader
+   *          the (uncompressed) data preceding the samples, cannot be
+   *          <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeTo( final ZipWriter aZipWriter, final String aName, final byte[] aHeader ) throws IOException
+  {
+    final Chunk header = deflate( aHeader );
+
+    final List<byte[]> data = new ArrayList<byte[]>( this.chunks.size() + 2 );
+    data.add( header.data );
+
+    long checksum = header.checksum;
+    long size = header.size;
+    for ( Chunk chunk : this.chunks )
+    {
+      data.add( chunk.data );
+      checksum = combineChecksums( checksum, chunk.checksum, chunk.size );
+      size += chunk.size;
+    }
+    data.add( FINAL_BLOCK );
+
+    aZipWriter.putDeflatedEntry( aName, data, checksum, size );
+  }
+
+  /**
+   * Multiplies the given vector with the given matrix over GF(2).
+   */
+  private static long gf2MatrixTimes( final long[] aMatrix, final long aVector )
+  {
+    long result = 0L;
+    long vector = aVector;
+    for ( int i = 0; vector != 0L; i++, vector >>>= 1 )
+    {
+      if ( ( vector & 1L ) != 0L )
+      {
+        result ^= aMatrix[i];
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Squares the given matrix over GF(2).
+   */
+  private static void gf2MatrixSquare( final long[] aSquare, final long[] aMatrix )
+  {
+    for ( int n = 0; n < 32; n++ )
+    {
+      aSquare[n] = gf2MatrixTimes( aMatrix, aMatrix[n] );
+    }
+  }
+}
@@ -182,6 +182,32 @@ public class DataSetImpl implements PropertyChangeListener, DataSet, ProjectProp
     this.propertyChangeSupport.firePropertyChange( PROPERTY_CURSORS_ENABLED, old, aEnabled );
   }
 
+  /**
+   * Sets the given annotations, as loaded from a project file, to the channels
+   * they belong to.
+   * 
+   * @param aAnnotations
+   *          the annotations to set, can be <code>null</code>.
+   */
+  final void mergeChannelAnnotations( final List<StoredAnnotations> aAnnotations )
+  {
+    if ( aAnnotations == null )
+    {
+      return;
+    }
+
+    for ( StoredAnnotations annotations : aAnnotations )
+    {
+      for ( Channel channel : this.channels )
+      {
+        if ( ( channel instanceof ChannelImpl ) && ( channel.getIndex() == annotations.getChannelIndex() ) )
+        {
+          ( ( ChannelImpl )channel ).setStoredAnnotations( annotations );
+        }
+      }
+    }
+  }
+
   /**
    * Trims the channels to the same number as the captured data, using the
    * channel information of the given data set as template.
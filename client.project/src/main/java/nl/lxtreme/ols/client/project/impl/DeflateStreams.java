@@ -0,0 +1,411 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+
+
+/**
+ * Provides utility methods for raw deflate streams, as defined by RFC 1951.
+ * <p>
+ * A finished deflate stream ends with a block that is marked as final, and
+ * does not necessarily end on a byte boundary. To concatenate several
+ * independently deflated streams into a single stream, each stream should
+ * instead end like a sync flush does: with a non-final block, followed by an
+ * empty stored block. As only Java 7 and later can sync flush a
+ * {@link java.util.zip.Deflater}, a finished stream is converted to this form
+ * by locating its final block and clearing its final bit.
+ * </p>
+ */
+final class DeflateStreams
+{
+  // INNER TYPES
+
+  /**
+   * Reads the bits of a deflate stream, least significant bit first.
+   */
+  static final class BitReader
+  {
+    // VARIABLES
+
+    private final byte[] data;
+    private long position;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new BitReader instance.
+     */
+    BitReader( final byte[] aData )
+    {
+      this.data = aData;
+      this.position = 0L;
+    }
+
+    // METHODS
+
+    /**
+     * Skips to the next byte boundary.
+     */
+    void align()
+    {
+      this.position = ( this.position + 7L ) & ~7L;
+    }
+
+    /**
+     * Reads the given number of bits.
+     */
+    int bits( final int aCount ) throws IOException
+    {
+      int result = 0;
+      for ( int i = 0; i < aCount; i++ )
+      {
+        final int idx = ( int )( this.position >>> 3 );
+        if ( idx >= this.data.length )
+        {
+          throw new EOFException( "Unexpected end of deflate stream!" );
+        }
+        result |= ( ( this.data[idx] >>> ( this.position & 7L ) ) & 1 ) << i;
+        this.position++;
+      }
+      return result;
+    }
+
+    /**
+     * Returns the position of the next bit to read.
+     */
+    long getPosition()
+    {
+      return this.position;
+    }
+
+    /**
+     * Skips the given number of bytes.
+     */
+    void skipBytes( final int aCount )
+    {
+      this.position += 8L * aCount;
+    }
+  }
+
+  /**
+   * Provides a canonical Huffman code, in the same way as zlib's <tt>puff</tt>
+   * does.
+   */
+  static final class Huffman
+  {
+    // VARIABLES
+
+    private final int[] count;
+    private final int[] symbol;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Huffman instance for the given code lengths.
+     */
+    Huffman( final int[] aLengths, final int aOffset, final int aLength ) throws IOException
+    {
+      this.count = new int[MAX_BITS + 1];
+      this.symbol = new int[aLength];
+
+      for ( int i = 0; i < aLength; i++ )
+      {
+        this.count[aLengths[aOffset + i]]++;
+      }
+
+      int left = 1;
+      for ( int len = 1; len <= MAX_BITS; len++ )
+      {
+        left = ( left << 1 ) - this.count[len];
+        if ( left < 0 )
+        {
+          throw new IOException( "Invalid Huffman code in deflate stream!" );
+        }
+      }
+
+      final int[] offsets = new int[MAX_BITS + 1];
+      for ( int len = 1; len < MAX_BITS; len++ )
+      {
+        offsets[len + 1] = offsets[len] + this.count[len];
+      }
+      for ( int i = 0; i < aLength; i++ )
+      {
+        if ( aLengths[aOffset + i] != 0 )
+        {
+          this.symbol[offsets[aLengths[aOffset + i]]++] = i;
+        }
+      }
+    }
+
+    // METHODS
+
+    /**
+     * Decodes a single symbol.
+     */
+    int decode( final BitReader aReader ) throws IOException
+    {
+      int code = 0;
+      int first = 0;
+      int index = 0;
+      for ( int len = 1; len <= MAX_BITS; len++ )
+      {
+        code |= aReader.bits( 1 );
+        final int cnt = this.count[len];
+        if ( ( code - cnt ) < first )
+        {
+          return this.symbol[index + ( code - first )];
+        }
+        index += cnt;
+        first = ( first + cnt ) << 1;
+        code <<= 1;
+      }
+      throw new IOException( "Invalid Huffman code in deflate stream!" );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int MAX_BITS = 15;
+
+  /** The number of extra bits of each length symbol, starting at 257. */
+  private static final int[] LENGTH_EXTRA = { 0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 4, 4, 4, 4,
+      5, 5, 5, 5, 0 };
+  /** The number of extra bits of each distance symbol. */
+  private static final int[] DISTANCE_EXTRA = { 0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6, 7, 7, 8, 8, 9, 9, 10,
+      10, 11, 11, 12, 12, 13, 13 };
+  /** The order in which the code length code lengths are stored. */
+  private static final int[] CODE_LENGTH_ORDER = { 16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15 };
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DeflateStreams instance, never used.
+   */
+  private DeflateStreams()
+  {
+    // Nop
+  }
+
+  // METHODS
+
+  /**
+   * Converts the given finished raw deflate stream into a stream that ends
+   * like a sync flush: its final block is no longer marked as final, and is
+   * followed by an empty stored block, ending on a byte boundary.
+   * 
+   * @param aStream
+   *          the finished raw deflate stream to convert, cannot be
+   *          <code>null</code>.
+   * @return the converted stream, never <code>null</code>.
+   * @throws IOException
+   *           in case the given stream is not a valid raw deflate stream.
+   */
+  static byte[] toSyncFlushed( final byte[] aStream ) throws IOException
+  {
+    final BitReader reader = new BitReader( aStream );
+
+    long finalBlock;
+    boolean last;
+    do
+    {
+      finalBlock = reader.getPosition();
+      last = reader.bits( 1 ) != 0;
+
+      final int type = reader.bits( 2 );
+      if ( type == 0 )
+      {
+        skipStoredBlock( reader );
+      }
+      else if ( type == 1 )
+      {
+        skipCompressedBlock( reader, createFixedLengthCode(), createFixedDistanceCode() );
+      }
+      else if ( type == 2 )
+      {
+        skipDynamicBlock( reader );
+      }
+      else
+      {
+        throw new IOException( "Invalid block type in deflate stream!" );
+      }
+    }
+    while ( !last );
+
+    final long end = reader.getPosition();
+    final int endBytes = ( int )( ( end + 7L ) >>> 3 );
+    if ( endBytes > aStream.length )
+    {
+      throw new EOFException( "Unexpected end of deflate stream!" );
+    }
+    final int padding = ( int )( ( 8L * endBytes ) - end );
+
+    // The three header bits of the empty stored block either fit in the
+    // padding of the last byte, or need an extra byte...
+    final int headerBytes = ( padding >= 3 ) ? 0 : 1;
+
+    final byte[] result = Arrays.copyOf( aStream, endBytes + headerBytes + 4 );
+    result[( int )( finalBlock >>> 3 )] &= ~( 1 << ( finalBlock & 7L ) );
+    if ( padding > 0 )
+    {
+      result[endBytes - 1] &= ( 0xFF >>> padding );
+    }
+    for ( int i = endBytes; i < result.length - 2; i++ )
+    {
+      result[i] = 0;
+    }
+    result[result.length - 2] = ( byte )0xFF;
+    result[result.length - 1] = ( byte )0xFF;
+
+    return result;
+  }
+
+  /**
+   * Creates the fixed Huffman code for literals and lengths.
+   */
+  private static Huffman createFixedLengthCode() throws IOException
+  {
+    final int[] lengths = new int[288];
+    Arrays.fill( lengths, 0, 144, 8 );
+    Arrays.fill( lengths, 144, 256, 9 );
+    Arrays.fill( lengths, 256, 280, 7 );
+    Arrays.fill( lengths, 280, 288, 8 );
+    return new Huffman( lengths, 0, lengths.length );
+  }
+
+  /**
+   * Creates the fixed Huffman code for distances.
+   */
+  private static Huffman createFixedDistanceCode() throws IOException
+  {
+    final int[] lengths = new int[30];
+    Arrays.fill( lengths, 5 );
+    return new Huffman( lengths, 0, lengths.length );
+  }
+
+  /**
+   * Skips all symbols of a compressed block, up to and including its end of
+   * block symbol.
+   */
+  private static void skipCompressedBlock( final BitReader aReader, final Huffman aLengthCode,
+      final Huffman aDistanceCode ) throws IOException
+  {
+    int symbol;
+    while ( ( symbol = aLengthCode.decode( aReader ) ) != 256 )
+    {
+      if ( symbol > 256 )
+      {
+        symbol -= 257;
+        if ( symbol >= LENGTH_EXTRA.length )
+        {
+          throw new IOException( "Invalid length symbol in deflate stream!" );
+        }
+        aReader.bits( LENGTH_EXTRA[symbol] );
+
+        final int distance = aDistanceCode.decode( aReader );
+        if ( distance >= DISTANCE_EXTRA.length )
+        {
+          throw new IOException( "Invalid distance symbol in deflate stream!" );
+        }
+        aReader.bits( DISTANCE_EXTRA[distance] );
+      }
+    }
+  }
+
+  /**
+   * Reads the Huffman codes of a dynamic block, and skips all its symbols.
+   */
+  private static void skipDynamicBlock( final BitReader aReader ) throws IOException
+  {
+    final int lengthCount = aReader.bits( 5 ) + 257;
+    final int distanceCount = aReader.bits( 5 ) + 1;
+    final int codeCount = aReader.bits( 4 ) + 4;
+
+    final int[] lengths = new int[lengthCount + distanceCount];
+    for ( int i = 0; i < codeCount; i++ )
+    {
+      lengths[CODE_LENGTH_ORDER[i]] = aReader.bits( 3 );
+    }
+    final Huffman lengthLengthCode = new Huffman( lengths, 0, 19 );
+
+    int idx = 0;
+    Arrays.fill( lengths, 0 );
+    while ( idx < lengths.length )
+    {
+      final int symbol = lengthLengthCode.decode( aReader );
+      if ( symbol < 16 )
+      {
+        lengths[idx++] = symbol;
+        continue;
+      }
+
+      int value = 0;
+      int repeat;
+      if ( symbol == 16 )
+      {
+        if ( idx == 0 )
+        {
+          throw new IOException( "Invalid code lengths in deflate stream!" );
+        }
+        value = lengths[idx - 1];
+        repeat = 3 + aReader.bits( 2 );
+      }
+      else if ( symbol == 17 )
+      {
+        repeat = 3 + aReader.bits( 3 );
+      }
+      else
+      {
+        repeat = 11 + aReader.bits( 7 );
+      }
+
+      if ( ( idx + repeat ) > lengths.length )
+      {
+        throw new IOException( "Invalid code lengths in deflate stream!" );
+      }
+      while ( repeat-- > 0 )
+      {
+        lengths[idx++] = value;
+      }
+    }
+
+    skipCompressedBlock( aReader, new Huffman( lengths, 0, lengthCount ), new Huffman( lengths, lengthCount,
+        distanceCount ) );
+  }
+
+  /**
+   * Skips the contents of a stored block.
+   */
+  private static void skipStoredBlock( final BitReader aReader ) throws IOException
+  {
+    aReader.align();
+
+    final int length = aReader.bits( 16 );
+    final int complement = aReader.bits( 16 );
+    if ( length != ( ~complement & 0xFFFF ) )
+    {
+      throw new IOException( "Invalid stored block length in deflate stream!" );
+    }
+    aReader.skipBytes( length );
+  }
+}
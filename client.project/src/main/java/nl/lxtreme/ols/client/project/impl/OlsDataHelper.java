@@ -256,13 +256,44 @@ public final class OlsDataHelper
 
     final AcquisitionResult capturedData = aDataSet.getCapturedData();
 
+    try
+    {
+      writeHeader( aDataSet, bw );
+      writeSamples( capturedData, 0, capturedData.getValues().length, bw );
+    }
+    finally
+    {
+      bw.flush();
+    }
+  }
+
+  /**
+   * Writes the header of the data, that is, all instructions describing the
+   * captured data and cursors, to the given writer.
+   * <p>
+   * Together with the {@link #writeSamples(AcquisitionResult, int, int, Writer)
+   * samples}, this yields the same data as {@link #write(DataSet, Writer)}.
+   * </p>
+   * 
+   * @param aDataSet
+   *          the data set to write the header for, cannot be <code>null</code>;
+   * @param aWriter
+   *          the writer to write the header to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void writeHeader( final DataSet aDataSet, final Writer aWriter ) throws IOException
+  {
+    final BufferedWriter bw = new BufferedWriter( aWriter );
+
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+
     final Cursor[] cursors = aDataSet.getCursors();
     final boolean cursorsEnabled = aDataSet.isCursorsEnabled();
 
     try
     {
       final int[] values = capturedData.getValues();
-      final long[] timestamps = capturedData.getTimestamps();
 
       bw.write( ";Size: " );
       bw.write( Integer.toString( values.length ) );
@@ -308,7 +339,39 @@ public final class OlsDataHelper
           bw.newLine();
         }
       }
-      for ( int i = 0; i < values.length; i++ )
+    }
+    finally
+    {
+      bw.flush();
+    }
+  }
+
+  /**
+   * Writes a range of samples of the given captured data to the given writer.
+   * 
+   * @param aCapturedData
+   *          the captured data to write the samples of, cannot be
+   *          <code>null</code>;
+   * @param aFromIdx
+   *          the index of the first sample to write (inclusive);
+   * @param aToIdx
+   *          the index of the last sample to write (exclusive);
+   * @param aWriter
+   *          the writer to write the samples to, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public static void writeSamples( final AcquisitionResult aCapturedData, final int aFromIdx, final int aToIdx,
+      final Writer aWriter ) throws IOException
+  {
+    final BufferedWriter bw = new BufferedWriter( aWriter );
+
+    final int[] values = aCapturedData.getValues();
+    final long[] timestamps = aCapturedData.getTimestamps();
+
+    try
+    {
+      for ( int i = aFromIdx; i < aToIdx; i++ )
       {
         bw.write( formatSample( values[i], timestamps[i] ) );
         bw.newLine();
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.client.project.impl;
 import java.beans.*;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.swing.*;
@@ -45,11 +46,12 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
   // VARIABLES
 
   private final PropertyChangeSupport propertyChangeSupport;
-  private final Map<String, UserSettings> settings;
+  private final ConcurrentMap<String, UserSettings> settings;
 
   private DataSetImpl dataSet;
   private String name;
   private boolean changed;
+  private volatile int changeCount;
   private Date lastModified;
   private String sourceVersion;
   private File filename;
@@ -62,7 +64,8 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
   public ProjectImpl()
   {
     this.propertyChangeSupport = new PropertyChangeSupport( this );
-    this.settings = new HashMap<String, UserSettings>();
+    // Can be visited by the thread storing this project...
+    this.settings = new ConcurrentHashMap<String, UserSettings>();
 
     setDataSet( new DataSetImpl() );
 
@@ -127,8 +130,12 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
     UserSettings result = this.settings.get( aName );
     if ( result == null )
     {
-      result = new UserSettingsImpl( aName );
-      this.settings.put( aName, result );
+      final UserSettings created = new UserSettingsImpl( aName );
+      result = this.settings.putIfAbsent( aName, created );
+      if ( result == null )
+      {
+        result = created;
+      }
     }
     return result;
   }
@@ -209,6 +216,10 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
   {
     final boolean old = this.changed;
     this.changed = aChanged;
+    if ( aChanged )
+    {
+      this.changeCount++;
+    }
 
     this.propertyChangeSupport.firePropertyChange( PROPERTY_CHANGED, old, aChanged );
   }
@@ -323,6 +334,17 @@ public final class ProjectImpl implements Project, ProjectProperties, PropertyCh
     OlsDataHelper.write( this.dataSet, aWriter );
   }
 
+  /**
+   * Returns the number of times this project is marked as changed, allowing
+   * one to determine whether it is changed since a given moment.
+   * 
+   * @return a change count.
+   */
+  final int getChangeCount()
+  {
+    return this.changeCount;
+  }
+
   /**
    * Returns the current set of property change listeners.
    * 
@@ -26,8 +26,12 @@ import java.io.*;
 import java.util.*;
 import java.util.zip.*;
 
+import javax.swing.*;
+
 import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.util.*;
 
@@ -35,6 +39,11 @@ import nl.lxtreme.ols.util.*;
 /**
  * Provides a simple implementation of a project manager, which writes an entire
  * project as (compressed) ZIP-file.
+ * <p>
+ * The captured data is stored in a single entry, as it always was. Its samples
+ * are compressed in parallel chunks of {@link CompressedCapture#CHUNK_SIZE}
+ * samples, which are reused as long as the captured data does not change.
+ * </p>
  */
 public class ProjectManagerImpl implements PropertyChangeListener, ProjectManager, ProjectProperties
 {
@@ -42,6 +51,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
 
   private static final String FILENAME_PROJECT_METADATA = "ols.project";
   private static final String FILENAME_CHANNEL_LABELS = "channel.labels";
+  private static final String FILENAME_CHANNEL_ANNOTATIONS = "channel.annotations";
   private static final String FILENAME_PROJECT_SETTINGS = "settings/";
   private static final String FILENAME_CAPTURE_RESULTS = "data.ols";
 
@@ -50,8 +60,10 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   private volatile HostProperties hostProperties;
 
   private final PropertyChangeSupport propertyChangeSupport;
+  private final Object saveLock;
 
-  private ProjectImpl project;
+  private volatile ProjectImpl project;
+  private volatile CompressedCapture compressedCapture;
 
   // CONSTRUCTORS
 
@@ -61,6 +73,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   public ProjectManagerImpl()
   {
     this.propertyChangeSupport = new PropertyChangeSupport( this );
+    this.saveLock = new Object();
 
     setProject( new ProjectImpl() );
   }
@@ -120,6 +133,7 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     copyPropertyChangeListeners( this.project, newProject );
 
     List<String> labels = null;
+    List<StoredAnnotations> annotations = null;
 
     try
     {
@@ -138,6 +152,11 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
           labels = loadChannelLabels( zipIS );
           entriesSeen = true;
         }
+        else if ( FILENAME_CHANNEL_ANNOTATIONS.equals( name ) )
+        {
+          annotations = loadChannelAnnotations( zipIS );
+          entriesSeen = true;
+        }
         else if ( FILENAME_CAPTURE_RESULTS.equals( name ) )
         {
           loadCapturedResults( newProject, zipIS );
@@ -162,6 +181,8 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
       // set; this is not the nicest way of doing this, but we otherwise have to
       // break our project file-format, which is not done at the moment...
       newProject.getDataSet().mergeChannelLabels( labels );
+      // The annotations are only created when they are needed...
+      newProject.getDataSet().mergeChannelAnnotations( annotations );
 
       // Mark the project as no longer changed...
       newProject.setChanged( false );
@@ -204,28 +225,10 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
       throw new IllegalArgumentException( "Output stream cannot be null!" );
     }
 
-    final BufferedOutputStream os = new BufferedOutputStream( aOutput );
-    final ZipOutputStream zipOS = new ZipOutputStream( os );
-
-    zipOS.setComment( this.hostProperties.getFullName().concat( " project file" ) );
-
-    try
+    // Stores projects one at a time, as they can be written to the same file...
+    synchronized ( this.saveLock )
     {
-      storeProjectMetadata( this.project, zipOS );
-      // Store the channel labels...
-      storeChannelLabels( this.project.getDataSet(), zipOS );
-      // Store the settings...
-      storeProjectSettings( this.project, zipOS );
-      // Store the last capture results...
-      storeCapturedResults( this.project, zipOS );
-
-      // Mark the project as no longer changed...
-      this.project.setChanged( false );
-    }
-    finally
-    {
-      HostUtils.closeResource( zipOS );
-      HostUtils.closeResource( os );
+      storeProject( new ProjectSnapshot( this.project ), aOutput );
     }
   }
 
@@ -241,18 +244,33 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
   }
 
   /**
-   * Reads the capture results from the given ZIP-input stream.
+   * Reads the capture results from the given input stream.
    * 
    * @param aProject
    *          the project to read the capture results for;
+   * @param aInput
+   *          the input stream to read the capture results from.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected void loadCapturedResults( final Project aProject, final InputStream aInput ) throws IOException
+  {
+    aProject.readData( new InputStreamReader( aInput ) );
+  }
+
+  /**
+   * Reads the channel annotations from the given ZIP-input stream.
+   * 
    * @param aZipIS
-   *          the ZIP input stream to read the capture results from.
+   *          the ZIP input stream to read the channel annotations from.
+   * @return the annotations of each channel that has annotations, never
+   *         <code>null</code>.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void loadCapturedResults( final Project aProject, final ZipInputStream aZipIS ) throws IOException
+  protected List<StoredAnnotations> loadChannelAnnotations( final ZipInputStream aZipIS ) throws IOException
   {
-    aProject.readData( new InputStreamReader( aZipIS ) );
+    return AnnotationDataHelper.read( aZipIS );
   }
 
   /**
@@ -349,25 +367,62 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * nothing.
    * </p>
    * 
-   * @param aProject
-   *          the project to write the capture results for;
+   * @param aSnapshot
+   *          the project snapshot to write the capture results for;
+   * @param aZipOS
+   *          the ZIP writer to write the capture results to.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected void storeCapturedResults( final ProjectSnapshot aSnapshot, final ZipWriter aZipOS )
+      throws IOException
+  {
+    final AcquisitionResult capturedData = aSnapshot.getCapturedData();
+    if ( capturedData == null )
+    {
+      return;
+    }
+
+    // Reuse the compressed samples when the captured data did not change...
+    CompressedCapture compressed = this.compressedCapture;
+    if ( ( compressed == null ) || !compressed.isCompressionOf( capturedData ) )
+    {
+      compressed = CompressedCapture.compress( capturedData );
+      this.compressedCapture = compressed;
+    }
+
+    // The header is small and contains the (changing) cursors; it is the only
+    // part that is compressed again...
+    compressed.writeTo( aZipOS, FILENAME_CAPTURE_RESULTS, aSnapshot.getDataHeader().getBytes() );
+  }
+
+  /**
+   * Stores the channel annotations to the given ZIP-output stream.
+   * <p>
+   * If the given project does not have any annotations, this method does
+   * nothing.
+   * </p>
+   * 
+   * @param aSnapshot
+   *          the project snapshot to write the channel annotations for;
    * @param aZipOS
-   *          the ZIP output stream to write the capture results to.
+   *          the ZIP writer to write the channel annotations to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeCapturedResults( final Project aProject, final ZipOutputStream aZipOS ) throws IOException
+  protected void storeChannelAnnotations( final ProjectSnapshot aSnapshot, final ZipWriter aZipOS )
+      throws IOException
   {
-    final DataSet dataSet = aProject.getDataSet();
-    if ( dataSet.getCapturedData() == null )
+    final Map<Integer, StoredAnnotations> storedAnnotations = aSnapshot.getStoredAnnotations();
+    final Map<Integer, List<Annotation<?>>> annotations = aSnapshot.getAnnotations();
+    if ( storedAnnotations.isEmpty() && annotations.isEmpty() )
     {
       return;
     }
 
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_CAPTURE_RESULTS );
-    aZipOS.putNextEntry( zipEntry );
+    aZipOS.putNextEntry( FILENAME_CHANNEL_ANNOTATIONS );
 
-    aProject.writeData( new OutputStreamWriter( aZipOS ) );
+    AnnotationDataHelper.write( storedAnnotations, annotations, aZipOS );
   }
 
   /**
@@ -377,28 +432,26 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * nothing.
    * </p>
    * 
-   * @param aDataSet
-   *          the project to write the channel labels for;
+   * @param aSnapshot
+   *          the project snapshot to write the channel labels for;
    * @param aZipOS
-   *          the ZIP output stream to write the channel labels to.
+   *          the ZIP writer to write the channel labels to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeChannelLabels( final DataSet aDataSet, final ZipOutputStream aZipOS ) throws IOException
+  protected void storeChannelLabels( final ProjectSnapshot aSnapshot, final ZipWriter aZipOS )
+      throws IOException
   {
-    final Channel[] channels = aDataSet.getChannels();
-
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_CHANNEL_LABELS );
-    aZipOS.putNextEntry( zipEntry );
+    aZipOS.putNextEntry( FILENAME_CHANNEL_LABELS );
 
     // Write the channel labels
     PrintStream out = new PrintStream( aZipOS );
 
     try
     {
-      for ( Channel channel : channels )
+      for ( String label : aSnapshot.getChannelLabels() )
       {
-        out.println( ( channel != null ) && channel.hasName() ? channel.getLabel() : "" );
+        out.println( label );
       }
     }
     finally
@@ -415,23 +468,23 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * nothing.
    * </p>
    * 
-   * @param aProject
-   *          the project to write the metadata for;
+   * @param aSnapshot
+   *          the project snapshot to write the metadata for;
    * @param aZipOS
-   *          the ZIP output stream to write the metadata to.
+   *          the ZIP writer to write the metadata to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeProjectMetadata( final Project aProject, final ZipOutputStream aZipOS ) throws IOException
+  protected void storeProjectMetadata( final ProjectSnapshot aSnapshot, final ZipWriter aZipOS )
+      throws IOException
   {
-    final String name = aProject.getName();
+    final String name = aSnapshot.getName();
     if ( ( name == null ) || name.trim().isEmpty() )
     {
       return;
     }
 
-    final ZipEntry zipEntry = new ZipEntry( FILENAME_PROJECT_METADATA );
-    aZipOS.putNextEntry( zipEntry );
+    aZipOS.putNextEntry( FILENAME_PROJECT_METADATA );
 
     // Write the project metadata...
     PrintStream out = new PrintStream( aZipOS );
@@ -456,38 +509,27 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
    * nothing.
    * </p>
    * 
-   * @param aProject
-   *          the project to write the settings for;
+   * @param aSnapshot
+   *          the project snapshot to write the settings for;
    * @param aZipOS
-   *          the ZIP output stream to write the settings to.
+   *          the ZIP writer to write the settings to.
    * @throws IOException
    *           in case of I/O problems.
    */
-  protected void storeProjectSettings( final ProjectImpl aProject, final ZipOutputStream aZipOS ) throws IOException
+  protected void storeProjectSettings( final ProjectSnapshot aSnapshot, final ZipWriter aZipOS )
+      throws IOException
   {
     try
     {
-      aProject.visit( new ProjectVisitor()
+      for ( Map.Entry<String, Properties> settings : aSnapshot.getSettings().entrySet() )
       {
-        @Override
-        public void visit( final UserSettings aSettings ) throws IOException
-        {
-          final String zipEntryName = FILENAME_PROJECT_SETTINGS.concat( aSettings.getName() );
+        final String zipEntryName = FILENAME_PROJECT_SETTINGS.concat( settings.getKey() );
 
-          final ZipEntry zipEntry = new ZipEntry( zipEntryName );
-          aZipOS.putNextEntry( zipEntry );
+        aZipOS.putNextEntry( zipEntryName );
 
-          // Convert to a properties object...
-          final Properties props = new Properties();
-          for ( Map.Entry<String, Object> userSetting : aSettings )
-          {
-            props.put( userSetting.getKey(), userSetting.getValue() );
-          }
-
-          // Write the project settings
-          props.store( aZipOS, aSettings.getName().concat( " settings" ) );
-        }
-      } );
+        // Write the project settings
+        settings.getValue().store( aZipOS, settings.getKey().concat( " settings" ) );
+      }
     }
     finally
     {
@@ -514,6 +556,60 @@ public class ProjectManagerImpl implements PropertyChangeListener, ProjectManage
     }
   }
 
+  /**
+   * Stores the given project snapshot to the given output stream, and marks
+   * its project as no longer changed, provided it did not change in the
+   * meantime.
+   * 
+   * @param aSnapshot
+   *          the project snapshot to store;
+   * @param aOutput
+   *          the output to write the project to, is closed afterwards.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private void storeProject( final ProjectSnapshot aSnapshot, final OutputStream aOutput ) throws IOException
+  {
+    final BufferedOutputStream os = new BufferedOutputStream( aOutput );
+    final ZipWriter zipOS = new ZipWriter( os );
+
+    zipOS.setComment( this.hostProperties.getFullName().concat( " project file" ) );
+
+    try
+    {
+      storeProjectMetadata( aSnapshot, zipOS );
+      // Store the channel labels...
+      storeChannelLabels( aSnapshot, zipOS );
+      // Store the settings...
+      storeProjectSettings( aSnapshot, zipOS );
+      // Store the last capture results...
+      storeCapturedResults( aSnapshot, zipOS );
+      // Store the annotations of the capture results...
+      storeChannelAnnotations( aSnapshot, zipOS );
+
+      zipOS.finish();
+    }
+    finally
+    {
+      HostUtils.closeResource( zipOS );
+      HostUtils.closeResource( os );
+    }
+
+    SwingUtilities.invokeLater( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        // The project is changed on the EDT, so this check cannot race...
+        if ( aSnapshot.isUpToDate() )
+        {
+          // Mark the project as no longer changed...
+          aSnapshot.getProject().setChanged( false );
+        }
+      }
+    } );
+  }
+
   /**
    * Sets the current project to the given project.
    * 
@@ -0,0 +1,240 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.project.*;
+
+
+/**
+ * Provides an immutable snapshot of everything of a project that is stored in
+ * a project file, allowing the project to be stored while it is being changed.
+ * <p>
+ * Taking a snapshot is cheap, as the captured data itself is immutable and
+ * therefore not copied. A snapshot is taken by the thread storing the project,
+ * not on the EDT; anything the project changed while the snapshot was taken
+ * makes the snapshot outdated, see {@link #isUpToDate()}.
+ * </p>
+ */
+final class ProjectSnapshot
+{
+  // VARIABLES
+
+  private final ProjectImpl project;
+  private final int changeCount;
+  private final String name;
+  private final List<String> channelLabels;
+  private final Map<Integer, StoredAnnotations> storedAnnotations;
+  private final Map<Integer, List<Annotation<?>>> annotations;
+  private final Map<String, Properties> settings;
+  private final AcquisitionResult capturedData;
+  private final String dataHeader;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ProjectSnapshot instance.
+   * 
+   * @param aProject
+   *          the project to take a snapshot of, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case the header of the captured data could not be created.
+   */
+  ProjectSnapshot( final ProjectImpl aProject ) throws IOException
+  {
+    this.project = aProject;
+    this.changeCount = aProject.getChangeCount();
+    this.name = aProject.getName();
+
+    final DataSet dataSet = aProject.getDataSet();
+
+    final List<String> labels = new ArrayList<String>();
+    final Map<Integer, StoredAnnotations> channelStoredAnnotations = new TreeMap<Integer, StoredAnnotations>();
+    final Map<Integer, List<Annotation<?>>> channelAnnotations = new TreeMap<Integer, List<Annotation<?>>>();
+    for ( Channel channel : dataSet.getChannels() )
+    {
+      labels.add( ( channel != null ) && channel.hasName() ? channel.getLabel() : "" );
+
+      if ( channel instanceof ChannelImpl )
+      {
+        // Stored annotations are written as-is, without creating them...
+        final List<Annotation<?>> added = new ArrayList<Annotation<?>>();
+        final StoredAnnotations stored = ( ( ChannelImpl )channel ).getAnnotations( added );
+        if ( ( stored != null ) && ( stored.size() > 0 ) )
+        {
+          channelStoredAnnotations.put( Integer.valueOf( channel.getIndex() ), stored );
+        }
+        if ( !added.isEmpty() )
+        {
+          channelAnnotations.put( Integer.valueOf( channel.getIndex() ), added );
+        }
+      }
+      else if ( ( channel != null ) && channel.hasAnnotations() )
+      {
+        channelAnnotations.put( Integer.valueOf( channel.getIndex() ),
+            new ArrayList<Annotation<?>>( channel.getAnnotations() ) );
+      }
+    }
+    this.channelLabels = Collections.unmodifiableList( labels );
+    this.storedAnnotations = Collections.unmodifiableMap( channelStoredAnnotations );
+    this.annotations = Collections.unmodifiableMap( channelAnnotations );
+
+    final Map<String, Properties> userSettings = new LinkedHashMap<String, Properties>();
+    aProject.visit( new ProjectVisitor()
+    {
+      @Override
+      public void visit( final UserSettings aSettings )
+      {
+        // Convert to a properties object...
+        final Properties props = new Properties();
+        for ( Map.Entry<String, Object> userSetting : aSettings )
+        {
+          props.put( userSetting.getKey(), userSetting.getValue() );
+        }
+        userSettings.put( aSettings.getName(), props );
+      }
+    } );
+    this.settings = Collections.unmodifiableMap( userSettings );
+
+    this.capturedData = dataSet.getCapturedData();
+    if ( this.capturedData != null )
+    {
+      // The header contains the cursors, which can still change...
+      final StringWriter writer = new StringWriter();
+      OlsDataHelper.writeHeader( dataSet, writer );
+      this.dataHeader = writer.toString();
+    }
+    else
+    {
+      this.dataHeader = null;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Returns the annotations of all channels of the project, except for those
+   * returned by {@link #getStoredAnnotations()}.
+   * 
+   * @return the annotations, per index of each channel that has such
+   *         annotations, never <code>null</code>.
+   */
+  public Map<Integer, List<Annotation<?>>> getAnnotations()
+  {
+    return this.annotations;
+  }
+
+  /**
+   * Returns the captured data of the project.
+   * 
+   * @return the captured data, can be <code>null</code>.
+   */
+  public AcquisitionResult getCapturedData()
+  {
+    return this.capturedData;
+  }
+
+  /**
+   * Returns the labels of all channels of the project.
+   * 
+   * @return the channel labels, with an empty label for unnamed channels,
+   *         never <code>null</code>.
+   */
+  public List<String> getChannelLabels()
+  {
+    return this.channelLabels;
+  }
+
+  /**
+   * Returns the header of the captured data, containing its instructions and
+   * the cursors of the project.
+   * 
+   * @return the data header, or <code>null</code> if the project has no
+   *         captured data.
+   */
+  public String getDataHeader()
+  {
+    return this.dataHeader;
+  }
+
+  /**
+   * Returns the name of the project.
+   * 
+   * @return the project name, can be <code>null</code>.
+   */
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * Returns the settings of the project.
+   * 
+   * @return the settings, as properties per settings name, never
+   *         <code>null</code>.
+   */
+  public Map<String, Properties> getSettings()
+  {
+    return this.settings;
+  }
+
+  /**
+   * Returns whether the project has not changed since this snapshot was
+   * taken.
+   * 
+   * @return <code>true</code> if this snapshot is still up-to-date,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isUpToDate()
+  {
+    return this.project.getChangeCount() == this.changeCount;
+  }
+
+  /**
+   * Returns the annotations of all channels of the project as they were loaded
+   * from a project file, and that precede those returned by
+   * {@link #getAnnotations()}.
+   * 
+   * @return the stored annotations, per index of each channel that has such
+   *         annotations, never <code>null</code>.
+   */
+  public Map<Integer, StoredAnnotations> getStoredAnnotations()
+  {
+    return this.storedAnnotations;
+  }
+
+  /**
+   * Returns the project this is a snapshot of.
+   * 
+   * @return the project, never <code>null</code>.
+   */
+  public ProjectImpl getProject()
+  {
+    return this.project;
+  }
+}
@@ -0,0 +1,312 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides the annotations of a single channel as loaded from a project file,
+ * in a compact form.
+ * <p>
+ * The annotations are kept as primitive arrays, with their texts interned in a
+ * table shared by all channels. Only when the annotations are actually needed,
+ * they are turned into {@link DataAnnotation}s, which do not depend on the
+ * tool that originally created them. Painting only needs the annotations that
+ * are visible, see {@link #addAnnotations(List, long, long)}, and storing them
+ * again needs none at all.
+ * </p>
+ */
+final class StoredAnnotations
+{
+  // INNER TYPES
+
+  /**
+   * Provides a data annotation with a textual payload, as loaded from a
+   * project file.
+   */
+  static final class StoredAnnotation implements DataAnnotation<String>
+  {
+    // VARIABLES
+
+    private final int channelIdx;
+    private final long startTimestamp;
+    private final long endTimestamp;
+    private final String text;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new StoredAnnotation instance.
+     */
+    StoredAnnotation( final int aChannelIdx, final long aStartTimestamp, final long aEndTimestamp,
+        final String aText )
+    {
+      this.channelIdx = aChannelIdx;
+      this.startTimestamp = aStartTimestamp;
+      this.endTimestamp = aEndTimestamp;
+      this.text = aText;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo( final Annotation<String> aOther )
+    {
+      int result = ( this.channelIdx - aOther.getChannel() );
+      if ( result == 0 )
+      {
+        if ( aOther instanceof DataAnnotation )
+        {
+          final DataAnnotation<?> dataAnnotation = ( DataAnnotation<?> )aOther;
+          result = compare( this.startTimestamp, dataAnnotation.getStartTimestamp() );
+          if ( result == 0 )
+          {
+            result = compare( this.endTimestamp, dataAnnotation.getEndTimestamp() );
+          }
+        }
+        if ( result == 0 )
+        {
+          result = this.text.compareTo( String.valueOf( aOther.getAnnotation() ) );
+        }
+      }
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getAnnotation()
+    {
+      return this.text;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChannel()
+    {
+      return this.channelIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getEndTimestamp()
+    {
+      return this.endTimestamp;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getStartTimestamp()
+    {
+      return this.startTimestamp;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.text;
+    }
+
+    /**
+     * Compares two timestamps.
+     */
+    private static int compare( final long aValue1, final long aValue2 )
+    {
+      return ( aValue1 < aValue2 ) ? -1 : ( ( aValue1 == aValue2 ) ? 0 : 1 );
+    }
+  }
+
+  // VARIABLES
+
+  private final int channelIdx;
+  private final long[] startTimestamps;
+  private final long[] endTimestamps;
+  private final int[] textIndices;
+  private final String[] texts;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new StoredAnnotations instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel the annotations belong to;
+   * @param aStartTimestamps
+   *          the start timestamps of the annotations;
+   * @param aEndTimestamps
+   *          the end timestamps of the annotations;
+   * @param aTextIndices
+   *          the indices of the texts of the annotations in the text table;
+   * @param aTexts
+   *          the text table, possibly shared with other channels.
+   */
+  StoredAnnotations( final int aChannelIdx, final long[] aStartTimestamps, final long[] aEndTimestamps,
+      final int[] aTextIndices, final String[] aTexts )
+  {
+    this.channelIdx = aChannelIdx;
+    this.startTimestamps = aStartTimestamps;
+    this.endTimestamps = aEndTimestamps;
+    this.textIndices = aTextIndices;
+    this.texts = aTexts;
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether an annotation with the given timestamps (partially) falls
+   * inside the given boundaries.
+   * 
+   * @param aStartTimestamp
+   *          the start timestamp of the annotation;
+   * @param aEndTimestamp
+   *          the end timestamp of the annotation;
+   * @param aStartTime
+   *          the start of the boundaries;
+   * @param aEndTime
+   *          the end of the boundaries.
+   * @return <code>true</code> if the annotation falls inside the boundaries,
+   *         <code>false</code> otherwise.
+   */
+  static boolean overlaps( final long aStartTimestamp, final long aEndTimestamp, final long aStartTime,
+      final long aEndTime )
+  {
+    return !( ( ( aStartTimestamp < aStartTime ) && ( aEndTimestamp < aStartTime ) )
+        || ( ( aStartTimestamp > aEndTime ) && ( aEndTimestamp > aEndTime ) ) );
+  }
+
+  /**
+   * Creates the annotations that (partially) fall inside the given boundaries,
+   * in the same order as they were stored, and adds them to the given list.
+   * 
+   * @param aResult
+   *          the list to add the annotations to, cannot be <code>null</code>;
+   * @param aStartTime
+   *          the start timestamp;
+   * @param aEndTime
+   *          the end timestamp.
+   */
+  public void addAnnotations( final List<DataAnnotation<?>> aResult, final long aStartTime, final long aEndTime )
+  {
+    final int count = this.startTimestamps.length;
+    for ( int i = 0; i < count; i++ )
+    {
+      if ( overlaps( this.startTimestamps[i], this.endTimestamps[i], aStartTime, aEndTime ) )
+      {
+        aResult.add( new StoredAnnotation( this.channelIdx, this.startTimestamps[i], this.endTimestamps[i],
+            this.texts[this.textIndices[i]] ) );
+      }
+    }
+  }
+
+  /**
+   * Creates the annotations, in the same order as they were stored.
+   * 
+   * @return a list with annotations, never <code>null</code>.
+   */
+  public List<Annotation<?>> getAnnotations()
+  {
+    final int count = this.startTimestamps.length;
+
+    final List<Annotation<?>> result = new ArrayList<Annotation<?>>( count );
+    for ( int i = 0; i < count; i++ )
+    {
+      result.add( new StoredAnnotation( this.channelIdx, this.startTimestamps[i], this.endTimestamps[i],
+          this.texts[this.textIndices[i]] ) );
+    }
+    return result;
+  }
+
+  /**
+   * Returns the end timestamp of the annotation with the given index.
+   * 
+   * @param aIndex
+   *          the index of the annotation, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #size()}.
+   * @return an end timestamp.
+   */
+  public long getEndTimestamp( final int aIndex )
+  {
+    return this.endTimestamps[aIndex];
+  }
+
+  /**
+   * Returns the index of the channel these annotations belong to.
+   * 
+   * @return a channel index, &gt;= 0 &amp;&amp; &lt; 32.
+   */
+  public int getChannelIndex()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * Returns the start timestamp of the annotation with the given index.
+   * 
+   * @param aIndex
+   *          the index of the annotation, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #size()}.
+   * @return a start timestamp.
+   */
+  public long getStartTimestamp( final int aIndex )
+  {
+    return this.startTimestamps[aIndex];
+  }
+
+  /**
+   * Returns the text of the annotation with the given index.
+   * 
+   * @param aIndex
+   *          the index of the annotation, &gt;= 0 &amp;&amp; &lt;
+   *          {@link #size()}.
+   * @return a text, never <code>null</code>.
+   */
+  public String getText( final int aIndex )
+  {
+    return this.texts[this.textIndices[aIndex]];
+  }
+
+  /**
+   * Returns the number of annotations.
+   * 
+   * @return an annotation count, &gt;= 0.
+   */
+  public int size()
+  {
+    return this.startTimestamps.length;
+  }
+}
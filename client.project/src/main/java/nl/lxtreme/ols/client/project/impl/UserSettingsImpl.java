@@ -248,7 +248,9 @@ public class UserSettingsImpl implements UserSettings
   @Override
   public Iterator<Entry<String, Object>> iterator()
   {
-    return new UserSettingsIterator( this.properties );
+    // Iterate over a copy, as these settings can be stored while they are
+    // being changed...
+    return new UserSettingsIterator( ( Properties )this.properties.clone() );
   }
 
   /**
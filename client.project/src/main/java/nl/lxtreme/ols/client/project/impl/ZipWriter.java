@@ -0,0 +1,520 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+
+/**
+ * Writes a ZIP-file, like {@link ZipOutputStream}, but also allows entries to
+ * be written from data that is already deflated.
+ * <p>
+ * All entries are deflated. Regular entries are written with a trailing data
+ * descriptor; already deflated entries are written with their sizes and
+ * checksum in their local header. The resulting file can be read by any ZIP
+ * reader, including {@link ZipInputStream} and {@link ZipFile}. Entries and
+ * files larger than 4GB, or with more than 65535 entries, are written with the
+ * ZIP64 extensions, like {@link ZipOutputStream} does as of Java 7.
+ * </p>
+ */
+final class ZipWriter extends OutputStream
+{
+  // INNER TYPES
+
+  /**
+   * Keeps the information of a written entry for the central directory.
+   */
+  static final class Entry
+  {
+    // VARIABLES
+
+    final byte[] name;
+    final int flags;
+    final long offset;
+
+    long crc;
+    long compressedSize;
+    long size;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final byte[] aName, final int aFlags, final long aOffset )
+    {
+      this.name = aName;
+      this.flags = aFlags;
+      this.offset = aOffset;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+  private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+  private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+  private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06064b50;
+  private static final int ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE = 0x07064b50;
+
+  /** Version 2.0 of the ZIP specification, the first to support deflate. */
+  private static final int VERSION = 20;
+  /** Version 4.5 of the ZIP specification, the first to support ZIP64. */
+  private static final int VERSION_ZIP64 = 45;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int FLAG_DATA_DESCRIPTOR = 1 << 3;
+  private static final int FLAG_UTF8 = 1 << 11;
+  private static final int ZIP64_EXTRA_ID = 0x0001;
+
+  /** Sizes, offsets and counts of at least these values need ZIP64. */
+  static final long MAX_SIZE = 0xffffffffL;
+  static final int MAX_ENTRIES = 0xffff;
+
+  // VARIABLES
+
+  private final OutputStream out;
+  private final List<Entry> entries;
+  private final Deflater deflater;
+  private final CRC32 crc;
+  private final byte[] buffer;
+  private final int dosTime;
+
+  private byte[] comment;
+  private Entry current;
+  private long written;
+  private boolean finished;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ZipWriter instance.
+   * 
+   * @param aOutput
+   *          the output stream to write the ZIP-file to, cannot be
+   *          <code>null</code>.
+   */
+  public ZipWriter( final OutputStream aOutput )
+  {
+    this.out = aOutput;
+    this.entries = new ArrayList<Entry>();
+    this.deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true /* nowrap */);
+    this.crc = new CRC32();
+    this.buffer = new byte[8192];
+    this.dosTime = toDosTime( System.currentTimeMillis() );
+    this.comment = new byte[0];
+  }
+
+  // METHODS
+
+  /**
+   * Converts the given time to the MS-DOS date and time format.
+   */
+  static int toDosTime( final long aTime )
+  {
+    final Calendar cal = Calendar.getInstance();
+    cal.setTimeInMillis( aTime );
+
+    final int year = cal.get( Calendar.YEAR );
+    if ( year < 1980 )
+    {
+      // 1980-01-01 00:00...
+      return ( 1 << 21 ) | ( 1 << 16 );
+    }
+
+    return ( ( year - 1980 ) << 25 ) | ( ( cal.get( Calendar.MONTH ) + 1 ) << 21 )
+        | ( cal.get( Calendar.DAY_OF_MONTH ) << 16 ) | ( cal.get( Calendar.HOUR_OF_DAY ) << 11 )
+        | ( cal.get( Calendar.MINUTE ) << 5 ) | ( cal.get( Calendar.SECOND ) >> 1 );
+  }
+
+  /**
+   * Finishes the ZIP-file and closes the underlying output stream.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      finish();
+    }
+    finally
+    {
+      this.deflater.end();
+      this.out.close();
+    }
+  }
+
+  /**
+   * Closes the current entry, if any.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void closeEntry() throws IOException
+  {
+    final Entry entry = this.current;
+    if ( entry == null )
+    {
+      return;
+    }
+
+    this.deflater.finish();
+    while ( !this.deflater.finished() )
+    {
+      deflate();
+    }
+
+    entry.crc = this.crc.getValue();
+    entry.compressedSize = this.deflater.getBytesWritten();
+    entry.size = this.deflater.getBytesRead();
+
+    this.deflater.reset();
+    this.crc.reset();
+    this.current = null;
+
+    writeInt( DATA_DESCRIPTOR_SIGNATURE );
+    writeInt( entry.crc );
+    if ( ( entry.compressedSize >= MAX_SIZE ) || ( entry.size >= MAX_SIZE ) )
+    {
+      // ZIP64 data descriptor, as understood by ZipInputStream...
+      writeLong( entry.compressedSize );
+      writeLong( entry.size );
+    }
+    else
+    {
+      writeInt( entry.compressedSize );
+      writeInt( entry.size );
+    }
+
+    this.entries.add( entry );
+  }
+
+  /**
+   * Finishes the ZIP-file by writing its central directory, without closing
+   * the underlying output stream.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void finish() throws IOException
+  {
+    if ( this.finished )
+    {
+      return;
+    }
+
+    closeEntry();
+
+    final long offset = this.written;
+    for ( Entry entry : this.entries )
+    {
+      // The sizes and offset that do not fit go in the ZIP64 extra field...
+      final long[] extra = new long[3];
+      int extraCount = 0;
+      if ( entry.size >= MAX_SIZE )
+      {
+        extra[extraCount++] = entry.size;
+      }
+      if ( entry.compressedSize >= MAX_SIZE )
+      {
+        extra[extraCount++] = entry.compressedSize;
+      }
+      if ( entry.offset >= MAX_SIZE )
+      {
+        extra[extraCount++] = entry.offset;
+      }
+
+      final int version = ( extraCount > 0 ) ? VERSION_ZIP64 : VERSION;
+
+      writeInt( CENTRAL_HEADER_SIGNATURE );
+      writeShort( version ); // version made by
+      writeShort( version ); // version needed to extract
+      writeShort( entry.flags );
+      writeShort( METHOD_DEFLATED );
+      writeInt( this.dosTime );
+      writeInt( entry.crc );
+      writeInt( Math.min( entry.compressedSize, MAX_SIZE ) );
+      writeInt( Math.min( entry.size, MAX_SIZE ) );
+      writeShort( entry.name.length );
+      writeShort( ( extraCount > 0 ) ? ( 4 + ( 8 * extraCount ) ) : 0 ); // extra field length
+      writeShort( 0 ); // comment length
+      writeShort( 0 ); // disk number
+      writeShort( 0 ); // internal attributes
+      writeInt( 0 ); // external attributes
+      writeInt( Math.min( entry.offset, MAX_SIZE ) );
+      writeBytes( entry.name, 0, entry.name.length );
+      if ( extraCount > 0 )
+      {
+        writeShort( ZIP64_EXTRA_ID );
+        writeShort( 8 * extraCount );
+        for ( int i = 0; i < extraCount; i++ )
+        {
+          writeLong( extra[i] );
+        }
+      }
+    }
+    final long size = this.written - offset;
+    final int count = this.entries.size();
+
+    if ( ( count >= MAX_ENTRIES ) || ( size >= MAX_SIZE ) || ( offset >= MAX_SIZE ) )
+    {
+      final long zip64Offset = this.written;
+
+      writeInt( ZIP64_END_OF_CENTRAL_DIRECTORY_SIGNATURE );
+      writeLong( 44L ); // size of the remainder of this record
+      writeShort( VERSION_ZIP64 ); // version made by
+      writeShort( VERSION_ZIP64 ); // version needed to extract
+      writeInt( 0 ); // disk number
+      writeInt( 0 ); // disk with central directory
+      writeLong( count );
+      writeLong( count );
+      writeLong( size );
+      writeLong( offset );
+
+      writeInt( ZIP64_END_OF_CENTRAL_DIRECTORY_LOCATOR_SIGNATURE );
+      writeInt( 0 ); // disk with ZIP64 end of central directory
+      writeLong( zip64Offset );
+      writeInt( 1 ); // total number of disks
+    }
+
+    writeInt( END_OF_CENTRAL_DIRECTORY_SIGNATURE );
+    writeShort( 0 ); // disk number
+    writeShort( 0 ); // disk with central directory
+    writeShort( Math.min( count, MAX_ENTRIES ) );
+    writeShort( Math.min( count, MAX_ENTRIES ) );
+    writeInt( Math.min( size, MAX_SIZE ) );
+    writeInt( Math.min( offset, MAX_SIZE ) );
+    writeShort( this.comment.length );
+    writeBytes( this.comment, 0, this.comment.length );
+
+    this.out.flush();
+    this.finished = true;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void flush() throws IOException
+  {
+    this.out.flush();
+  }
+
+  /**
+   * Writes an entry whose contents are already deflated.
+   * <p>
+   * The given data should form a complete, raw deflate stream (that is, without
+   * a zlib header or trailer) once concatenated.
+   * </p>
+   * 
+   * @param aName
+   *          the name of the entry, cannot be <code>null</code>;
+   * @param aData
+   *          the deflated contents of the entry, cannot be <code>null</code>;
+   * @param aChecksum
+   *          the CRC-32 checksum of the (inflated) contents;
+   * @param aSize
+   *          the size of the (inflated) contents.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void putDeflatedEntry( final String aName, final List<byte[]> aData, final long aChecksum, final long aSize )
+      throws IOException
+  {
+    closeEntry();
+
+    long compressedSize = 0L;
+    for ( byte[] data : aData )
+    {
+      compressedSize += data.length;
+    }
+
+    final Entry entry = new Entry( aName.getBytes( "UTF-8" ), FLAG_UTF8, this.written );
+    entry.crc = aChecksum;
+    entry.compressedSize = compressedSize;
+    entry.size = aSize;
+
+    writeLocalHeader( entry );
+    for ( byte[] data : aData )
+    {
+      writeBytes( data, 0, data.length );
+    }
+
+    this.entries.add( entry );
+  }
+
+  /**
+   * Starts writing a new entry, closing the current entry, if any.
+   * 
+   * @param aName
+   *          the name of the entry, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void putNextEntry( final String aName ) throws IOException
+  {
+    closeEntry();
+
+    final Entry entry = new Entry( aName.getBytes( "UTF-8" ), FLAG_UTF8 | FLAG_DATA_DESCRIPTOR, this.written );
+    writeLocalHeader( entry );
+
+    this.current = entry;
+  }
+
+  /**
+   * Sets the comment of the ZIP-file.
+   * 
+   * @param aComment
+   *          the comment to set, can be <code>null</code>.
+   */
+  public void setComment( final String aComment )
+  {
+    try
+    {
+      this.comment = ( aComment == null ) ? new byte[0] : aComment.getBytes( "UTF-8" );
+    }
+    catch ( UnsupportedEncodingException exception )
+    {
+      throw new RuntimeException( exception );
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    if ( this.current == null )
+    {
+      throw new ZipException( "No current ZIP entry!" );
+    }
+
+    this.crc.update( aBuffer, aOffset, aLength );
+    this.deflater.setInput( aBuffer, aOffset, aLength );
+    while ( !this.deflater.needsInput() )
+    {
+      deflate();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final int aByte ) throws IOException
+  {
+    write( new byte[] { ( byte )aByte }, 0, 1 );
+  }
+
+  /**
+   * Writes the deflated data that is available to the underlying stream.
+   */
+  private void deflate() throws IOException
+  {
+    final int length = this.deflater.deflate( this.buffer, 0, this.buffer.length );
+    if ( length > 0 )
+    {
+      writeBytes( this.buffer, 0, length );
+    }
+  }
+
+  /**
+   * Writes the given bytes to the underlying stream.
+   */
+  private void writeBytes( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    this.out.write( aBuffer, aOffset, aLength );
+    this.written += aLength;
+  }
+
+  /**
+   * Writes a 32-bit value in little-endian order.
+   */
+  private void writeInt( final long aValue ) throws IOException
+  {
+    writeShort( ( int )( aValue & 0xffff ) );
+    writeShort( ( int )( ( aValue >>> 16 ) & 0xffff ) );
+  }
+
+  /**
+   * Writes the local header of the given entry.
+   */
+  private void writeLocalHeader( final Entry aEntry ) throws IOException
+  {
+    final boolean zip64 = ( aEntry.compressedSize >= MAX_SIZE ) || ( aEntry.size >= MAX_SIZE );
+
+    writeInt( LOCAL_HEADER_SIGNATURE );
+    writeShort( zip64 ? VERSION_ZIP64 : VERSION );
+    writeShort( aEntry.flags );
+    writeShort( METHOD_DEFLATED );
+    writeInt( this.dosTime );
+    // Unknown when a data descriptor follows...
+    writeInt( aEntry.crc );
+    if ( zip64 )
+    {
+      writeInt( MAX_SIZE );
+      writeInt( MAX_SIZE );
+    }
+    else
+    {
+      writeInt( aEntry.compressedSize );
+      writeInt( aEntry.size );
+    }
+    writeShort( aEntry.name.length );
+    writeShort( zip64 ? 20 : 0 ); // extra field length
+    writeBytes( aEntry.name, 0, aEntry.name.length );
+    if ( zip64 )
+    {
+      // Both sizes are always present in the ZIP64 extra field of a local
+      // header...
+      writeShort( ZIP64_EXTRA_ID );
+      writeShort( 16 );
+      writeLong( aEntry.size );
+      writeLong( aEntry.compressedSize );
+    }
+  }
+
+  /**
+   * Writes a 64-bit value in little-endian order.
+   */
+  private void writeLong( final long aValue ) throws IOException
+  {
+    writeInt( aValue & MAX_SIZE );
+    writeInt( aValue >>> 32 );
+  }
+
+  /**
+   * Writes a 16-bit value in little-endian order.
+   */
+  private void writeShort( final int aValue ) throws IOException
+  {
+    this.out.write( aValue & 0xff );
+    this.out.write( ( aValue >>> 8 ) & 0xff );
+    this.written += 2;
+  }
+}
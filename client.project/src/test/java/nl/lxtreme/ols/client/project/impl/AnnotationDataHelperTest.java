@@ -0,0 +1,191 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link AnnotationDataHelper}.
+ */
+public class AnnotationDataHelperTest
+{
+  // METHODS
+
+  /**
+   * Tests that input with an invalid channel count is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testReadInvalidChannelCountFail() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final DataOutputStream dos = new DataOutputStream( baos );
+    dos.writeInt( 0x4F4C5341 );
+    dos.writeInt( 1 );
+    dos.writeInt( -1 );
+
+    AnnotationDataHelper.read( new ByteArrayInputStream( baos.toByteArray() ) );
+  }
+
+  /**
+   * Tests that input with an invalid channel index is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testReadInvalidChannelIndexFail() throws IOException
+  {
+    final byte[] data = write();
+    // Channel 3 becomes channel 99...
+    data[15] = 99;
+
+    AnnotationDataHelper.read( new ByteArrayInputStream( data ) );
+  }
+
+  /**
+   * Tests that input that does not contain annotations is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testReadInvalidMagicFail() throws IOException
+  {
+    final byte[] data = write();
+    data[0] ^= 0xFF;
+
+    AnnotationDataHelper.read( new ByteArrayInputStream( data ) );
+  }
+
+  /**
+   * Tests that input with a text index outside the text table is rejected.
+   */
+  @Test( expected = IOException.class )
+  public void testReadInvalidTextIndexFail() throws IOException
+  {
+    final Map<Integer, StoredAnnotations> stored = new HashMap<Integer, StoredAnnotations>();
+    stored.put( Integer.valueOf( 1 ), new StoredAnnotations( 1, new long[] { 1L }, new long[] { 2L }, new int[] { 0 },
+        new String[] { "a" } ) );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    AnnotationDataHelper.write( stored, Collections.<Integer, List<Annotation<?>>> emptyMap(), baos );
+
+    final byte[] data = baos.toByteArray();
+    // The text index of the only annotation...
+    assertEquals( 0, data[22] );
+    data[22] = 1;
+
+    AnnotationDataHelper.read( new ByteArrayInputStream( data ) );
+  }
+
+  /**
+   * Tests that a huge, corrupt annotation count is rejected without trying to
+   * allocate room for all of them.
+   */
+  @Test( expected = IOException.class )
+  public void testReadHugeCountFail() throws IOException
+  {
+    final byte[] data = write();
+    // The annotation count of the first channel...
+    data[16] = 0x7F;
+
+    AnnotationDataHelper.read( new ByteArrayInputStream( data ) );
+  }
+
+  /**
+   * Tests that truncated input is always rejected.
+   */
+  @Test
+  public void testReadTruncatedFail() throws IOException
+  {
+    final byte[] data = write();
+    for ( int length = 0; length < data.length; length++ )
+    {
+      try
+      {
+        AnnotationDataHelper.read( new ByteArrayInputStream( Arrays.copyOf( data, length ) ) );
+        fail( "Truncated input of " + length + " bytes accepted!" );
+      }
+      catch ( EOFException exception )
+      {
+        // Ok; expected...
+      }
+    }
+  }
+
+  /**
+   * Tests that the other annotations of a channel are written after its stored
+   * annotations, and are read back in the same order.
+   */
+  @Test
+  public void testWriteStoredAnnotationsOk() throws IOException
+  {
+    final List<StoredAnnotations> result = AnnotationDataHelper.read( new ByteArrayInputStream( write() ) );
+    assertEquals( 2, result.size() );
+
+    final StoredAnnotations channel3 = result.get( 0 );
+    assertEquals( 3, channel3.getChannelIndex() );
+    assertEquals( 3, channel3.size() );
+    assertAnnotation( channel3, 0, 10L, 20L, "START" );
+    assertAnnotation( channel3, 1, 5L, 7L, "0x4F" );
+    assertAnnotation( channel3, 2, 30L, 31L, "START" );
+
+    final StoredAnnotations channel5 = result.get( 1 );
+    assertEquals( 5, channel5.getChannelIndex() );
+    assertEquals( 1, channel5.size() );
+    assertAnnotation( channel5, 0, 1L << 40, 1L << 41, "\u00b5s" );
+  }
+
+  /**
+   * Asserts the annotation with the given index.
+   */
+  private void assertAnnotation( final StoredAnnotations aAnnotations, final int aIndex, final long aStart,
+      final long aEnd, final String aText )
+  {
+    assertEquals( aStart, aAnnotations.getStartTimestamp( aIndex ) );
+    assertEquals( aEnd, aAnnotations.getEndTimestamp( aIndex ) );
+    assertEquals( aText, aAnnotations.getText( aIndex ) );
+  }
+
+  /**
+   * Writes stored annotations on channel 3, followed by another annotation on
+   * channel 3, and an annotation on channel 5.
+   */
+  private byte[] write() throws IOException
+  {
+    final Map<Integer, StoredAnnotations> stored = new HashMap<Integer, StoredAnnotations>();
+    stored.put( Integer.valueOf( 3 ), new StoredAnnotations( 3, new long[] { 10L, 5L }, new long[] { 20L, 7L },
+        new int[] { 1, 0 }, new String[] { "0x4F", "START" } ) );
+
+    final Map<Integer, List<Annotation<?>>> annotations = new HashMap<Integer, List<Annotation<?>>>();
+    annotations.put( Integer.valueOf( 3 ),
+        Arrays.<Annotation<?>> asList( new StoredAnnotations.StoredAnnotation( 3, 30L, 31L, "START" ) ) );
+    annotations.put( Integer.valueOf( 5 ),
+        Arrays.<Annotation<?>> asList( new StoredAnnotations.StoredAnnotation( 5, 1L << 40, 1L << 41, "\u00b5s" ) ) );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    AnnotationDataHelper.write( stored, annotations, baos );
+    return baos.toByteArray();
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ChannelImpl}.
+ */
+public class ChannelImplTest
+{
+  // VARIABLES
+
+  private ChannelImpl channel;
+
+  // METHODS
+
+  /**
+   * Set up for each test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.channel = new ChannelImpl( 2 );
+    this.channel.setStoredAnnotations( new StoredAnnotations( 2, new long[] { 10L, 30L, 50L }, new long[] { 20L,
+        40L, 60L }, new int[] { 0, 1, 0 }, new String[] { "A", "B" } ) );
+  }
+
+  /**
+   * Tests that added annotations follow the stored annotations, without
+   * creating the latter.
+   */
+  @Test
+  public void testAddAnnotationKeepsStoredAnnotationsOk()
+  {
+    this.channel.addAnnotation( new StoredAnnotations.StoredAnnotation( 2, 0L, 5L, "C" ) );
+    assertStored( 1 );
+
+    final List<Annotation<?>> annotations = new ArrayList<Annotation<?>>( this.channel.getAnnotations() );
+    assertEquals( 4, annotations.size() );
+    assertEquals( "A", annotations.get( 0 ).getAnnotation() );
+    assertEquals( "B", annotations.get( 1 ).getAnnotation() );
+    assertEquals( "A", annotations.get( 2 ).getAnnotation() );
+    assertEquals( "C", annotations.get( 3 ).getAnnotation() );
+  }
+
+  /**
+   * Tests that clearing the annotations also clears the stored annotations.
+   */
+  @Test
+  public void testClearAnnotationsOk()
+  {
+    assertTrue( this.channel.hasAnnotations() );
+
+    this.channel.clearAnnotations();
+
+    assertFalse( this.channel.hasAnnotations() );
+    assertTrue( this.channel.getAnnotations().isEmpty() );
+    assertTrue( this.channel.getDataAnnotations( 0L, 100L ).isEmpty() );
+  }
+
+  /**
+   * Tests that the annotations of a copied channel are retained without
+   * creating them.
+   */
+  @Test
+  public void testCopyChannelKeepsStoredAnnotationsOk()
+  {
+    final ChannelImpl copy = new ChannelImpl( this.channel, true /* aRetainAnnotation */);
+
+    final List<Annotation<?>> added = new ArrayList<Annotation<?>>();
+    assertNotNull( copy.getAnnotations( added ) );
+    assertTrue( added.isEmpty() );
+    assertEquals( 3, copy.getAnnotations().size() );
+    assertStored( 0 );
+  }
+
+  /**
+   * Tests that getting all annotations creates the stored annotations, once.
+   */
+  @Test
+  public void testGetAnnotationsCreatesStoredAnnotationsOk()
+  {
+    final Collection<Annotation<?>> annotations = this.channel.getAnnotations();
+    assertEquals( 3, annotations.size() );
+
+    final List<Annotation<?>> added = new ArrayList<Annotation<?>>();
+    assertNull( this.channel.getAnnotations( added ) );
+    assertEquals( 3, added.size() );
+
+    assertSame( annotations, this.channel.getAnnotations() );
+  }
+
+  /**
+   * Tests that only the annotations inside the given boundaries are created.
+   */
+  @Test
+  public void testGetDataAnnotationsOnlyCreatesVisibleAnnotationsOk()
+  {
+    this.channel.addAnnotation( new StoredAnnotations.StoredAnnotation( 2, 35L, 36L, "C" ) );
+
+    final List<DataAnnotation<?>> annotations = this.channel.getDataAnnotations( 25L, 45L );
+    assertEquals( 2, annotations.size() );
+    assertEquals( 30L, annotations.get( 0 ).getStartTimestamp() );
+    assertEquals( "B", annotations.get( 0 ).getAnnotation() );
+    assertEquals( "C", annotations.get( 1 ).getAnnotation() );
+
+    assertTrue( this.channel.getDataAnnotations( 61L, 100L ).isEmpty() );
+    assertEquals( 1, this.channel.getDataAnnotations( 60L, 60L ).size() );
+
+    // Still not created...
+    assertStored( 1 );
+    assertTrue( this.channel.hasAnnotations() );
+  }
+
+  /**
+   * Asserts that the stored annotations of the tested channel are not created
+   * yet, and that the given number of other annotations are added.
+   */
+  private void assertStored( final int aAddedCount )
+  {
+    final List<Annotation<?>> added = new ArrayList<Annotation<?>>();
+    assertNotNull( this.channel.getAnnotations( added ) );
+    assertEquals( aAddedCount, added.size() );
+  }
+}
@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DeflateStreams}.
+ */
+public class DeflateStreamsTest
+{
+  // CONSTANTS
+
+  /** An empty, final block with fixed Huffman codes, ending a deflate stream. */
+  private static final byte[] FINAL_BLOCK = { 0x03, 0x00 };
+
+  // METHODS
+
+  /**
+   * Tests that converted streams, deflated with all kinds of block types, can
+   * be concatenated into a single deflate stream.
+   */
+  @Test
+  public void testConcatenateConvertedStreamsOk() throws Exception
+  {
+    final Random rnd = new Random( 1234L );
+
+    final List<byte[]> inputs = new ArrayList<byte[]>();
+    // Empty input yields a single fixed block...
+    inputs.add( new byte[0] );
+    // Short text yields a fixed block...
+    inputs.add( "1@0\n0@10\n".getBytes( "ASCII" ) );
+    // Lots of text yields several dynamic blocks...
+    inputs.add( createText( rnd, 200000 ) );
+    // Random data yields stored blocks...
+    final byte[] random = new byte[100000];
+    rnd.nextBytes( random );
+    inputs.add( random );
+
+    for ( int level : new int[] { Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION } )
+    {
+      final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+      final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+      for ( byte[] input : inputs )
+      {
+        final byte[] converted = DeflateStreams.toSyncFlushed( deflate( input, level ) );
+        // Ends like a sync flush...
+        assertEquals( 0x00, converted[converted.length - 4] );
+        assertEquals( 0x00, converted[converted.length - 3] );
+        assertEquals( ( byte )0xFF, converted[converted.length - 2] );
+        assertEquals( ( byte )0xFF, converted[converted.length - 1] );
+
+        expected.write( input );
+        stream.write( converted );
+      }
+      stream.write( FINAL_BLOCK );
+
+      assertArrayEquals( "Level " + level, expected.toByteArray(), inflate( stream.toByteArray() ) );
+    }
+  }
+
+  /**
+   * Tests that a truncated deflate stream is not converted.
+   */
+  @Test( expected = EOFException.class )
+  public void testConvertTruncatedStreamFail() throws Exception
+  {
+    final byte[] stream = deflate( createText( new Random( 1L ), 10000 ), Deflater.DEFAULT_COMPRESSION );
+
+    DeflateStreams.toSyncFlushed( Arrays.copyOf( stream, stream.length / 2 ) );
+  }
+
+  /**
+   * Tests that an invalid deflate stream is not converted.
+   */
+  @Test( expected = IOException.class )
+  public void testConvertInvalidStreamFail() throws Exception
+  {
+    // Block type 3 is reserved...
+    DeflateStreams.toSyncFlushed( new byte[] { 0x07, 0x00 } );
+  }
+
+  /**
+   * Creates text in the same format as the samples of an OLS data file.
+   */
+  private static byte[] createText( final Random aRandom, final int aLineCount ) throws IOException
+  {
+    final StringBuilder sb = new StringBuilder();
+    long timestamp = 0L;
+    for ( int i = 0; i < aLineCount; i++ )
+    {
+      timestamp += 1 + aRandom.nextInt( 100 );
+      sb.append( Integer.toHexString( aRandom.nextInt( 256 ) ) ).append( '@' ).append( timestamp ).append( '\n' );
+    }
+    return sb.toString().getBytes( "ASCII" );
+  }
+
+  /**
+   * Deflates the given data into a finished raw deflate stream.
+   */
+  private static byte[] deflate( final byte[] aData, final int aLevel )
+  {
+    final Deflater deflater = new Deflater( aLevel, true /* nowrap */);
+    try
+    {
+      deflater.setInput( aData );
+      deflater.finish();
+
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      while ( !deflater.finished() )
+      {
+        baos.write( buffer, 0, deflater.deflate( buffer ) );
+      }
+      return baos.toByteArray();
+    }
+    finally
+    {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Inflates the given raw deflate stream, and checks that it is finished.
+   */
+  private static byte[] inflate( final byte[] aStream ) throws DataFormatException
+  {
+    final Inflater inflater = new Inflater( true /* nowrap */);
+    try
+    {
+      // A dummy byte is needed after a raw deflate stream...
+      inflater.setInput( Arrays.copyOf( aStream, aStream.length + 1 ) );
+
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[8192];
+      while ( !inflater.finished() )
+      {
+        final int length = inflater.inflate( buffer );
+        if ( ( length == 0 ) && inflater.needsInput() )
+        {
+          fail( "Deflate stream is not finished!" );
+        }
+        baos.write( buffer, 0, length );
+      }
+      assertEquals( 1, inflater.getRemaining() );
+      return baos.toByteArray();
+    }
+    finally
+    {
+      inflater.end();
+    }
+  }
+}
@@ -25,10 +25,15 @@ import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.test.data.*;
 import nl.lxtreme.ols.util.*;
@@ -227,4 +232,344 @@ public class ProjectManagerImplTest
     assertNotSame( settings, this.projectManager.getCurrentProject().getSettings( settingsName ) );
     assertEquals( "value", this.projectManager.getCurrentProject().getSettings( settingsName ).get( "key", "default" ) );
   }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#loadProject(java.io.InputStream)}.
+   */
+  @Test
+  public void testLoadProjectWithSingleCaptureResultsEntryOk() throws IOException
+  {
+    final AcquisitionResult mockedCapturedData = DataTestUtils.getMockedCapturedData();
+
+    final Project project = this.projectManager.createTemporaryProject();
+    project.setCapturedData( mockedCapturedData );
+
+    // Create a project file as written by older versions...
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    zipOS.putNextEntry( new ZipEntry( "channel.labels" ) );
+    zipOS.putNextEntry( new ZipEntry( "data.ols" ) );
+    project.writeData( new OutputStreamWriter( zipOS ) );
+    zipOS.putNextEntry( new ZipEntry( "settings/test" ) );
+    new Properties().store( zipOS, "test settings" );
+    zipOS.close();
+
+    this.projectManager.loadProject( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    DataTestUtils.assertEquals( mockedCapturedData, this.projectManager.getCurrentProject().getDataSet()
+        .getCapturedData() );
+    assertNotNull( this.projectManager.getCurrentProject().getSettings( "test" ) );
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveProjectMarksProjectUnchangedOk() throws Exception
+  {
+    final AcquisitionResult capturedData = createCapturedData( 3 * CompressedCapture.CHUNK_SIZE + 17 );
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( capturedData );
+    project.getDataSet().getCursor( 1 ).setTimestamp( 1234L );
+    assertTrue( project.isChanged() );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( baos );
+    waitForEDT();
+
+    assertFalse( project.isChanged() );
+
+    // Make sure everyhing is gone...
+    this.projectManager.createNewProject();
+
+    this.projectManager.loadProject( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final DataSet dataSet = this.projectManager.getCurrentProject().getDataSet();
+    DataTestUtils.assertEquals( capturedData, dataSet.getCapturedData() );
+    assertEquals( 1234L, dataSet.getCursor( 1 ).getTimestamp() );
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveProjectKeepsProjectChangedWhenChangedWhileSavingOk() throws Exception
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( createCapturedData( 17 ) );
+    assertTrue( project.isChanged() );
+
+    this.projectManager.saveProject( new ByteArrayOutputStream( 1024 ) );
+    // Changed before the EDT got to mark the project as saved...
+    project.setChanged( true );
+    waitForEDT();
+
+    assertTrue( project.isChanged() );
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveProjectReusesCompressedCaptureResultsOk() throws IOException
+  {
+    final AcquisitionResult capturedData = createCapturedData( 2 * CompressedCapture.CHUNK_SIZE + 1 );
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( capturedData );
+
+    final ByteArrayOutputStream first = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( first );
+
+    // Only change a setting...
+    project.getSettings( "test" ).put( "key", "value" );
+
+    final ByteArrayOutputStream second = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( second );
+
+    final Map<String, byte[]> firstEntries = readEntries( first.toByteArray() );
+    final Map<String, byte[]> secondEntries = readEntries( second.toByteArray() );
+
+    assertEquals( 0, countChunks( firstEntries.keySet() ) );
+    assertEquals( 0, countChunks( secondEntries.keySet() ) );
+    assertArrayEquals( firstEntries.get( "data.ols" ), secondEntries.get( "data.ols" ) );
+    assertTrue( secondEntries.containsKey( "settings/test" ) );
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveProjectWritesSingleCaptureResultsEntryOk() throws IOException
+  {
+    final AcquisitionResult capturedData = createCapturedData( 3 * CompressedCapture.CHUNK_SIZE + 17 );
+
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( capturedData );
+    project.getDataSet().getCursor( 2 ).setTimestamp( 4321L );
+
+    final File file = File.createTempFile( "ols", ".ols" );
+    try
+    {
+      this.projectManager.saveProject( new FileOutputStream( file ) );
+
+      // The captured data should be readable as written by older versions...
+      final StringWriter expected = new StringWriter();
+      project.writeData( expected );
+
+      // Use the central directory, unlike ZipInputStream...
+      final ZipFile zipFile = new ZipFile( file );
+      try
+      {
+        final ZipEntry entry = zipFile.getEntry( "data.ols" );
+        assertNotNull( entry );
+        assertEquals( ZipEntry.DEFLATED, entry.getMethod() );
+
+        final Reader reader = new InputStreamReader( zipFile.getInputStream( entry ) );
+        final StringWriter actual = new StringWriter();
+        final char[] buffer = new char[4096];
+
+        int read;
+        while ( ( read = reader.read( buffer ) ) >= 0 )
+        {
+          actual.write( buffer, 0, read );
+        }
+        assertEquals( expected.toString(), actual.toString() );
+
+        final List<String> names = new ArrayList<String>();
+        for ( Enumeration<? extends ZipEntry> entries = zipFile.entries(); entries.hasMoreElements(); )
+        {
+          names.add( entries.nextElement().getName() );
+        }
+        assertEquals( 0, countChunks( names ) );
+      }
+      finally
+      {
+        zipFile.close();
+      }
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveProjectStoresChannelAnnotationsOk() throws IOException
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( createCapturedData( 100 ) );
+
+    final Channel channel3 = project.getDataSet().getChannel( 3 );
+    channel3.addAnnotation( new StoredAnnotations.StoredAnnotation( 3, 10L, 20L, "START" ) );
+    channel3.addAnnotation( new StoredAnnotations.StoredAnnotation( 3, 5L, 7L, "0x4F" ) );
+    channel3.addAnnotation( new StoredAnnotations.StoredAnnotation( 3, 1L << 40, ( 1L << 40 ) + 3L, "START" ) );
+    project.getDataSet().getChannel( 7 ).addAnnotation(
+        new StoredAnnotations.StoredAnnotation( 7, 0L, 199L, "\u00b5s \u2192 ok" ) );
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( baos );
+
+    // Make sure everyhing is gone...
+    this.projectManager.createNewProject();
+
+    this.projectManager.loadProject( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    final DataSet dataSet = this.projectManager.getCurrentProject().getDataSet();
+    assertTrue( dataSet.getChannel( 0 ).getAnnotations().isEmpty() );
+
+    final List<Annotation<?>> annotations3 = new ArrayList<Annotation<?>>( dataSet.getChannel( 3 ).getAnnotations() );
+    assertEquals( 3, annotations3.size() );
+    assertAnnotation( annotations3.get( 0 ), 3, 10L, 20L, "START" );
+    assertAnnotation( annotations3.get( 1 ), 3, 5L, 7L, "0x4F" );
+    assertAnnotation( annotations3.get( 2 ), 3, 1L << 40, ( 1L << 40 ) + 3L, "START" );
+    // Texts are interned...
+    assertSame( annotations3.get( 0 ).getAnnotation(), annotations3.get( 2 ).getAnnotation() );
+
+    final List<Annotation<?>> annotations7 = new ArrayList<Annotation<?>>( dataSet.getChannel( 7 ).getAnnotations() );
+    assertEquals( 1, annotations7.size() );
+    assertAnnotation( annotations7.get( 0 ), 7, 0L, 199L, "\u00b5s \u2192 ok" );
+  }
+
+  /**
+   * Test method for
+   * {@link ProjectManagerImpl#saveProject(java.io.OutputStream)}.
+   */
+  @Test
+  public void testSaveLoadedProjectKeepsChannelAnnotationsStoredOk() throws IOException
+  {
+    final Project project = this.projectManager.getCurrentProject();
+    project.setCapturedData( createCapturedData( 100 ) );
+    project.getDataSet().getChannel( 3 ).addAnnotation( new StoredAnnotations.StoredAnnotation( 3, 10L, 20L, "A" ) );
+
+    final ByteArrayOutputStream first = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( first );
+    this.projectManager.loadProject( new ByteArrayInputStream( first.toByteArray() ) );
+
+    final ChannelImpl channel3 = ( ChannelImpl )this.projectManager.getCurrentProject().getDataSet().getChannel( 3 );
+    channel3.addAnnotation( new StoredAnnotations.StoredAnnotation( 3, 5L, 7L, "B" ) );
+
+    final ByteArrayOutputStream second = new ByteArrayOutputStream( 1024 );
+    this.projectManager.saveProject( second );
+
+    // Neither adding nor saving should create the stored annotations...
+    final List<Annotation<?>> added = new ArrayList<Annotation<?>>();
+    assertNotNull( channel3.getAnnotations( added ) );
+    assertEquals( 1, added.size() );
+
+    this.projectManager.loadProject( new ByteArrayInputStream( second.toByteArray() ) );
+
+    final List<Annotation<?>> annotations3 = new ArrayList<Annotation<?>>( this.projectManager.getCurrentProject()
+        .getDataSet().getChannel( 3 ).getAnnotations() );
+    assertEquals( 2, annotations3.size() );
+    assertAnnotation( annotations3.get( 0 ), 3, 10L, 20L, "A" );
+    assertAnnotation( annotations3.get( 1 ), 3, 5L, 7L, "B" );
+  }
+
+  /**
+   * Asserts the given annotation.
+   */
+  private void assertAnnotation( final Annotation<?> aAnnotation, final int aChannelIdx, final long aStart,
+      final long aEnd, final String aText )
+  {
+    assertTrue( aAnnotation instanceof DataAnnotation<?> );
+
+    final DataAnnotation<?> annotation = ( DataAnnotation<?> )aAnnotation;
+    assertEquals( aChannelIdx, annotation.getChannel() );
+    assertEquals( aStart, annotation.getStartTimestamp() );
+    assertEquals( aEnd, annotation.getEndTimestamp() );
+    assertEquals( aText, annotation.getAnnotation() );
+  }
+
+  /**
+   * Counts the number of (separate) entries with compressed samples, as
+   * written by previous versions.
+   */
+  private int countChunks( final Collection<String> aNames )
+  {
+    int result = 0;
+    for ( String name : aNames )
+    {
+      if ( name.startsWith( "data.ols." ) )
+      {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Creates captured data with the given number of samples.
+   */
+  private AcquisitionResult createCapturedData( final int aSize )
+  {
+    final Random rnd = new Random( 42L );
+
+    final int[] values = new int[aSize];
+    final long[] timestamps = new long[aSize];
+    for ( int i = 0; i < aSize; i++ )
+    {
+      values[i] = rnd.nextInt();
+      timestamps[i] = 2L * i;
+    }
+
+    return new CapturedData( values, timestamps, 100L, 1000000, 32, 0xFFFFFFFF, 2L * aSize );
+  }
+
+  /**
+   * Waits until all pending events on the EDT are processed.
+   */
+  private void waitForEDT() throws Exception
+  {
+    SwingUtilities.invokeAndWait( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        // Nothing to do...
+      }
+    } );
+  }
+
+  /**
+   * Reads all entries of the given project file.
+   */
+  private Map<String, byte[]> readEntries( final byte[] aProjectFile ) throws IOException
+  {
+    final Map<String, byte[]> result = new HashMap<String, byte[]>();
+
+    final ZipInputStream zipIS = new ZipInputStream( new ByteArrayInputStream( aProjectFile ) );
+    try
+    {
+      ZipEntry entry;
+      while ( ( entry = zipIS.getNextEntry() ) != null )
+      {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[4096];
+
+        int read;
+        while ( ( read = zipIS.read( buffer ) ) >= 0 )
+        {
+          baos.write( buffer, 0, read );
+        }
+        result.put( entry.getName(), baos.toByteArray() );
+      }
+    }
+    finally
+    {
+      zipIS.close();
+    }
+
+    return result;
+  }
 }
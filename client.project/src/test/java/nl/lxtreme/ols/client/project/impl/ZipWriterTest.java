@@ -0,0 +1,314 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.project.impl;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ZipWriter}.
+ */
+public class ZipWriterTest
+{
+  // INNER TYPES
+
+  /**
+   * Counts all bytes written, but only keeps the last ones, allowing files of
+   * over 4GB to be written without storing them.
+   */
+  static final class TailOutputStream extends OutputStream
+  {
+    // VARIABLES
+
+    private final byte[] tail = new byte[65536];
+    private long count;
+
+    // METHODS
+
+    /**
+     * Returns the last bytes written, in the order they were written.
+     */
+    public byte[] getTail()
+    {
+      final int length = ( int )Math.min( this.count, this.tail.length );
+      final int start = ( int )( ( this.count - length ) % this.tail.length );
+
+      final byte[] result = new byte[length];
+      for ( int i = 0; i < length; i++ )
+      {
+        result[i] = this.tail[( start + i ) % this.tail.length];
+      }
+      return result;
+    }
+
+    /**
+     * Returns the number of bytes written.
+     */
+    public long getCount()
+    {
+      return this.count;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength )
+    {
+      final int skip = Math.max( 0, aLength - this.tail.length );
+      this.count += skip;
+      for ( int i = skip; i < aLength; i++ )
+      {
+        write( aBuffer[aOffset + i] );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write( final int aByte )
+    {
+      this.tail[( int )( this.count++ % this.tail.length )] = ( byte )aByte;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that an entry with a size of over 4GB is written with the ZIP64
+   * extensions, and can be read by {@link ZipFile}.
+   */
+  @Test
+  public void testWriteEntryOver4GBOk() throws Exception
+  {
+    final long size = 5L * ZipWriter.MAX_SIZE;
+    final byte[] data = deflate( "abc".getBytes( "ASCII" ) );
+
+    final File file = File.createTempFile( "ols", ".zip" );
+    try
+    {
+      final ZipWriter writer = new ZipWriter( new FileOutputStream( file ) );
+      try
+      {
+        // Only the central directory is read, so the contents do not matter...
+        writer.putDeflatedEntry( "big", Collections.singletonList( data ), 1234L, size );
+        writer.putNextEntry( "small" );
+        writer.write( "hello".getBytes( "ASCII" ) );
+      }
+      finally
+      {
+        writer.close();
+      }
+
+      final ZipFile zipFile = new ZipFile( file );
+      try
+      {
+        final ZipEntry big = zipFile.getEntry( "big" );
+        assertEquals( size, big.getSize() );
+        assertEquals( data.length, big.getCompressedSize() );
+        assertEquals( 1234L, big.getCrc() );
+
+        final ZipEntry small = zipFile.getEntry( "small" );
+        assertEquals( 5L, small.getSize() );
+        assertEquals( "hello", read( zipFile.getInputStream( small ) ) );
+      }
+      finally
+      {
+        zipFile.close();
+      }
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  /**
+   * Tests that a ZIP-file of over 4GB is written with the ZIP64 end of central
+   * directory records and ZIP64 offsets.
+   */
+  @Test
+  public void testWriteFileOver4GBOk() throws Exception
+  {
+    // The same 16MB over and over again, without actually storing it...
+    final byte[] chunk = new byte[1 << 24];
+    final List<byte[]> data = new ArrayList<byte[]>();
+    while ( ( ( long )data.size() * chunk.length ) <= ZipWriter.MAX_SIZE )
+    {
+      data.add( chunk );
+    }
+    final long compressedSize = ( long )data.size() * chunk.length;
+
+    final TailOutputStream output = new TailOutputStream();
+    final ZipWriter writer = new ZipWriter( output );
+    writer.putDeflatedEntry( "big", data, 0L, 2L * compressedSize );
+    writer.putNextEntry( "small" );
+    writer.write( "hello".getBytes( "ASCII" ) );
+    writer.close();
+
+    final byte[] tail = output.getTail();
+    final long tailOffset = output.getCount() - tail.length;
+    final ByteBuffer buf = ByteBuffer.wrap( tail ).order( ByteOrder.LITTLE_ENDIAN );
+
+    // End of central directory record, without a comment...
+    int pos = tail.length - 22;
+    assertEquals( 0x06054b50, buf.getInt( pos ) );
+    assertEquals( 2, buf.getShort( pos + 10 ) );
+    assertEquals( 0xffffffff, buf.getInt( pos + 16 ) );
+
+    // ZIP64 end of central directory locator...
+    pos -= 20;
+    assertEquals( 0x07064b50, buf.getInt( pos ) );
+    final long zip64Offset = buf.getLong( pos + 8 );
+
+    // ZIP64 end of central directory record...
+    pos = ( int )( zip64Offset - tailOffset );
+    assertEquals( 0x06064b50, buf.getInt( pos ) );
+    assertEquals( 2L, buf.getLong( pos + 24 ) );
+    assertEquals( 2L, buf.getLong( pos + 32 ) );
+    final long directorySize = buf.getLong( pos + 40 );
+    final long directoryOffset = buf.getLong( pos + 48 );
+    assertEquals( zip64Offset, directoryOffset + directorySize );
+
+    // Central header of "big", with its ZIP64 sizes...
+    pos = ( int )( directoryOffset - tailOffset );
+    assertEquals( 0x02014b50, buf.getInt( pos ) );
+    assertEquals( 0xffffffff, buf.getInt( pos + 20 ) );
+    assertEquals( 0xffffffff, buf.getInt( pos + 24 ) );
+    assertEquals( 0, buf.getInt( pos + 42 ) );
+    pos += 46 + 3;
+    assertEquals( 0x0001, buf.getShort( pos ) );
+    assertEquals( 16, buf.getShort( pos + 2 ) );
+    assertEquals( 2L * compressedSize, buf.getLong( pos + 4 ) );
+    assertEquals( compressedSize, buf.getLong( pos + 12 ) );
+
+    // Central header of "small", with its ZIP64 offset...
+    pos += 20;
+    assertEquals( 0x02014b50, buf.getInt( pos ) );
+    assertEquals( 0xffffffff, buf.getInt( pos + 42 ) );
+    pos += 46 + 5;
+    assertEquals( 0x0001, buf.getShort( pos ) );
+    assertEquals( 8, buf.getShort( pos + 2 ) );
+    // Local header of "big", with its ZIP64 extra field, and its contents...
+    assertEquals( 30 + 3 + 20 + compressedSize, buf.getLong( pos + 4 ) );
+  }
+
+  /**
+   * Tests that a ZIP-file with more than 65535 entries is written with the
+   * ZIP64 extensions, and can be read by {@link ZipFile}.
+   */
+  @Test
+  public void testWriteManyEntriesOk() throws Exception
+  {
+    final int count = ZipWriter.MAX_ENTRIES + 10;
+
+    final File file = File.createTempFile( "ols", ".zip" );
+    try
+    {
+      final ZipWriter writer = new ZipWriter( new BufferedOutputStream( new FileOutputStream( file ) ) );
+      try
+      {
+        for ( int i = 0; i < count; i++ )
+        {
+          writer.putNextEntry( "entry" + i );
+          writer.write( String.valueOf( i ).getBytes( "ASCII" ) );
+        }
+      }
+      finally
+      {
+        writer.close();
+      }
+
+      final ZipFile zipFile = new ZipFile( file );
+      try
+      {
+        assertEquals( count, zipFile.size() );
+
+        final String last = String.valueOf( count - 1 );
+        assertEquals( last, read( zipFile.getInputStream( zipFile.getEntry( "entry" + last ) ) ) );
+      }
+      finally
+      {
+        zipFile.close();
+      }
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  /**
+   * Deflates the given data into a raw deflate stream.
+   */
+  private byte[] deflate( final byte[] aData )
+  {
+    final Deflater deflater = new Deflater( Deflater.DEFAULT_COMPRESSION, true /* nowrap */);
+    try
+    {
+      deflater.setInput( aData );
+      deflater.finish();
+
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+      final byte[] buffer = new byte[4096];
+      while ( !deflater.finished() )
+      {
+        baos.write( buffer, 0, deflater.deflate( buffer ) );
+      }
+      return baos.toByteArray();
+    }
+    finally
+    {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Reads the given input stream as ASCII text, and closes it.
+   */
+  private String read( final InputStream aInput ) throws IOException
+  {
+    final Reader reader = new InputStreamReader( aInput, "ASCII" );
+    try
+    {
+      final StringBuilder sb = new StringBuilder();
+      int ch;
+      while ( ( ch = reader.read() ) >= 0 )
+      {
+        sb.append( ( char )ch );
+      }
+      return sb.toString();
+    }
+    finally
+    {
+      reader.close();
+    }
+  }
+}
@@ -69,6 +69,20 @@ public class Activator extends DependencyActivatorBase
     {
       super( Device.class, OLS_DEVICE_CLASS_KEY );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Device createLazyService( final Dictionary<?, ?> aHeaders )
+    {
+      final String name = ( String )aHeaders.get( OLS_DEVICE_NAME_KEY );
+      if ( ( name == null ) || "".equals( name ) )
+      {
+        return null;
+      }
+      return new LazyDevice( this, name );
+    }
   }
 
   static class ExporterBundleAdapter extends GenericBundleAdapter<Exporter>
@@ -80,6 +94,47 @@ public class Activator extends DependencyActivatorBase
     {
       super( Exporter.class, OLS_EXPORTER_CLASS_KEY );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Exporter createLazyService( final Dictionary<?, ?> aHeaders )
+    {
+      final String name = ( String )aHeaders.get( OLS_EXPORTER_NAME_KEY );
+      final String extensions = ( String )aHeaders.get( OLS_EXPORTER_EXTENSIONS_KEY );
+      if ( ( name == null ) || "".equals( name ) || ( extensions == null ) )
+      {
+        return null;
+      }
+      return new LazyExporter( this, name, splitHeader( extensions ) );
+    }
+  }
+
+  static class ImporterBundleAdapter extends GenericBundleAdapter<Importer>
+  {
+    /**
+     * Creates a new Activator.ImporterBundleAdapter instance.
+     */
+    public ImporterBundleAdapter()
+    {
+      super( Importer.class, OLS_IMPORTER_CLASS_KEY );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Importer createLazyService( final Dictionary<?, ?> aHeaders )
+    {
+      final String name = ( String )aHeaders.get( OLS_IMPORTER_NAME_KEY );
+      final String extensions = ( String )aHeaders.get( OLS_IMPORTER_EXTENSIONS_KEY );
+      if ( ( name == null ) || "".equals( name ) || ( extensions == null ) )
+      {
+        return null;
+      }
+      return new LazyImporter( this, name, splitHeader( extensions ) );
+    }
   }
 
   @SuppressWarnings( "rawtypes" )
@@ -92,6 +147,29 @@ public class Activator extends DependencyActivatorBase
     {
       super( Tool.class, OLS_TOOL_CLASS_KEY );
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Tool createLazyService( final Dictionary<?, ?> aHeaders )
+    {
+      final String name = ( String )aHeaders.get( OLS_TOOL_NAME_KEY );
+      final String category = ( String )aHeaders.get( OLS_TOOL_CATEGORY_KEY );
+      if ( ( name == null ) || "".equals( name ) || ( category == null ) )
+      {
+        return null;
+      }
+      try
+      {
+        return new LazyTool( this, name, ToolCategory.valueOf( category.trim() ) );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        // Unknown category; fall back to eager loading...
+        return null;
+      }
+    }
   }
 
   // CONSTANTS
@@ -99,27 +177,46 @@ public class Activator extends DependencyActivatorBase
   private static final String OLS_TOOL_MAGIC_KEY = "OLS-Tool";
   private static final String OLS_TOOL_MAGIC_VALUE = "1.0";
   private static final String OLS_TOOL_CLASS_KEY = "OLS-ToolClass";
+  private static final String OLS_TOOL_NAME_KEY = "OLS-ToolName";
+  private static final String OLS_TOOL_CATEGORY_KEY = "OLS-ToolCategory";
   private static final String TOOL_BUNDLE_FILTER = String.format( "(&(%s=%s)(%s=*))", OLS_TOOL_MAGIC_KEY,
       OLS_TOOL_MAGIC_VALUE, OLS_TOOL_CLASS_KEY );
 
   private static final String OLS_DEVICE_MAGIC_KEY = "OLS-Device";
   private static final String OLS_DEVICE_MAGIC_VALUE = "1.0";
   private static final String OLS_DEVICE_CLASS_KEY = "OLS-DeviceClass";
+  private static final String OLS_DEVICE_NAME_KEY = "OLS-DeviceName";
   private static final String DEVICE_BUNDLE_FILTER = String.format( "(&(%s=%s)(%s=*))", OLS_DEVICE_MAGIC_KEY,
       OLS_DEVICE_MAGIC_VALUE, OLS_DEVICE_CLASS_KEY );
 
   private static final String OLS_EXPORTER_MAGIC_KEY = "OLS-Exporter";
   private static final String OLS_EXPORTER_MAGIC_VALUE = "1.0";
   private static final String OLS_EXPORTER_CLASS_KEY = "OLS-ExporterClass";
+  private static final String OLS_EXPORTER_NAME_KEY = "OLS-ExporterName";
+  private static final String OLS_EXPORTER_EXTENSIONS_KEY = "OLS-ExporterExtensions";
   private static final String EXPORTER_BUNDLE_FILTER = String.format( "(&(%s=%s)(%s=*))", OLS_EXPORTER_MAGIC_KEY,
       OLS_EXPORTER_MAGIC_VALUE, OLS_EXPORTER_CLASS_KEY );
 
+  private static final String OLS_IMPORTER_MAGIC_KEY = "OLS-Importer";
+  private static final String OLS_IMPORTER_MAGIC_VALUE = "1.0";
+  private static final String OLS_IMPORTER_CLASS_KEY = "OLS-ImporterClass";
+  private static final String OLS_IMPORTER_NAME_KEY = "OLS-ImporterName";
+  private static final String OLS_IMPORTER_EXTENSIONS_KEY = "OLS-ImporterExtensions";
+  private static final String IMPORTER_BUNDLE_FILTER = String.format( "(&(%s=%s)(%s=*))", OLS_IMPORTER_MAGIC_KEY,
+      OLS_IMPORTER_MAGIC_VALUE, OLS_IMPORTER_CLASS_KEY );
+
   private static final String OLS_COMPONENT_PROVIDER_MAGIC_KEY = "OLS-ComponentProvider";
   private static final String OLS_COMPONENT_PROVIDER_MAGIC_VALUE = "Menu";
   private static final String OLS_COMPONENT_PROVIDER_CLASS_KEY = "OLS-ComponentProviderClass";
   private static final String CP_BUNDLE_FILTER = String.format( "(&(%s=%s)(%s=*))", OLS_COMPONENT_PROVIDER_MAGIC_KEY,
       OLS_COMPONENT_PROVIDER_MAGIC_VALUE, OLS_COMPONENT_PROVIDER_CLASS_KEY );
 
+  /**
+   * Bundles with a lazy activation policy remain in the STARTING state until
+   * their first class is loaded, hence we need to adapt those as well.
+   */
+  private static final int ADAPTED_BUNDLE_STATES = Bundle.STARTING | Bundle.ACTIVE;
+
   // METHODS
 
   /**
@@ -153,15 +250,18 @@ public class Activator extends DependencyActivatorBase
     aManager.add( createBundleAdapterService( Bundle.ACTIVE, CP_BUNDLE_FILTER, true /* propagate */) //
         .setImplementation( ComponentProviderBundleAdapter.class ) );
 
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, TOOL_BUNDLE_FILTER, true /* propagate */) //
+    aManager.add( createBundleAdapterService( ADAPTED_BUNDLE_STATES, TOOL_BUNDLE_FILTER, true /* propagate */) //
         .setImplementation( ToolBundleAdapter.class ) );
 
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, DEVICE_BUNDLE_FILTER, true /* propagate */) //
+    aManager.add( createBundleAdapterService( ADAPTED_BUNDLE_STATES, DEVICE_BUNDLE_FILTER, true /* propagate */) //
         .setImplementation( DeviceBundleAdapter.class ) );
 
-    aManager.add( createBundleAdapterService( Bundle.ACTIVE, EXPORTER_BUNDLE_FILTER, true /* propagate */) //
+    aManager.add( createBundleAdapterService( ADAPTED_BUNDLE_STATES, EXPORTER_BUNDLE_FILTER, true /* propagate */) //
         .setImplementation( ExporterBundleAdapter.class ) );
 
+    aManager.add( createBundleAdapterService( ADAPTED_BUNDLE_STATES, IMPORTER_BUNDLE_FILTER, true /* propagate */) //
+        .setImplementation( ImporterBundleAdapter.class ) );
+
     Properties props = new Properties();
     props.put( Constants.SERVICE_PID, UIManagerConfigurator.PID );
 
@@ -237,6 +337,10 @@ public class Activator extends DependencyActivatorBase
             .setService( Exporter.class ) //
             .setCallbacks( "addExporter", "removeExporter" ) //
             .setRequired( false ) ) //
+        .add( createServiceDependency() //
+            .setService( Importer.class ) //
+            .setCallbacks( "addImporter", "removeImporter" ) //
+            .setRequired( false ) ) //
         .add( createConfigurationDependency() //
             .setPid( UIManagerConfigurator.PID ) ) //
         );
@@ -0,0 +1,617 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.Annotation;
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a session of repeated captures, that stops as soon as one of its
+ * conditions holds for a capture.
+ * <p>
+ * Each completed capture is added to a bounded {@link CaptureHistory}, and the
+ * conditions are evaluated on a background thread while the next capture is
+ * acquired. Evaluations are done one after another; a completed capture waits
+ * until the evaluation of the previous one is finished, so no more than two
+ * captures are pending at any time.
+ * </p>
+ * <p>
+ * Before evaluating the conditions, each capture is decoded by the decoders of
+ * the session, if any. These run headless with the settings they were last
+ * run with, and their annotations are kept for the most recently decoded
+ * capture only.
+ * </p>
+ */
+public final class CaptureSession
+{
+  // INNER TYPES
+
+  /**
+   * Provides a callback for when a condition of a capture session holds.
+   */
+  public static interface ConditionListener
+  {
+    // METHODS
+
+    /**
+     * Called when a condition holds for a capture, after the capture session
+     * is stopped. This method is called on a background thread.
+     * 
+     * @param aSession
+     *          the capture session, never <code>null</code>;
+     * @param aSeqNo
+     *          the sequence number of the capture in the history of the
+     *          session;
+     * @param aData
+     *          the capture for which the condition holds, never
+     *          <code>null</code>;
+     * @param aCondition
+     *          the condition that holds, never <code>null</code>;
+     * @param aResult
+     *          the moments at which the condition holds, never
+     *          <code>null</code>.
+     */
+    void conditionMet( CaptureSession aSession, int aSeqNo, AcquisitionResult aData, CaptureCondition aCondition,
+        SearchResult aResult );
+  }
+
+  /**
+   * Provides a tool context that spans an entire capture, without any cursors.
+   */
+  static final class CaptureToolContext implements ToolContext
+  {
+    // VARIABLES
+
+    private final AcquisitionResult data;
+    private final int endSampleIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CaptureToolContext instance.
+     */
+    CaptureToolContext( final AcquisitionResult aData )
+    {
+      this.data = aData;
+      this.endSampleIdx = Math.max( 0, aData.getValues().length - 1 );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getChannels()
+    {
+      return this.data.getChannels();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Cursor getCursor( final int aIndex )
+    {
+      return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResult getData()
+    {
+      return this.data;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getEnabledChannels()
+    {
+      return this.data.getEnabledChannels();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getEndSampleIndex()
+    {
+      return this.endSampleIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getLength()
+    {
+      return this.endSampleIdx;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getStartSampleIndex()
+    {
+      return 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResultView getWindowedData()
+    {
+      return getWindowedData( 0xFFFFFFFF );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResultView getWindowedData( final int aChannelMask )
+    {
+      return new AcquisitionResultView( this.data, 0, this.endSampleIdx, aChannelMask );
+    }
+  }
+
+  /**
+   * Decodes a single capture and evaluates all conditions on it.
+   */
+  final class Evaluation implements Callable<Boolean>, AnnotationListener, ToolProgressListener
+  {
+    // VARIABLES
+
+    private final int seqNo;
+    private final AcquisitionResult data;
+    private final List<Annotation<?>> annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Evaluation instance.
+     */
+    Evaluation( final int aSeqNo, final AcquisitionResult aData )
+    {
+      this.seqNo = aSeqNo;
+      this.data = aData;
+      this.annotations = new ArrayList<Annotation<?>>();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Boolean call() throws InterruptedException
+    {
+      decode();
+
+      for ( CaptureCondition condition : CaptureSession.this.conditions )
+      {
+        final SearchResult result = condition.evaluate( this.data );
+        if ( !result.isEmpty() )
+        {
+          conditionMet( this.seqNo, this.data, condition, result );
+          return Boolean.TRUE;
+        }
+      }
+      return Boolean.FALSE;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void clearAnnotations()
+    {
+      this.annotations.clear();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void clearAnnotations( final int aChannelIdx )
+    {
+      final Iterator<Annotation<?>> iter = this.annotations.iterator();
+      while ( iter.hasNext() )
+      {
+        if ( iter.next().getChannel() == aChannelIdx )
+        {
+          iter.remove();
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      this.annotations.add( aAnnotation );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      // NO-op
+    }
+
+    /**
+     * Runs all decoders of the session that have been set up on the capture,
+     * and keeps their annotations.
+     */
+    private void decode() throws InterruptedException
+    {
+      if ( CaptureSession.this.decoders.isEmpty() )
+      {
+        return;
+      }
+
+      final ToolContext context = new CaptureToolContext( this.data );
+      for ( HeadlessTool<?> decoder : CaptureSession.this.decoders )
+      {
+        final ToolTask<?> task = decoder.createConfiguredToolTask( context, this, this );
+        if ( task == null )
+        {
+          // Not set up yet...
+          continue;
+        }
+
+        try
+        {
+          task.call();
+        }
+        catch ( InterruptedException exception )
+        {
+          throw exception;
+        }
+        catch ( Exception exception )
+        {
+          LOG.log( Level.WARNING, "Decoding capture #" + this.seqNo + " with " + decoder.getName() + " failed!",
+              exception );
+        }
+      }
+
+      final List<Annotation<?>> result;
+      synchronized ( this )
+      {
+        result = new ArrayList<Annotation<?>>( this.annotations );
+      }
+      decoded( this.seqNo, result );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( CaptureSession.class.getName() );
+
+  // VARIABLES
+
+  private final CaptureHistory history;
+  private final List<CaptureCondition> conditions;
+  private final List<HeadlessTool<?>> decoders;
+  private final ExecutorService evaluator;
+
+  private volatile ConditionListener listener;
+  private volatile boolean active;
+  private volatile boolean conditionMet;
+  private volatile int captureCount;
+  private Future<Boolean> pendingEvaluation;
+  private int decodedSeqNo;
+  private List<Annotation<?>> decodedAnnotations;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureSession instance.
+   * 
+   * @param aHistory
+   *          the history to keep the captures in, cannot be <code>null</code>;
+   * @param aConditions
+   *          the conditions to stop the session on, cannot be
+   *          <code>null</code>. If empty, the session only stops when it is
+   *          stopped explicitly.
+   */
+  public CaptureSession( final CaptureHistory aHistory, final List<CaptureCondition> aConditions )
+  {
+    this( aHistory, aConditions, Collections.<HeadlessTool<?>> emptyList() );
+  }
+
+  /**
+   * Creates a new CaptureSession instance that also decodes each capture.
+   * 
+   * @param aHistory
+   *          the history to keep the captures in, cannot be <code>null</code>;
+   * @param aConditions
+   *          the conditions to stop the session on, cannot be
+   *          <code>null</code>. If empty, the session only stops when it is
+   *          stopped explicitly;
+   * @param aDecoders
+   *          the decoders to run on each capture, cannot be <code>null</code>.
+   *          Decoders that have not been set up yet are skipped.
+   */
+  public CaptureSession( final CaptureHistory aHistory, final List<CaptureCondition> aConditions,
+      final List<HeadlessTool<?>> aDecoders )
+  {
+    if ( ( aHistory == null ) || ( aConditions == null ) || ( aDecoders == null ) )
+    {
+      throw new IllegalArgumentException( "History, conditions and decoders cannot be null!" );
+    }
+
+    this.history = aHistory;
+    this.conditions = new ArrayList<CaptureCondition>( aConditions );
+    this.decoders = new ArrayList<HeadlessTool<?>>( aDecoders );
+    this.evaluator = Executors.newSingleThreadExecutor();
+  }
+
+  // METHODS
+
+  /**
+   * Adds a completed capture to this session, and starts evaluating the
+   * conditions on it in the background.
+   * <p>
+   * This method waits until the evaluation of the previous capture is
+   * finished.
+   * </p>
+   * 
+   * @param aData
+   *          the completed capture, cannot be <code>null</code>.
+   * @return <code>true</code> if this session is still active, and the next
+   *         capture should be started, <code>false</code> otherwise.
+   */
+  public boolean captureCompleted( final AcquisitionResult aData )
+  {
+    if ( !this.active )
+    {
+      return false;
+    }
+
+    try
+    {
+      awaitPendingEvaluation();
+
+      final int seqNo = this.history.add( aData );
+      this.captureCount++;
+
+      synchronized ( this )
+      {
+        if ( this.active && !( this.conditions.isEmpty() && this.decoders.isEmpty() ) )
+        {
+          this.pendingEvaluation = this.evaluator.submit( new Evaluation( seqNo, aData ) );
+        }
+      }
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      stop();
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Failed to add capture to history; stopping capture session!", exception );
+      stop();
+    }
+
+    return this.active;
+  }
+
+  /**
+   * Returns the number of captures completed in this session.
+   * 
+   * @return a capture count, &gt;= 0.
+   */
+  public int getCaptureCount()
+  {
+    return this.captureCount;
+  }
+
+  /**
+   * Returns the conditions of this session.
+   * 
+   * @return the conditions, never <code>null</code>.
+   */
+  public List<CaptureCondition> getConditions()
+  {
+    return Collections.unmodifiableList( this.conditions );
+  }
+
+  /**
+   * Returns the annotations the decoders of this session reported for the
+   * given capture.
+   * 
+   * @param aSeqNo
+   *          the sequence number of the capture in the history of this
+   *          session.
+   * @return the decoded annotations, never <code>null</code>. Empty if the
+   *         capture is not the most recently decoded capture.
+   */
+  public synchronized List<Annotation<?>> getDecodedAnnotations( final int aSeqNo )
+  {
+    if ( ( this.decodedAnnotations == null ) || ( this.decodedSeqNo != aSeqNo ) )
+    {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList( this.decodedAnnotations );
+  }
+
+  /**
+   * Returns the history of captures of this session.
+   * 
+   * @return the capture history, never <code>null</code>.
+   */
+  public CaptureHistory getHistory()
+  {
+    return this.history;
+  }
+
+  /**
+   * Returns whether this session is active.
+   * 
+   * @return <code>true</code> if this session is started and not yet stopped,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isActive()
+  {
+    return this.active;
+  }
+
+  /**
+   * Returns whether this session is stopped because one of its conditions
+   * holds.
+   * <p>
+   * This state is only changed while holding the lock of this session, so
+   * callers can synchronize on this session to act on it atomically.
+   * </p>
+   * 
+   * @return <code>true</code> if a condition holds, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isConditionMet()
+  {
+    return this.conditionMet;
+  }
+
+  /**
+   * Starts this session. A session can only be started once.
+   * 
+   * @param aListener
+   *          the listener to notify when a condition holds, cannot be
+   *          <code>null</code>.
+   * @throws IllegalStateException
+   *           in case this session was already stopped.
+   */
+  public void start( final ConditionListener aListener )
+  {
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+    if ( this.evaluator.isShutdown() )
+    {
+      throw new IllegalStateException( "Capture session already stopped!" );
+    }
+    this.listener = aListener;
+    this.conditionMet = false;
+    this.active = true;
+  }
+
+  /**
+   * Stops this session, and cancels the pending evaluation, if any. The
+   * history of this session remains available.
+   */
+  public synchronized void stop()
+  {
+    this.active = false;
+
+    if ( this.pendingEvaluation != null )
+    {
+      this.pendingEvaluation.cancel( true /* mayInterruptIfRunning */);
+      this.pendingEvaluation = null;
+    }
+    this.evaluator.shutdownNow();
+  }
+
+  /**
+   * Waits until the evaluation of the previous capture is finished.
+   */
+  private void awaitPendingEvaluation() throws InterruptedException
+  {
+    final Future<Boolean> pending;
+    synchronized ( this )
+    {
+      pending = this.pendingEvaluation;
+    }
+    if ( pending == null )
+    {
+      return;
+    }
+
+    try
+    {
+      pending.get();
+    }
+    catch ( CancellationException exception )
+    {
+      // Ignore; session is stopped...
+    }
+    catch ( ExecutionException exception )
+    {
+      LOG.log( Level.WARNING, "Evaluating capture session conditions failed!", exception.getCause() );
+    }
+  }
+
+  /**
+   * Stops this session, and notifies the listener that the given condition
+   * holds.
+   */
+  private void conditionMet( final int aSeqNo, final AcquisitionResult aData, final CaptureCondition aCondition,
+      final SearchResult aResult )
+  {
+    synchronized ( this )
+    {
+      if ( !this.active )
+      {
+        return;
+      }
+      this.active = false;
+      this.conditionMet = true;
+      this.pendingEvaluation = null;
+    }
+
+    // Do not interrupt ourselves...
+    this.evaluator.shutdown();
+
+    this.listener.conditionMet( this, aSeqNo, aData, aCondition, aResult );
+  }
+
+  /**
+   * Keeps the given annotations as the decoded annotations of the given
+   * capture.
+   */
+  private synchronized void decoded( final int aSeqNo, final List<Annotation<?>> aAnnotations )
+  {
+    this.decodedSeqNo = aSeqNo;
+    this.decodedAnnotations = aAnnotations;
+  }
+}
@@ -39,6 +39,7 @@ import nl.lxtreme.ols.api.data.annotation.Annotation;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.data.export.*;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.api.ui.*;
@@ -61,7 +62,7 @@ import org.osgi.service.cm.*;
  * Denotes a front-end controller for the client.
  */
 public final class ClientController implements ActionProvider, AcquisitionProgressListener, AcquisitionStatusListener,
-    AcquisitionDataListener, AnnotationListener, ApplicationCallback
+    AcquisitionDataListener, AnnotationListener, ApplicationCallback, CaptureSession.ConditionListener
 {
   // INNER TYPES
 
@@ -247,6 +248,29 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     {
       return this.startSampleIdx;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResultView getWindowedData()
+    {
+      return getWindowedData( 0xFFFFFFFF );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public AcquisitionResultView getWindowedData( final int aChannelMask )
+    {
+      final AcquisitionResult data = getData();
+      if ( data == null )
+      {
+        return null;
+      }
+      return new AcquisitionResultView( data, this.startSampleIdx, this.endSampleIdx, aChannelMask );
+    }
   }
 
   /**
@@ -267,6 +291,81 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Provides a {@link SwingWorker} that saves a project in the background, and
+   * reports the outcome on the EDT.
+   */
+  final class ProjectSaveWorker extends SwingWorker<Void, Void>
+  {
+    // VARIABLES
+
+    private final String name;
+    private final OutputStream output;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ProjectSaveWorker} instance.
+     * 
+     * @param aName
+     *          the name of the project being saved;
+     * @param aOutput
+     *          the output to save the project to, is closed afterwards.
+     */
+    public ProjectSaveWorker( final String aName, final OutputStream aOutput )
+    {
+      this.name = aName;
+      this.output = aOutput;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Void doInBackground() throws Exception
+    {
+      ClientController.this.projectManager.saveProject( this.output );
+      return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      try
+      {
+        get();
+
+        setStatusOnEDT( "Project {0} saved ...", this.name );
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        final Throwable cause = exception.getCause();
+
+        setStatusOnEDT( "Saving project {0} failed!", this.name );
+
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !( cause instanceof IOException ) || !HostUtils.handleInterruptedException( ( IOException )cause ) )
+        {
+          LOG.log( Level.WARNING, "Saving OLS project failed!", cause );
+          JErrorDialog.showDialog( getMainFrame(), "Saving the project data failed!", cause );
+        }
+      }
+      finally
+      {
+        updateActionsOnEDT();
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( ClientController.class.getName() );
@@ -280,6 +379,7 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   private final ConcurrentMap<String, Device> devices;
   private final ConcurrentMap<String, Tool<?>> tools;
   private final ConcurrentMap<String, Exporter> exporters;
+  private final ConcurrentMap<String, Importer> importers;
 
   private final ProgressUpdatingRunnable progressAccumulatingRunnable;
   private final AccumulatingRepaintingRunnable repaintAccumulatingRunnable;
@@ -291,6 +391,7 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   private volatile UIColorSchemeManager colorSchemeManager;
 
   private volatile long acquisitionStartTime;
+  private volatile CaptureSession captureSession;
 
   // CONSTRUCTORS
 
@@ -311,6 +412,7 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     this.devices = new ConcurrentHashMap<String, Device>();
     this.tools = new ConcurrentHashMap<String, Tool<?>>();
     this.exporters = new ConcurrentHashMap<String, Exporter>();
+    this.importers = new ConcurrentHashMap<String, Importer>();
 
     this.actionManager = new ActionManager();
 
@@ -339,9 +441,30 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   @Override
   public void acquisitionComplete( final AcquisitionResult aData )
   {
+    final CaptureSession session = this.captureSession;
     try
     {
-      getCurrentProject().setCapturedData( aData );
+      if ( session == null )
+      {
+        getCurrentProject().setCapturedData( aData );
+        return;
+      }
+
+      // Check and swap while holding the session lock, so the condition of
+      // the session cannot be met in between...
+      synchronized ( session )
+      {
+        if ( session.isConditionMet() )
+        {
+          // Keep showing the capture for which the condition of the session
+          // holds...
+          return;
+        }
+
+        getCurrentProject().setCapturedData( aData );
+      }
+
+      session.captureCompleted( aData );
     }
     catch ( Exception exception )
     {
@@ -359,6 +482,15 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   @Override
   public void acquisitionEnded( final AcquisitionResultStatus aStatus )
   {
+    final CaptureSession session = this.captureSession;
+    if ( ( session != null ) && session.isConditionMet() && aStatus.isAborted() )
+    {
+      // The capture in progress is cancelled because the condition of the
+      // capture session holds; keep the status of the capture session...
+      updateActionsOnEDT();
+      return;
+    }
+
     if ( aStatus.isAborted() )
     {
       setStatusOnEDT( "Capture aborted! {0}", aStatus.getMessage() );
@@ -375,6 +507,22 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
           UnitOfTime.format( time / 1.0e3 ) );
     }
 
+    if ( ( session != null ) && session.isActive() )
+    {
+      if ( aStatus.isAborted() || aStatus.isFailed() )
+      {
+        session.stop();
+      }
+      else
+      {
+        // Start the next capture while the conditions are evaluated...
+        repeatCaptureData();
+
+        setStatusOnEDT( "Capture session: {0} capture(s) done, no condition met (yet) ...",
+            Integer.valueOf( session.getCaptureCount() ) );
+      }
+    }
+
     updateActionsOnEDT();
   }
 
@@ -432,6 +580,23 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Adds a given importer to this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   * 
+   * @param aImporter
+   *          the importer to add, cannot be <code>null</code>.
+   */
+  public void addImporter( final Importer aImporter )
+  {
+    if ( this.importers.putIfAbsent( aImporter.getName(), aImporter ) == null )
+    {
+      this.actionManager.add( new ImportAction( this, aImporter.getName() ) );
+    }
+  }
+
   /**
    * Adds the given component provider to this controller, and does this
    * synchronously on the EDT.
@@ -554,6 +719,13 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
 
       return false;
     }
+    catch ( IllegalStateException exception )
+    {
+      // Lazily loaded devices might not be available after all...
+      JOptionPane.showMessageDialog( aParent, exception.getMessage(), "Error ...", JOptionPane.ERROR_MESSAGE );
+
+      return false;
+    }
     finally
     {
       updateActionsOnEDT();
@@ -586,6 +758,44 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     repaintMainFrame();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void conditionMet( final CaptureSession aSession, final int aSeqNo, final AcquisitionResult aData,
+      final CaptureCondition aCondition, final SearchResult aResult )
+  {
+    final DataAcquisitionService acquisitionService = getDataAcquisitionService();
+    if ( ( acquisitionService != null ) && acquisitionService.isAcquiring() )
+    {
+      cancelCapture();
+    }
+
+    try
+    {
+      synchronized ( aSession )
+      {
+        if ( getCurrentDataSet().getCapturedData() != aData )
+        {
+          getCurrentProject().setCapturedData( aData );
+        }
+      }
+
+      // Show what the decoders of the session found in this capture...
+      for ( Annotation<?> annotation : aSession.getDecodedAnnotations( aSeqNo ) )
+      {
+        onAnnotation( annotation );
+      }
+
+      setStatusOnEDT( "Capture session stopped: {0} found {1} time(s) in capture #{2}.", aCondition,
+          Integer.valueOf( aResult.size() ), Integer.valueOf( aSeqNo ) );
+    }
+    finally
+    {
+      updateActionsOnEDT();
+    }
+  }
+
   /**
    * Creates a new project, causing all current data to be thrown away.
    */
@@ -674,6 +884,70 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Imports the data of a stream into a new, temporary project using an
+   * {@link Importer} with a given name.
+   * <p>
+   * The current project is left untouched, so this method can be called from
+   * a background thread; use {@link #setImportedData(Project, String)} on the
+   * EDT to take over the imported data.
+   * </p>
+   * 
+   * @param aImporterName
+   *          the name of the importer to use, cannot be <code>null</code>;
+   * @param aInput
+   *          the stream to import the data from, cannot be <code>null</code>.
+   *          This stream is <em>not</em> closed by this method.
+   * @return the project holding the imported data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems during the import.
+   */
+  public Project importFrom( final String aImporterName, final InputStream aInput ) throws IOException
+  {
+    final Importer importer = getImporter( aImporterName );
+    if ( importer == null )
+    {
+      throw new IOException( "Importer '" + aImporterName + "' is not available!" );
+    }
+
+    final Project project = this.projectManager.createTemporaryProject();
+    importer.importData( project, aInput );
+    return project;
+  }
+
+  /**
+   * Takes over the captured data and channel labels of an imported project,
+   * as returned by {@link #importFrom(String, InputStream)}, into the current
+   * project. Should be called on the EDT.
+   * 
+   * @param aImported
+   *          the project holding the imported data, cannot be
+   *          <code>null</code>;
+   * @param aSourceName
+   *          the name of the source the data was imported from, used in the
+   *          status message.
+   */
+  public void setImportedData( final Project aImported, final String aSourceName )
+  {
+    final DataSet imported = aImported.getDataSet();
+
+    final Project project = getCurrentProject();
+    project.setCapturedData( imported.getCapturedData() );
+
+    final DataSet dataSet = project.getDataSet();
+    final Channel[] channels = imported.getChannels();
+    for ( int i = 0; i < channels.length; i++ )
+    {
+      if ( ( channels[i] != null ) && channels[i].hasName() )
+      {
+        dataSet.getChannel( i ).setLabel( channels[i].getLabel() );
+      }
+    }
+
+    setStatusOnEDT( "Capture data imported from {0} ...", aSourceName );
+    updateActionsOnEDT();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -683,6 +957,17 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.actionManager.getAction( aID );
   }
 
+  /**
+   * Returns the current (or last) capture session.
+   * 
+   * @return the capture session, can be <code>null</code> if no capture
+   *         session is started yet.
+   */
+  public CaptureSession getCaptureSession()
+  {
+    return this.captureSession;
+  }
+
   /**
    * Provides direct access to the cursor with the given index.
    * 
@@ -777,6 +1062,52 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return exporter.getFilenameExtentions();
   }
 
+  /**
+   * Returns the importer with the given name.
+   * 
+   * @param aName
+   *          the name of the importer to return, cannot be <code>null</code>.
+   * @return the importer, or <code>null</code> if no such importer exists.
+   */
+  public Importer getImporter( final String aName )
+  {
+    return this.importers.get( aName );
+  }
+
+  /**
+   * Returns all available importers.
+   * 
+   * @return an array of importer names, never <code>null</code>, but an empty
+   *         array is possible.
+   */
+  public String[] getImporterNames()
+  {
+    List<String> result = new ArrayList<String>( this.importers.keySet() );
+    // Make sure we've got a predictable order of names...
+    Collections.sort( result );
+
+    return result.toArray( new String[result.size()] );
+  }
+
+  /**
+   * Returns the supported import extensions for the importer with the given
+   * name.
+   * 
+   * @param aImporterName
+   *          the name of the importer to get the possible file extensions for,
+   *          cannot be <code>null</code>.
+   * @return an array of supported file extensions, never <code>null</code>.
+   */
+  public String[] getImportExtensions( final String aImporterName )
+  {
+    final Importer importer = getImporter( aImporterName );
+    if ( importer == null )
+    {
+      return new String[0];
+    }
+    return importer.getFilenameExtentions();
+  }
+
   /**
    * Returns the current host properties.
    * 
@@ -808,6 +1139,26 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.signalDiagramController;
   }
 
+  /**
+   * Returns all available tools that can run without user interaction.
+   * 
+   * @return a list of headless tools, never <code>null</code>, but an empty
+   *         list is possible.
+   */
+  public List<HeadlessTool<?>> getHeadlessTools()
+  {
+    final List<HeadlessTool<?>> result = new ArrayList<HeadlessTool<?>>();
+    for ( String name : getToolNames() )
+    {
+      final Tool<?> tool = getTool( name );
+      if ( tool instanceof HeadlessTool<?> )
+      {
+        result.add( ( HeadlessTool<?> )tool );
+      }
+    }
+    return result;
+  }
+
   /**
    * Returns all available tools.
    * 
@@ -914,13 +1265,33 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
     else
     {
-      final ToolContext context = createToolContext();
-      tool.invoke( aParent, context );
+      try
+      {
+        final ToolContext context = createToolContext();
+        tool.invoke( aParent, context );
+      }
+      catch ( IllegalStateException exception )
+      {
+        // Lazily loaded tools might not be available after all...
+        JOptionPane.showMessageDialog( aParent, exception.getMessage(), "Error ...", JOptionPane.ERROR_MESSAGE );
+      }
     }
 
     updateActionsOnEDT();
   }
 
+  /**
+   * Returns whether a capture session is active.
+   * 
+   * @return <code>true</code> if a capture session is active,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isCaptureSessionActive()
+  {
+    final CaptureSession session = this.captureSession;
+    return ( session != null ) && session.isActive();
+  }
+
   /**
    * Returns whether or not a device is selected.
    * 
@@ -1084,6 +1455,35 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Removes a given importer from this controller.
+   * <p>
+   * This method is called by the dependency manager.
+   * </p>
+   * 
+   * @param aImporter
+   *          the importer to remove, cannot be <code>null</code>.
+   */
+  public void removeImporter( final Importer aImporter )
+  {
+    synchronized ( this.importers )
+    {
+      final String importerName = aImporter.getName();
+
+      this.importers.remove( importerName );
+
+      try
+      {
+        IManagedAction action = this.actionManager.getAction( ImportAction.getID( importerName ) );
+        this.actionManager.remove( action );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        LOG.log( Level.FINE, "No action for importer {}?!", importerName );
+      }
+    }
+  }
+
   /**
    * Removes the given component provider from this controller, and does this
    * synchronously on the EDT.
@@ -1206,32 +1606,30 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
   /**
    * Stores the current acquisition data to the given file, in the OLS-project
    * file format.
+   * <p>
+   * The project is written in the background; any errors during writing are
+   * reported once the project is written.
+   * </p>
    * 
    * @param aName
    *          the name of the project to store, cannot be <code>null</code>;
    * @param aFile
    *          the file to write the data to, cannot be <code>null</code>.
    * @throws IOException
-   *           in case of errors during opening/writing to the file.
+   *           in case of errors during opening the file.
    */
   public void saveProjectFile( final String aName, final File aFile ) throws IOException
   {
-    FileOutputStream out = null;
-    try
-    {
-      final Project project = getCurrentProject();
-      project.setFilename( aFile );
-      project.setName( aName );
+    final Project project = getCurrentProject();
+    project.setFilename( aFile );
+    project.setName( aName );
 
-      out = new FileOutputStream( aFile );
-      this.projectManager.saveProject( out );
+    final FileOutputStream out = new FileOutputStream( aFile );
 
-      setStatusOnEDT( "Project {0} saved ...", aName );
-    }
-    finally
-    {
-      HostUtils.closeResource( out );
-    }
+    setStatusOnEDT( "Saving project {0} ...", aName );
+
+    // Closes the output stream when done...
+    new ProjectSaveWorker( aName, out ).execute();
   }
 
   /**
@@ -1251,6 +1649,20 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     updateActionsOnEDT();
   }
 
+  /**
+   * Uses the current captured data as baseline, to which later captures can be
+   * compared.
+   */
+  public void setCompareBaseline()
+  {
+    if ( getSignalDiagramController().setCompareBaseline() )
+    {
+      setStatusOnEDT( "Current capture is used as baseline for comparing captures." );
+    }
+
+    updateActionsOnEDT();
+  }
+
   /**
    * Shows the "about OLS" dialog on screen. the parent window to use, can be
    * <code>null</code>.
@@ -1278,6 +1690,36 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Shows a capture from the history of the current capture session.
+   * 
+   * @param aIndex
+   *          the index of the capture in the history, with 0 being the oldest.
+   * @throws IOException
+   *           in case reading a capture from disk failed.
+   */
+  public void showCaptureFromHistory( final int aIndex ) throws IOException
+  {
+    final CaptureSession session = this.captureSession;
+    if ( ( session == null ) || session.isActive() )
+    {
+      return;
+    }
+
+    try
+    {
+      final CaptureHistory history = session.getHistory();
+      getCurrentProject().setCapturedData( history.get( aIndex ) );
+
+      setStatusOnEDT( "Showing capture #{0} of the capture session ...",
+          Integer.valueOf( history.getSequenceNumber( aIndex ) ) );
+    }
+    finally
+    {
+      updateActionsOnEDT();
+    }
+  }
+
   /**
    * Shows the global preferences dialog.
    * 
@@ -1353,15 +1795,52 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     } );
   }
 
+  /**
+   * Starts a capture session, which repeats captures with the current device
+   * and its current settings until one of the conditions of the session holds.
+   * Any previous capture session is stopped, and its history is discarded.
+   * 
+   * @param aSession
+   *          the capture session to start, cannot be <code>null</code>.
+   */
+  public void startCaptureSession( final CaptureSession aSession )
+  {
+    final CaptureSession old = this.captureSession;
+    if ( old != null )
+    {
+      old.stop();
+      if ( !old.getHistory().clear() )
+      {
+        LOG.warning( "Failed to delete all spilled captures of previous capture session!" );
+      }
+    }
+
+    this.captureSession = aSession;
+    aSession.start( this );
+
+    repeatCaptureData();
+  }
+
   /**
    * Called by the dependency manager when this component is about to be
    * stopped.
    */
   public final void stop()
   {
+    final CaptureSession session = this.captureSession;
+    if ( session != null )
+    {
+      session.stop();
+      if ( !session.getHistory().clear() )
+      {
+        LOG.warning( "Failed to delete all spilled captures of capture session!" );
+      }
+    }
+
     this.devices.clear();
     this.tools.clear();
     this.exporters.clear();
+    this.importers.clear();
 
     // Make sure we're running on the EDT to ensure the Swing threading model is
     // correctly defined...
@@ -1396,6 +1875,30 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     } );
   }
 
+  /**
+   * Stops the current capture session, if any, and cancels the capture in
+   * progress. The history of the capture session remains available.
+   */
+  public void stopCaptureSession()
+  {
+    final CaptureSession session = this.captureSession;
+    if ( ( session == null ) || !session.isActive() )
+    {
+      return;
+    }
+
+    session.stop();
+
+    final DataAcquisitionService acquisitionService = getDataAcquisitionService();
+    if ( ( acquisitionService != null ) && acquisitionService.isAcquiring() )
+    {
+      cancelCapture();
+    }
+
+    setStatusOnEDT( "Capture session stopped after {0} capture(s).", Integer.valueOf( session.getCaptureCount() ) );
+    updateActionsOnEDT();
+  }
+
   /**
    * Returns the current data set.
    * 
@@ -1585,6 +2088,15 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing );
         getAction( RepeatCaptureAction.ID ).setEnabled( deviceSetup );
 
+        final CaptureSession session = ClientController.this.captureSession;
+        final boolean sessionActive = ( session != null ) && session.isActive();
+        final boolean historyAvailable = ( session != null ) && ( session.getHistory().size() > 0 );
+
+        getAction( CaptureSessionAction.ID ).setEnabled( deviceSetup || sessionActive );
+        getAction( CaptureSessionAction.ID ).putValue( Action.NAME,
+            sessionActive ? CaptureSessionAction.STOP_NAME : CaptureSessionAction.START_NAME );
+        getAction( ShowCaptureHistoryAction.ID ).setEnabled( !sessionActive && historyAvailable );
+
         final boolean projectChanged = isProjectChanged();
         final boolean projectSavedBefore = !isAnonymousProject();
         final boolean dataAvailable = hasCapturedData();
@@ -1604,6 +2116,9 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
 
         getAction( SmartJumpAction.getJumpLeftID() ).setEnabled( dataAvailable );
         getAction( SmartJumpAction.getJumpRightID() ).setEnabled( dataAvailable );
+        getAction( SearchPatternAction.ID ).setEnabled( dataAvailable );
+        getAction( SetCompareBaselineAction.ID ).setEnabled( dataAvailable );
+        getAction( CompareCaptureAction.ID ).setEnabled( dataAvailable && hasCompareBaseline() );
 
         boolean anyCursorSet = false;
         for ( int c = 0; c < Ols.MAX_CURSORS; c++ )
@@ -1673,6 +2188,17 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     return this.actionManager.getActionByType( aActionType );
   }
 
+  /**
+   * Returns whether or not there is a baseline capture to compare with.
+   * 
+   * @return <code>true</code> if there is a baseline capture,
+   *         <code>false</code> otherwise.
+   */
+  protected boolean hasCompareBaseline()
+  {
+    return getSignalDiagramController().getSignalDiagramModel().getCompareBaseline() != null;
+  }
+
   /**
    * Returns whether or not there is trigger data available.
    * 
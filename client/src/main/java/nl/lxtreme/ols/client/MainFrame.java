@@ -399,6 +399,47 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     }
   }
 
+  /**
+   * Provides a builder for building the import menu upon selection of the menu.
+   */
+  static class ImportMenuBuilder extends AbstractMenuBuilder
+  {
+    /**
+     * Creates a new MainFrame.ImportMenuBuilder instance.
+     */
+    public ImportMenuBuilder( final ClientController aController )
+    {
+      super( aController );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected JMenuItem createMenuItem( final String aImporterName )
+    {
+      return new JMenuItem( new ImportAction( this.controller, aImporterName ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String[] getMenuItemNames()
+    {
+      return this.controller.getImporterNames();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected String getNoItemsName()
+    {
+      return "No importers.";
+    }
+  }
+
   /**
    * Listens to window-close events for our main frame, explicitly invoking code
    * to close it on all platforms.
@@ -762,6 +803,7 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
   private JMenu deviceMenu;
   private JMenu toolsMenu;
   private JMenu windowMenu;
+  private JMenu importMenu;
   private JMenu exportMenu;
   private JMenu cursorsMenu;
 
@@ -979,6 +1021,10 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     final JMenuBar bar = new JMenuBar();
     setJMenuBar( bar );
 
+    this.importMenu = new JMenu( "Import ..." );
+    this.importMenu.setMnemonic( 'i' );
+    this.importMenu.addMenuListener( new ImportMenuBuilder( this.controller ) );
+
     this.exportMenu = new JMenu( "Export ..." );
     this.exportMenu.setMnemonic( 'e' );
     this.exportMenu.addMenuListener( new ExportMenuBuilder( this.controller ) );
@@ -995,6 +1041,7 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     fileMenu.add( this.controller.getAction( OpenDataFileAction.ID ) );
     fileMenu.add( this.controller.getAction( SaveDataFileAction.ID ) );
     fileMenu.addSeparator();
+    fileMenu.add( this.importMenu );
     fileMenu.add( this.exportMenu );
 
     final HostInfo hostInfo = HostUtils.getHostInfo();
@@ -1022,6 +1069,9 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     captureMenu.add( this.controller.getAction( RepeatCaptureAction.ID ) );
     captureMenu.add( this.controller.getAction( CancelCaptureAction.ID ) );
     captureMenu.addSeparator();
+    captureMenu.add( this.controller.getAction( CaptureSessionAction.ID ) );
+    captureMenu.add( this.controller.getAction( ShowCaptureHistoryAction.ID ) );
+    captureMenu.addSeparator();
     captureMenu.add( this.deviceMenu );
 
     final JMenu diagramMenu = bar.add( new JMenu( "Diagram" ) );
@@ -1033,6 +1083,7 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
     diagramMenu.add( this.controller.getAction( ZoomAllAction.ID ) );
     diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( GotoTriggerAction.ID ) );
+    diagramMenu.add( this.controller.getAction( SearchPatternAction.ID ) );
     diagramMenu.addSeparator();
     diagramMenu.add( new JCheckBoxMenuItem( this.controller.getAction( SetCursorModeAction.ID ) ) );
     diagramMenu.add( new JCheckBoxMenuItem( this.controller.getAction( SetCursorSnapModeAction.ID ) ) );
@@ -1047,6 +1098,9 @@ public final class MainFrame extends JFrame implements Closeable, PropertyChange
 
     diagramMenu.addSeparator();
     diagramMenu.add( this.controller.getAction( RemoveAnnotationsAction.ID ) );
+    diagramMenu.addSeparator();
+    diagramMenu.add( this.controller.getAction( SetCompareBaselineAction.ID ) );
+    diagramMenu.add( this.controller.getAction( CompareCaptureAction.ID ) );
 
     this.toolsMenu = bar.add( new JMenu( "Tools" ) );
     this.toolsMenu.setMnemonic( 'T' );
@@ -21,6 +21,8 @@
 package nl.lxtreme.ols.client.action;
 
 
+import java.awt.*;
+
 import javax.swing.*;
 
 import nl.lxtreme.ols.client.*;
@@ -149,6 +151,24 @@ public abstract class BaseAction extends AbstractAction implements IconLocator,
   {
     return this.controller;
   }
+
+  /**
+   * Shows or hides the wait cursor on the given window, for actions that
+   * continue their work in the background.
+   * 
+   * @param aOwner
+   *          the window to show the wait cursor on, can be <code>null</code>;
+   * @param aWait
+   *          <code>true</code> to show the wait cursor, <code>false</code> to
+   *          restore the default cursor.
+   */
+  protected static void setWaitCursor( final Window aOwner, final boolean aWait )
+  {
+    if ( aOwner != null )
+    {
+      aOwner.setCursor( aWait ? Cursor.getPredefinedCursor( Cursor.WAIT_CURSOR ) : null );
+    }
+  }
 }
 
 /* EOF */
@@ -0,0 +1,251 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.data.search.CaptureSearch.PulseCondition;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Starts a capture session, which repeats captures with the current settings
+ * until a condition holds, or stops the current capture session.
+ */
+public class CaptureSessionAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOG = Logger.getLogger( CaptureSessionAction.class.getName() );
+
+  public static final String ID = "CaptureSession";
+
+  public static final String START_NAME = "Start capture session ...";
+  public static final String STOP_NAME = "Stop capture session";
+
+  private static final String[] CONDITION_TYPES = { "None (stop manually)", "Pattern", "Pulse width" };
+  private static final String[] PULSE_LEVELS = { "High", "Low" };
+  private static final String[] PULSE_CONDITIONS = { "Longer than", "Shorter than" };
+
+  // VARIABLES
+
+  private int lastConditionType = 0;
+  private String lastPattern = "";
+  private int lastChannel = 0;
+  private int lastPulseLevel = 0;
+  private int lastPulseCondition = 0;
+  private String lastPulseWidth = "";
+  private int lastMaxCaptures = 20;
+  private int lastMemoryBudget = 256;
+  private boolean lastSpill = false;
+  private boolean lastDecode = false;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CaptureSessionAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public CaptureSessionAction( final ClientController aController )
+  {
+    super( ID, aController, START_NAME,
+        "Repeats captures with the current device settings until a condition is met in one of them." );
+  }
+
+  // METHODS
+
+  /**
+   * Creates a temporary directory to spill captures to. This directory is
+   * deleted when the history of the capture session is cleared.
+   */
+  private static File createSpillDirectory() throws IOException
+  {
+    final File dir = File.createTempFile( "ols-capture-session", "" );
+    if ( !dir.delete() || !dir.mkdir() )
+    {
+      throw new IOException( "Failed to create directory: " + dir );
+    }
+    return dir;
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final ClientController controller = getController();
+    if ( controller.isCaptureSessionActive() )
+    {
+      controller.stopCaptureSession();
+      return;
+    }
+
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    if ( !controller.isDeviceSelected() || !controller.isDeviceSetup() )
+    {
+      JOptionPane.showMessageDialog( owner, "Capturing device is not setup!", "Capture error",
+          JOptionPane.ERROR_MESSAGE );
+      return;
+    }
+
+    final JComboBox conditionType = new JComboBox( CONDITION_TYPES );
+    conditionType.setSelectedIndex( this.lastConditionType );
+    final JTextField pattern = new JTextField( this.lastPattern, 20 );
+    final JSpinner channel = new JSpinner( new SpinnerNumberModel( this.lastChannel, 0, Ols.MAX_CHANNELS - 1, 1 ) );
+    final JComboBox pulseLevel = new JComboBox( PULSE_LEVELS );
+    pulseLevel.setSelectedIndex( this.lastPulseLevel );
+    final JComboBox pulseCondition = new JComboBox( PULSE_CONDITIONS );
+    pulseCondition.setSelectedIndex( this.lastPulseCondition );
+    final JTextField pulseWidth = new JTextField( this.lastPulseWidth, 10 );
+    final JSpinner maxCaptures = new JSpinner( new SpinnerNumberModel( this.lastMaxCaptures, 1, 10000, 1 ) );
+    final JSpinner memoryBudget = new JSpinner( new SpinnerNumberModel( this.lastMemoryBudget, 1, 65536, 16 ) );
+    final JCheckBox spill = new JCheckBox( "", this.lastSpill );
+    final JCheckBox decode = new JCheckBox( "", this.lastDecode );
+    decode.setToolTipText( "Decodes each capture with the decoders that support it, using their last used settings." );
+
+    final JPanel panel = new JPanel( new SpringLayout() );
+
+    SpringLayoutUtils.addSeparator( panel, "Stop condition" );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Stop when:" ) );
+    panel.add( conditionType );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Pattern (0, 1 or X):" ) );
+    panel.add( pattern );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Pulse channel:" ) );
+    panel.add( channel );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Pulse level:" ) );
+    panel.add( pulseLevel );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Pulse width is:" ) );
+    panel.add( pulseCondition );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Pulse width (samples):" ) );
+    panel.add( pulseWidth );
+
+    SpringLayoutUtils.addSeparator( panel, "History" );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Captures to keep:" ) );
+    panel.add( maxCaptures );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Memory budget (MB):" ) );
+    panel.add( memoryBudget );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Keep older captures on disk:" ) );
+    panel.add( spill );
+
+    SpringLayoutUtils.addSeparator( panel, "Decoding" );
+
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Run last used decoders:" ) );
+    panel.add( decode );
+
+    SpringLayoutUtils.makeEditorGrid( panel, 10, 10 );
+
+    final int option = JOptionPane.showConfirmDialog( owner, panel, "Capture session",
+        JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE );
+    if ( option != JOptionPane.OK_OPTION )
+    {
+      // Cancelled...
+      return;
+    }
+
+    this.lastConditionType = conditionType.getSelectedIndex();
+    this.lastPattern = pattern.getText();
+    this.lastChannel = ( ( Number )channel.getValue() ).intValue();
+    this.lastPulseLevel = pulseLevel.getSelectedIndex();
+    this.lastPulseCondition = pulseCondition.getSelectedIndex();
+    this.lastPulseWidth = pulseWidth.getText();
+    this.lastMaxCaptures = ( ( Number )maxCaptures.getValue() ).intValue();
+    this.lastMemoryBudget = ( ( Number )memoryBudget.getValue() ).intValue();
+    this.lastSpill = spill.isSelected();
+    this.lastDecode = decode.isSelected();
+
+    final List<CaptureCondition> conditions = new ArrayList<CaptureCondition>();
+    if ( this.lastConditionType == 1 )
+    {
+      final int[] maskAndPattern = SearchPatternAction.parsePattern( this.lastPattern );
+      if ( maskAndPattern == null )
+      {
+        JOptionPane.showMessageDialog( owner, "Invalid pattern: " + this.lastPattern, "Error ...",
+            JOptionPane.ERROR_MESSAGE );
+        return;
+      }
+      conditions.add( CaptureCondition.pattern( maskAndPattern[0], maskAndPattern[1] ) );
+    }
+    else if ( this.lastConditionType == 2 )
+    {
+      final long width;
+      try
+      {
+        width = Long.parseLong( this.lastPulseWidth.trim() );
+      }
+      catch ( NumberFormatException exception )
+      {
+        JOptionPane.showMessageDialog( owner, "Invalid pulse width: " + this.lastPulseWidth, "Error ...",
+            JOptionPane.ERROR_MESSAGE );
+        return;
+      }
+      conditions.add( CaptureCondition.pulseWidth( this.lastChannel, this.lastPulseLevel == 0,
+          ( this.lastPulseCondition == 0 ) ? PulseCondition.LONGER_THAN : PulseCondition.SHORTER_THAN, width ) );
+    }
+
+    try
+    {
+      final File spillDir = this.lastSpill ? createSpillDirectory() : null;
+      final CaptureHistory history = new CaptureHistory( this.lastMaxCaptures, this.lastMemoryBudget * 1024L * 1024L,
+          spillDir );
+
+      final List<HeadlessTool<?>> decoders = this.lastDecode ? controller.getHeadlessTools()
+          : Collections.<HeadlessTool<?>> emptyList();
+
+      controller.startCaptureSession( new CaptureSession( history, conditions, decoders ) );
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Starting capture session failed!", exception );
+      JErrorDialog.showDialog( owner, "Starting the capture session failed!", exception );
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,296 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.data.search.CaptureDiff.Alignment;
+import nl.lxtreme.ols.api.util.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.client.signaldisplay.*;
+import nl.lxtreme.ols.client.signaldisplay.model.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Compares the current captured data with the baseline capture, marks the
+ * differences in the signal view and shows a summary of them.
+ */
+public class CompareCaptureAction extends BaseAction
+{
+  // INNER TYPES
+
+  /**
+   * Provides a {@link SwingWorker} to compare the captured data with the
+   * baseline capture asynchronously from the UI.
+   */
+  final class CompareWorker extends SwingWorker<CaptureDifferences, Void>
+  {
+    // VARIABLES
+
+    private final Window owner;
+    private final AcquisitionResult data;
+    private final AcquisitionResult baseline;
+    private final Alignment alignment;
+    private final int alignChannelIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link CompareWorker} instance.
+     * 
+     * @param aOwner
+     *          the window to report the outcome in;
+     * @param aData
+     *          the captured data to compare;
+     * @param aBaseline
+     *          the baseline capture to compare with;
+     * @param aAlignment
+     *          how to align both captures;
+     * @param aAlignChannelIdx
+     *          the index of the channel to align on, only used when aligning
+     *          on a channel edge.
+     */
+    public CompareWorker( final Window aOwner, final AcquisitionResult aData, final AcquisitionResult aBaseline,
+        final Alignment aAlignment, final int aAlignChannelIdx )
+    {
+      this.owner = aOwner;
+      this.data = aData;
+      this.baseline = aBaseline;
+      this.alignment = aAlignment;
+      this.alignChannelIdx = aAlignChannelIdx;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected CaptureDifferences doInBackground() throws Exception
+    {
+      return new CaptureDiff( this.data, this.baseline ).compare( this.alignment, this.alignChannelIdx,
+          this.data.getEnabledChannels() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( CompareCaptureAction.this.worker == this )
+      {
+        CompareCaptureAction.this.worker = null;
+        setWaitCursor( this.owner, false );
+      }
+
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      try
+      {
+        final CaptureDifferences differences = get();
+
+        final SignalDiagramController controller = getController().getSignalDiagramController();
+        if ( controller.showDifferences( this.data, differences ) )
+        {
+          JOptionPane.showMessageDialog( this.owner,
+              createSummary( differences, controller.getSignalDiagramModel().getSampleRate() ),
+              "Compare with baseline", JOptionPane.INFORMATION_MESSAGE );
+        }
+      }
+      catch ( InterruptedException exception )
+      {
+        // Restore the interrupted status...
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        final Throwable cause = exception.getCause();
+        if ( cause instanceof IllegalArgumentException )
+        {
+          // Both captures cannot be compared or aligned...
+          JOptionPane.showMessageDialog( this.owner, cause.getMessage(), "Error ...", JOptionPane.ERROR_MESSAGE );
+        }
+        else
+        {
+          LOG.log( Level.WARNING, "Comparing with the baseline capture failed!", cause );
+          JErrorDialog.showDialog( this.owner, "Comparing with the baseline capture failed!", cause );
+        }
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "CompareCapture";
+
+  private static final String[] ALIGNMENT_OPTIONS = { "Trigger", "Edge of selected channel", "None", "Cancel" };
+
+  private static final Logger LOG = Logger.getLogger( CompareCaptureAction.class.getName() );
+
+  // VARIABLES
+
+  private transient CompareWorker worker;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CompareCaptureAction instance.
+   *
+   * @param aController
+   *          the controller to use.
+   */
+  public CompareCaptureAction( final ClientController aController )
+  {
+    super( ID, aController, "Compare with baseline ...",
+        "Compares the current capture with the baseline capture; use META+left/right to navigate the differences." );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final int option = JOptionPane.showOptionDialog( owner, "Align the current and baseline capture on:",
+        "Compare with baseline", JOptionPane.DEFAULT_OPTION, JOptionPane.QUESTION_MESSAGE, null,
+        ALIGNMENT_OPTIONS, ALIGNMENT_OPTIONS[0] );
+
+    final Alignment alignment;
+    switch ( option )
+    {
+      case 0:
+        alignment = Alignment.TRIGGER;
+        break;
+      case 1:
+        alignment = Alignment.CHANNEL_EDGE;
+        break;
+      case 2:
+        alignment = Alignment.NONE;
+        break;
+      default:
+        // Cancelled...
+        return;
+    }
+
+    final SignalDiagramController controller = getController().getSignalDiagramController();
+    final SignalDiagramModel model = controller.getSignalDiagramModel();
+
+    final int channelIdx = Math.max( 0, model.getSelectedChannelIndex() );
+
+    if ( this.worker != null )
+    {
+      // Only the last comparison is of interest...
+      this.worker.cancel( true /* mayInterruptIfRunning */);
+      this.worker = null;
+    }
+
+    final AcquisitionResult capturedData = model.getCapturedData();
+    final AcquisitionResult baseline = model.getCompareBaseline();
+    if ( ( capturedData == null ) || ( baseline == null ) )
+    {
+      return;
+    }
+
+    // Comparing large captures can take a while...
+    setWaitCursor( owner, true );
+
+    this.worker = new CompareWorker( owner, capturedData, baseline, alignment, channelIdx );
+    this.worker.execute();
+  }
+
+  /**
+   * Creates a (HTML) summary of the given differences.
+   *
+   * @param aDifferences
+   *          the differences to summarize;
+   * @param aSampleRate
+   *          the sample rate of the compared captures, used to convert
+   *          timestamps to time.
+   * @return a summary, never <code>null</code>.
+   */
+  private String createSummary( final CaptureDifferences aDifferences, final int aSampleRate )
+  {
+    final StringBuilder sb = new StringBuilder( "<html>" );
+
+    final long comparedTime = aDifferences.getComparedEnd() - aDifferences.getComparedStart();
+    sb.append( "Compared " ).append( formatTime( comparedTime, aSampleRate ) ).append( "; " );
+
+    if ( aDifferences.isEqual() )
+    {
+      sb.append( "no differences found." );
+    }
+    else
+    {
+      sb.append( aDifferences.getAllDifferences().size() ).append( " difference(s) found:" );
+      sb.append( "<table><tr><th>Channel</th><th>Differences</th><th>Total time</th></tr>" );
+
+      final int differing = aDifferences.getDifferingChannels();
+      for ( int i = 0; i < Ols.MAX_CHANNELS; i++ )
+      {
+        if ( ( differing & ( 1 << i ) ) != 0 )
+        {
+          sb.append( "<tr><td>" ).append( i );
+          sb.append( "</td><td>" ).append( aDifferences.getDifferenceCount( i ) );
+          sb.append( "</td><td>" ).append( formatTime( aDifferences.getDifferenceTime( i ), aSampleRate ) );
+          sb.append( "</td></tr>" );
+        }
+      }
+      sb.append( "</table>" );
+    }
+
+    return sb.append( "</html>" ).toString();
+  }
+
+  /**
+   * Formats the given duration, expressed in samples.
+   */
+  private String formatTime( final long aDuration, final int aSampleRate )
+  {
+    if ( aSampleRate <= 0 )
+    {
+      return aDuration + " samples";
+    }
+    return UnitOfTime.format( aDuration / ( double )aSampleRate );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,289 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+import javax.swing.filechooser.*;
+
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Provides an import from file functionality.
+ */
+public class ImportAction extends BaseAction
+{
+  // INNER TYPES
+
+  /**
+   * Provides a {@link SwingWorker} to import the data of a file
+   * asynchronously from the UI, reporting its progress in a
+   * {@link ProgressMonitor} that allows the import to be cancelled.
+   */
+  final class ImportWorker extends SwingWorker<Project, Integer>
+  {
+    // VARIABLES
+
+    private final Window owner;
+    private final File file;
+    private final ProgressMonitor monitor;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link ImportWorker} instance.
+     * 
+     * @param aOwner
+     *          the window to report the outcome in;
+     * @param aFile
+     *          the file to import the data from.
+     */
+    public ImportWorker( final Window aOwner, final File aFile )
+    {
+      this.owner = aOwner;
+      this.file = aFile;
+      this.monitor = new ProgressMonitor( aOwner, "Importing capture data from " + aFile.getName() + " ...", null,
+          0, 100 );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Project doInBackground() throws Exception
+    {
+      final long length = Math.max( 1L, this.file.length() );
+
+      InputStream input = null;
+
+      try
+      {
+        input = new BufferedInputStream( new FilterInputStream( new FileInputStream( this.file ) )
+        {
+          private long count = 0L;
+          private int percentage = 0;
+
+          @Override
+          public int read() throws IOException
+          {
+            final int result = super.read();
+            progress( ( result < 0 ) ? 0 : 1 );
+            return result;
+          }
+
+          @Override
+          public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+          {
+            final int result = super.read( aBuffer, aOffset, aLength );
+            progress( Math.max( 0, result ) );
+            return result;
+          }
+
+          @Override
+          public long skip( final long aCount ) throws IOException
+          {
+            final long result = super.skip( aCount );
+            progress( result );
+            return result;
+          }
+
+          /**
+           * Publishes the percentage of the file read so far, and aborts the
+           * import when it is cancelled.
+           */
+          private void progress( final long aRead ) throws IOException
+          {
+            if ( isCancelled() || Thread.currentThread().isInterrupted() )
+            {
+              throw new InterruptedIOException( "Import cancelled!" );
+            }
+
+            this.count += aRead;
+
+            final int newPercentage = ( int )Math.min( 100L, ( this.count * 100L ) / length );
+            if ( newPercentage != this.percentage )
+            {
+              this.percentage = newPercentage;
+              publish( Integer.valueOf( newPercentage ) );
+            }
+          }
+        } );
+
+        return getController().importFrom( ImportAction.this.importerName, input );
+      }
+      finally
+      {
+        HostUtils.closeResource( input );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      this.monitor.close();
+
+      if ( ImportAction.this.worker == this )
+      {
+        ImportAction.this.worker = null;
+        setWaitCursor( this.owner, false );
+      }
+
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      try
+      {
+        getController().setImportedData( get(), this.file.getName() );
+      }
+      catch ( InterruptedException exception )
+      {
+        // Restore the interrupted status...
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        final Throwable cause = exception.getCause();
+        // Make sure to handle IO-interrupted exceptions properly!
+        if ( !( cause instanceof IOException ) || !HostUtils.handleInterruptedException( ( IOException )cause ) )
+        {
+          LOG.log( Level.WARNING, "Import with '" + ImportAction.this.importerName + "' failed!", cause );
+          JErrorDialog.showDialog( this.owner, "Import capture data failed!", cause );
+        }
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void process( final List<Integer> aChunks )
+    {
+      if ( this.monitor.isCanceled() )
+      {
+        cancel( true /* mayInterruptIfRunning */);
+        return;
+      }
+
+      this.monitor.setProgress( aChunks.get( aChunks.size() - 1 ).intValue() );
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final String ID = "ImportAction.";
+
+  private static final Logger LOG = Logger.getLogger( ImportAction.class.getName() );
+
+  // VARIABLES
+
+  private final String importerName;
+
+  private transient ImportWorker worker;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ImportAction instance.
+   * 
+   * @param aController
+   *          the client controller to use;
+   * @param aImporterName
+   *          the name of the importer to invoke in this action.
+   */
+  public ImportAction( final ClientController aController, final String aImporterName )
+  {
+    super( getID( aImporterName ), aController, aImporterName, "Import capture data from a " + aImporterName
+        + " file" );
+
+    this.importerName = aImporterName;
+  }
+
+  // METHODS
+
+  /**
+   * Creates an ID for an action that represents the "import" action for the
+   * importer with the given name.
+   * 
+   * @param aImporterName
+   *          the name of the importer to create the ID for, cannot be
+   *          <code>null</code>.
+   * @return a ID, never <code>null</code>.
+   */
+  public static final String getID( final String aImporterName )
+  {
+    return ID.concat( aImporterName );
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final ClientController controller = getController();
+
+    final String[] extensions = controller.getImportExtensions( this.importerName );
+
+    final File importFile = SwingComponentUtils.showFileOpenDialog( owner, //
+        new FileNameExtensionFilter( "Valid import format(s)", extensions ) );
+
+    if ( importFile != null )
+    {
+      LOG.log( Level.INFO, "Importing capture data from file {0}", importFile );
+
+      if ( this.worker != null )
+      {
+        // Only the last import is of interest...
+        this.worker.cancel( true /* mayInterruptIfRunning */);
+        this.worker = null;
+      }
+
+      // Importing large files can take a while...
+      setWaitCursor( owner, true );
+
+      this.worker = new ImportWorker( owner, importFile );
+      this.worker.execute();
+    }
+  }
+}
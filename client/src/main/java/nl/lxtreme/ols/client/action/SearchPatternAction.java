@@ -0,0 +1,264 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.client.signaldisplay.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Provides an action to search the captured data for a pattern of channel
+ * levels. The found occurrences can be navigated with the smart jump actions.
+ */
+public class SearchPatternAction extends BaseAction
+{
+  // INNER TYPES
+
+  /**
+   * Provides a {@link SwingWorker} to search the captured data asynchronously
+   * from the UI.
+   */
+  final class SearchWorker extends SwingWorker<SearchResult, Void>
+  {
+    // VARIABLES
+
+    private final Window owner;
+    private final AcquisitionResult data;
+    private final int mask;
+    private final int pattern;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link SearchWorker} instance.
+     * 
+     * @param aOwner
+     *          the window to report the outcome in;
+     * @param aData
+     *          the captured data to search;
+     * @param aMask
+     *          the mask of channels to match;
+     * @param aPattern
+     *          the levels the masked channels should have.
+     */
+    public SearchWorker( final Window aOwner, final AcquisitionResult aData, final int aMask, final int aPattern )
+    {
+      this.owner = aOwner;
+      this.data = aData;
+      this.mask = aMask;
+      this.pattern = aPattern;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected SearchResult doInBackground() throws Exception
+    {
+      return new CaptureSearch( this.data ).findPattern( this.mask, this.pattern );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( SearchPatternAction.this.worker == this )
+      {
+        SearchPatternAction.this.worker = null;
+        setWaitCursor( this.owner, false );
+      }
+
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      try
+      {
+        final SearchResult result = get();
+
+        final SignalDiagramController controller = getController().getSignalDiagramController();
+        if ( controller.showSearchResult( this.data, result ) && result.isEmpty() )
+        {
+          JOptionPane.showMessageDialog( this.owner, "Pattern not found.", "Search pattern",
+              JOptionPane.INFORMATION_MESSAGE );
+        }
+      }
+      catch ( InterruptedException exception )
+      {
+        // Restore the interrupted status...
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        LOG.log( Level.WARNING, "Searching the captured data failed!", exception.getCause() );
+        JErrorDialog.showDialog( this.owner, "Searching the captured data failed!", exception.getCause() );
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "SearchPattern";
+
+  private static final Logger LOG = Logger.getLogger( SearchPatternAction.class.getName() );
+
+  // VARIABLES
+
+  private String lastPattern = "";
+
+  private transient SearchWorker worker;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SearchPatternAction instance.
+   *
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public SearchPatternAction( final ClientController aController )
+  {
+    super( ID, aController, "Search pattern ...",
+        "Search the captured data for a pattern of channel levels; use META+left/right to navigate the results." );
+  }
+
+  // METHODS
+
+  /**
+   * Parses a pattern, given as a string of '0', '1' or 'X' characters, with
+   * the highest channel first, into a mask and pattern.
+   *
+   * @param aPattern
+   *          the pattern to parse, cannot be <code>null</code>.
+   * @return an array with the mask and the pattern, or <code>null</code> if
+   *         the given pattern was invalid.
+   */
+  static int[] parsePattern( final String aPattern )
+  {
+    int mask = 0;
+    int pattern = 0;
+    int bits = 0;
+
+    for ( char ch : aPattern.toCharArray() )
+    {
+      if ( Character.isWhitespace( ch ) || ( ch == '_' ) )
+      {
+        continue;
+      }
+      if ( ++bits > 32 )
+      {
+        return null;
+      }
+
+      mask <<= 1;
+      pattern <<= 1;
+      if ( ch == '1' )
+      {
+        mask |= 1;
+        pattern |= 1;
+      }
+      else if ( ch == '0' )
+      {
+        mask |= 1;
+      }
+      else if ( ( ch != 'x' ) && ( ch != 'X' ) && ( ch != '-' ) )
+      {
+        return null;
+      }
+    }
+
+    if ( mask == 0 )
+    {
+      return null;
+    }
+    return new int[] { mask, pattern };
+  }
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final Object input = JOptionPane.showInputDialog( owner,
+        "Pattern to search for (highest channel first, using 0, 1 or X):", "Search pattern",
+        JOptionPane.QUESTION_MESSAGE, null, null, this.lastPattern );
+    if ( input == null )
+    {
+      // Cancelled...
+      return;
+    }
+
+    final int[] maskAndPattern = parsePattern( String.valueOf( input ) );
+    if ( maskAndPattern == null )
+    {
+      JOptionPane.showMessageDialog( owner, "Invalid pattern: " + input, "Error ...", JOptionPane.ERROR_MESSAGE );
+      return;
+    }
+
+    this.lastPattern = String.valueOf( input );
+
+    if ( this.worker != null )
+    {
+      // Only the last search is of interest...
+      this.worker.cancel( true /* mayInterruptIfRunning */);
+      this.worker = null;
+    }
+
+    final SignalDiagramController controller = getController().getSignalDiagramController();
+
+    final AcquisitionResult capturedData = controller.getSignalDiagramModel().getCapturedData();
+    if ( capturedData == null )
+    {
+      controller.getSignalDiagramModel().setSearchResult( null );
+      return;
+    }
+
+    // Searching a large capture can take a while...
+    setWaitCursor( owner, true );
+
+    this.worker = new SearchWorker( owner, capturedData, maskAndPattern[0], maskAndPattern[1] );
+    this.worker.execute();
+  }
+}
+
+/* EOF */
@@ -0,0 +1,67 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.event.*;
+
+import nl.lxtreme.ols.client.*;
+
+
+/**
+ * Uses the current captured data as baseline, to which later captures can be
+ * compared.
+ */
+public class SetCompareBaselineAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  public static final String ID = "SetCompareBaseline";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SetCompareBaselineAction instance.
+   *
+   * @param aController
+   *          the controller to use.
+   */
+  public SetCompareBaselineAction( final ClientController aController )
+  {
+    super( ID, aController, "Use as compare baseline",
+        "Uses the current capture as baseline to which later captures can be compared." );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    getController().setCompareBaseline();
+  }
+}
+
+/* EOF */
@@ -0,0 +1,121 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.action;
+
+
+import java.awt.*;
+import java.awt.event.*;
+import java.io.*;
+import java.util.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.client.*;
+import nl.lxtreme.ols.util.*;
+import nl.lxtreme.ols.util.swing.*;
+import nl.lxtreme.ols.util.swing.component.*;
+
+
+/**
+ * Shows one of the captures kept in the history of the last capture session.
+ */
+public class ShowCaptureHistoryAction extends BaseAction
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Logger LOG = Logger.getLogger( ShowCaptureHistoryAction.class.getName() );
+
+  public static final String ID = "ShowCaptureHistory";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ShowCaptureHistoryAction instance.
+   * 
+   * @param aController
+   *          the controller to use for this action.
+   */
+  public ShowCaptureHistoryAction( final ClientController aController )
+  {
+    super( ID, aController, "Capture history ...", "Shows a capture kept by the last capture session." );
+  }
+
+  // METHODS
+
+  /**
+   * @see java.awt.event.ActionListener#actionPerformed(java.awt.event.ActionEvent)
+   */
+  @Override
+  public void actionPerformed( final ActionEvent aEvent )
+  {
+    final Window owner = SwingComponentUtils.getOwningWindow( aEvent );
+
+    final CaptureSession session = getController().getCaptureSession();
+    if ( session == null )
+    {
+      return;
+    }
+
+    final CaptureHistory history = session.getHistory();
+    final int size = history.size();
+    if ( size == 0 )
+    {
+      return;
+    }
+
+    // Show the most recent capture first...
+    final String[] captures = new String[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      final int idx = size - 1 - i;
+      captures[i] = "Capture #" + history.getSequenceNumber( idx ) + ( history.isSpilled( idx ) ? " (on disk)" : "" );
+    }
+
+    final Object selected = JOptionPane.showInputDialog( owner, "Capture to show:", "Capture history",
+        JOptionPane.QUESTION_MESSAGE, null, captures, captures[0] );
+    if ( selected == null )
+    {
+      // Cancelled...
+      return;
+    }
+
+    final int idx = size - 1 - Arrays.asList( captures ).indexOf( selected );
+    try
+    {
+      getController().showCaptureFromHistory( idx );
+    }
+    catch ( IOException exception )
+    {
+      // Make sure to handle IO-interrupted exceptions properly!
+      if ( !HostUtils.handleInterruptedException( exception ) )
+      {
+        LOG.log( Level.WARNING, "Loading capture from history failed!", exception );
+        JErrorDialog.showDialog( owner, "Loading the capture failed!", exception );
+      }
+    }
+  }
+}
+
+/* EOF */
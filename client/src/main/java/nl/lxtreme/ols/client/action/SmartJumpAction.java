@@ -30,7 +30,7 @@ import nl.lxtreme.ols.client.signaldisplay.model.*;
 
 /**
  * Provides a "smart jump" action, allowing to navigate to the next/previous
- * edge, cursor or annotation.
+ * edge, cursor, annotation or search result.
  */
 public class SmartJumpAction extends BaseAction
 {
@@ -59,7 +59,7 @@ public class SmartJumpAction extends BaseAction
    */
   public static enum JumpType
   {
-    CURSOR, SIGNAL_EDGE, ANNOTATION;
+    CURSOR, SIGNAL_EDGE, ANNOTATION, SEARCH_RESULT;
   }
 
   // CONSTANTS
@@ -107,7 +107,8 @@ public class SmartJumpAction extends BaseAction
   private static String getDescription( final JumpDirection aDirection )
   {
     return String.format( "<html>Jumps to the %1$s event. Use<br/>SHIFT to jump to %1$s cursor;<br/>"
-        + "CTRL to jump to %1$s edge, and<br/>ALT to jump to %1$s annotation.</html>",
+        + "CTRL to jump to %1$s edge;<br/>ALT to jump to %1$s annotation, and<br/>"
+        + "META to jump to %1$s search result.</html>",
         ( aDirection == JumpDirection.LEFT ? "previous" : "next" ) );
   }
 
@@ -152,6 +153,11 @@ public class SmartJumpAction extends BaseAction
       // Annotation...
       type = JumpType.ANNOTATION;
     }
+    else if ( ( aEvent.getModifiers() & InputEvent.META_MASK ) != 0 )
+    {
+      // Search result...
+      type = JumpType.SEARCH_RESULT;
+    }
 
     if ( type != null )
     {
@@ -69,6 +69,8 @@ public final class ActionManagerFactory
     aActionManager.add( new CaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new CancelCaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new RepeatCaptureAction( aController ) ).setEnabled( false );
+    aActionManager.add( new CaptureSessionAction( aController ) ).setEnabled( false );
+    aActionManager.add( new ShowCaptureHistoryAction( aController ) ).setEnabled( false );
 
     aActionManager.add( new ZoomInAction( signalDiagramController ) ).setEnabled( false );
     aActionManager.add( new ZoomOutAction( signalDiagramController ) ).setEnabled( false );
@@ -79,6 +81,9 @@ public final class ActionManagerFactory
     aActionManager.add( new SmartJumpAction( JumpDirection.RIGHT, aController ) ).setEnabled( false );
 
     aActionManager.add( new GotoTriggerAction( aController ) ).setEnabled( false );
+    aActionManager.add( new SearchPatternAction( aController ) ).setEnabled( false );
+    aActionManager.add( new SetCompareBaselineAction( aController ) ).setEnabled( false );
+    aActionManager.add( new CompareCaptureAction( aController ) ).setEnabled( false );
     for ( int c = 0; c < Ols.MAX_CURSORS; c++ )
     {
       aActionManager.add( new GotoNthCursorAction( signalDiagramController, c ) ).setEnabled( false );
@@ -22,6 +22,7 @@ package nl.lxtreme.ols.client.osgi;
 
 
 import java.util.*;
+import java.util.logging.*;
 
 import org.apache.felix.dm.*;
 import org.osgi.framework.*;
@@ -31,9 +32,19 @@ import org.osgi.service.log.*;
 /**
  * Provides a bundle adapter that instantiates a service from a bundle with a
  * particular magic key-value header.
+ * <p>
+ * In case the bundle provides all metadata of its service in its headers,
+ * subclasses can register a lightweight placeholder service instead (see
+ * {@link #createLazyService(Dictionary)}). The actual service implementation
+ * is then only loaded, and its bundle activated, upon first use.
+ * </p>
  */
 public class GenericBundleAdapter<TYPE>
 {
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( GenericBundleAdapter.class.getName() );
+
   // VARIABLES
 
   private final Class<? extends TYPE> serviceClass;
@@ -42,6 +53,7 @@ public class GenericBundleAdapter<TYPE>
   private volatile Bundle bundle; // = adapted bundle
   private volatile DependencyManager manager; // injected
   private volatile Component serviceComponent; // = added service
+  private volatile Component delegateComponent; // = lazily added delegate
 
   // CONSTRUCTORS
 
@@ -56,6 +68,30 @@ public class GenericBundleAdapter<TYPE>
 
   // METHODS
 
+  /**
+   * Splits a comma-separated header value into its (trimmed) elements.
+   * 
+   * @param aValue
+   *          the header value to split, can be <code>null</code>.
+   * @return an array with header elements, never <code>null</code>.
+   */
+  protected static String[] splitHeader( final String aValue )
+  {
+    final List<String> result = new ArrayList<String>();
+    if ( aValue != null )
+    {
+      for ( String element : aValue.split( "," ) )
+      {
+        final String trimmed = element.trim();
+        if ( !"".equals( trimmed ) )
+        {
+          result.add( trimmed );
+        }
+      }
+    }
+    return result.toArray( new String[result.size()] );
+  }
+
   /**
    * Called by Dependency Manager upon destruction of this component.
    */
@@ -65,6 +101,14 @@ public class GenericBundleAdapter<TYPE>
     {
       this.manager.remove( this.serviceComponent );
     }
+    synchronized ( this )
+    {
+      if ( this.delegateComponent != null )
+      {
+        this.manager.remove( this.delegateComponent );
+        this.delegateComponent = null;
+      }
+    }
   }
 
   /**
@@ -80,13 +124,21 @@ public class GenericBundleAdapter<TYPE>
       throw new IllegalArgumentException( "No such header given: " + this.headerKey );
     }
 
-    Class<?> implClass = this.bundle.loadClass( entry );
-
     Properties serviceProps = copyOlsProperties( bundleProps );
 
+    Object impl = createLazyService( bundleProps );
+    if ( impl == null )
+    {
+      impl = this.bundle.loadClass( entry );
+    }
+    else
+    {
+      LOG.log( Level.FINE, "Deferring activation of {0} until first use ...", entry );
+    }
+
     this.serviceComponent = this.manager.createComponent() //
         .setInterface( this.serviceClass.getName(), serviceProps ) //
-        .setImplementation( implClass ) //
+        .setImplementation( impl ) //
         .add( this.manager.createServiceDependency() //
             .setService( LogService.class ) //
             .setRequired( false ) //
@@ -94,6 +146,71 @@ public class GenericBundleAdapter<TYPE>
     this.manager.add( this.serviceComponent );
   }
 
+  /**
+   * Creates a placeholder service that provides the metadata of the service
+   * directly from the bundle headers, and uses {@link #getDelegate()} for all
+   * other functionality.
+   * <p>
+   * By default, this method returns <code>null</code>, meaning that the
+   * service is always loaded eagerly.
+   * </p>
+   * 
+   * @param aHeaders
+   *          the bundle headers, never <code>null</code>.
+   * @return a placeholder service, or <code>null</code> if the headers do not
+   *         provide all necessary metadata.
+   */
+  protected TYPE createLazyService( final Dictionary<?, ?> aHeaders )
+  {
+    return null;
+  }
+
+  /**
+   * Returns the actual service implementation, creating and registering it
+   * with the dependency manager upon first invocation. This will activate the
+   * adapted bundle in case it uses a lazy activation policy.
+   * 
+   * @return the actual service implementation, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the actual service implementation is not (yet)
+   *           available, for example, due to missing dependencies.
+   */
+  protected synchronized TYPE getDelegate()
+  {
+    if ( this.delegateComponent == null )
+    {
+      final String entry = ( String )this.bundle.getHeaders().get( this.headerKey );
+
+      final long startTime = System.nanoTime();
+      try
+      {
+        final Class<?> implClass = this.bundle.loadClass( entry );
+
+        this.delegateComponent = this.manager.createComponent() //
+            .setImplementation( implClass ) //
+            .add( this.manager.createServiceDependency() //
+                .setService( LogService.class ) //
+                .setRequired( false ) //
+            );
+        this.manager.add( this.delegateComponent );
+      }
+      catch ( ClassNotFoundException exception )
+      {
+        throw new IllegalStateException( "Failed to load service class: " + entry, exception );
+      }
+
+      LOG.log( Level.FINE, "Activated {0} in {1} ms ...",
+          new Object[] { entry, Long.valueOf( ( System.nanoTime() - startTime ) / 1000000L ) } );
+    }
+    final Object service = this.delegateComponent.getService();
+    if ( service == null )
+    {
+      throw new IllegalStateException( "Service '" + this.bundle.getHeaders().get( this.headerKey )
+          + "' is not available!" );
+    }
+    return this.serviceClass.cast( service );
+  }
+
   /**
    * Copies all OLS-specific properties from the original bundle header to a new
    * {@link Properties} instance.
@@ -0,0 +1,161 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.osgi;
+
+
+import java.awt.*;
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.devices.*;
+
+
+/**
+ * Provides a placeholder for a device whose bundle is not yet activated. The
+ * name is taken from the bundle headers, the actual device is only created
+ * when it is set up or used for an acquisition.
+ */
+public final class LazyDevice implements Device
+{
+  // VARIABLES
+
+  private final GenericBundleAdapter<Device> adapter;
+  private final String name;
+
+  private volatile boolean activated;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LazyDevice instance.
+   * 
+   * @param aAdapter
+   *          the bundle adapter providing the actual device, cannot be
+   *          <code>null</code>;
+   * @param aName
+   *          the name of the device, cannot be <code>null</code>.
+   */
+  public LazyDevice( final GenericBundleAdapter<Device> aAdapter, final String aName )
+  {
+    this.adapter = aAdapter;
+    this.name = aName;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void close() throws IOException
+  {
+    if ( this.activated )
+    {
+      try
+      {
+        this.adapter.getDelegate().close();
+      }
+      catch ( IllegalStateException exception )
+      {
+        // Never became available; nothing to close...
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AcquisitionTask createAcquisitionTask( final AcquisitionProgressListener aProgressListener )
+      throws IOException
+  {
+    return getDevice().createAcquisitionTask( aProgressListener );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public CancelTask createCancelTask() throws IOException
+  {
+    return getDevice().createCancelTask();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isSetup()
+  {
+    if ( !this.activated )
+    {
+      return false;
+    }
+    try
+    {
+      return this.adapter.getDelegate().isSetup();
+    }
+    catch ( IllegalStateException exception )
+    {
+      return false;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * 
+   * @throws IllegalStateException
+   *           in case the actual device is not available.
+   */
+  @Override
+  public boolean setupCapture( final Window aParent )
+  {
+    this.activated = true;
+    return this.adapter.getDelegate().setupCapture( aParent );
+  }
+
+  /**
+   * @return the actual device, never <code>null</code>.
+   * @throws IOException
+   *           in case the actual device is not available.
+   */
+  private Device getDevice() throws IOException
+  {
+    this.activated = true;
+    try
+    {
+      return this.adapter.getDelegate();
+    }
+    catch ( IllegalStateException exception )
+    {
+      throw new IOException( "Device '" + this.name + "' is not available!" );
+    }
+  }
+}
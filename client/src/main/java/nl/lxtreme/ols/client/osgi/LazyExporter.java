@@ -0,0 +1,103 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.osgi;
+
+
+import java.io.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+
+
+/**
+ * Provides a placeholder for an exporter whose bundle is not yet activated.
+ * The name and file extensions are taken from the bundle headers, the actual
+ * exporter is only created when something is exported.
+ */
+public final class LazyExporter implements Exporter
+{
+  // VARIABLES
+
+  private final GenericBundleAdapter<Exporter> adapter;
+  private final String name;
+  private final String[] extensions;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LazyExporter instance.
+   * 
+   * @param aAdapter
+   *          the bundle adapter providing the actual exporter, cannot be
+   *          <code>null</code>;
+   * @param aName
+   *          the name of the exporter, cannot be <code>null</code>;
+   * @param aExtensions
+   *          the supported file extensions, cannot be <code>null</code>.
+   */
+  public LazyExporter( final GenericBundleAdapter<Exporter> aAdapter, final String aName, final String[] aExtensions )
+  {
+    this.adapter = aAdapter;
+    this.name = aName;
+    this.extensions = aExtensions.clone();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
+      throws IOException
+  {
+    final Exporter exporter;
+    try
+    {
+      exporter = this.adapter.getDelegate();
+    }
+    catch ( IllegalStateException exception )
+    {
+      throw new IOException( "Exporter '" + this.name + "' is not available!" );
+    }
+    exporter.export( aDataSet, aComponent, aStream );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return this.extensions.clone();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.osgi;
+
+
+import java.awt.*;
+
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Provides a placeholder for a tool whose bundle is not yet activated. The
+ * name and category are taken from the bundle headers, the actual tool is
+ * only created when it is invoked.
+ */
+@SuppressWarnings( "rawtypes" )
+public final class LazyTool implements Tool
+{
+  // VARIABLES
+
+  private final GenericBundleAdapter<Tool> adapter;
+  private final String name;
+  private final ToolCategory category;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new LazyTool instance.
+   * 
+   * @param aAdapter
+   *          the bundle adapter providing the actual tool, cannot be
+   *          <code>null</code>;
+   * @param aName
+   *          the name of the tool, cannot be <code>null</code>;
+   * @param aCategory
+   *          the category of the tool, cannot be <code>null</code>.
+   */
+  public LazyTool( final GenericBundleAdapter<Tool> aAdapter, final String aName, final ToolCategory aCategory )
+  {
+    this.adapter = aAdapter;
+    this.name = aName;
+    this.category = aCategory;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ToolTask createToolTask( final ToolContext aContext, final ToolProgressListener aProgressListener,
+      final AnnotationListener aAnnotationListener )
+  {
+    return this.adapter.getDelegate().createToolTask( aContext, aProgressListener, aAnnotationListener );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ToolCategory getCategory()
+  {
+    return this.category;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return this.name;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void invoke( final Window aParent, final ToolContext aContext )
+  {
+    this.adapter.getDelegate().invoke( aParent, aContext );
+  }
+}
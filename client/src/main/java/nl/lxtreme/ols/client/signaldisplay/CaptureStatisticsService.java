@@ -0,0 +1,189 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.signaldisplay;
+
+
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.client.signaldisplay.model.*;
+
+
+/**
+ * Calculates the channel statistics of newly captured or loaded data in the
+ * background, and caches them on the captured data itself so they need to be
+ * calculated only once.
+ */
+public final class CaptureStatisticsService
+{
+  // INNER TYPES
+
+  /**
+   * Provides a {@link SwingWorker} to calculate the channel statistics
+   * asynchronously from the UI.
+   */
+  final class StatisticsWorker extends SwingWorker<CaptureStatistics, Void>
+  {
+    // VARIABLES
+
+    private final AcquisitionResult data;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link StatisticsWorker} instance.
+     * 
+     * @param aData
+     *          the captured data to calculate the statistics for.
+     */
+    public StatisticsWorker( final AcquisitionResult aData )
+    {
+      this.data = aData;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected CaptureStatistics doInBackground() throws Exception
+    {
+      final CaptureStatistics result = CaptureStatistics.calculate( this.data );
+      if ( this.data instanceof CapturedData )
+      {
+        ( ( CapturedData )this.data ).setStatistics( result );
+      }
+      return result;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      if ( isCancelled() )
+      {
+        return;
+      }
+
+      try
+      {
+        publishStatistics( this.data, get() );
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        LOG.log( Level.WARNING, "Failed to calculate channel statistics!", exception.getCause() );
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( CaptureStatisticsService.class.getName() );
+
+  // VARIABLES
+
+  private final SignalDiagramController controller;
+
+  private volatile StatisticsWorker worker;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link CaptureStatisticsService} instance.
+   * 
+   * @param aController
+   *          the signal diagram controller to provide the statistics to,
+   *          cannot be <code>null</code>.
+   */
+  public CaptureStatisticsService( final SignalDiagramController aController )
+  {
+    this.controller = aController;
+  }
+
+  // METHODS
+
+  /**
+   * Provides the channel statistics for the given captured data, calculating
+   * them in the background if they are not already available.
+   * <p>
+   * Any calculation that is still running for previously captured data is
+   * cancelled.
+   * </p>
+   * 
+   * @param aData
+   *          the captured data to provide the statistics for, can be
+   *          <code>null</code>.
+   */
+  public void calculate( final AcquisitionResult aData )
+  {
+    final StatisticsWorker oldWorker = this.worker;
+    if ( oldWorker != null )
+    {
+      oldWorker.cancel( true /* mayInterruptIfRunning */);
+      this.worker = null;
+    }
+
+    if ( aData == null )
+    {
+      return;
+    }
+
+    CaptureStatistics statistics = null;
+    if ( aData instanceof CapturedData )
+    {
+      statistics = ( ( CapturedData )aData ).getStatistics();
+    }
+
+    if ( statistics != null )
+    {
+      publishStatistics( aData, statistics );
+    }
+    else
+    {
+      this.worker = new StatisticsWorker( aData );
+      this.worker.execute();
+    }
+  }
+
+  /**
+   * Publishes the given statistics to the signal diagram model, provided that
+   * they still belong to its current captured data.
+   */
+  final void publishStatistics( final AcquisitionResult aData, final CaptureStatistics aStatistics )
+  {
+    final SignalDiagramModel model = this.controller.getSignalDiagramModel();
+    if ( model.getCapturedData() == aData )
+    {
+      model.setCaptureStatistics( aStatistics );
+    }
+  }
+}
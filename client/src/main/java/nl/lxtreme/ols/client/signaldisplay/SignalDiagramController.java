@@ -27,9 +27,11 @@ import java.beans.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.Cursor;
 import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.action.*;
 import nl.lxtreme.ols.client.actionmanager.*;
 import nl.lxtreme.ols.client.signaldisplay.ZoomController.ZoomEvent;
@@ -53,6 +55,7 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
 
   private final DragAndDropTargetController dndTargetController;
   private final IActionManager actionManager;
+  private final CaptureStatisticsService statisticsService;
 
   private SignalDiagramModel signalDiagramModel;
   private SignalDiagramComponent signalDiagram;
@@ -70,10 +73,22 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
     this.actionManager = aActionManager;
 
     this.dndTargetController = new DragAndDropTargetController( this );
+    this.statisticsService = new CaptureStatisticsService( this );
   }
 
   // METHODS
 
+  /**
+   * Adds a capture statistics listener.
+   * 
+   * @param aListener
+   *          the listener to add, cannot be <code>null</code>.
+   */
+  public void addCaptureStatisticsListener( final ICaptureStatisticsListener aListener )
+  {
+    getSignalDiagramModel().addCaptureStatisticsListener( aListener );
+  }
+
   /**
    * Adds a channel change listener.
    * 
@@ -129,6 +144,44 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
     getSignalDiagramModel().addPropertyChangeListener( aListener );
   }
 
+  /**
+   * Marks the given differences with the baseline capture in the signal view
+   * and scrolls to the first difference, provided that the compared data is
+   * still the current data. The other differences can be navigated by means
+   * of the smart jump actions.
+   * <p>
+   * The differences are expressed in the time base of the current data. This
+   * method should be called from the EDT.
+   * </p>
+   * 
+   * @param aData
+   *          the data that was compared with the baseline capture, cannot be
+   *          <code>null</code>;
+   * @param aDifferences
+   *          the differences to show, cannot be <code>null</code>.
+   * @return <code>true</code> if the differences are shown, <code>false</code>
+   *         if the current data has changed in the meantime.
+   */
+  public boolean showDifferences( final AcquisitionResult aData, final CaptureDifferences aDifferences )
+  {
+    final SignalDiagramModel model = getSignalDiagramModel();
+    if ( model.getCapturedData() != aData )
+    {
+      return false;
+    }
+
+    model.setDifferences( aDifferences );
+    model.setSearchResult( aDifferences.getAllDifferences() );
+
+    if ( !aDifferences.isEqual() )
+    {
+      scrollToTimestamp( aDifferences.getAllDifferences().getStartTimestamp( 0 ) );
+    }
+    getSignalDiagram().repaint();
+
+    return true;
+  }
+
   /**
    * Returns the current value of actionManager.
    * 
@@ -336,6 +389,17 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
     this.signalDiagram.repaintAll();
   }
 
+  /**
+   * Removes a capture statistics listener.
+   * 
+   * @param aListener
+   *          the listener to remove, cannot be <code>null</code>.
+   */
+  public void removeCaptureStatisticsListener( final ICaptureStatisticsListener aListener )
+  {
+    getSignalDiagramModel().removeCaptureStatisticsListener( aListener );
+  }
+
   /**
    * Removes a channel change listener.
    * 
@@ -415,6 +479,57 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
     getSignalDiagram().scrollToTimestamp( aTimestamp );
   }
 
+  /**
+   * Shows the given search result in the signal view and scrolls to its first
+   * hit, provided that the searched data is still the current data. The other
+   * hits can be navigated by means of the smart jump actions.
+   * <p>
+   * This method should be called from the EDT.
+   * </p>
+   * 
+   * @param aData
+   *          the data that was searched, cannot be <code>null</code>;
+   * @param aResult
+   *          the search result to show, cannot be <code>null</code>.
+   * @return <code>true</code> if the search result is shown,
+   *         <code>false</code> if the current data has changed in the
+   *         meantime.
+   */
+  public boolean showSearchResult( final AcquisitionResult aData, final SearchResult aResult )
+  {
+    final SignalDiagramModel model = getSignalDiagramModel();
+    if ( model.getCapturedData() != aData )
+    {
+      return false;
+    }
+
+    model.setSearchResult( aResult );
+
+    if ( !aResult.isEmpty() )
+    {
+      scrollToTimestamp( aResult.getStartTimestamp( 0 ) );
+    }
+
+    return true;
+  }
+
+  /**
+   * Uses the current data as baseline capture, to which later captures can be
+   * compared.
+   * 
+   * @return <code>true</code> if the baseline capture is set,
+   *         <code>false</code> if there is no current data.
+   */
+  public boolean setCompareBaseline()
+  {
+    final SignalDiagramModel model = getSignalDiagramModel();
+
+    final AcquisitionResult capturedData = model.getCapturedData();
+    model.setCompareBaseline( capturedData );
+
+    return capturedData != null;
+  }
+
   /**
    * Enables or disables the cursor mode, which in effect, Ttrns the visibility
    * of all cursors either on or off.
@@ -442,6 +557,9 @@ public final class SignalDiagramController implements ZoomListener, PropertyChan
   {
     getSignalDiagramModel().setDataModel( aDataSet );
 
+    // Determine the channel statistics in the background...
+    this.statisticsService.calculate( aDataSet.getCapturedData() );
+
     recalculateDimensions();
   }
 
@@ -27,6 +27,7 @@ import javax.swing.plaf.*;
 
 import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
@@ -181,6 +182,13 @@ public class SignalUI extends ComponentUI
       // translated to some unknown coordinate system...
       canvas = ( Graphics2D )aGraphics;
 
+      // Draw the differences with a compared capture...
+      final CaptureDifferences differences = model.getDifferences();
+      if ( differences != null )
+      {
+        paintDifferences( canvas, model, signalElements, differences );
+      }
+
       // Draw the cursor "flags"...
       if ( model.isCursorMode() )
       {
@@ -342,6 +350,70 @@ public class SignalUI extends ComponentUI
     }
   }
 
+  /**
+   * Paints the differences with a compared capture as translucent bars over
+   * the signals.
+   * 
+   * @param aCanvas
+   *          the canvas to paint on;
+   * @param aModel
+   *          the model to use;
+   * @param aSignalElements
+   *          the signal elements to paint the differences for;
+   * @param aDifferences
+   *          the differences to paint.
+   */
+  private void paintDifferences( final Graphics2D aCanvas, final SignalViewModel aModel,
+      final SignalElement[] aSignalElements, final CaptureDifferences aDifferences )
+  {
+    final long[] timestamps = aModel.getTimestamps();
+    if ( ( timestamps == null ) || ( timestamps.length == 0 ) || ( aSignalElements.length == 0 ) )
+    {
+      // Nothing to do...
+      return;
+    }
+
+    final Rectangle clip = aCanvas.getClipBounds();
+    final long startTimestamp = timestamps[aModel.getStartIndex( clip )];
+    final long endTimestamp = timestamps[aModel.getEndIndex( clip, timestamps.length )];
+
+    final double zoomFactor = aModel.getZoomFactor();
+
+    final Composite oldComposite = aCanvas.getComposite();
+    aCanvas.setComposite( AlphaComposite.SrcOver.derive( aModel.getAnnotationAlpha() ) );
+    aCanvas.setColor( aModel.getDifferenceColor() );
+
+    int y = aSignalElements[0].getYposition();
+    for ( SignalElement signalElement : aSignalElements )
+    {
+      if ( signalElement.isDigitalSignal() && signalElement.isEnabled() )
+      {
+        final SearchResult channelDifferences = aDifferences.getDifferences( signalElement.getChannel().getIndex() );
+
+        // The interval starting before the clip might still extend into it...
+        int idx = Math.max( 0, channelDifferences.indexOfPrevious( startTimestamp ) );
+        for ( ; idx < channelDifferences.size(); idx++ )
+        {
+          final long start = channelDifferences.getStartTimestamp( idx );
+          if ( start > endTimestamp )
+          {
+            break;
+          }
+
+          final int x1 = ( int )( start * zoomFactor );
+          final int x2 = ( int )( channelDifferences.getEndTimestamp( idx ) * zoomFactor );
+
+          aCanvas.fillRect( x1, y, Math.max( 1, x2 - x1 ), signalElement.getHeight() );
+        }
+      }
+
+      // Advance to the next channel...
+      y += signalElement.getHeight() + aModel.getSignalElementSpacing();
+    }
+
+    aCanvas.setComposite( oldComposite );
+  }
+
   /**
    * Paints the cursors over the signals.
    * 
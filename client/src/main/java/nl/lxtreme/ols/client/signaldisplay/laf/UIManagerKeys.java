@@ -189,4 +189,6 @@ public interface UIManagerKeys
    * Whether to use an alternative style for rendering annotations (true|false).
    */
   String SIGNALVIEW_ANNOTATION_USE_ALTSTYLE = "ols.signal.annotation.altstyle.boolean";
+  /** The color used to mark the differences with a compared capture. */
+  String SIGNALVIEW_DIFFERENCE_COLOR = "ols.signal.difference.color";
 }
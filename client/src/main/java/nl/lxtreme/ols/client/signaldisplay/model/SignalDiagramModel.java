@@ -32,6 +32,7 @@ import javax.swing.event.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.data.Cursor;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.laf.*;
 import nl.lxtreme.ols.client.signaldisplay.signalelement.*;
@@ -66,6 +67,12 @@ public class SignalDiagramModel
   private volatile int mode;
   private volatile int selectedChannelIndex;
   private volatile DataSet dataSet;
+  private volatile SearchResult searchResult;
+  private volatile AcquisitionResult compareBaseline;
+  private volatile CaptureDifferences differences;
+  private volatile CaptureStatistics captureStatistics;
+  private volatile TransitionIndex transitionIndex;
+  private volatile Point pendingHoverPoint;
 
   private final ZoomController zoomController;
   private final SignalElementManager channelGroupManager;
@@ -93,6 +100,7 @@ public class SignalDiagramModel
     this.propertyChangeSupport = new PropertyChangeSupport( this );
 
     this.mode = 0;
+    this.searchResult = SearchResult.EMPTY;
 
     addDataModelChangeListener( this.channelGroupManager );
   }
@@ -192,6 +200,17 @@ public class SignalDiagramModel
     aInput[aNewIdx] = moved;
   }
 
+  /**
+   * Adds a capture statistics listener.
+   * 
+   * @param aListener
+   *          the listener to add, cannot be <code>null</code>.
+   */
+  public void addCaptureStatisticsListener( final ICaptureStatisticsListener aListener )
+  {
+    this.eventListeners.add( ICaptureStatisticsListener.class, aListener );
+  }
+
   /**
    * Adds a cursor change listener.
    * 
@@ -379,6 +398,17 @@ public class SignalDiagramModel
     return ( int )result;
   }
 
+  /**
+   * Returns the channel statistics of the current captured data.
+   * 
+   * @return the channel statistics, or <code>null</code> if not (yet)
+   *         available.
+   */
+  public CaptureStatistics getCaptureStatistics()
+  {
+    return this.captureStatistics;
+  }
+
   /**
    * @return
    */
@@ -391,6 +421,16 @@ public class SignalDiagramModel
     return this.dataSet.getCapturedData();
   }
 
+  /**
+   * Returns the capture the current data can be compared with.
+   * 
+   * @return the baseline capture, or <code>null</code> if not set.
+   */
+  public AcquisitionResult getCompareBaseline()
+  {
+    return this.compareBaseline;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -427,6 +467,17 @@ public class SignalDiagramModel
     return result.toArray( new Cursor[result.size()] );
   }
 
+  /**
+   * Returns the differences of the current data with the baseline capture.
+   * 
+   * @return the differences, or <code>null</code> if the current data is not
+   *         compared with the baseline capture.
+   */
+  public CaptureDifferences getDifferences()
+  {
+    return this.differences;
+  }
+
   /**
    * Returns the time interval displayed by the current view.
    * 
@@ -525,6 +576,16 @@ public class SignalDiagramModel
     return capturedData.getChannels();
   }
 
+  /**
+   * Returns the result of the last search on the current data.
+   * 
+   * @return a search result, never <code>null</code>.
+   */
+  public SearchResult getSearchResult()
+  {
+    return this.searchResult;
+  }
+
   /**
    * Returns the index of the current selected channel.
    * 
@@ -612,44 +673,21 @@ public class SignalDiagramModel
     final int[] values = getValues();
     if ( ( refIdx >= 0 ) && ( refIdx < values.length ) )
     {
-      final int mask = channel.getMask();
-      final int refValue = ( values[refIdx] & mask );
-
-      int idx = refIdx;
-      do
-      {
-        idx--;
-      }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) == refValue ) );
-
-      // convert the found index back to "screen" values...
-      final int tm_idx = Math.max( 0, idx + 1 );
-      tm = ( tm_idx == 0 ) ? 0 : timestamps[tm_idx];
-
-      // Search for the original value again, to complete the pulse...
-      do
+      final TransitionIndex.Pulse pulse = getTransitionIndex().findPulse( channel.getIndex(), refIdx );
+      if ( pulse == null )
       {
-        idx--;
+        // Transitions not yet available; retry once they are...
+        this.pendingHoverPoint = new Point( aPoint );
+        return new MeasurementInfo( aSignalElement, refTime );
       }
-      while ( ( idx >= 0 ) && ( ( values[idx] & mask ) != refValue ) );
 
-      // convert the found index back to "screen" values...
-      final int ts_idx = Math.max( 0, idx + 1 );
-      ts = ( ts_idx == 0 ) ? 0 : timestamps[ts_idx];
-
-      idx = refIdx;
-      do
-      {
-        idx++;
-      }
-      while ( ( idx < values.length ) && ( ( values[idx] & mask ) == refValue ) );
-
-      // convert the found index back to "screen" values...
-      final int te_idx = Math.min( idx, timestamps.length - 1 );
-      te = ( te_idx == 0 ) ? 0 : timestamps[te_idx];
+      // convert the found indices back to "screen" values...
+      tm = ( pulse.transitionIdx == 0 ) ? 0 : timestamps[pulse.transitionIdx];
+      ts = ( pulse.startIdx == 0 ) ? 0 : timestamps[pulse.startIdx];
+      te = ( pulse.endIdx == 0 ) ? 0 : timestamps[pulse.endIdx];
 
       // Determine the width of the "high" part...
-      if ( ( values[ts_idx] & mask ) != 0 )
+      if ( ( values[pulse.startIdx] & channel.getMask() ) != 0 )
       {
         th = Math.abs( tm - ts );
       }
@@ -658,6 +696,7 @@ public class SignalDiagramModel
         th = Math.abs( te - tm );
       }
     }
+    this.pendingHoverPoint = null;
 
     MeasurementInfo result;
     if ( hasTimingData() )
@@ -672,6 +711,45 @@ public class SignalDiagramModel
     return result;
   }
 
+  /**
+   * Returns the transition index of the current captured data, creating it if
+   * necessary.
+   */
+  private TransitionIndex getTransitionIndex()
+  {
+    final AcquisitionResult capturedData = getCapturedData();
+
+    TransitionIndex result = this.transitionIndex;
+    if ( ( result == null ) || !result.isIndexOf( capturedData ) )
+    {
+      result = new TransitionIndex( this, capturedData );
+      this.transitionIndex = result;
+    }
+    return result;
+  }
+
+  /**
+   * Called when the transitions of a channel become available, and repeats
+   * the last measurement that could not be made without them.
+   * 
+   * @param aIndex
+   *          the transition index that has become (more) complete.
+   */
+  final void transitionIndexCreated( final TransitionIndex aIndex )
+  {
+    final Point point = this.pendingHoverPoint;
+    if ( ( point == null ) || ( aIndex != this.transitionIndex ) || !isMeasurementMode() )
+    {
+      return;
+    }
+
+    final MeasurementInfo signalHover = getSignalHover( point );
+    if ( signalHover != null )
+    {
+      fireMeasurementEvent( signalHover );
+    }
+  }
+
   /**
    * Returns the amount of pixels that represents one second on the timeline.
    * 
@@ -1083,6 +1161,17 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Removes a capture statistics listener.
+   * 
+   * @param aListener
+   *          the listener to remove, cannot be <code>null</code>.
+   */
+  public void removeCaptureStatisticsListener( final ICaptureStatisticsListener aListener )
+  {
+    this.eventListeners.remove( ICaptureStatisticsListener.class, aListener );
+  }
+
   /**
    * Removes a cursor change listener.
    * 
@@ -1199,6 +1288,36 @@ public class SignalDiagramModel
     fireCursorChangeEvent( ICursorChangeListener.PROPERTY_LABEL, oldCursor, cursor );
   }
 
+  /**
+   * Sets the channel statistics of the current captured data, and notifies
+   * all interested listeners about them.
+   * 
+   * @param aStatistics
+   *          the channel statistics to set, cannot be <code>null</code>.
+   */
+  public void setCaptureStatistics( final CaptureStatistics aStatistics )
+  {
+    this.captureStatistics = aStatistics;
+
+    final ICaptureStatisticsListener[] listeners = this.eventListeners
+        .getListeners( ICaptureStatisticsListener.class );
+    for ( ICaptureStatisticsListener listener : listeners )
+    {
+      listener.captureStatisticsAvailable( aStatistics );
+    }
+  }
+
+  /**
+   * Sets the capture the current data can be compared with.
+   * 
+   * @param aBaseline
+   *          the baseline capture to set, can be <code>null</code>.
+   */
+  public void setCompareBaseline( final AcquisitionResult aBaseline )
+  {
+    this.compareBaseline = aBaseline;
+  }
+
   /**
    * Enables or disables the cursors.
    * 
@@ -1238,6 +1357,11 @@ public class SignalDiagramModel
     }
 
     this.dataSet = aDataSet;
+    this.searchResult = SearchResult.EMPTY;
+    this.differences = null;
+    this.captureStatistics = null;
+    this.transitionIndex = null;
+    this.pendingHoverPoint = null;
 
     final IDataModelChangeListener[] listeners = this.eventListeners.getListeners( IDataModelChangeListener.class );
     for ( IDataModelChangeListener listener : listeners )
@@ -1246,6 +1370,17 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Sets the differences of the current data with the baseline capture.
+   * 
+   * @param aDifferences
+   *          the differences to set, can be <code>null</code>.
+   */
+  public void setDifferences( final CaptureDifferences aDifferences )
+  {
+    this.differences = aDifferences;
+  }
+
   /**
    * @param aEnabled
    */
@@ -1274,6 +1409,19 @@ public class SignalDiagramModel
     }
   }
 
+  /**
+   * Sets the result of a search on the current data, which can be navigated
+   * with the smart jump actions.
+   * 
+   * @param aSearchResult
+   *          the search result to set, can be <code>null</code> to clear the
+   *          current search result.
+   */
+  public void setSearchResult( final SearchResult aSearchResult )
+  {
+    this.searchResult = ( aSearchResult == null ) ? SearchResult.EMPTY : aSearchResult;
+  }
+
   /**
    * Sets the selected channel index to the given value.
    * 
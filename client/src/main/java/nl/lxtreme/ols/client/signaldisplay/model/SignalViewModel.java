@@ -26,6 +26,7 @@ import java.awt.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.SignalDiagramModel.*;
 import nl.lxtreme.ols.client.signaldisplay.view.*;
@@ -141,6 +142,32 @@ public class SignalViewModel extends AbstractViewModel
     return this.controller.getSignalDiagramModel().getValues();
   }
 
+  /**
+   * Returns the color to mark the differences with a compared capture.
+   * 
+   * @return a color, never <code>null</code>.
+   */
+  public Color getDifferenceColor()
+  {
+    Color color = UIManager.getColor( SIGNALVIEW_DIFFERENCE_COLOR );
+    if ( color == null )
+    {
+      color = Color.RED;
+    }
+    return color;
+  }
+
+  /**
+   * Returns the differences with a compared capture.
+   * 
+   * @return the differences, or <code>null</code> if the current data is not
+   *         compared with another capture.
+   */
+  public CaptureDifferences getDifferences()
+  {
+    return getSignalDiagramModel().getDifferences();
+  }
+
   /**
    * @param aClip
    * @return
@@ -0,0 +1,246 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, <http://www.lxtreme.nl>
+ */
+package nl.lxtreme.ols.client.signaldisplay.model;
+
+
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides the transitions of each channel of an acquisition result, allowing
+ * the pulse under the mouse cursor to be found with a binary search instead of
+ * scanning all samples around it.
+ * <p>
+ * The transitions of a channel are determined on demand, in the background;
+ * until they are available, no pulse is found for that channel. The last found
+ * pulse is cached, as the mouse typically moves along the same pulse for a
+ * while.
+ * </p>
+ */
+final class TransitionIndex
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a single pulse, as the sample indices of its start, transition and
+   * end.
+   */
+  static final class Pulse
+  {
+    // VARIABLES
+
+    final int channelIdx;
+    final int startIdx;
+    final int transitionIdx;
+    final int endIdx;
+    /** the index of the first sample after the hovered part of the pulse. */
+    final int limitIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Pulse instance.
+     */
+    Pulse( final int aChannelIdx, final int aStartIdx, final int aTransitionIdx, final int aEndIdx,
+        final int aLimitIdx )
+    {
+      this.channelIdx = aChannelIdx;
+      this.startIdx = aStartIdx;
+      this.transitionIdx = aTransitionIdx;
+      this.endIdx = aEndIdx;
+      this.limitIdx = aLimitIdx;
+    }
+
+    // METHODS
+
+    /**
+     * Returns whether the given sample of the given channel lies in the
+     * hovered part of this pulse, that is, between its transition and end.
+     */
+    boolean contains( final int aChannelIdx, final int aSampleIdx )
+    {
+      return ( this.channelIdx == aChannelIdx ) && ( aSampleIdx >= this.transitionIdx )
+          && ( aSampleIdx < this.limitIdx );
+    }
+  }
+
+  /**
+   * Provides a {@link SwingWorker} to determine the transitions of a single
+   * channel asynchronously from the UI.
+   */
+  final class TransitionWorker extends SwingWorker<ChannelPrefixSums, Void>
+  {
+    // VARIABLES
+
+    private final int channelIdx;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new {@link TransitionWorker} instance.
+     * 
+     * @param aChannelIdx
+     *          the index of the channel to determine the transitions for.
+     */
+    public TransitionWorker( final int aChannelIdx )
+    {
+      this.channelIdx = aChannelIdx;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected ChannelPrefixSums doInBackground() throws Exception
+    {
+      // Shares the transitions with the measurement view...
+      return ChannelPrefixSums.get( TransitionIndex.this.data, this.channelIdx )[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void done()
+    {
+      try
+      {
+        TransitionIndex.this.channels[this.channelIdx] = get();
+
+        TransitionIndex.this.model.transitionIndexCreated( TransitionIndex.this );
+      }
+      catch ( InterruptedException exception )
+      {
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        LOG.log( Level.WARNING, "Failed to determine channel transitions!", exception.getCause() );
+      }
+      finally
+      {
+        TransitionIndex.this.pending &= ~( 1 << this.channelIdx );
+      }
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( TransitionIndex.class.getName() );
+
+  // VARIABLES
+
+  private final SignalDiagramModel model;
+  private final AcquisitionResult data;
+  private final ChannelPrefixSums[] channels;
+
+  /** the mask of channels whose transitions are being determined. */
+  private int pending;
+  private Pulse lastPulse;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionIndex instance.
+   * 
+   * @param aModel
+   *          the model to notify when the transitions of a channel become
+   *          available;
+   * @param aData
+   *          the acquisition result to index.
+   */
+  TransitionIndex( final SignalDiagramModel aModel, final AcquisitionResult aData )
+  {
+    this.model = aModel;
+    this.data = aData;
+    this.channels = new ChannelPrefixSums[Ols.MAX_CHANNELS];
+  }
+
+  // METHODS
+
+  /**
+   * Finds the pulse that contains the given sample of the given channel.
+   * <p>
+   * This method should be called on the EDT only.
+   * </p>
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to find the pulse for;
+   * @param aSampleIdx
+   *          the index of the sample that should be part of the pulse.
+   * @return the found pulse, or <code>null</code> if the transitions of the
+   *         given channel are not (yet) available.
+   */
+  Pulse findPulse( final int aChannelIdx, final int aSampleIdx )
+  {
+    final Pulse cached = this.lastPulse;
+    if ( ( cached != null ) && cached.contains( aChannelIdx, aSampleIdx ) )
+    {
+      return cached;
+    }
+
+    final ChannelPrefixSums transitions = this.channels[aChannelIdx];
+    if ( transitions == null )
+    {
+      final int mask = ( 1 << aChannelIdx );
+      if ( ( this.pending & mask ) == 0 )
+      {
+        this.pending |= mask;
+        new TransitionWorker( aChannelIdx ).execute();
+      }
+      return null;
+    }
+
+    final int sampleCount = this.data.getValues().length;
+
+    // The number of edges at or before the given sample...
+    final int edgeIdx = transitions.findNextEdge( aSampleIdx );
+
+    final int transitionIdx = ( edgeIdx > 0 ) ? transitions.getEdge( edgeIdx - 1 ) : 0;
+    final int startIdx = ( edgeIdx > 1 ) ? transitions.getEdge( edgeIdx - 2 ) : 0;
+    final int limitIdx = ( edgeIdx < transitions.getEdgeCount() ) ? transitions.getEdge( edgeIdx ) : sampleCount;
+    final int endIdx = Math.min( limitIdx, sampleCount - 1 );
+
+    this.lastPulse = new Pulse( aChannelIdx, startIdx, transitionIdx, endIdx, limitIdx );
+    return this.lastPulse;
+  }
+
+  /**
+   * Returns whether this index belongs to the given acquisition result.
+   * 
+   * @param aData
+   *          the acquisition result to test.
+   * @return <code>true</code> if this index indexes the given acquisition
+   *         result, <code>false</code> otherwise.
+   */
+  boolean isIndexOf( final AcquisitionResult aData )
+  {
+    return this.data == aData;
+  }
+}
@@ -89,15 +89,8 @@ public final class AnnotationsHelper
   public DataAnnotation<?> getAnnotation( final long aTimestamp )
   {
     DataAnnotation<?> result = null;
-    for ( Annotation<?> annotation : this.channel.getAnnotations() )
+    for ( DataAnnotation<?> ann : this.channel.getDataAnnotations( aTimestamp, aTimestamp ) )
     {
-      if ( !( annotation instanceof DataAnnotation<?> ) )
-      {
-        continue;
-      }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
       final long annStartTime = ann.getStartTimestamp();
       final long annEndTime = ann.getEndTimestamp();
 
@@ -193,26 +186,13 @@ public final class AnnotationsHelper
       final long aEndTime )
   {
     List<T> result = new ArrayList<T>();
-    for ( Annotation<?> annotation : this.channel.getAnnotations() )
+    // Only creates the annotations inside the clip boundaries...
+    for ( DataAnnotation<?> ann : this.channel.getDataAnnotations( aStartTime, aEndTime ) )
     {
-      if ( !aType.isAssignableFrom( annotation.getClass() ) )
-      {
-        continue;
-      }
-
-      final DataAnnotation<?> ann = ( DataAnnotation<?> )annotation;
-
-      final long annStartTime = ann.getStartTimestamp();
-      final long annEndTime = ann.getEndTimestamp();
-
-      if ( ( ( annStartTime < aStartTime ) && ( annEndTime < aStartTime ) )
-          || ( ( annStartTime > aEndTime ) && ( annEndTime > aEndTime ) ) )
+      if ( aType.isAssignableFrom( ann.getClass() ) )
       {
-        // Simple reject: annotation falls outside clip boundaries...
-        continue;
+        result.add( ( T )ann );
       }
-
-      result.add( ( T )ann );
     }
     return result;
   }
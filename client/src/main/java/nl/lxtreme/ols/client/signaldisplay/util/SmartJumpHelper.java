@@ -27,6 +27,7 @@ import java.util.List;
 
 import nl.lxtreme.ols.api.data.Cursor;
 import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.data.search.*;
 import nl.lxtreme.ols.client.action.SmartJumpAction.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
 import nl.lxtreme.ols.client.signaldisplay.model.*;
@@ -98,6 +99,9 @@ public final class SmartJumpHelper
 
         case SIGNAL_EDGE:
           return getSignalEdgeJumpPosition( aChannelIndex, refTimestamp );
+
+        case SEARCH_RESULT:
+          return getSearchResultJumpPosition( refTimestamp );
       }
     }
 
@@ -176,6 +180,32 @@ public final class SmartJumpHelper
     return -1L;
   }
 
+  /**
+   * @param refTimestamp
+   * @return
+   */
+  private long getSearchResultJumpPosition( final long refTimestamp )
+  {
+    SearchResult searchResult = getSignalDiagramModel().getSearchResult();
+
+    int index;
+    if ( this.direction.isLeft() )
+    {
+      index = searchResult.indexOfPrevious( refTimestamp );
+    }
+    else
+    {
+      index = searchResult.indexOfNext( refTimestamp );
+    }
+
+    if ( index >= 0 )
+    {
+      return searchResult.getStartTimestamp( index );
+    }
+
+    return -1L;
+  }
+
   /**
    * @return
    */
@@ -27,6 +27,7 @@ import java.text.*;
 
 import javax.swing.*;
 
+import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.client.signaldisplay.*;
@@ -41,7 +42,7 @@ import nl.lxtreme.ols.util.swing.*;
  * sample rate, sample count, total capture time, etc.
  */
 public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWindow, IDataModelChangeListener,
-    ZoomListener
+    ICaptureStatisticsListener, ZoomListener
 {
   // CONSTANTS
 
@@ -59,6 +60,8 @@ public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWi
   private final JLabel displayedTime;
   private final JLabel secondsPerPixel;
   private final JLabel unitOfTime;
+  private final JLabel edgeCount;
+  private final JLabel staticChannels;
 
   // CONSTRUCTORS
 
@@ -80,6 +83,8 @@ public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWi
     this.displayedTime = new JLabel( "-" );
     this.secondsPerPixel = new JLabel( "-" );
     this.unitOfTime = new JLabel( "-" );
+    this.edgeCount = new JLabel( "-" );
+    this.staticChannels = new JLabel( "-" );
   }
 
   // METHODS
@@ -99,12 +104,56 @@ public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWi
     result.initComponent();
 
     aController.addDataModelChangeListener( result );
+    aController.addCaptureStatisticsListener( result );
 
     aController.getZoomController().addZoomListener( result );
 
     return result;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void captureStatisticsAvailable( final CaptureStatistics aStatistics )
+  {
+    final String ecText = new DecimalFormat().format( aStatistics.getTotalEdgeCount() );
+
+    final int staticMask = aStatistics.getStaticChannels();
+    final String scText;
+    if ( staticMask == 0 )
+    {
+      scText = "none";
+    }
+    else
+    {
+      final StringBuilder sb = new StringBuilder();
+      for ( int i = 0; i < Ols.MAX_CHANNELS; i++ )
+      {
+        if ( ( staticMask & ( 1 << i ) ) != 0 )
+        {
+          if ( sb.length() > 0 )
+          {
+            sb.append( ", " );
+          }
+          sb.append( i );
+        }
+      }
+      scText = sb.toString();
+    }
+
+    SwingComponentUtils.invokeOnEDT( new Runnable()
+    {
+      public void run()
+      {
+        AcquisitionDetailsView.this.edgeCount.setText( ecText );
+        AcquisitionDetailsView.this.staticChannels.setText( scText );
+
+        repaint( 25L );
+      };
+    } );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -150,6 +199,9 @@ public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWi
         AcquisitionDetailsView.this.sampleRate.setText( srText );
         AcquisitionDetailsView.this.sampleCount.setText( scText );
         AcquisitionDetailsView.this.totalWidth.setText( twText );
+        // Updated as soon as the channel statistics become available...
+        AcquisitionDetailsView.this.edgeCount.setText( "-" );
+        AcquisitionDetailsView.this.staticChannels.setText( "-" );
 
         repaint( 25L );
       };
@@ -277,6 +329,14 @@ public class AcquisitionDetailsView extends AbstractViewLayer implements IToolWi
     panel.add( SwingComponentUtils.createRightAlignedLabel( "Unit of time:" ) );
     panel.add( this.unitOfTime );
 
+    // ROW 7
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Edge count:" ) );
+    panel.add( this.edgeCount );
+
+    // ROW 8
+    panel.add( SwingComponentUtils.createRightAlignedLabel( "Static channels:" ) );
+    panel.add( this.staticChannels );
+
     SpringLayoutUtils.makeEditorGrid( panel, 10, 10 );
 
     add( panel, BorderLayout.NORTH );
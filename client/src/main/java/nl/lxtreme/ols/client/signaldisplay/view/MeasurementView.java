@@ -216,7 +216,7 @@ public class MeasurementView extends AbstractViewLayer implements IToolWindow, I
     // VARIABLES
 
     private final AcquisitionResult result;
-    private final int mask;
+    private final int index;
     private final long startTimestamp;
     private final long endTimestamp;
 
@@ -229,7 +229,7 @@ public class MeasurementView extends AbstractViewLayer implements IToolWindow, I
         final long aEndTimestamp )
     {
       this.result = aResult;
-      this.mask = ( 1 << aIndex );
+      this.index = aIndex;
       this.startTimestamp = aStartTimestamp;
       this.endTimestamp = aEndTimestamp;
     }
@@ -248,45 +248,16 @@ public class MeasurementView extends AbstractViewLayer implements IToolWindow, I
 
       final boolean hasTimingData = this.result.hasTimingData();
 
-      final int[] values = this.result.getValues();
-      final long[] timestamps = this.result.getTimestamps();
-
-      int fallingEdgeCount = 0;
-      long highTime = 0;
-      int risingEdgeCount = 0;
-      long lowTime = 0;
+      // Use the (cached) prefix sums of the channel, so the measurement takes
+      // constant time, regardless of the range that is measured...
+      final ChannelPrefixSums prefixSums = ChannelPrefixSums.get( this.result, this.index )[0];
 
-      int i = startIdx;
-      long lastTransition = timestamps[i];
-      int lastBitValue = values[i++] & this.mask;
+      final ChannelPrefixSums.Measurement measurement = prefixSums.measure( startIdx, endIdx );
 
-      for ( ; !Thread.currentThread().isInterrupted() && ( i <= endIdx ); i++ )
-      {
-        final int bitValue = values[i] & this.mask;
-        final Edge edge = Edge.toEdge( lastBitValue, bitValue );
-
-        if ( !edge.isNone() )
-        {
-          final long periodTime = timestamps[i] - lastTransition;
-          lastTransition = timestamps[i];
-
-          if ( edge.isRising() )
-          {
-            // Low to high transition: previously seen a low-state...
-            risingEdgeCount++;
-            lowTime += periodTime;
-          }
-          else
-          /* if ( edge.isFalling() ) */
-          {
-            // High to low transition: previously seen a high-state...
-            fallingEdgeCount++;
-            highTime += periodTime;
-          }
-        }
-
-        lastBitValue = bitValue;
-      }
+      final int risingEdgeCount = measurement.getRisingEdgeCount();
+      final int fallingEdgeCount = measurement.getFallingEdgeCount();
+      final long lowTime = measurement.getLowTime();
+      final long highTime = measurement.getHighTime();
 
       final double measureTime = Math.abs( ( this.endTimestamp - this.startTimestamp )
           / ( double )this.result.getSampleRate() );
@@ -1036,13 +1007,24 @@ public class MeasurementView extends AbstractViewLayer implements IToolWindow, I
     {
       if ( canPerformMeasurement() )
       {
-        if ( ( this.signalMeasurerWorker == null ) || this.signalMeasurerWorker.isDone() )
+        Channel channel = ( Channel )MeasurementView.this.measureChannel.getSelectedItem();
+        Cursor cursorA = ( Cursor )MeasurementView.this.cursorA.getSelectedItem();
+        Cursor cursorB = ( Cursor )MeasurementView.this.cursorB.getSelectedItem();
+
+        final SignalDiagramModel model = getSignalDiagramModel();
+        final CaptureStatistics statistics = model.getCaptureStatistics();
+        if ( ( cursorA == null ) && ( cursorB == null ) && ( statistics != null ) )
         {
-          this.indicator.setVisible( true );
+          // Measuring the entire capture; use its precalculated statistics...
+          final ChannelStatistics channelStats = statistics.getChannelStatistics( channel.getIndex() );
 
-          Channel channel = ( Channel )MeasurementView.this.measureChannel.getSelectedItem();
-          Cursor cursorA = ( Cursor )MeasurementView.this.cursorA.getSelectedItem();
-          Cursor cursorB = ( Cursor )MeasurementView.this.cursorB.getSelectedItem();
+          updatePulseCountInformation( new PulseCountInfo( statistics.getMeasureTime(),
+              channelStats.getRisingEdgeCount(), channelStats.getFallingEdgeCount(), channelStats.getLowTime(),
+              channelStats.getHighTime(), model.getSampleRate(), model.hasTimingData() ) );
+        }
+        else if ( ( this.signalMeasurerWorker == null ) || this.signalMeasurerWorker.isDone() )
+        {
+          this.indicator.setVisible( true );
 
           this.signalMeasurerWorker = new SignalMeasurerWorker( channel, cursorA, cursorB );
           this.signalMeasurerWorker.execute();
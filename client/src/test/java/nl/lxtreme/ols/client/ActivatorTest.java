@@ -0,0 +1,124 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for the bundle adapters of {@link Activator}, which
+ * create the lazy placeholders from the bundle headers.
+ */
+public class ActivatorTest
+{
+  // METHODS
+
+  /**
+   * Tests that a lazy device is only created when the device name is given.
+   */
+  @Test
+  public void testCreateLazyDeviceOk()
+  {
+    final Activator.DeviceBundleAdapter adapter = new Activator.DeviceBundleAdapter();
+
+    assertNull( adapter.createLazyService( createHeaders() ) );
+    assertNull( adapter.createLazyService( createHeaders( "OLS-DeviceName", "" ) ) );
+
+    final Device device = adapter.createLazyService( createHeaders( "OLS-DeviceName", "Test Device" ) );
+    assertEquals( "Test Device", device.getName() );
+  }
+
+  /**
+   * Tests that a lazy exporter is only created when the name and extensions
+   * are given, and that the extensions are split and trimmed.
+   */
+  @Test
+  public void testCreateLazyExporterOk()
+  {
+    final Activator.ExporterBundleAdapter adapter = new Activator.ExporterBundleAdapter();
+
+    assertNull( adapter.createLazyService( createHeaders( "OLS-ExporterName", "Image" ) ) );
+
+    final Exporter exporter = adapter.createLazyService( createHeaders( "OLS-ExporterName", "Image",
+        "OLS-ExporterExtensions", " png, gif ,," ) );
+    assertEquals( "Image", exporter.getName() );
+    assertArrayEquals( new String[] { "png", "gif" }, exporter.getFilenameExtentions() );
+  }
+
+  /**
+   * Tests that a lazy importer is only created when the name and extensions
+   * are given.
+   */
+  @Test
+  public void testCreateLazyImporterOk()
+  {
+    final Activator.ImporterBundleAdapter adapter = new Activator.ImporterBundleAdapter();
+
+    assertNull( adapter.createLazyService( createHeaders( "OLS-ImporterExtensions", "vcd" ) ) );
+
+    final Importer importer = adapter.createLazyService( createHeaders( "OLS-ImporterName", "Value Change Dump",
+        "OLS-ImporterExtensions", "vcd" ) );
+    assertEquals( "Value Change Dump", importer.getName() );
+    assertArrayEquals( new String[] { "vcd" }, importer.getFilenameExtentions() );
+  }
+
+  /**
+   * Tests that a lazy tool is only created for a known category, otherwise
+   * the tool is loaded eagerly.
+   */
+  @SuppressWarnings( "rawtypes" )
+  @Test
+  public void testCreateLazyToolOk()
+  {
+    final Activator.ToolBundleAdapter adapter = new Activator.ToolBundleAdapter();
+
+    assertNull( adapter.createLazyService( createHeaders( "OLS-ToolName", "SPI analyser ..." ) ) );
+    assertNull( adapter.createLazyService( createHeaders( "OLS-ToolName", "SPI analyser ...", "OLS-ToolCategory",
+        "UNKNOWN" ) ) );
+
+    final Tool tool = adapter.createLazyService( createHeaders( "OLS-ToolName", "SPI analyser ...",
+        "OLS-ToolCategory", " DECODER " ) );
+    assertEquals( "SPI analyser ...", tool.getName() );
+    assertEquals( ToolCategory.DECODER, tool.getCategory() );
+  }
+
+  /**
+   * Creates bundle headers from the given key-value pairs.
+   */
+  private Dictionary<String, String> createHeaders( final String... aKeyValues )
+  {
+    final Hashtable<String, String> result = new Hashtable<String, String>();
+    for ( int i = 0; i < aKeyValues.length; i += 2 )
+    {
+      result.put( aKeyValues[i], aKeyValues[i + 1] );
+    }
+    return result;
+  }
+}
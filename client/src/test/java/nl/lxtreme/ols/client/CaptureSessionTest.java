@@ -0,0 +1,245 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.Annotation;
+import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
+import nl.lxtreme.ols.api.data.search.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CaptureSession}.
+ */
+public class CaptureSessionTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a headless decoder that annotates the last sample value of a
+   * capture.
+   */
+  static final class StubDecoder implements HeadlessTool<Void>
+  {
+    // VARIABLES
+
+    private final boolean setUp;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new StubDecoder instance.
+     */
+    StubDecoder( final boolean aSetUp )
+    {
+      this.setUp = aSetUp;
+    }
+
+    // METHODS
+
+    @Override
+    public ToolTask<Void> createConfiguredToolTask( final ToolContext aContext,
+        final ToolProgressListener aProgressListener, final AnnotationListener aAnnotationListener )
+    {
+      if ( !this.setUp )
+      {
+        return null;
+      }
+      return createToolTask( aContext, aProgressListener, aAnnotationListener );
+    }
+
+    @Override
+    public ToolTask<Void> createToolTask( final ToolContext aContext, final ToolProgressListener aProgressListener,
+        final AnnotationListener aAnnotationListener )
+    {
+      return new ToolTask<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          final int value = aContext.getData().getValues()[aContext.getEndSampleIndex()];
+          aAnnotationListener.clearAnnotations( 0 );
+          aAnnotationListener.onAnnotation( new Annotation<Integer>()
+          {
+            @Override
+            public Integer getAnnotation()
+            {
+              return Integer.valueOf( value );
+            }
+
+            @Override
+            public int getChannel()
+            {
+              return 0;
+            }
+
+            @Override
+            public int compareTo( final Annotation<Integer> aOther )
+            {
+              return getAnnotation().compareTo( aOther.getAnnotation() );
+            }
+          } );
+          return null;
+        }
+      };
+    }
+
+    @Override
+    public ToolCategory getCategory()
+    {
+      return ToolCategory.DECODER;
+    }
+
+    @Override
+    public String getName()
+    {
+      return "Stub decoder";
+    }
+
+    @Override
+    public void invoke( final java.awt.Window aParent, final ToolContext aContext )
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that a session continues until a capture meets its condition, and
+   * then stops.
+   */
+  @Test( timeout = 10000 )
+  public void testStopsWhenConditionIsMetOk() throws InterruptedException
+  {
+    final CaptureHistory history = new CaptureHistory( 10, Long.MAX_VALUE, null );
+    final CaptureSession session = new CaptureSession( history,
+        Arrays.asList( CaptureCondition.pattern( 0x03, 0x03 ) ) );
+
+    final CountDownLatch latch = new CountDownLatch( 1 );
+    final int[] hitSeqNo = { -1 };
+    session.start( new CaptureSession.ConditionListener()
+    {
+      @Override
+      public void conditionMet( final CaptureSession aSession, final int aSeqNo, final AcquisitionResult aData,
+          final CaptureCondition aCondition, final SearchResult aResult )
+      {
+        hitSeqNo[0] = aSeqNo;
+        latch.countDown();
+      }
+    } );
+
+    assertTrue( session.captureCompleted( createData( 0x01, 0x02 ) ) );
+    assertTrue( session.captureCompleted( createData( 0x02, 0x00 ) ) );
+    session.captureCompleted( createData( 0x01, 0x03 ) );
+
+    latch.await();
+
+    assertEquals( 3, hitSeqNo[0] );
+    assertFalse( session.isActive() );
+    assertTrue( session.isConditionMet() );
+    assertEquals( 3, session.getCaptureCount() );
+    assertEquals( 3, history.size() );
+
+    // Captures completed after the session stopped are ignored...
+    assertFalse( session.captureCompleted( createData( 0x03, 0x03 ) ) );
+    assertEquals( 3, history.size() );
+  }
+
+  /**
+   * Tests that the decoders of a session run on each capture, and that the
+   * annotations of the capture that meets the condition are kept.
+   */
+  @Test( timeout = 10000 )
+  public void testDecodesEachCaptureOk() throws InterruptedException
+  {
+    final List<HeadlessTool<?>> decoders = new ArrayList<HeadlessTool<?>>();
+    decoders.add( new StubDecoder( true ) );
+    decoders.add( new StubDecoder( false ) );
+
+    final CaptureSession session = new CaptureSession( new CaptureHistory( 10, Long.MAX_VALUE, null ),
+        Arrays.asList( CaptureCondition.pattern( 0x03, 0x03 ) ), decoders );
+
+    final CountDownLatch latch = new CountDownLatch( 1 );
+    final List<Annotation<?>> decoded = new ArrayList<Annotation<?>>();
+    session.start( new CaptureSession.ConditionListener()
+    {
+      @Override
+      public void conditionMet( final CaptureSession aSession, final int aSeqNo, final AcquisitionResult aData,
+          final CaptureCondition aCondition, final SearchResult aResult )
+      {
+        decoded.addAll( aSession.getDecodedAnnotations( aSeqNo ) );
+        latch.countDown();
+      }
+    } );
+
+    session.captureCompleted( createData( 0x01, 0x02 ) );
+    session.captureCompleted( createData( 0x01, 0x03 ) );
+
+    latch.await();
+
+    // Only the set up decoder ran, on the whole capture...
+    assertEquals( 1, decoded.size() );
+    assertEquals( Integer.valueOf( 0x03 ), decoded.get( 0 ).getAnnotation() );
+    assertTrue( session.getDecodedAnnotations( 1 ).isEmpty() );
+  }
+
+  /**
+   * Tests that a stopped session cannot be restarted.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testRestartStoppedSessionFail()
+  {
+    final CaptureSession session = new CaptureSession( new CaptureHistory( 1, 0L, null ),
+        Collections.<CaptureCondition> emptyList() );
+    final CaptureSession.ConditionListener listener = new CaptureSession.ConditionListener()
+    {
+      @Override
+      public void conditionMet( final CaptureSession aSession, final int aSeqNo, final AcquisitionResult aData,
+          final CaptureCondition aCondition, final SearchResult aResult )
+      {
+        fail( "Should not be called!" );
+      }
+    };
+
+    session.start( listener );
+    session.stop();
+    session.start( listener );
+  }
+
+  /**
+   * Creates captured data with two samples.
+   */
+  private AcquisitionResult createData( final int aFirst, final int aSecond )
+  {
+    return new CapturedData( new int[] { aFirst, aSecond }, new long[] { 0L, 10L }, -1L, 100, 8, 0xFF, 20L );
+  }
+}
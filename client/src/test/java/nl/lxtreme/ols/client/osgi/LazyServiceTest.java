@@ -0,0 +1,250 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2012 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.client.osgi;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.awt.*;
+import java.io.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for the lazy placeholders of tools, devices, exporters
+ * and importers.
+ */
+public class LazyServiceTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a bundle adapter that returns a fixed delegate, or fails in case
+   * there is none.
+   */
+  static final class StubAdapter<TYPE> extends GenericBundleAdapter<TYPE>
+  {
+    // VARIABLES
+
+    private final TYPE delegate;
+    private int activations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new StubAdapter instance.
+     */
+    StubAdapter( final Class<TYPE> aClass, final TYPE aDelegate )
+    {
+      super( aClass, "OLS-Test" );
+      this.delegate = aDelegate;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected synchronized TYPE getDelegate()
+    {
+      this.activations++;
+      if ( this.delegate == null )
+      {
+        throw new IllegalStateException( "Service is not available!" );
+      }
+      return this.delegate;
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that a lazy device is not set up, and does not activate its bundle,
+   * until it is set up.
+   */
+  @SuppressWarnings( "boxing" )
+  @Test
+  public void testLazyDeviceActivatesUponSetupOk() throws IOException
+  {
+    final Device device = mock( Device.class );
+    when( device.setupCapture( any( Window.class ) ) ).thenReturn( true );
+    when( device.isSetup() ).thenReturn( true );
+    final StubAdapter<Device> adapter = new StubAdapter<Device>( Device.class, device );
+
+    final LazyDevice lazyDevice = new LazyDevice( adapter, "Test Device" );
+    assertEquals( "Test Device", lazyDevice.getName() );
+    assertFalse( lazyDevice.isSetup() );
+    lazyDevice.close();
+    assertEquals( 0, adapter.activations );
+
+    assertTrue( lazyDevice.setupCapture( null ) );
+    assertTrue( lazyDevice.isSetup() );
+    lazyDevice.close();
+    verify( device ).close();
+  }
+
+  /**
+   * Tests that an unavailable lazy device is never set up, and fails to
+   * create acquisition tasks with an I/O exception.
+   */
+  @Test
+  public void testLazyDeviceUnavailableFail() throws IOException
+  {
+    final LazyDevice lazyDevice = new LazyDevice( new StubAdapter<Device>( Device.class, null ), "Test Device" );
+
+    try
+    {
+      lazyDevice.setupCapture( null );
+      fail( "Expected IllegalStateException!" );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // Ok; expected...
+    }
+    assertFalse( lazyDevice.isSetup() );
+    lazyDevice.close();
+
+    try
+    {
+      lazyDevice.createAcquisitionTask( null );
+      fail( "Expected IOException!" );
+    }
+    catch ( IOException exception )
+    {
+      assertTrue( exception.getMessage().contains( "Test Device" ) );
+    }
+  }
+
+  /**
+   * Tests that a lazy exporter provides its metadata without activating its
+   * bundle, and delegates exporting to the actual exporter.
+   */
+  @Test
+  public void testLazyExporterDelegatesExportOk() throws IOException
+  {
+    final Exporter exporter = mock( Exporter.class );
+    final StubAdapter<Exporter> adapter = new StubAdapter<Exporter>( Exporter.class, exporter );
+
+    final LazyExporter lazyExporter = new LazyExporter( adapter, "CSV File", new String[] { "csv" } );
+    assertEquals( "CSV File", lazyExporter.getName() );
+    assertArrayEquals( new String[] { "csv" }, lazyExporter.getFilenameExtentions() );
+    assertEquals( 0, adapter.activations );
+
+    final DataSet dataSet = mock( DataSet.class );
+    final JComponent component = new JPanel();
+    final OutputStream stream = new ByteArrayOutputStream();
+    lazyExporter.export( dataSet, component, stream );
+
+    verify( exporter ).export( dataSet, component, stream );
+  }
+
+  /**
+   * Tests that an unavailable lazy exporter fails with an I/O exception.
+   */
+  @Test( expected = IOException.class )
+  public void testLazyExporterUnavailableFail() throws IOException
+  {
+    final LazyExporter lazyExporter = new LazyExporter( new StubAdapter<Exporter>( Exporter.class, null ), "CSV File",
+        new String[] { "csv" } );
+
+    lazyExporter.export( mock( DataSet.class ), new JPanel(), new ByteArrayOutputStream() );
+  }
+
+  /**
+   * Tests that a lazy importer provides its metadata without activating its
+   * bundle, and delegates importing to the actual importer.
+   */
+  @Test
+  public void testLazyImporterDelegatesImportOk() throws IOException
+  {
+    final Importer importer = mock( Importer.class );
+    final StubAdapter<Importer> adapter = new StubAdapter<Importer>( Importer.class, importer );
+
+    final LazyImporter lazyImporter = new LazyImporter( adapter, "Value Change Dump", new String[] { "vcd" } );
+    assertEquals( "Value Change Dump", lazyImporter.getName() );
+    assertArrayEquals( new String[] { "vcd" }, lazyImporter.getFilenameExtentions() );
+    assertEquals( 0, adapter.activations );
+
+    final Project project = mock( Project.class );
+    final InputStream stream = new ByteArrayInputStream( new byte[0] );
+    lazyImporter.importData( project, stream );
+
+    verify( importer ).importData( project, stream );
+  }
+
+  /**
+   * Tests that an unavailable lazy importer fails with an I/O exception.
+   */
+  @Test( expected = IOException.class )
+  public void testLazyImporterUnavailableFail() throws IOException
+  {
+    final LazyImporter lazyImporter = new LazyImporter( new StubAdapter<Importer>( Importer.class, null ),
+        "Value Change Dump", new String[] { "vcd" } );
+
+    lazyImporter.importData( mock( Project.class ), new ByteArrayInputStream( new byte[0] ) );
+  }
+
+  /**
+   * Tests that a lazy tool provides its metadata without activating its
+   * bundle, and delegates invocations to the actual tool.
+   */
+  @SuppressWarnings( { "rawtypes", "unchecked" } )
+  @Test
+  public void testLazyToolDelegatesInvokeOk()
+  {
+    final Tool tool = mock( Tool.class );
+    final StubAdapter<Tool> adapter = new StubAdapter<Tool>( Tool.class, tool );
+
+    final LazyTool lazyTool = new LazyTool( adapter, "SPI analyser ...", ToolCategory.DECODER );
+    assertEquals( "SPI analyser ...", lazyTool.getName() );
+    assertEquals( ToolCategory.DECODER, lazyTool.getCategory() );
+    assertEquals( 0, adapter.activations );
+
+    final ToolContext context = mock( ToolContext.class );
+    lazyTool.invoke( null, context );
+
+    verify( tool ).invoke( null, context );
+  }
+
+  /**
+   * Tests that an unavailable lazy tool fails with an illegal state exception.
+   */
+  @SuppressWarnings( "rawtypes" )
+  @Test( expected = IllegalStateException.class )
+  public void testLazyToolUnavailableFail()
+  {
+    final LazyTool lazyTool = new LazyTool( new StubAdapter<Tool>( Tool.class, null ), "SPI analyser ...",
+        ToolCategory.DECODER );
+
+    lazyTool.invoke( null, mock( ToolContext.class ) );
+  }
+}
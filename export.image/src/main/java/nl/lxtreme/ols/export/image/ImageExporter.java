@@ -24,8 +24,10 @@ package nl.lxtreme.ols.export.image;
 import java.awt.*;
 import java.awt.image.*;
 import java.io.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
 
-import javax.imageio.*;
 import javax.swing.*;
 import javax.swing.border.*;
 
@@ -35,15 +37,58 @@ import nl.lxtreme.ols.api.data.export.*;
 
 /**
  * Provides a simple export-to-image functionality.
+ * <p>
+ * For a scroll pane, its entire view is exported, including its row and column
+ * headers, not only the part that is currently visible.
+ * </p>
+ * <p>
+ * The diagram is painted in horizontal bands of at most {@value #BAND_HEIGHT}
+ * rows, which are streamed to a {@link PngStreamWriter} one at a time, so the
+ * memory needed does not depend on the height of the exported image. While one
+ * band is being compressed in the background, the next one is painted. Each
+ * band is painted with a clip of only that band; the signal diagram painters
+ * use the clip bounds to determine which signals and samples to paint.
+ * </p>
  */
 public class ImageExporter implements Exporter
 {
+  // INNER TYPES
+
+  /**
+   * Denotes a component that is painted as part of the exported image.
+   */
+  static final class Part
+  {
+    // VARIABLES
+
+    final Component component;
+    final Rectangle bounds;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Part instance.
+     * 
+     * @param aComponent
+     *          the component to paint;
+     * @param aBounds
+     *          the bounds of the component in the exported image.
+     */
+    Part( final Component aComponent, final Rectangle aBounds )
+    {
+      this.component = aComponent;
+      this.bounds = aBounds;
+    }
+  }
+
   // CONSTANTS
 
-  /** The maximum width of the image to export. */
-  private static final int MAX_WIDTH = 8192;
-  /** The maximum height of the image to export. */
-  private static final int MAX_HEIGHT = 8192;
+  /** The maximum width of the image to export, bounding the size of a row. */
+  static final int MAX_WIDTH = 1 << 20;
+  /** The maximum number of rows painted at once. */
+  static final int BAND_HEIGHT = 64;
+  /** The maximum number of pixels painted at once. */
+  private static final int BAND_PIXELS = 1 << 22;
 
   // METHODS
 
@@ -54,26 +99,61 @@ public class ImageExporter implements Exporter
   public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
       throws IOException
   {
-    final Dimension dims = getExportSize( aComponent );
+    final List<Part> parts = getParts( aComponent );
 
-    final BufferedImage image = new BufferedImage( dims.width, dims.height, BufferedImage.TYPE_INT_RGB );
+    final Dimension dims = getExportSize( parts );
+    if ( ( dims.width <= 0 ) || ( dims.height <= 0 ) )
+    {
+      throw new IOException( "Export to PNG failed! Nothing to export?" );
+    }
+
+    final PngStreamWriter writer = new PngStreamWriter( aStream, dims.width, dims.height );
+
+    // Two bands: one is painted while the other is being compressed...
+    final int bandHeight = Math.max( 1, Math.min( Math.min( BAND_HEIGHT, BAND_PIXELS / dims.width ), dims.height ) );
+    final BufferedImage[] bands = { new BufferedImage( dims.width, bandHeight, BufferedImage.TYPE_INT_RGB ),
+        new BufferedImage( dims.width, bandHeight, BufferedImage.TYPE_INT_RGB ) };
+    final Future<?>[] pending = new Future<?>[bands.length];
 
-    // Create a graphics contents on the buffered image
-    Graphics2D g2d = image.createGraphics();
+    final ExecutorService encoder = Executors.newSingleThreadExecutor();
     try
     {
-      paintDiagram( g2d, aComponent );
+      int bandIdx = 0;
+      for ( int y = 0; y < dims.height; y += bandHeight )
+      {
+        final BufferedImage band = bands[bandIdx];
+        final int rows = Math.min( bandHeight, dims.height - y );
+
+        // Wait until this band is compressed, before painting it again...
+        awaitEncoded( pending[bandIdx] );
+
+        paintBand( band, parts, y );
+
+        pending[bandIdx] = encoder.submit( new Callable<Void>()
+        {
+          @Override
+          public Void call() throws IOException
+          {
+            final int[] pixels = ( ( DataBufferInt )band.getRaster().getDataBuffer() ).getData();
+            writer.writeRows( pixels, 0, band.getWidth(), rows );
+            return null;
+          }
+        } );
+
+        bandIdx = ( bandIdx + 1 ) % bands.length;
+      }
+
+      for ( Future<?> future : pending )
+      {
+        awaitEncoded( future );
+      }
     }
     finally
     {
-      g2d.dispose();
-      g2d = null;
+      encoder.shutdownNow();
     }
 
-    if ( !ImageIO.write( image, "png", aStream ) )
-    {
-      throw new IOException( "Export to PNG failed! Image not supported?" );
-    }
+    writer.finish();
   }
 
   /**
@@ -95,71 +175,180 @@ public class ImageExporter implements Exporter
   }
 
   /**
-   * Returns the export image size for the given component.
+   * Waits until the given band is compressed.
    * 
-   * @param aDiagram
-   *          the component to get the export image size for, cannot be
+   * @param aPending
+   *          the pending compression of a band, can be <code>null</code>.
+   * @throws IOException
+   *           in case the compression failed, or was interrupted.
+   */
+  private void awaitEncoded( final Future<?> aPending ) throws IOException
+  {
+    if ( aPending == null )
+    {
+      return;
+    }
+
+    try
+    {
+      aPending.get();
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Export to PNG interrupted!" );
+    }
+    catch ( ExecutionException exception )
+    {
+      final Throwable cause = exception.getCause();
+      if ( cause instanceof IOException )
+      {
+        throw ( IOException )cause;
+      }
+      throw new IOException( "Export to PNG failed!", cause );
+    }
+  }
+
+  /**
+   * Returns the export image size for the given parts.
+   * 
+   * @param aParts
+   *          the parts to get the export image size for, cannot be
    *          <code>null</code>.
    * @return a export image size, never <code>null</code>.
    */
-  private Dimension getExportSize( final JComponent aDiagram )
+  static Dimension getExportSize( final List<Part> aParts )
   {
-    Dimension dims = getImageSize( aDiagram );
-
-    final int width = Math.min( dims.width, MAX_WIDTH );
-    final int height = Math.min( dims.height, MAX_HEIGHT );
+    int width = 0;
+    int height = 0;
+    for ( Part part : aParts )
+    {
+      width = Math.max( width, part.bounds.x + part.bounds.width );
+      height = Math.max( height, part.bounds.y + part.bounds.height );
+    }
 
-    return new Dimension( width, height );
+    return new Dimension( Math.min( width, MAX_WIDTH ), height );
   }
 
   /**
-   * Returns the export image size for the given component.
+   * Returns the components to paint for the given component, with their
+   * bounds in the exported image.
    * 
    * @param aDiagram
-   *          the component to get the export image size for, cannot be
-   *          <code>null</code>.
-   * @return a export image size, never <code>null</code>.
+   *          the component to export, cannot be <code>null</code>.
+   * @return the parts to paint, never <code>null</code>.
    */
-  private Dimension getImageSize( final JComponent aDiagram )
+  static List<Part> getParts( final JComponent aDiagram )
   {
+    final List<Part> result = new ArrayList<Part>();
+
     if ( aDiagram instanceof JScrollPane )
     {
       final JScrollPane scrollpane = ( JScrollPane )aDiagram;
 
-      final Dimension visibleViewSize = scrollpane.getViewport().getExtentSize();
-      final Dimension viewSize = scrollpane.getViewport().getViewSize();
-      final Dimension rowHeaderSize = scrollpane.getRowHeader().getExtentSize();
-      final Dimension columnHeaderSize = scrollpane.getColumnHeader().getExtentSize();
+      final JViewport viewport = scrollpane.getViewport();
+      final JViewport rowHeader = scrollpane.getRowHeader();
+      final JViewport columnHeader = scrollpane.getColumnHeader();
+
+      // The entire view, not only its visible part...
+      final Dimension viewSize = viewport.getViewSize();
+
+      int left = 0;
+      if ( ( rowHeader != null ) && ( rowHeader.getView() != null ) )
+      {
+        left = rowHeader.getExtentSize().width;
+      }
+      int top = 0;
+      if ( ( columnHeader != null ) && ( columnHeader.getView() != null ) )
+      {
+        top = columnHeader.getExtentSize().height;
+      }
 
-      final int width = Math.min( viewSize.width, visibleViewSize.width ) + rowHeaderSize.width;
-      final int height = Math.min( viewSize.height, visibleViewSize.height ) + columnHeaderSize.height;
+      final Component corner = scrollpane.getCorner( ScrollPaneConstants.UPPER_LEADING_CORNER );
+      if ( ( corner != null ) && ( left > 0 ) && ( top > 0 ) )
+      {
+        result.add( new Part( corner, new Rectangle( 0, 0, left, top ) ) );
+      }
+      if ( top > 0 )
+      {
+        result.add( new Part( columnHeader.getView(), new Rectangle( left, 0, viewSize.width, top ) ) );
+      }
+      if ( left > 0 )
+      {
+        result.add( new Part( rowHeader.getView(), new Rectangle( 0, top, left, viewSize.height ) ) );
+      }
+      if ( viewport.getView() != null )
+      {
+        result.add( new Part( viewport.getView(), new Rectangle( left, top, viewSize.width, viewSize.height ) ) );
+      }
+    }
+    else
+    {
+      final Rectangle bounds = new Rectangle( aDiagram.getSize() );
 
-      return new Dimension( width, height );
+      final Border border = aDiagram.getBorder();
+      final Insets insets = ( border == null ) ? null : border.getBorderInsets( aDiagram );
+      if ( insets != null )
+      {
+        // Leave out the border at the top and left...
+        bounds.translate( -insets.left, -insets.top );
+      }
+      result.add( new Part( aDiagram, bounds ) );
     }
 
-    return aDiagram.getSize();
+    return result;
   }
 
   /**
-   * Paints the given component on the given canvas.
+   * Paints a single band of the given parts on the given image.
+   * <p>
+   * Each part is only asked to paint the area that falls inside the band.
+   * </p>
    * 
-   * @param aCanvas
-   *          the canvas to paint on, cannot be <code>null</code>;
-   * @param aDiagram
-   *          the component to paint, cannot be <code>null</code>.
-   * @see #paintScrollPaneContents(Graphics2D, JScrollPane)
+   * @param aBand
+   *          the image to paint the band on, cannot be <code>null</code>;
+   * @param aParts
+   *          the parts to paint, cannot be <code>null</code>;
+   * @param aY
+   *          the y-position of the band in the exported image.
    */
-  private void paintDiagram( final Graphics2D aCanvas, final JComponent aDiagram )
+  static void paintBand( final BufferedImage aBand, final List<Part> aParts, final int aY )
   {
-    final Border border = aDiagram.getBorder();
-    if ( border != null )
+    Graphics2D g2d = aBand.createGraphics();
+    try
     {
-      final Insets insets = border.getBorderInsets( aDiagram );
-      if ( insets != null )
+      // Start each band with a clean slate...
+      g2d.setColor( Color.BLACK );
+      g2d.fillRect( 0, 0, aBand.getWidth(), aBand.getHeight() );
+    }
+    finally
+    {
+      g2d.dispose();
+      g2d = null;
+    }
+
+    final Rectangle band = new Rectangle( 0, aY, aBand.getWidth(), aBand.getHeight() );
+    for ( Part part : aParts )
+    {
+      final Rectangle area = band.intersection( part.bounds );
+      if ( area.isEmpty() )
+      {
+        continue;
+      }
+
+      g2d = aBand.createGraphics();
+      try
+      {
+        g2d.translate( part.bounds.x, part.bounds.y - aY );
+        g2d.clipRect( area.x - part.bounds.x, area.y - part.bounds.y, area.width, area.height );
+
+        part.component.paint( g2d );
+      }
+      finally
       {
-        aCanvas.translate( -insets.left, -insets.top );
+        g2d.dispose();
+        g2d = null;
       }
     }
-    aDiagram.paint( aCanvas );
   }
 }
@@ -0,0 +1,250 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import java.io.*;
+import java.util.zip.*;
+
+
+/**
+ * Provides a streaming PNG encoder, which writes an RGB image row by row.
+ * <p>
+ * Only the rows that are written at a time are kept in memory, allowing images
+ * of any size to be written with a constant amount of memory. Each row is
+ * filtered with the PNG "Sub" filter, and all rows are compressed in a single
+ * deflate stream, which is split into IDAT-chunks of at most
+ * {@value #MAX_CHUNK_SIZE} bytes.
+ * </p>
+ */
+public final class PngStreamWriter
+{
+  // CONSTANTS
+
+  private static final byte[] PNG_SIGNATURE = { ( byte )0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+  private static final int MAX_CHUNK_SIZE = 1 << 16;
+
+  private static final byte COLOR_TYPE_RGB = 2;
+  private static final byte FILTER_SUB = 1;
+
+  // VARIABLES
+
+  private final DataOutputStream output;
+  private final int width;
+  private final int height;
+  private final byte[] rowBuffer;
+  private final Deflater deflater;
+  private final byte[] chunkBuffer;
+  private final CRC32 crc;
+
+  private int rowsWritten;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PngStreamWriter instance, and writes the PNG header to the
+   * given output stream.
+   * 
+   * @param aOutput
+   *          the output stream to write the PNG image to, cannot be
+   *          <code>null</code>;
+   * @param aWidth
+   *          the width of the image, in pixels, &gt; 0;
+   * @param aHeight
+   *          the height of the image, in pixels, &gt; 0.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public PngStreamWriter( final OutputStream aOutput, final int aWidth, final int aHeight ) throws IOException
+  {
+    if ( ( aWidth <= 0 ) || ( aHeight <= 0 ) )
+    {
+      throw new IllegalArgumentException( "Invalid image size!" );
+    }
+
+    this.output = new DataOutputStream( new BufferedOutputStream( aOutput ) );
+    this.width = aWidth;
+    this.height = aHeight;
+    this.rowBuffer = new byte[1 + ( 3 * aWidth )];
+    this.deflater = new Deflater( Deflater.DEFAULT_COMPRESSION );
+    this.chunkBuffer = new byte[MAX_CHUNK_SIZE];
+    this.crc = new CRC32();
+
+    this.output.write( PNG_SIGNATURE );
+
+    final ByteArrayOutputStream header = new ByteArrayOutputStream( 13 );
+    final DataOutputStream dos = new DataOutputStream( header );
+    dos.writeInt( aWidth );
+    dos.writeInt( aHeight );
+    dos.writeByte( 8 ); // bit depth
+    dos.writeByte( COLOR_TYPE_RGB );
+    dos.writeByte( 0 ); // compression method: deflate
+    dos.writeByte( 0 ); // filter method: adaptive
+    dos.writeByte( 0 ); // interlace method: none
+
+    writeChunk( "IHDR", header.toByteArray(), header.size() );
+  }
+
+  // METHODS
+
+  /**
+   * Finishes the PNG image, and flushes, but does not close, the output
+   * stream.
+   * 
+   * @throws IOException
+   *           in case not all rows of the image are written, or in case of I/O
+   *           problems.
+   */
+  public void finish() throws IOException
+  {
+    if ( this.rowsWritten != this.height )
+    {
+      throw new IOException( "Not all rows of the image are written!" );
+    }
+
+    try
+    {
+      this.deflater.finish();
+      while ( !this.deflater.finished() )
+      {
+        writeCompressedData();
+      }
+
+      writeChunk( "IEND", this.chunkBuffer, 0 );
+      this.output.flush();
+    }
+    finally
+    {
+      this.deflater.end();
+    }
+  }
+
+  /**
+   * Returns the height of the image.
+   * 
+   * @return the image height, in pixels.
+   */
+  public int getHeight()
+  {
+    return this.height;
+  }
+
+  /**
+   * Returns the width of the image.
+   * 
+   * @return the image width, in pixels.
+   */
+  public int getWidth()
+  {
+    return this.width;
+  }
+
+  /**
+   * Writes the given rows of pixels.
+   * 
+   * @param aPixels
+   *          the pixels to write, as (A)RGB values, in rows of a given
+   *          scanline size, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset in the given pixels of the first row to write;
+   * @param aScanlineSize
+   *          the number of pixels between the start of two subsequent rows,
+   *          &gt;= the width of the image;
+   * @param aRowCount
+   *          the number of rows to write.
+   * @throws IOException
+   *           in case more rows are written than the image contains, or in
+   *           case of I/O problems.
+   */
+  public void writeRows( final int[] aPixels, final int aOffset, final int aScanlineSize, final int aRowCount )
+      throws IOException
+  {
+    if ( ( this.rowsWritten + aRowCount ) > this.height )
+    {
+      throw new IOException( "Too many rows written!" );
+    }
+
+    final byte[] row = this.rowBuffer;
+    row[0] = FILTER_SUB;
+
+    for ( int r = 0; r < aRowCount; r++ )
+    {
+      final int start = aOffset + ( r * aScanlineSize );
+
+      // Each byte is stored as the difference with the same byte of the
+      // previous pixel...
+      int prevR = 0, prevG = 0, prevB = 0;
+      for ( int x = 0, i = 1; x < this.width; x++, i += 3 )
+      {
+        final int rgb = aPixels[start + x];
+        final int red = ( rgb >> 16 ) & 0xFF;
+        final int green = ( rgb >> 8 ) & 0xFF;
+        final int blue = rgb & 0xFF;
+
+        row[i] = ( byte )( red - prevR );
+        row[i + 1] = ( byte )( green - prevG );
+        row[i + 2] = ( byte )( blue - prevB );
+
+        prevR = red;
+        prevG = green;
+        prevB = blue;
+      }
+
+      this.deflater.setInput( row );
+      while ( !this.deflater.needsInput() )
+      {
+        writeCompressedData();
+      }
+    }
+
+    this.rowsWritten += aRowCount;
+  }
+
+  /**
+   * Writes a single chunk.
+   */
+  private void writeChunk( final String aType, final byte[] aData, final int aLength ) throws IOException
+  {
+    final byte[] type = aType.getBytes( "US-ASCII" );
+
+    this.crc.reset();
+    this.crc.update( type );
+    this.crc.update( aData, 0, aLength );
+
+    this.output.writeInt( aLength );
+    this.output.write( type );
+    this.output.write( aData, 0, aLength );
+    this.output.writeInt( ( int )this.crc.getValue() );
+  }
+
+  /**
+   * Writes the data compressed so far as IDAT-chunk, if there is any.
+   */
+  private void writeCompressedData() throws IOException
+  {
+    final int length = this.deflater.deflate( this.chunkBuffer );
+    if ( length > 0 )
+    {
+      writeChunk( "IDAT", this.chunkBuffer, length );
+    }
+  }
+}
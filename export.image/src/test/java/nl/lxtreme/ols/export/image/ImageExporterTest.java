@@ -0,0 +1,144 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.*;
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+import java.util.List;
+
+import javax.imageio.*;
+import javax.swing.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ImageExporter}.
+ */
+public class ImageExporterTest
+{
+  // INNER TYPES
+
+  /**
+   * Fills the area it is asked to paint with a single color, and records that
+   * area.
+   */
+  static final class RecordingComponent extends JComponent
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    final List<Rectangle> clips = new ArrayList<Rectangle>();
+    private final Color color;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new RecordingComponent instance.
+     */
+    RecordingComponent( final Color aColor, final int aWidth, final int aHeight )
+    {
+      this.color = aColor;
+      setPreferredSize( new Dimension( aWidth, aHeight ) );
+      setSize( aWidth, aHeight );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void paint( final Graphics aGraphics )
+    {
+      final Rectangle clip = aGraphics.getClipBounds();
+      this.clips.add( clip );
+
+      aGraphics.setColor( this.color );
+      aGraphics.fillRect( clip.x, clip.y, clip.width, clip.height );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that the entire view of a scroll pane is exported, including its
+   * headers, and that each band only paints its own rows.
+   */
+  @Test
+  public void testExportEntireScrollPaneViewOk() throws IOException
+  {
+    final RecordingComponent view = new RecordingComponent( Color.RED, 3000, 150 );
+    final RecordingComponent rowHeader = new RecordingComponent( Color.GREEN, 50, 150 );
+    final RecordingComponent columnHeader = new RecordingComponent( Color.BLUE, 3000, 20 );
+
+    final JScrollPane scrollPane = new JScrollPane( view );
+    scrollPane.setRowHeaderView( rowHeader );
+    scrollPane.setColumnHeaderView( columnHeader );
+    // Only shows a small part of the view...
+    scrollPane.setSize( 300, 100 );
+    scrollPane.doLayout();
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new ImageExporter().export( null, scrollPane, baos );
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertEquals( 3050, image.getWidth() );
+    assertEquals( 170, image.getHeight() );
+
+    assertEquals( Color.BLUE.getRGB(), image.getRGB( 3049, 0 ) );
+    assertEquals( Color.GREEN.getRGB(), image.getRGB( 0, 169 ) );
+    assertEquals( Color.RED.getRGB(), image.getRGB( 50, 20 ) );
+    assertEquals( Color.RED.getRGB(), image.getRGB( 3049, 169 ) );
+
+    int rows = 0;
+    for ( Rectangle clip : view.clips )
+    {
+      // Each band paints the entire width, but only its own rows...
+      assertEquals( new Rectangle( 0, clip.y, 3000, clip.height ), clip );
+      assertTrue( clip.height <= ImageExporter.BAND_HEIGHT );
+      assertEquals( rows, clip.y );
+      rows += clip.height;
+    }
+    assertEquals( 150, rows );
+    assertEquals( 1, columnHeader.clips.size() );
+  }
+
+  /**
+   * Tests that the width of the exported image is limited.
+   */
+  @Test
+  public void testExportSizeIsLimitedOk()
+  {
+    final List<ImageExporter.Part> parts = new ArrayList<ImageExporter.Part>();
+    parts.add( new ImageExporter.Part( new JPanel(), new Rectangle( 10, 0, Integer.MAX_VALUE - 10, 100000 ) ) );
+
+    assertEquals( new Dimension( ImageExporter.MAX_WIDTH, 100000 ), ImageExporter.getExportSize( parts ) );
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.image;
+
+
+import static org.junit.Assert.*;
+
+import java.awt.image.*;
+import java.io.*;
+import java.util.*;
+
+import javax.imageio.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link PngStreamWriter}.
+ */
+public class PngStreamWriterTest
+{
+  // METHODS
+
+  /**
+   * Tests that an image written in several strips is read back as-is.
+   */
+  @Test
+  public void testWriteRowsInStripsOk() throws IOException
+  {
+    final int width = 37;
+    final int height = 100;
+
+    final Random rnd = new Random( 2468L );
+    final int[] pixels = new int[width * height];
+    for ( int i = 0; i < pixels.length; i++ )
+    {
+      pixels[i] = rnd.nextInt() & 0xFFFFFF;
+    }
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final PngStreamWriter writer = new PngStreamWriter( baos, width, height );
+    for ( int y = 0; y < height; y += 16 )
+    {
+      writer.writeRows( pixels, y * width, width, Math.min( 16, height - y ) );
+    }
+    writer.finish();
+
+    final BufferedImage image = ImageIO.read( new ByteArrayInputStream( baos.toByteArray() ) );
+    assertNotNull( image );
+    assertEquals( width, image.getWidth() );
+    assertEquals( height, image.getHeight() );
+
+    for ( int y = 0; y < height; y++ )
+    {
+      for ( int x = 0; x < width; x++ )
+      {
+        assertEquals( pixels[( y * width ) + x], image.getRGB( x, y ) & 0xFFFFFF );
+      }
+    }
+  }
+
+  /**
+   * Tests that an image cannot be finished before all its rows are written.
+   */
+  @Test( expected = IOException.class )
+  public void testFinishIncompleteImageFail() throws IOException
+  {
+    final PngStreamWriter writer = new PngStreamWriter( new ByteArrayOutputStream(), 10, 10 );
+    writer.writeRows( new int[100], 0, 10, 5 );
+    writer.finish();
+  }
+}
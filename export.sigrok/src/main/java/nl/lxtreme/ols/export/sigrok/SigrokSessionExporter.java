@@ -0,0 +1,243 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import static nl.lxtreme.ols.export.sigrok.SigrokSessionHelper.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides an exporter for the sigrok session (.sr) format, as used by sigrok
+ * and PulseView.
+ * <p>
+ * The samples are written directly from the values and timestamps of the
+ * acquisition result: each run of equal values is expanded into a large block
+ * by repeatedly doubling the already written part of it, and the blocks are
+ * written as chunks of {@value #CHUNK_SIZE} bytes.
+ * </p>
+ */
+public class SigrokSessionExporter implements Exporter
+{
+  // CONSTANTS
+
+  /** The (maximum) size of a single chunk of samples, in bytes. */
+  static final int CHUNK_SIZE = 4 * 1024 * 1024;
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void export( final DataSet aDataSet, final JComponent aComponent, final OutputStream aStream )
+      throws IOException
+  {
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+    if ( capturedData == null )
+    {
+      throw new IOException( "Nothing to export!" );
+    }
+
+    final ZipOutputStream zipOS = new ZipOutputStream( aStream );
+    // Most captures contain long runs of equal samples, which compress well
+    // enough at the fastest compression level...
+    zipOS.setLevel( Deflater.BEST_SPEED );
+
+    try
+    {
+      zipOS.putNextEntry( new ZipEntry( VERSION_ENTRY ) );
+      zipOS.write( VERSION.getBytes( "US-ASCII" ) );
+      zipOS.closeEntry();
+
+      zipOS.putNextEntry( new ZipEntry( METADATA_ENTRY ) );
+      zipOS.write( createMetadata( aDataSet ).getBytes( "UTF-8" ) );
+      zipOS.closeEntry();
+
+      writeSamples( zipOS, capturedData );
+    }
+    finally
+    {
+      zipOS.finish();
+      zipOS.flush();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "sr" };
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getName()
+  {
+    return "Sigrok Session";
+  }
+
+  /**
+   * Creates the metadata of the given data set.
+   * 
+   * @param aDataSet
+   *          the data set to create the metadata for, cannot be
+   *          <code>null</code>.
+   * @return the metadata, never <code>null</code>.
+   */
+  protected String createMetadata( final DataSet aDataSet )
+  {
+    final AcquisitionResult capturedData = aDataSet.getCapturedData();
+    final Channel[] channels = aDataSet.getChannels();
+    final int channelCount = capturedData.getChannels();
+
+    final StringBuilder sb = new StringBuilder();
+    sb.append( "[global]\n" );
+    sb.append( "sigrok version=0.2.0\n" );
+    sb.append( "\n" );
+    sb.append( "[device 1]\n" );
+    sb.append( KEY_CAPTURE_FILE ).append( '=' ).append( LOGIC_CAPTURE_FILE ).append( '\n' );
+    sb.append( KEY_TOTAL_PROBES ).append( '=' ).append( channelCount ).append( '\n' );
+    if ( capturedData.hasTimingData() )
+    {
+      sb.append( KEY_SAMPLE_RATE ).append( '=' ).append( formatSampleRate( capturedData.getSampleRate() ) )
+          .append( '\n' );
+    }
+    for ( int i = 0; i < channelCount; i++ )
+    {
+      String label = ( i < channels.length ) ? channels[i].getLabel() : null;
+      if ( StringUtils.isEmpty( label ) )
+      {
+        label = "D" + i;
+      }
+      sb.append( KEY_PROBE_PREFIX ).append( i + 1 ).append( '=' ).append( label ).append( '\n' );
+    }
+    sb.append( KEY_UNIT_SIZE ).append( '=' ).append( getUnitSize( channelCount ) ).append( '\n' );
+
+    return sb.toString();
+  }
+
+  /**
+   * Writes all samples of the given acquisition result as chunks to the given
+   * ZIP-stream.
+   * 
+   * @param aZipOS
+   *          the ZIP-stream to write to, cannot be <code>null</code>;
+   * @param aCapturedData
+   *          the acquisition result to write, cannot be <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  protected void writeSamples( final ZipOutputStream aZipOS, final AcquisitionResult aCapturedData )
+      throws IOException
+  {
+    final int[] values = aCapturedData.getValues();
+    final long[] timestamps = aCapturedData.getTimestamps();
+    if ( values.length == 0 )
+    {
+      return;
+    }
+
+    final int unitSize = getUnitSize( aCapturedData.getChannels() );
+    final int mask = aCapturedData.getEnabledChannels();
+    final int chunkUnits = CHUNK_SIZE / unitSize;
+    final byte[] chunk = new byte[chunkUnits * unitSize];
+
+    final long end = Math.max( aCapturedData.getAbsoluteLength(), timestamps[timestamps.length - 1] + 1L );
+
+    int chunkNo = 0;
+    int chunkPos = 0;
+    for ( int i = 0; i < values.length; i++ )
+    {
+      final int value = values[i] & mask;
+      final long runEnd = ( i + 1 < values.length ) ? timestamps[i + 1] : end;
+
+      long remaining = runEnd - timestamps[i];
+      while ( remaining > 0L )
+      {
+        final int count = ( int )Math.min( remaining, chunkUnits - ( chunkPos / unitSize ) );
+        chunkPos = fillRun( chunk, chunkPos, value, count, unitSize );
+        remaining -= count;
+
+        if ( chunkPos == chunk.length )
+        {
+          writeChunk( aZipOS, ++chunkNo, chunk, chunkPos );
+          chunkPos = 0;
+        }
+      }
+    }
+
+    if ( chunkPos > 0 )
+    {
+      writeChunk( aZipOS, ++chunkNo, chunk, chunkPos );
+    }
+  }
+
+  /**
+   * Fills the given chunk with a run of equal samples.
+   * 
+   * @return the position in the chunk after the run.
+   */
+  private int fillRun( final byte[] aChunk, final int aPos, final int aValue, final int aCount, final int aUnitSize )
+  {
+    // Write a single sample in little-endian order...
+    for ( int b = 0; b < aUnitSize; b++ )
+    {
+      aChunk[aPos + b] = ( byte )( aValue >>> ( 8 * b ) );
+    }
+
+    // ...and double the written part until the whole run is written...
+    final int length = aCount * aUnitSize;
+    int filled = aUnitSize;
+    while ( filled < length )
+    {
+      final int n = Math.min( filled, length - filled );
+      System.arraycopy( aChunk, aPos, aChunk, aPos + filled, n );
+      filled += n;
+    }
+
+    return aPos + length;
+  }
+
+  /**
+   * Writes a single chunk of samples.
+   */
+  private void writeChunk( final ZipOutputStream aZipOS, final int aChunkNo, final byte[] aChunk, final int aLength )
+      throws IOException
+  {
+    aZipOS.putNextEntry( new ZipEntry( LOGIC_CAPTURE_FILE + "-" + aChunkNo ) );
+    aZipOS.write( aChunk, 0, aLength );
+    aZipOS.closeEntry();
+  }
+}
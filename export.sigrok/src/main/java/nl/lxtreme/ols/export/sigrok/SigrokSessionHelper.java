@@ -0,0 +1,186 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import java.util.*;
+
+
+/**
+ * Provides some utility methods for the sigrok session (.sr) format.
+ * <p>
+ * A sigrok session is a ZIP-file containing a "version" entry, a "metadata"
+ * entry in INI-style, and the logic samples in one or more chunks named
+ * "logic-1-1", "logic-1-2", and so on. Each sample is stored as a
+ * little-endian value of "unitsize" bytes, in which bit <em>n</em> denotes the
+ * level of probe <em>n + 1</em>.
+ * </p>
+ */
+public final class SigrokSessionHelper
+{
+  // CONSTANTS
+
+  /** The (only) supported version of the session format. */
+  public static final String VERSION = "2";
+
+  public static final String VERSION_ENTRY = "version";
+  public static final String METADATA_ENTRY = "metadata";
+  /** The prefix of the logic sample chunks. */
+  public static final String LOGIC_CAPTURE_FILE = "logic-1";
+
+  public static final String KEY_CAPTURE_FILE = "capturefile";
+  public static final String KEY_TOTAL_PROBES = "total probes";
+  public static final String KEY_SAMPLE_RATE = "samplerate";
+  public static final String KEY_UNIT_SIZE = "unitsize";
+  public static final String KEY_PROBE_PREFIX = "probe";
+
+  private static final String[] RATE_UNITS = { "Hz", "kHz", "MHz", "GHz" };
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokSessionHelper instance. Never used.
+   */
+  private SigrokSessionHelper()
+  {
+    super();
+  }
+
+  // METHODS
+
+  /**
+   * Formats the given sample rate in the way sigrok does, e.g., "1 MHz" or
+   * "200 kHz".
+   * 
+   * @param aSampleRate
+   *          the sample rate to format, in Hertz, &gt; 0.
+   * @return a sample rate string, never <code>null</code>.
+   */
+  public static String formatSampleRate( final long aSampleRate )
+  {
+    if ( aSampleRate <= 0L )
+    {
+      throw new IllegalArgumentException( "Sample rate should be positive!" );
+    }
+
+    long value = aSampleRate;
+    int unit = 0;
+    while ( ( unit < ( RATE_UNITS.length - 1 ) ) && ( ( value % 1000L ) == 0L ) )
+    {
+      value /= 1000L;
+      unit++;
+    }
+    return String.format( "%d %s", Long.valueOf( value ), RATE_UNITS[unit] );
+  }
+
+  /**
+   * Returns the number of bytes needed to store a sample of the given number of
+   * channels.
+   * 
+   * @param aChannelCount
+   *          the number of channels, &gt; 0.
+   * @return a unit size, in bytes.
+   */
+  public static int getUnitSize( final int aChannelCount )
+  {
+    return Math.max( 1, ( aChannelCount + 7 ) / 8 );
+  }
+
+  /**
+   * Parses the given metadata, and returns the properties of its first device.
+   * 
+   * @param aMetadata
+   *          the metadata to parse, cannot be <code>null</code>.
+   * @return the properties of the first device, never <code>null</code>.
+   */
+  public static Properties parseDeviceMetadata( final String aMetadata )
+  {
+    final Properties result = new Properties();
+
+    boolean inDevice = false;
+    for ( String line : aMetadata.split( "\r?\n" ) )
+    {
+      line = line.trim();
+      if ( line.startsWith( "[" ) )
+      {
+        if ( inDevice )
+        {
+          // Only the first device is of interest...
+          break;
+        }
+        inDevice = line.startsWith( "[device " );
+      }
+      else if ( inDevice )
+      {
+        final int idx = line.indexOf( '=' );
+        if ( idx > 0 )
+        {
+          result.setProperty( line.substring( 0, idx ).trim(), line.substring( idx + 1 ).trim() );
+        }
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Parses a sample rate in the way sigrok writes it, e.g., "1 MHz", "1.5kHz"
+   * or "200000".
+   * 
+   * @param aValue
+   *          the sample rate to parse, cannot be <code>null</code>.
+   * @return the sample rate, in Hertz.
+   * @throws NumberFormatException
+   *           in case the given value is not a valid sample rate.
+   */
+  public static long parseSampleRate( final String aValue )
+  {
+    String value = aValue.trim();
+    if ( value.toLowerCase().endsWith( "hz" ) )
+    {
+      value = value.substring( 0, value.length() - 2 ).trim();
+    }
+
+    long multiplier = 1L;
+    if ( !value.isEmpty() )
+    {
+      final char suffix = value.charAt( value.length() - 1 );
+      if ( ( suffix == 'k' ) || ( suffix == 'K' ) )
+      {
+        multiplier = 1000L;
+      }
+      else if ( suffix == 'M' )
+      {
+        multiplier = 1000000L;
+      }
+      else if ( ( suffix == 'G' ) || ( suffix == 'g' ) )
+      {
+        multiplier = 1000000000L;
+      }
+      if ( multiplier > 1L )
+      {
+        value = value.substring( 0, value.length() - 1 ).trim();
+      }
+    }
+
+    return Math.round( Double.parseDouble( value ) * multiplier );
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import static nl.lxtreme.ols.export.sigrok.SigrokSessionHelper.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides an importer for the sigrok session (.sr) format, as used by sigrok
+ * and PulseView.
+ * <p>
+ * The logic samples are read in large blocks, and only the samples at which
+ * the value changes are kept as transitions. Only the first 32 probes of the
+ * first device are imported; analog data is ignored.
+ * </p>
+ */
+public class SigrokSessionImporter implements Importer
+{
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 1 << 20;
+
+  // VARIABLES
+
+  private String[] labels;
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SigrokSessionImporter instance.
+   */
+  public SigrokSessionImporter()
+  {
+    this.labels = new String[0];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the labels of the imported channels, which are the names of the
+   * probes they are imported from.
+   * 
+   * @return an array with a label for each imported channel, never
+   *         <code>null</code>.
+   */
+  public String[] getChannelLabels()
+  {
+    return this.labels.clone();
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "sr" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "Sigrok Session";
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    // Use a new instance for each import, as this service can be used
+    // concurrently and should not hold on to the read samples...
+    final SigrokSessionImporter importer = new SigrokSessionImporter();
+
+    aProject.setCapturedData( importer.read( aStream ) );
+
+    final String[] channelLabels = importer.getChannelLabels();
+    final DataSet dataSet = aProject.getDataSet();
+    for ( int i = 0; i < channelLabels.length; i++ )
+    {
+      dataSet.getChannel( i ).setLabel( channelLabels[i] );
+    }
+  }
+
+  /**
+   * Reads a sigrok session from the given input stream.
+   * 
+   * @param aInput
+   *          the input stream to read the session from, cannot be
+   *          <code>null</code>. This stream is <em>not</em> closed.
+   * @return the imported captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the session was invalid.
+   */
+  public CapturedData read( final InputStream aInput ) throws IOException
+  {
+    this.values = new int[1024];
+    this.timestamps = new long[1024];
+    this.size = 0;
+
+    final ZipInputStream zipIS = new ZipInputStream( aInput );
+
+    Properties metadata = null;
+    String captureFile = null;
+    int channelCount = 0;
+    int unitSize = 0;
+    int expectedChunkNo = 1;
+    long sampleCount = 0L;
+
+    final byte[] buffer = new byte[BUFFER_SIZE];
+
+    ZipEntry ze;
+    while ( ( ze = zipIS.getNextEntry() ) != null )
+    {
+      final String name = ze.getName();
+
+      if ( VERSION_ENTRY.equals( name ) )
+      {
+        final String version = new String( readFully( zipIS, buffer ), "US-ASCII" ).trim();
+        if ( !VERSION.equals( version ) )
+        {
+          throw new IOException( "Unsupported sigrok session version: " + version );
+        }
+      }
+      else if ( METADATA_ENTRY.equals( name ) )
+      {
+        metadata = parseDeviceMetadata( new String( readFully( zipIS, buffer ), "UTF-8" ) );
+
+        captureFile = metadata.getProperty( KEY_CAPTURE_FILE );
+        channelCount = Math.min( Ols.MAX_CHANNELS, parseInt( metadata, KEY_TOTAL_PROBES ) );
+        unitSize = parseInt( metadata, KEY_UNIT_SIZE );
+
+        if ( ( captureFile == null ) || ( channelCount <= 0 ) || ( unitSize <= 0 ) )
+        {
+          throw new IOException( "Incomplete sigrok session metadata!" );
+        }
+      }
+      else if ( ( captureFile != null ) && isChunk( name, captureFile ) )
+      {
+        final int chunkNo = getChunkNo( name, captureFile );
+        if ( chunkNo != expectedChunkNo )
+        {
+          throw new IOException( "Missing or unordered chunk in sigrok session: " + name );
+        }
+        expectedChunkNo++;
+
+        sampleCount = readChunk( zipIS, buffer, unitSize, NumberUtils.getBitMask( channelCount ), sampleCount );
+      }
+      else if ( name.startsWith( LOGIC_CAPTURE_FILE ) && ( captureFile == null ) )
+      {
+        throw new IOException( "Sigrok session metadata should precede its samples!" );
+      }
+      // Ignore all other entries, like analog data...
+    }
+
+    if ( metadata == null )
+    {
+      throw new IOException( "Not a sigrok session; no metadata found!" );
+    }
+    if ( sampleCount == 0L )
+    {
+      throw new IOException( "Sigrok session contains no samples!" );
+    }
+
+    int sampleRate = Ols.NOT_AVAILABLE;
+    final String rate = metadata.getProperty( KEY_SAMPLE_RATE );
+    if ( rate != null )
+    {
+      try
+      {
+        sampleRate = ( int )Math.min( Integer.MAX_VALUE, parseSampleRate( rate ) );
+      }
+      catch ( NumberFormatException exception )
+      {
+        throw new IOException( "Invalid sample rate in sigrok session: " + rate );
+      }
+    }
+
+    this.labels = new String[channelCount];
+    for ( int i = 0; i < channelCount; i++ )
+    {
+      this.labels[i] = metadata.getProperty( KEY_PROBE_PREFIX + ( i + 1 ), "" );
+    }
+
+    return new CapturedData( Arrays.copyOf( this.values, this.size ), Arrays.copyOf( this.timestamps, this.size ),
+        Ols.NOT_AVAILABLE, sampleRate, channelCount, NumberUtils.getBitMask( channelCount ), sampleCount );
+  }
+
+  /**
+   * Returns the (one-based) number of the chunk with the given entry name.
+   */
+  private static int getChunkNo( final String aName, final String aCaptureFile ) throws IOException
+  {
+    if ( aName.equals( aCaptureFile ) )
+    {
+      return 1;
+    }
+    try
+    {
+      return Integer.parseInt( aName.substring( aCaptureFile.length() + 1 ) );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid chunk in sigrok session: " + aName );
+    }
+  }
+
+  /**
+   * Returns whether the given entry name denotes a chunk of the given capture
+   * file.
+   */
+  private static boolean isChunk( final String aName, final String aCaptureFile )
+  {
+    return aName.equals( aCaptureFile ) || aName.startsWith( aCaptureFile + "-" );
+  }
+
+  /**
+   * Parses an integer property of the given metadata.
+   */
+  private static int parseInt( final Properties aMetadata, final String aKey ) throws IOException
+  {
+    final String value = aMetadata.getProperty( aKey );
+    try
+    {
+      return ( value == null ) ? 0 : Integer.parseInt( value );
+    }
+    catch ( NumberFormatException exception )
+    {
+      throw new IOException( "Invalid " + aKey + " in sigrok session: " + value );
+    }
+  }
+
+  /**
+   * Reads the current ZIP-entry completely into memory.
+   */
+  private static byte[] readFully( final InputStream aInput, final byte[] aBuffer ) throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    int read;
+    while ( ( read = aInput.read( aBuffer ) ) > 0 )
+    {
+      baos.write( aBuffer, 0, read );
+    }
+    return baos.toByteArray();
+  }
+
+  /**
+   * Adds a single transition.
+   */
+  private void addTransition( final long aTime, final int aValue )
+  {
+    if ( this.size == this.values.length )
+    {
+      this.values = Arrays.copyOf( this.values, this.size * 2 );
+      this.timestamps = Arrays.copyOf( this.timestamps, this.size * 2 );
+    }
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTime;
+    this.size++;
+  }
+
+  /**
+   * Reads all samples of a single chunk, and keeps those at which the value
+   * changes as transitions.
+   * 
+   * @return the total number of samples read so far.
+   */
+  private long readChunk( final InputStream aInput, final byte[] aBuffer, final int aUnitSize, final int aMask,
+      final long aSampleCount ) throws IOException
+  {
+    // Only the first four bytes of each sample are of interest...
+    final int usedBytes = Math.min( 4, aUnitSize );
+
+    long sampleIdx = aSampleCount;
+    int lastValue = ( this.size > 0 ) ? this.values[this.size - 1] : 0;
+
+    int carry = 0;
+    int read;
+    while ( ( read = aInput.read( aBuffer, carry, aBuffer.length - carry ) ) > 0 )
+    {
+      final int available = carry + read;
+      final int end = available - ( available % aUnitSize );
+
+      for ( int pos = 0; pos < end; pos += aUnitSize )
+      {
+        int value = 0;
+        for ( int b = 0; b < usedBytes; b++ )
+        {
+          value |= ( aBuffer[pos + b] & 0xFF ) << ( 8 * b );
+        }
+        value &= aMask;
+
+        if ( ( sampleIdx == 0L ) || ( value != lastValue ) )
+        {
+          addTransition( sampleIdx, value );
+          lastValue = value;
+        }
+        sampleIdx++;
+      }
+
+      // Keep the bytes of an incomplete sample for the next read...
+      carry = available - end;
+      System.arraycopy( aBuffer, end, aBuffer, 0, carry );
+    }
+
+    if ( carry != 0 )
+    {
+      throw new IOException( "Incomplete sample in sigrok session!" );
+    }
+
+    return sampleIdx;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link SigrokSessionHelper}.
+ */
+public class SigrokSessionHelperTest
+{
+  // METHODS
+
+  /**
+   * Tests that sample rates are formatted in their largest whole unit.
+   */
+  @Test
+  public void testFormatSampleRateOk()
+  {
+    assertEquals( "100 Hz", SigrokSessionHelper.formatSampleRate( 100L ) );
+    assertEquals( "200 kHz", SigrokSessionHelper.formatSampleRate( 200000L ) );
+    assertEquals( "1500 kHz", SigrokSessionHelper.formatSampleRate( 1500000L ) );
+    assertEquals( "1 MHz", SigrokSessionHelper.formatSampleRate( 1000000L ) );
+    assertEquals( "2 GHz", SigrokSessionHelper.formatSampleRate( 2000000000L ) );
+  }
+
+  /**
+   * Tests that sample rates written by sigrok are parsed correctly.
+   */
+  @Test
+  public void testParseSampleRateOk()
+  {
+    assertEquals( 100L, SigrokSessionHelper.parseSampleRate( "100 Hz" ) );
+    assertEquals( 200000L, SigrokSessionHelper.parseSampleRate( "200 kHz" ) );
+    assertEquals( 1500L, SigrokSessionHelper.parseSampleRate( "1.5kHz" ) );
+    assertEquals( 24000000L, SigrokSessionHelper.parseSampleRate( "24 MHz" ) );
+    assertEquals( 1000000L, SigrokSessionHelper.parseSampleRate( "1000000" ) );
+  }
+
+  /**
+   * Tests that only the properties of the first device are parsed.
+   */
+  @Test
+  public void testParseDeviceMetadataOk()
+  {
+    final Properties props = SigrokSessionHelper.parseDeviceMetadata( "[global]\nsigrok version=0.5.0\n\n"
+        + "[device 1]\ncapturefile=logic-1\ntotal probes=2\nprobe1=CLK\n\n[device 2]\nprobe1=other\n" );
+
+    assertEquals( 3, props.size() );
+    assertEquals( "logic-1", props.getProperty( "capturefile" ) );
+    assertEquals( "2", props.getProperty( "total probes" ) );
+    assertEquals( "CLK", props.getProperty( "probe1" ) );
+  }
+}
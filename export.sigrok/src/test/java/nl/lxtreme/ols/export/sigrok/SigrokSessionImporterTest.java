@@ -0,0 +1,174 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.sigrok;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+import java.util.zip.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link SigrokSessionImporter} and
+ * {@link SigrokSessionExporter}.
+ */
+public class SigrokSessionImporterTest
+{
+  // METHODS
+
+  /**
+   * Tests that a session with multiple chunks is imported as transitions.
+   */
+  @Test
+  public void testImportChunkedSessionOk() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    writeEntry( zipOS, "version", "2".getBytes( "US-ASCII" ) );
+    writeEntry( zipOS, "metadata", ( "[global]\nsigrok version=0.5.0\n\n[device 1]\ncapturefile=logic-1\n"
+        + "total probes=12\nsamplerate=2 MHz\nprobe1=CLK\nprobe2=DATA\nunitsize=2\n" ).getBytes( "US-ASCII" ) );
+    // Samples: 0x0001, 0x0001, 0x0F02 | 0x0F02, 0xFFFF (masked to 0x0FFF)...
+    writeEntry( zipOS, "logic-1-1", new byte[] { 0x01, 0x00, 0x01, 0x00, 0x02, 0x0F } );
+    writeEntry( zipOS, "logic-1-2", new byte[] { 0x02, 0x0F, ( byte )0xFF, ( byte )0xFF } );
+    zipOS.close();
+
+    final SigrokSessionImporter importer = new SigrokSessionImporter();
+    final CapturedData data = importer.read( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    assertEquals( 2000000, data.getSampleRate() );
+    assertEquals( 12, data.getChannels() );
+    assertEquals( 0x0FFF, data.getEnabledChannels() );
+    assertEquals( 5L, data.getAbsoluteLength() );
+    assertArrayEquals( new int[] { 0x0001, 0x0F02, 0x0FFF }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 4L }, data.getTimestamps() );
+
+    final String[] labels = importer.getChannelLabels();
+    assertEquals( 12, labels.length );
+    assertEquals( "CLK", labels[0] );
+    assertEquals( "DATA", labels[1] );
+    assertEquals( "", labels[2] );
+  }
+
+  /**
+   * Tests that importing an exported session yields the same signals.
+   */
+  @Test
+  public void testImportExportedSessionOk() throws IOException
+  {
+    final DataSet dataSet = DataTestUtils.createStubDataSet( 256, 16 );
+    final AcquisitionResult expected = dataSet.getCapturedData();
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new SigrokSessionExporter().export( dataSet, new JPanel(), baos );
+
+    final CapturedData actual = new SigrokSessionImporter().read( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    assertEquals( expected.getSampleRate(), actual.getSampleRate() );
+    assertEquals( expected.getChannels(), actual.getChannels() );
+    assertEquals( expected.getAbsoluteLength() - expected.getTimestamps()[0], actual.getAbsoluteLength() );
+
+    final long offset = expected.getTimestamps()[0];
+    for ( long t = offset; t < expected.getAbsoluteLength(); t++ )
+    {
+      assertEquals( "Sample " + t, valueAt( expected, t ), valueAt( actual, t - offset ) );
+    }
+  }
+
+  /**
+   * Tests that a ZIP-file without metadata is not imported.
+   */
+  @Test( expected = IOException.class )
+  public void testImportWithoutMetadataFail() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    writeEntry( zipOS, "version", "2".getBytes( "US-ASCII" ) );
+    zipOS.close();
+
+    new SigrokSessionImporter().read( new ByteArrayInputStream( baos.toByteArray() ) );
+  }
+
+  /**
+   * Tests that importing into a project sets both the captured data and the
+   * channel labels.
+   */
+  @Test
+  public void testImportDataIntoProjectOk() throws IOException
+  {
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    final ZipOutputStream zipOS = new ZipOutputStream( baos );
+    writeEntry( zipOS, "version", "2".getBytes( "US-ASCII" ) );
+    writeEntry( zipOS, "metadata", ( "[device 1]\ncapturefile=logic-1\n"
+        + "total probes=2\nsamplerate=1 kHz\nprobe1=CLK\nprobe2=DATA\nunitsize=1\n" ).getBytes( "US-ASCII" ) );
+    writeEntry( zipOS, "logic-1", new byte[] { 0x00, 0x01, 0x03 } );
+    zipOS.close();
+
+    final Channel clk = mock( Channel.class );
+    final Channel data = mock( Channel.class );
+    final DataSet dataSet = mock( DataSet.class );
+    when( dataSet.getChannel( 0 ) ).thenReturn( clk );
+    when( dataSet.getChannel( 1 ) ).thenReturn( data );
+    final Project project = mock( Project.class );
+    when( project.getDataSet() ).thenReturn( dataSet );
+
+    new SigrokSessionImporter().importData( project, new ByteArrayInputStream( baos.toByteArray() ) );
+
+    verify( project ).setCapturedData( any( CapturedData.class ) );
+    verify( clk ).setLabel( "CLK" );
+    verify( data ).setLabel( "DATA" );
+  }
+
+  /**
+   * Returns the value of the given captured data at a given time.
+   */
+  private int valueAt( final AcquisitionResult aData, final long aTime )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    int idx = 0;
+    while ( ( idx + 1 < timestamps.length ) && ( timestamps[idx + 1] <= aTime ) )
+    {
+      idx++;
+    }
+    return aData.getValues()[idx] & aData.getEnabledChannels();
+  }
+
+  /**
+   * Writes a single ZIP-entry.
+   */
+  private void writeEntry( final ZipOutputStream aZipOS, final String aName, final byte[] aData ) throws IOException
+  {
+    aZipOS.putNextEntry( new ZipEntry( aName ) );
+    aZipOS.write( aData );
+    aZipOS.closeEntry();
+  }
+}
@@ -0,0 +1,598 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import java.io.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides an importer for the "value change dump" format, as specified in
+ * IEEE Std 1364-2001.
+ * <p>
+ * The dump is parsed in a single pass by a simple tokenizer that works
+ * directly on the bytes of the dump, so that only the transitions themselves
+ * are kept in memory. Up to 32 single-bit variables are mapped onto channels,
+ * in order of their declaration; all other variables are ignored. All value
+ * changes at the same time are merged into a single transition.
+ * </p>
+ */
+public class ValueChangeDumpImporter implements Importer
+{
+  // INNER TYPES
+
+  /**
+   * Splits a value change dump in whitespace-separated tokens.
+   */
+  static final class Tokenizer
+  {
+    // CONSTANTS
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // VARIABLES
+
+    private final InputStream input;
+    private final byte[] buffer;
+    private int pos;
+    private int limit;
+
+    private byte[] token;
+    private int length;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Tokenizer instance.
+     */
+    Tokenizer( final InputStream aInput )
+    {
+      this.input = aInput;
+      this.buffer = new byte[BUFFER_SIZE];
+      this.token = new byte[64];
+    }
+
+    // METHODS
+
+    /**
+     * Returns the byte at the given position of the current token.
+     */
+    int charAt( final int aIndex )
+    {
+      return this.token[aIndex];
+    }
+
+    /**
+     * Returns whether the current token equals the given (ASCII) string.
+     */
+    boolean equalsToken( final String aValue )
+    {
+      if ( aValue.length() != this.length )
+      {
+        return false;
+      }
+      for ( int i = 0; i < this.length; i++ )
+      {
+        if ( this.token[i] != aValue.charAt( i ) )
+        {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Returns the length of the current token.
+     */
+    int length()
+    {
+      return this.length;
+    }
+
+    /**
+     * Reads the next token.
+     * 
+     * @return <code>true</code> if a token is read, <code>false</code> if the
+     *         end of the input is reached.
+     */
+    boolean next() throws IOException
+    {
+      int b;
+      do
+      {
+        b = read();
+      }
+      while ( ( b >= 0 ) && ( b <= ' ' ) );
+
+      this.length = 0;
+      while ( b > ' ' )
+      {
+        if ( this.length == this.token.length )
+        {
+          this.token = Arrays.copyOf( this.token, this.length * 2 );
+        }
+        this.token[this.length++] = ( byte )b;
+        b = read();
+      }
+
+      return this.length > 0;
+    }
+
+    /**
+     * Parses (a part of) the current token as unsigned decimal number.
+     */
+    long parseLong( final int aOffset ) throws IOException
+    {
+      if ( aOffset >= this.length )
+      {
+        throw new IOException( "Number expected: " + toString( 0 ) );
+      }
+
+      long result = 0L;
+      for ( int i = aOffset; i < this.length; i++ )
+      {
+        final int digit = this.token[i] - '0';
+        if ( ( digit < 0 ) || ( digit > 9 ) )
+        {
+          throw new IOException( "Invalid number: " + toString( 0 ) );
+        }
+        result = ( result * 10L ) + digit;
+      }
+      return result;
+    }
+
+    /**
+     * Returns (a part of) the current token as string.
+     */
+    String toString( final int aOffset )
+    {
+      try
+      {
+        return new String( this.token, aOffset, this.length - aOffset, "US-ASCII" );
+      }
+      catch ( UnsupportedEncodingException exception )
+      {
+        throw new RuntimeException( exception );
+      }
+    }
+
+    /**
+     * Reads the next byte of the input, or -1 at the end of the input.
+     */
+    private int read() throws IOException
+    {
+      if ( this.pos == this.limit )
+      {
+        this.limit = this.input.read( this.buffer );
+        this.pos = 0;
+        if ( this.limit <= 0 )
+        {
+          this.limit = 0;
+          return -1;
+        }
+      }
+      return this.buffer[this.pos++] & 0xFF;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final String[] UNIT_STRS = { "s", "ms", "us", "ns", "ps", "fs" };
+
+  // VARIABLES
+
+  private final Map<String, Integer> identifiers;
+  private final int[] shortIdentifiers;
+  private final String[] labels;
+  private int channelCount;
+
+  private int sampleRate;
+  private long timeDivider;
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ValueChangeDumpImporter instance.
+   */
+  public ValueChangeDumpImporter()
+  {
+    this.identifiers = new HashMap<String, Integer>();
+    this.shortIdentifiers = new int[128];
+    this.labels = new String[Ols.MAX_CHANNELS];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the labels of the imported channels, which are the names of the
+   * variables they are mapped from.
+   * 
+   * @return an array with a label for each imported channel, never
+   *         <code>null</code>.
+   */
+  public String[] getChannelLabels()
+  {
+    return Arrays.copyOf( this.labels, this.channelCount );
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getFilenameExtentions()
+   */
+  @Override
+  public String[] getFilenameExtentions()
+  {
+    return new String[] { "vcd" };
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#getName()
+   */
+  @Override
+  public String getName()
+  {
+    return "Value Change Dump";
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.data.export.Importer#importData(nl.lxtreme.ols.api.data.project.Project,
+   *      java.io.InputStream)
+   */
+  @Override
+  public void importData( final Project aProject, final InputStream aStream ) throws IOException
+  {
+    // Use a new instance for each import, as this service can be used
+    // concurrently and should not hold on to the parsed data...
+    final ValueChangeDumpImporter importer = new ValueChangeDumpImporter();
+
+    aProject.setCapturedData( importer.read( aStream ) );
+
+    final String[] channelLabels = importer.getChannelLabels();
+    final DataSet dataSet = aProject.getDataSet();
+    for ( int i = 0; i < channelLabels.length; i++ )
+    {
+      dataSet.getChannel( i ).setLabel( channelLabels[i] );
+    }
+  }
+
+  /**
+   * Reads a value change dump from the given input stream.
+   * 
+   * @param aInput
+   *          the input stream to read the value change dump from, cannot be
+   *          <code>null</code>. This stream is <em>not</em> closed.
+   * @return the imported captured data, never <code>null</code>.
+   * @throws IOException
+   *           in case of I/O problems, or in case the value change dump was
+   *           invalid.
+   */
+  public CapturedData read( final InputStream aInput ) throws IOException
+  {
+    Arrays.fill( this.shortIdentifiers, -1 );
+    this.identifiers.clear();
+    this.channelCount = 0;
+    this.sampleRate = Ols.NOT_AVAILABLE;
+    this.timeDivider = 1L;
+    this.values = new int[1024];
+    this.timestamps = new long[1024];
+    this.size = 0;
+
+    final Tokenizer tokenizer = new Tokenizer( aInput );
+
+    readDeclarations( tokenizer );
+    final long endTime = readValueChanges( tokenizer );
+
+    if ( this.channelCount == 0 )
+    {
+      throw new IOException( "Value change dump contains no single-bit variables!" );
+    }
+    if ( this.size == 0 )
+    {
+      throw new IOException( "Value change dump contains no value changes!" );
+    }
+
+    final long absoluteLength = Math.max( endTime, this.timestamps[this.size - 1] + 1L );
+
+    return new CapturedData( Arrays.copyOf( this.values, this.size ), Arrays.copyOf( this.timestamps, this.size ),
+        Ols.NOT_AVAILABLE, this.sampleRate, this.channelCount, NumberUtils.getBitMask( this.channelCount ),
+        absoluteLength );
+  }
+
+  /**
+   * Adds a single transition.
+   */
+  private void addTransition( final long aTime, final int aValue )
+  {
+    if ( this.size == this.values.length )
+    {
+      this.values = Arrays.copyOf( this.values, this.size * 2 );
+      this.timestamps = Arrays.copyOf( this.timestamps, this.size * 2 );
+    }
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTime;
+    this.size++;
+  }
+
+  /**
+   * Returns the channel index of the identifier in the current token, starting
+   * at the given offset.
+   * 
+   * @return a channel index, or -1 if the identifier is not mapped onto a
+   *         channel.
+   */
+  private int getChannelIndex( final Tokenizer aTokenizer, final int aOffset ) throws IOException
+  {
+    if ( aTokenizer.length() == ( aOffset + 1 ) )
+    {
+      final int id = aTokenizer.charAt( aOffset );
+      return ( id < this.shortIdentifiers.length ) ? this.shortIdentifiers[id] : -1;
+    }
+    if ( aTokenizer.length() <= aOffset )
+    {
+      throw new IOException( "Identifier expected!" );
+    }
+
+    final Integer channelIdx = this.identifiers.get( aTokenizer.toString( aOffset ) );
+    return ( channelIdx == null ) ? -1 : channelIdx.intValue();
+  }
+
+  /**
+   * Reads the remaining tokens of the current declaration, up to and including
+   * its "$end".
+   * 
+   * @return the read tokens, never <code>null</code>.
+   */
+  private List<String> readDeclaration( final Tokenizer aTokenizer ) throws IOException
+  {
+    final List<String> result = new ArrayList<String>();
+    while ( aTokenizer.next() )
+    {
+      if ( aTokenizer.equalsToken( "$end" ) )
+      {
+        return result;
+      }
+      result.add( aTokenizer.toString( 0 ) );
+    }
+    throw new IOException( "Unexpected end of value change dump; missing $end!" );
+  }
+
+  /**
+   * Reads all declarations, up to and including "$enddefinitions".
+   */
+  private void readDeclarations( final Tokenizer aTokenizer ) throws IOException
+  {
+    while ( aTokenizer.next() )
+    {
+      if ( aTokenizer.equalsToken( "$var" ) )
+      {
+        readVariable( readDeclaration( aTokenizer ) );
+      }
+      else if ( aTokenizer.equalsToken( "$timescale" ) )
+      {
+        readTimescale( readDeclaration( aTokenizer ) );
+      }
+      else if ( aTokenizer.equalsToken( "$enddefinitions" ) )
+      {
+        readDeclaration( aTokenizer );
+        return;
+      }
+      else if ( aTokenizer.charAt( 0 ) == '$' )
+      {
+        // $comment, $date, $scope, $upscope, $version, ...
+        readDeclaration( aTokenizer );
+      }
+      else
+      {
+        throw new IOException( "Unexpected token in declarations: " + aTokenizer.toString( 0 ) );
+      }
+    }
+    throw new IOException( "Unexpected end of value change dump; missing $enddefinitions!" );
+  }
+
+  /**
+   * Reads the timescale declaration, and determines the sample rate from it.
+   */
+  private void readTimescale( final List<String> aTokens ) throws IOException
+  {
+    final StringBuilder sb = new StringBuilder();
+    for ( String token : aTokens )
+    {
+      sb.append( token );
+    }
+
+    final String timescale = sb.toString().trim();
+
+    int unitIdx = 0;
+    while ( ( unitIdx < timescale.length() ) && Character.isDigit( timescale.charAt( unitIdx ) ) )
+    {
+      unitIdx++;
+    }
+
+    final int unit = Arrays.asList( UNIT_STRS ).indexOf( timescale.substring( unitIdx ) );
+    if ( ( unitIdx == 0 ) || ( unit < 0 ) )
+    {
+      throw new IOException( "Invalid timescale: " + timescale );
+    }
+
+    final long factor = Long.parseLong( timescale.substring( 0, unitIdx ) );
+
+    // Sample rate = 1 / (factor * 10^(-3 * unit))...
+    long rate = 1L;
+    for ( int i = 0; i < unit; i++ )
+    {
+      rate *= 1000L;
+    }
+    if ( ( factor <= 0L ) || ( ( rate % factor ) != 0L ) )
+    {
+      throw new IOException( "Unsupported timescale: " + timescale );
+    }
+    rate /= factor;
+
+    // Sample rates beyond what fits in an integer are scaled down, which
+    // merges transitions that are closer together than the resulting period...
+    long divider = 1L;
+    while ( rate > Integer.MAX_VALUE )
+    {
+      rate /= 10L;
+      divider *= 10L;
+    }
+
+    this.sampleRate = ( int )rate;
+    this.timeDivider = divider;
+  }
+
+  /**
+   * Reads all value changes up to the end of the input.
+   * 
+   * @return the last time mentioned in the value change dump.
+   */
+  private long readValueChanges( final Tokenizer aTokenizer ) throws IOException
+  {
+    long time = -1L;
+    int value = 0;
+    int lastValue = 0;
+
+    while ( aTokenizer.next() )
+    {
+      final int first = aTokenizer.charAt( 0 );
+
+      int level = -1;
+      switch ( first )
+      {
+        case '#':
+          final long newTime = aTokenizer.parseLong( 1 ) / this.timeDivider;
+          if ( newTime != time )
+          {
+            // Merge all changes of the previous time into a single
+            // transition...
+            if ( ( time >= 0L ) && ( ( this.size == 0 ) || ( value != lastValue ) ) )
+            {
+              addTransition( time, value );
+              lastValue = value;
+            }
+            time = newTime;
+          }
+          break;
+
+        case '0':
+          level = 0;
+          break;
+
+        case '1':
+          level = 1;
+          break;
+
+        case 'x':
+        case 'X':
+        case 'z':
+        case 'Z':
+          // Unknown and high-impedance levels are imported as low levels...
+          level = 0;
+          break;
+
+        case 'b':
+        case 'B':
+        case 'r':
+        case 'R':
+          // Vector value changes are followed by their identifier...
+          if ( !aTokenizer.next() )
+          {
+            throw new IOException( "Unexpected end of value change dump; missing identifier!" );
+          }
+          break;
+
+        case '$':
+          if ( aTokenizer.equalsToken( "$comment" ) )
+          {
+            readDeclaration( aTokenizer );
+          }
+          // $dumpvars, $dumpall, $dumpon, $dumpoff and $end only group value
+          // changes...
+          break;
+
+        default:
+          throw new IOException( "Unexpected token in value changes: " + aTokenizer.toString( 0 ) );
+      }
+
+      if ( level >= 0 )
+      {
+        final int channelIdx = getChannelIndex( aTokenizer, 1 );
+        if ( channelIdx >= 0 )
+        {
+          final int mask = 1 << channelIdx;
+          value = ( level != 0 ) ? ( value | mask ) : ( value & ~mask );
+        }
+      }
+    }
+
+    if ( ( time >= 0L ) && ( ( this.size == 0 ) || ( value != lastValue ) ) )
+    {
+      addTransition( time, value );
+    }
+
+    return time;
+  }
+
+  /**
+   * Reads a variable declaration, and maps it onto a channel if possible.
+   */
+  private void readVariable( final List<String> aTokens ) throws IOException
+  {
+    // <type> <size> <identifier> <reference> [<bit select>]
+    if ( aTokens.size() < 4 )
+    {
+      throw new IOException( "Invalid variable declaration: " + aTokens );
+    }
+
+    final String width = aTokens.get( 1 );
+    final String id = aTokens.get( 2 );
+    if ( !"1".equals( width ) || ( this.channelCount >= Ols.MAX_CHANNELS ) || this.identifiers.containsKey( id ) )
+    {
+      // Not a single-bit variable, no channels left, or an alias of an already
+      // mapped variable...
+      return;
+    }
+
+    final StringBuilder label = new StringBuilder( aTokens.get( 3 ) );
+    for ( int i = 4; i < aTokens.size(); i++ )
+    {
+      label.append( aTokens.get( i ) );
+    }
+
+    final int channelIdx = this.channelCount++;
+    this.identifiers.put( id, Integer.valueOf( channelIdx ) );
+    if ( ( id.length() == 1 ) && ( id.charAt( 0 ) < this.shortIdentifiers.length ) )
+    {
+      this.shortIdentifiers[id.charAt( 0 )] = channelIdx;
+    }
+    this.labels[channelIdx] = label.toString();
+  }
+}
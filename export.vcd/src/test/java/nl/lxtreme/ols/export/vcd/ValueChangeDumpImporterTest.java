@@ -0,0 +1,175 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.export.vcd;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+
+import javax.swing.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.project.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link ValueChangeDumpImporter}.
+ */
+public class ValueChangeDumpImporterTest
+{
+  // METHODS
+
+  /**
+   * Tests that single-bit variables are mapped onto channels, and all changes
+   * at the same time are merged into a single transition.
+   */
+  @Test
+  public void testImportMergesValueChangesOk() throws IOException
+  {
+    final String vcd = "$timescale 10 ns $end\n" //
+        + "$scope module top $end\n" //
+        + "$var wire 1 ! clk $end\n" //
+        + "$var wire 8 \" bus [7:0] $end\n" //
+        + "$var wire 1 #a data [3] $end\n" //
+        + "$var wire 1 ! clk_alias $end\n" //
+        + "$upscope $end\n" //
+        + "$enddefinitions $end\n" //
+        + "#0\n$dumpvars\n0!\nb00000000 \"\nx#a\n$end\n" //
+        + "#5\n1!\n1#a\nb11111111 \"\n" //
+        + "#7\n$comment only a vector changes $end\nb0 \"\n" //
+        + "#10\n0!\n#10\n0#a\n" //
+        + "#20\n";
+
+    final ValueChangeDumpImporter importer = new ValueChangeDumpImporter();
+    final CapturedData data = importer.read( new ByteArrayInputStream( vcd.getBytes( "US-ASCII" ) ) );
+
+    assertArrayEquals( new String[] { "clk", "data[3]" }, importer.getChannelLabels() );
+    assertEquals( 2, data.getChannels() );
+    assertEquals( 0x03, data.getEnabledChannels() );
+    assertEquals( 100000000, data.getSampleRate() );
+    assertFalse( data.hasTriggerData() );
+
+    assertArrayEquals( new int[] { 0x00, 0x03, 0x00 }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 5L, 10L }, data.getTimestamps() );
+    assertEquals( 20L, data.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that timescales beyond an integer sample rate are scaled down.
+   */
+  @Test
+  public void testImportScalesFineTimescaleOk() throws IOException
+  {
+    final String vcd = "$timescale 1ps $end $var wire 1 a sig $end $enddefinitions $end " //
+        + "#0 0a #1500 1a #1700 0a #1900 1a #4000";
+
+    final CapturedData data = new ValueChangeDumpImporter().read( new ByteArrayInputStream( vcd
+        .getBytes( "US-ASCII" ) ) );
+
+    assertEquals( 1000000000, data.getSampleRate() );
+    assertArrayEquals( new int[] { 0x00, 0x01 }, data.getValues() );
+    assertArrayEquals( new long[] { 0L, 1L }, data.getTimestamps() );
+    assertEquals( 4L, data.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that a dump without single-bit variables cannot be imported.
+   */
+  @Test( expected = IOException.class )
+  public void testImportWithoutChannelsFail() throws IOException
+  {
+    final String vcd = "$var wire 4 ! bus $end $enddefinitions $end #0 b0000 !";
+
+    new ValueChangeDumpImporter().read( new ByteArrayInputStream( vcd.getBytes( "US-ASCII" ) ) );
+  }
+
+  /**
+   * Tests that importing an exported value change dump yields the same
+   * signals.
+   */
+  @Test
+  public void testImportExportedDumpOk() throws IOException
+  {
+    final DataSet dataSet = DataTestUtils.createStubDataSet( 64, 8 );
+    final AcquisitionResult expected = dataSet.getCapturedData();
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    new ValueChangeDumpExporter().export( dataSet, new JPanel(), baos );
+
+    final CapturedData actual = new ValueChangeDumpImporter().read( new ByteArrayInputStream( baos.toByteArray() ) );
+
+    assertEquals( expected.getSampleRate(), actual.getSampleRate() );
+    assertEquals( expected.getChannels(), actual.getChannels() );
+    assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+
+    final long[] timestamps = expected.getTimestamps();
+    for ( int i = 0; i < timestamps.length; i++ )
+    {
+      assertEquals( "Sample " + i, expected.getValues()[i], valueAt( actual, timestamps[i] ) );
+    }
+  }
+
+  /**
+   * Tests that importing into a project sets both the captured data and the
+   * channel labels.
+   */
+  @Test
+  public void testImportDataIntoProjectOk() throws IOException
+  {
+    final String vcd = "$var wire 1 a clk $end $var wire 1 b cs $end $enddefinitions $end " //
+        + "#0 0a 1b #1 1a #2 0b #3";
+
+    final Channel clk = mock( Channel.class );
+    final Channel cs = mock( Channel.class );
+    final DataSet dataSet = mock( DataSet.class );
+    when( dataSet.getChannel( 0 ) ).thenReturn( clk );
+    when( dataSet.getChannel( 1 ) ).thenReturn( cs );
+    final Project project = mock( Project.class );
+    when( project.getDataSet() ).thenReturn( dataSet );
+
+    new ValueChangeDumpImporter().importData( project, new ByteArrayInputStream( vcd.getBytes( "US-ASCII" ) ) );
+
+    verify( project ).setCapturedData( any( CapturedData.class ) );
+    verify( clk ).setLabel( "clk" );
+    verify( cs ).setLabel( "cs" );
+  }
+
+  /**
+   * Returns the value of the given captured data at a given time.
+   */
+  private int valueAt( final AcquisitionResult aData, final long aTime )
+  {
+    final long[] timestamps = aData.getTimestamps();
+
+    int idx = 0;
+    while ( ( idx + 1 < timestamps.length ) && ( timestamps[idx + 1] <= aTime ) )
+    {
+      idx++;
+    }
+    return aData.getValues()[idx];
+  }
+}
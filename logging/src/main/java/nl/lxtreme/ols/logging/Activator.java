@@ -29,6 +29,15 @@ import org.osgi.framework.*;
  */
 public class Activator implements BundleActivator
 {
+  // CONSTANTS
+
+  /** Whether or not log records should be forwarded asynchronously. */
+  public static final String PROPERTY_ASYNC = "nl.lxtreme.ols.logging.async";
+  /** The maximum number of pending log records in asynchronous mode. */
+  public static final String PROPERTY_ASYNC_CAPACITY = "nl.lxtreme.ols.logging.async.capacity";
+  /** What to do when the maximum number of pending log records is reached. */
+  public static final String PROPERTY_ASYNC_OVERFLOW = "nl.lxtreme.ols.logging.async.overflow";
+
   // VARIABLES
 
   private JdkLogForwarder jdkLogForwarder;
@@ -41,6 +50,10 @@ public class Activator implements BundleActivator
   public void start( final BundleContext aContext ) throws Exception
   {
     this.jdkLogForwarder = new JdkLogForwarder( aContext );
+    if ( Boolean.parseBoolean( aContext.getProperty( PROPERTY_ASYNC ) ) )
+    {
+      this.jdkLogForwarder.setAsynchronous( getAsyncCapacity( aContext ), getAsyncOverflowPolicy( aContext ) );
+    }
     this.jdkLogForwarder.start();
   }
 
@@ -52,4 +65,55 @@ public class Activator implements BundleActivator
     this.jdkLogForwarder.stop();
     this.jdkLogForwarder = null;
   }
+
+  /**
+   * @param aContext
+   *          the bundle context to read the property from;
+   * @return the configured queue capacity, or the default capacity if not or
+   *         incorrectly specified.
+   */
+  private int getAsyncCapacity( final BundleContext aContext )
+  {
+    final String value = aContext.getProperty( PROPERTY_ASYNC_CAPACITY );
+    if ( value != null )
+    {
+      try
+      {
+        final int result = Integer.parseInt( value.trim() );
+        if ( result > 0 )
+        {
+          return result;
+        }
+      }
+      catch ( NumberFormatException exception )
+      {
+        // Ignore; use the default...
+      }
+    }
+    return AsyncLogHandler.DEFAULT_CAPACITY;
+  }
+
+  /**
+   * @param aContext
+   *          the bundle context to read the property from;
+   * @return the configured overflow policy, or
+   *         {@link AsyncLogHandler.OverflowPolicy#DROP_NEWEST} if not or
+   *         incorrectly specified.
+   */
+  private AsyncLogHandler.OverflowPolicy getAsyncOverflowPolicy( final BundleContext aContext )
+  {
+    final String value = aContext.getProperty( PROPERTY_ASYNC_OVERFLOW );
+    if ( value != null )
+    {
+      try
+      {
+        return AsyncLogHandler.OverflowPolicy.valueOf( value.trim().toUpperCase() );
+      }
+      catch ( IllegalArgumentException exception )
+      {
+        // Ignore; use the default...
+      }
+    }
+    return AsyncLogHandler.OverflowPolicy.DROP_NEWEST;
+  }
 }
@@ -0,0 +1,380 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.logging;
+
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+import java.util.logging.*;
+
+
+/**
+ * Provides a JDK-Handler that hands off all log records to a single background
+ * thread, which in turn passes them on to a delegate handler.
+ * <p>
+ * Records are queued in a bounded, lock-free queue, so logging threads (for
+ * example, acquisition tasks with FINE-logging enabled) are never blocked by
+ * the formatting and dispatching of log records. When the queue is full, the
+ * configured {@link OverflowPolicy} determines what happens with new records.
+ * </p>
+ */
+public final class AsyncLogHandler extends Handler
+{
+  // INNER TYPES
+
+  /**
+   * Denotes what to do with log records that arrive while the queue is full.
+   */
+  public static enum OverflowPolicy
+  {
+    /** Discards the newly published record. */
+    DROP_NEWEST,
+    /** Discards the oldest queued record to make room for the new record. */
+    DROP_OLDEST,
+    /** Dispatches the new record directly on the publishing thread. */
+    CALLER_RUNS;
+  }
+
+  /**
+   * Drains the queue and dispatches all log records to the delegate handler.
+   */
+  final class Dispatcher implements Runnable
+  {
+    // METHODS
+
+    /**
+     * @see java.lang.Runnable#run()
+     */
+    @Override
+    public void run()
+    {
+      while ( AsyncLogHandler.this.running.get() )
+      {
+        if ( !drainQueue() )
+        {
+          AsyncLogHandler.this.waiting = true;
+          // Re-check the queue to avoid missing a wake up...
+          if ( AsyncLogHandler.this.queue.isEmpty() && AsyncLogHandler.this.running.get() )
+          {
+            LockSupport.parkNanos( this, MAX_IDLE_TIME );
+          }
+          AsyncLogHandler.this.waiting = false;
+        }
+      }
+
+      // Flush the remaining records before we terminate...
+      drainQueue();
+    }
+  }
+
+  // CONSTANTS
+
+  /** The default capacity of the queue. */
+  public static final int DEFAULT_CAPACITY = 8192;
+
+  private static final long MAX_IDLE_TIME = TimeUnit.MILLISECONDS.toNanos( 250L );
+
+  // VARIABLES
+
+  private final Handler delegate;
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+  private final ConcurrentLinkedQueue<LogRecord> queue;
+  private final AtomicInteger queueSize;
+  private final AtomicBoolean running;
+  private final AtomicLong droppedCount;
+  private final AtomicLong dispatchedCount;
+  private final Thread dispatcherThread;
+
+  private volatile boolean waiting;
+  private long reportedDropCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new AsyncLogHandler instance.
+   *
+   * @param aDelegate
+   *          the handler to dispatch all log records to, cannot be
+   *          <code>null</code>;
+   * @param aCapacity
+   *          the maximum number of queued log records, &gt; 0;
+   * @param aPolicy
+   *          the overflow policy to use when the queue is full, cannot be
+   *          <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case one of the given arguments was invalid.
+   */
+  public AsyncLogHandler( final Handler aDelegate, final int aCapacity, final OverflowPolicy aPolicy )
+  {
+    if ( aDelegate == null )
+    {
+      throw new IllegalArgumentException( "Delegate cannot be null!" );
+    }
+    if ( aCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Capacity should be at least one!" );
+    }
+    if ( aPolicy == null )
+    {
+      throw new IllegalArgumentException( "Policy cannot be null!" );
+    }
+
+    this.delegate = aDelegate;
+    this.capacity = aCapacity;
+    this.overflowPolicy = aPolicy;
+
+    this.queue = new ConcurrentLinkedQueue<LogRecord>();
+    this.queueSize = new AtomicInteger();
+    this.running = new AtomicBoolean( true );
+    this.droppedCount = new AtomicLong();
+    this.dispatchedCount = new AtomicLong();
+
+    this.dispatcherThread = new Thread( new Dispatcher(), "OLS log dispatcher" );
+    this.dispatcherThread.setDaemon( true );
+    this.dispatcherThread.setPriority( Thread.MIN_PRIORITY );
+    this.dispatcherThread.start();
+  }
+
+  // METHODS
+
+  /**
+   * Stops the background dispatcher after it has dispatched all pending log
+   * records, and closes the delegate handler.
+   * <p>
+   * This method is idempotent, as the same handler instance is normally shared
+   * by many loggers.
+   * </p>
+   *
+   * @see java.util.logging.Handler#close()
+   */
+  @Override
+  public void close() throws SecurityException
+  {
+    if ( this.running.compareAndSet( true, false ) )
+    {
+      LockSupport.unpark( this.dispatcherThread );
+      if ( Thread.currentThread() != this.dispatcherThread )
+      {
+        try
+        {
+          this.dispatcherThread.join( TimeUnit.SECONDS.toMillis( 1L ) );
+        }
+        catch ( InterruptedException exception )
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+      this.delegate.close();
+    }
+  }
+
+  /**
+   * @see java.util.logging.Handler#flush()
+   */
+  @Override
+  public void flush()
+  {
+    this.delegate.flush();
+  }
+
+  /**
+   * Returns the maximum number of log records that can be queued.
+   *
+   * @return the capacity, &gt; 0.
+   */
+  public int getCapacity()
+  {
+    return this.capacity;
+  }
+
+  /**
+   * Returns the number of log records dispatched to the delegate handler.
+   *
+   * @return a dispatch count, &gt;= 0.
+   */
+  public long getDispatchedCount()
+  {
+    return this.dispatchedCount.get();
+  }
+
+  /**
+   * Returns the number of log records that are dropped due to an overflow of
+   * the queue.
+   *
+   * @return a drop count, &gt;= 0.
+   */
+  public long getDroppedCount()
+  {
+    return this.droppedCount.get();
+  }
+
+  /**
+   * Returns the overflow policy.
+   *
+   * @return the overflow policy, never <code>null</code>.
+   */
+  public OverflowPolicy getOverflowPolicy()
+  {
+    return this.overflowPolicy;
+  }
+
+  /**
+   * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+   */
+  @Override
+  public void publish( final LogRecord aRecord )
+  {
+    if ( ( aRecord == null ) || ( aRecord.getLevel() == Level.OFF ) )
+    {
+      return;
+    }
+
+    if ( !this.running.get() )
+    {
+      // Dispatcher is gone; do the work ourselves...
+      dispatch( aRecord );
+      return;
+    }
+
+    if ( !offer( aRecord ) )
+    {
+      switch ( this.overflowPolicy )
+      {
+        case DROP_OLDEST:
+          if ( this.queue.poll() != null )
+          {
+            this.queueSize.decrementAndGet();
+            this.droppedCount.incrementAndGet();
+          }
+          if ( !offer( aRecord ) )
+          {
+            this.droppedCount.incrementAndGet();
+          }
+          break;
+
+        case CALLER_RUNS:
+          dispatch( aRecord );
+          break;
+
+        case DROP_NEWEST:
+        default:
+          this.droppedCount.incrementAndGet();
+          break;
+      }
+    }
+
+    if ( this.waiting )
+    {
+      LockSupport.unpark( this.dispatcherThread );
+    }
+  }
+
+  /**
+   * Dispatches the given record to the delegate handler.
+   *
+   * @param aRecord
+   *          the record to dispatch, cannot be <code>null</code>.
+   */
+  final void dispatch( final LogRecord aRecord )
+  {
+    try
+    {
+      this.delegate.publish( aRecord );
+      this.dispatchedCount.incrementAndGet();
+    }
+    catch ( RuntimeException exception )
+    {
+      reportError( null, exception, ErrorManager.WRITE_FAILURE );
+    }
+  }
+
+  /**
+   * Dispatches all currently queued records.
+   *
+   * @return <code>true</code> if at least one record was dispatched,
+   *         <code>false</code> if the queue was empty.
+   */
+  final boolean drainQueue()
+  {
+    boolean result = false;
+
+    LogRecord record;
+    while ( ( record = this.queue.poll() ) != null )
+    {
+      this.queueSize.decrementAndGet();
+      dispatch( record );
+      result = true;
+    }
+
+    reportDroppedRecords();
+
+    return result;
+  }
+
+  /**
+   * Tries to add the given record to the queue, without exceeding its
+   * capacity.
+   *
+   * @param aRecord
+   *          the record to add, cannot be <code>null</code>.
+   * @return <code>true</code> if the record was queued, <code>false</code> if
+   *         the queue is full.
+   */
+  private boolean offer( final LogRecord aRecord )
+  {
+    int size;
+    do
+    {
+      size = this.queueSize.get();
+      if ( size >= this.capacity )
+      {
+        return false;
+      }
+    }
+    while ( !this.queueSize.compareAndSet( size, size + 1 ) );
+
+    this.queue.offer( aRecord );
+    return true;
+  }
+
+  /**
+   * Dispatches a single warning about the number of records dropped since the
+   * last time this method was called. Only called from the dispatcher thread.
+   */
+  private void reportDroppedRecords()
+  {
+    final long dropped = this.droppedCount.get();
+    if ( dropped != this.reportedDropCount )
+    {
+      final LogRecord record = new LogRecord( Level.WARNING, "Log queue overflow; dropped {0} log record(s)!" );
+      record.setLoggerName( AsyncLogHandler.class.getName() );
+      record.setParameters( new Object[] { Long.valueOf( dropped - this.reportedDropCount ) } );
+
+      this.reportedDropCount = dropped;
+
+      dispatch( record );
+    }
+  }
+}
+
+/* EOF */
@@ -203,7 +203,8 @@ public final class JdkLogForwarder
      */
     private String getMessage( final LogRecord aRecord )
     {
-      String result = "[[".concat( aRecord.getLoggerName() ).concat( "]]" ).concat( aRecord.getMessage() );
+      final String result = new StringBuilder( "[[" ).append( aRecord.getLoggerName() ).append( "]]" )
+          .append( aRecord.getMessage() ).toString();
 
       final Object[] params = aRecord.getParameters();
       if ( ( params != null ) && ( params.length > 0 ) )
@@ -225,7 +226,11 @@ public final class JdkLogForwarder
   private final ServiceTracker logServiceTracker;
   private final BundleListener bundleListener;
 
-  private Handler logHandler;
+  private volatile boolean asynchronous;
+  private volatile int asyncCapacity;
+  private volatile AsyncLogHandler.OverflowPolicy asyncOverflowPolicy;
+
+  private volatile Handler logHandler;
 
   // CONSTRUCTORS
 
@@ -252,10 +257,60 @@ public final class JdkLogForwarder
     this.bundleListener = new BundleTracker();
 
     this.logHandler = this.defaultHandler;
+
+    this.asynchronous = false;
+    this.asyncCapacity = AsyncLogHandler.DEFAULT_CAPACITY;
+    this.asyncOverflowPolicy = AsyncLogHandler.OverflowPolicy.DROP_NEWEST;
   }
 
   // METHODS
 
+  /**
+   * Enables the asynchronous forwarding mode, in which log records are handed
+   * off to a single background thread that formats and dispatches them to the
+   * OSGi LogService.
+   * <p>
+   * Should be called before {@link #start()}.
+   * </p>
+   * 
+   * @param aCapacity
+   *          the maximum number of pending log records, &gt; 0;
+   * @param aPolicy
+   *          what to do with log records that arrive when the maximum number
+   *          of pending log records is reached, cannot be <code>null</code>.
+   * @see AsyncLogHandler
+   */
+  public void setAsynchronous( final int aCapacity, final AsyncLogHandler.OverflowPolicy aPolicy )
+  {
+    if ( aCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Capacity should be at least one!" );
+    }
+    if ( aPolicy == null )
+    {
+      throw new IllegalArgumentException( "Policy cannot be null!" );
+    }
+    this.asyncCapacity = aCapacity;
+    this.asyncOverflowPolicy = aPolicy;
+    this.asynchronous = true;
+  }
+
+  /**
+   * Returns the number of log records dropped by the current log handler.
+   * 
+   * @return a drop count, &gt;= 0. Always zero if the asynchronous forwarding
+   *         mode is disabled.
+   */
+  public long getDroppedCount()
+  {
+    final Handler handler = getCurrentHandler();
+    if ( handler instanceof AsyncLogHandler )
+    {
+      return ( ( AsyncLogHandler )handler ).getDroppedCount();
+    }
+    return 0L;
+  }
+
   /**
    * Starts the JDK-logging forwarding service.
    */
@@ -300,7 +355,12 @@ public final class JdkLogForwarder
   {
     if ( aLogService != null )
     {
-      this.logHandler = new OsgiLogDelegateHandler( aLogService );
+      Handler handler = new OsgiLogDelegateHandler( aLogService );
+      if ( this.asynchronous )
+      {
+        handler = new AsyncLogHandler( handler, this.asyncCapacity, this.asyncOverflowPolicy );
+      }
+      this.logHandler = handler;
       updateLogHandler( this.logHandler );
     }
     else
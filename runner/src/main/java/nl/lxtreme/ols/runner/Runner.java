@@ -88,18 +88,27 @@ public final class Runner
     System.setProperty( "felix.fileinstall.dir", pluginDir );
     System.setProperty( "felix.fileinstall.start.level", "2" );
     System.setProperty( "felix.fileinstall.enableConfigSave", Boolean.toString( true ) );
+    // Tool, exporter and device bundles declare a lazy activation policy, and
+    // are only activated upon their first use...
+    System.setProperty( "felix.fileinstall.bundles.startActivationPolicy", Boolean.toString( true ) );
     final String logLevel = isDebugMode() ? "4" : "1";
     System.setProperty( "felix.fileinstall.log.level", logLevel );
 
     try
     {
+      final StartupTimer startupTimer = new StartupTimer();
+
       this.framework = new Felix( config );
       this.framework.init();
 
+      this.framework.getBundleContext().addBundleListener( startupTimer );
+
       AutoProcessor.process( config, this.framework.getBundleContext() );
 
       this.framework.start();
 
+      startupTimer.reportWhenSettled();
+
       LOG.log( Level.INFO, "Bootstrap complete ..." );
       // Issue #36: log something about where we're trying to read/store stuff,
       // makes offline debugging a bit easier...
@@ -0,0 +1,235 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.runner;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+import java.util.logging.Logger;
+
+import org.osgi.framework.*;
+
+
+/**
+ * Keeps track of the time it takes to start each bundle, and reports a
+ * breakdown of these timings once the startup of all bundles settled.
+ */
+final class StartupTimer implements SynchronousBundleListener
+{
+  // INNER TYPES
+
+  /**
+   * Holds the timing information of a single bundle.
+   */
+  static final class BundleTiming implements Comparable<BundleTiming>
+  {
+    // VARIABLES
+
+    final String name;
+    long installed = -1L;
+    long starting = -1L;
+    long started = -1L;
+    boolean lazy = false;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new BundleTiming instance.
+     */
+    BundleTiming( final String aName )
+    {
+      this.name = aName;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int compareTo( final BundleTiming aOther )
+    {
+      final long diff = aOther.getStartTime() - getStartTime();
+      return ( diff < 0L ) ? -1 : ( ( diff > 0L ) ? 1 : this.name.compareTo( aOther.name ) );
+    }
+
+    /**
+     * @return the time spent starting the bundle, in nanoseconds.
+     */
+    long getStartTime()
+    {
+      if ( ( this.starting < 0L ) || ( this.started < 0L ) )
+      {
+        return 0L;
+      }
+      return this.started - this.starting;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( StartupTimer.class.getName() );
+
+  private static final long QUIET_PERIOD = TimeUnit.SECONDS.toNanos( 2L );
+  private static final long MAX_WAIT_TIME = TimeUnit.SECONDS.toNanos( 60L );
+
+  // VARIABLES
+
+  private final long launchTime;
+  private final Map<Long, BundleTiming> timings;
+
+  private volatile long lastEventTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new StartupTimer instance.
+   */
+  StartupTimer()
+  {
+    this.launchTime = System.nanoTime();
+    this.timings = new LinkedHashMap<Long, BundleTiming>();
+    this.lastEventTime = this.launchTime;
+  }
+
+  // METHODS
+
+  /**
+   * Converts a given time in nanoseconds to milliseconds.
+   */
+  private static long toMillis( final long aNanos )
+  {
+    return TimeUnit.NANOSECONDS.toMillis( aNanos );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void bundleChanged( final BundleEvent aEvent )
+  {
+    final long now = System.nanoTime();
+    this.lastEventTime = now;
+
+    synchronized ( this.timings )
+    {
+      final Bundle bundle = aEvent.getBundle();
+
+      BundleTiming timing = this.timings.get( Long.valueOf( bundle.getBundleId() ) );
+      if ( timing == null )
+      {
+        final String name = ( bundle.getSymbolicName() != null ) ? bundle.getSymbolicName() : bundle.getLocation();
+        timing = new BundleTiming( name );
+        this.timings.put( Long.valueOf( bundle.getBundleId() ), timing );
+      }
+
+      switch ( aEvent.getType() )
+      {
+        case BundleEvent.INSTALLED:
+          timing.installed = now;
+          break;
+        case BundleEvent.LAZY_ACTIVATION:
+          timing.lazy = true;
+          break;
+        case BundleEvent.STARTING:
+          timing.starting = now;
+          break;
+        case BundleEvent.STARTED:
+          timing.started = now;
+          break;
+        default:
+          break;
+      }
+    }
+  }
+
+  /**
+   * Starts a background thread that waits until no bundle events occurred for
+   * a while and then logs the startup timing breakdown.
+   */
+  void reportWhenSettled()
+  {
+    final Thread thread = new Thread( "OLS startup timer" )
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          long now;
+          do
+          {
+            TimeUnit.NANOSECONDS.sleep( QUIET_PERIOD / 4 );
+            now = System.nanoTime();
+          }
+          while ( ( ( now - StartupTimer.this.lastEventTime ) < QUIET_PERIOD )
+              && ( ( now - StartupTimer.this.launchTime ) < MAX_WAIT_TIME ) );
+
+          report();
+        }
+        catch ( InterruptedException exception )
+        {
+          Thread.currentThread().interrupt();
+        }
+      }
+    };
+    thread.setDaemon( true );
+    thread.start();
+  }
+
+  /**
+   * Logs the startup timing breakdown, slowest bundles first.
+   */
+  final void report()
+  {
+    final List<BundleTiming> entries;
+    synchronized ( this.timings )
+    {
+      entries = new ArrayList<BundleTiming>( this.timings.values() );
+    }
+    Collections.sort( entries );
+
+    final StringBuilder sb = new StringBuilder( "Startup timing breakdown:" );
+    int lazyCount = 0;
+    long lastStarted = this.launchTime;
+    for ( BundleTiming entry : entries )
+    {
+      if ( entry.lazy && ( entry.started < 0L ) )
+      {
+        lazyCount++;
+        continue;
+      }
+      if ( entry.started > lastStarted )
+      {
+        lastStarted = entry.started;
+      }
+      sb.append( String.format( "%n  %6d ms  (ready at %6d ms)  %s", Long.valueOf( toMillis( entry.getStartTime() ) ),
+          Long.valueOf( toMillis( Math.max( 0L, entry.started - this.launchTime ) ) ), entry.name ) );
+    }
+    sb.append( String.format( "%n  %d bundle(s) deferred until first use; all bundles started after %d ms.",
+        Integer.valueOf( lazyCount ), Long.valueOf( toMillis( lastStarted - this.launchTime ) ) ) );
+
+    LOG.log( Level.INFO, sb.toString() );
+  }
+}
+
+/* EOF */
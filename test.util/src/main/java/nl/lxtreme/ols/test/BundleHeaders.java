@@ -0,0 +1,176 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.test;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import javax.xml.parsers.*;
+
+import nl.lxtreme.ols.api.data.export.*;
+import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.w3c.dom.*;
+
+
+/**
+ * Provides assertions that the bundle headers declared in the POM of the
+ * current module match the tools, exporters, importers and devices they
+ * describe. The client uses these headers instead of the actual classes until
+ * a bundle is activated, so they should never drift apart.
+ */
+public final class BundleHeaders
+{
+  // CONSTANTS
+
+  private static final String POM_FILE = "pom.xml";
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BundleHeaders instance.
+   */
+  private BundleHeaders()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Asserts that the device headers match the given device.
+   * 
+   * @param aDevice
+   *          the device to test, cannot be <code>null</code>.
+   */
+  public static void assertDeviceHeaders( final Device aDevice )
+  {
+    assertEquals( "OLS-DeviceClass", aDevice.getClass().getName(), getHeader( "OLS-DeviceClass" ) );
+    assertEquals( "OLS-DeviceName", aDevice.getName(), getHeader( "OLS-DeviceName" ) );
+  }
+
+  /**
+   * Asserts that the exporter headers match the given exporter.
+   * 
+   * @param aExporter
+   *          the exporter to test, cannot be <code>null</code>.
+   */
+  public static void assertExporterHeaders( final Exporter aExporter )
+  {
+    assertEquals( "OLS-ExporterClass", aExporter.getClass().getName(), getHeader( "OLS-ExporterClass" ) );
+    assertEquals( "OLS-ExporterName", aExporter.getName(), getHeader( "OLS-ExporterName" ) );
+    assertArrayEquals( "OLS-ExporterExtensions", aExporter.getFilenameExtentions(),
+        getListHeader( "OLS-ExporterExtensions" ) );
+  }
+
+  /**
+   * Asserts that the importer headers match the given importer.
+   * 
+   * @param aImporter
+   *          the importer to test, cannot be <code>null</code>.
+   */
+  public static void assertImporterHeaders( final Importer aImporter )
+  {
+    assertEquals( "OLS-ImporterClass", aImporter.getClass().getName(), getHeader( "OLS-ImporterClass" ) );
+    assertEquals( "OLS-ImporterName", aImporter.getName(), getHeader( "OLS-ImporterName" ) );
+    assertArrayEquals( "OLS-ImporterExtensions", aImporter.getFilenameExtentions(),
+        getListHeader( "OLS-ImporterExtensions" ) );
+  }
+
+  /**
+   * Asserts that the tool headers match the given tool.
+   * 
+   * @param aTool
+   *          the tool to test, cannot be <code>null</code>.
+   */
+  public static void assertToolHeaders( final Tool<?> aTool )
+  {
+    assertEquals( "OLS-ToolClass", aTool.getClass().getName(), getHeader( "OLS-ToolClass" ) );
+    assertEquals( "OLS-ToolName", aTool.getName(), getHeader( "OLS-ToolName" ) );
+    assertEquals( "OLS-ToolCategory", aTool.getCategory().name(), getHeader( "OLS-ToolCategory" ) );
+  }
+
+  /**
+   * Returns the value of the bundle header with the given name, as declared
+   * in the POM of the current module.
+   * 
+   * @param aName
+   *          the name of the header to return, cannot be <code>null</code>.
+   * @return the (trimmed) header value, or <code>null</code> if no such header
+   *         is declared.
+   */
+  public static String getHeader( final String aName )
+  {
+    final NodeList nodes = readPom().getElementsByTagName( aName );
+    if ( nodes.getLength() == 0 )
+    {
+      return null;
+    }
+    assertEquals( "Header declared more than once: " + aName, 1, nodes.getLength() );
+    return nodes.item( 0 ).getTextContent().trim();
+  }
+
+  /**
+   * Returns the comma-separated values of the bundle header with the given
+   * name, as declared in the POM of the current module.
+   * 
+   * @param aName
+   *          the name of the header to return, cannot be <code>null</code>.
+   * @return the (trimmed) header values, never <code>null</code>.
+   */
+  public static String[] getListHeader( final String aName )
+  {
+    final List<String> result = new ArrayList<String>();
+    final String value = getHeader( aName );
+    if ( value != null )
+    {
+      for ( String element : value.split( "," ) )
+      {
+        if ( !"".equals( element.trim() ) )
+        {
+          result.add( element.trim() );
+        }
+      }
+    }
+    return result.toArray( new String[result.size()] );
+  }
+
+  /**
+   * Reads the POM of the current module, which is the working directory of
+   * the unit tests.
+   */
+  private static Document readPom()
+  {
+    final File pom = new File( System.getProperty( "basedir", "." ), POM_FILE );
+    try
+    {
+      return DocumentBuilderFactory.newInstance().newDocumentBuilder().parse( pom );
+    }
+    catch ( Exception exception )
+    {
+      throw new AssertionError( "Failed to read " + pom + ": " + exception );
+    }
+  }
+}
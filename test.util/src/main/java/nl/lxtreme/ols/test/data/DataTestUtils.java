@@ -309,6 +309,18 @@ public final class DataTestUtils
       {
         return first.intValue();
       }
+
+      @Override
+      public AcquisitionResultView getWindowedData()
+      {
+        return getWindowedData( 0xFFFFFFFF );
+      }
+
+      @Override
+      public AcquisitionResultView getWindowedData( final int aChannelMask )
+      {
+        return new AcquisitionResultView( aData, first.intValue(), last.intValue(), aChannelMask );
+      }
     };
   }
 
@@ -93,6 +93,15 @@ public class StubChannel implements Channel
     return Collections.emptyList();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public List<DataAnnotation<?>> getDataAnnotations( final long aStartTimestamp, final long aEndTimestamp )
+  {
+    return Collections.emptyList();
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -120,6 +129,15 @@ public class StubChannel implements Channel
     return this.mask;
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean hasAnnotations()
+  {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -41,6 +41,8 @@ import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 
@@ -392,7 +394,7 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
    */
   private String toHtmlPage( final File aFile, final OneWireDataSet aAnalysisResult ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -410,55 +412,52 @@ public class OneWireAnalyserDialog extends BaseToolDialog<OneWireDataSet> implem
         {
           return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
+        {
+          return false;
+        }
+
+        final List<OneWireData> dataSet = aAnalysisResult.getData();
+        for ( int i = 0; i < dataSet.size(); i++ )
         {
-          final List<OneWireData> dataSet = aAnalysisResult.getData();
-          Element tr;
+          final OneWireData data = dataSet.get( i );
+          final String time = UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
 
-          for ( int i = 0; i < dataSet.size(); i++ )
+          if ( data.isEvent() )
           {
-            final OneWireData data = dataSet.get( i );
+            // this is an event
+            final String event = data.getEventName();
 
-            if ( data.isEvent() )
+            String bgColor;
+            if ( OneWireDataSet.OW_RESET.equals( event ) )
             {
-              // this is an event
-              final String event = data.getEventName();
-
-              String bgColor;
-              if ( OneWireDataSet.OW_RESET.equals( event ) )
-              {
-                bgColor = "#e0e0e0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
+              bgColor = "#e0e0e0";
             }
             else
             {
-              final int value = data.getValue();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( "0x" + StringUtils.integerToHexString( value, 2 ) );
-              tr.addChild( TD ).addContent( "0b" + StringUtils.integerToBinString( value, 8 ) );
-              tr.addChild( TD ).addContent( String.valueOf( value ) );
-              tr.addChild( TD ).addContent( String.valueOf( ( char )value ) );
+              // unknown event
+              bgColor = "#ff8000";
             }
+
+            aWriter.addRow( "background-color: " + bgColor + ";", String.valueOf( i ), time, event, null, null, null );
+          }
+          else
+          {
+            final int value = data.getValue();
+
+            aWriter.addRow( null, String.valueOf( i ), time, "0x" + StringUtils.integerToHexString( value, 2 ), "0b"
+                + StringUtils.integerToBinString( value, 8 ), String.valueOf( value ), String.valueOf( ( char )value ) );
           }
         }
 
-        return null;
+        return true;
       }
     };
 
@@ -263,54 +263,33 @@ public class OneWireAnalyserTask implements ToolTask<OneWireDataSet>
    *          the timestamp to start searching;
    * @param aEndOfDecode
    *          the timestamp to end the search;
-   * @param aMask
-   *          the bit-value mask to apply for finding the start bit.
+   * @param aEdge
+   *          the kind of edge to search for.
    * @return the time at which the start bit was found, -1 if it is not found.
    */
   private long findEdge( final AcquisitionResult aData, final long aStartOfDecode, final long aEndOfDecode,
       final Edge aEdge )
   {
-    long result = -1;
+    // Use the (cached) transitions of the 1-wire line instead of probing each
+    // individual time unit...
+    final ChannelPrefixSums transitions = ChannelPrefixSums.get( aData, this.owLineIndex )[0];
+    final int edgeCount = transitions.getEdgeCount();
+    final boolean rising = ( aEdge == Edge.RISING );
 
-    int oldBitValue = getDataValue( aData, aStartOfDecode ) & this.owLineMask;
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
+    for ( int edgeIdx = transitions.findNextEdgeAtTime( aStartOfDecode + 1 ); edgeIdx < edgeCount; edgeIdx++ )
     {
-      final int bitValue = getDataValue( aData, timeCursor ) & this.owLineMask;
-
-      final Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( aEdge == edge )
+      final long timestamp = transitions.getEdgeTimestamp( edgeIdx );
+      if ( timestamp >= aEndOfDecode )
       {
-        result = timeCursor;
+        break;
       }
-
-      oldBitValue = bitValue;
-    }
-
-    return result;
-  }
-
-  /**
-   * Returns the data value for the given time stamp.
-   * 
-   * @param aTimeValue
-   *          the time stamp to return the data value for.
-   * @return the data value of the sample index right before the given time
-   *         value.
-   */
-  private int getDataValue( final AcquisitionResult aData, final long aTimeValue )
-  {
-    final int[] values = aData.getValues();
-    final long[] timestamps = aData.getTimestamps();
-
-    int i;
-    for ( i = 1; i < timestamps.length; i++ )
-    {
-      if ( aTimeValue < timestamps[i] )
+      if ( transitions.isRising( edgeIdx ) == rising )
       {
-        break;
+        return timestamp;
       }
     }
-    return values[i - 1];
+
+    return -1;
   }
 
   /**
@@ -208,6 +208,14 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
       new Asm45OpcodeTable( 0xffff, 0x73c0, "CDC", 0, 11 ), //
       new Asm45OpcodeTable( 0, 0, null, 0, 0 ) };
 
+  /**
+   * Maps each 16-bit instruction word directly onto its entry in the opcode
+   * table, or <code>null</code> if the word does not represent a valid
+   * instruction. This allows an instruction to be decoded with a single array
+   * lookup, instead of matching it against all masks of the opcode table.
+   */
+  private static final Asm45OpcodeTable[] opcodeDispatchTable = createDispatchTable();
+
   // VARIABLES
 
   private final ToolContext context;
@@ -277,7 +285,10 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
     boolean busGrant = false; // bus grant for DMA, CRT cycle steeling etc.
 
     String type = Asm45Data.TYPE_INSTRUCTION; // type of decoded event
-    String event = "???"; // event description (mnemonic etc.)
+    boolean write = false; // direction of data transfer
+    Asm45OpcodeTable opcode = null; // decoded instruction
+
+    int lastPercentage = -1;
 
     /*
      * Loop over the acquisition data
@@ -317,28 +328,8 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
           {
             type = Asm45Data.TYPE_DATA_BYTE_LEFT;
           }
-          if ( ( status & this.lineWRTmask ) != 0 )
-          {
-            if ( address < 32 )
-            {
-              event = Asm45AnalyserTask.registers[address] + String.format( "&rarr;$%04x", ida );
-            }
-            else
-            {
-              event = String.format( "%04x&rarr;$%04x", address, ida );
-            }
-          }
-          else
-          {
-            if ( address < 32 )
-            {
-              event = Asm45AnalyserTask.registers[address] + String.format( "&larr;$%04x", ida );
-            }
-            else
-            {
-              event = String.format( "%04x&larr;$%04x", address, ida );
-            }
-          }
+          write = ( status & this.lineWRTmask ) != 0;
+          opcode = null;
         }
         else
         {
@@ -347,7 +338,8 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
           {
             // instruction fetch
             type = Asm45Data.TYPE_INSTRUCTION;
-            event = word2asm( address, ida );
+            write = false;
+            opcode = opcodeDispatchTable[ida];
           }
           else
           {
@@ -364,28 +356,8 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
             {
               type = Asm45Data.TYPE_DATA_BYTE_LEFT;
             }
-            if ( ( status & this.lineWRTmask ) != 0 )
-            {
-              if ( address < 32 )
-              {
-                event = Asm45AnalyserTask.registers[address] + String.format( "&rarr;$%04x", ida );
-              }
-              else
-              {
-                event = String.format( "%04x&rarr;$%04x", address, ida );
-              }
-            }
-            else
-            {
-              if ( address < 32 )
-              {
-                event = Asm45AnalyserTask.registers[address] + String.format( "&larr;$%04x", ida );
-              }
-              else
-              {
-                event = String.format( "%04x&larr;$%04x", address, ida );
-              }
-            }
+            write = ( status & this.lineWRTmask ) != 0;
+            opcode = null;
           }
         }
 
@@ -395,14 +367,19 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
                 && ( ( type == Asm45Data.TYPE_DATA_WORD ) || ( type == Asm45Data.TYPE_DATA_BYTE_LEFT ) || ( type == Asm45Data.TYPE_DATA_BYTE_RIGHT ) ) && this.reportData )
             || ( busGrant && this.reportBusGrants ) )
         {
-          reportEvent( asm45DataSet, startIdx, idx, clocks, block, address, ida, busGrant, type, event );
+          reportEvent( asm45DataSet, startIdx, idx, clocks, block, address, ida, busGrant, type, write, opcode );
           clocks = 0;
         }
       }
 
       status = control;
 
-      this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
+      final int percentage = getPercentage( idx, startOfDecode, endOfDecode );
+      if ( percentage != lastPercentage )
+      {
+        this.progressListener.setProgress( percentage );
+        lastPercentage = percentage;
+      }
     }
 
     return asm45DataSet;
@@ -490,34 +467,51 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
   }
 
   /**
-   * decode event
+   * Looks up the opcode table entry for the given instruction word by matching
+   * it against all entries of the opcode table.
+   * 
+   * @param aWord
+   *          the 16-bit instruction word to look up.
+   * @return the matching opcode table entry, or <code>null</code> if no entry
+   *         matches the given word.
+   */
+  static Asm45OpcodeTable findOpcode( final int aWord )
+  {
+    for ( Asm45OpcodeTable op : hp9845Table )
+    {
+      if ( op.getMnemonic() == null )
+      {
+        break;
+      }
+      if ( ( aWord & op.getMask() ) == op.getOpcode() )
+      {
+        return op;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Formats the given instruction as assembler instruction.
    * 
    * @param address
+   *          the address of the instruction;
    * @param opcode
-   * @return event description (assembler instruction or data transfer)
+   *          the 16-bit instruction word;
+   * @param op
+   *          the opcode table entry of the instruction word, can be
+   *          <code>null</code>.
+   * @return event description (assembler instruction)
    */
-  protected String word2asm( final int address, final int opcode )
+  static String formatInstruction( final int address, final int opcode, final Asm45OpcodeTable op )
   {
     int operand;
     int count;
     int timing = 0;
-    int i = 0;
-    Asm45OpcodeTable op = hp9845Table[0];
     String ret_string = "";
 
-    /* get mnemonic */
-    while ( op.getMnemonic() != null )
-    {
-      if ( ( opcode & op.getMask() ) == op.getOpcode() )
-      {
-        break;
-      }
-      i++;
-      op = hp9845Table[i];
-    }
-
     /* if match, write mnemonic - else return */
-    if ( op.getMnemonic() == null )
+    if ( op == null )
     {
       return "???";
     }
@@ -683,16 +677,65 @@ public class Asm45AnalyserTask implements ToolTask<Asm45DataSet>
     return ret_string;
   }
 
+  /**
+   * Formats the given data transfer.
+   * 
+   * @param aAddress
+   *          the address of the transfer;
+   * @param aValue
+   *          the transferred 16-bit value;
+   * @param aWrite
+   *          <code>true</code> if the value is written to the given address,
+   *          <code>false</code> if it is read from the given address.
+   * @return event description (data transfer)
+   */
+  static String formatTransfer( final int aAddress, final int aValue, final boolean aWrite )
+  {
+    final String direction = aWrite ? "&rarr;" : "&larr;";
+    if ( aAddress < 32 )
+    {
+      return registers[aAddress] + String.format( "%s$%04x", direction, aValue );
+    }
+    return String.format( "%04x%s$%04x", aAddress, direction, aValue );
+  }
+
+  /**
+   * Creates the dispatch table for all 16-bit instruction words.
+   * 
+   * @return a new dispatch table, never <code>null</code>.
+   */
+  private static Asm45OpcodeTable[] createDispatchTable()
+  {
+    final Asm45OpcodeTable[] result = new Asm45OpcodeTable[0x10000];
+    for ( int word = 0; word < result.length; word++ )
+    {
+      result[word] = findOpcode( word );
+    }
+    return result;
+  }
+
+  /**
+   * decode event
+   * 
+   * @param address
+   * @param opcode
+   * @return event description (assembler instruction)
+   */
+  protected String word2asm( final int address, final int opcode )
+  {
+    return formatInstruction( address, opcode, opcodeDispatchTable[opcode & 0xffff] );
+  }
+
   /**
    * @param aTime
    * @param aByteValue
    */
   private void reportEvent( final Asm45DataSet aDataSet, final int aStartSampleIdx, final int aEndSampleIdx,
       final int aClocks, final int aBlock, final int aAddress, final int aValue, final boolean aBusGrant,
-      final String aType, final String aEvent )
+      final String aType, final boolean aWrite, final Asm45OpcodeTable aOpcode )
   {
     aDataSet.reportEvent( this.lineSMCidx, aStartSampleIdx, aEndSampleIdx, aClocks, aBlock, aAddress, aValue,
-        aBusGrant, aType, aEvent );
+        aBusGrant, aType, aWrite, aOpcode );
   }
 }
 
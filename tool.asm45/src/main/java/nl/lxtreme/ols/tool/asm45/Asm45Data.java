@@ -58,8 +58,15 @@ public final class Asm45Data extends BaseData<Asm45Data>
    * byte right
    */
   private final String type;
-  /** decoded 9845 assembler instruction / data transfer as a string */
-  private final String event;
+  /** true if the data transfer writes to the memory address */
+  private final boolean write;
+  /** decoded 9845 instruction, only for instructions */
+  private final Asm45OpcodeTable opcode;
+  /**
+   * decoded 9845 assembler instruction / data transfer as a string, lazily
+   * formatted
+   */
+  private String event;
 
   // CONSTRUCTORS
 
@@ -83,9 +90,45 @@ public final class Asm45Data extends BaseData<Asm45Data>
     this.value = aValue;
     this.busGrant = aBusGrant;
     this.type = aType;
+    this.write = false;
+    this.opcode = null;
     this.event = aEvent;
   }
 
+  /**
+   * Creates a new Asm45Data instance whose event description is only formatted
+   * when it is requested.
+   * 
+   * @param aClocks
+   * @param aBlock
+   * @param aAddress
+   * @param aValue
+   * @param aBusGrant
+   * @param aType
+   * @param aWrite
+   *          <code>true</code> if a data transfer writes the value to the
+   *          address, <code>false</code> if it reads the value from the
+   *          address;
+   * @param aOpcode
+   *          the decoded instruction, can be <code>null</code> for data
+   *          transfers and unknown instructions.
+   */
+  public Asm45Data( final int aIdx, final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
+      final int aClocks, final int aBlock, final int aAddress, final int aValue, final boolean aBusGrant,
+      final String aType, final boolean aWrite, final Asm45OpcodeTable aOpcode )
+  {
+    super( aIdx, aChannelIdx, aStartSampleIdx, aEndSampleIdx );
+    this.clocks = aClocks;
+    this.block = aBlock;
+    this.address = aAddress;
+    this.value = aValue;
+    this.busGrant = aBusGrant;
+    this.type = aType;
+    this.write = aWrite;
+    this.opcode = aOpcode;
+    this.event = null;
+  }
+
   /**
    * @param aEventName
    */
@@ -98,6 +141,8 @@ public final class Asm45Data extends BaseData<Asm45Data>
     this.value = 0;
     this.busGrant = false;
     this.type = "";
+    this.write = false;
+    this.opcode = null;
     this.event = "";
   }
 
@@ -164,7 +209,28 @@ public final class Asm45Data extends BaseData<Asm45Data>
    */
   public String getEvent()
   {
-    return this.event;
+    String result = this.event;
+    if ( result == null )
+    {
+      if ( Asm45Data.TYPE_INSTRUCTION.equals( this.type ) )
+      {
+        result = Asm45AnalyserTask.formatInstruction( this.address, this.value, this.opcode );
+      }
+      else
+      {
+        result = Asm45AnalyserTask.formatTransfer( this.address, this.value, this.write );
+      }
+      this.event = result;
+    }
+    return result;
+  }
+
+  /**
+   * @return the decoded instruction, can be <code>null</code>.
+   */
+  public Asm45OpcodeTable getOpcode()
+  {
+    return this.opcode;
   }
 
   /**
@@ -88,6 +88,37 @@ public final class Asm45DataSet extends BaseDataSet<Asm45Data>
       final String aType, final String aEvent )
   {
     final int idx = size();
+    updateTriggerEvent( aStartSampleIdx );
+    addData( new Asm45Data( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aClocks, aBlock, aAddress, aValue,
+        aBusGrant, aType, aEvent ) );
+  }
+
+  /**
+   * Reports an event whose description is formatted when it is requested,
+   * which avoids formatting events that are never shown.
+   * 
+   * @param aWrite
+   *          <code>true</code> if a data transfer writes the value to the
+   *          address, <code>false</code> otherwise;
+   * @param aOpcode
+   *          the decoded instruction, can be <code>null</code>.
+   */
+  public void reportEvent( final int aChannelIdx, final int aStartSampleIdx, final int aEndSampleIdx,
+      final int aClocks, final int aBlock, final int aAddress, final int aValue, final boolean aBusGrant,
+      final String aType, final boolean aWrite, final Asm45OpcodeTable aOpcode )
+  {
+    final int idx = size();
+    updateTriggerEvent( aStartSampleIdx );
+    addData( new Asm45Data( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aClocks, aBlock, aAddress, aValue,
+        aBusGrant, aType, aWrite, aOpcode ) );
+  }
+
+  /**
+   * Keeps track of the first event at or after the trigger, and counts the
+   * decoded words.
+   */
+  private void updateTriggerEvent( final int aStartSampleIdx )
+  {
     final double current_timing = getTime( aStartSampleIdx );
     if ( ( this.last_timing < 0 ) && ( current_timing >= 0 ) )
     {
@@ -95,8 +126,6 @@ public final class Asm45DataSet extends BaseDataSet<Asm45Data>
     }
     this.last_timing = current_timing;
     this.decodedWords++;
-    addData( new Asm45Data( idx, aChannelIdx, aStartSampleIdx, aEndSampleIdx, aClocks, aBlock, aAddress, aValue,
-        aBusGrant, aType, aEvent ) );
   }
 }
 
@@ -42,6 +42,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -625,7 +627,7 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
   //
   private String toHtmlPage( final File aFile, final Asm45DataSet aAnalysisResult ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       @SuppressWarnings( "boxing" )
@@ -668,55 +670,57 @@ public final class Asm45ProtocolAnalysisDialog extends BaseToolDialog<Asm45DataS
         {
           return Integer.valueOf( aAnalysisResult.getDecodedWordCount() );
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
         {
-          final List<Asm45Data> dataSet = aAnalysisResult.getData();
-          Element tr;
+          return false;
+        }
 
-          for ( int i = 0; i < dataSet.size(); i++ )
-          {
-            final Asm45Data data = dataSet.get( i );
-            int index = i - aAnalysisResult.getTriggerEvent();
+        final List<Asm45Data> dataSet = aAnalysisResult.getData();
+        for ( int i = 0; i < dataSet.size(); i++ )
+        {
+          final Asm45Data data = dataSet.get( i );
+          int index = i - aAnalysisResult.getTriggerEvent();
 
-            String bgColor;
+          String bgColor;
 
-            if ( index == 0 )
-            {
-              // trigger event
-              bgColor = "#ffa0ff";
-            }
-            else if ( data.getType().equals( Asm45Data.TYPE_INSTRUCTION ) )
+          if ( index == 0 )
+          {
+            // trigger event
+            bgColor = "#ffa0ff";
+          }
+          else if ( data.getType().equals( Asm45Data.TYPE_INSTRUCTION ) )
+          {
+            // machine instruction
+            bgColor = "#ffffff";
+          }
+          else
+          {
+            // data transfer (w/ or w/o bus grant)
+            if ( data.getBusGrant() )
             {
-              // machine instruction
-              bgColor = "#ffffff";
+              bgColor = "#64ff64";
             }
             else
             {
-              // data transfer (w/ or w/o bus grant)
-              if ( data.getBusGrant() )
-              {
-                bgColor = "#64ff64";
-              }
-              else
-              {
-                bgColor = "#e0e0ff";
-              }
+              bgColor = "#e0e0ff";
             }
-
-            tr = aParent.addChild( TR )
-                .addAttribute( "style", "background-color: " + bgColor + "; text-align: center;" );
-            tr.addChild( TD ).addContent( String.valueOf( index ) );
-            tr.addChild( TD ).addContent( String.valueOf( data.getClocks() ) );
-            tr.addChild( TD ).addContent( StringUtils.integerToHexString( data.getBlock(), 2 ) );
-            tr.addChild( TD ).addContent( StringUtils.integerToHexString( data.getAddress(), 4 ) );
-            tr.addChild( TD ).addContent( StringUtils.integerToHexString( data.getValue(), 4 ) );
-            tr.addChild( TD ).addContent( data.getBusGrant() ? "X" : "-" );
-            tr.addChild( TD ).addContent( data.getType() );
-            tr.addChild( TD ).addAttribute( "style", "text-align: left;" ).addContent( data.getEvent() );
           }
+
+          aWriter.addRow( "background-color: " + bgColor + "; text-align: center;", String.valueOf( index ),
+              String.valueOf( data.getClocks() ), StringUtils.integerToHexString( data.getBlock(), 2 ),
+              StringUtils.integerToHexString( data.getAddress(), 4 ),
+              StringUtils.integerToHexString( data.getValue(), 4 ), data.getBusGrant() ? "X" : "-", data.getType(),
+              data.getEvent() );
         }
 
-        return null;
+        return true;
       }
     };
 
@@ -102,6 +102,39 @@ public class Asm45AnalyserWorkerContentTest
     assertEquals( "Not all values were seen?!", aExpectedValue.length, i );
   }
 
+  /**
+   * Tests that the opcode dispatch table decodes known instruction words to
+   * the correct assembler instructions.
+   */
+  @Test
+  public void testDecodeKnownInstructionsOk() throws Exception
+  {
+    final Asm45AnalyserTask worker = new Asm45AnalyserTask( null, null, null );
+
+    assertEquals( "NOP", worker.word2asm( 0x1234, 0x0000 ) );
+    assertEquals( "LDA 12cf", worker.word2asm( 0x1234, 0x049b ) );
+    assertEquals( "LDA 00c1,I [B]", worker.word2asm( 0x1234, 0x80c1 ) );
+    assertEquals( "LDB 12cc,I", worker.word2asm( 0x1234, 0x8c98 ) );
+    assertEquals( "STA R35", worker.word2asm( 0x1234, 0x301d ) );
+    assertEquals( "CPA A", worker.word2asm( 0x1234, 0x1000 ) );
+    assertEquals( "ADA B", worker.word2asm( 0x1234, 0x2001 ) );
+    assertEquals( "ADB A", worker.word2asm( 0x1234, 0x2800 ) );
+    assertEquals( "ISZ A", worker.word2asm( 0x1234, 0x4800 ) );
+    assertEquals( "DSZ A", worker.word2asm( 0x1234, 0x5800 ) );
+    assertEquals( "AND 11e6", worker.word2asm( 0x1234, 0x57b2 ) );
+    assertEquals( "IOR 11e5", worker.word2asm( 0x1234, 0x67b1 ) );
+    assertEquals( "JMP 1230", worker.word2asm( 0x1234, 0x6ffc ) );
+    assertEquals( "CBL", worker.word2asm( 0x1234, 0x7148 ) );
+    assertEquals( "CLR 10", worker.word2asm( 0x1234, 0x7389 ) );
+    assertEquals( "SZA *+2 [1236]", worker.word2asm( 0x1234, 0x7502 ) );
+    assertEquals( "MPY", worker.word2asm( 0x1234, 0x7b8f ) );
+    assertEquals( "TCA", worker.word2asm( 0x1234, 0xf020 ) );
+    assertEquals( "CMA", worker.word2asm( 0x1234, 0xf060 ) );
+    assertEquals( "SAR 1", worker.word2asm( 0x1234, 0xf140 ) );
+    assertEquals( "SAP *+1 [1235]", worker.word2asm( 0x1234, 0xf401 ) );
+    assertEquals( "SES *+-12,C [1228]", worker.word2asm( 0x1234, 0xffb4 ) );
+  }
+
   /**
    * Test method for
    * {@link nl.lxtreme.ols.tool.asm45.Asm45AnalyserTask#doInBackground()}.
@@ -0,0 +1,140 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Buffers annotation events, allowing them to be replayed later on in the
+ * order in which they were created.
+ * <p>
+ * This allows decoders to decode parts of a capture concurrently, and to
+ * report the annotations of all parts in order once they are all decoded.
+ * Clearing the annotations of a channel (or of all channels) drops all
+ * buffered annotations of that channel, and is replayed as well, as the
+ * listener replayed to might already have annotations for that channel.
+ * </p>
+ * <p>
+ * This class is not thread-safe.
+ * </p>
+ */
+public final class AnnotationBuffer implements AnnotationListener
+{
+  // CONSTANTS
+
+  /** Marks a call to {@link AnnotationListener#clearAnnotations()}. */
+  private static final Object CLEAR_ALL = new Object();
+
+  // VARIABLES
+
+  private final List<Object> events;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, AnnotationBuffer instance.
+   */
+  public AnnotationBuffer()
+  {
+    this.events = new ArrayList<Object>();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations()
+  {
+    this.events.clear();
+    this.events.add( CLEAR_ALL );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void clearAnnotations( final int aChannelIdx )
+  {
+    final Iterator<Object> iter = this.events.iterator();
+    while ( iter.hasNext() )
+    {
+      final Object event = iter.next();
+      if ( ( event instanceof Annotation<?> ) && ( ( ( Annotation<?> )event ).getChannel() == aChannelIdx ) )
+      {
+        iter.remove();
+      }
+    }
+    this.events.add( Integer.valueOf( aChannelIdx ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void onAnnotation( final Annotation<?> aAnnotation )
+  {
+    this.events.add( aAnnotation );
+  }
+
+  /**
+   * Replays all buffered events to the given listener.
+   * 
+   * @param aListener
+   *          the listener to replay the events to, cannot be
+   *          <code>null</code>.
+   */
+  public void replay( final AnnotationListener aListener )
+  {
+    for ( Object event : this.events )
+    {
+      if ( event == CLEAR_ALL )
+      {
+        aListener.clearAnnotations();
+      }
+      else if ( event instanceof Integer )
+      {
+        aListener.clearAnnotations( ( ( Integer )event ).intValue() );
+      }
+      else
+      {
+        aListener.onAnnotation( ( Annotation<?> )event );
+      }
+    }
+  }
+
+  /**
+   * Returns the number of buffered events.
+   * 
+   * @return an event count, &gt;= 0.
+   */
+  public int size()
+  {
+    return this.events.size();
+  }
+}
+
+/* EOF */
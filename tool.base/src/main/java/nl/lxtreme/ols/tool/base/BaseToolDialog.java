@@ -43,6 +43,73 @@ import org.osgi.framework.*;
 public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements ToolDialog, TaskStatusListener,
     Configurable, Closeable
 {
+  // INNER TYPES
+
+  /**
+   * Wraps the task of a tool to first look up its result in the result cache,
+   * and to cache its result afterwards. As a cached result replays all
+   * annotations of the tool, this is done by the tool worker instead of the
+   * EDT.
+   */
+  final class CachingToolTask implements ToolTask<RESULT_TYPE>
+  {
+    // VARIABLES
+
+    private final ToolTask<RESULT_TYPE> task;
+    private final String settingsKey;
+    private final ToolResultCache.RecordingAnnotationListener recorder;
+
+    private volatile boolean cancelled;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CachingToolTask instance.
+     */
+    CachingToolTask( final ToolTask<RESULT_TYPE> aTask, final String aSettingsKey,
+        final ToolResultCache.RecordingAnnotationListener aRecorder )
+    {
+      this.task = aTask;
+      this.settingsKey = aSettingsKey;
+      this.recorder = aRecorder;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @SuppressWarnings( "unchecked" )
+    public RESULT_TYPE call() throws Exception
+    {
+      final ToolResultCache.Key key = RESULT_CACHE.createKey( getData(), this.settingsKey );
+
+      final ToolResultCache.Entry cached = RESULT_CACHE.get( key );
+      if ( cached != null )
+      {
+        cached.replay( BaseToolDialog.this.annotationListener );
+        return ( RESULT_TYPE )cached.getResult();
+      }
+
+      final RESULT_TYPE result = this.task.call();
+      if ( !this.cancelled )
+      {
+        RESULT_CACHE.put( key, result, this.recorder );
+      }
+      return result;
+    }
+
+    /**
+     * Marks this task as cancelled, causing its (partial) result not to be
+     * cached.
+     */
+    void cancel()
+    {
+      this.cancelled = true;
+    }
+  }
+
   // CONSTANTS
 
   private static final long serialVersionUID = 1L;
@@ -52,6 +119,9 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
   /** Provides insets (padding) that can be used for components. */
   protected static final Insets COMP_INSETS = new Insets( 4, 2, 4, 4 );
 
+  /** Caches the results of all tools, shared by all tool dialogs. */
+  private static final ToolResultCache RESULT_CACHE = new ToolResultCache( 32, 1 << 20 );
+
   // VARIABLES
 
   private final ToolContext context;
@@ -64,7 +134,7 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
 
   private ServiceRegistration serviceReg;
   private volatile Future<RESULT_TYPE> toolFutureTask;
-  private volatile ToolTask<RESULT_TYPE> toolTask;
+  private volatile CachingToolTask toolTask;
   private volatile RESULT_TYPE lastResult;
 
   // CONSTRUCTORS
@@ -123,6 +193,12 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
       throw new IllegalStateException( "Tool is already cancelled!" );
     }
 
+    final CachingToolTask task = this.toolTask;
+    if ( task != null )
+    {
+      task.cancel();
+    }
+
     this.toolFutureTask.cancel( true /* mayInterruptIfRunning */);
     this.toolFutureTask = null;
   }
@@ -195,9 +271,16 @@ public abstract class BaseToolDialog<RESULT_TYPE> extends JDialog implements Too
     boolean settingsValid = validateToolSettings();
     if ( settingsValid )
     {
-      this.toolTask = this.tool.createToolTask( this.context, this.toolProgressListener, this.annotationListener );
-      prepareToolTask( this.toolTask );
+      // Only the settings are read here; the lookup in the result cache is
+      // done by the tool worker...
+      final String settingsKey = RESULT_CACHE.createSettingsKey( this.tool, this.context, this );
+      final ToolResultCache.RecordingAnnotationListener recorder = new ToolResultCache.RecordingAnnotationListener(
+          this.annotationListener );
+
+      final ToolTask<RESULT_TYPE> task = this.tool.createToolTask( this.context, this.toolProgressListener, recorder );
+      prepareToolTask( task );
 
+      this.toolTask = new CachingToolTask( task, settingsKey, recorder );
       this.toolFutureTask = this.taskExecutionService.execute( this.toolTask );
     }
     return settingsValid;
@@ -0,0 +1,432 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import javax.swing.table.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a virtual table model on top of a {@link BaseDataSet}.
+ * <p>
+ * Cell values are only computed when a table asks for them, that is, only for
+ * the rows that are actually visible on screen. The rows of this model are
+ * represented by a plain array of indices into the decoded data, making it
+ * cheap to filter or to jump to a particular timestamp, even for data sets
+ * with hundreds of thousands of entries.
+ * </p>
+ *
+ * @param <DATA>
+ *          the actual data entity of the data set.
+ */
+public abstract class DataSetTableModel<DATA extends BaseData<DATA>> extends AbstractTableModel
+{
+  // INNER TYPES
+
+  /**
+   * Provides a filter for rows of a {@link DataSetTableModel}.
+   */
+  public static interface RowFilter<DATA extends BaseData<DATA>>
+  {
+    /**
+     * Returns whether the given data should be shown.
+     *
+     * @param aDataSet
+     *          the data set the data belongs to, never <code>null</code>;
+     * @param aData
+     *          the data to test, never <code>null</code>.
+     * @return <code>true</code> if the data should be shown,
+     *         <code>false</code> otherwise.
+     */
+    boolean accept( BaseDataSet<DATA> aDataSet, DATA aData );
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int[] NO_ROWS = new int[0];
+
+  // VARIABLES
+
+  private final String[] columnNames;
+
+  private volatile BaseDataSet<DATA> dataSet;
+  private volatile RowFilter<DATA> filter;
+  private volatile String filterText;
+  private volatile int[] rows;
+  private volatile int unfilteredRowCount;
+  private volatile String[] searchTexts;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DataSetTableModel instance.
+   *
+   * @param aColumnNames
+   *          the names of the columns, cannot be <code>null</code>.
+   */
+  protected DataSetTableModel( final String... aColumnNames )
+  {
+    this.columnNames = aColumnNames.clone();
+    this.rows = NO_ROWS;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the row that contains the data closest to, but not after, the
+   * given time.
+   *
+   * @param aTime
+   *          the time (as returned by {@link BaseDataSet#getTime(int)}) to
+   *          search for.
+   * @return a row index, or -1 if this model is empty.
+   */
+  public int findRowByTime( final double aTime )
+  {
+    final BaseDataSet<DATA> ds = this.dataSet;
+    final int[] viewRows = this.rows;
+    if ( ( ds == null ) || ( viewRows.length == 0 ) )
+    {
+      return -1;
+    }
+
+    final List<DATA> data = ds.getData();
+
+    // Decoded data is ordered by sample index, hence we can do a binary
+    // search on its starting time...
+    int lo = 0;
+    int hi = viewRows.length - 1;
+    while ( lo < hi )
+    {
+      final int mid = ( lo + hi + 1 ) >>> 1;
+      final double time = ds.getTime( data.get( viewRows[mid] ).getStartSampleIndex() );
+      if ( time <= aTime )
+      {
+        lo = mid;
+      }
+      else
+      {
+        hi = mid - 1;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Class<?> getColumnClass( final int aColumnIndex )
+  {
+    return String.class;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getColumnCount()
+  {
+    return this.columnNames.length;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String getColumnName( final int aColumn )
+  {
+    return this.columnNames[aColumn];
+  }
+
+  /**
+   * Returns the data shown in the given row.
+   *
+   * @param aRowIndex
+   *          the row index, &gt;= 0.
+   * @return the data, never <code>null</code>.
+   */
+  public DATA getData( final int aRowIndex )
+  {
+    return this.dataSet.getData().get( this.rows[aRowIndex] );
+  }
+
+  /**
+   * Returns the current data set.
+   *
+   * @return the data set, can be <code>null</code>.
+   */
+  public BaseDataSet<DATA> getDataSet()
+  {
+    return this.dataSet;
+  }
+
+  /**
+   * Returns the index of the data shown in the given row.
+   *
+   * @param aRowIndex
+   *          the row index, &gt;= 0.
+   * @return an index in the list of decoded data, &gt;= 0.
+   */
+  public int getDataIndex( final int aRowIndex )
+  {
+    return this.rows[aRowIndex];
+  }
+
+  /**
+   * Returns the background color for the given row.
+   *
+   * @param aRowIndex
+   *          the row index, &gt;= 0.
+   * @return a background color, or <code>null</code> to use the default
+   *         background color.
+   */
+  public Color getRowBackground( final int aRowIndex )
+  {
+    return getBackground( this.dataSet, this.rows[aRowIndex] );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRowCount()
+  {
+    return this.rows.length;
+  }
+
+  /**
+   * Returns the total number of rows, ignoring the current filter.
+   *
+   * @return a row count, &gt;= 0.
+   */
+  public int getUnfilteredRowCount()
+  {
+    return this.unfilteredRowCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public Object getValueAt( final int aRowIndex, final int aColumnIndex )
+  {
+    return getValue( this.dataSet, this.rows[aRowIndex], aColumnIndex );
+  }
+
+  /**
+   * Sets the data set to show.
+   *
+   * @param aDataSet
+   *          the data set to show, can be <code>null</code> to clear this
+   *          model.
+   */
+  public void setDataSet( final BaseDataSet<DATA> aDataSet )
+  {
+    this.dataSet = aDataSet;
+    this.searchTexts = null;
+    updateRows();
+  }
+
+  /**
+   * Sets the filter to apply on the rows of this model.
+   *
+   * @param aFilter
+   *          the filter to apply, can be <code>null</code> to show all rows.
+   */
+  public void setFilter( final RowFilter<DATA> aFilter )
+  {
+    this.filter = aFilter;
+    updateRows();
+  }
+
+  /**
+   * Sets the text to filter the rows of this model on. Only rows having at
+   * least one cell containing the given text (case insensitive) are shown.
+   *
+   * @param aText
+   *          the text to filter on, can be <code>null</code> or empty to show
+   *          all rows.
+   */
+  public void setFilterText( final String aText )
+  {
+    this.filterText = ( ( aText == null ) || "".equals( aText.trim() ) ) ? null : aText.trim().toLowerCase();
+    updateRows();
+  }
+
+  /**
+   * Discards the cell texts cached for filtering. Should be called by
+   * subclasses when the formatting of their cell values changes.
+   */
+  protected void clearSearchTexts()
+  {
+    this.searchTexts = null;
+  }
+
+  /**
+   * Returns the background color for the data at the given index.
+   * <p>
+   * By default, this method returns <code>null</code>.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set, never <code>null</code>;
+   * @param aDataIndex
+   *          the index of the data in the data set.
+   * @return a background color, or <code>null</code> to use the default
+   *         background color.
+   */
+  protected Color getBackground( final BaseDataSet<DATA> aDataSet, final int aDataIndex )
+  {
+    return null;
+  }
+
+  /**
+   * Returns the value for a column of the data at the given index.
+   *
+   * @param aDataSet
+   *          the data set, never <code>null</code>;
+   * @param aDataIndex
+   *          the index of the data in the data set;
+   * @param aColumnIndex
+   *          the index of the column.
+   * @return the cell value, can be <code>null</code>.
+   */
+  protected abstract Object getValue( BaseDataSet<DATA> aDataSet, int aDataIndex, int aColumnIndex );
+
+  /**
+   * Returns whether the data at the given index is shown as a separate row.
+   * Can be overridden to merge multiple data entries into a single row.
+   * <p>
+   * By default, this method returns <code>true</code>.
+   * </p>
+   *
+   * @param aDataSet
+   *          the data set, never <code>null</code>;
+   * @param aDataIndex
+   *          the index of the data in the data set.
+   * @return <code>true</code> if the data at the given index starts a new
+   *         row, <code>false</code> otherwise.
+   */
+  protected boolean isRow( final BaseDataSet<DATA> aDataSet, final int aDataIndex )
+  {
+    return true;
+  }
+
+  /**
+   * Returns the lower case texts of all cells of the given data, separated by
+   * a character that cannot occur in a filter text.
+   */
+  private String getSearchText( final BaseDataSet<DATA> aDataSet, final int aDataIndex )
+  {
+    final StringBuilder sb = new StringBuilder();
+    final int columnCount = getColumnCount();
+    for ( int col = 0; col < columnCount; col++ )
+    {
+      final Object value = getValue( aDataSet, aDataIndex, col );
+      if ( value != null )
+      {
+        sb.append( String.valueOf( value ).toLowerCase() );
+      }
+      sb.append( '\n' );
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Returns the lower case cell texts for all data of the given data set. As
+   * these are the same for each filter text, they are only formatted once for
+   * each data set instead of upon each keystroke.
+   */
+  private String[] getSearchTexts( final BaseDataSet<DATA> aDataSet )
+  {
+    String[] result = this.searchTexts;
+    if ( ( result == null ) || ( result.length != aDataSet.getData().size() ) )
+    {
+      result = new String[aDataSet.getData().size()];
+      for ( int i = 0; i < result.length; i++ )
+      {
+        if ( isRow( aDataSet, i ) )
+        {
+          result[i] = getSearchText( aDataSet, i );
+        }
+      }
+      this.searchTexts = result;
+    }
+    return result;
+  }
+
+  /**
+   * Recalculates the rows of this model, and notifies all listeners about
+   * this.
+   */
+  private void updateRows()
+  {
+    final BaseDataSet<DATA> ds = this.dataSet;
+    final RowFilter<DATA> rowFilter = this.filter;
+    final String text = this.filterText;
+
+    int[] result = NO_ROWS;
+    this.unfilteredRowCount = 0;
+    if ( ds != null )
+    {
+      final List<DATA> data = ds.getData();
+      final int size = data.size();
+      final String[] texts = ( text == null ) ? null : getSearchTexts( ds );
+
+      result = new int[size];
+      int count = 0;
+      int total = 0;
+      for ( int i = 0; i < size; i++ )
+      {
+        if ( !isRow( ds, i ) )
+        {
+          continue;
+        }
+        total++;
+        if ( ( ( rowFilter == null ) || rowFilter.accept( ds, data.get( i ) ) )
+            && ( ( texts == null ) || texts[i].contains( text ) ) )
+        {
+          result[count++] = i;
+        }
+      }
+      this.unfilteredRowCount = total;
+      if ( count < size )
+      {
+        result = Arrays.copyOf( result, count );
+      }
+    }
+
+    this.rows = result;
+
+    fireTableDataChanged();
+  }
+}
+
+/* EOF */
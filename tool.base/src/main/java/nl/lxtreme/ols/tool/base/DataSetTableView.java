@@ -0,0 +1,310 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.awt.*;
+import java.awt.event.*;
+
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.table.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+
+
+/**
+ * Provides a view on the results of a tool, consisting of a (virtual) table
+ * with the decoded data, a summary and controls for filtering the table and
+ * jumping to a particular timestamp.
+ *
+ * @param <DATA>
+ *          the actual data entity of the shown data set.
+ */
+public class DataSetTableView<DATA extends BaseData<DATA>> extends JPanel
+{
+  // INNER TYPES
+
+  /**
+   * Renders the cells of a {@link DataSetTableModel} with its row background.
+   */
+  static final class DataSetCellRenderer extends DefaultTableCellRenderer
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Component getTableCellRendererComponent( final JTable aTable, final Object aValue,
+        final boolean aIsSelected, final boolean aHasFocus, final int aRow, final int aColumn )
+    {
+      super.getTableCellRendererComponent( aTable, aValue, aIsSelected, aHasFocus, aRow, aColumn );
+
+      if ( !aIsSelected )
+      {
+        final Color background = ( ( DataSetTableModel<?> )aTable.getModel() ).getRowBackground( aRow );
+        setBackground( ( background != null ) ? background : aTable.getBackground() );
+      }
+      return this;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  /** The delay (in ms) after which a changed filter text is applied. */
+  private static final int FILTER_DELAY = 250;
+
+  // VARIABLES
+
+  private final DataSetTableModel<DATA> model;
+  private final JTable table;
+  private final JLabel summaryLabel;
+  private final JLabel rowCountLabel;
+  private final JTextField filterField;
+  private final JTextField timeField;
+  private final Timer filterTimer;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DataSetTableView instance.
+   *
+   * @param aModel
+   *          the table model to show, cannot be <code>null</code>.
+   */
+  public DataSetTableView( final DataSetTableModel<DATA> aModel )
+  {
+    super( new BorderLayout( 0, 4 ) );
+
+    this.model = aModel;
+
+    this.table = new JTable( aModel );
+    // A fixed row height allows the table to determine the visible rows in
+    // constant time...
+    this.table.setRowHeight( this.table.getFontMetrics( this.table.getFont() ).getHeight() + 2 );
+    this.table.setDefaultRenderer( String.class, new DataSetCellRenderer() );
+    this.table.setDefaultRenderer( Object.class, new DataSetCellRenderer() );
+    this.table.setFillsViewportHeight( true );
+    this.table.setAutoCreateRowSorter( false );
+    this.table.getTableHeader().setReorderingAllowed( false );
+    this.table.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+
+    this.summaryLabel = new JLabel();
+    this.rowCountLabel = new JLabel();
+
+    this.filterTimer = new Timer( FILTER_DELAY, new ActionListener()
+    {
+      @Override
+      public void actionPerformed( final ActionEvent aEvent )
+      {
+        applyFilter();
+      }
+    } );
+    this.filterTimer.setRepeats( false );
+
+    this.filterField = new JTextField( 12 );
+    this.filterField.setToolTipText( "Only show rows containing this text." );
+    this.filterField.getDocument().addDocumentListener( new DocumentListener()
+    {
+      @Override
+      public void changedUpdate( final DocumentEvent aEvent )
+      {
+        DataSetTableView.this.filterTimer.restart();
+      }
+
+      @Override
+      public void insertUpdate( final DocumentEvent aEvent )
+      {
+        DataSetTableView.this.filterTimer.restart();
+      }
+
+      @Override
+      public void removeUpdate( final DocumentEvent aEvent )
+      {
+        DataSetTableView.this.filterTimer.restart();
+      }
+    } );
+
+    this.timeField = new JTextField( 8 );
+    this.timeField.setToolTipText( "Jump to the given time, for example, 1.5ms." );
+    this.timeField.addActionListener( new ActionListener()
+    {
+      @Override
+      public void actionPerformed( final ActionEvent aEvent )
+      {
+        jumpToTime( DataSetTableView.this.timeField.getText() );
+      }
+    } );
+
+    aModel.addTableModelListener( new TableModelListener()
+    {
+      @Override
+      public void tableChanged( final TableModelEvent aEvent )
+      {
+        updateRowCount();
+      }
+    } );
+
+    final JPanel controls = new JPanel( new FlowLayout( FlowLayout.LEFT, 4, 0 ) );
+    controls.add( new JLabel( "Filter:" ) );
+    controls.add( this.filterField );
+    controls.add( new JLabel( "Go to time:" ) );
+    controls.add( this.timeField );
+    controls.add( this.rowCountLabel );
+
+    final JPanel header = new JPanel( new BorderLayout( 0, 4 ) );
+    header.add( this.summaryLabel, BorderLayout.CENTER );
+    header.add( controls, BorderLayout.SOUTH );
+
+    add( header, BorderLayout.NORTH );
+    add( new JScrollPane( this.table ), BorderLayout.CENTER );
+
+    updateRowCount();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the table model of this view.
+   *
+   * @return a table model, never <code>null</code>.
+   */
+  public DataSetTableModel<DATA> getModel()
+  {
+    return this.model;
+  }
+
+  /**
+   * Returns the table of this view.
+   *
+   * @return a table, never <code>null</code>.
+   */
+  public JTable getTable()
+  {
+    return this.table;
+  }
+
+  /**
+   * Selects and scrolls to the row closest to the given time.
+   *
+   * @param aTime
+   *          the time to jump to.
+   * @return <code>true</code> if a row is selected, <code>false</code>
+   *         otherwise.
+   */
+  public boolean jumpToTime( final double aTime )
+  {
+    final int row = this.model.findRowByTime( aTime );
+    if ( row < 0 )
+    {
+      return false;
+    }
+    this.table.getSelectionModel().setSelectionInterval( row, row );
+    this.table.scrollRectToVisible( this.table.getCellRect( row, 0, true ) );
+    return true;
+  }
+
+  /**
+   * Sets the data set to show, and clears the current filter.
+   *
+   * @param aDataSet
+   *          the data set to show, can be <code>null</code>.
+   */
+  public void setDataSet( final BaseDataSet<DATA> aDataSet )
+  {
+    this.filterTimer.stop();
+    this.filterField.setText( "" );
+    this.filterTimer.stop();
+
+    this.model.setFilterText( null );
+    this.model.setDataSet( aDataSet );
+  }
+
+  /**
+   * Sets the summary shown above the table.
+   *
+   * @param aSummary
+   *          the summary to show, may contain HTML, can be <code>null</code>.
+   */
+  public void setSummary( final String aSummary )
+  {
+    this.summaryLabel.setText( aSummary );
+  }
+
+  /**
+   * Applies the current filter text to the model.
+   */
+  final void applyFilter()
+  {
+    this.model.setFilterText( this.filterField.getText() );
+  }
+
+  /**
+   * Parses the given text as time and jumps to it.
+   *
+   * @param aText
+   *          the text to parse as time.
+   */
+  final void jumpToTime( final String aText )
+  {
+    try
+    {
+      if ( jumpToTime( UnitOfTime.parse( aText ) ) )
+      {
+        this.timeField.setForeground( UIManager.getColor( "TextField.foreground" ) );
+        return;
+      }
+    }
+    catch ( NumberFormatException exception )
+    {
+      // Fall through...
+    }
+    this.timeField.setForeground( Color.RED );
+  }
+
+  /**
+   * Updates the label showing the number of rows.
+   */
+  final void updateRowCount()
+  {
+    final int rowCount = this.model.getRowCount();
+    final int total = this.model.getUnfilteredRowCount();
+    if ( rowCount == total )
+    {
+      this.rowCountLabel.setText( String.format( "%d rows", Integer.valueOf( rowCount ) ) );
+    }
+    else
+    {
+      this.rowCountLabel.setText( String.format( "%d of %d rows", Integer.valueOf( rowCount ),
+          Integer.valueOf( total ) ) );
+    }
+  }
+}
+
+/* EOF */
@@ -0,0 +1,257 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static nl.lxtreme.ols.util.NumberUtils.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Generates edge events for the sample values of an acquisition result, and
+ * fans them out to all subscribed {@link EdgeListener}s.
+ * <p>
+ * The edge events are generated from the per-channel transition indices (see
+ * {@link ChannelPrefixSums}) of the subscribed channels, instead of scanning
+ * all sample values. The cost of generating the events is therefore
+ * proportional to the number of edges, not to the number of samples. For
+ * {@link CapturedData}, these indices are created only once per capture, and
+ * are shared by all decoders (and other users) of that capture. Each listener
+ * is only called for the channels in its own mask.
+ * </p>
+ */
+public final class EdgeEventStream
+{
+  // INNER TYPES
+
+  /**
+   * Binds a listener to its channel mask.
+   */
+  static final class Subscription
+  {
+    // VARIABLES
+
+    final int mask;
+    final EdgeListener listener;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Subscription instance.
+     */
+    Subscription( final int aMask, final EdgeListener aListener )
+    {
+      this.mask = aMask;
+      this.listener = aListener;
+    }
+  }
+
+  // VARIABLES
+
+  private final AcquisitionResult data;
+  private final List<Subscription> subscriptions;
+
+  private ToolProgressListener progressListener;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new EdgeEventStream instance.
+   *
+   * @param aData
+   *          the acquisition result to generate the edge events for, cannot be
+   *          <code>null</code>.
+   */
+  public EdgeEventStream( final AcquisitionResult aData )
+  {
+    if ( aData == null )
+    {
+      throw new IllegalArgumentException( "Data cannot be null!" );
+    }
+    this.data = aData;
+    this.subscriptions = new ArrayList<Subscription>();
+  }
+
+  // METHODS
+
+  /**
+   * Generates the edge events for all samples in the given range, and reports
+   * them to the subscribed listeners.
+   * <p>
+   * The value of the sample at the start index is used as initial value; edges
+   * are reported for all samples after the start index up to (but not
+   * including) the end index.
+   * </p>
+   *
+   * @param aStartIdx
+   *          the index of the first sample, &gt;= 0;
+   * @param aEndIdx
+   *          the index of the last sample (exclusive), &gt; aStartIdx.
+   */
+  public void run( final int aStartIdx, final int aEndIdx )
+  {
+    final int[] values = this.data.getValues();
+    final long[] timestamps = this.data.getTimestamps();
+
+    final Subscription[] subs = this.subscriptions.toArray( new Subscription[this.subscriptions.size()] );
+    final ToolProgressListener progress = this.progressListener;
+
+    int mask = 0;
+    for ( Subscription sub : subs )
+    {
+      mask |= sub.mask;
+    }
+
+    final int startValue = values[aStartIdx];
+    for ( Subscription sub : subs )
+    {
+      sub.listener.onStart( aStartIdx, startValue );
+    }
+
+    // Keep a cursor in the transition index of each subscribed channel...
+    final int channelCount = Integer.bitCount( mask );
+    final int[] channelMasks = new int[channelCount];
+    final int[] channelIndices = new int[channelCount];
+    for ( int i = 0, m = mask; i < channelCount; i++, m &= ( m - 1 ) )
+    {
+      channelIndices[i] = Integer.numberOfTrailingZeros( m );
+      channelMasks[i] = ( 1 << channelIndices[i] );
+    }
+
+    final ChannelPrefixSums[] transitions = ChannelPrefixSums.get( this.data, channelIndices );
+    final int[] edgeIdx = new int[channelCount];
+    final int[] nextSampleIdx = new int[channelCount];
+    for ( int i = 0; i < channelCount; i++ )
+    {
+      edgeIdx[i] = transitions[i].findNextEdge( aStartIdx );
+      nextSampleIdx[i] = getSampleIndex( transitions[i], edgeIdx[i] );
+    }
+
+    int lastPercentage = -1;
+
+    while ( true )
+    {
+      // Find the first sample in which any of the channels changes...
+      int idx = Integer.MAX_VALUE;
+      for ( int i = 0; i < channelCount; i++ )
+      {
+        idx = Math.min( idx, nextSampleIdx[i] );
+      }
+      if ( idx >= aEndIdx )
+      {
+        break;
+      }
+
+      // Collect all channels changing in this sample...
+      int changed = 0;
+      for ( int i = 0; i < channelCount; i++ )
+      {
+        if ( nextSampleIdx[i] == idx )
+        {
+          changed |= channelMasks[i];
+          nextSampleIdx[i] = getSampleIndex( transitions[i], ++edgeIdx[i] );
+        }
+      }
+
+      final int value = values[idx];
+      for ( Subscription sub : subs )
+      {
+        final int subChanged = changed & sub.mask;
+        if ( subChanged != 0 )
+        {
+          sub.listener.onEdge( idx, timestamps[idx], subChanged, value );
+        }
+      }
+
+      if ( progress != null )
+      {
+        final int percentage = getPercentage( idx, aStartIdx, aEndIdx );
+        if ( percentage != lastPercentage )
+        {
+          progress.setProgress( percentage );
+          lastPercentage = percentage;
+        }
+      }
+    }
+
+    for ( Subscription sub : subs )
+    {
+      sub.listener.onEnd( aEndIdx );
+    }
+
+    if ( progress != null )
+    {
+      progress.setProgress( 100 );
+    }
+  }
+
+  /**
+   * Sets the listener to report the progress of generating the edge events
+   * to.
+   *
+   * @param aProgressListener
+   *          the progress listener to use, can be <code>null</code>.
+   */
+  public void setProgressListener( final ToolProgressListener aProgressListener )
+  {
+    this.progressListener = aProgressListener;
+  }
+
+  /**
+   * Subscribes a given listener to the edges of the given channels.
+   *
+   * @param aChannelMask
+   *          the mask of channels the listener is interested in, != 0;
+   * @param aListener
+   *          the listener to subscribe, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given mask was zero or the given listener was
+   *           <code>null</code>.
+   */
+  public void subscribe( final int aChannelMask, final EdgeListener aListener )
+  {
+    if ( aChannelMask == 0 )
+    {
+      throw new IllegalArgumentException( "Channel mask cannot be zero!" );
+    }
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+    this.subscriptions.add( new Subscription( aChannelMask, aListener ) );
+  }
+
+  /**
+   * Returns the sample index of the given edge, or {@link Integer#MAX_VALUE}
+   * in case there is no such edge.
+   */
+  private static int getSampleIndex( final ChannelPrefixSums aTransitions, final int aEdgeIdx )
+  {
+    return ( aEdgeIdx < aTransitions.getEdgeCount() ) ? aTransitions.getEdge( aEdgeIdx ) : Integer.MAX_VALUE;
+  }
+}
+
+/* EOF */
@@ -0,0 +1,639 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import java.lang.ref.*;
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+
+
+/**
+ * Caches the results of tools, including the annotations they emitted, so
+ * that analysing the same capture with the same settings again does not
+ * require the tool to run again.
+ * <p>
+ * A result is keyed by the tool, the identity of the analysed capture, the
+ * analysed range of samples and the (serialized) settings of the tool. The
+ * cache does not keep the captures themselves alive: once a capture is no
+ * longer used, and is garbage collected, all results for it are dropped as
+ * well, including the timestamps they share with it.
+ * </p>
+ * <p>
+ * The cache is bounded both in its number of results, and in the total number
+ * of decoded data items and annotations it holds. When either bound is
+ * exceeded, the least recently used results are evicted.
+ * </p>
+ */
+public final class ToolResultCache
+{
+  // INNER TYPES
+
+  /**
+   * Weakly refers to an analysed capture, to drop its results once it is
+   * garbage collected.
+   */
+  static final class CaptureRef extends WeakReference<AcquisitionResult>
+  {
+    // VARIABLES
+
+    final long id;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CaptureRef instance.
+     */
+    CaptureRef( final AcquisitionResult aData, final long aId, final ReferenceQueue<AcquisitionResult> aQueue )
+    {
+      super( aData, aQueue );
+      this.id = aId;
+    }
+  }
+
+  /**
+   * Provides a cached tool result.
+   */
+  public static final class Entry
+  {
+    // VARIABLES
+
+    private final Object result;
+    private final List<Object> annotationEvents;
+    private final int weight;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Entry instance.
+     */
+    Entry( final Object aResult, final List<Object> aAnnotationEvents )
+    {
+      this.result = aResult;
+      this.annotationEvents = aAnnotationEvents;
+
+      int size = 1;
+      if ( aResult instanceof BaseDataSet<?> )
+      {
+        size += ( ( BaseDataSet<?> )aResult ).getData().size();
+      }
+      this.weight = size + aAnnotationEvents.size();
+    }
+
+    // METHODS
+
+    /**
+     * Returns the cached result of the tool.
+     *
+     * @return the result, can be <code>null</code>.
+     */
+    public Object getResult()
+    {
+      return this.result;
+    }
+
+    /**
+     * Replays all annotation events the tool emitted to the given listener.
+     *
+     * @param aListener
+     *          the listener to replay the annotation events to, cannot be
+     *          <code>null</code>.
+     */
+    public void replay( final AnnotationListener aListener )
+    {
+      for ( Object event : this.annotationEvents )
+      {
+        if ( event instanceof Integer )
+        {
+          aListener.clearAnnotations( ( ( Integer )event ).intValue() );
+        }
+        else if ( event == CLEAR_ALL )
+        {
+          aListener.clearAnnotations();
+        }
+        else
+        {
+          aListener.onAnnotation( ( Annotation<?> )event );
+        }
+      }
+    }
+  }
+
+  /**
+   * Provides the key of a cached tool result.
+   */
+  public static final class Key
+  {
+    // VARIABLES
+
+    private final String settingsKey;
+    private final long captureId;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Key instance.
+     */
+    Key( final String aSettingsKey, final long aCaptureId )
+    {
+      this.settingsKey = aSettingsKey;
+      this.captureId = aCaptureId;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals( final Object aObject )
+    {
+      if ( this == aObject )
+      {
+        return true;
+      }
+      if ( !( aObject instanceof Key ) )
+      {
+        return false;
+      }
+
+      final Key other = ( Key )aObject;
+      return ( this.captureId == other.captureId ) && this.settingsKey.equals( other.settingsKey );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+      return ( 31 * this.settingsKey.hashCode() ) + ( int )( this.captureId ^ ( this.captureId >>> 32 ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.settingsKey + "@" + this.captureId;
+    }
+  }
+
+  /**
+   * Forwards all annotation events to another listener, while recording them
+   * for later replay.
+   */
+  public static final class RecordingAnnotationListener implements AnnotationListener
+  {
+    // VARIABLES
+
+    private final AnnotationListener delegate;
+    private final List<Object> events;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new RecordingAnnotationListener instance.
+     *
+     * @param aDelegate
+     *          the listener to forward all annotation events to, cannot be
+     *          <code>null</code>.
+     */
+    public RecordingAnnotationListener( final AnnotationListener aDelegate )
+    {
+      this.delegate = aDelegate;
+      this.events = new ArrayList<Object>();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations()
+    {
+      record( CLEAR_ALL );
+      this.delegate.clearAnnotations();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      record( Integer.valueOf( aChannelIdx ) );
+      this.delegate.clearAnnotations( aChannelIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      record( aAnnotation );
+      this.delegate.onAnnotation( aAnnotation );
+    }
+
+    /**
+     * Returns a copy of all recorded annotation events.
+     */
+    synchronized List<Object> getEvents()
+    {
+      return new ArrayList<Object>( this.events );
+    }
+
+    /**
+     * Records a single annotation event.
+     */
+    private synchronized void record( final Object aEvent )
+    {
+      this.events.add( aEvent );
+    }
+  }
+
+  /**
+   * Collects the settings of a tool in a well-defined order, so they can be
+   * used as (part of a) key.
+   */
+  static final class KeySettings implements UserSettings
+  {
+    // CONSTANTS
+
+    private static final long serialVersionUID = 1L;
+
+    // VARIABLES
+
+    private final SortedMap<String, Object> values = new TreeMap<String, Object>();
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String get( final String aName, final String aDefaultValue )
+    {
+      final Object value = this.values.get( aName );
+      return ( value == null ) ? aDefaultValue : String.valueOf( value );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean getBoolean( final String aName, final boolean aDefaultValue )
+    {
+      final Object value = this.values.get( aName );
+      return ( value == null ) ? aDefaultValue : Boolean.parseBoolean( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getInt( final String aName, final int aDefaultValue )
+    {
+      final Object value = this.values.get( aName );
+      return ( value == null ) ? aDefaultValue : Integer.parseInt( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getLong( final String aName, final long aDefaultValue )
+    {
+      final Object value = this.values.get( aName );
+      return ( value == null ) ? aDefaultValue : Long.parseLong( String.valueOf( value ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName()
+    {
+      return "cacheKey";
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator()
+    {
+      return this.values.entrySet().iterator();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void put( final String aName, final String aValue )
+    {
+      this.values.put( aName, aValue );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putAll( final Map<?, ?> aSettings )
+    {
+      for ( Map.Entry<?, ?> entry : aSettings.entrySet() )
+      {
+        this.values.put( String.valueOf( entry.getKey() ), entry.getValue() );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putBoolean( final String aName, final boolean aValue )
+    {
+      this.values.put( aName, Boolean.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putInt( final String aName, final int aValue )
+    {
+      this.values.put( aName, Integer.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putLong( final String aName, final long aValue )
+    {
+      this.values.put( aName, Long.valueOf( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString()
+    {
+      return this.values.toString();
+    }
+  }
+
+  // CONSTANTS
+
+  /** Marks a call to {@link AnnotationListener#clearAnnotations()}. */
+  static final Object CLEAR_ALL = new Object();
+
+  // VARIABLES
+
+  private final int maxEntries;
+  private final int maxWeight;
+  private final LinkedHashMap<Key, Entry> entries;
+  private final Map<AcquisitionResult, CaptureRef> captures;
+  private final ReferenceQueue<AcquisitionResult> collectedCaptures;
+
+  private int totalWeight;
+  private long nextCaptureId;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ToolResultCache instance.
+   *
+   * @param aMaxEntries
+   *          the maximum number of results to cache, &gt; 0;
+   * @param aMaxWeight
+   *          the maximum total number of decoded data items and annotations
+   *          to cache, &gt; 0.
+   */
+  public ToolResultCache( final int aMaxEntries, final int aMaxWeight )
+  {
+    this.maxEntries = aMaxEntries;
+    this.maxWeight = aMaxWeight;
+    this.entries = new LinkedHashMap<Key, Entry>( 16, 0.75f, true /* accessOrder */);
+    // Acquisition results do not override equals, so this maps them by
+    // identity...
+    this.captures = new WeakHashMap<AcquisitionResult, CaptureRef>();
+    this.collectedCaptures = new ReferenceQueue<AcquisitionResult>();
+    this.totalWeight = 0;
+    this.nextCaptureId = 1L;
+  }
+
+  // METHODS
+
+  /**
+   * Removes all cached results.
+   */
+  public synchronized void clear()
+  {
+    this.entries.clear();
+    this.totalWeight = 0;
+  }
+
+  /**
+   * Creates the key for the result of a given tool, by combining the given
+   * description of its settings with the identity of the analysed capture.
+   *
+   * @param aData
+   *          the capture to analyse, can be <code>null</code>;
+   * @param aSettingsKey
+   *          the description of the tool and its settings, as returned by
+   *          {@link #createSettingsKey(Tool, ToolContext, Configurable)}, can
+   *          be <code>null</code>.
+   * @return a key, or <code>null</code> if either the capture or the settings
+   *         key was <code>null</code>.
+   */
+  public synchronized Key createKey( final AcquisitionResult aData, final String aSettingsKey )
+  {
+    if ( ( aData == null ) || ( aSettingsKey == null ) )
+    {
+      return null;
+    }
+
+    CaptureRef ref = this.captures.get( aData );
+    if ( ref == null )
+    {
+      ref = new CaptureRef( aData, this.nextCaptureId++, this.collectedCaptures );
+      this.captures.put( aData, ref );
+    }
+    return new Key( aSettingsKey, ref.id );
+  }
+
+  /**
+   * Creates a description of a given tool and its settings, to be used for
+   * creating the key of its result.
+   * <p>
+   * This method only reads the settings and does not visit the samples of the
+   * capture, so it can be called on the EDT.
+   * </p>
+   *
+   * @param aTool
+   *          the tool to create the key for, cannot be <code>null</code>;
+   * @param aContext
+   *          the context the tool runs in, cannot be <code>null</code>;
+   * @param aSettings
+   *          the settings of the tool, cannot be <code>null</code>.
+   * @return a settings key, or <code>null</code> if the tool has no data to
+   *         analyse.
+   * @see #createKey(AcquisitionResult, String)
+   */
+  public String createSettingsKey( final Tool<?> aTool, final ToolContext aContext, final Configurable aSettings )
+  {
+    if ( aContext.getData() == null )
+    {
+      return null;
+    }
+
+    final KeySettings settings = new KeySettings();
+    aSettings.writePreferences( settings );
+
+    final StringBuilder sb = new StringBuilder( aTool.getClass().getName() );
+    sb.append( '[' ).append( aContext.getStartSampleIndex() ).append( ',' ).append( aContext.getEndSampleIndex() );
+    sb.append( ',' ).append( aContext.getChannels() ).append( ',' ).append( aContext.getEnabledChannels() );
+    for ( int i = 0; i < Ols.MAX_CURSORS; i++ )
+    {
+      final Cursor cursor = aContext.getCursor( i );
+      sb.append( ',' ).append( ( ( cursor != null ) && cursor.isDefined() ) ? cursor.getTimestamp() : -1L );
+    }
+    sb.append( ']' ).append( settings );
+
+    return sb.toString();
+  }
+
+  /**
+   * Returns the cached result for the given key.
+   *
+   * @param aKey
+   *          the key of the result, can be <code>null</code>.
+   * @return the cached result, or <code>null</code> if not cached.
+   */
+  public synchronized Entry get( final Key aKey )
+  {
+    dropCollectedCaptures();
+
+    if ( aKey == null )
+    {
+      return null;
+    }
+    return this.entries.get( aKey );
+  }
+
+  /**
+   * Caches the result of a tool, evicting the least recently used results if
+   * needed.
+   *
+   * @param aKey
+   *          the key of the result, can be <code>null</code> in which case
+   *          nothing is cached;
+   * @param aResult
+   *          the result of the tool, can be <code>null</code>;
+   * @param aRecorder
+   *          the recorder of the annotations the tool emitted, cannot be
+   *          <code>null</code>.
+   */
+  public synchronized void put( final Key aKey, final Object aResult, final RecordingAnnotationListener aRecorder )
+  {
+    dropCollectedCaptures();
+
+    if ( aKey == null )
+    {
+      return;
+    }
+
+    final Entry entry = new Entry( aResult, aRecorder.getEvents() );
+    if ( entry.weight > this.maxWeight )
+    {
+      // Too large to cache at all...
+      return;
+    }
+
+    final Entry old = this.entries.put( aKey, entry );
+    if ( old != null )
+    {
+      this.totalWeight -= old.weight;
+    }
+    this.totalWeight += entry.weight;
+
+    final Iterator<Entry> iter = this.entries.values().iterator();
+    while ( ( ( this.entries.size() > this.maxEntries ) || ( this.totalWeight > this.maxWeight ) ) && iter.hasNext() )
+    {
+      final Entry eldest = iter.next();
+      if ( eldest == entry )
+      {
+        break;
+      }
+      this.totalWeight -= eldest.weight;
+      iter.remove();
+    }
+  }
+
+  /**
+   * Returns the number of cached results.
+   *
+   * @return a result count, &gt;= 0.
+   */
+  public synchronized int size()
+  {
+    dropCollectedCaptures();
+
+    return this.entries.size();
+  }
+
+  /**
+   * Drops all results of captures that are garbage collected, as these
+   * results can no longer be looked up, while they still refer to the
+   * timestamps of their capture.
+   */
+  private void dropCollectedCaptures()
+  {
+    Reference<? extends AcquisitionResult> ref;
+    while ( ( ref = this.collectedCaptures.poll() ) != null )
+    {
+      final long id = ( ( CaptureRef )ref ).id;
+
+      final Iterator<Map.Entry<Key, Entry>> iter = this.entries.entrySet().iterator();
+      while ( iter.hasNext() )
+      {
+        final Map.Entry<Key, Entry> entry = iter.next();
+        if ( entry.getKey().captureId == id )
+        {
+          this.totalWeight -= entry.getValue().weight;
+          iter.remove();
+        }
+      }
+    }
+  }
+}
+
+/* EOF */
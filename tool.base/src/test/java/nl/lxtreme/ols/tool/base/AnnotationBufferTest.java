@@ -0,0 +1,140 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link AnnotationBuffer}.
+ */
+public class AnnotationBufferTest
+{
+  // INNER TYPES
+
+  /**
+   * Records all annotation events as strings.
+   */
+  static final class EventRecorder implements AnnotationListener
+  {
+    // VARIABLES
+
+    final List<String> events = new ArrayList<String>();
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations()
+    {
+      this.events.add( "clear" );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void clearAnnotations( final int aChannelIdx )
+    {
+      this.events.add( "clear " + aChannelIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onAnnotation( final Annotation<?> aAnnotation )
+    {
+      this.events.add( aAnnotation.getChannel() + ":" + aAnnotation.getAnnotation() );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that clearing all annotations drops all buffered events.
+   */
+  @Test
+  public void testClearAllAnnotationsOk()
+  {
+    final AnnotationBuffer buffer = new AnnotationBuffer();
+    buffer.onAnnotation( new ChannelLabelAnnotation( 0, "a" ) );
+    buffer.clearAnnotations( 1 );
+    buffer.clearAnnotations();
+    buffer.onAnnotation( new ChannelLabelAnnotation( 1, "b" ) );
+
+    final EventRecorder recorder = new EventRecorder();
+    buffer.replay( recorder );
+
+    assertEquals( Arrays.asList( "clear", "1:b" ), recorder.events );
+  }
+
+  /**
+   * Tests that clearing the annotations of a single channel only drops the
+   * buffered annotations of that channel.
+   */
+  @Test
+  public void testClearChannelAnnotationsOk()
+  {
+    final AnnotationBuffer buffer = new AnnotationBuffer();
+    buffer.onAnnotation( new ChannelLabelAnnotation( 0, "a" ) );
+    buffer.onAnnotation( new ChannelLabelAnnotation( 1, "b" ) );
+    buffer.onAnnotation( new ChannelLabelAnnotation( 0, "c" ) );
+    buffer.clearAnnotations( 0 );
+    buffer.onAnnotation( new ChannelLabelAnnotation( 0, "d" ) );
+
+    final EventRecorder recorder = new EventRecorder();
+    buffer.replay( recorder );
+
+    assertEquals( Arrays.asList( "1:b", "clear 0", "0:d" ), recorder.events );
+    assertEquals( 3, buffer.size() );
+  }
+
+  /**
+   * Tests that all events are replayed in the order they were buffered.
+   */
+  @Test
+  public void testReplayInOrderOk()
+  {
+    final AnnotationBuffer buffer = new AnnotationBuffer();
+    buffer.clearAnnotations( 2 );
+    buffer.onAnnotation( new ChannelLabelAnnotation( 2, "a" ) );
+    buffer.onAnnotation( new ChannelLabelAnnotation( 3, "b" ) );
+
+    final EventRecorder recorder = new EventRecorder();
+    buffer.replay( recorder );
+    buffer.replay( recorder );
+
+    assertEquals( Arrays.asList( "clear 2", "2:a", "3:b", "clear 2", "2:a", "3:b" ), recorder.events );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,190 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link EdgeEventStream}.
+ */
+public class EdgeEventStreamTest
+{
+  // INNER TYPES
+
+  /**
+   * Records all edge events as strings.
+   */
+  static final class EdgeRecorder implements EdgeListener
+  {
+    // VARIABLES
+
+    final List<String> events = new ArrayList<String>();
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEdge( final int aSampleIdx, final long aTimestamp, final int aChangedMask, final int aValue )
+    {
+      this.events.add( aSampleIdx + "@" + aTimestamp + ":" + Integer.toHexString( aChangedMask ) + "="
+          + Integer.toHexString( aValue ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnd( final int aSampleIdx )
+    {
+      this.events.add( "end " + aSampleIdx );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStart( final int aSampleIdx, final int aValue )
+    {
+      this.events.add( "start " + aSampleIdx + "=" + Integer.toHexString( aValue ) );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that each listener only receives the edges of its own channels,
+   * with simultaneous edges reported in a single call.
+   */
+  @Test
+  public void testFanOutByChannelMaskOk()
+  {
+    final AcquisitionResult data = createData( new int[] { 0x0, 0x1, 0x3, 0x2, 0x6, 0x6, 0x0 } );
+
+    final EdgeRecorder recorder1 = new EdgeRecorder();
+    final EdgeRecorder recorder2 = new EdgeRecorder();
+
+    final EdgeEventStream stream = new EdgeEventStream( data );
+    stream.subscribe( 0x1, recorder1 );
+    stream.subscribe( 0x6, recorder2 );
+    stream.run( 0, 7 );
+
+    assertEquals( Arrays.asList( "start 0=0", "1@10:1=1", "3@30:1=2", "end 7" ), recorder1.events );
+    assertEquals( Arrays.asList( "start 0=0", "2@20:2=3", "4@40:4=6", "6@60:6=0", "end 7" ), recorder2.events );
+  }
+
+  /**
+   * Tests that the generated edges are equal to those found by comparing each
+   * sample with its predecessor.
+   */
+  @Test
+  public void testMatchesSampleBySampleScanOk()
+  {
+    final Random rnd = new Random( 0x1234L );
+    final int[] values = new int[5000];
+    for ( int i = 1; i < values.length; i++ )
+    {
+      // Let only a few channels change at the same time...
+      values[i] = values[i - 1] ^ ( rnd.nextInt() & rnd.nextInt() & rnd.nextInt() );
+    }
+    final AcquisitionResult data = createData( values );
+
+    final int[] masks = { 0x1, 0x80000000, 0xf0f0, 0xffffffff };
+    for ( int mask : masks )
+    {
+      final EdgeRecorder recorder = new EdgeRecorder();
+
+      final EdgeEventStream stream = new EdgeEventStream( data );
+      stream.subscribe( mask, recorder );
+      stream.run( 100, 4000 );
+
+      final List<String> expected = new ArrayList<String>();
+      expected.add( "start 100=" + Integer.toHexString( values[100] ) );
+      for ( int i = 101; i < 4000; i++ )
+      {
+        final int changed = ( values[i] ^ values[i - 1] ) & mask;
+        if ( changed != 0 )
+        {
+          expected.add( i + "@" + ( i * 10L ) + ":" + Integer.toHexString( changed ) + "="
+              + Integer.toHexString( values[i] ) );
+        }
+      }
+      expected.add( "end 4000" );
+
+      assertEquals( "Mask " + Integer.toHexString( mask ), expected, recorder.events );
+    }
+  }
+
+  /**
+   * Tests that only edges within the given range are reported, and that the
+   * progress ends at 100%.
+   */
+  @Test
+  public void testRunWithinRangeOk()
+  {
+    final AcquisitionResult data = createData( new int[] { 0x0, 0x1, 0x0, 0x1, 0x0, 0x1, 0x0 } );
+
+    final EdgeRecorder recorder = new EdgeRecorder();
+    final List<Integer> progress = new ArrayList<Integer>();
+
+    final EdgeEventStream stream = new EdgeEventStream( data );
+    stream.subscribe( 0x1, recorder );
+    stream.setProgressListener( new ToolProgressListener()
+    {
+      @Override
+      public void setProgress( final int aPercentage )
+      {
+        progress.add( Integer.valueOf( aPercentage ) );
+      }
+    } );
+    stream.run( 2, 5 );
+
+    assertEquals( Arrays.asList( "start 2=0", "3@30:1=1", "4@40:1=0", "end 5" ), recorder.events );
+    assertEquals( Integer.valueOf( 100 ), progress.get( progress.size() - 1 ) );
+  }
+
+  /**
+   * Creates an acquisition result with a timestamp of ten times the sample
+   * index for each sample.
+   */
+  private static AcquisitionResult createData( final int[] aValues )
+  {
+    final long[] timestamps = new long[aValues.length];
+    for ( int i = 0; i < timestamps.length; i++ )
+    {
+      timestamps[i] = i * 10L;
+    }
+    return new CapturedData( aValues, timestamps, -1L, 1000, 32, 0xffffffff, timestamps[timestamps.length - 1] + 1 );
+  }
+}
+
+/* EOF */
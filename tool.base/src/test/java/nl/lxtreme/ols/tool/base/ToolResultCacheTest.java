@@ -0,0 +1,288 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.base;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.AnnotationBufferTest.EventRecorder;
+import nl.lxtreme.ols.tool.base.annotation.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ToolResultCache}.
+ */
+public class ToolResultCacheTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides a single setting.
+   */
+  static final class Settings implements Configurable
+  {
+    // VARIABLES
+
+    private final int value;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Settings instance.
+     */
+    Settings( final int aValue )
+    {
+      this.value = aValue;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void readPreferences( final UserSettings aSettings )
+    {
+      // Not used...
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void writePreferences( final UserSettings aSettings )
+    {
+      aSettings.putInt( "value", this.value );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * Tests that the same capture and settings yield equal keys, while different
+   * captures, even with equal contents, or settings yield different keys.
+   */
+  @Test
+  public void testCreateKeyOk()
+  {
+    final ToolResultCache cache = new ToolResultCache( 4, 100 );
+
+    final AcquisitionResult data = createData( 1, 2, 3 );
+
+    final ToolResultCache.Key key1 = cache.createKey( data, "settings" );
+    final ToolResultCache.Key key2 = cache.createKey( data, "settings" );
+    final ToolResultCache.Key key3 = cache.createKey( createData( 1, 2, 3 ), "settings" );
+    final ToolResultCache.Key key4 = cache.createKey( data, "other settings" );
+
+    assertEquals( key1, key2 );
+    assertEquals( key1.hashCode(), key2.hashCode() );
+    assertFalse( key1.equals( key3 ) );
+    assertFalse( key1.equals( key4 ) );
+
+    assertNull( cache.createKey( null, "settings" ) );
+    assertNull( cache.createKey( data, null ) );
+  }
+
+  /**
+   * Tests that the results of a capture are dropped once that capture is
+   * garbage collected.
+   */
+  @Test
+  public void testDropResultsOfCollectedCaptureOk() throws Exception
+  {
+    final ToolResultCache cache = new ToolResultCache( 4, 100 );
+
+    final AcquisitionResult data = createData( 1, 2, 3 );
+    cache.put( cache.createKey( data, "settings" ), "A", createRecorder( 0 ) );
+    cache.put( cache.createKey( createData( 1, 2, 3 ), "settings" ), "B", createRecorder( 0 ) );
+
+    for ( int i = 0; ( i < 100 ) && ( cache.size() > 1 ); i++ )
+    {
+      System.gc();
+      Thread.sleep( 10L );
+    }
+
+    assertEquals( 1, cache.size() );
+    assertEquals( "A", cache.get( cache.createKey( data, "settings" ) ).getResult() );
+  }
+
+  /**
+   * Tests that the settings key distinguishes both the settings and the
+   * analysed range.
+   */
+  @Test
+  public void testCreateSettingsKeyOk()
+  {
+    final ToolResultCache cache = new ToolResultCache( 4, 100 );
+
+    final Tool<?> tool = mock( Tool.class );
+    final ToolContext context1 = createContext( 0, 10 );
+    final ToolContext context2 = createContext( 0, 11 );
+
+    final String key1 = cache.createSettingsKey( tool, context1, new Settings( 1 ) );
+    final String key2 = cache.createSettingsKey( tool, context1, new Settings( 1 ) );
+    final String key3 = cache.createSettingsKey( tool, context1, new Settings( 2 ) );
+    final String key4 = cache.createSettingsKey( tool, context2, new Settings( 1 ) );
+
+    assertEquals( key1, key2 );
+    assertFalse( key1.equals( key3 ) );
+    assertFalse( key1.equals( key4 ) );
+
+    assertNull( cache.createSettingsKey( tool, mock( ToolContext.class ), new Settings( 1 ) ) );
+  }
+
+  /**
+   * Tests that the least recently used result is evicted when the maximum
+   * number of results is exceeded.
+   */
+  @Test
+  public void testEvictLeastRecentlyUsedOk()
+  {
+    final ToolResultCache cache = new ToolResultCache( 2, 100 );
+
+    cache.put( key( "a" ), "A", createRecorder( 0 ) );
+    cache.put( key( "b" ), "B", createRecorder( 0 ) );
+    assertNotNull( cache.get( key( "a" ) ) );
+
+    cache.put( key( "c" ), "C", createRecorder( 0 ) );
+
+    assertEquals( 2, cache.size() );
+    assertEquals( "A", cache.get( key( "a" ) ).getResult() );
+    assertNull( cache.get( key( "b" ) ) );
+    assertEquals( "C", cache.get( key( "c" ) ).getResult() );
+  }
+
+  /**
+   * Tests that the least recently used results are evicted when the maximum
+   * total weight is exceeded, and that results too large to cache are not
+   * cached at all.
+   */
+  @Test
+  public void testEvictOnTotalWeightOk()
+  {
+    final ToolResultCache cache = new ToolResultCache( 10, 10 );
+
+    // Each result weighs one, plus one for each annotation event...
+    cache.put( key( "a" ), "A", createRecorder( 3 ) );
+    cache.put( key( "b" ), "B", createRecorder( 3 ) );
+    assertEquals( 2, cache.size() );
+
+    cache.put( key( "c" ), "C", createRecorder( 3 ) );
+    assertEquals( 2, cache.size() );
+    assertNull( cache.get( key( "a" ) ) );
+
+    cache.put( key( "d" ), "D", createRecorder( 10 ) );
+    assertNull( cache.get( key( "d" ) ) );
+    assertNotNull( cache.get( key( "b" ) ) );
+    assertNotNull( cache.get( key( "c" ) ) );
+
+    // Replacing a result does not count its old weight...
+    cache.put( key( "b" ), "B2", createRecorder( 0 ) );
+    cache.put( key( "e" ), "E", createRecorder( 4 ) );
+    assertEquals( 3, cache.size() );
+  }
+
+  /**
+   * Tests that the annotation events recorded while running a tool are
+   * forwarded, and replayed in the same order.
+   */
+  @Test
+  public void testReplayRecordedAnnotationsOk()
+  {
+    final ToolResultCache cache = new ToolResultCache( 4, 100 );
+
+    final EventRecorder delegate = new EventRecorder();
+    final ToolResultCache.RecordingAnnotationListener recorder = new ToolResultCache.RecordingAnnotationListener(
+        delegate );
+    recorder.clearAnnotations();
+    recorder.clearAnnotations( 1 );
+    recorder.onAnnotation( new ChannelLabelAnnotation( 1, "a" ) );
+    recorder.onAnnotation( new ChannelLabelAnnotation( 2, "b" ) );
+
+    cache.put( key( "key" ), "result", recorder );
+
+    final EventRecorder replayed = new EventRecorder();
+    cache.get( key( "key" ) ).replay( replayed );
+
+    assertEquals( Arrays.asList( "clear", "clear 1", "1:a", "2:b" ), delegate.events );
+    assertEquals( delegate.events, replayed.events );
+  }
+
+  /**
+   * Creates a tool context for the given range of samples.
+   */
+  private static ToolContext createContext( final int aStartIdx, final int aEndIdx )
+  {
+    final AcquisitionResult data = createData( 1, 2, 3 );
+
+    final ToolContext result = mock( ToolContext.class );
+    when( result.getData() ).thenReturn( data );
+    when( result.getStartSampleIndex() ).thenReturn( aStartIdx );
+    when( result.getEndSampleIndex() ).thenReturn( aEndIdx );
+    return result;
+  }
+
+  /**
+   * Creates an acquisition result for the given sample values.
+   */
+  private static AcquisitionResult createData( final int... aValues )
+  {
+    final long[] timestamps = new long[aValues.length];
+    for ( int i = 0; i < timestamps.length; i++ )
+    {
+      timestamps[i] = i;
+    }
+    return new CapturedData( aValues, timestamps, -1L, 1000, 8, 0xff, aValues.length );
+  }
+
+  /**
+   * Creates a key that is not related to any capture.
+   */
+  private static ToolResultCache.Key key( final String aSettingsKey )
+  {
+    return new ToolResultCache.Key( aSettingsKey, 0L );
+  }
+
+  /**
+   * Creates a recorder that recorded the given number of annotation events.
+   */
+  private static ToolResultCache.RecordingAnnotationListener createRecorder( final int aEventCount )
+  {
+    final ToolResultCache.RecordingAnnotationListener result = new ToolResultCache.RecordingAnnotationListener(
+        new EventRecorder() );
+    for ( int i = 0; i < aEventCount; i++ )
+    {
+      result.onAnnotation( new ChannelLabelAnnotation( 0, "label" + i ) );
+    }
+    return result;
+  }
+}
+
+/* EOF */
@@ -43,6 +43,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 
@@ -460,7 +462,7 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
     final int bitCount = 8;
     final int bitAdder = 0;
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -482,68 +484,71 @@ public final class DMX512AnalyzerDialog extends BaseToolDialog<DMX512DataSet> im
         {
           return Integer.valueOf( aDataSet.getDetectedErrors() );
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
+        {
+          return false;
+        }
+
+        final List<DMX512Data> decodedData = aDataSet.getData();
+        for ( int i = 0; i < decodedData.size(); i++ )
         {
-          final List<DMX512Data> decodedData = aDataSet.getData();
-          Element tr;
+          final DMX512Data ds = decodedData.get( i );
 
-          for ( int i = 0; i < decodedData.size(); i++ )
+          String eventName = ds.getEventName();
+          String bgColor;
+          if ( "FRAME".equals( eventName ) )
+          {
+            eventName = "Frame error";
+            bgColor = "#ff6600";
+          }
+          else if ( "PARITY".equals( eventName ) )
+          {
+            eventName = "Parity error";
+            bgColor = "#ff9900";
+          }
+          else if ( "START".equals( eventName ) )
+          {
+            eventName = "Start error";
+            bgColor = "#ffcc00";
+          }
+          else
           {
-            final DMX512Data ds = decodedData.get( i );
+            // symbol
+            bgColor = ( i % 2 ) == 0 ? "#ffffff" : "#eeeeee";
+          }
 
-            String eventName = ds.getEventName();
-            String bgColor;
-            if ( "FRAME".equals( eventName ) )
-            {
-              eventName = "Frame error";
-              bgColor = "#ff6600";
-            }
-            else if ( "PARITY".equals( eventName ) )
-            {
-              eventName = "Parity error";
-              bgColor = "#ff9900";
-            }
-            else if ( "START".equals( eventName ) )
-            {
-              eventName = "Start error";
-              bgColor = "#ffcc00";
-            }
-            else
+          final String style = "background-color: " + bgColor + ";";
+          final String time = UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
+          if ( eventName == null )
+          {
+            // normal symbol...
+            int data = ds.getData();
+
+            String dataHex = "0x" + StringUtils.integerToHexString( data, ( bitCount / 4 ) + bitAdder );
+            String dataBin = "0b" + StringUtils.integerToBinString( data, bitCount );
+            String dataDec = String.valueOf( data );
+            String dataASCII = "";
+            if ( isPrintableCharacter( data ) )
             {
-              // symbol
-              bgColor = ( i % 2 ) == 0 ? "#ffffff" : "#eeeeee";
+              dataASCII = String.valueOf( ( char )data );
             }
 
-            tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-            tr.addChild( TD ).addContent( String.valueOf( i ) );
-            tr.addChild( TD ).addContent( UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-            if ( eventName == null )
-            {
-              // normal symbol...
-              int data = ds.getData();
-
-              String dataHex = "0x" + StringUtils.integerToHexString( data, ( bitCount / 4 ) + bitAdder );
-              String dataBin = "0b" + StringUtils.integerToBinString( data, bitCount );
-              String dataDec = String.valueOf( data );
-              String dataASCII = "";
-              if ( isPrintableCharacter( data ) )
-              {
-                dataASCII = String.valueOf( ( char )data );
-              }
-
-              tr.addChild( TD ).addContent( dataHex );
-              tr.addChild( TD ).addContent( dataBin );
-              tr.addChild( TD ).addContent( dataDec );
-              tr.addChild( TD ).addContent( dataASCII );
-            }
-            else
-            {
-              // error event...
-              tr.addChild( TD ).addAttribute( "colspan", "4" ).addContent( eventName );
-            }
+            aWriter.addRow( style, String.valueOf( i ), time, dataHex, dataBin, dataDec, dataASCII );
+          }
+          else
+          {
+            // error event...
+            aWriter.addRow( style, new int[] { 1, 1, 4 }, String.valueOf( i ), time, eventName );
           }
         }
-        return null;
+
+        return true;
       }
 
       /**
@@ -31,11 +31,13 @@ import org.osgi.framework.*;
 /**
  * Provides an I2C analyser tool.
  */
-public class I2CAnalyser implements Tool<I2CDataSet>
+public class I2CAnalyser implements HeadlessTool<I2CDataSet>
 {
   // VARIABLES
 
   private volatile BundleContext context;
+  /** the settings this tool was last run with, without any tool context. */
+  private volatile I2CAnalyserTask lastSettings;
 
   // METHODS
 
@@ -49,6 +51,24 @@ public class I2CAnalyser implements Tool<I2CDataSet>
     return new I2CAnalyserTask( aContext, aProgressListener, aAnnotationListener );
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public ToolTask<I2CDataSet> createConfiguredToolTask( final ToolContext aContext,
+      final ToolProgressListener aProgressListener, final AnnotationListener aAnnotationListener )
+  {
+    final I2CAnalyserTask settings = this.lastSettings;
+    if ( settings == null )
+    {
+      return null;
+    }
+
+    final I2CAnalyserTask task = new I2CAnalyserTask( aContext, aProgressListener, aAnnotationListener );
+    task.copySettings( settings );
+    return task;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -75,6 +95,21 @@ public class I2CAnalyser implements Tool<I2CDataSet>
   {
     new I2CProtocolAnalysisDialog( aParent, aContext, this.context, this ).showDialog();
   }
+
+  /**
+   * Remembers the settings of the given task as the settings this tool was
+   * last run with.
+   * 
+   * @param aTask
+   *          the task that is about to run, cannot be <code>null</code>.
+   */
+  final void setLastSettings( final I2CAnalyserTask aTask )
+  {
+    // Only keep the settings, not the tool context and its captured data...
+    final I2CAnalyserTask settings = new I2CAnalyserTask( null, null, null );
+    settings.copySettings( aTask );
+    this.lastSettings = settings;
+  }
 }
 
 /* EOF */
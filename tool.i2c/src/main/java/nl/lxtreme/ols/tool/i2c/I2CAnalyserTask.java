@@ -29,6 +29,7 @@ import java.util.logging.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
 
@@ -37,6 +38,256 @@ import nl.lxtreme.ols.tool.base.annotation.*;
  */
 public class I2CAnalyserTask implements ToolTask<I2CDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Decodes the I2C bytes from the edges of the SCL and SDA lines.
+   */
+  final class I2CDecoder implements EdgeListener
+  {
+    // VARIABLES
+
+    private final I2CDataSet dataSet;
+    private final long[] timestamps;
+    private final int sdaMask;
+    private final int sclMask;
+
+    private boolean oldSCL;
+    private boolean oldSDA;
+    private int bitCount;
+    private int byteValue;
+    private int prevIdx;
+
+    boolean startCondFound;
+    private boolean tenBitAddress;
+    private int slaveAddress;
+    private int direction;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new I2CDecoder instance.
+     */
+    I2CDecoder( final I2CDataSet aDataSet )
+    {
+      this.dataSet = aDataSet;
+      this.timestamps = I2CAnalyserTask.this.context.getData().getTimestamps();
+      this.sdaMask = ( 1 << I2CAnalyserTask.this.sdaIdx );
+      this.sclMask = ( 1 << I2CAnalyserTask.this.sclIdx );
+
+      this.bitCount = I2C_BITCOUNT;
+      this.byteValue = 0;
+      this.prevIdx = -1;
+
+      this.startCondFound = false;
+      this.tenBitAddress = false;
+      this.slaveAddress = 0x00;
+      this.direction = -1;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEdge( final int aSampleIdx, final long aTimestamp, final int aChangedMask, final int aValue )
+    {
+      /*
+       * Now decode the bytes, SDA may only change when SCL is low. Otherwise it
+       * may be a repeated start condition or stop condition. If the start/stop
+       * condition is not at a byte boundary a bus error is detected. So we have
+       * to scan for SCL rises and for SDA changes during SCL is high. Each byte
+       * is followed by a 9th bit (ACK/NACK).
+       */
+      final boolean sda = ( aValue & this.sdaMask ) != 0;
+      final boolean scl = ( aValue & this.sclMask ) != 0;
+
+      // detect SCL fall/rise
+      if ( this.oldSCL && !scl )
+      {
+        // SCL falls
+        if ( ( this.prevIdx < 0 ) || ( this.bitCount == I2C_BITCOUNT ) )
+        {
+          this.prevIdx = aSampleIdx;
+        }
+
+        if ( this.bitCount == 0 )
+        {
+          // store decoded byte
+          reportData( this.dataSet, this.prevIdx, aSampleIdx, this.byteValue );
+
+          final String annotation;
+          if ( this.startCondFound )
+          {
+            // This is the (7- or 10-bit) address part...
+            this.direction = ( this.byteValue & 0x01 );
+
+            if ( ( this.byteValue & 0xf8 ) == 0xf0 )
+            {
+              // 10-bit address part...
+              this.slaveAddress = ( this.byteValue & 0x06 ) << 6;
+              this.tenBitAddress = true;
+
+              annotation = String.format( "Setup %s 10-bit slave", ( this.direction == 1 ) ? "read from"
+                  : "write to" );
+            }
+            else
+            {
+              if ( this.tenBitAddress )
+              {
+                // 10-bit address needs the first few bits of the previous slave
+                // address, so OR-ing is needed here...
+                this.slaveAddress |= ( this.byteValue & 0xFF );
+              }
+              else
+              {
+                // 7-bit address, directly available. See issue #51
+                this.slaveAddress = ( ( this.byteValue >> 1 ) & 0xFF );
+              }
+              this.startCondFound = false;
+
+              annotation = String.format( this.tenBitAddress ? "Setup %s slave: 0x%X "
+                  : "Setup %s slave: 0x%X [0x%X]",
+                  ( this.direction == 1 ) ? "read from" : "write to", Integer.valueOf( this.slaveAddress ),
+                  Integer.valueOf( this.byteValue ) );
+
+              this.tenBitAddress = false;
+            }
+          }
+          else
+          {
+            annotation = String.format( "%s data: 0x%X (%c)", ( this.direction == 1 ) ? "Read" : "Write",
+                Integer.valueOf( this.byteValue ), Integer.valueOf( this.byteValue ) );
+          }
+
+          addAnnotation( this.timestamps[this.prevIdx], aTimestamp, annotation );
+
+          this.byteValue = 0;
+        }
+      }
+      else if ( scl && !this.oldSCL )
+      {
+        // SCL rises
+        if ( sda != this.oldSDA )
+        {
+          reportBusError( this.dataSet, aSampleIdx );
+        }
+        else
+        {
+          // read SDA
+          if ( this.bitCount != 0 )
+          {
+            this.bitCount--;
+            if ( sda )
+            {
+              this.byteValue |= ( 1 << this.bitCount );
+            }
+          }
+          else
+          {
+            // read the confirmation of the slave...
+            if ( sda )
+            {
+              // NACK
+              reportNACK( this.dataSet, aSampleIdx );
+
+              addAnnotation( aTimestamp, I2CDataSet.I2C_NACK );
+            }
+            else
+            {
+              // ACK
+              reportACK( this.dataSet, aSampleIdx );
+
+              addAnnotation( aTimestamp, I2CDataSet.I2C_ACK );
+            }
+
+            // next byte
+            this.bitCount = I2C_BITCOUNT;
+            this.byteValue = 0;
+          }
+        }
+      }
+
+      // detect SDA change when SCL high
+      if ( scl && ( sda != this.oldSDA ) )
+      {
+        // SDA changes here
+        if ( ( this.bitCount > 0 ) && ( this.bitCount < ( I2C_BITCOUNT - 1 ) ) )
+        {
+          // bus error, no complete byte detected
+          reportBusError( this.dataSet, aSampleIdx );
+        }
+        else
+        {
+          if ( sda && !this.oldSDA )
+          {
+            // SDA rises, this is a stop condition
+            reportStopCondition( this.dataSet, aSampleIdx );
+
+            addAnnotation( aTimestamp, I2CDataSet.I2C_STOP );
+
+            this.slaveAddress = 0x00;
+            this.direction = -1;
+          }
+          else
+          {
+            // SDA falls, this is a start condition
+            reportStartCondition( this.dataSet, aSampleIdx );
+
+            addAnnotation( aTimestamp, I2CDataSet.I2C_START );
+
+            this.startCondFound = true;
+          }
+
+          // new byte
+          this.bitCount = I2C_BITCOUNT;
+          this.byteValue = 0;
+        }
+      }
+
+      this.oldSCL = scl;
+      this.oldSDA = sda;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnd( final int aSampleIdx )
+    {
+      // Nop
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStart( final int aSampleIdx, final int aValue )
+    {
+      this.oldSCL = ( aValue & this.sclMask ) != 0;
+      this.oldSDA = ( aValue & this.sdaMask ) != 0;
+    }
+
+    /**
+     * Adds an annotation for a single point in time to the SDA line.
+     */
+    private void addAnnotation( final long aTimestamp, final String aText )
+    {
+      I2CAnalyserTask.this.annotationListener.onAnnotation( new SampleDataAnnotation( I2CAnalyserTask.this.sdaIdx,
+          aTimestamp, aText ) );
+    }
+
+    /**
+     * Adds an annotation for a period of time to the SDA line.
+     */
+    private void addAnnotation( final long aStartTimestamp, final long aEndTimestamp, final String aText )
+    {
+      I2CAnalyserTask.this.annotationListener.onAnnotation( new SampleDataAnnotation( I2CAnalyserTask.this.sdaIdx,
+          aStartTimestamp, aEndTimestamp, aText ) );
+    }
+  }
+
   // CONSTANTS
 
   public static final String LINE_A = "LineA";
@@ -117,13 +368,6 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
-    final long[] timestamps = data.getTimestamps();
-
-    // process the captured data and write to output
-    int oldSCL, oldSDA, bitCount;
-    int byteValue;
-
     if ( LOG.isLoggable( Level.FINE ) )
     {
       LOG.log( Level.FINE, "Line A mask = 0x{0}", Integer.toHexString( this.lineAmask ) );
@@ -144,205 +388,29 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       this.sdaIdx = this.lineBidx;
     }
 
-    final int sdaMask = ( 1 << this.sdaIdx );
-    final int sclMask = ( 1 << this.sclIdx );
-
     final I2CDataSet i2cDataSet = new I2CDataSet( startOfDecode, endOfDecode, data );
 
     // Prepare everything for the decoding results...
     prepareResults();
 
-    /*
-     * Now decode the bytes, SDA may only change when SCL is low. Otherwise it
-     * may be a repeated start condition or stop condition. If the start/stop
-     * condition is not at a byte boundary a bus error is detected. So we have
-     * to scan for SCL rises and for SDA changes during SCL is high. Each byte
-     * is followed by a 9th bit (ACK/NACK).
-     */
-    int idx = i2cDataSet.getStartOfDecode();
-    int prevIdx = -1;
-
-    oldSCL = values[idx] & sclMask;
-    oldSDA = values[idx] & sdaMask;
-
-    bitCount = I2C_BITCOUNT;
-    byteValue = 0;
-
-    boolean startCondFound = false;
-    boolean tenBitAddress = false;
-    int slaveAddress = 0x00;
-    int direction = -1;
+    final I2CDecoder decoder = new I2CDecoder( i2cDataSet );
 
     if ( this.detectSDA_SCL )
     {
       // We've just found our start condition, start the report with that...
       reportStartCondition( i2cDataSet, startOfDecode );
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[startOfDecode],
-          I2CDataSet.I2C_START ) );
+      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx,
+          data.getTimestamps()[startOfDecode], I2CDataSet.I2C_START ) );
 
-      startCondFound = true;
+      decoder.startCondFound = true;
     }
 
-    for ( ; idx < i2cDataSet.getEndOfDecode(); idx++ )
-    {
-      final int dataValue = values[idx];
-
-      final int sda = ( dataValue & sdaMask );
-      final int scl = ( dataValue & sclMask );
-
-      // detect SCL fall/rise
-      if ( oldSCL > scl )
-      {
-        // SCL falls
-        if ( ( prevIdx < 0 ) || ( bitCount == I2C_BITCOUNT ) )
-        {
-          prevIdx = idx;
-        }
-
-        if ( bitCount == 0 )
-        {
-          // store decoded byte
-          reportData( i2cDataSet, prevIdx, idx, byteValue );
-
-          final String annotation;
-          if ( startCondFound )
-          {
-            // This is the (7- or 10-bit) address part...
-            direction = ( byteValue & 0x01 );
-
-            if ( ( byteValue & 0xf8 ) == 0xf0 )
-            {
-              // 10-bit address part...
-              slaveAddress = ( byteValue & 0x06 ) << 6;
-              tenBitAddress = true;
-
-              annotation = String.format( "Setup %s 10-bit slave", ( direction == 1 ) ? "read from" : "write to" );
-            }
-            else
-            {
-              if ( tenBitAddress )
-              {
-                // 10-bit address needs the first few bits of the previous slave
-                // address, so OR-ing is needed here...
-                slaveAddress |= ( byteValue & 0xFF );
-              }
-              else
-              {
-                // 7-bit address, directly available. See issue #51
-                slaveAddress = ( ( byteValue >> 1 ) & 0xFF );
-              }
-              startCondFound = false;
-
-              annotation = String.format( tenBitAddress ? "Setup %s slave: 0x%X " : "Setup %s slave: 0x%X [0x%X]",
-                  ( direction == 1 ) ? "read from" : "write to", Integer.valueOf( slaveAddress ),
-                  Integer.valueOf( byteValue ) );
-
-              tenBitAddress = false;
-            }
-          }
-          else
-          {
-            annotation = String.format( "%s data: 0x%X (%c)", ( direction == 1 ) ? "Read" : "Write",
-                Integer.valueOf( byteValue ), Integer.valueOf( byteValue ) );
-          }
-
-          this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[prevIdx],
-              timestamps[idx], annotation ) );
-
-          byteValue = 0;
-        }
-      }
-      else if ( scl > oldSCL )
-      {
-        // SCL rises
-        if ( sda != oldSDA )
-        {
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          // read SDA
-          if ( bitCount != 0 )
-          {
-            bitCount--;
-            if ( sda != 0 )
-            {
-              byteValue |= ( 1 << bitCount );
-            }
-          }
-          else
-          {
-            // read the confirmation of the slave...
-            if ( sda != 0 )
-            {
-              // NACK
-              reportNACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_NACK ) );
-            }
-            else
-            {
-              // ACK
-              reportACK( i2cDataSet, idx );
-
-              this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                  I2CDataSet.I2C_ACK ) );
-            }
-
-            // next byte
-            bitCount = I2C_BITCOUNT;
-            byteValue = 0;
-          }
-        }
-      }
-
-      // detect SDA change when SCL high
-      if ( ( scl == sclMask ) && ( sda != oldSDA ) )
-      {
-        // SDA changes here
-        if ( ( bitCount > 0 ) && ( bitCount < ( I2C_BITCOUNT - 1 ) ) )
-        {
-          // bus error, no complete byte detected
-          reportBusError( i2cDataSet, idx );
-        }
-        else
-        {
-          if ( sda > oldSDA )
-          {
-            // SDA rises, this is a stop condition
-            reportStopCondition( i2cDataSet, idx );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_STOP ) );
-
-            slaveAddress = 0x00;
-            direction = -1;
-          }
-          else
-          {
-            // SDA falls, this is a start condition
-            reportStartCondition( i2cDataSet, idx );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.sdaIdx, timestamps[idx],
-                I2CDataSet.I2C_START ) );
-
-            startCondFound = true;
-          }
-
-          // new byte
-          bitCount = I2C_BITCOUNT;
-          byteValue = 0;
-        }
-      }
-
-      oldSCL = scl;
-      oldSDA = sda;
-
-      this.progressListener
-          .setProgress( getPercentage( idx, i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode() ) );
-    }
+    // Only the edges of SCL and SDA are of interest to us...
+    final EdgeEventStream edgeStream = new EdgeEventStream( data );
+    edgeStream.subscribe( ( 1 << this.sclIdx ) | ( 1 << this.sdaIdx ), decoder );
+    edgeStream.setProgressListener( this.progressListener );
+    edgeStream.run( i2cDataSet.getStartOfDecode(), i2cDataSet.getEndOfDecode() );
 
     return i2cDataSet;
   }
@@ -417,6 +485,23 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     this.reportStop = aReportStop;
   }
 
+  /**
+   * Copies the settings of the given task to this task.
+   * 
+   * @param aTask
+   *          the task to copy the settings from, cannot be <code>null</code>.
+   */
+  final void copySettings( final I2CAnalyserTask aTask )
+  {
+    setDetectSDA_SCL( aTask.detectSDA_SCL );
+    setLineAIndex( aTask.lineAidx );
+    setLineBIndex( aTask.lineBidx );
+    setReportACK( aTask.reportACK );
+    setReportNACK( aTask.reportNACK );
+    setReportStart( aTask.reportStart );
+    setReportStop( aTask.reportStop );
+  }
+
   /**
    * @return the sclIdx
    */
@@ -0,0 +1,124 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.i2c;
+
+
+import java.awt.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+import nl.lxtreme.ols.tool.base.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a table model for the I2C analysis results.
+ */
+final class I2CDataTableModel extends DataSetTableModel<I2CData>
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Color START_STOP_COLOR = new Color( 0xe0e0e0 );
+  private static final Color ACK_COLOR = new Color( 0xc0ffc0 );
+  private static final Color NACK_COLOR = new Color( 0xffc0c0 );
+  private static final Color UNKNOWN_COLOR = new Color( 0xff8000 );
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new I2CDataTableModel instance.
+   */
+  public I2CDataTableModel()
+  {
+    super( "Index", "Time", "Hex", "Bin", "Dec", "ASCII" );
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Color getBackground( final BaseDataSet<I2CData> aDataSet, final int aDataIndex )
+  {
+    final I2CData data = aDataSet.getData().get( aDataIndex );
+    if ( !data.isEvent() )
+    {
+      return null;
+    }
+
+    final String event = data.getEventName();
+    if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
+    {
+      return START_STOP_COLOR;
+    }
+    else if ( I2CDataSet.I2C_ACK.equals( event ) )
+    {
+      return ACK_COLOR;
+    }
+    else if ( I2CDataSet.I2C_NACK.equals( event ) )
+    {
+      return NACK_COLOR;
+    }
+    return UNKNOWN_COLOR;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object getValue( final BaseDataSet<I2CData> aDataSet, final int aDataIndex, final int aColumnIndex )
+  {
+    final I2CData data = aDataSet.getData().get( aDataIndex );
+
+    switch ( aColumnIndex )
+    {
+      case 0:
+        return Integer.toString( aDataIndex );
+      case 1:
+        return UnitOfTime.format( aDataSet.getTime( data.getStartSampleIndex() ) );
+      default:
+        break;
+    }
+
+    if ( data.isEvent() )
+    {
+      return ( aColumnIndex == 2 ) ? data.getEventName() : null;
+    }
+
+    final int value = data.getValue();
+    switch ( aColumnIndex )
+    {
+      case 2:
+        return "0x".concat( StringUtils.integerToHexString( value, 2 ) );
+      case 3:
+        return "0b".concat( StringUtils.integerToBinString( value, 8 ) );
+      case 4:
+        return Integer.toString( value );
+      default:
+        return String.valueOf( ( char )value );
+    }
+  }
+}
+
+/* EOF */
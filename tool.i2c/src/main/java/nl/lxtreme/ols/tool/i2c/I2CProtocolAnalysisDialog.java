@@ -45,6 +45,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 
@@ -72,7 +74,7 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   private JComboBox lineA;
   private JLabel lineBLabel;
   private JComboBox lineB;
-  private JEditorPane outText;
+  private DataSetTableView<I2CData> resultView;
   private JLabel busSetSCL;
   private JLabel busSetSDA;
   private JCheckBox detectSDA_SCL;
@@ -184,9 +186,8 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   public void reset()
   {
-    final String emptyHtmlPage = getEmptyHtmlPage();
-    this.outText.setText( emptyHtmlPage );
-    this.outText.setEditable( false );
+    this.resultView.setDataSet( null );
+    this.resultView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -253,34 +254,21 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   @Override
   protected void onToolEnded( final I2CDataSet aAnalysisResult )
   {
-    try
+    this.resultView.setDataSet( aAnalysisResult );
+    if ( aAnalysisResult != null )
     {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
+      this.resultView.setSummary( String.format( "<html><b>Decoded bytes:</b> %d &nbsp; <b>Bus errors:</b> %d</html>",
+          Integer.valueOf( aAnalysisResult.getDecodedByteCount() ),
+          Integer.valueOf( aAnalysisResult.getBusErrorCount() ) ) );
+      this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // This should not happen for the no-file exports!
-        throw new RuntimeException( exception );
-      }
+      this.resultView.setSummary( null );
+      this.exportAction.setEnabled( false );
     }
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -310,6 +298,9 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     toolTask.setReportStart( this.detectSTART.isSelected() );
     toolTask.setReportStop( this.detectSTOP.isSelected() );
 
+    // Allow capture sessions to decode with the same settings...
+    ( ( I2CAnalyser )getTool() ).setLastSettings( toolTask );
+
     // Register ourselves as property change listener...
     toolTask.addPropertyChangeListener( this );
   }
@@ -385,14 +376,8 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
    */
   private JPanel createPreviewPane()
   {
-    final JPanel output = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
-
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
-
-    output.add( new JScrollPane( this.outText ) );
-
-    return output;
+    this.resultView = new DataSetTableView<I2CData>( new I2CDataTableModel() );
+    return this.resultView;
   }
 
   /**
@@ -467,37 +452,6 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
     return panel;
   }
 
-  /**
-   * Returns an "empty" HTML page.
-   * 
-   * @return an empty HTML page string, never <code>null</code>.
-   */
-  private String getEmptyHtmlPage()
-  {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
-    {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "sda-bus-config".equals( aMacro ) || "scl-bus-config".equals( aMacro ) )
-        {
-          return "&lt;auto detect&gt;";
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro ) )
-        {
-          return "-";
-        }
-        return null;
-      }
-    } );
-  }
-
   /**
    *
    */
@@ -596,15 +550,16 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    * 
-   * @param aEmpty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>;
+   * @param aAnalysisResult
+   *          the analysis results to write, cannot be <code>null</code>.
    */
-  private String toHtmlPage( final File aFile, final I2CDataSet aAnalysisResult ) throws IOException
+  private void toHtmlPage( final File aFile, final I2CDataSet aAnalysisResult ) throws IOException
   {
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -630,78 +585,65 @@ public final class I2CProtocolAnalysisDialog extends BaseToolDialog<I2CDataSet>
         {
           return Integer.valueOf( aAnalysisResult.getBusErrorCount() );
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
+        {
+          return false;
+        }
+
+        final List<I2CData> dataSet = aAnalysisResult.getData();
+        for ( int i = 0; i < dataSet.size(); i++ )
         {
-          final List<I2CData> dataSet = aAnalysisResult.getData();
-          Element tr;
+          final I2CData data = dataSet.get( i );
+          final String time = UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
 
-          for ( int i = 0; i < dataSet.size(); i++ )
+          if ( data.isEvent() )
           {
-            final I2CData data = dataSet.get( i );
+            // this is an event
+            final String event = data.getEventName();
 
-            if ( data.isEvent() )
+            String bgColor;
+            if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
             {
-              // this is an event
-              final String event = data.getEventName();
-
-              String bgColor;
-              if ( I2CDataSet.I2C_START.equals( event ) || I2CDataSet.I2C_STOP.equals( event ) )
-              {
-                bgColor = "#e0e0e0";
-              }
-              else if ( I2CDataSet.I2C_ACK.equals( event ) )
-              {
-                bgColor = "#c0ffc0";
-              }
-              else if ( I2CDataSet.I2C_NACK.equals( event ) )
-              {
-                bgColor = "#ffc0c0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
+              bgColor = "#e0e0e0";
+            }
+            else if ( I2CDataSet.I2C_ACK.equals( event ) )
+            {
+              bgColor = "#c0ffc0";
+            }
+            else if ( I2CDataSet.I2C_NACK.equals( event ) )
+            {
+              bgColor = "#ffc0c0";
             }
             else
             {
-              final int value = data.getValue();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( "0x" + StringUtils.integerToHexString( value, 2 ) );
-              tr.addChild( TD ).addContent( "0b" + StringUtils.integerToBinString( value, 8 ) );
-              tr.addChild( TD ).addContent( String.valueOf( value ) );
-              tr.addChild( TD ).addContent( String.valueOf( ( char )value ) );
+              // unknown event
+              bgColor = "#ff8000";
             }
+
+            aWriter.addRow( "background-color: " + bgColor + ";", String.valueOf( i ), time, event, null, null, null );
+          }
+          else
+          {
+            final int value = data.getValue();
+
+            aWriter.addRow( null, String.valueOf( i ), time, "0x" + StringUtils.integerToHexString( value, 2 ), "0b"
+                + StringUtils.integerToBinString( value, 8 ), String.valueOf( value ), String.valueOf( ( char )value ) );
           }
         }
 
-        return null;
+        return true;
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
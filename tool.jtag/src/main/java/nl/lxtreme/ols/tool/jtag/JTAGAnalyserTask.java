@@ -28,6 +28,7 @@ import java.util.logging.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
 
@@ -39,6 +40,162 @@ import nl.lxtreme.ols.tool.base.annotation.*;
  */
 public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Decodes the JTAG TAP-states and data from the edges of the TCK line.
+   */
+  final class JTAGDecoder implements EdgeListener
+  {
+    // VARIABLES
+
+    private final JTAGDataSet dataSet;
+    private final long[] timestamps;
+    private final int tckMask;
+    private final int tmsMask;
+    private final int tdiMask;
+    private final int tdoMask;
+
+    private JTAGState currentState;
+    private JTAGState oldState;
+    private int startIdx;
+
+    private int startTdiDataIdx;
+    private int endTdiDataIdx;
+    private final JTAGBitVector tdiData;
+    private final JTAGBitVector tdoData;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new JTAGDecoder instance.
+     */
+    JTAGDecoder( final JTAGDataSet aDataSet )
+    {
+      this.dataSet = aDataSet;
+      this.timestamps = JTAGAnalyserTask.this.context.getData().getTimestamps();
+
+      this.tckMask = ( 1 << JTAGAnalyserTask.this.tckIdx );
+      this.tmsMask = ( 1 << JTAGAnalyserTask.this.tmsIdx );
+      this.tdiMask = ( 1 << JTAGAnalyserTask.this.tdiIdx );
+      this.tdoMask = ( 1 << JTAGAnalyserTask.this.tdoIdx );
+
+      this.startTdiDataIdx = 0;
+      this.endTdiDataIdx = 0;
+      this.tdiData = new JTAGBitVector();
+      this.tdoData = new JTAGBitVector();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEdge( final int aSampleIdx, final long aTimestamp, final int aChangedMask, final int aValue )
+    {
+      if ( ( aValue & this.tckMask ) != 0 )
+      {
+        // TCK rising edge...
+        clockRisingEdge( aSampleIdx, aValue );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnd( final int aSampleIdx )
+    {
+      // Nop
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStart( final int aSampleIdx, final int aValue )
+    {
+      this.currentState = TEST_LOGIC_RESET;
+      this.oldState = TEST_LOGIC_RESET;
+      this.startIdx = aSampleIdx;
+    }
+
+    /**
+     * Adds an annotation to the given channel for the given sample range.
+     */
+    private void addAnnotation( final int aChannelIdx, final int aStartIdx, final int aEndIdx, final String aText )
+    {
+      JTAGAnalyserTask.this.annotationListener.onAnnotation( new SampleDataAnnotation( aChannelIdx,
+          this.timestamps[aStartIdx], this.timestamps[aEndIdx], aText ) );
+    }
+
+    /**
+     * Adds an annotation with a copy of the given shifted bits to the given
+     * channel; the bits are only rendered as text when displayed.
+     */
+    private void addDataAnnotation( final int aChannelIdx, final JTAGBitVector aBits )
+    {
+      JTAGAnalyserTask.this.annotationListener.onAnnotation( new JTAGDataAnnotation( aChannelIdx,
+          this.timestamps[this.startTdiDataIdx], this.timestamps[this.endTdiDataIdx], aBits.copy() ) );
+    }
+
+    /**
+     * Advances the TAP-state machine on a rising edge of TCK.
+     */
+    private void clockRisingEdge( final int aSampleIdx, final int aValue )
+    {
+      final boolean tmsValue = ( aValue & this.tmsMask ) != 0;
+
+      final String state = this.currentState.getDisplayText();
+
+      switch ( this.currentState )
+      {
+        case CAPTURE_DR:
+        case CAPTURE_IR:
+          this.tdiData.clear();
+          this.tdoData.clear();
+          break;
+
+        case SHIFT_DR:
+        case SHIFT_IR:
+          if ( this.tdiData.isEmpty() )
+          {
+            this.startTdiDataIdx = aSampleIdx;
+          }
+          this.endTdiDataIdx = aSampleIdx;
+
+          this.tdiData.add( ( aValue & this.tdiMask ) != 0 );
+          this.tdoData.add( ( aValue & this.tdoMask ) != 0 );
+          break;
+
+        case UPDATE_DR:
+        case UPDATE_IR:
+          addDataAnnotation( JTAGAnalyserTask.this.tdiIdx, this.tdiData );
+          addDataAnnotation( JTAGAnalyserTask.this.tdoIdx, this.tdoData );
+          break;
+
+        default:
+          break;
+      }
+
+      this.currentState = this.currentState.getNextState( tmsValue );
+
+      if ( this.oldState != this.currentState )
+      {
+        // LOG.log( Level.INFO, "state transition: " + oldJTAGState + " to "
+        // + JTAGState + " (" + StartIdx + "," + idx + ")");
+
+        addAnnotation( JTAGAnalyserTask.this.tmsIdx, this.startIdx, aSampleIdx, state );
+
+        this.dataSet.reportJTAGState( JTAGAnalyserTask.this.tmsIdx, this.startIdx, aSampleIdx, this.oldState );
+
+        this.startIdx = aSampleIdx + 1;
+        this.oldState = this.currentState;
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( JTAGAnalyserTask.class.getName() );
@@ -56,10 +213,6 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
   private int tdiIdx;
   private int tdoIdx;
 
-  private JTAGState currentState;
-  private JTAGState oldState;
-  private int startIdx;
-
   // CONSTRUCTORS
 
   /**
@@ -166,331 +319,17 @@ public class JTAGAnalyserTask implements ToolTask<JTAGDataSet>
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
-    final long[] timestamps = data.getTimestamps();
-
     final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
     final int endOfDecode = aDataSet.getEndOfDecode();
 
-    final int tdoMask = ( 1 << this.tdoIdx );
-    final int tdiMask = ( 1 << this.tdiIdx );
-    final int tckMask = ( 1 << this.tckIdx );
-    final int tmsMask = ( 1 << this.tmsIdx );
-
-    // scanning for falling/rising clk edges
-    int oldTckValue = ( values[startOfDecode] & tckMask );
-
-    String state;
-    int startTdiDataIdx = 0;
-    int endTdiDataIdx = 0;
-    String TdiData = "";
-    String TdoData = "";
-
-    this.currentState = TEST_LOGIC_RESET;
-    this.oldState = TEST_LOGIC_RESET;
-    this.startIdx = startOfDecode;
-
     LOG.log( Level.INFO, "clockDataOnEdge: " + startOfDecode + " to " + endOfDecode );
 
-    final double length = endOfDecode - startOfDecode;
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
-    {
-      final int dataSample = values[idx];
-      final int tckValue = ( dataSample & tckMask );
-      final int tmsValue = ( dataSample & tmsMask );
-      final int tdiValue = ( dataSample & tdiMask );
-      final int tdoValue = ( dataSample & tdoMask );
-
-      if ( oldTckValue != tckValue )
-      {
-        oldTckValue = tckValue;
-
-        if ( tckValue != 0 )
-        {
-          // LOG.log( Level.INFO, "TCK rising edge  (" + idx + ", TMS: " +
-          // tmsValue + ",  State: " + JTAGState + ")");
-
-          if ( this.currentState == TEST_LOGIC_RESET )
-          { // state 0: Test Logic Reset
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = RUN_TEST_IDLE;
-            }
-          }
-          else if ( this.currentState == RUN_TEST_IDLE )
-          { // state 1: Run Test Idle
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = RUN_TEST_IDLE;
-            }
-            else
-            {
-              this.currentState = SELECT_DR;
-            }
-          }
-          else if ( this.currentState == SELECT_DR )
-          { // state 2: Select DR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = CAPTURE_DR;
-            }
-            else
-            {
-              this.currentState = SELECT_IR;
-            }
-          }
-          else if ( this.currentState == CAPTURE_DR )
-          { // state 3: Capture DR
-            state = this.currentState.getDisplayText();
-            TdiData = "";
-            TdoData = "";
-            if ( tmsValue == 0 )
-            {
-              this.currentState = SHIFT_DR;
-            }
-            else
-            {
-              this.currentState = EXIT1_DR;
-            }
-          }
-          else if ( this.currentState == SHIFT_DR )
-          { // state 4: Shift DR
-            state = this.currentState.getDisplayText();
-            if ( TdiData == "" )
-            {
-              startTdiDataIdx = idx;
-            }
-            endTdiDataIdx = idx;
-
-            if ( tdiValue == 0 )
-            {
-              TdiData = "0" + TdiData;
-            }
-            else
-            {
-              TdiData = "1" + TdiData;
-            }
-
-            if ( tdoValue == 0 )
-            {
-              TdoData = "0" + TdoData;
-            }
-            else
-            {
-              TdoData = "1" + TdoData;
-            }
-
-            if ( tmsValue == 0 )
-            {
-              ;
-            }
-            else
-            {
-              this.currentState = EXIT1_DR;
-            }
-          }
-          else if ( this.currentState == EXIT1_DR )
-          { // state 5: Exit1 DR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = PAUSE_DR;
-            }
-            else
-            {
-              this.currentState = UPDATE_DR;
-            }
-          }
-          else if ( this.currentState == PAUSE_DR )
-          { // state 6: Pause DR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = PAUSE_DR;
-            }
-            else
-            {
-              this.currentState = EXIT2_DR;
-            }
-          }
-          else if ( this.currentState == EXIT2_DR )
-          { // state 7: Exit2 DR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = SHIFT_DR;
-            }
-            else
-            {
-              this.currentState = UPDATE_DR;
-            }
-          }
-          else if ( this.currentState == UPDATE_DR )
-          { // state 8: Update DR
-            state = this.currentState.getDisplayText();
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdiIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], TdiData ) );
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdoIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], TdoData ) );
-
-            if ( tmsValue == 0 )
-            {
-              this.currentState = RUN_TEST_IDLE;
-            }
-            else
-            {
-              this.currentState = SELECT_DR;
-            }
-          }
-          else if ( this.currentState == SELECT_IR )
-          { // state 9: Select IR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = CAPTURE_IR;
-            }
-            else
-            {
-              this.currentState = TEST_LOGIC_RESET;
-            }
-          }
-          else if ( this.currentState == CAPTURE_IR )
-          { // state 10: Capture IR
-            state = this.currentState.getDisplayText();
-            TdiData = "";
-            TdoData = "";
-            if ( tmsValue == 0 )
-            {
-              this.currentState = SHIFT_IR;
-            }
-            else
-            {
-              this.currentState = EXIT1_IR;
-            }
-          }
-          else if ( this.currentState == SHIFT_IR )
-          { // state 11: Shift IR
-            state = this.currentState.getDisplayText();
-
-            if ( TdiData == "" )
-            {
-              startTdiDataIdx = idx;
-            }
-            endTdiDataIdx = idx;
-
-            if ( tdiValue == 0 )
-            {
-              TdiData = "0" + TdiData;
-            }
-            else
-            {
-              TdiData = "1" + TdiData;
-            }
-
-            if ( tdoValue == 0 )
-            {
-              TdoData = "0" + TdoData;
-            }
-            else
-            {
-              TdoData = "1" + TdoData;
-            }
-
-            if ( tmsValue == 0 )
-            {
-              ;
-            }
-            else
-            {
-              this.currentState = EXIT1_IR;
-            }
-          }
-          else if ( this.currentState == EXIT1_IR )
-          { // state 12: Exit1 IR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = PAUSE_IR;
-            }
-            else
-            {
-              this.currentState = UPDATE_IR;
-            }
-          }
-          else if ( this.currentState == PAUSE_IR )
-          { // state 13: Pause IR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = PAUSE_IR;
-            }
-            else
-            {
-              this.currentState = EXIT2_IR;
-            }
-          }
-          else if ( this.currentState == EXIT2_IR )
-          { // state 14: Exit2 IR
-            state = this.currentState.getDisplayText();
-            if ( tmsValue == 0 )
-            {
-              this.currentState = SHIFT_IR;
-            }
-            else
-            {
-              this.currentState = UPDATE_IR;
-            }
-          }
-          else if ( this.currentState == UPDATE_IR )
-          { // state 15: Update IR
-            state = this.currentState.getDisplayText();
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdiIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], TdiData ) );
-            // aDataSet.reportJTAGState( this.tdiIdx, startTdiDataIdx,
-            // endTdiDataIdx, TdiData );
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tdoIdx, timestamps[startTdiDataIdx],
-                timestamps[endTdiDataIdx], TdoData ) );
-            // aDataSet.reportJTAGState( this.tdoIdx, startTdiDataIdx,
-            // endTdiDataIdx, TdoData );
-
-            if ( tmsValue == 0 )
-            {
-              this.currentState = RUN_TEST_IDLE;
-            }
-            else
-            {
-              this.currentState = SELECT_DR;
-            }
-          }
-          else
-          {
-            state = "ERROR";
-          }
-
-          if ( this.oldState != this.currentState )
-          {
-            // LOG.log( Level.INFO, "state transition: " + oldJTAGState + " to "
-            // + JTAGState + " (" + StartIdx + "," + idx + ")");
-
-            this.annotationListener.onAnnotation( new SampleDataAnnotation( this.tmsIdx, timestamps[this.startIdx],
-                timestamps[idx], state ) );
-
-            aDataSet.reportJTAGState( this.tmsIdx, this.startIdx, idx, this.oldState );
-
-            this.startIdx = idx + 1;
-            this.oldState = this.currentState;
-          }
-
-          this.progressListener.setProgress( ( int )( ( ( idx - startOfDecode ) * 100.0 ) / length ) );
-        }
-      }
-    }
+    // Only the edges of TCK are of interest to us; all other lines are sampled
+    // on these edges...
+    final EdgeEventStream edgeStream = new EdgeEventStream( data );
+    edgeStream.subscribe( 1 << this.tckIdx, new JTAGDecoder( aDataSet ) );
+    edgeStream.setProgressListener( this.progressListener );
+    edgeStream.run( startOfDecode, endOfDecode );
   }
 
   /**
@@ -0,0 +1,181 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import java.util.*;
+
+
+/**
+ * Accumulates the bits shifted in or out during a JTAG scan.
+ * <p>
+ * Bits are stored in a growable array of longs, so appending a bit takes
+ * amortized constant time, regardless of the length of the scan chain. Only
+ * when the bits are actually displayed, they are rendered as (hexadecimal)
+ * text.
+ * </p>
+ */
+final class JTAGBitVector
+{
+  // CONSTANTS
+
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+  // VARIABLES
+
+  private long[] words;
+  private int length;
+  private String text;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, JTAGBitVector instance.
+   */
+  JTAGBitVector()
+  {
+    this.words = new long[4];
+    this.length = 0;
+  }
+
+  /**
+   * Creates a new JTAGBitVector instance with the given bits.
+   */
+  private JTAGBitVector( final long[] aWords, final int aLength )
+  {
+    this.words = aWords;
+    this.length = aLength;
+  }
+
+  // METHODS
+
+  /**
+   * Appends a single bit to this vector.
+   * 
+   * @param aBit
+   *          the bit to append.
+   */
+  public void add( final boolean aBit )
+  {
+    final int wordIdx = this.length >>> 6;
+    if ( wordIdx == this.words.length )
+    {
+      this.words = Arrays.copyOf( this.words, wordIdx * 2 );
+    }
+    if ( aBit )
+    {
+      this.words[wordIdx] |= ( 1L << ( this.length & 63 ) );
+    }
+    this.length++;
+    this.text = null;
+  }
+
+  /**
+   * Removes all bits from this vector.
+   */
+  public void clear()
+  {
+    Arrays.fill( this.words, 0, ( this.length + 63 ) >>> 6, 0L );
+    this.length = 0;
+    this.text = null;
+  }
+
+  /**
+   * Creates a copy of the current bits of this vector, which is not affected
+   * by later changes to this vector.
+   * 
+   * @return a copy of this vector, never <code>null</code>.
+   */
+  public JTAGBitVector copy()
+  {
+    return new JTAGBitVector( Arrays.copyOf( this.words, ( this.length + 63 ) >>> 6 ), this.length );
+  }
+
+  /**
+   * Returns the bit at the given position.
+   * 
+   * @param aIndex
+   *          the index of the bit, &gt;= 0 &amp;&amp; &lt; {@link #length()}.
+   * @return the bit value.
+   */
+  public boolean get( final int aIndex )
+  {
+    return ( this.words[aIndex >>> 6] & ( 1L << ( aIndex & 63 ) ) ) != 0L;
+  }
+
+  /**
+   * Returns whether this vector contains any bits.
+   * 
+   * @return <code>true</code> if this vector is empty, <code>false</code>
+   *         otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.length == 0;
+  }
+
+  /**
+   * Returns the number of bits in this vector.
+   * 
+   * @return a bit count, &gt;= 0.
+   */
+  public int length()
+  {
+    return this.length;
+  }
+
+  /**
+   * Renders the bits of this vector as hexadecimal string, with the first
+   * appended bit as least significant bit. The rendered string is kept until
+   * this vector is changed.
+   * 
+   * @return a hexadecimal string, prefixed with "0x", or an empty string if
+   *         this vector is empty.
+   */
+  @Override
+  public String toString()
+  {
+    if ( this.text == null )
+    {
+      if ( this.length == 0 )
+      {
+        this.text = "";
+      }
+      else
+      {
+        final int digits = ( this.length + 3 ) >>> 2;
+
+        final char[] result = new char[digits + 2];
+        result[0] = '0';
+        result[1] = 'x';
+        for ( int i = 0; i < digits; i++ )
+        {
+          // A nibble never straddles two words...
+          final int bitIdx = i << 2;
+          final int nibble = ( int )( this.words[bitIdx >>> 6] >>> ( bitIdx & 63 ) ) & 0x0F;
+          result[digits + 1 - i] = HEX_DIGITS[nibble];
+        }
+        this.text = new String( result );
+      }
+    }
+    return this.text;
+  }
+}
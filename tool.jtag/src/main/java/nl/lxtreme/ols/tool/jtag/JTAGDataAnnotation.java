@@ -0,0 +1,139 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import nl.lxtreme.ols.api.data.annotation.*;
+
+
+/**
+ * Provides an annotation for the bits shifted in or out during a single JTAG
+ * scan. The bits are kept as is, and are only rendered as text when the
+ * annotation is displayed.
+ */
+final class JTAGDataAnnotation implements DataAnnotation<JTAGBitVector>
+{
+  // VARIABLES
+
+  private final int channelIdx;
+  private final long startTimestamp;
+  private final long endTimestamp;
+  private final JTAGBitVector bits;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new JTAGDataAnnotation instance.
+   * 
+   * @param aChannelIdx
+   *          the index of the channel to annotate;
+   * @param aStartTimestamp
+   *          the timestamp of the first shifted bit;
+   * @param aEndTimestamp
+   *          the timestamp of the last shifted bit;
+   * @param aBits
+   *          the shifted bits, cannot be <code>null</code>. This vector should
+   *          not be changed afterwards.
+   */
+  public JTAGDataAnnotation( final int aChannelIdx, final long aStartTimestamp, final long aEndTimestamp,
+      final JTAGBitVector aBits )
+  {
+    this.channelIdx = aChannelIdx;
+    this.startTimestamp = aStartTimestamp;
+    this.endTimestamp = aEndTimestamp;
+    this.bits = aBits;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int compareTo( final Annotation<JTAGBitVector> aOther )
+  {
+    int result = ( this.channelIdx - aOther.getChannel() );
+    if ( ( result == 0 ) && ( aOther instanceof DataAnnotation ) )
+    {
+      final DataAnnotation<?> other = ( DataAnnotation<?> )aOther;
+
+      result = compare( this.startTimestamp, other.getStartTimestamp() );
+      if ( result == 0 )
+      {
+        result = compare( this.endTimestamp, other.getEndTimestamp() );
+      }
+    }
+    if ( result == 0 )
+    {
+      result = this.bits.length() - aOther.getAnnotation().length();
+    }
+    return result;
+  }
+
+  /**
+   * Returns the shifted bits; their {@link JTAGBitVector#toString()} renders
+   * them as hexadecimal text.
+   * 
+   * @return the shifted bits, never <code>null</code>.
+   */
+  @Override
+  public JTAGBitVector getAnnotation()
+  {
+    return this.bits;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getChannel()
+  {
+    return this.channelIdx;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getEndTimestamp()
+  {
+    return this.endTimestamp;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getStartTimestamp()
+  {
+    return this.startTimestamp;
+  }
+
+  /**
+   * Compares two timestamps.
+   */
+  private static int compare( final long aValue1, final long aValue2 )
+  {
+    return ( aValue1 < aValue2 ) ? -1 : ( ( aValue1 == aValue2 ) ? 0 : 1 );
+  }
+}
+
+/* EOF */
@@ -43,6 +43,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 
@@ -465,7 +467,7 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
   {
     LOG.log( Level.INFO, "toHtmlPage" );
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -477,45 +479,44 @@ public final class JTAGProtocolAnalysisDialog extends BaseToolDialog<JTAGDataSet
           final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
           return df.format( new Date() );
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
         {
-          LOG.log( Level.INFO, "toHtmlPage decoded-data" );
+          return false;
+        }
 
-          final List<JTAGData> dataSet = aAnalysisResult.getData();
-          Element tr;
+        LOG.log( Level.INFO, "toHtmlPage decoded-data" );
 
-          for ( int i = 0; i < dataSet.size(); i++ )
+        final List<JTAGData> dataSet = aAnalysisResult.getData();
+        for ( int i = 0; i < dataSet.size(); i++ )
+        {
+          final JTAGData data = dataSet.get( i );
+          final String time = UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) );
+
+          if ( data.isEvent() )
           {
-            final JTAGData data = dataSet.get( i );
-
-            if ( data.isEvent() )
-            {
-              // this is an event
-              final String event = data.getEventName();
-
-              String bgColor = "#e0e0e0";
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-            }
-            else
-            {
-              final JTAGState value = data.getDataValue();
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aAnalysisResult.getTime( data.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( value.getDisplayText() );
-            }
+            // this is an event
+            final String event = data.getEventName();
+
+            String bgColor = "#e0e0e0";
+
+            aWriter.addRow( "background-color: " + bgColor + ";", String.valueOf( i ), time, event, null, null, null );
+          }
+          else
+          {
+            final JTAGState value = data.getDataValue();
+
+            aWriter.addRow( null, String.valueOf( i ), time, value.getDisplayText() );
           }
         }
 
-        return null;
+        return true;
       }
     };
 
@@ -43,6 +43,29 @@ public enum JTAGState
   EXIT2_IR( "Exit 2 IR" ), // State 14
   UPDATE_IR( "Update IR" ); // State 15
 
+  /**
+   * The TAP-state transition table, indexed by the ordinal of the current
+   * state and the value of TMS (0 or 1).
+   */
+  private static final JTAGState[][] TRANSITIONS = { //
+      { RUN_TEST_IDLE, TEST_LOGIC_RESET }, // Test logic reset
+      { RUN_TEST_IDLE, SELECT_DR }, // Run test idle
+      { CAPTURE_DR, SELECT_IR }, // Select DR scan
+      { SHIFT_DR, EXIT1_DR }, // Capture DR
+      { SHIFT_DR, EXIT1_DR }, // Shift DR
+      { PAUSE_DR, UPDATE_DR }, // Exit 1 DR
+      { PAUSE_DR, EXIT2_DR }, // Pause DR
+      { SHIFT_DR, UPDATE_DR }, // Exit 2 DR
+      { RUN_TEST_IDLE, SELECT_DR }, // Update DR
+      { CAPTURE_IR, TEST_LOGIC_RESET }, // Select IR scan
+      { SHIFT_IR, EXIT1_IR }, // Capture IR
+      { SHIFT_IR, EXIT1_IR }, // Shift IR
+      { PAUSE_IR, UPDATE_IR }, // Exit 1 IR
+      { PAUSE_IR, EXIT2_IR }, // Pause IR
+      { SHIFT_IR, UPDATE_IR }, // Exit 2 IR
+      { RUN_TEST_IDLE, SELECT_DR }, // Update IR
+  };
+
   private final String displayText;
 
   /**
@@ -65,4 +88,16 @@ public enum JTAGState
   {
     return this.displayText;
   }
+
+  /**
+   * Returns the state the TAP-controller moves to on a rising edge of TCK.
+   * 
+   * @param aTms
+   *          the value of TMS on the rising edge of TCK.
+   * @return the next state, never <code>null</code>.
+   */
+  public JTAGState getNextState( final boolean aTms )
+  {
+    return TRANSITIONS[ordinal()][aTms ? 1 : 0];
+  }
 }
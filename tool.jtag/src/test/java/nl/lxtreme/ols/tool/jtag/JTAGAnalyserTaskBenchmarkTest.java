@@ -0,0 +1,210 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+
+import org.junit.*;
+import org.mockito.*;
+
+
+/**
+ * Feeds a synthetic JTAG trace with a multi-megabit DR scan to the JTAG
+ * analyser, which should decode it in linear time.
+ */
+public class JTAGAnalyserTaskBenchmarkTest
+{
+  // CONSTANTS
+
+  private static final int TCK = 0;
+  private static final int TMS = 1;
+  private static final int TDI = 2;
+  private static final int TDO = 3;
+
+  /** The number of bits shifted in the DR scan. */
+  private static final int SCAN_LENGTH = 1 << 21;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+
+  // METHODS
+
+  /**
+   * Tests that a DR scan of {@value #SCAN_LENGTH} bits is decoded correctly
+   * and in time.
+   */
+  @Test( timeout = 60000 )
+  public void testDecodeLongScanChainOk() throws Exception
+  {
+    final CapturedData data = createLongScanTrace();
+
+    final String[] lastData = new String[4];
+    final AnnotationListener annotationListener = new AnnotationListener()
+    {
+      @Override
+      public void clearAnnotations()
+      {
+        // Nop
+      }
+
+      @Override
+      public void clearAnnotations( final int aChannelIdx )
+      {
+        // Nop
+      }
+
+      @Override
+      public void onAnnotation( final Annotation<?> aAnnotation )
+      {
+        if ( aAnnotation instanceof JTAGDataAnnotation )
+        {
+          lastData[aAnnotation.getChannel()] = String.valueOf( aAnnotation.getAnnotation() );
+        }
+      }
+    };
+
+    final ToolContext toolContext = DataTestUtils.createToolContext( data );
+
+    final JTAGAnalyserTask worker = new JTAGAnalyserTask( toolContext, Mockito.mock( ToolProgressListener.class ),
+        annotationListener );
+    worker.setTckIndex( TCK );
+    worker.setTmsIndex( TMS );
+    worker.setTdiIndex( TDI );
+    worker.setTdoIndex( TDO );
+
+    // The time bound of this test is given by its timeout...
+    final JTAGDataSet result = worker.call();
+
+    assertNotNull( result );
+    assertShiftDrState( result );
+
+    assertScanData( lastData[TDI], 3 );
+    assertScanData( lastData[TDO], 5 );
+  }
+
+  /**
+   * Asserts that the given data set passes through Capture-DR, a single
+   * Shift-DR covering all shifted bits, Exit1-DR and Update-DR.
+   */
+  private void assertShiftDrState( final JTAGDataSet aDataSet )
+  {
+    final List<JTAGState> states = new ArrayList<JTAGState>();
+    JTAGData shiftDr = null;
+    for ( JTAGData data : aDataSet.getData() )
+    {
+      states.add( data.getDataValue() );
+      if ( data.getDataValue() == JTAGState.SHIFT_DR )
+      {
+        assertNull( "Multiple Shift-DR states decoded!", shiftDr );
+        shiftDr = data;
+      }
+    }
+
+    final List<JTAGState> expected = Arrays.asList( JTAGState.CAPTURE_DR, JTAGState.SHIFT_DR, JTAGState.EXIT1_DR,
+        JTAGState.UPDATE_DR );
+    assertTrue( "Unexpected states: " + states, Collections.indexOfSubList( states, expected ) >= 0 );
+
+    assertNotNull( shiftDr );
+    assertTrue( ( shiftDr.getEndSampleIndex() - shiftDr.getStartSampleIndex() ) >= ( 2 * ( SCAN_LENGTH - 1 ) ) );
+  }
+
+  /**
+   * Asserts that the given (hexadecimal) scan data contains all shifted bits,
+   * with the first shifted bit being the least significant bit.
+   */
+  private void assertScanData( final String aScanData, final int aModulo )
+  {
+    assertNotNull( aScanData );
+    assertTrue( aScanData.startsWith( "0x" ) );
+
+    final int digits = SCAN_LENGTH / 4;
+    assertEquals( digits + 2, aScanData.length() );
+
+    for ( int i = 0; i < SCAN_LENGTH; i++ )
+    {
+      final int nibble = Character.digit( aScanData.charAt( digits + 1 - ( i / 4 ) ), 16 );
+      final boolean expected = ( ( i % aModulo ) == 0 );
+      if ( ( ( nibble & ( 1 << ( i % 4 ) ) ) != 0 ) != expected )
+      {
+        fail( "Bit " + i + " not decoded correctly!" );
+      }
+    }
+  }
+
+  /**
+   * Adds a single TCK cycle, sampling the given TMS, TDI and TDO values on its
+   * rising edge.
+   */
+  private void clock( final boolean aTms, final boolean aTdi, final boolean aTdo )
+  {
+    final int value = ( aTms ? ( 1 << TMS ) : 0 ) | ( aTdi ? ( 1 << TDI ) : 0 ) | ( aTdo ? ( 1 << TDO ) : 0 );
+
+    this.values[this.size] = value;
+    this.timestamps[this.size] = this.size;
+    this.size++;
+
+    this.values[this.size] = value | ( 1 << TCK );
+    this.timestamps[this.size] = this.size;
+    this.size++;
+  }
+
+  /**
+   * Creates a trace that moves the TAP-controller to Shift-DR, shifts
+   * {@value #SCAN_LENGTH} bits, and moves it back to Run-Test/Idle.
+   */
+  private CapturedData createLongScanTrace()
+  {
+    final int cycles = SCAN_LENGTH + 16;
+    this.values = new int[2 * cycles];
+    this.timestamps = new long[2 * cycles];
+    this.size = 0;
+
+    // Test-Logic-Reset -> Run-Test/Idle -> Select-DR -> Capture-DR...
+    clock( false, false, false );
+    clock( true, false, false );
+    clock( false, false, false );
+    // Capture-DR -> Shift-DR...
+    clock( false, false, false );
+    // Shift all bits, leaving Shift-DR on the last one...
+    for ( int i = 0; i < SCAN_LENGTH; i++ )
+    {
+      clock( i == SCAN_LENGTH - 1, ( i % 3 ) == 0, ( i % 5 ) == 0 );
+    }
+    // Exit1-DR -> Update-DR -> Run-Test/Idle...
+    clock( true, false, false );
+    clock( false, false, false );
+    clock( false, false, false );
+
+    return new CapturedData( Arrays.copyOf( this.values, this.size ), Arrays.copyOf( this.timestamps, this.size ),
+        -1L, 1000000, 8, 0xFF, this.size );
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.jtag;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link JTAGBitVector}.
+ */
+public class JTAGBitVectorTest
+{
+  // METHODS
+
+  /**
+   * Tests that a copy is not affected by later changes to its original.
+   */
+  @Test
+  public void testCopyIsIndependentOk()
+  {
+    final JTAGBitVector bits = createVector( true, true, false, true );
+    final JTAGBitVector copy = bits.copy();
+
+    bits.clear();
+    bits.add( false );
+
+    assertEquals( 4, copy.length() );
+    assertEquals( "0xB", copy.toString() );
+    assertEquals( "0x0", bits.toString() );
+  }
+
+  /**
+   * Tests that the bits are rendered as hexadecimal text, with the first
+   * appended bit as least significant bit.
+   */
+  @Test
+  public void testToStringOk()
+  {
+    assertEquals( "", new JTAGBitVector().toString() );
+    assertEquals( "0x1", createVector( true ).toString() );
+    assertEquals( "0x0D", createVector( true, false, true, true, false ).toString() );
+
+    final JTAGBitVector bits = new JTAGBitVector();
+    for ( int i = 0; i < 68; i++ )
+    {
+      bits.add( ( i == 0 ) || ( i == 67 ) );
+    }
+    assertEquals( "0x80000000000000001", bits.toString() );
+
+    // Appending a bit renders the text again...
+    bits.add( true );
+    assertEquals( "0x180000000000000001", bits.toString() );
+  }
+
+  /**
+   * Creates a vector with the given bits, in order of appending.
+   */
+  private static JTAGBitVector createVector( final boolean... aBits )
+  {
+    final JTAGBitVector result = new JTAGBitVector();
+    for ( boolean bit : aBits )
+    {
+      result.add( bit );
+    }
+    return result;
+  }
+}
@@ -139,6 +139,24 @@ public class LineDecoderToolContextImpl implements LineDecoderToolContext
     return this.toolContext.getStartSampleIndex();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AcquisitionResultView getWindowedData()
+  {
+    return this.toolContext.getWindowedData();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public AcquisitionResultView getWindowedData( final int aChannelMask )
+  {
+    return this.toolContext.getWindowedData( aChannelMask );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -172,6 +172,22 @@ class AnsiInterpreter
     this.buffer.append( aBuffer );
   }
 
+  /**
+   * Appends the given range of characters to this interpreter for
+   * interpretation.
+   * 
+   * @param aChars
+   *          the characters to add, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset in the given array to start adding from;
+   * @param aLength
+   *          the number of characters to add.
+   */
+  public void append( final char[] aChars, final int aOffset, final int aLength )
+  {
+    this.buffer.append( aChars, aOffset, aLength );
+  }
+
   /**
    * Interprets the current buffer, and calls the corresponding callback methods
    * on the given callback for each found ANSI sequence.
@@ -46,7 +46,7 @@ final class CharBuffer implements CharSequence
   {
     // VARIABLES
 
-    final Integer[] chars;
+    final char[] chars;
     final int appendPos;
 
     // CONSTRUCTORS
@@ -54,7 +54,7 @@ final class CharBuffer implements CharSequence
     /**
      * Creates a new {@link CharBufferState} instance.
      */
-    public CharBufferState( final Integer[] aChars, final int aAppendPos )
+    public CharBufferState( final char[] aChars, final int aAppendPos )
     {
       this.chars = aChars;
       this.appendPos = aAppendPos;
@@ -72,7 +72,7 @@ final class CharBuffer implements CharSequence
    */
   public CharBuffer()
   {
-    this.stateRef = new AtomicReference<CharBufferState>( new CharBufferState( new Integer[10], 0 ) );
+    this.stateRef = new AtomicReference<CharBufferState>( new CharBufferState( new char[0], 0 ) );
   }
 
   /**
@@ -90,14 +90,30 @@ final class CharBuffer implements CharSequence
       throw new IllegalArgumentException( "InitialValue cannot be null!" );
     }
 
-    Integer[] initialValue = Arrays.copyOf( aInitialValue, aInitialValue.length + 10 );
-    int appendPos = aInitialValue.length;
-
-    this.stateRef = new AtomicReference<CharBufferState>( new CharBufferState( initialValue, appendPos ) );
+    this.stateRef = new AtomicReference<CharBufferState>( new CharBufferState( toChars( Arrays
+        .asList( aInitialValue ) ), aInitialValue.length ) );
   }
 
   // METHODS
 
+  /**
+   * Converts a given list of characters to a character array.
+   * 
+   * @param aChars
+   *          the list of characters to convert, cannot be <code>null</code>.
+   * @return a new character array, never <code>null</code>.
+   */
+  private static char[] toChars( final List<Integer> aChars )
+  {
+    final char[] result = new char[aChars.size()];
+    for ( int i = 0; i < result.length; i++ )
+    {
+      final Integer value = aChars.get( i );
+      result[i] = ( char )( ( value == null ) ? 0 : value.intValue() );
+    }
+    return result;
+  }
+
   /**
    * Appends a given list of characters to this buffer.
    * 
@@ -113,30 +129,50 @@ final class CharBuffer implements CharSequence
       throw new IllegalArgumentException( "Chars cannot be null!" );
     }
 
+    final char[] chars = toChars( aChars );
+    append( chars, 0, chars.length );
+  }
+
+  /**
+   * Appends a given range of characters to this buffer.
+   * 
+   * @param aChars
+   *          the array with characters to add, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset in the given array to start adding characters from;
+   * @param aLength
+   *          the number of characters to add.
+   * @throws IllegalArgumentException
+   *           in case the given array was <code>null</code>.
+   */
+  public void append( final char[] aChars, final int aOffset, final int aLength )
+  {
+    if ( aChars == null )
+    {
+      throw new IllegalArgumentException( "Chars cannot be null!" );
+    }
+    if ( aLength <= 0 )
+    {
+      return;
+    }
+
     // Two options for concurrency while we're appending:
     // 1) another thread removed data -> append still is valid;
     // 2) another thread also appended new data -> append is still valid.
+    // As each append creates a new array, a failed CAS does never leave
+    // partial data behind...
 
     CharBufferState curState, newState;
 
     do
     {
       curState = this.stateRef.get();
-      Integer[] curArray = curState.chars;
       int curAppendPos = curState.appendPos;
 
-      if ( ( curAppendPos + aChars.size() ) >= curArray.length )
-      {
-        // Enlarge array...
-        curArray = Arrays.copyOf( curArray, curArray.length + aChars.size() + 10 );
-      }
-
-      for ( int i = 0; i < aChars.size(); i++ )
-      {
-        curArray[curAppendPos++] = aChars.get( i );
-      }
+      char[] newArray = Arrays.copyOf( curState.chars, curAppendPos + aLength );
+      System.arraycopy( aChars, aOffset, newArray, curAppendPos, aLength );
 
-      newState = new CharBufferState( curArray, curAppendPos );
+      newState = new CharBufferState( newArray, curAppendPos + aLength );
     }
     while ( !this.stateRef.compareAndSet( curState, newState ) );
   }
@@ -148,7 +184,6 @@ final class CharBuffer implements CharSequence
   public char charAt( final int aIndex )
   {
     CharBufferState state = this.stateRef.get();
-    Integer[] chars = state.chars;
     int appendPos = state.appendPos;
 
     if ( ( aIndex < 0 ) || ( aIndex >= appendPos ) )
@@ -156,8 +191,7 @@ final class CharBuffer implements CharSequence
       throw new IndexOutOfBoundsException();
     }
 
-    final Integer integer = chars[aIndex];
-    return ( char )( ( integer == null ) ? 0 : integer.intValue() );
+    return state.chars[aIndex];
   }
 
   /**
@@ -195,7 +229,7 @@ final class CharBuffer implements CharSequence
 
       int position = aPosition;
       int curAppendPos = curState.appendPos;
-      Integer[] curArray = curState.chars;
+      char[] curArray = curState.chars;
 
       if ( oldAppendPos >= 0 )
       {
@@ -231,9 +265,9 @@ final class CharBuffer implements CharSequence
       }
 
       // Perform the actual removal...
-      int newSize = Math.max( 0, curArray.length - position );
-      Integer[] newArray = new Integer[newSize];
-      System.arraycopy( curArray, position, newArray, 0, newSize );
+      int newSize = Math.max( 0, curAppendPos - position );
+      char[] newArray = new char[newSize];
+      System.arraycopy( curArray, Math.min( position, curAppendPos ), newArray, 0, newSize );
 
       int newAppendPos = Math.max( 0, curAppendPos - position );
 
@@ -260,6 +294,6 @@ final class CharBuffer implements CharSequence
   public String toString()
   {
     CharBufferState state = this.stateRef.get();
-    return Arrays.toString( state.chars ) + " (" + state.appendPos + ")";
+    return Arrays.toString( Arrays.copyOf( state.chars, state.appendPos ) ) + " (" + state.appendPos + ")";
   }
 }
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.tool.serialdebug;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.util.*;
 import java.util.List;
 import java.util.concurrent.*;
 
@@ -253,14 +254,23 @@ public class ConsolePane extends JTextPane
   /**
    * Serial reader that asynchronously reads data from an inputstream and
    * displays it on a text area.
+   * <p>
+   * Data is read in blocks into a reusable buffer, and converted to chunks of
+   * characters in the background. These chunks are published to the EDT at
+   * most once per frame, or when no more data is directly available, causing
+   * the document/terminal to be updated in batches instead of per character.
+   * </p>
    */
-  final class InputStreamWorker extends SwingWorker<Void, Integer>
+  final class InputStreamWorker extends SwingWorker<Void, char[]>
   {
     // VARIABLES
 
     private final InputStream inputStream;
     private final VT100TerminalImpl terminal;
     private final CharBuffer buffer;
+    private final byte[] readBuffer;
+
+    private StyledDocument terminalDocument;
 
     // CONSTRUCTORS
 
@@ -272,6 +282,7 @@ public class ConsolePane extends JTextPane
       this.inputStream = aInputStream;
       this.terminal = new VT100TerminalImpl( 80, 25 );
       this.buffer = new CharBuffer();
+      this.readBuffer = new byte[READ_BUFFER_SIZE];
     }
 
     // METHODS
@@ -279,19 +290,43 @@ public class ConsolePane extends JTextPane
     @Override
     protected Void doInBackground() throws Exception
     {
+      char[] pending = new char[READ_BUFFER_SIZE];
+      int pendingLength = 0;
+      long lastPublished = System.nanoTime();
+
       while ( !isCancelled() && !Thread.currentThread().isInterrupted() )
       {
-        int i = this.inputStream.read();
-        if ( i >= 0 )
+        int count = this.inputStream.read( this.readBuffer );
+        if ( count <= 0 )
+        {
+          continue;
+        }
+
+        if ( ( pendingLength + count ) > pending.length )
+        {
+          pending = Arrays.copyOf( pending, Math.max( pending.length * 2, pendingLength + count ) );
+        }
+        // Each byte is represented as a single (ASCII) character...
+        for ( int i = 0; i < count; i++ )
+        {
+          pending[pendingLength++] = ( char )( this.readBuffer[i] & 0xFF );
+        }
+
+        final long now = System.nanoTime();
+        if ( ( this.inputStream.available() <= 0 ) || ( pendingLength >= MAX_PENDING_CHARS )
+            || ( ( now - lastPublished ) >= FRAME_INTERVAL ) )
         {
-          publish( Integer.valueOf( i ) );
+          publish( Arrays.copyOf( pending, pendingLength ) );
+
+          pendingLength = 0;
+          lastPublished = now;
         }
       }
       return null;
     }
 
     @Override
-    protected void process( final List<Integer> aReadChars )
+    protected void process( final List<char[]> aReadChunks )
     {
       if ( !ConsolePane.this.mux.isWriteMode() )
       {
@@ -301,7 +336,10 @@ public class ConsolePane extends JTextPane
 
       try
       {
-        this.buffer.append( aReadChars );
+        for ( char[] chunk : aReadChunks )
+        {
+          this.buffer.append( chunk, 0, chunk.length );
+        }
 
         int consumedUntil;
         if ( isRawMode() )
@@ -344,36 +382,56 @@ public class ConsolePane extends JTextPane
      * Converts the given (byte, ASCII) value into a text representation.
      * 
      * @param aValue
-     *          the value to convert, cannot be <code>null</code>.
+     *          the value to convert.
      * @return a text representation of the given (ASCII) value.
      */
-    private String convertToText( final Integer aValue )
+    private String convertToText( final int aValue )
     {
       String text;
 
-      int value = aValue.intValue();
-      if ( ( value >= 0 ) && ( value < ASCII_NAMES.length ) )
+      if ( ( aValue >= 0 ) && ( aValue < ASCII_NAMES.length ) )
       {
-        text = ASCII_NAMES[value];
+        text = ASCII_NAMES[aValue];
       }
       else
       {
-        text = String.format( "<%02d>", aValue );
+        text = String.format( "<%02d>", Integer.valueOf( aValue ) );
       }
       return text;
     }
 
     /**
-     * @param aDoc
-     * @param aChar
+     * Appends the given pending text to the end of the given document, and
+     * clears the pending text afterwards.
+     */
+    private void flushText( final Document aDocument, final StringBuilder aText, final AttributeSet aAttributes )
+    {
+      if ( aText.length() > 0 )
+      {
+        appendText( aDocument, aDocument.getLength(), aText.toString(), aAttributes );
+        aText.setLength( 0 );
+      }
+    }
+
+    /**
+     * Writes all buffered characters to the terminal, and updates the shown
+     * document with only the changed lines of the terminal.
+     * 
+     * @return the number of consumed characters.
      */
     private int handleAnsiText()
     {
       int result = this.terminal.writeText( this.buffer );
 
-      // XXX
-      StyledDocument newDoc = this.terminal.getAsDocument();
-      setDocument( newDoc );
+      StyledDocument newDoc = this.terminalDocument;
+      if ( ( newDoc == null ) || ( getDocument() != newDoc ) || !this.terminal.updateDocument( newDoc ) )
+      {
+        // Document is replaced or modified by someone else; rebuild it...
+        newDoc = this.terminal.getAsDocument();
+        setDocument( newDoc );
+
+        this.terminalDocument = newDoc;
+      }
 
       Integer cursorPos = ( ( Integer )newDoc.getProperty( "cursor" ) );
       if ( cursorPos != null )
@@ -389,29 +447,34 @@ public class ConsolePane extends JTextPane
     }
 
     /**
-     * @param aDoc
-     * @param aChar
+     * Appends all buffered characters to the current document, coalescing
+     * consecutive characters with the same attributes into a single insert.
+     * 
+     * @return the number of consumed characters.
      */
     private int handleRawText()
     {
       final Document doc = getDocument();
+      final AttributeSet plainAttrs = getPlainTextAttributes();
+      final AttributeSet escapeAttrs = getEscapeAttributes();
+
+      final StringBuilder pending = new StringBuilder();
+      AttributeSet pendingAttrs = plainAttrs;
+
       int length = this.buffer.length();
       for ( int i = 0; i < length; i++ )
       {
         int charValue = this.buffer.charAt( i );
-        String c = convertToText( charValue );
-
-        AttributeSet attrs = getPlainTextAttributes();
-        if ( c.startsWith( "<" ) && c.endsWith( ">" ) )
-        {
-          attrs = getEscapeAttributes();
-        }
-
-        int offset = doc.getLength();
 
         if ( charValue == '\b' )
         {
-          removeText( doc, offset - 1, 1 );
+          flushText( doc, pending, pendingAttrs );
+
+          int offset = doc.getLength();
+          if ( offset > 0 )
+          {
+            removeText( doc, offset - 1, 1 );
+          }
         }
         else if ( charValue == '\u0007' )
         {
@@ -419,9 +482,25 @@ public class ConsolePane extends JTextPane
         }
         else
         {
-          appendText( doc, offset, c, attrs );
+          String c = convertToText( charValue );
+
+          AttributeSet attrs = plainAttrs;
+          if ( c.startsWith( "<" ) && c.endsWith( ">" ) )
+          {
+            attrs = escapeAttrs;
+          }
+
+          if ( attrs != pendingAttrs )
+          {
+            flushText( doc, pending, pendingAttrs );
+            pendingAttrs = attrs;
+          }
+          pending.append( c );
         }
       }
+
+      flushText( doc, pending, pendingAttrs );
+
       return length;
     }
 
@@ -544,6 +623,13 @@ public class ConsolePane extends JTextPane
 
   private static final long serialVersionUID = 1L;
 
+  /** The size of the buffer used to read from the input stream. */
+  private static final int READ_BUFFER_SIZE = 4096;
+  /** The maximum number of characters read before they are published. */
+  private static final int MAX_PENDING_CHARS = 64 * 1024;
+  /** The minimal interval (in ns) in which read characters are published. */
+  private static final long FRAME_INTERVAL = TimeUnit.MILLISECONDS.toNanos( 40L );
+
   /** Contains an integer value representing the start of input. */
   private static final String PROPERTY_INPUTSTART = "InputStart";
 
@@ -140,6 +140,19 @@ public interface ITerminal
    */
   void scrollUp( int aLines );
 
+  /**
+   * Updates the given document, as returned by {@link #getAsDocument()}, with
+   * only those lines of this terminal that are changed since the last call to
+   * this method or {@link #getAsDocument()}.
+   * 
+   * @param aDocument
+   *          the document to update, cannot be <code>null</code>.
+   * @return <code>true</code> if the document is updated, <code>false</code>
+   *         if the document no longer represents this terminal, in which case
+   *         {@link #getAsDocument()} should be used instead.
+   */
+  boolean updateDocument( StyledDocument aDocument );
+
   /**
    * Displays the given character as literal text on the current cursor
    * position.
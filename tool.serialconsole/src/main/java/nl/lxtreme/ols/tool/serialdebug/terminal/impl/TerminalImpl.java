@@ -23,6 +23,7 @@ package nl.lxtreme.ols.tool.serialdebug.terminal.impl;
 
 import java.awt.*;
 import java.util.*;
+import java.util.List;
 
 import javax.swing.text.*;
 
@@ -31,6 +32,12 @@ import nl.lxtreme.ols.tool.serialdebug.terminal.*;
 
 /**
  * Provides an implementation of {@link ITerminal}.
+ * <p>
+ * The screen is stored in a packed form: a character array and an array with
+ * indices into a small table of interned attribute sets. In addition, all
+ * lines that are changed since the last (re)build of a document are tracked,
+ * allowing documents to be updated only for the changed lines.
+ * </p>
  */
 public class TerminalImpl implements ITerminal
 {
@@ -105,12 +112,24 @@ public class TerminalImpl implements ITerminal
     }
   }
 
+  // CONSTANTS
+
+  /** The attribute index denoting an undefined cell. */
+  private static final int NO_CELL = 0;
+  /** The attribute index denoting a cell without attributes. */
+  private static final int NO_ATTRIBUTES = 1;
+
   // VARIABLES
 
   private final CursorImpl cursor;
+  private final List<AttributeSet> attributeTable;
+  private final Map<AttributeSet, Integer> attributeIndices;
+  private final BitSet dirtyLines;
 
   private volatile AttributeSet attributes;
-  private volatile TextCell[] buffer;
+  private volatile int attributeIndex;
+  private volatile char[] chars;
+  private volatile int[] cellAttributes;
 
   private int width;
   private int height;
@@ -127,6 +146,13 @@ public class TerminalImpl implements ITerminal
    */
   public TerminalImpl( final int aWidth, final int aHeight )
   {
+    this.attributeTable = new ArrayList<AttributeSet>();
+    this.attributeTable.add( null ); // NO_CELL
+    this.attributeTable.add( null ); // NO_ATTRIBUTES
+    this.attributeIndices = new HashMap<AttributeSet, Integer>();
+    this.attributeIndex = NO_ATTRIBUTES;
+    this.dirtyLines = new BitSet();
+
     setDimensions( aWidth, aHeight );
 
     this.cursor = new CursorImpl();
@@ -141,6 +167,7 @@ public class TerminalImpl implements ITerminal
   public void changeAttribute( final AttributeSet aAttributes )
   {
     this.attributes = aAttributes;
+    this.attributeIndex = internAttributes( aAttributes );
   }
 
   /**
@@ -197,40 +224,24 @@ public class TerminalImpl implements ITerminal
 
     try
     {
-      int cursorIdx = getAbsoluteCursorIndex();
-      Integer cursorPos = null;
-
-      for ( int idx = getFirstAbsoluteIndex(), offset = 0; idx < getLastAbsoluteIndex(); idx++ )
+      for ( int row = 0; row < this.height; row++ )
       {
-        if ( idx == cursorIdx )
-        {
-          cursorPos = Integer.valueOf( offset );
-        }
-
-        if ( ( idx > 0 ) && ( ( idx % getWidth() ) == 0 ) )
-        {
-          result.insertString( offset++, "\n", null );
-        }
-
-        TextCell cell = getCellAt( idx );
-        if ( cell != null )
+        if ( row > 0 )
         {
-          result.insertString( offset++, Character.toString( cell.getText() ), cell.getAttributes() );
+          result.insertString( result.getLength(), "\n", null );
         }
+        insertLine( result, result.getLength(), row );
       }
 
-      if ( cursorPos == null )
-      {
-        cursorPos = Integer.valueOf( result.getLength() );
-      }
-
-      result.putProperty( PROPERTY_CURSOR, cursorPos );
+      result.putProperty( PROPERTY_CURSOR, Integer.valueOf( getCursorOffset( result ) ) );
     }
     catch ( BadLocationException exception )
     {
       throw new RuntimeException( exception );
     }
 
+    this.dirtyLines.clear();
+
     return result;
   }
 
@@ -321,8 +332,13 @@ public class TerminalImpl implements ITerminal
     else
     {
       int startPos = this.width * aLines;
-      System.arraycopy( this.buffer, 0, this.buffer, startPos, this.buffer.length - startPos );
-      Arrays.fill( this.buffer, 0, startPos, null );
+      int length = this.chars.length;
+      System.arraycopy( this.chars, 0, this.chars, startPos, length - startPos );
+      System.arraycopy( this.cellAttributes, 0, this.cellAttributes, startPos, length - startPos );
+      Arrays.fill( this.chars, 0, startPos, '\0' );
+      Arrays.fill( this.cellAttributes, 0, startPos, NO_CELL );
+
+      markAllLinesDirty();
     }
   }
 
@@ -345,8 +361,13 @@ public class TerminalImpl implements ITerminal
     else
     {
       int startPos = this.width * aLines;
-      System.arraycopy( this.buffer, startPos, this.buffer, 0, this.buffer.length - startPos - 1 );
-      Arrays.fill( this.buffer, this.buffer.length - startPos, this.buffer.length, null );
+      int length = this.chars.length;
+      System.arraycopy( this.chars, startPos, this.chars, 0, length - startPos - 1 );
+      System.arraycopy( this.cellAttributes, startPos, this.cellAttributes, 0, length - startPos - 1 );
+      Arrays.fill( this.chars, length - startPos, length, '\0' );
+      Arrays.fill( this.cellAttributes, length - startPos, length, NO_CELL );
+
+      markAllLinesDirty();
     }
   }
 
@@ -378,16 +399,62 @@ public class TerminalImpl implements ITerminal
     this.width = aWidth;
     this.height = aHeight;
 
-    TextCell[] newBuffer = new TextCell[this.width * this.height];
-    if ( this.buffer != null )
+    char[] newChars = new char[this.width * this.height];
+    int[] newCellAttributes = new int[newChars.length];
+    if ( this.chars != null )
     {
-      int srcPos = Math.max( 0, this.buffer.length - newBuffer.length );
-      int destPos = Math.max( 0, newBuffer.length - this.buffer.length );
-      int length = this.buffer.length - srcPos;
+      int srcPos = Math.max( 0, this.chars.length - newChars.length );
+      int destPos = Math.max( 0, newChars.length - this.chars.length );
+      int length = this.chars.length - srcPos;
 
-      System.arraycopy( this.buffer, srcPos, newBuffer, destPos, length );
+      System.arraycopy( this.chars, srcPos, newChars, destPos, length );
+      System.arraycopy( this.cellAttributes, srcPos, newCellAttributes, destPos, length );
     }
-    this.buffer = newBuffer;
+    this.chars = newChars;
+    this.cellAttributes = newCellAttributes;
+
+    markAllLinesDirty();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean updateDocument( final StyledDocument aDocument )
+  {
+    final Element root = aDocument.getDefaultRootElement();
+    if ( root.getElementCount() != this.height )
+    {
+      // Document does not represent this terminal (anymore)...
+      return false;
+    }
+
+    try
+    {
+      for ( int row = this.dirtyLines.nextSetBit( 0 ); ( row >= 0 ) && ( row < this.height ); row = this.dirtyLines
+          .nextSetBit( row + 1 ) )
+      {
+        final Element line = root.getElement( row );
+        final int startOffset = line.getStartOffset();
+        // Do not remove the trailing newline...
+        final int length = line.getEndOffset() - startOffset - 1;
+        if ( length > 0 )
+        {
+          aDocument.remove( startOffset, length );
+        }
+        insertLine( aDocument, startOffset, row );
+      }
+
+      aDocument.putProperty( PROPERTY_CURSOR, Integer.valueOf( getCursorOffset( aDocument ) ) );
+    }
+    catch ( BadLocationException exception )
+    {
+      throw new RuntimeException( exception );
+    }
+
+    this.dirtyLines.clear();
+
+    return true;
   }
 
   /**
@@ -515,7 +582,9 @@ public class TerminalImpl implements ITerminal
         break;
       case 2:
         // erase entire screen...
-        Arrays.fill( this.buffer, getFirstAbsoluteIndex(), getLastAbsoluteIndex(), null );
+        Arrays.fill( this.chars, getFirstAbsoluteIndex(), getLastAbsoluteIndex(), '\0' );
+        Arrays.fill( this.cellAttributes, getFirstAbsoluteIndex(), getLastAbsoluteIndex(), NO_CELL );
+        markAllLinesDirty();
         moveCursorAbsolute( 0, 0 );
         break;
 
@@ -568,7 +637,12 @@ public class TerminalImpl implements ITerminal
    */
   protected final TextCell getCellAt( final int aAbsoluteIndex )
   {
-    return this.buffer[aAbsoluteIndex];
+    final int attrIdx = this.cellAttributes[aAbsoluteIndex];
+    if ( attrIdx == NO_CELL )
+    {
+      return null;
+    }
+    return new TextCell( this.chars[aAbsoluteIndex], this.attributeTable.get( attrIdx ) );
   }
 
   /**
@@ -618,12 +692,12 @@ public class TerminalImpl implements ITerminal
       return firstIdx;
     }
 
-    TextCell cell = this.buffer[aAbsoluteIndex];
-    if ( cell != null )
+    if ( this.cellAttributes[aAbsoluteIndex] != NO_CELL )
     {
-      cell = new TextCell( cell.getAttributes() );
+      // Keep the attributes of the cell...
+      this.chars[idx] = ' ';
+      markLineDirty( idx );
     }
-    this.buffer[idx] = cell;
     return idx;
   }
 
@@ -660,7 +734,112 @@ public class TerminalImpl implements ITerminal
       scrollUp( 1 );
       idx -= this.width;
     }
-    this.buffer[idx] = new TextCell( aChar, this.attributes );
+    this.chars[idx] = aChar;
+    this.cellAttributes[idx] = this.attributeIndex;
+    markLineDirty( idx );
     return idx;
   }
+
+  /**
+   * Returns the offset of the cursor in the given document, which should
+   * represent the current contents of this terminal.
+   */
+  private int getCursorOffset( final Document aDocument )
+  {
+    final int cursorIdx = getAbsoluteCursorIndex();
+    if ( ( cursorIdx < 0 ) || ( cursorIdx >= getLastAbsoluteIndex() ) )
+    {
+      return aDocument.getLength();
+    }
+
+    final int row = cursorIdx / this.width;
+    int offset = aDocument.getDefaultRootElement().getElement( row ).getStartOffset();
+    for ( int idx = row * this.width; idx < cursorIdx; idx++ )
+    {
+      if ( this.cellAttributes[idx] != NO_CELL )
+      {
+        offset++;
+      }
+    }
+    return offset;
+  }
+
+  /**
+   * Inserts the defined cells of the given line at the given offset in the
+   * given document, using a single insert for each run of cells with the same
+   * attributes.
+   */
+  private void insertLine( final Document aDocument, final int aOffset, final int aRow )
+      throws BadLocationException
+  {
+    final int startIdx = aRow * this.width;
+    final int endIdx = Math.min( startIdx + this.width, getLastAbsoluteIndex() );
+
+    final StringBuilder run = new StringBuilder( this.width );
+    int runAttrIdx = NO_CELL;
+    int offset = aOffset;
+
+    for ( int idx = startIdx; idx < endIdx; idx++ )
+    {
+      final int attrIdx = this.cellAttributes[idx];
+      if ( attrIdx == NO_CELL )
+      {
+        continue;
+      }
+
+      if ( ( attrIdx != runAttrIdx ) && ( run.length() > 0 ) )
+      {
+        aDocument.insertString( offset, run.toString(), this.attributeTable.get( runAttrIdx ) );
+        offset += run.length();
+        run.setLength( 0 );
+      }
+
+      runAttrIdx = attrIdx;
+      run.append( this.chars[idx] );
+    }
+
+    if ( run.length() > 0 )
+    {
+      aDocument.insertString( offset, run.toString(), this.attributeTable.get( runAttrIdx ) );
+    }
+  }
+
+  /**
+   * Returns the index of the given attributes in the attribute table, adding
+   * them to this table if needed.
+   */
+  private int internAttributes( final AttributeSet aAttributes )
+  {
+    if ( aAttributes == null )
+    {
+      return NO_ATTRIBUTES;
+    }
+
+    Integer result = this.attributeIndices.get( aAttributes );
+    if ( result == null )
+    {
+      final AttributeSet copy = aAttributes.copyAttributes();
+
+      result = Integer.valueOf( this.attributeTable.size() );
+      this.attributeTable.add( copy );
+      this.attributeIndices.put( copy, result );
+    }
+    return result.intValue();
+  }
+
+  /**
+   * Marks all lines of this terminal as changed.
+   */
+  private void markAllLinesDirty()
+  {
+    this.dirtyLines.set( 0, this.height );
+  }
+
+  /**
+   * Marks the line containing the given absolute index as changed.
+   */
+  private void markLineDirty( final int aAbsoluteIndex )
+  {
+    this.dirtyLines.set( aAbsoluteIndex / this.width );
+  }
 }
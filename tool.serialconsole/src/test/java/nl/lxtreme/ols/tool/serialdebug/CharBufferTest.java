@@ -53,6 +53,27 @@ public class CharBufferTest
     }
   }
 
+  /**
+   * Tests that calling {@link CharBuffer#append(char[], int, int)} only appends
+   * the given range of characters.
+   */
+  @Test
+  public void testAppendCharArrayRangeOk()
+  {
+    CharBuffer charBuffer = new CharBuffer( 1 );
+    charBuffer.append( new char[] { 9, 2, 3, 9 }, 1, 2 );
+
+    assertEquals( 3, charBuffer.length() );
+    for ( int i = 0; i < charBuffer.length(); i++ )
+    {
+      assertEquals( ( char )( i + 1 ), charBuffer.charAt( i ) );
+    }
+
+    charBuffer.removeUntil( 2 );
+    assertEquals( 1, charBuffer.length() );
+    assertEquals( ( char )3, charBuffer.charAt( 0 ) );
+  }
+
   /**
    * Tests that calling {@link CharBuffer#append(java.util.List)} with a null
    * value fails.
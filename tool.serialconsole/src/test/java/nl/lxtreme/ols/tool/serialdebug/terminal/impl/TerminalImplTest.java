@@ -23,6 +23,9 @@ package nl.lxtreme.ols.tool.serialdebug.terminal.impl;
 
 import static org.junit.Assert.*;
 
+import javax.swing.text.*;
+
+import nl.lxtreme.ols.tool.serialdebug.terminal.*;
 import nl.lxtreme.ols.tool.serialdebug.terminal.impl.TerminalImpl.*;
 
 import org.junit.*;
@@ -228,6 +231,33 @@ public class TerminalImplTest
     assertEquals( "ab     cd ef  ", getTermText( term ) );
   }
 
+  @Test
+  public void testUpdateDocumentOnlyChangesDirtyLinesOk() throws BadLocationException
+  {
+    TerminalImpl term = createTerminalImpl();
+    StyledDocument doc = term.getAsDocument();
+    assertEquals( "12345\n12345\n1234", doc.getText( 0, doc.getLength() ) );
+
+    Element firstLine = doc.getDefaultRootElement().getElement( 0 );
+
+    term.moveCursorAbsolute( 1, 1 );
+    term.writeText( "ab" );
+
+    assertTrue( term.updateDocument( doc ) );
+    assertEquals( "12345\n1ab45\n1234", doc.getText( 0, doc.getLength() ) );
+    // The first line should not be touched...
+    assertSame( firstLine, doc.getDefaultRootElement().getElement( 0 ) );
+    // Cursor should be placed after the written text...
+    assertEquals( Integer.valueOf( 9 ), doc.getProperty( ITerminal.PROPERTY_CURSOR ) );
+  }
+
+  @Test
+  public void testUpdateDocumentWithForeignDocumentFails()
+  {
+    TerminalImpl term = createTerminalImpl();
+    assertFalse( term.updateDocument( new DefaultStyledDocument() ) );
+  }
+
   /**
    * @return a new {@link TerminalImpl} instance, never <code>null</code>.
    */
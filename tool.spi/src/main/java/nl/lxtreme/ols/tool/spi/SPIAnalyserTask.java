@@ -24,12 +24,16 @@ package nl.lxtreme.ols.tool.spi;
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
 import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
@@ -41,12 +45,403 @@ import nl.lxtreme.ols.util.analysis.*;
  */
 public class SPIAnalyserTask implements ToolTask<SPIDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Represents a chunk of samples, starting at a CS falling edge, that is
+   * decoded independently of the other chunks.
+   */
+  final class Chunk implements Callable<Chunk>
+  {
+    // VARIABLES
+
+    final int startIdx;
+    final int endIdx;
+    final SPIMode mode;
+    final DecoderState entryState;
+
+    SPIDataSet dataSet;
+    AnnotationBuffer annotations;
+    DecoderState exitState;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Chunk instance.
+     */
+    Chunk( final int aStartIdx, final int aEndIdx, final SPIMode aMode, final DecoderState aEntryState )
+    {
+      this.startIdx = aStartIdx;
+      this.endIdx = aEndIdx;
+      this.mode = aMode;
+      this.entryState = aEntryState;
+    }
+
+    // METHODS
+
+    /**
+     * Decodes this chunk, starting with the given decoder state.
+     * 
+     * @param aState
+     *          the state of the decoder at the start of this chunk, cannot be
+     *          <code>null</code>.
+     * @return this chunk.
+     */
+    public Chunk decode( final DecoderState aState )
+    {
+      this.dataSet = new SPIDataSet( this.startIdx, this.endIdx, SPIAnalyserTask.this.context.getData() );
+      this.annotations = new AnnotationBuffer();
+      this.exitState = aState.copy();
+
+      decodeSamples( this.dataSet, this.annotations, this.mode, this.exitState, this.startIdx, this.endIdx, false );
+
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Chunk call() throws Exception
+    {
+      return decode( this.entryState );
+    }
+  }
+
+  /**
+   * Keeps the state of the decoder between two samples.
+   */
+  static final class DecoderState
+  {
+    // VARIABLES
+
+    int oldSckValue;
+    int clockEdgeIdx;
+    int bitIdx;
+    int misovalue;
+    int mosivalue;
+    int dataStartIdx;
+    boolean slaveSelected;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new DecoderState instance.
+     */
+    DecoderState( final int aOldSckValue, final int aBitIdx, final int aDataStartIdx )
+    {
+      this.oldSckValue = aOldSckValue;
+      this.clockEdgeIdx = 0;
+      this.bitIdx = aBitIdx;
+      this.misovalue = 0;
+      this.mosivalue = 0;
+      this.dataStartIdx = aDataStartIdx;
+      this.slaveSelected = true;
+    }
+
+    // METHODS
+
+    /**
+     * @return a copy of this state, never <code>null</code>.
+     */
+    DecoderState copy()
+    {
+      final DecoderState result = new DecoderState( this.oldSckValue, this.bitIdx, this.dataStartIdx );
+      result.clockEdgeIdx = this.clockEdgeIdx;
+      result.misovalue = this.misovalue;
+      result.mosivalue = this.mosivalue;
+      result.slaveSelected = this.slaveSelected;
+      return result;
+    }
+
+    /**
+     * Returns whether decoding a chunk that starts at a CS falling edge with
+     * this state yields the same results as with the given state.
+     * 
+     * @param aState
+     *          the state to compare against, cannot be <code>null</code>;
+     * @param aBitCount
+     *          the number of bits in a datagram.
+     * @return <code>true</code> if both states are equivalent,
+     *         <code>false</code> otherwise.
+     */
+    boolean isEquivalent( final DecoderState aState, final int aBitCount )
+    {
+      // The slave-select state is always overwritten by the CS falling edge,
+      // while the data start index is only used for partial datagrams...
+      return ( this.oldSckValue == aState.oldSckValue ) && ( this.clockEdgeIdx == aState.clockEdgeIdx )
+          && ( this.bitIdx == aState.bitIdx ) && ( this.misovalue == aState.misovalue )
+          && ( this.mosivalue == aState.mosivalue )
+          && ( ( this.bitIdx == aBitCount ) || ( this.dataStartIdx == aState.dataStartIdx ) );
+    }
+  }
+
+  /**
+   * Decodes the SPI-data on each edge of the CS and SCK lines, keeping its
+   * state in a {@link DecoderState}.
+   */
+  final class SampleDecoder implements EdgeListener
+  {
+    // VARIABLES
+
+    final SPIDataSet dataSet;
+    final AnnotationListener listener;
+    final SPIMode mode;
+    final DecoderState state;
+    final int startIdx;
+
+    final int mosiMask; // IO0
+    final int misoMask; // IO1
+    final int io2Mask;
+    final int io3Mask;
+    final int sckMask;
+    final int csMask;
+    final int clockEdgeCount;
+    final boolean logClockEdges;
+
+    int oldCsValue;
+    boolean startDecoded;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new SampleDecoder instance.
+     */
+    SampleDecoder( final SPIDataSet aDataSet, final AnnotationListener aListener, final SPIMode aMode,
+        final DecoderState aState, final int aStartIdx )
+    {
+      this.dataSet = aDataSet;
+      this.listener = aListener;
+      this.mode = aMode;
+      this.state = aState;
+      this.startIdx = aStartIdx;
+
+      this.mosiMask = ( 1 << SPIAnalyserTask.this.mosiIdx );
+      this.misoMask = ( 1 << SPIAnalyserTask.this.misoIdx );
+      this.io2Mask = ( 1 << SPIAnalyserTask.this.io2Idx );
+      this.io3Mask = ( 1 << SPIAnalyserTask.this.io3Idx );
+      this.sckMask = ( 1 << SPIAnalyserTask.this.sckIdx );
+      this.csMask = ( 1 << SPIAnalyserTask.this.csIdx );
+      this.clockEdgeCount = ( SPIAnalyserTask.this.bitCount + 1 ) * 2;
+      this.logClockEdges = LOG.isLoggable( Level.FINE );
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEdge( final int aSampleIdx, final long aTimestamp, final int aChangedMask, final int aValue )
+    {
+      if ( !this.startDecoded )
+      {
+        decodeStartSample( aSampleIdx );
+      }
+      decodeSample( aSampleIdx, aValue );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onEnd( final int aSampleIdx )
+    {
+      if ( !this.startDecoded )
+      {
+        decodeStartSample( aSampleIdx );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onStart( final int aSampleIdx, final int aValue )
+    {
+      this.oldCsValue = ( aValue & this.csMask );
+    }
+
+    /**
+     * Decodes the given sample.
+     */
+    private void decodeSample( final int aSampleIdx, final int aValue )
+    {
+      /* CLK edge detection */
+      final int sckValue = ( aValue & this.sckMask );
+      /* CS edge detection */
+      final int csValue = ( aValue & this.csMask );
+
+      final Edge slaveSelectEdge = Edge.toEdge( this.oldCsValue, csValue );
+      this.oldCsValue = csValue;
+
+      if ( slaveSelectEdge.isFalling() )
+      {
+        reportCsLow( this.dataSet, aSampleIdx );
+
+        this.state.slaveSelected = true;
+      }
+      else if ( slaveSelectEdge.isRising() )
+      {
+        reportCsHigh( this.dataSet, aSampleIdx );
+
+        this.state.slaveSelected = false;
+        // it could be that we're waiting until a next clock cycle comes along;
+        // however, the /CS signal might be going up before that cycle actually
+        // comes...
+        if ( this.state.bitIdx <= 0 )
+        {
+          // Full datagram decoded...
+          reportData( this.dataSet, this.listener, this.state.dataStartIdx, aSampleIdx, this.state.mosivalue,
+              this.state.misovalue );
+
+          this.state.bitIdx = SPIAnalyserTask.this.bitCount;
+          this.state.misovalue = 0;
+          this.state.mosivalue = 0;
+        }
+      }
+
+      if ( SPIAnalyserTask.this.honourCS && !this.state.slaveSelected )
+      {
+        // We should honour the slave-select, but the slave isn't
+        // currently selected...
+        return;
+      }
+
+      final Edge clockEdge = Edge.toEdge( this.state.oldSckValue, sckValue );
+      this.state.oldSckValue = sckValue;
+
+      final boolean sampleEdgeSeen;
+      if ( clockEdge.isRising() || clockEdge.isFalling() )
+      {
+        this.state.clockEdgeIdx = ( this.state.clockEdgeIdx + 1 ) % this.clockEdgeCount;
+        // When CPHA is '1', we should sample at the even numbered clock edges,
+        // when CPHA is '0' we should sample at the odd numbered clock edges...
+        sampleEdgeSeen = ( ( this.state.clockEdgeIdx + this.mode.getCPHA() ) % 2 ) != 0;
+
+        // First clock edge we've seen? If so, we should keep this index as our
+        // start of data index...
+        if ( sampleEdgeSeen && ( this.state.bitIdx == SPIAnalyserTask.this.bitCount ) )
+        {
+          this.state.dataStartIdx = aSampleIdx;
+        }
+
+        if ( this.logClockEdges )
+        {
+          LOG.log( Level.FINE, "Clock edge: {0}, idx: {1}, sample? {2}", //
+              new Object[] { clockEdge, Integer.valueOf( this.state.clockEdgeIdx ),
+                  Boolean.valueOf( sampleEdgeSeen ) } );
+        }
+      }
+      else
+      {
+        // Only actual clock edges should be taken into account...
+        sampleEdgeSeen = false;
+      }
+
+      if ( sampleEdgeSeen )
+      {
+        if ( SPIFIMode.STANDARD.equals( SPIAnalyserTask.this.protocol ) )
+        {
+          // sample MiSo here; always MSB first, perform conversion later on...
+          if ( ( SPIAnalyserTask.this.misoIdx >= 0 ) && ( ( aValue & this.misoMask ) != 0 ) )
+          {
+            this.state.misovalue |= ( 1 << this.state.bitIdx );
+          }
+          // sample MoSi here; always MSB first, perform conversion later on...
+          if ( ( SPIAnalyserTask.this.mosiIdx >= 0 ) && ( ( aValue & this.mosiMask ) != 0 ) )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+
+          if ( this.state.bitIdx >= 0 )
+          {
+            this.state.bitIdx--;
+          }
+        }
+        else if ( SPIFIMode.DUAL.equals( SPIAnalyserTask.this.protocol ) )
+        {
+          // Sample both MOSI/IO0 & MISO/IO1 here; they form two bits of our
+          // symbol; we do MSB first, as the decoded symbol will be corrected
+          // later on...
+          if ( ( aValue & this.misoMask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+          if ( ( aValue & this.mosiMask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+        }
+        else if ( SPIFIMode.QUAD.equals( SPIAnalyserTask.this.protocol ) )
+        {
+          // Sample both MOSI/IO0, MISO/IO1, IO2 & IO3 here; they form four bits
+          // of our symbol; we do MSB first, as the decoded symbol will be
+          // corrected later on...
+          if ( ( aValue & this.io3Mask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+          if ( ( aValue & this.io2Mask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+          if ( ( aValue & this.misoMask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+          if ( ( aValue & this.mosiMask ) != 0 )
+          {
+            this.state.mosivalue |= ( 1 << this.state.bitIdx );
+          }
+          this.state.bitIdx--;
+        }
+
+        if ( this.state.bitIdx < 0 )
+        {
+          // Full datagram decoded...
+          reportData( this.dataSet, this.listener, this.state.dataStartIdx, aSampleIdx, this.state.mosivalue,
+              this.state.misovalue );
+
+          this.state.bitIdx = SPIAnalyserTask.this.bitCount;
+          this.state.misovalue = 0;
+          this.state.mosivalue = 0;
+        }
+      }
+    }
+
+    /**
+     * The clock level in the decoder state might differ from the clock level
+     * of the first sample, for example, when a chunk is decoded with the
+     * state of its predecessor. Hence, the first sample is always decoded,
+     * even if neither CS nor SCK changes in it.
+     */
+    private void decodeStartSample( final int aNextSampleIdx )
+    {
+      this.startDecoded = true;
+      if ( this.startIdx < aNextSampleIdx )
+      {
+        decodeSample( this.startIdx, SPIAnalyserTask.this.context.getData().getValues()[this.startIdx] );
+      }
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( SPIAnalyserTask.class.getName() );
 
   public static final String PROPERTY_AUTO_DETECT_MODE = "AutoDetectSPIMode";
 
+  /** The minimal number of samples in a chunk that is decoded in parallel. */
+  static final int MIN_CHUNK_SIZE = 65536;
+  /** The number of chunks to create for each available processor. */
+  private static final int CHUNKS_PER_THREAD = 4;
+
   // VARIABLES
 
   private final ToolContext context;
@@ -66,6 +461,9 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private int misoIdx;
   private int io2Idx;
   private int io3Idx;
+  private boolean parallel;
+  private int threadCount;
+  private int minChunkSize;
 
   // CONSTRUCTORS
 
@@ -87,6 +485,9 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.misoIdx = -1;
     this.mosiIdx = -1;
     this.protocol = SPIFIMode.STANDARD;
+    this.parallel = false;
+    this.threadCount = ParallelUtils.getParallelism();
+    this.minChunkSize = MIN_CHUNK_SIZE;
   }
 
   // METHODS
@@ -257,6 +658,20 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.bitOrder = aOrder;
   }
 
+  /**
+   * Sets whether the transactions framed by the chip-select line can be decoded
+   * concurrently. The decoded results are the same as when decoding them
+   * sequentially.
+   * 
+   * @param aParallel
+   *          <code>true</code> to decode large captures using all available
+   *          processors, <code>false</code> to decode them sequentially.
+   */
+  public void setParallel( final boolean aParallel )
+  {
+    this.parallel = aParallel;
+  }
+
   /**
    * Sets which SPI protocol (i.e., standard, dual or quad) should be used.
    * 
@@ -303,6 +718,21 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     this.spiMode = aMode;
   }
 
+  /**
+   * Sets how the data is decoded in parallel.
+   * 
+   * @param aThreadCount
+   *          the number of threads to use, &gt; 0;
+   * @param aMinChunkSize
+   *          the minimal number of samples in a chunk that is decoded in
+   *          parallel, &gt; 0.
+   */
+  final void setParallelism( final int aThreadCount, final int aMinChunkSize )
+  {
+    this.threadCount = aThreadCount;
+    this.minChunkSize = aMinChunkSize;
+  }
+
   /**
    * Decodes the SPI-data on a given clock edge.
    * 
@@ -313,182 +743,167 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    *          on which edges data can change.
    */
   private void clockDataOnEdge( final SPIDataSet aDataSet, final SPIMode aMode, final int aSlaveSelectedIdx )
+      throws Exception
   {
-    final AcquisitionResult data = this.context.getData();
-
-    final int[] values = data.getValues();
+    final int[] values = this.context.getData().getValues();
 
     final int startOfDecode = Math.max( aSlaveSelectedIdx, aDataSet.getStartOfDecode() );
     final int endOfDecode = aDataSet.getEndOfDecode();
 
-    final int mosiMask = ( 1 << this.mosiIdx ); // IO0
-    final int misoMask = ( 1 << this.misoIdx ); // IO1
-    final int io2Mask = ( 1 << this.io2Idx );
-    final int io3Mask = ( 1 << this.io3Idx );
     final int sckMask = ( 1 << this.sckIdx );
-    final int csMask = ( 1 << this.csIdx );
-
-    // scanning for falling/rising clk edges
-    int oldSckValue = ( values[startOfDecode] & sckMask );
-    int oldCsValue = ( values[startOfDecode] & csMask );
-
-    boolean slaveSelected = true;
-    int dataStartIdx = startOfDecode;
-
-    int bitIdx = this.bitCount;
-
-    final int clockEdgeCount = ( this.bitCount + 1 ) * 2;
-    int clockEdgeIdx = 0;
 
-    int misovalue = 0;
-    int mosivalue = 0;
+    final DecoderState state = new DecoderState( values[startOfDecode] & sckMask, this.bitCount, startOfDecode );
 
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
+    final int threadCount = this.threadCount;
+    if ( this.parallel && ( threadCount > 1 ) && ( ( endOfDecode - startOfDecode ) > ( 2 * this.minChunkSize ) ) )
     {
-      final int dataSample = values[idx];
-      /* CLK edge detection */
-      final int sckValue = ( dataSample & sckMask );
-      /* CS edge detection */
-      final int csValue = ( dataSample & csMask );
-
-      final Edge slaveSelectEdge = Edge.toEdge( oldCsValue, csValue );
-      oldCsValue = csValue;
-
-      if ( slaveSelectEdge.isFalling() )
+      final List<Chunk> chunks = createChunks( aMode, state, startOfDecode + 1, endOfDecode, threadCount );
+      if ( chunks.size() > 1 )
       {
-        reportCsLow( aDataSet, idx );
-
-        slaveSelected = true;
+        clockDataOnEdgeInParallel( aDataSet, chunks, state );
+        return;
       }
-      else if ( slaveSelectEdge.isRising() )
-      {
-        reportCsHigh( aDataSet, idx );
+    }
 
-        slaveSelected = false;
-        // it could be that we're waiting until a next clock cycle comes along;
-        // however, the /CS signal might be going up before that cycle actually
-        // comes...
-        if ( bitIdx <= 0 )
-        {
-          // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
+    decodeSamples( aDataSet, this.annotationListener, aMode, state, startOfDecode + 1, endOfDecode, true );
+  }
 
-          bitIdx = this.bitCount;
-          misovalue = 0;
-          mosivalue = 0;
-        }
-      }
+  /**
+   * Decodes the given chunks concurrently, and merges their results in the
+   * order of the chunks.
+   * <p>
+   * Each chunk (except the first one) is decoded assuming the decoder is in
+   * its initial state at the CS falling edge the chunk starts with. In case
+   * the previous chunk ends with a different state, for example, due to an
+   * incomplete datagram, the chunk is decoded once more with the actual state.
+   * This way, the results are always identical to a sequential decoding.
+   * </p>
+   */
+  private void clockDataOnEdgeInParallel( final SPIDataSet aDataSet, final List<Chunk> aChunks,
+      final DecoderState aState ) throws Exception
+  {
+    final List<Chunk> decoded = ParallelUtils.invokeAll( aChunks, Exception.class );
 
-      if ( this.honourCS && !slaveSelected )
+    DecoderState state = aState;
+    for ( int i = 0; i < decoded.size(); i++ )
+    {
+      Chunk chunk = decoded.get( i );
+      if ( ( i > 0 ) && !chunk.entryState.isEquivalent( state, this.bitCount ) )
       {
-        // We should honour the slave-select, but the slave isn't
-        // currently selected...
-        continue;
+        LOG.log( Level.FINE, "Chunk {0} decoded with wrong state; decoding it again...", Integer.valueOf( i ) );
+        chunk = chunk.decode( state );
       }
 
-      final Edge clockEdge = Edge.toEdge( oldSckValue, sckValue );
-      oldSckValue = sckValue;
+      aDataSet.addAll( chunk.dataSet );
+      chunk.annotations.replay( this.annotationListener );
+      state = chunk.exitState;
 
-      final boolean sampleEdgeSeen;
-      if ( clockEdge.isRising() || clockEdge.isFalling() )
-      {
-        clockEdgeIdx = ( clockEdgeIdx + 1 ) % clockEdgeCount;
-        // When CPHA is '1', we should sample at the even numbered clock edges,
-        // when CPHA is '0' we should sample at the odd numbered clock edges...
-        sampleEdgeSeen = ( ( clockEdgeIdx + aMode.getCPHA() ) % 2 ) != 0;
+      this.progressListener.setProgress( getPercentage( i + 1, 0, decoded.size() ) );
+    }
+  }
 
-        // First clock edge we've seen? If so, we should keep this index as our
-        // start of data index...
-        if ( sampleEdgeSeen && ( bitIdx == this.bitCount ) )
-        {
-          dataStartIdx = idx;
-        }
+  /**
+   * Divides the given range of samples in chunks that each start at a falling
+   * edge of the chip-select line.
+   * 
+   * @param aMode
+   *          the SPI mode to use;
+   * @param aInitialState
+   *          the initial state of the decoder, used for the first chunk;
+   * @param aStartIdx
+   *          the first sample index to decode;
+   * @param aEndIdx
+   *          the sample index up to which is decoded;
+   * @param aThreadCount
+   *          the number of threads available for decoding.
+   * @return a list with chunks, never <code>null</code>.
+   */
+  private List<Chunk> createChunks( final SPIMode aMode, final DecoderState aInitialState, final int aStartIdx,
+      final int aEndIdx, final int aThreadCount )
+  {
+    final AcquisitionResult data = this.context.getData();
+    final int[] values = data.getValues();
+    final int sckMask = ( 1 << this.sckIdx );
+    final int chunkSize = Math.max( this.minChunkSize, ( aEndIdx - aStartIdx ) / ( aThreadCount * CHUNKS_PER_THREAD ) );
 
-        LOG.log( Level.FINE, "Clock edge: {0}, idx: {1}, sample? {2}", //
-            new Object[] { clockEdge, Integer.valueOf( clockEdgeIdx ), Boolean.valueOf( sampleEdgeSeen ) } );
-      }
-      else
+    final List<Chunk> result = new ArrayList<Chunk>();
+
+    int chunkStartIdx = aStartIdx;
+    DecoderState chunkState = aInitialState;
+    int lastRisingEdgeIdx = -1;
+
+    // Only the edges of CS are needed to divide the samples...
+    final ChannelPrefixSums csTransitions = ChannelPrefixSums.get( data, this.csIdx )[0];
+    final int edgeCount = csTransitions.getEdgeCount();
+    for ( int edgeIdx = csTransitions.findNextEdge( aStartIdx - 1 ); edgeIdx < edgeCount; edgeIdx++ )
+    {
+      final int idx = csTransitions.getEdge( edgeIdx );
+      if ( idx >= aEndIdx )
       {
-        // Only actual clock edges should be taken into account...
-        sampleEdgeSeen = false;
+        break;
       }
 
-      if ( sampleEdgeSeen )
+      if ( csTransitions.isRising( edgeIdx ) )
       {
-        if ( SPIFIMode.STANDARD.equals( this.protocol ) )
-        {
-          // sample MiSo here; always MSB first, perform conversion later on...
-          if ( ( this.misoIdx >= 0 ) && ( ( dataSample & misoMask ) != 0 ) )
-          {
-            misovalue |= ( 1 << bitIdx );
-          }
-          // sample MoSi here; always MSB first, perform conversion later on...
-          if ( ( this.mosiIdx >= 0 ) && ( ( dataSample & mosiMask ) != 0 ) )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
+        lastRisingEdgeIdx = idx;
+      }
+      else if ( ( idx - chunkStartIdx ) >= chunkSize )
+      {
+        result.add( new Chunk( chunkStartIdx, idx, aMode, chunkState ) );
 
-          if ( bitIdx >= 0 )
-          {
-            bitIdx--;
-          }
-        }
-        else if ( SPIFIMode.DUAL.equals( this.protocol ) )
-        {
-          // Sample both MOSI/IO0 & MISO/IO1 here; they form two bits of our
-          // symbol; we do MSB first, as the decoded symbol will be corrected
-          // later on...
-          if ( ( dataSample & misoMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & mosiMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-        }
-        else if ( SPIFIMode.QUAD.equals( this.protocol ) )
+        // Assume the previous chunk ends with a complete datagram; when
+        // honouring CS, the clock is not tracked while CS is high...
+        int sckIdx = idx - 1;
+        if ( this.honourCS && ( lastRisingEdgeIdx > chunkStartIdx ) )
         {
-          // Sample both MOSI/IO0, MISO/IO1, IO2 & IO3 here; they form four bits
-          // of our symbol; we do MSB first, as the decoded symbol will be
-          // corrected later on...
-          if ( ( dataSample & io3Mask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & io2Mask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & misoMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
-          if ( ( dataSample & mosiMask ) != 0 )
-          {
-            mosivalue |= ( 1 << bitIdx );
-          }
-          bitIdx--;
+          sckIdx = lastRisingEdgeIdx - 1;
         }
 
-        if ( bitIdx < 0 )
-        {
-          // Full datagram decoded...
-          reportData( aDataSet, dataStartIdx, idx, mosivalue, misovalue );
-
-          bitIdx = this.bitCount;
-          misovalue = 0;
-          mosivalue = 0;
-        }
+        chunkStartIdx = idx;
+        chunkState = new DecoderState( values[sckIdx] & sckMask, this.bitCount, idx );
       }
+    }
+    result.add( new Chunk( chunkStartIdx, aEndIdx, aMode, chunkState ) );
 
-      this.progressListener.setProgress( getPercentage( idx, startOfDecode, endOfDecode ) );
+    return result;
+  }
+
+  /**
+   * Decodes the SPI-data of the given range of samples.
+   * 
+   * @param aDataSet
+   *          the decoded data to fill;
+   * @param aListener
+   *          the annotation listener to report annotations to;
+   * @param aMode
+   *          the SPI mode defining the edges on which data can be sampled and
+   *          on which edges data can change;
+   * @param aState
+   *          the state of the decoder, will be updated;
+   * @param aStartIdx
+   *          the first sample index to decode;
+   * @param aEndIdx
+   *          the sample index up to which is decoded;
+   * @param aReportProgress
+   *          <code>true</code> to report the progress, <code>false</code>
+   *          otherwise.
+   */
+  final void decodeSamples( final SPIDataSet aDataSet, final AnnotationListener aListener, final SPIMode aMode,
+      final DecoderState aState, final int aStartIdx, final int aEndIdx, final boolean aReportProgress )
+  {
+    final int csMask = ( 1 << this.csIdx );
+    final int sckMask = ( 1 << this.sckIdx );
+
+    // Only the edges of CS and SCK are of interest to us; all other lines are
+    // sampled on these edges...
+    final EdgeEventStream edgeStream = new EdgeEventStream( this.context.getData() );
+    edgeStream.subscribe( csMask | sckMask, new SampleDecoder( aDataSet, aListener, aMode, aState, aStartIdx ) );
+    if ( aReportProgress )
+    {
+      edgeStream.setProgressListener( this.progressListener );
     }
+    // The sample before the start index provides the initial CS level...
+    edgeStream.run( aStartIdx - 1, aEndIdx );
   }
 
   /**
@@ -510,7 +925,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private SPIMode detectSPIMode( final int aStartIndex, final int aEndIndex )
   {
     final AcquisitionResult data = this.context.getData();
-    final Frequency<Integer> valueStats = new Frequency<Integer>();
+    final IntFrequency valueStats = new IntFrequency();
 
     final int[] values = data.getValues();
     final int sckMask = 1 << this.sckIdx;
@@ -520,14 +935,14 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     for ( int i = aStartIndex; i < aEndIndex; i++ )
     {
       final int newValue = ( values[i] & sckMask ) >> this.sckIdx;
-      valueStats.addValue( Integer.valueOf( newValue ) );
+      valueStats.addValue( newValue );
     }
 
     SPIMode result;
 
     // If the clock line's most occurring value is one, then
     // we're fairly sure that CPOL == 1...
-    if ( valueStats.getHighestRanked().intValue() == 1 )
+    if ( valueStats.getHighestRanked( 0 ) == 1 )
     {
       LOG.log( Level.INFO, "SPI mode is probably mode 2 or 3 (CPOL == 1). Assuming mode 2 ..." );
       result = SPIMode.MODE_2;
@@ -620,6 +1035,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * 
    * @param aDecodedData
    *          the data set to add the data event(s) to;
+   * @param aListener
+   *          the annotation listener to add the annotations to;
    * @param aStartIdx
    *          the starting sample index on which the data started;
    * @param aEndIdx
@@ -629,8 +1046,8 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
    * @param aMisoValue
    *          the MISO data value.
    */
-  private void reportData( final SPIDataSet aDecodedData, final int aStartIdx, final int aEndIdx, final int aMosiValue,
-      final int aMisoValue )
+  private void reportData( final SPIDataSet aDecodedData, final AnnotationListener aListener, final int aStartIdx,
+      final int aEndIdx, final int aMosiValue, final int aMisoValue )
   {
     long[] timestamps = this.context.getData().getTimestamps();
 
@@ -647,7 +1064,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
           formatSpec = formatSpec.concat( " (%1$c)" );
         }
 
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
+        aListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
             timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
 
         aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
@@ -664,7 +1081,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
           formatSpec = formatSpec.concat( " (%1$c)" );
         }
 
-        this.annotationListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, timestamps[aStartIdx],
+        aListener.onAnnotation( new SampleDataAnnotation( this.misoIdx, timestamps[aStartIdx],
             timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( misovalue ) ) ) );
 
         aDecodedData.reportMisoData( this.misoIdx, aStartIdx, aEndIdx, misovalue );
@@ -681,7 +1098,7 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
         formatSpec = formatSpec.concat( " (%1$c)" );
       }
 
-      this.annotationListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
+      aListener.onAnnotation( new SampleDataAnnotation( this.mosiIdx, timestamps[aStartIdx],
           timestamps[aEndIdx], String.format( formatSpec, Integer.valueOf( mosivalue ) ) ) );
 
       aDecodedData.reportMosiData( this.mosiIdx, aStartIdx, aEndIdx, mosivalue );
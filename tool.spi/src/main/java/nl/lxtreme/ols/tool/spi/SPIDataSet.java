@@ -51,6 +51,29 @@ public final class SPIDataSet extends BaseDataSet<SPIData>
 
   // METHODS
 
+  /**
+   * Adds all data of the given data set to this data set, keeping their order.
+   * 
+   * @param aDataSet
+   *          the data set to add the data of, cannot be <code>null</code>.
+   */
+  void addAll( final SPIDataSet aDataSet )
+  {
+    for ( SPIData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isData() )
+      {
+        addData( new SPIData( idx, data.getChannelIdx(), data.getDataName(), data.getDataValue(),
+            data.getStartSampleIndex(), data.getEndSampleIndex() ) );
+      }
+      else
+      {
+        addData( new SPIData( idx, data.getChannelIdx(), data.getEventName(), data.getStartSampleIndex() ) );
+      }
+    }
+  }
+
   /**
    * @param aTimeValue
    */
@@ -0,0 +1,214 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.spi;
+
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+import nl.lxtreme.ols.tool.base.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a table model for the SPI analysis results, in which MOSI and MISO
+ * values with the same timestamp are shown in a single row.
+ */
+final class SPIDataTableModel extends DataSetTableModel<SPIData>
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Color CS_LOW_COLOR = new Color( 0xc0ffc0 );
+  private static final Color CS_HIGH_COLOR = new Color( 0xe0e0e0 );
+  private static final Color UNKNOWN_COLOR = new Color( 0xff8000 );
+
+  // VARIABLES
+
+  private volatile BitSet mergedData;
+  private volatile int bitCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SPIDataTableModel instance.
+   */
+  public SPIDataTableModel()
+  {
+    super( "Index", "Time", "MOSI hex", "MOSI bin", "MOSI dec", "MOSI ASCII", "MISO hex", "MISO bin", "MISO dec",
+        "MISO ASCII" );
+
+    this.mergedData = new BitSet();
+    this.bitCount = 8;
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether the data at the given index should be coalesced with its
+   * successor, due to an equal timestamp.
+   * 
+   * @param aData
+   *          the decoded data;
+   * @param aIndex
+   *          the index of the data to test.
+   * @return <code>true</code> if the data at the given index and its successor
+   *         should be shown in the same row, <code>false</code> otherwise.
+   */
+  static boolean isCoalesced( final List<SPIData> aData, final int aIndex )
+  {
+    if ( ( aIndex + 1 ) >= aData.size() )
+    {
+      return false;
+    }
+    final SPIData ds = aData.get( aIndex );
+    return ds.isData() && ( aData.get( aIndex + 1 ).getStartSampleIndex() == ds.getStartSampleIndex() );
+  }
+
+  /**
+   * Sets the number of bits per data value.
+   * 
+   * @param aBitCount
+   *          the bit count, &gt; 0.
+   */
+  public void setBitCount( final int aBitCount )
+  {
+    if ( this.bitCount != aBitCount )
+    {
+      this.bitCount = aBitCount;
+      clearSearchTexts();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void setDataSet( final BaseDataSet<SPIData> aDataSet )
+  {
+    final BitSet merged = new BitSet();
+    if ( aDataSet != null )
+    {
+      final List<SPIData> data = aDataSet.getData();
+      for ( int i = 0; i < data.size(); i++ )
+      {
+        if ( isCoalesced( data, i ) )
+        {
+          // Skip the next data entry...
+          merged.set( ++i );
+        }
+      }
+    }
+    this.mergedData = merged;
+
+    super.setDataSet( aDataSet );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Color getBackground( final BaseDataSet<SPIData> aDataSet, final int aDataIndex )
+  {
+    final SPIData ds = aDataSet.getData().get( aDataIndex );
+    if ( !ds.isEvent() )
+    {
+      return null;
+    }
+    if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
+    {
+      return CS_LOW_COLOR;
+    }
+    else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
+    {
+      return CS_HIGH_COLOR;
+    }
+    return UNKNOWN_COLOR;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object getValue( final BaseDataSet<SPIData> aDataSet, final int aDataIndex, final int aColumnIndex )
+  {
+    final List<SPIData> data = aDataSet.getData();
+    final SPIData ds = data.get( aDataIndex );
+
+    if ( aColumnIndex == 0 )
+    {
+      return Integer.toString( aDataIndex );
+    }
+    else if ( aColumnIndex == 1 )
+    {
+      return UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
+    }
+
+    if ( ds.isEvent() )
+    {
+      if ( ( aColumnIndex == 2 ) || ( aColumnIndex == 6 ) )
+      {
+        final String event = ds.getEventName();
+        return ( SPIDataSet.SPI_CS_LOW.equals( event ) || SPIDataSet.SPI_CS_HIGH.equals( event ) ) ? event
+            : "UNKNOWN";
+      }
+      return null;
+    }
+
+    int mosiValue = ds.isMosiData() ? ds.getDataValue() : 0;
+    int misoValue = ds.isMisoData() ? ds.getDataValue() : 0;
+    if ( isCoalesced( data, aDataIndex ) )
+    {
+      final SPIData nextDS = data.get( aDataIndex + 1 );
+      mosiValue = nextDS.isMosiData() ? nextDS.getDataValue() : mosiValue;
+      misoValue = nextDS.isMisoData() ? nextDS.getDataValue() : misoValue;
+    }
+
+    final int value = ( aColumnIndex < 6 ) ? mosiValue : misoValue;
+    final int bits = this.bitCount;
+    switch ( ( aColumnIndex - 2 ) % 4 )
+    {
+      case 0:
+        return "0x".concat( StringUtils.integerToHexString( value, ( bits / 4 ) + ( ( ( bits % 4 ) != 0 ) ? 1 : 0 ) ) );
+      case 1:
+        return "0b".concat( StringUtils.integerToBinString( value, bits ) );
+      case 2:
+        return Integer.toString( value );
+      default:
+        return Character.isLetterOrDigit( value ) ? Character.toString( ( char )value ) : "";
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected boolean isRow( final BaseDataSet<SPIData> aDataSet, final int aDataIndex )
+  {
+    return !this.mergedData.get( aDataIndex );
+  }
+}
+
+/* EOF */
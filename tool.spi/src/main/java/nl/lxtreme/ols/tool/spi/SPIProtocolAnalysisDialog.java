@@ -45,6 +45,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
 import nl.lxtreme.ols.util.swing.*;
@@ -203,7 +205,7 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   private JComboBox bits;
   private JComboBox order;
   private JComboBox spifiMode;
-  private JEditorPane outText;
+  private DataSetTableView<SPIData> resultView;
   private JCheckBox reportCS;
   private JCheckBox honourCS;
 
@@ -310,8 +312,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultView.setDataSet( null );
+    this.resultView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -384,34 +386,22 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   @Override
   protected void onToolEnded( final SPIDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-        this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-        this.exportAction.setEnabled( false );
-      }
-
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
+    final SPIDataTableModel model = ( SPIDataTableModel )this.resultView.getModel();
+    model.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
 
-      this.runAnalysisAction.restore();
+    this.resultView.setDataSet( aAnalysisResult );
+    if ( aAnalysisResult != null )
+    {
+      this.resultView.setSummary( "<html><b>SPI mode:</b> " + getDetectedSPIModeName() + "</html>" );
+      this.exportAction.setEnabled( !aAnalysisResult.isEmpty() );
     }
-    catch ( final IOException exception )
+    else
     {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
+      this.resultView.setSummary( null );
+      this.exportAction.setEnabled( false );
     }
+
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -441,6 +431,7 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
     toolTask.setProtocol( ( SPIFIMode )this.spifiMode.getSelectedItem() );
     toolTask.setReportCS( this.reportCS.isSelected() );
     toolTask.setHonourCS( this.honourCS.isSelected() );
+    toolTask.setParallel( true );
     toolTask.setOrder( ( BitOrder )this.order.getSelectedItem() );
     toolTask.setSPIMode( ( SPIMode )this.mode.getSelectedItem() );
 
@@ -609,14 +600,8 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
    */
   private JPanel createPreviewPane()
   {
-    final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
-
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
-
-    panTable.add( new JScrollPane( this.outText ) );
-
-    return panTable;
+    this.resultView = new DataSetTableView<SPIData>( new SPIDataTableModel() );
+    return this.resultView;
   }
 
   /**
@@ -721,26 +706,35 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * Generates an empty HTML page.
+   * Returns a description of the detected SPI mode.
    * 
-   * @return String with HTML data.
+   * @return a SPI mode description, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getDetectedSPIModeName()
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    String result = "&lt;unknown&gt;";
+    if ( this.detectedSPIMode == null )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        return null;
-      }
-    } );
+      return result;
+    }
+    switch ( this.detectedSPIMode )
+    {
+      case MODE_0:
+        result = "Mode 0 (CPOL = 0, CPHA = 0)";
+        break;
+      case MODE_1:
+        result = "Mode 1 (CPOL = 0, CPHA = 1)";
+        break;
+      case MODE_2:
+        result = "Mode 2 (CPOL = 1, CPHA = 0)";
+        break;
+      case MODE_3:
+        result = "Mode 3 (CPOL = 1, CPHA = 1)";
+        break;
+      default:
+        break;
+    }
+    return result;
   }
 
   /**
@@ -837,19 +831,20 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
   }
 
   /**
-   * generate a HTML page
+   * Writes the given data set as HTML page to the given file.
    * 
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>;
    * @param aDataSet
    *          the data set to create the HTML page for, cannot be
    *          <code>null</code>.
-   * @return String with HTML data
    */
-  private String toHtmlPage( final File aFile, final SPIDataSet aDataSet ) throws IOException
+  private void toHtmlPage( final File aFile, final SPIDataSet aDataSet ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
     final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -861,146 +856,104 @@ public final class SPIProtocolAnalysisDialog extends BaseToolDialog<SPIDataSet>
         }
         else if ( "detected-spi-mode".equals( aMacro ) )
         {
-          String result = "<unknown>";
-          switch ( SPIProtocolAnalysisDialog.this.detectedSPIMode )
-          {
-            case MODE_0:
-              result = "Mode 0 (CPOL = 0, CPHA = 0)";
-              break;
-            case MODE_1:
-              result = "Mode 1 (CPOL = 0, CPHA = 1)";
-              break;
-            case MODE_2:
-              result = "Mode 2 (CPOL = 1, CPHA = 0)";
-              break;
-            case MODE_3:
-              result = "Mode 3 (CPOL = 1, CPHA = 1)";
-              break;
-            default:
-              break;
-          }
-          return result;
+          return getDetectedSPIModeName();
+        }
+
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
+        {
+          return false;
         }
-        else if ( "decoded-data".equals( aMacro ) )
+
+        final List<SPIData> decodedData = aDataSet.getData();
+        for ( int i = 0; i < decodedData.size(); i++ )
         {
-          final List<SPIData> decodedData = aDataSet.getData();
-          Element tr;
+          final SPIData ds = decodedData.get( i );
 
-          for ( int i = 0; i < decodedData.size(); i++ )
+          if ( ds.isEvent() )
           {
-            final SPIData ds = decodedData.get( i );
+            String event;
+            String bgColor;
 
-            if ( ds.isEvent() )
+            // this is an event
+            if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
             {
-              String event;
-              String bgColor;
-
-              // this is an event
-              if ( SPIDataSet.SPI_CS_LOW.equals( ds.getEventName() ) )
-              {
-                // start condition
-                event = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
-              {
-                // stop condition
-                event = ds.getEventName();
-                bgColor = "#e0e0e0";
-              }
-              else
-              {
-                // unknown event
-                event = "UNKNOWN";
-                bgColor = "#ff8000";
-              }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD ).addContent( event );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
+              // start condition
+              event = ds.getEventName();
+              bgColor = "#c0ffc0";
+            }
+            else if ( SPIDataSet.SPI_CS_HIGH.equals( ds.getEventName() ) )
+            {
+              // stop condition
+              event = ds.getEventName();
+              bgColor = "#e0e0e0";
             }
-            else if ( ds.isData() )
+            else
             {
-              final int sampleIdx = ds.getStartSampleIndex();
+              // unknown event
+              event = "UNKNOWN";
+              bgColor = "#ff8000";
+            }
 
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aDataSet.getTime( sampleIdx ) ) );
+            aWriter.addRow( "background-color: " + bgColor + ";", String.valueOf( i ),
+                UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) ), event, null, null, null, event,
+                null, null, null );
+          }
+          else if ( ds.isData() )
+          {
+            final int sampleIdx = ds.getStartSampleIndex();
+            final int idx = i;
 
-              int mosiValue = ds.isMosiData() ? ds.getDataValue() : 0;
-              int misoValue = ds.isMisoData() ? ds.getDataValue() : 0;
+            int mosiValue = ds.isMosiData() ? ds.getDataValue() : 0;
+            int misoValue = ds.isMisoData() ? ds.getDataValue() : 0;
 
-              // Try to coalesce equal timestamps...
-              if ( ( i + 1 ) < decodedData.size() )
+            // Try to coalesce equal timestamps...
+            if ( ( i + 1 ) < decodedData.size() )
+            {
+              final SPIData nextDS = decodedData.get( i + 1 );
+              if ( nextDS.getStartSampleIndex() == sampleIdx )
               {
-                final SPIData nextDS = decodedData.get( i + 1 );
-                if ( nextDS.getStartSampleIndex() == sampleIdx )
-                {
-                  mosiValue = nextDS.isMosiData() ? nextDS.getDataValue() : mosiValue;
-                  misoValue = nextDS.isMisoData() ? nextDS.getDataValue() : misoValue;
-                  // Make sure to skip this DS in the next iteration...
-                  i++;
-                }
+                mosiValue = nextDS.isMosiData() ? nextDS.getDataValue() : mosiValue;
+                misoValue = nextDS.isMisoData() ? nextDS.getDataValue() : misoValue;
+                // Make sure to skip this DS in the next iteration...
+                i++;
               }
-
-              // MOSI value first, MISO value next...
-              addDataValues( tr, i, sampleIdx, mosiValue );
-              addDataValues( tr, i, sampleIdx, misoValue );
             }
+
+            // MOSI value first, MISO value next...
+            aWriter.addRow( null, String.valueOf( idx ), UnitOfTime.format( aDataSet.getTime( sampleIdx ) ),
+                "0x".concat( toHex( mosiValue ) ), "0b".concat( toBin( mosiValue ) ), String.valueOf( mosiValue ),
+                toASCII( mosiValue ), "0x".concat( toHex( misoValue ) ), "0b".concat( toBin( misoValue ) ),
+                String.valueOf( misoValue ), toASCII( misoValue ) );
           }
         }
 
-        return null;
+        return true;
       }
 
-      /**
-       * @param aTableRow
-       * @param aIdx
-       * @param aSampleIdx
-       * @param aValue
-       */
-      private void addDataValues( final Element aTableRow, final int aIdx, final int aSampleIdx, final int aValue )
+      private String toASCII( final int aValue )
       {
-        final String mosiDataHex = StringUtils.integerToHexString( aValue, ( bitCount / 4 ) + bitAdder );
-        final String mosiDataBin = StringUtils.integerToBinString( aValue, bitCount );
-        final String mosiDataDec = String.valueOf( aValue );
-        final String mosiDataASCII;
-        if ( Character.isLetterOrDigit( aValue ) )
-        {
-          mosiDataASCII = Character.toString( ( char )aValue );
-        }
-        else
-        {
-          mosiDataASCII = "";
-        }
+        return Character.isLetterOrDigit( aValue ) ? Character.toString( ( char )aValue ) : "";
+      }
 
-        aTableRow.addChild( TD ).addContent( "0x", mosiDataHex );
-        aTableRow.addChild( TD ).addContent( "0b", mosiDataBin );
-        aTableRow.addChild( TD ).addContent( mosiDataDec );
-        aTableRow.addChild( TD ).addContent( mosiDataASCII );
+      private String toBin( final int aValue )
+      {
+        return StringUtils.integerToBinString( aValue, bitCount );
       }
-    };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
+      private String toHex( final int aValue )
+      {
+        return StringUtils.integerToHexString( aValue, ( bitCount / 4 ) + bitAdder );
+      }
+    };
 
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
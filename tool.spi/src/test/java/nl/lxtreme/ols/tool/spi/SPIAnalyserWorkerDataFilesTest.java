@@ -27,6 +27,7 @@ import java.net.*;
 import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.test.*;
@@ -126,6 +127,95 @@ public class SPIAnalyserWorkerDataFilesTest
     assertEventCount( result, SPIDataSet.SPI_MOSI, this.expectedMosiSymbolCount );
   }
 
+  /**
+   * Tests that decoding the chip-select framed transactions in parallel yields
+   * the same results as decoding them sequentially.
+   */
+  @Test
+  public void testAnalyzeDataFileInParallel() throws Exception
+  {
+    final List<Annotation<?>> expectedAnnotations = new ArrayList<Annotation<?>>();
+    final SPIDataSet expected = analyseDataFile( this.resourceName, false, false, expectedAnnotations );
+
+    final List<Annotation<?>> annotations = new ArrayList<Annotation<?>>();
+    final SPIDataSet result = analyseDataFile( this.resourceName, true, false, annotations );
+
+    assertEqualResults( expected, expectedAnnotations, result, annotations );
+  }
+
+  /**
+   * Tests that the chip-select events are reported when requested, and that
+   * decoding in parallel reports them in the same way as decoding
+   * sequentially.
+   */
+  @Test
+  public void testAnalyzeDataFileWithCSReportingInParallel() throws Exception
+  {
+    final List<Annotation<?>> expectedAnnotations = new ArrayList<Annotation<?>>();
+    final SPIDataSet expected = analyseDataFile( this.resourceName, false, true, expectedAnnotations );
+
+    assertTrue( "No CS events reported?!", countEvents( expected, SPIDataSet.SPI_CS_LOW ) > 0 );
+    assertTrue( "No CS events reported?!", countEvents( expected, SPIDataSet.SPI_CS_HIGH ) > 0 );
+    assertEventCount( expected, SPIDataSet.SPI_MISO, this.expectedMisoSymbolCount );
+    assertEventCount( expected, SPIDataSet.SPI_MOSI, this.expectedMosiSymbolCount );
+
+    final List<Annotation<?>> annotations = new ArrayList<Annotation<?>>();
+    final SPIDataSet result = analyseDataFile( this.resourceName, true, true, annotations );
+
+    assertEqualResults( expected, expectedAnnotations, result, annotations );
+  }
+
+  /**
+   * Asserts that the given results are equal, including their annotations.
+   */
+  private static void assertEqualResults( final SPIDataSet aExpected, final List<Annotation<?>> aExpectedAnnotations,
+      final SPIDataSet aResult, final List<Annotation<?>> aAnnotations )
+  {
+    final List<SPIData> expectedData = aExpected.getData();
+    final List<SPIData> data = aResult.getData();
+    assertEquals( expectedData.size(), data.size() );
+    for ( int i = 0; i < expectedData.size(); i++ )
+    {
+      final SPIData expectedEntry = expectedData.get( i );
+      final SPIData entry = data.get( i );
+      assertEquals( "Data at index " + i + " not equal, ", expectedEntry, entry );
+      assertEquals( expectedEntry.getDataName(), entry.getDataName() );
+      assertEquals( expectedEntry.getEventName(), entry.getEventName() );
+    }
+
+    assertEquals( aExpectedAnnotations.size(), aAnnotations.size() );
+    for ( int i = 0; i < aExpectedAnnotations.size(); i++ )
+    {
+      final Annotation<?> expectedAnnotation = aExpectedAnnotations.get( i );
+      final Annotation<?> annotation = aAnnotations.get( i );
+      assertEquals( expectedAnnotation.getChannel(), annotation.getChannel() );
+      assertEquals( String.valueOf( expectedAnnotation.getAnnotation() ), String.valueOf( annotation.getAnnotation() ) );
+      if ( expectedAnnotation instanceof DataAnnotation<?> )
+      {
+        assertEquals( ( ( DataAnnotation<?> )expectedAnnotation ).getStartTimestamp(),
+            ( ( DataAnnotation<?> )annotation ).getStartTimestamp() );
+        assertEquals( ( ( DataAnnotation<?> )expectedAnnotation ).getEndTimestamp(),
+            ( ( DataAnnotation<?> )annotation ).getEndTimestamp() );
+      }
+    }
+  }
+
+  /**
+   * Counts the number of events with the given name.
+   */
+  private static int countEvents( final SPIDataSet aDataSet, final String aEventName )
+  {
+    int count = 0;
+    for ( SPIData data : aDataSet.getData() )
+    {
+      if ( data.isEvent() && aEventName.equals( data.getEventName() ) )
+      {
+        count++;
+      }
+    }
+    return count;
+  }
+
   /**
    * Analyses the data file identified by the given resource name.
    * 
@@ -137,18 +227,61 @@ public class SPIAnalyserWorkerDataFilesTest
    *           in case of exceptions.
    */
   private SPIDataSet analyseDataFile( final String aResourceName ) throws Exception
+  {
+    return analyseDataFile( aResourceName, false, false, new ArrayList<Annotation<?>>() );
+  }
+
+  /**
+   * Analyses the data file identified by the given resource name.
+   * 
+   * @param aResourceName
+   *          the name of the resource (= data file) to analyse, cannot be
+   *          <code>null</code>;
+   * @param aParallel
+   *          <code>true</code> to decode the data in (many, small) parallel
+   *          chunks, <code>false</code> to decode it sequentially;
+   * @param aReportCS
+   *          <code>true</code> to report chip-select events,
+   *          <code>false</code> otherwise;
+   * @param aAnnotations
+   *          the list to add all reported annotations to.
+   * @return the analysis results, never <code>null</code>.
+   * @throws Exception
+   *           in case of exceptions.
+   */
+  private SPIDataSet analyseDataFile( final String aResourceName, final boolean aParallel, final boolean aReportCS,
+      final List<Annotation<?>> aAnnotations ) throws Exception
   {
     URL resource = ResourceUtils.getResource( getClass(), aResourceName );
     AcquisitionResult container = DataTestUtils.getCapturedData( resource );
     ToolContext toolContext = DataTestUtils.createToolContext( container );
 
     ToolProgressListener tpl = Mockito.mock( ToolProgressListener.class );
-    AnnotationListener al = Mockito.mock( AnnotationListener.class );
+    AnnotationListener al = new AnnotationListener()
+    {
+      @Override
+      public void clearAnnotations()
+      {
+        aAnnotations.clear();
+      }
+
+      @Override
+      public void clearAnnotations( final int aChannelIdx )
+      {
+        // Nothing to clear...
+      }
+
+      @Override
+      public void onAnnotation( final Annotation<?> aAnnotation )
+      {
+        aAnnotations.add( aAnnotation );
+      }
+    };
 
     SPIAnalyserTask worker = new SPIAnalyserTask( toolContext, tpl, al );
     worker.setBitCount( this.bitCount - 1 );
     worker.setHonourCS( this.honourCS );
-    worker.setReportCS( false );
+    worker.setReportCS( aReportCS );
     worker.setProtocol( SPIFIMode.STANDARD );
     worker.setSPIMode( this.spiMode );
     worker.setOrder( this.bitOrder );
@@ -156,6 +289,8 @@ public class SPIAnalyserWorkerDataFilesTest
     worker.setIO1Index( this.channels[0] );
     worker.setCSIndex( this.channels[2] );
     worker.setSCKIndex( this.channels[3] );
+    worker.setParallel( aParallel );
+    worker.setParallelism( 4, 16 );
 
     SPIDataSet result = worker.call();
     assertNotNull( result );
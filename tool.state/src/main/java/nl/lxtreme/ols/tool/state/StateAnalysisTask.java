@@ -66,21 +66,21 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
   @Override
   public CapturedData call() throws Exception
   {
-    final AcquisitionResult data = this.context.getData();
+    // Only analyse the samples between the cursors (if set)...
+    final AcquisitionResultView data = this.context.getWindowedData();
 
-    // obtain data from captured data
-    final int[] values = data.getValues();
-    final long triggerPosition = data.getTriggerPosition();
+    final int length = data.getLength();
+    final int triggerIdx = data.getTriggerIndex();
 
     final int maskValue = 1 << this.number;
 
     int size = 0;
-    int last = ( values[0] & maskValue ) >> this.number;
+    int last = ( length > 0 ) ? ( ( data.getValue( 0 ) & maskValue ) >> this.number ) : 0;
 
     // calculate new sample array size
-    for ( final int value : values )
+    for ( int i = 0; i < length; i++ )
     {
-      final int current = ( value & maskValue ) >> this.number;
+      final int current = ( data.getValue( i ) & maskValue ) >> this.number;
       if ( ( last == this.level ) && ( current != this.level ) )
       {
         size++;
@@ -95,19 +95,19 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
     }
 
     // convert captured data
-    last = values[0] & maskValue;
+    last = ( data.getValue( 0 ) & maskValue ) >> this.number;
     int pos = 0;
     int newTrigger = -1;
 
     final int[] newValues = new int[size];
-    for ( int i = 0; i < values.length; i++ )
+    for ( int i = 0; i < length; i++ )
     {
-      final int current = ( values[i] & maskValue ) >> this.number;
+      final int current = ( data.getValue( i ) & maskValue ) >> this.number;
       if ( ( last == this.level ) && ( current != this.level ) )
       {
-        newValues[pos++] = values[i - 1];
+        newValues[pos++] = data.getValue( i - 1 );
       }
-      if ( triggerPosition == i )
+      if ( triggerIdx == i )
       {
         newTrigger = pos;
       }
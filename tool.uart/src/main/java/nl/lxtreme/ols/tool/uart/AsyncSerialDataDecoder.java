@@ -352,6 +352,7 @@ public class AsyncSerialDataDecoder
 
   private SerialDecoderCallback callback;
   private ToolProgressListener progressListener;
+  private ChannelPrefixSums transitions;
 
   // CONSTRUCTORS
 
@@ -402,6 +403,26 @@ public class AsyncSerialDataDecoder
    */
   public int decodeDataLine( final int aChannelIndex )
   {
+    if ( ( this.transitions == null ) || ( this.transitions.getChannelIdx() != aChannelIndex ) )
+    {
+      this.transitions = ChannelPrefixSums.get( this.dataSet, aChannelIndex )[0];
+    }
+    return decodeDataLine( this.transitions );
+  }
+
+  /**
+   * Decodes a serial data line using its (already determined) transitions.
+   * 
+   * @param aTransitions
+   *          the transitions of the channel to decode, cannot be
+   *          <code>null</code>;
+   * @return the number of decoded symbols, >= 0.
+   */
+  public int decodeDataLine( final ChannelPrefixSums aTransitions )
+  {
+    this.transitions = aTransitions;
+
+    final int channelIndex = aTransitions.getChannelIdx();
     final int frameSize = this.configuration.getFrameSize( this.dataSet.getSampleRate() );
     final int bitLength = this.configuration.getBitLength( this.dataSet.getSampleRate() );
     final int bitCount = this.configuration.getDataBits();
@@ -410,7 +431,7 @@ public class AsyncSerialDataDecoder
     final Parity parity = this.configuration.getParity();
 
     final int bitCenter = bitLength / 2;
-    final int mask = ( 1 << aChannelIndex );
+    final int mask = ( 1 << channelIndex );
 
     final long[] timestamps = this.dataSet.getTimestamps();
 
@@ -428,7 +449,7 @@ public class AsyncSerialDataDecoder
        * find first falling edge this is the start of the startbit. If the
        * signal is inverted, find the first rising edge.
        */
-      time = findStartBit( aChannelIndex, isInverted() ? Edge.RISING : Edge.FALLING, time, endOfDecode );
+      time = findStartBit( channelIndex, isInverted() ? Edge.RISING : Edge.FALLING, time, endOfDecode );
       if ( time < 0 )
       {
         // No more start bits; stop the decoding process...
@@ -441,7 +462,7 @@ public class AsyncSerialDataDecoder
       if ( !isSpace( time, mask ) && ( this.callback != null ) )
       {
         // this is not a start bit !
-        this.callback.onError( aChannelIndex, ErrorType.START, time );
+        this.callback.onError( channelIndex, ErrorType.START, time );
       }
 
       // Keep track of where the symbol originally started; note that we're
@@ -469,7 +490,7 @@ public class AsyncSerialDataDecoder
       symbolCount++;
       if ( this.callback != null )
       {
-        this.callback.onSymbol( aChannelIndex, symbol, startTime, endTime );
+        this.callback.onSymbol( channelIndex, symbol, startTime, endTime );
       }
 
       // Sample parity bit (if available/desired).
@@ -491,7 +512,7 @@ public class AsyncSerialDataDecoder
         time += bitLength; // = middle of the parity bit...
         if ( !isExpectedLevel( time, mask, expectedValue ) && ( this.callback != null ) )
         {
-          this.callback.onError( aChannelIndex, ErrorType.PARITY, time );
+          this.callback.onError( channelIndex, ErrorType.PARITY, time );
         }
       }
 
@@ -503,7 +524,7 @@ public class AsyncSerialDataDecoder
       {
         if ( !isMark( time, mask ) && ( this.callback != null ) )
         {
-          this.callback.onError( aChannelIndex, ErrorType.FRAME, time );
+          this.callback.onError( channelIndex, ErrorType.FRAME, time );
         }
         stopBitCount -= ( ( stopBitCount > 1.0 ) ? 1.0 : stopBitCount );
 
@@ -558,6 +579,12 @@ public class AsyncSerialDataDecoder
   protected final long findEdge( final int aChannelIndex, final Edge aSampleEdge, final long aStartOfDecode,
       final long aEndOfDecode )
   {
+    final ChannelPrefixSums channelTransitions = this.transitions;
+    if ( ( channelTransitions != null ) && ( channelTransitions.getChannelIdx() == aChannelIndex ) )
+    {
+      return findEdge( channelTransitions, aSampleEdge, aStartOfDecode, aEndOfDecode );
+    }
+
     final int mask = ( 1 << aChannelIndex );
     long result = -1;
 
@@ -578,6 +605,47 @@ public class AsyncSerialDataDecoder
     return result;
   }
 
+  /**
+   * Finds a certain type of edge between the two given timestamps using the
+   * transitions of a channel, which yields the same result as scanning all
+   * timestamps in between.
+   * 
+   * @param aTransitions
+   *          the transitions of the channel to find the edge on;
+   * @param aSampleEdge
+   *          the edge to find, cannot be <code>null</code>
+   * @param aStartOfDecode
+   *          the timestamp to start searching;
+   * @param aEndOfDecode
+   *          the timestamp to end the search;
+   * @return the time at which the edge was found, -1 if it is not found.
+   */
+  private long findEdge( final ChannelPrefixSums aTransitions, final Edge aSampleEdge, final long aStartOfDecode,
+      final long aEndOfDecode )
+  {
+    final boolean inverted = isInverted();
+    final int count = aTransitions.getEdgeCount();
+
+    // The value of a timestamp is that of the sample right before it, hence a
+    // transition is "seen" one time unit after its timestamp...
+    for ( int i = aTransitions.findNextEdgeAtTime( aStartOfDecode ); i < count; i++ )
+    {
+      final long timeCursor = aTransitions.getEdgeTimestamp( i ) + 1;
+      if ( timeCursor >= aEndOfDecode )
+      {
+        break;
+      }
+
+      final Edge edge = ( aTransitions.isRising( i ) != inverted ) ? Edge.RISING : Edge.FALLING;
+      if ( aSampleEdge == edge )
+      {
+        return timeCursor;
+      }
+    }
+
+    return -1;
+  }
+
   /**
    * Find first falling edge this is the start of the start bit. If the signal
    * is inverted, find the first rising edge.
@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.tool.uart;
 
 
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.util.analysis.*;
 
 
@@ -34,7 +35,7 @@ public final class BaudRateAnalyzer
   // VARIABLES
 
   private final double sampleRate;
-  private final Frequency<Integer> statData;
+  private final IntFrequency statData;
 
   // CONSTRUCTORS
 
@@ -49,12 +50,12 @@ public final class BaudRateAnalyzer
   public BaudRateAnalyzer( final int aSampleRate, final int aFixedBaudRate )
   {
     this.sampleRate = aSampleRate;
-    this.statData = new Frequency<Integer>();
+    this.statData = new IntFrequency();
 
     // We already know our baudrate, so lets put a single value for the
     // corresponding bitlength in our frequency mapping to let it be used...
     final int bitLength = ( int )Math.round( aSampleRate / ( double )aFixedBaudRate );
-    this.statData.addValue( Integer.valueOf( bitLength ) );
+    this.statData.addValue( bitLength );
   }
 
   /**
@@ -72,7 +73,7 @@ public final class BaudRateAnalyzer
   public BaudRateAnalyzer( final int aSampleRate, final int[] aValues, final long[] aTimestamps, final int aMask )
   {
     this.sampleRate = aSampleRate;
-    this.statData = new Frequency<Integer>();
+    this.statData = new IntFrequency();
 
     long lastTransition = 0;
     int lastBitValue = aValues[0] & aMask;
@@ -84,7 +85,7 @@ public final class BaudRateAnalyzer
       if ( lastBitValue != bitValue )
       {
         final int bitLength = ( int )( aTimestamps[i] - lastTransition );
-        this.statData.addValue( Integer.valueOf( bitLength ) );
+        this.statData.addValue( bitLength );
 
         lastTransition = aTimestamps[i];
       }
@@ -93,6 +94,56 @@ public final class BaudRateAnalyzer
     }
   }
 
+  /**
+   * Creates a new {@link BaudRateAnalyzer} instance.
+   * 
+   * @param aSampleRate
+   *          the sample rate at which the incoming data was sampled;
+   * @param aTransitions
+   *          the transitions of the channel to determine the baudrate for,
+   *          cannot be <code>null</code>.
+   */
+  public BaudRateAnalyzer( final int aSampleRate, final ChannelPrefixSums aTransitions )
+  {
+    this.sampleRate = aSampleRate;
+    this.statData = new IntFrequency();
+
+    long lastTransition = 0;
+
+    final int count = aTransitions.getEdgeCount();
+    for ( int i = 0; i < count; i++ )
+    {
+      final long transition = aTransitions.getEdgeTimestamp( i );
+
+      final int bitLength = ( int )( transition - lastTransition );
+      this.statData.addValue( bitLength );
+
+      lastTransition = transition;
+    }
+  }
+
+  /**
+   * Creates a new {@link BaudRateAnalyzer} instance.
+   * 
+   * @param aSampleRate
+   *          the sample rate at which the incoming data was sampled;
+   * @param aStatistics
+   *          the precalculated statistics of the channel to determine the
+   *          baudrate for, cannot be <code>null</code>.
+   */
+  public BaudRateAnalyzer( final int aSampleRate, final ChannelStatistics aStatistics )
+  {
+    this.sampleRate = aSampleRate;
+    this.statData = new IntFrequency();
+
+    // The most common pulse width is the best bit length...
+    final int bitLength = aStatistics.getMostCommonPulseWidth();
+    if ( bitLength > 0 )
+    {
+      this.statData.addValue( bitLength );
+    }
+  }
+
   // METHODS
 
   /**
@@ -150,7 +201,6 @@ public final class BaudRateAnalyzer
    */
   public int getBestBitLength()
   {
-    final Integer highestRanked = this.statData.getHighestRanked();
-    return ( highestRanked == null ) ? -1 : highestRanked.intValue();
+    return this.statData.getHighestRanked( -1 );
   }
 }
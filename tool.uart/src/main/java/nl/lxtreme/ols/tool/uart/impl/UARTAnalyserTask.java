@@ -23,12 +23,17 @@ package nl.lxtreme.ols.tool.uart.impl;
 
 import static nl.lxtreme.ols.util.NumberUtils.*;
 
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.data.annotation.*;
 import nl.lxtreme.ols.api.data.annotation.AnnotationListener;
 import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.tool.base.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.tool.uart.*;
 import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.ErrorType;
@@ -36,6 +41,7 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.Parity;
 import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialConfiguration;
 import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.SerialDecoderCallback;
 import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.StopBits;
+import nl.lxtreme.ols.util.*;
 
 
 /**
@@ -43,6 +49,71 @@ import nl.lxtreme.ols.tool.uart.AsyncSerialDataDecoder.StopBits;
  */
 public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 {
+  // INNER TYPES
+
+  /**
+   * Decodes a single data or control line into its own data set.
+   */
+  final class LineDecoder implements Callable<LineDecoder>, ToolProgressListener
+  {
+    // VARIABLES
+
+    final int lineIdx;
+    final ChannelPrefixSums transitions;
+    final int eventType;
+    final String label;
+    final UARTDataSet dataSet;
+    final AnnotationBuffer annotations;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new LineDecoder instance.
+     */
+    LineDecoder( final int aLineIdx, final ChannelPrefixSums aTransitions, final int aEventType,
+        final String aLabel, final UARTDataSet aDataSet )
+    {
+      this.lineIdx = aLineIdx;
+      this.transitions = aTransitions;
+      this.eventType = aEventType;
+      this.label = aLabel;
+      this.dataSet = new UARTDataSet( aDataSet.getStartOfDecode(), aDataSet.getEndOfDecode(),
+          UARTAnalyserTask.this.context.getData() );
+      this.annotations = new AnnotationBuffer();
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public LineDecoder call() throws Exception
+    {
+      final int channelIdx = this.transitions.getChannelIdx();
+
+      prepareResult( this.annotations, channelIdx, this.label );
+      if ( this.eventType == UARTData.UART_TYPE_EVENT )
+      {
+        decodeControl( this.dataSet, this, this.transitions, this.label );
+      }
+      else
+      {
+        decodeData( this.dataSet, this.annotations, this, this.transitions, this.eventType );
+      }
+      return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setProgress( final int aPercentage )
+    {
+      updateProgress( this.lineIdx, aPercentage );
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( UARTAnalyserTask.class.getName() );
@@ -73,6 +144,9 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   private Parity parity;
   private int bitCount;
   private int baudRate;
+  private int threadCount;
+
+  private volatile AtomicIntegerArray lineProgress;
 
   // CONSTRUCTORS
 
@@ -96,6 +170,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     this.dsrIndex = -1;
     this.dtrIndex = -1;
     this.baudRate = -1;
+    this.threadCount = ParallelUtils.getParallelism();
   }
 
   // METHODS
@@ -145,40 +220,24 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
 
     final UARTDataSet decodedData = new UARTDataSet( startOfDecode, endOfDecode, data );
 
-    // decode RxD/TxD data lines...
-    if ( this.rxdIndex >= 0 )
-    {
-      prepareAndDecodeData( decodedData, this.rxdIndex, UARTData.UART_TYPE_RXDATA, UARTDataSet.UART_RXD );
-    }
-    if ( this.txdIndex >= 0 )
-    {
-      prepareAndDecodeData( decodedData, this.txdIndex, UARTData.UART_TYPE_TXDATA, UARTDataSet.UART_TXD );
-    }
+    // Determine the transitions of all lines in a single pass; they are used
+    // for both the baudrate detection and the decoding of the lines...
+    final List<LineDecoder> lines = createLineDecoders( decodedData );
 
-    // decode control lines...
-    if ( this.ctsIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.ctsIndex, UARTDataSet.UART_CTS );
-    }
-    if ( this.rtsIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.rtsIndex, UARTDataSet.UART_RTS );
-    }
-    if ( this.dcdIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.dcdIndex, UARTDataSet.UART_DCD );
-    }
-    if ( this.riIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.riIndex, UARTDataSet.UART_RI );
-    }
-    if ( this.dsrIndex >= 0 )
+    // Decode all lines (concurrently), and merge their results in the order of
+    // the lines: RxD, TxD, followed by the control lines...
+    for ( LineDecoder line : decodeLines( lines ) )
     {
-      prepareAndDecodeControl( decodedData, this.dsrIndex, UARTDataSet.UART_DSR );
-    }
-    if ( this.dtrIndex >= 0 )
-    {
-      prepareAndDecodeControl( decodedData, this.dtrIndex, UARTDataSet.UART_DTR );
+      line.annotations.replay( this.annotationListener );
+      decodedData.addAll( line.dataSet );
+
+      final int bitLength = line.dataSet.getBitLength();
+      if ( bitLength > 0 )
+      {
+        decodedData.setSampledBitLength( bitLength );
+        decodedData.setBaudRateExact( line.dataSet.getBaudRateExact() );
+        decodedData.setBaudRate( line.dataSet.getBaudRate() );
+      }
     }
 
     // sort the results by time
@@ -315,6 +374,18 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     this.rxdIndex = aRxdIndex;
   }
 
+  /**
+   * Sets the maximum number of threads used to decode the selected lines
+   * concurrently. Defaults to the number of available processors.
+   * 
+   * @param aThreadCount
+   *          the maximum number of threads to use, &gt; 0.
+   */
+  public void setThreadCount( final int aThreadCount )
+  {
+    this.threadCount = aThreadCount;
+  }
+
   /**
    * @param aStopBits
    */
@@ -335,6 +406,8 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   /**
    * Emits a new symbol annotation to the interested listener(s).
    * 
+   * @param aListener
+   *          the listener to emit the annotation to;
    * @param aChannelIndex
    *          the channel index on which the symbol was found;
    * @param aSymbol
@@ -344,10 +417,10 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    * @param aEndSampleIdx
    *          the end sample index of the symbol.
    */
-  private void addSymbolAnnotation( final int aChannelIndex, final int aSymbol, final long aStartTimestamp,
-      final long aEndTimestamp )
+  private void addSymbolAnnotation( final AnnotationListener aListener, final int aChannelIndex, final int aSymbol,
+      final long aStartTimestamp, final long aEndTimestamp )
   {
-    this.annotationListener.onAnnotation( new SampleDataAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp,
+    aListener.onAnnotation( new SampleDataAnnotation( aChannelIndex, aStartTimestamp, aEndTimestamp,
         String.format( "0x%1$X (%1$c)", Integer.valueOf( aSymbol ) ) ) );
   }
 
@@ -357,83 +430,170 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    * 
    * @param aData
    *          the acquisition results to use;
-   * @param aMask
-   *          the bit mask of the data to use.
+   * @param aTransitions
+   *          the transitions of the data line to use.
    * @return a {@link BaudRateAnalyzer} instance, never <code>null</code>.
    */
-  private BaudRateAnalyzer createBaudRateAnalyzer( final AcquisitionResult aData, final int aMask )
+  private BaudRateAnalyzer createBaudRateAnalyzer( final AcquisitionResult aData,
+      final ChannelPrefixSums aTransitions )
   {
     if ( this.baudRate == AUTO_DETECT_BAUDRATE )
     {
-      // Auto detect the baud rate...
-      return new BaudRateAnalyzer( aData.getSampleRate(), aData.getValues(), aData.getTimestamps(), aMask );
+      // Auto detect the baud rate, preferably using the precalculated channel
+      // statistics of the captured data...
+      if ( aData instanceof CapturedData )
+      {
+        final CaptureStatistics statistics = ( ( CapturedData )aData ).getStatistics();
+        if ( statistics != null )
+        {
+          return new BaudRateAnalyzer( aData.getSampleRate(),
+              statistics.getChannelStatistics( aTransitions.getChannelIdx() ) );
+        }
+      }
+      return new BaudRateAnalyzer( aData.getSampleRate(), aTransitions );
     }
     // Use a fixed baud rate...
     return new BaudRateAnalyzer( aData.getSampleRate(), this.baudRate );
   }
 
+  /**
+   * Creates the decoders for all selected lines, in the order in which their
+   * results should be merged.
+   * 
+   * @param aDataSet
+   *          the data set to decode the lines for.
+   * @return a list with line decoders, never <code>null</code>.
+   */
+  private List<LineDecoder> createLineDecoders( final UARTDataSet aDataSet )
+  {
+    final int[] indices = { this.rxdIndex, this.txdIndex, this.ctsIndex, this.rtsIndex, this.dcdIndex, this.riIndex,
+        this.dsrIndex, this.dtrIndex };
+    final int[] eventTypes = { UARTData.UART_TYPE_RXDATA, UARTData.UART_TYPE_TXDATA, UARTData.UART_TYPE_EVENT,
+        UARTData.UART_TYPE_EVENT, UARTData.UART_TYPE_EVENT, UARTData.UART_TYPE_EVENT, UARTData.UART_TYPE_EVENT,
+        UARTData.UART_TYPE_EVENT };
+    final String[] labels = { UARTDataSet.UART_RXD, UARTDataSet.UART_TXD, UARTDataSet.UART_CTS,
+        UARTDataSet.UART_RTS, UARTDataSet.UART_DCD, UARTDataSet.UART_RI, UARTDataSet.UART_DSR, UARTDataSet.UART_DTR };
+
+    int lineCount = 0;
+    final int[] channels = new int[indices.length];
+    for ( int index : indices )
+    {
+      if ( index >= 0 )
+      {
+        channels[lineCount++] = index;
+      }
+    }
+
+    final ChannelPrefixSums[] transitions = ChannelPrefixSums.get( this.context.getData(),
+        Arrays.copyOf( channels, lineCount ) );
+
+    final List<LineDecoder> result = new ArrayList<LineDecoder>( lineCount );
+    for ( int i = 0; i < indices.length; i++ )
+    {
+      if ( indices[i] >= 0 )
+      {
+        final int lineIdx = result.size();
+        result.add( new LineDecoder( lineIdx, transitions[lineIdx], eventTypes[i], labels[i], aDataSet ) );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Decodes the given lines, concurrently if possible.
+   * 
+   * @param aLines
+   *          the lines to decode, cannot be <code>null</code>.
+   * @return the decoded lines, in the same order as given.
+   */
+  private List<LineDecoder> decodeLines( final List<LineDecoder> aLines ) throws Exception
+  {
+    this.lineProgress = new AtomicIntegerArray( Math.max( 1, aLines.size() ) );
+
+    final int threads = Math.min( this.threadCount, aLines.size() );
+    if ( threads <= 1 )
+    {
+      for ( LineDecoder line : aLines )
+      {
+        line.call();
+      }
+      return aLines;
+    }
+
+    return ParallelUtils.invokeAll( aLines, Exception.class );
+  }
+
   /**
    * Decodes a control line.
    * 
    * @param aDataSet
    *          the data set to add the decoded data to;
-   * @param aChannelIndex
-   *          the channel index of the control-line to decode;
+   * @param aProgressListener
+   *          the listener to report the progress to;
+   * @param aTransitions
+   *          the transitions of the control-line to decode;
    * @param aName
    *          the name of the control line to decode.
    */
-  private void decodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aName )
+  private void decodeControl( final UARTDataSet aDataSet, final ToolProgressListener aProgressListener,
+      final ChannelPrefixSums aTransitions, final String aName )
   {
-    final AcquisitionResult data = this.context.getData();
-
     if ( LOG.isLoggable( Level.FINE ) )
     {
       LOG.log( Level.FINE, "Decoding control: {0} ...", aName );
     }
 
-    final int mask = ( 1 << aChannelIndex );
+    final int channelIndex = aTransitions.getChannelIdx();
 
     final int startSampleIdx = aDataSet.getStartOfDecode();
     final int endSampleIdx = aDataSet.getEndOfDecode();
 
-    final int[] values = data.getValues();
-    this.progressListener.setProgress( 0 );
+    aProgressListener.setProgress( 0 );
 
-    int oldValue = values[startSampleIdx] & mask;
-    for ( int i = startSampleIdx + 1; i < endSampleIdx; i++ )
+    final int count = aTransitions.getEdgeCount();
+    for ( int i = aTransitions.findNextEdge( startSampleIdx ); i < count; i++ )
     {
-      final int value = values[i] & mask;
+      final int sampleIdx = aTransitions.getEdge( i );
+      if ( sampleIdx >= endSampleIdx )
+      {
+        break;
+      }
 
-      final Edge edge = Edge.toEdge( oldValue, value );
-      if ( edge.isRising() )
+      if ( aTransitions.isRising( i ) )
       {
-        aDataSet.reportControlHigh( aChannelIndex, i, aName );
+        aDataSet.reportControlHigh( channelIndex, sampleIdx, aName );
       }
-      if ( edge.isFalling() )
+      else
       {
-        aDataSet.reportControlLow( aChannelIndex, i, aName );
+        aDataSet.reportControlLow( channelIndex, sampleIdx, aName );
       }
-      oldValue = value;
 
       // update progress
-      this.progressListener.setProgress( getPercentage( i, startSampleIdx, endSampleIdx ) );
+      aProgressListener.setProgress( getPercentage( sampleIdx, startSampleIdx, endSampleIdx ) );
     }
+
+    aProgressListener.setProgress( 100 );
   }
 
   /**
    * @param aDataSet
    *          the data set to add the decoded data to;
-   * @param aChannelIndex
-   *          the channel index to decode;
+   * @param aListener
+   *          the annotation listener to report the decoded symbols to;
+   * @param aProgressListener
+   *          the listener to report the progress to;
+   * @param aTransitions
+   *          the transitions of the channel to decode;
    * @param aType
    *          type of the data (rx or tx)
    */
-  private void decodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType )
+  private void decodeData( final UARTDataSet aDataSet, final AnnotationListener aListener,
+      final ToolProgressListener aProgressListener, final ChannelPrefixSums aTransitions, final int aEventType )
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int mask = ( 1 << aChannelIndex );
-    final BaudRateAnalyzer baudrateAnalyzer = createBaudRateAnalyzer( data, mask );
+    final int channelIndex = aTransitions.getChannelIdx();
+    final BaudRateAnalyzer baudrateAnalyzer = createBaudRateAnalyzer( data, aTransitions );
 
     final int bitLength = baudrateAnalyzer.getBestBitLength();
 
@@ -442,7 +602,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     if ( bitLength <= 0 )
     {
       LOG.log( Level.INFO, "No (usable) {0}-data found for determining bitlength/baudrate ...",
-          aChannelIndex == this.rxdIndex ? UARTDataSet.UART_RXD : UARTDataSet.UART_TXD );
+          channelIndex == this.rxdIndex ? UARTDataSet.UART_RXD : UARTDataSet.UART_TXD );
     }
     else
     {
@@ -463,7 +623,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
           this.stopBits, this.parity, this.inverted, this.inversed );
 
       AsyncSerialDataDecoder decoder = new AsyncSerialDataDecoder( config, this.context );
-      decoder.setProgressListener( this.progressListener );
+      decoder.setProgressListener( aProgressListener );
       decoder.setCallback( new SerialDecoderCallback()
       {
         @Override
@@ -488,12 +648,12 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
           final int startSampleIdx = Math.max( data.getSampleIndex( aStartTime ), 0 );
           final int endSampleIdx = Math.min( data.getSampleIndex( aEndTime ), data.getTimestamps().length - 1 );
 
-          aDataSet.reportData( aChannelIndex, startSampleIdx, endSampleIdx, aSymbol, aEventType );
+          aDataSet.reportData( channelIndex, startSampleIdx, endSampleIdx, aSymbol, aEventType );
 
-          addSymbolAnnotation( aChannelIndex, aSymbol, aStartTime, aEndTime );
+          addSymbolAnnotation( aListener, channelIndex, aSymbol, aStartTime, aEndTime );
         }
       } );
-      decoder.decodeDataLine( aChannelIndex );
+      decoder.decodeDataLine( aTransitions );
     }
   }
 
@@ -558,51 +718,42 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
   }
 
   /**
-   * Prepares and decoded the control line indicated by the given channel index.
+   * Determines the resulting channel label and clears any existing annotations.
    * 
-   * @param aDataSet
-   *          the dataset to add the decoding results to;
+   * @param aListener
+   *          the annotation listener to use;
    * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
+   *          the channel index of the channel to prepare;
+   * @param aLabel
+   *          the default label to use for the channel (in case none is set).
    */
-  private void prepareAndDecodeControl( final UARTDataSet aDataSet, final int aChannelIndex, final String aDefaultLabel )
+  private void prepareResult( final AnnotationListener aListener, final int aChannelIndex, final String aLabel )
   {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeControl( aDataSet, aChannelIndex, aDefaultLabel );
+    aListener.clearAnnotations( aChannelIndex );
+    aListener.onAnnotation( new ChannelLabelAnnotation( aChannelIndex, aLabel ) );
   }
 
   /**
-   * Prepares and decoded the data line indicated by the given channel index.
+   * Reports the progress of a single line as part of the overall progress.
    * 
-   * @param aDataSet
-   *          the dataset to add the decoding results to;
-   * @param aChannelIndex
-   *          the channel index of the channel to decode;
-   * @param aEventType
-   *          the event type to use for the decoded data;
-   * @param aDefaultLabel
-   *          the default label to use for the decoded channel.
+   * @param aLineIdx
+   *          the index of the line whose progress is reported;
+   * @param aPercentage
+   *          the progress of the line, in percent.
    */
-  private void prepareAndDecodeData( final UARTDataSet aDataSet, final int aChannelIndex, final int aEventType,
-      final String aDefaultLabel )
+  final void updateProgress( final int aLineIdx, final int aPercentage )
   {
-    prepareResult( aChannelIndex, aDefaultLabel );
-    decodeData( aDataSet, aChannelIndex, aEventType );
-  }
+    final AtomicIntegerArray progress = this.lineProgress;
+    if ( ( progress == null ) || ( progress.getAndSet( aLineIdx, aPercentage ) == aPercentage ) )
+    {
+      return;
+    }
 
-  /**
-   * Determines the resulting channel label and clears any existing annotations.
-   * 
-   * @param aChannelIndex
-   *          the channel index of the channel to prepare;
-   * @param aLabel
-   *          the default label to use for the channel (in case none is set).
-   */
-  private void prepareResult( final int aChannelIndex, final String aLabel )
-  {
-    this.annotationListener.clearAnnotations( aChannelIndex );
-    this.annotationListener.onAnnotation( new ChannelLabelAnnotation( aChannelIndex, aLabel ) );
+    int total = 0;
+    for ( int i = 0; i < progress.length(); i++ )
+    {
+      total += progress.get( i );
+    }
+    this.progressListener.setProgress( total / progress.length() );
   }
 }
@@ -71,6 +71,35 @@ public final class UARTDataSet extends BaseDataSet<UARTData>
 
   // METHODS
 
+  /**
+   * Adds all data of the given data set to this data set, renumbering their
+   * indices. The baudrate and bit length of the given data set are ignored.
+   * 
+   * @param aDataSet
+   *          the data set whose data should be added, cannot be
+   *          <code>null</code>.
+   */
+  void addAll( final UARTDataSet aDataSet )
+  {
+    for ( UARTData data : aDataSet.getData() )
+    {
+      final int idx = size();
+      if ( data.isEvent() )
+      {
+        addData( new UARTData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEventName(),
+            data.getType() ) );
+      }
+      else
+      {
+        addData( new UARTData( idx, data.getChannelIdx(), data.getStartSampleIndex(), data.getEndSampleIndex(),
+            data.getData(), data.getType() ) );
+      }
+    }
+
+    this.decodedSymbols += aDataSet.decodedSymbols;
+    this.detectedErrors += aDataSet.detectedErrors;
+  }
+
   /**
    * Returns the "normalized" baudrate most people can recognize.
    * 
@@ -0,0 +1,172 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.tool.uart.impl;
+
+
+import java.awt.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.util.*;
+import nl.lxtreme.ols.tool.base.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a table model for the UART analysis results.
+ */
+final class UARTDataTableModel extends DataSetTableModel<UARTData>
+{
+  // CONSTANTS
+
+  private static final long serialVersionUID = 1L;
+
+  private static final Color EVENT_COLOR = new Color( 0xe0e0e0 );
+  private static final Color RXTX_EVENT_COLOR = new Color( 0xc0ffc0 );
+  private static final Color ERROR_COLOR = new Color( 0xff8000 );
+
+  // VARIABLES
+
+  private volatile int bitCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new UARTDataTableModel instance.
+   */
+  public UARTDataTableModel()
+  {
+    super( "Index", "Time", "RxD Hex", "RxD Bin", "RxD Dec", "RxD ASCII", "TxD Hex", "TxD Bin", "TxD Dec",
+        "TxD ASCII" );
+    this.bitCount = 8;
+  }
+
+  // METHODS
+
+  /**
+   * Returns whether the given value can be represented as an
+   * ASCII-character.
+   */
+  private static boolean isPrintableCharacter( final int aValue )
+  {
+    return ( aValue >= 32 ) && ( aValue < 255 );
+  }
+
+  /**
+   * Sets the number of data bits, used to format the decoded values.
+   * 
+   * @param aBitCount
+   *          the number of data bits, &gt; 0.
+   */
+  public void setBitCount( final int aBitCount )
+  {
+    this.bitCount = aBitCount;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Color getBackground( final BaseDataSet<UARTData> aDataSet, final int aDataIndex )
+  {
+    final UARTData data = aDataSet.getData().get( aDataIndex );
+    if ( !data.isEvent() )
+    {
+      return null;
+    }
+
+    final String event = data.getEventName();
+    if ( ( event != null ) && event.endsWith( "_ERR" ) )
+    {
+      return ERROR_COLOR;
+    }
+
+    switch ( data.getType() )
+    {
+      case UARTData.UART_TYPE_EVENT:
+        return EVENT_COLOR;
+      case UARTData.UART_TYPE_RXEVENT:
+      case UARTData.UART_TYPE_TXEVENT:
+        return RXTX_EVENT_COLOR;
+      default:
+        return ERROR_COLOR;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected Object getValue( final BaseDataSet<UARTData> aDataSet, final int aDataIndex, final int aColumnIndex )
+  {
+    final UARTData data = aDataSet.getData().get( aDataIndex );
+
+    switch ( aColumnIndex )
+    {
+      case 0:
+        return Integer.toString( aDataIndex );
+      case 1:
+        return UnitOfTime.format( aDataSet.getTime( data.getStartSampleIndex() ) );
+      default:
+        break;
+    }
+
+    final int type = data.getType();
+    // Columns 2..5 are used for RxD, columns 6..9 for TxD...
+    final boolean rxColumn = aColumnIndex < 6;
+    final int column = ( aColumnIndex - 2 ) % 4;
+
+    if ( data.isEvent() )
+    {
+      if ( column != 0 )
+      {
+        return null;
+      }
+      if ( ( type == UARTData.UART_TYPE_EVENT ) || ( rxColumn && ( type == UARTData.UART_TYPE_RXEVENT ) )
+          || ( !rxColumn && ( type == UARTData.UART_TYPE_TXEVENT ) ) )
+      {
+        return data.getEventName();
+      }
+      return null;
+    }
+
+    // Anything that is not RxD data is considered to be TxD data...
+    if ( rxColumn != ( type == UARTData.UART_TYPE_RXDATA ) )
+    {
+      return null;
+    }
+
+    final int bits = this.bitCount;
+    final int value = data.getData();
+    switch ( column )
+    {
+      case 0:
+        return "0x".concat( StringUtils.integerToHexString( value, ( bits / 4 ) + ( ( ( bits % 4 ) != 0 ) ? 1 : 0 ) ) );
+      case 1:
+        return "0b".concat( StringUtils.integerToBinString( value, bits ) );
+      case 2:
+        return Integer.toString( value );
+      default:
+        return isPrintableCharacter( value ) ? String.valueOf( ( char )value ) : null;
+    }
+  }
+}
+
+/* EOF */
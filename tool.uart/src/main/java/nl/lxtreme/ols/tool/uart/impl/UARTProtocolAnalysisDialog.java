@@ -47,6 +47,8 @@ import nl.lxtreme.ols.util.ExportUtils.CsvExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 import nl.lxtreme.ols.util.swing.*;
 import nl.lxtreme.ols.util.swing.component.*;
@@ -156,7 +158,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   private JCheckBox inverse;
   private JCheckBox autoDetectBaudRate;
   private JComboBox baudrate;
-  private JEditorPane outText;
+  private DataSetTableView<UARTData> resultView;
+  private UARTDataTableModel resultModel;
 
   private RestorableAction runAnalysisAction;
   private Action closeAction;
@@ -236,8 +239,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   @Override
   public void reset()
   {
-    this.outText.setText( getEmptyHtmlPage() );
-    this.outText.setEditable( false );
+    this.resultView.setDataSet( null );
+    this.resultView.setSummary( null );
 
     this.runAnalysisAction.restore();
 
@@ -275,32 +278,11 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   @Override
   protected void onToolEnded( final UARTDataSet aAnalysisResult )
   {
-    try
-    {
-      final String htmlPage;
-      if ( aAnalysisResult != null )
-      {
-        htmlPage = toHtmlPage( null /* aFile */, aAnalysisResult );
-      }
-      else
-      {
-        htmlPage = getEmptyHtmlPage();
-      }
+    this.resultModel.setBitCount( Integer.parseInt( ( String )this.bits.getSelectedItem() ) );
+    this.resultView.setDataSet( aAnalysisResult );
+    this.resultView.setSummary( ( aAnalysisResult != null ) ? getSummary( aAnalysisResult ) : null );
 
-      this.outText.setText( htmlPage );
-      this.outText.setEditable( false );
-
-      this.runAnalysisAction.restore();
-    }
-    catch ( final IOException exception )
-    {
-      // Make sure to handle IO-interrupted exceptions properly!
-      if ( !HostUtils.handleInterruptedException( exception ) )
-      {
-        // Should not happen in this situation!
-        throw new RuntimeException( exception );
-      }
-    }
+    this.runAnalysisAction.restore();
   }
 
   /**
@@ -453,14 +435,9 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
    */
   private JPanel createPreviewPane()
   {
-    final JPanel panTable = new JPanel( new GridLayout( 1, 1, 0, 0 ) );
-
-    this.outText = new JEditorPane( "text/html", getEmptyHtmlPage() );
-    this.outText.setEditable( false );
-
-    panTable.add( new JScrollPane( this.outText ) );
-
-    return panTable;
+    this.resultModel = new UARTDataTableModel();
+    this.resultView = new DataSetTableView<UARTData>( this.resultModel );
+    return this.resultView;
   }
 
   /**
@@ -572,37 +549,29 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   }
 
   /**
-   * generate a HTML page
+   * Returns a short summary of the given analysis results.
    * 
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aDataSet
+   *          the analysis results to summarize, cannot be <code>null</code>.
+   * @return a summary, as HTML string, never <code>null</code>.
    */
-  private String getEmptyHtmlPage()
+  private String getSummary( final UARTDataSet aDataSet )
   {
-    final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-    return exporter.toString( new MacroResolver()
+    final String baudrate;
+    if ( aDataSet.getBaudRate() <= 0 )
     {
-      @Override
-      public Object resolve( final String aMacro, final Element aParent )
-      {
-        if ( "date-now".equals( aMacro ) )
-        {
-          final DateFormat df = DateFormat.getDateInstance( DateFormat.LONG );
-          return df.format( new Date() );
-        }
-        else if ( "decoded-bytes".equals( aMacro ) || "detected-bus-errors".equals( aMacro )
-            || "baudrate".equals( aMacro ) )
-        {
-          return "-";
-        }
-        else if ( "decoded-data".equals( aMacro ) )
-        {
-          return null;
-        }
-        return null;
-      }
-    } );
+      baudrate = "<font color='red'>calculation failed!</font>";
+    }
+    else
+    {
+      final String exact = String.format( "%d (exact: %d)", Integer.valueOf( aDataSet.getBaudRate() ),
+          Integer.valueOf( aDataSet.getBaudRateExact() ) );
+      baudrate = aDataSet.isBitLengthUsable() ? exact : exact
+          .concat( " <font color='#ff8000'>may be wrong, use a higher samplerate!</font>" );
+    }
+
+    return String.format( "<html><b>Decoded bytes:</b> %d &nbsp; <b>Bus errors:</b> %d &nbsp; <b>Baudrate:</b> %s</html>",
+        Integer.valueOf( aDataSet.getDecodedSymbols() ), Integer.valueOf( aDataSet.getDetectedErrors() ), baudrate );
   }
 
   /**
@@ -730,18 +699,19 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
   }
 
   /**
-   * generate a HTML page
+   * Writes the given analysis results as HTML page to the given file.
    * 
-   * @param empty
-   *          if this is true an empty output is generated
-   * @return String with HTML data
+   * @param aFile
+   *          the file to write to, cannot be <code>null</code>;
+   * @param aDataSet
+   *          the analysis results to write, cannot be <code>null</code>.
    */
-  private String toHtmlPage( final File aFile, final UARTDataSet aDataSet ) throws IOException
+  private void toHtmlPage( final File aFile, final UARTDataSet aDataSet ) throws IOException
   {
     final int bitCount = Integer.parseInt( ( String )this.bits.getSelectedItem() );
     final int bitAdder = ( ( bitCount % 4 ) != 0 ) ? 1 : 0;
 
-    final MacroResolver macroResolver = new MacroResolver()
+    final MacroResolver macroResolver = new StreamingMacroResolver()
     {
       @Override
       public Object resolve( final String aMacro, final Element aParent )
@@ -779,106 +749,96 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
             return baudrate;
           }
         }
-        else if ( "decoded-data".equals( aMacro ) )
+        return null;
+      }
+
+      @Override
+      public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+      {
+        if ( !"decoded-data".equals( aMacro ) )
+        {
+          return false;
+        }
+
+        final List<UARTData> decodedData = aDataSet.getData();
+        for ( int i = 0; i < decodedData.size(); i++ )
         {
-          final List<UARTData> decodedData = aDataSet.getData();
-          Element tr;
+          final UARTData ds = decodedData.get( i );
+          final String time = UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) );
 
-          for ( int i = 0; i < decodedData.size(); i++ )
+          if ( ds.isEvent() )
           {
-            final UARTData ds = decodedData.get( i );
+            String rxEventData = "";
+            String txEventData = "";
 
-            if ( ds.isEvent() )
+            String bgColor;
+            if ( UARTData.UART_TYPE_EVENT == ds.getType() )
+            {
+              rxEventData = txEventData = ds.getEventName();
+              bgColor = "#e0e0e0";
+            }
+            else if ( UARTData.UART_TYPE_RXEVENT == ds.getType() )
+            {
+              rxEventData = ds.getEventName();
+              bgColor = "#c0ffc0";
+            }
+            else if ( UARTData.UART_TYPE_TXEVENT == ds.getType() )
+            {
+              txEventData = ds.getEventName();
+              bgColor = "#c0ffc0";
+            }
+            else
             {
-              String rxEventData = "";
-              String txEventData = "";
+              // unknown event
+              bgColor = "#ff8000";
+            }
 
-              String bgColor;
-              if ( UARTData.UART_TYPE_EVENT == ds.getType() )
-              {
-                rxEventData = txEventData = ds.getEventName();
-                bgColor = "#e0e0e0";
-              }
-              else if ( UARTData.UART_TYPE_RXEVENT == ds.getType() )
-              {
-                rxEventData = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else if ( UARTData.UART_TYPE_TXEVENT == ds.getType() )
-              {
-                txEventData = ds.getEventName();
-                bgColor = "#c0ffc0";
-              }
-              else
-              {
-                // unknown event
-                bgColor = "#ff8000";
-              }
+            if ( txEventData.endsWith( "_ERR" ) || rxEventData.endsWith( "_ERR" ) )
+            {
+              bgColor = "#ff8000";
+            }
+
+            aWriter.addRow( "background-color: " + bgColor + ";", String.valueOf( i ), time, rxEventData, null, null,
+                null, txEventData, null, null, null );
+          }
+          else
+          {
+            String rxDataHex = "", rxDataBin = "", rxDataDec = "", rxDataASCII = "";
+            String txDataHex = "", txDataBin = "", txDataDec = "", txDataASCII = "";
 
-              if ( txEventData.endsWith( "_ERR" ) || rxEventData.endsWith( "_ERR" ) )
+            // Normal data...
+            if ( UARTData.UART_TYPE_RXDATA == ds.getType() )
+            {
+              final int rxData = ds.getData();
+
+              rxDataHex = "0x" + StringUtils.integerToHexString( rxData, ( bitCount / 4 ) + bitAdder );
+              rxDataBin = "0b" + StringUtils.integerToBinString( rxData, bitCount );
+              rxDataDec = String.valueOf( rxData );
+              if ( isPrintableCharacter( rxData ) )
               {
-                bgColor = "#ff8000";
+                rxDataASCII = String.valueOf( ( char )rxData );
               }
-
-              tr = aParent.addChild( TR ).addAttribute( "style", "background-color: " + bgColor + ";" );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( rxEventData );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD ).addContent( txEventData );
-              tr.addChild( TD );
-              tr.addChild( TD );
-              tr.addChild( TD );
             }
             else
+            /* if ( UARTData.UART_TYPE_TXDATA == ds.getType() ) */
             {
-              String rxDataHex = "", rxDataBin = "", rxDataDec = "", rxDataASCII = "";
-              String txDataHex = "", txDataBin = "", txDataDec = "", txDataASCII = "";
+              final int txData = ds.getData();
 
-              // Normal data...
-              if ( UARTData.UART_TYPE_RXDATA == ds.getType() )
+              txDataHex = "0x" + StringUtils.integerToHexString( txData, ( bitCount / 4 ) + bitAdder );
+              txDataBin = "0b" + StringUtils.integerToBinString( txData, bitCount );
+              txDataDec = String.valueOf( txData );
+              if ( isPrintableCharacter( txData ) )
               {
-                final int rxData = ds.getData();
-
-                rxDataHex = "0x" + StringUtils.integerToHexString( rxData, ( bitCount / 4 ) + bitAdder );
-                rxDataBin = "0b" + StringUtils.integerToBinString( rxData, bitCount );
-                rxDataDec = String.valueOf( rxData );
-                if ( isPrintableCharacter( rxData ) )
-                {
-                  rxDataASCII = String.valueOf( ( char )rxData );
-                }
+                txDataASCII = String.valueOf( ( char )txData );
               }
-              else
-              /* if ( UARTData.UART_TYPE_TXDATA == ds.getType() ) */
-              {
-                final int txData = ds.getData();
-
-                txDataHex = "0x" + StringUtils.integerToHexString( txData, ( bitCount / 4 ) + bitAdder );
-                txDataBin = "0b" + StringUtils.integerToBinString( txData, bitCount );
-                txDataDec = String.valueOf( txData );
-                if ( isPrintableCharacter( txData ) )
-                {
-                  txDataASCII = String.valueOf( ( char )txData );
-                }
-              }
-
-              tr = aParent.addChild( TR );
-              tr.addChild( TD ).addContent( String.valueOf( i ) );
-              tr.addChild( TD ).addContent( UnitOfTime.format( aDataSet.getTime( ds.getStartSampleIndex() ) ) );
-              tr.addChild( TD ).addContent( rxDataHex );
-              tr.addChild( TD ).addContent( rxDataBin );
-              tr.addChild( TD ).addContent( rxDataDec );
-              tr.addChild( TD ).addContent( rxDataASCII );
-              tr.addChild( TD ).addContent( txDataHex );
-              tr.addChild( TD ).addContent( txDataBin );
-              tr.addChild( TD ).addContent( txDataDec );
-              tr.addChild( TD ).addContent( txDataASCII );
             }
+
+            aWriter.addRow( null, String.valueOf( i ), time, rxDataHex, rxDataBin, rxDataDec, rxDataASCII, txDataHex,
+                txDataBin, txDataDec, txDataASCII );
           }
         }
-        return null;
+
+        return true;
       }
 
       /**
@@ -897,18 +857,8 @@ public final class UARTProtocolAnalysisDialog extends BaseToolDialog<UARTDataSet
       }
     };
 
-    if ( aFile == null )
-    {
-      final HtmlExporter exporter = createHtmlTemplate( ExportUtils.createHtmlExporter() );
-      return exporter.toString( macroResolver );
-    }
-    else
-    {
-      final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
-      exporter.write( macroResolver );
-      exporter.close();
-    }
-
-    return null;
+    final HtmlFileExporter exporter = ( HtmlFileExporter )createHtmlTemplate( ExportUtils.createHtmlExporter( aFile ) );
+    exporter.write( macroResolver );
+    exporter.close();
   }
 }
@@ -108,6 +108,23 @@ public class UARTAnalyserWorkerDataFilesTest
     assertEquals( this.expectedBaudrate, result.getBaudRate() );
   }
 
+  /**
+   * Tests that decoding all lines concurrently yields the same results as
+   * decoding them one after another.
+   */
+  @Test
+  public void testConcurrentUartAnalysisOk() throws Exception
+  {
+    UARTDataSet expected = analyseDataFile( this.resourceName, 1, this.channels[0] + 1 );
+    UARTDataSet result = analyseDataFile( this.resourceName, 4, this.channels[0] + 1 );
+
+    assertEquals( expected.getData(), result.getData() );
+    assertEquals( expected.getDetectedErrors(), result.getDetectedErrors() );
+    assertEquals( expected.getDecodedSymbols(), result.getDecodedSymbols() );
+    assertEquals( expected.getBitLength(), result.getBitLength() );
+    assertEquals( expected.getBaudRate(), result.getBaudRate() );
+  }
+
   /**
    * Analyses the data file identified by the given resource name.
    * 
@@ -119,6 +136,27 @@ public class UARTAnalyserWorkerDataFilesTest
    *           in case of exceptions.
    */
   private UARTDataSet analyseDataFile( final String aResourceName ) throws Exception
+  {
+    return analyseDataFile( aResourceName, Runtime.getRuntime().availableProcessors(), -1 );
+  }
+
+  /**
+   * Analyses the data file identified by the given resource name, using the
+   * given number of threads.
+   * 
+   * @param aResourceName
+   *          the name of the resource (= data file) to analyse, cannot be
+   *          <code>null</code>;
+   * @param aThreadCount
+   *          the number of threads to use for decoding;
+   * @param aCtsIndex
+   *          the channel index of the CTS-line, or -1 if not used.
+   * @return the analysis results, never <code>null</code>.
+   * @throws Exception
+   *           in case of exceptions.
+   */
+  private UARTDataSet analyseDataFile( final String aResourceName, final int aThreadCount, final int aCtsIndex )
+      throws Exception
   {
     URL resource = ResourceUtils.getResource( getClass(), aResourceName );
     AcquisitionResult container = DataTestUtils.getCapturedData( resource );
@@ -134,6 +172,8 @@ public class UARTAnalyserWorkerDataFilesTest
     worker.setBaudRate( this.baudrate );
     worker.setRxdIndex( this.channels[0] );
     worker.setTxdIndex( this.channels[1] );
+    worker.setCtsIndex( aCtsIndex );
+    worker.setThreadCount( aThreadCount );
 
     UARTDataSet result = worker.call();
     assertNotNull( result );
@@ -211,6 +211,88 @@ public final class ExportUtils
        *         <code>null</code>.
        */
       String toString( final MacroResolver aResolver );
+
+      /**
+       * Writes the string representation of this HTML-element directly to the
+       * given writer.
+       * 
+       * @param aWriter
+       *          the writer to write to, cannot be <code>null</code>;
+       * @param aResolver
+       *          the macro resolver to use for any found macros.
+       * @throws IOException
+       *           in case of I/O problems.
+       */
+      void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException;
+    }
+
+    /**
+     * Denotes a writer for table rows, which are written directly to the
+     * output without building an element tree first.
+     */
+    public interface RowWriter
+    {
+      // METHODS
+
+      /**
+       * Writes a single table row with the given cells. The cell values are
+       * escaped, and a <code>null</code> value results in an empty cell.
+       * 
+       * @param aStyle
+       *          the (CSS) style of the row, can be <code>null</code>;
+       * @param aCells
+       *          the cell values of the row, cannot be <code>null</code>.
+       * @throws IOException
+       *           in case of I/O problems.
+       */
+      void addRow( final String aStyle, final Object... aCells ) throws IOException;
+
+      /**
+       * Writes a single table row with the given cells, of which some span
+       * multiple columns. The cell values are escaped, and a
+       * <code>null</code> value results in an empty cell.
+       * 
+       * @param aStyle
+       *          the (CSS) style of the row, can be <code>null</code>;
+       * @param aColSpans
+       *          the number of columns each cell spans, can be
+       *          <code>null</code> or shorter than the number of cells, in
+       *          which case the remaining cells span a single column;
+       * @param aCells
+       *          the cell values of the row, cannot be <code>null</code>.
+       * @throws IOException
+       *           in case of I/O problems.
+       */
+      void addRow( final String aStyle, final int[] aColSpans, final Object... aCells ) throws IOException;
+    }
+
+    /**
+     * Denotes a macro resolver that is able to write the result of a macro
+     * directly to the output, for example, to write the rows of a large table
+     * with constant memory overhead.
+     */
+    public interface StreamingMacroResolver extends MacroResolver
+    {
+      // METHODS
+
+      /**
+       * Writes the result for a given macro string directly to the given row
+       * writer.
+       * 
+       * @param aMacro
+       *          the macro string to write, cannot be <code>null</code>;
+       * @param aParent
+       *          the parent element containing the macro, cannot be
+       *          <code>null</code>;
+       * @param aWriter
+       *          the row writer to write to, cannot be <code>null</code>.
+       * @return <code>true</code> if the macro is written by this method,
+       *         <code>false</code> if the macro should be resolved by
+       *         {@link #resolve(String, Element)} instead.
+       * @throws IOException
+       *           in case of I/O problems.
+       */
+      boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException;
     }
 
     /**
@@ -296,6 +378,19 @@ public final class ExportUtils
      * @return the string representation of the HTML structure.
      */
     String toString( final MacroResolver aResolver );
+
+    /**
+     * Writes the HTML-structure directly to the given writer, with all macro's
+     * resolved.
+     * 
+     * @param aWriter
+     *          the writer to write to, cannot be <code>null</code>;
+     * @param aResolver
+     *          the macro resolver to use, cannot be <code>null</code>.
+     * @throws IOException
+     *           in case of I/O problems.
+     */
+    void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException;
   }
 
   /**
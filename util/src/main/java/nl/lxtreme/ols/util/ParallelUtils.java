@@ -0,0 +1,283 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+
+/**
+ * Provides utilities for running tasks in parallel on a shared pool of
+ * threads.
+ * <p>
+ * The pool has a thread for each available processor; its threads are
+ * daemon threads that are stopped when idle for a while. Tasks that are
+ * invoked from one of the pool threads are run by the invoking thread itself,
+ * so nested use of this class cannot deadlock.
+ * </p>
+ */
+public final class ParallelUtils
+{
+  // INNER TYPES
+
+  /**
+   * Creates the task for a single chunk of a range of indices.
+   */
+  public static interface ChunkTaskFactory<T>
+  {
+    // METHODS
+
+    /**
+     * Creates the task for the given chunk.
+     * 
+     * @param aStartIdx
+     *          the first index of the chunk (inclusive);
+     * @param aEndIdx
+     *          the last index of the chunk (exclusive).
+     * @return the task, never <code>null</code>.
+     */
+    Callable<T> createTask( int aStartIdx, int aEndIdx );
+  }
+
+  /**
+   * Lazily creates the shared pool of threads.
+   */
+  static final class PoolHolder
+  {
+    // CONSTANTS
+
+    static final ThreadPoolExecutor POOL;
+
+    static
+    {
+      final int threads = Runtime.getRuntime().availableProcessors();
+
+      POOL = new ThreadPoolExecutor( threads, threads, 30L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+          new ThreadFactory()
+          {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread( final Runnable aRunnable )
+            {
+              return new PoolThread( aRunnable, "ParallelUtils-" + this.count.incrementAndGet() );
+            }
+          } );
+      POOL.allowCoreThreadTimeOut( true );
+    }
+  }
+
+  /**
+   * Marks the threads of the shared pool.
+   */
+  static final class PoolThread extends Thread
+  {
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new PoolThread instance.
+     */
+    PoolThread( final Runnable aRunnable, final String aName )
+    {
+      super( aRunnable, aName );
+      setDaemon( true );
+    }
+  }
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ParallelUtils instance, never used.
+   */
+  private ParallelUtils()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of tasks that can run in parallel.
+   * 
+   * @return the number of available processors, &gt; 0.
+   */
+  public static int getParallelism()
+  {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Runs all given tasks in parallel, and waits until they are all completed.
+   * <p>
+   * In case one of the tasks fails, all other tasks are cancelled and its
+   * exception is rethrown as-is if it is a runtime exception, an error, an
+   * interrupted exception or an instance of the given exception type. Other
+   * exceptions are wrapped in a runtime exception.
+   * </p>
+   * 
+   * @param aTasks
+   *          the tasks to run, cannot be <code>null</code>;
+   * @param aExceptionType
+   *          the type of (checked) exceptions the tasks can throw, cannot be
+   *          <code>null</code>.
+   * @return the results of the tasks, in the same order as the tasks.
+   * @throws InterruptedException
+   *           in case the invoking thread was interrupted;
+   * @throws E
+   *           in case one of the tasks failed with an exception of the given
+   *           type.
+   */
+  public static <T, E extends Exception> List<T> invokeAll( final List<? extends Callable<T>> aTasks,
+      final Class<E> aExceptionType ) throws InterruptedException, E
+  {
+    final List<T> result = new ArrayList<T>( aTasks.size() );
+
+    if ( ( aTasks.size() <= 1 ) || ( Thread.currentThread() instanceof PoolThread ) )
+    {
+      for ( Callable<T> task : aTasks )
+      {
+        result.add( call( task, aExceptionType ) );
+      }
+      return result;
+    }
+
+    final List<Future<T>> futures = new ArrayList<Future<T>>( aTasks.size() );
+    try
+    {
+      for ( Callable<T> task : aTasks )
+      {
+        futures.add( PoolHolder.POOL.submit( task ) );
+      }
+      for ( Future<T> future : futures )
+      {
+        try
+        {
+          result.add( future.get() );
+        }
+        catch ( ExecutionException exception )
+        {
+          throw rethrow( exception.getCause(), aExceptionType );
+        }
+      }
+      return result;
+    }
+    finally
+    {
+      // Does nothing for the completed tasks...
+      for ( Future<T> future : futures )
+      {
+        future.cancel( true /* mayInterruptIfRunning */);
+      }
+    }
+  }
+
+  /**
+   * Divides a range of indices in chunks, and runs a task for each of those
+   * chunks in parallel.
+   * <p>
+   * The number of chunks is bounded both by the given maximum, and by the
+   * given minimum size of a chunk; a single chunk is run by the invoking
+   * thread. The tasks should not throw any checked exceptions, other than
+   * {@link InterruptedException}.
+   * </p>
+   * 
+   * @param aStartIdx
+   *          the first index of the range (inclusive);
+   * @param aEndIdx
+   *          the last index of the range (exclusive);
+   * @param aMaxChunks
+   *          the maximum number of chunks, &gt; 0;
+   * @param aMinChunkSize
+   *          the minimum size of a chunk, &gt; 0;
+   * @param aFactory
+   *          the factory for the task of each chunk, cannot be
+   *          <code>null</code>.
+   * @return the results of the tasks, in the order of their chunks, or an empty
+   *         list if the given range is empty.
+   * @throws InterruptedException
+   *           in case the invoking thread was interrupted.
+   */
+  public static <T> List<T> invokeChunked( final int aStartIdx, final int aEndIdx, final int aMaxChunks,
+      final int aMinChunkSize, final ChunkTaskFactory<T> aFactory ) throws InterruptedException
+  {
+    final int size = aEndIdx - aStartIdx;
+    if ( size <= 0 )
+    {
+      return new ArrayList<T>();
+    }
+
+    final int chunks = Math.max( 1, Math.min( aMaxChunks, size / aMinChunkSize ) );
+    final int chunkSize = ( size + chunks - 1 ) / chunks;
+
+    final List<Callable<T>> tasks = new ArrayList<Callable<T>>( chunks );
+    for ( int start = aStartIdx; start < aEndIdx; start += chunkSize )
+    {
+      tasks.add( aFactory.createTask( start, Math.min( aEndIdx, start + chunkSize ) ) );
+    }
+
+    return invokeAll( tasks, RuntimeException.class );
+  }
+
+  /**
+   * Runs a single task in the invoking thread.
+   */
+  private static <T, E extends Exception> T call( final Callable<T> aTask, final Class<E> aExceptionType )
+      throws InterruptedException, E
+  {
+    try
+    {
+      return aTask.call();
+    }
+    catch ( Exception exception )
+    {
+      throw rethrow( exception, aExceptionType );
+    }
+  }
+
+  /**
+   * Rethrows the given failure of a task.
+   */
+  private static <E extends Exception> RuntimeException rethrow( final Throwable aCause, final Class<E> aExceptionType )
+      throws InterruptedException, E
+  {
+    if ( aCause instanceof RuntimeException )
+    {
+      throw ( RuntimeException )aCause;
+    }
+    if ( aCause instanceof Error )
+    {
+      throw ( Error )aCause;
+    }
+    if ( aCause instanceof InterruptedException )
+    {
+      throw ( InterruptedException )aCause;
+    }
+    if ( aExceptionType.isInstance( aCause ) )
+    {
+      throw aExceptionType.cast( aCause );
+    }
+    return new RuntimeException( aCause );
+  }
+}
+
+/* EOF */
@@ -0,0 +1,338 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.analysis;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a frequency distribution of primitive integer values, such as pulse
+ * widths or bit lengths.
+ * <p>
+ * In contrast to {@link Frequency}, this distribution does not box its values,
+ * but counts them in an open-addressed hash table. Adding a value is therefore
+ * a tight loop without any allocations (except for an occasional resize). The
+ * value with the highest count is tracked while adding values, making
+ * {@link #getHighestRanked(int)} a constant time operation.
+ * </p>
+ * <p>
+ * Like {@link Frequency}, ties in ranking are resolved in favour of the
+ * smallest value. This class is <em>not</em> thread-safe.
+ * </p>
+ */
+public final class IntFrequency
+{
+  // CONSTANTS
+
+  private static final int DEFAULT_CAPACITY = 64;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  // VARIABLES
+
+  private int[] keys;
+  private long[] counts;
+  private int mask;
+  private int size;
+  private long totalCount;
+
+  private int highestRanked;
+  private long highestCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new IntFrequency instance.
+   */
+  public IntFrequency()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * Creates a new IntFrequency instance.
+   *
+   * @param aExpectedUniqueValues
+   *          the expected number of unique values, used to size the initial
+   *          hash table, &gt;= 0.
+   * @throws IllegalArgumentException
+   *           in case the given number of unique values was negative.
+   */
+  public IntFrequency( final int aExpectedUniqueValues )
+  {
+    if ( aExpectedUniqueValues < 0 )
+    {
+      throw new IllegalArgumentException( "Expected unique values cannot be negative!" );
+    }
+
+    int capacity = DEFAULT_CAPACITY;
+    while ( ( capacity < MAX_CAPACITY ) && ( capacity < ( 2L * aExpectedUniqueValues ) ) )
+    {
+      capacity <<= 1;
+    }
+    allocate( capacity );
+  }
+
+  // METHODS
+
+  /**
+   * Spreads the bits of the given value to get a well distributed hash code.
+   */
+  private static int hash( final int aValue )
+  {
+    final int h = aValue * 0x9E3779B9;
+    return h ^ ( h >>> 16 );
+  }
+
+  /**
+   * Adds a given value to this distribution.
+   *
+   * @param aValue
+   *          the value to add.
+   */
+  public void addValue( final int aValue )
+  {
+    addValue( aValue, 1L );
+  }
+
+  /**
+   * Adds a given value a number of times to this distribution.
+   *
+   * @param aValue
+   *          the value to add;
+   * @param aCount
+   *          the number of times to add the value, &gt;= 0.
+   * @throws IllegalArgumentException
+   *           in case the given count was negative.
+   */
+  public void addValue( final int aValue, final long aCount )
+  {
+    if ( aCount < 0L )
+    {
+      throw new IllegalArgumentException( "Count cannot be negative!" );
+    }
+    if ( aCount == 0L )
+    {
+      return;
+    }
+
+    int slot = hash( aValue ) & this.mask;
+    while ( ( this.counts[slot] != 0L ) && ( this.keys[slot] != aValue ) )
+    {
+      slot = ( slot + 1 ) & this.mask;
+    }
+
+    if ( this.counts[slot] == 0L )
+    {
+      this.keys[slot] = aValue;
+      this.size++;
+    }
+
+    final long count = this.counts[slot] + aCount;
+    this.counts[slot] = count;
+    this.totalCount += aCount;
+
+    if ( ( count > this.highestCount ) || ( ( count == this.highestCount ) && ( aValue < this.highestRanked ) ) )
+    {
+      this.highestCount = count;
+      this.highestRanked = aValue;
+    }
+
+    if ( ( 2 * this.size ) > this.keys.length )
+    {
+      resize();
+    }
+  }
+
+  /**
+   * Clears all values from this frequency distribution.
+   */
+  public void clear()
+  {
+    Arrays.fill( this.counts, 0L );
+    this.size = 0;
+    this.totalCount = 0L;
+    this.highestCount = 0L;
+    this.highestRanked = 0;
+  }
+
+  /**
+   * Counts the number of occurrences of the given value.
+   *
+   * @param aValue
+   *          the value to count.
+   * @return the number of occurrences, &gt;= 0.
+   */
+  public long getCount( final int aValue )
+  {
+    int slot = hash( aValue ) & this.mask;
+    while ( this.counts[slot] != 0L )
+    {
+      if ( this.keys[slot] == aValue )
+      {
+        return this.counts[slot];
+      }
+      slot = ( slot + 1 ) & this.mask;
+    }
+    return 0L;
+  }
+
+  /**
+   * Returns the value with the highest count or rank.
+   *
+   * @param aDefaultValue
+   *          the value to return in case this distribution is empty.
+   * @return the value with the highest rank, or the given default value if
+   *         this frequency distribution is empty.
+   */
+  public int getHighestRanked( final int aDefaultValue )
+  {
+    return ( this.size == 0 ) ? aDefaultValue : this.highestRanked;
+  }
+
+  /**
+   * Returns the value with the lowest count or rank.
+   *
+   * @param aDefaultValue
+   *          the value to return in case this distribution is empty.
+   * @return the value with the lowest rank, or the given default value if this
+   *         frequency distribution is empty.
+   */
+  public int getLowestRanked( final int aDefaultValue )
+  {
+    int result = aDefaultValue;
+    long rank = Long.MAX_VALUE;
+
+    for ( int slot = 0; slot < this.counts.length; slot++ )
+    {
+      final long count = this.counts[slot];
+      if ( count == 0L )
+      {
+        continue;
+      }
+
+      final int value = this.keys[slot];
+      if ( ( count < rank ) || ( ( count == rank ) && ( value < result ) ) )
+      {
+        rank = count;
+        result = value;
+      }
+    }
+
+    return result;
+  }
+
+  /**
+   * Returns the total number of values added to this frequency distribution.
+   *
+   * @return a total count, &gt;= 0.
+   */
+  public long getTotalCount()
+  {
+    return this.totalCount;
+  }
+
+  /**
+   * Returns the number of unique values in this frequency distribution.
+   *
+   * @return a unique value count, &gt;= 0.
+   */
+  public int getUniqueValueCount()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns whether this frequency distribution is empty.
+   *
+   * @return <code>true</code> if no values are added to this distribution,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isEmpty()
+  {
+    return this.size == 0;
+  }
+
+  /**
+   * Returns the unique values in this frequency distribution.
+   *
+   * @return an array with all unique values, sorted in natural order, never
+   *         <code>null</code>.
+   */
+  public int[] values()
+  {
+    final int[] result = new int[this.size];
+
+    int idx = 0;
+    for ( int slot = 0; slot < this.counts.length; slot++ )
+    {
+      if ( this.counts[slot] != 0L )
+      {
+        result[idx++] = this.keys[slot];
+      }
+    }
+
+    Arrays.sort( result );
+    return result;
+  }
+
+  /**
+   * Allocates a new, empty, hash table with the given capacity.
+   */
+  private void allocate( final int aCapacity )
+  {
+    this.keys = new int[aCapacity];
+    this.counts = new long[aCapacity];
+    this.mask = aCapacity - 1;
+  }
+
+  /**
+   * Doubles the capacity of the hash table, and rehashes all values.
+   */
+  private void resize()
+  {
+    if ( this.keys.length >= MAX_CAPACITY )
+    {
+      throw new IllegalStateException( "Too many unique values!" );
+    }
+
+    final int[] oldKeys = this.keys;
+    final long[] oldCounts = this.counts;
+
+    allocate( oldKeys.length << 1 );
+
+    for ( int i = 0; i < oldKeys.length; i++ )
+    {
+      if ( oldCounts[i] != 0L )
+      {
+        int slot = hash( oldKeys[i] ) & this.mask;
+        while ( this.counts[slot] != 0L )
+        {
+          slot = ( slot + 1 ) & this.mask;
+        }
+        this.keys[slot] = oldKeys[i];
+        this.counts[slot] = oldCounts[i];
+      }
+    }
+  }
+}
+
+/* EOF */
@@ -36,6 +36,8 @@ public class CsvExporterImpl implements CsvExporter
 
   private static final Logger LOG = Logger.getAnonymousLogger();
 
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   // VARIABLES
 
   private final char delimiter;
@@ -70,7 +72,7 @@ public class CsvExporterImpl implements CsvExporter
    */
   public CsvExporterImpl( final File aFile, final char aDelimiter ) throws IOException
   {
-    this.writer = new BufferedWriter( new FileWriter( aFile ) );
+    this.writer = new BufferedWriter( new FileWriter( aFile ), BUFFER_SIZE );
     this.delimiter = aDelimiter;
   }
 
@@ -95,7 +97,7 @@ public class CsvExporterImpl implements CsvExporter
     {
       final Object value = i < aValues.length ? aValues[i] : null;
 
-      this.writer.append( quote( value ) );
+      writeQuoted( value );
 
       if ( i < length - 1 )
       {
@@ -131,7 +133,7 @@ public class CsvExporterImpl implements CsvExporter
     this.headerCount = aHeaders.length;
     for ( int i = 0; i < aHeaders.length; i++ )
     {
-      this.writer.append( quote( aHeaders[i] ) );
+      writeQuoted( aHeaders[i] );
       if ( i < aHeaders.length - 1 )
       {
         this.writer.append( this.delimiter );
@@ -141,34 +143,26 @@ public class CsvExporterImpl implements CsvExporter
   }
 
   /**
+   * Writes the given value as quoted CSV-cell directly to the output.
+   * 
    * @param aValue
-   * @return
+   *          the value to write, can be <code>null</code>.
    */
-  private String quote( final Object aValue )
+  private void writeQuoted( final Object aValue ) throws IOException
   {
-    final String value;
-    if ( aValue == null )
-    {
-      value = "";
-    }
-    else
+    this.writer.write( '"' );
+    if ( aValue instanceof Character )
     {
-      if ( aValue instanceof Character )
+      final char ch = ( ( Character )aValue ).charValue();
+      if ( Character.isLetterOrDigit( ch ) )
       {
-        if ( Character.isLetterOrDigit( ( ( Character )aValue ).charValue() ) )
-        {
-          value = String.valueOf( aValue );
-        }
-        else
-        {
-          value = "";
-        }
-      }
-      else
-      {
-        value = String.valueOf( aValue );
+        this.writer.write( ch );
       }
     }
-    return "\"" + value + "\"";
+    else if ( aValue != null )
+    {
+      this.writer.write( String.valueOf( aValue ) );
+    }
+    this.writer.write( '"' );
   }
 }
@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.util.export;
 
 
+import java.io.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
@@ -130,19 +131,38 @@ public class HtmlExporterImpl implements HtmlExporter
   @Override
   public String toString( final MacroResolver aResolver )
   {
-    final StringBuilder sb = new StringBuilder();
-    if ( this.includeDTD )
+    final StringWriter writer = new StringWriter();
+    try
+    {
+      write( writer, aResolver );
+    }
+    catch ( IOException exception )
     {
-      sb.append( "<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01//EN\" \"http://www.w3.org/TR/html4/strict.dtd\">" )
-          .append( '\n' );
+      // Should not happen for string writers...
+      throw new RuntimeException( exception );
     }
-    sb.append( this.root.toString( aResolver ) );
 
+    final String result = writer.toString();
     if ( LOG.isLoggable( Level.FINE ) )
     {
-      LOG.fine( "+++\n" + sb + "\n---\n" );
+      LOG.fine( "+++\n" + result + "\n---\n" );
     }
 
-    return sb.toString();
+    return result;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.util.ExportUtils.HtmlExporter#write(java.io.Writer,
+   *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver)
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    if ( this.includeDTD )
+    {
+      aWriter.write( "<!DOCTYPE HTML PUBLIC \"-//W3C//DTD HTML 4.01//EN\" \"http://www.w3.org/TR/html4/strict.dtd\">" );
+      aWriter.write( '\n' );
+    }
+    this.root.write( aWriter, aResolver );
   }
 }
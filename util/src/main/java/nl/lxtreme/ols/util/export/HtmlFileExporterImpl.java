@@ -24,6 +24,7 @@ package nl.lxtreme.ols.util.export;
 import java.io.*;
 
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
 
 
@@ -32,6 +33,10 @@ import nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter;
  */
 public class HtmlFileExporterImpl extends HtmlExporterImpl implements HtmlFileExporter
 {
+  // CONSTANTS
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
   // VARIABLES
 
   public final Writer writer;
@@ -49,7 +54,7 @@ public class HtmlFileExporterImpl extends HtmlExporterImpl implements HtmlFileEx
    */
   public HtmlFileExporterImpl( final File aFile ) throws IOException
   {
-    this( new OutputStreamWriter( new FileOutputStream( aFile ), "UTF8" ) );
+    this( new BufferedWriter( new OutputStreamWriter( new FileOutputStream( aFile ), "UTF8" ), BUFFER_SIZE ) );
   }
 
   /**
@@ -88,11 +93,15 @@ public class HtmlFileExporterImpl extends HtmlExporterImpl implements HtmlFileEx
   }
 
   /**
+   * Writes the HTML export directly to file, without building its string
+   * representation in memory first. Use a {@link StreamingMacroResolver} to
+   * write large tables with constant memory overhead.
+   * 
    * @see nl.lxtreme.ols.util.ExportUtils.HtmlFileExporter#write(nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver)
    */
   @Override
   public void write( final MacroResolver aResolver ) throws IOException
   {
-    this.writer.write( toString( aResolver ) );
+    write( this.writer, aResolver );
   }
 }
@@ -0,0 +1,137 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.export;
+
+
+import java.io.*;
+
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter;
+
+
+/**
+ * Provides a row writer that writes HTML table rows directly to a writer.
+ */
+public final class HtmlRowWriter implements RowWriter
+{
+  // VARIABLES
+
+  private final Writer writer;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link HtmlRowWriter} instance.
+   * 
+   * @param aWriter
+   *          the writer to write the rows to, cannot be <code>null</code>.
+   */
+  public HtmlRowWriter( final Writer aWriter )
+  {
+    this.writer = aWriter;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addRow( final String aStyle, final Object... aCells ) throws IOException
+  {
+    addRow( aStyle, null, aCells );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addRow( final String aStyle, final int[] aColSpans, final Object... aCells ) throws IOException
+  {
+    this.writer.write( "<tr" );
+    if ( aStyle != null )
+    {
+      this.writer.write( " style='" );
+      this.writer.write( aStyle );
+      this.writer.write( '\'' );
+    }
+    this.writer.write( '>' );
+
+    for ( int i = 0; i < aCells.length; i++ )
+    {
+      final int colSpan = ( ( aColSpans != null ) && ( i < aColSpans.length ) ) ? aColSpans[i] : 1;
+      if ( colSpan > 1 )
+      {
+        this.writer.write( "<td colspan='" );
+        this.writer.write( String.valueOf( colSpan ) );
+        this.writer.write( "'>" );
+      }
+      else
+      {
+        this.writer.write( "<td>" );
+      }
+
+      final Object cell = aCells[i];
+      if ( cell != null )
+      {
+        writeEscaped( String.valueOf( cell ) );
+      }
+      this.writer.write( "</td>" );
+    }
+
+    this.writer.write( "</tr>" );
+  }
+
+  /**
+   * Writes the given text while escaping all HTML-specific characters.
+   * 
+   * @param aText
+   *          the text to write, cannot be <code>null</code>.
+   */
+  private void writeEscaped( final String aText ) throws IOException
+  {
+    final int length = aText.length();
+    for ( int i = 0; i < length; i++ )
+    {
+      final char ch = aText.charAt( i );
+      switch ( ch )
+      {
+        case '<':
+          this.writer.write( "&lt;" );
+          break;
+        case '>':
+          this.writer.write( "&gt;" );
+          break;
+        case '&':
+          this.writer.write( "&amp;" );
+          break;
+        case '"':
+          this.writer.write( "&quot;" );
+          break;
+        case '\'':
+          this.writer.write( "&#39;" );
+          break;
+        default:
+          this.writer.write( ch );
+          break;
+      }
+    }
+  }
+}
@@ -21,6 +21,7 @@
 package nl.lxtreme.ols.util.export;
 
 
+import java.io.*;
 import java.util.*;
 
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Attribute;
@@ -224,33 +225,51 @@ public final class TagElement implements Element
   @Override
   public String toString( final MacroResolver aResolver )
   {
-    final StringBuilder sb = new StringBuilder();
-    sb.append( '<' ).append( this.name );
+    final StringWriter writer = new StringWriter();
+    try
+    {
+      write( writer, aResolver );
+    }
+    catch ( IOException exception )
+    {
+      // Should not happen for string writers...
+      throw new RuntimeException( exception );
+    }
+    return writer.toString();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    aWriter.write( '<' );
+    aWriter.write( this.name );
 
-    if ( !this.attributes.isEmpty() )
+    for ( int i = 0; i < this.attributes.size(); i++ )
     {
-      for ( int i = 0; i < this.attributes.size(); i++ )
-      {
-        final Attribute attribute = this.attributes.get( i );
+      final Attribute attribute = this.attributes.get( i );
 
-        sb.append( ' ' );
-        sb.append( attribute.toString( aResolver ) );
-      }
+      aWriter.write( ' ' );
+      aWriter.write( attribute.toString( aResolver ) );
     }
 
-    sb.append( '>' );
+    aWriter.write( '>' );
 
     if ( this.needsCloseTag )
     {
+      // Macros can add new children while we're writing, so do not cache the
+      // number of children...
       for ( int i = 0; i < this.children.size(); i++ )
       {
         final Element child = this.children.get( i );
 
-        sb.append( child.toString( aResolver ) );
+        child.write( aWriter, aResolver );
       }
-      sb.append( "</" ).append( this.name ).append( '>' );
+      aWriter.write( "</" );
+      aWriter.write( this.name );
+      aWriter.write( '>' );
     }
-
-    return sb.toString();
   }
 }
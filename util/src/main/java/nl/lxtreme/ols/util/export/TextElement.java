@@ -21,12 +21,14 @@
 package nl.lxtreme.ols.util.export;
 
 
+import java.io.*;
 import java.util.*;
 import java.util.regex.*;
 
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Attribute;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver;
+import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver;
 
 
 /**
@@ -187,4 +189,24 @@ public final class TextElement implements Element
     }
     return this.value;
   }
+
+  /**
+   * @see nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element#write(java.io.Writer,
+   *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver)
+   */
+  @Override
+  public void write( final Writer aWriter, final MacroResolver aResolver ) throws IOException
+  {
+    if ( aResolver instanceof StreamingMacroResolver )
+    {
+      final Matcher matcher = MACRO_PATTERN.matcher( this.value );
+      if ( matcher.matches()
+          && ( ( StreamingMacroResolver )aResolver ).write( matcher.group( 1 ), this.parent, new HtmlRowWriter(
+              aWriter ) ) )
+      {
+        return;
+      }
+    }
+    aWriter.write( toString( aResolver ) );
+  }
 }
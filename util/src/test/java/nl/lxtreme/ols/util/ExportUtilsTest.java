@@ -22,6 +22,9 @@ package nl.lxtreme.ols.util;
 
 
 import static org.junit.Assert.*;
+
+import java.io.*;
+
 import nl.lxtreme.ols.util.ExportUtils.*;
 import nl.lxtreme.ols.util.ExportUtils.HtmlExporter.*;
 import nl.lxtreme.ols.util.export.*;
@@ -51,6 +54,39 @@ public class ExportUtilsTest
     }
   }
 
+  static final class RowMacroResolver implements StreamingMacroResolver
+  {
+    // METHODS
+
+    /**
+     * @see nl.lxtreme.ols.util.ExportUtils.HtmlExporter.MacroResolver#resolve(java.lang.String,
+     *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element)
+     */
+    @Override
+    public Object resolve( final String aMacro, final Element aParent )
+    {
+      return aMacro.toUpperCase();
+    }
+
+    /**
+     * @see nl.lxtreme.ols.util.ExportUtils.HtmlExporter.StreamingMacroResolver#write(java.lang.String,
+     *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.Element,
+     *      nl.lxtreme.ols.util.ExportUtils.HtmlExporter.RowWriter)
+     */
+    @Override
+    public boolean write( final String aMacro, final Element aParent, final RowWriter aWriter ) throws IOException
+    {
+      if ( "rows".equals( aMacro ) )
+      {
+        aWriter.addRow( null, "1", "<a>" );
+        aWriter.addRow( "color: red;", "2", null );
+        aWriter.addRow( null, new int[] { 1, 2 }, "3", "error" );
+        return true;
+      }
+      return false;
+    }
+  }
+
   // VARIABLES
 
   private HtmlExporter exporter;
@@ -190,6 +226,24 @@ public class ExportUtilsTest
         .toString( new NullMacroResolver() ) );
   }
 
+  /**
+   * 
+   */
+  @Test
+  public void testStreamingMacros() throws IOException
+  {
+    Element cur = this.exporter.getBody();
+    cur.addChild( HtmlExporter.H1 ).addContent( "{foo}" );
+    cur.addChild( HtmlExporter.TABLE ).addContent( "{rows}" );
+
+    final StringWriter writer = new StringWriter();
+    this.exporter.write( writer, new RowMacroResolver() );
+
+    assertEquals( "<html><head><title></title></head><body><h1>FOO</h1><table><tr><td>1</td><td>&lt;a&gt;</td></tr>"
+        + "<tr style='color: red;'><td>2</td><td></td></tr><tr><td>3</td><td colspan='2'>error</td></tr>"
+        + "</table></body></html>", writer.toString() );
+  }
+
   /**
    * 
    */
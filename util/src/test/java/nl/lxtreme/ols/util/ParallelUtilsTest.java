@@ -0,0 +1,175 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.junit.*;
+
+
+/**
+ * Provides test cases for {@link ParallelUtils}.
+ */
+public class ParallelUtilsTest
+{
+  // METHODS
+
+  /**
+   * Tests that the checked exception of a failing task is rethrown as-is.
+   */
+  @Test( expected = IOException.class )
+  public void testInvokeAllRethrowsCheckedExceptionOk() throws Exception
+  {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    tasks.add( createTask( 1 ) );
+    tasks.add( new Callable<Integer>()
+    {
+      @Override
+      public Integer call() throws Exception
+      {
+        throw new IOException( "Failed!" );
+      }
+    } );
+
+    ParallelUtils.invokeAll( tasks, IOException.class );
+  }
+
+  /**
+   * Tests that the results are returned in the order of the tasks.
+   */
+  @Test
+  public void testInvokeAllReturnsResultsInOrderOk() throws Exception
+  {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for ( int i = 0; i < 100; i++ )
+    {
+      tasks.add( createTask( i ) );
+    }
+
+    final List<Integer> result = ParallelUtils.invokeAll( tasks, RuntimeException.class );
+
+    assertEquals( 100, result.size() );
+    for ( int i = 0; i < 100; i++ )
+    {
+      assertEquals( i, result.get( i ).intValue() );
+    }
+  }
+
+  /**
+   * Tests that tasks can invoke other tasks themselves.
+   */
+  @Test( timeout = 10000 )
+  public void testInvokeAllNestedOk() throws Exception
+  {
+    final List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+    for ( int i = 0; i < 4 * ParallelUtils.getParallelism(); i++ )
+    {
+      tasks.add( new Callable<Integer>()
+      {
+        @Override
+        public Integer call() throws Exception
+        {
+          final List<Callable<Integer>> nested = Arrays.asList( createTask( 1 ), createTask( 2 ) );
+          int sum = 0;
+          for ( Integer value : ParallelUtils.invokeAll( nested, RuntimeException.class ) )
+          {
+            sum += value.intValue();
+          }
+          return Integer.valueOf( sum );
+        }
+      } );
+    }
+
+    for ( Integer value : ParallelUtils.invokeAll( tasks, Exception.class ) )
+    {
+      assertEquals( 3, value.intValue() );
+    }
+  }
+
+  /**
+   * Tests that a range is divided in consecutive chunks, bounded by both the
+   * maximum number of chunks and the minimum chunk size.
+   */
+  @Test
+  public void testInvokeChunkedOk() throws Exception
+  {
+    final ParallelUtils.ChunkTaskFactory<int[]> factory = new ParallelUtils.ChunkTaskFactory<int[]>()
+    {
+      @Override
+      public Callable<int[]> createTask( final int aStartIdx, final int aEndIdx )
+      {
+        return new Callable<int[]>()
+        {
+          @Override
+          public int[] call()
+          {
+            return new int[] { aStartIdx, aEndIdx };
+          }
+        };
+      }
+    };
+
+    assertChunks( ParallelUtils.invokeChunked( 10, 110, 4, 10, factory ), 10, 110, 4 );
+    assertChunks( ParallelUtils.invokeChunked( 10, 110, 4, 40, factory ), 10, 110, 2 );
+    assertChunks( ParallelUtils.invokeChunked( 0, 5, 4, 10, factory ), 0, 5, 1 );
+    assertTrue( ParallelUtils.invokeChunked( 5, 5, 4, 10, factory ).isEmpty() );
+  }
+
+  /**
+   * Asserts that the given chunks cover the given range consecutively.
+   */
+  private static void assertChunks( final List<int[]> aChunks, final int aStartIdx, final int aEndIdx,
+      final int aCount )
+  {
+    assertEquals( aCount, aChunks.size() );
+
+    int idx = aStartIdx;
+    for ( int[] chunk : aChunks )
+    {
+      assertEquals( idx, chunk[0] );
+      assertTrue( chunk[1] > chunk[0] );
+      idx = chunk[1];
+    }
+    assertEquals( aEndIdx, idx );
+  }
+
+  /**
+   * Creates a task returning the given value.
+   */
+  private static Callable<Integer> createTask( final int aValue )
+  {
+    return new Callable<Integer>()
+    {
+      @Override
+      public Integer call()
+      {
+        return Integer.valueOf( aValue );
+      }
+    };
+  }
+}
+
+/* EOF */
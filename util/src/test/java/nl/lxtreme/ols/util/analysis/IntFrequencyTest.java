@@ -0,0 +1,149 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.util.analysis;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link IntFrequency}.
+ */
+public class IntFrequencyTest
+{
+  // METHODS
+
+  /**
+   * Test method for {@link IntFrequency#getCount(int)}.
+   */
+  @Test
+  public void testGetCount()
+  {
+    final IntFrequency f = createDistribution();
+
+    for ( int i = 0; i <= 10; i++ )
+    {
+      assertEquals( i, f.getCount( i ) );
+    }
+    assertEquals( 0, f.getCount( 11 ) );
+    assertEquals( 55, f.getTotalCount() );
+    assertEquals( 10, f.getUniqueValueCount() );
+  }
+
+  /**
+   * Test method for {@link IntFrequency#getHighestRanked(int)}.
+   */
+  @Test
+  public void testGetHighestRanked()
+  {
+    final IntFrequency f = new IntFrequency();
+    assertEquals( -1, f.getHighestRanked( -1 ) );
+
+    f.addValue( 5 );
+    f.addValue( 3 );
+    // Ties are resolved in favour of the smallest value...
+    assertEquals( 3, f.getHighestRanked( -1 ) );
+
+    assertEquals( 10, createDistribution().getHighestRanked( -1 ) );
+  }
+
+  /**
+   * Test method for {@link IntFrequency#getLowestRanked(int)}.
+   */
+  @Test
+  public void testGetLowestRanked()
+  {
+    final IntFrequency f = new IntFrequency();
+    assertEquals( -1, f.getLowestRanked( -1 ) );
+
+    assertEquals( 1, createDistribution().getLowestRanked( -1 ) );
+  }
+
+  /**
+   * Tests that the distribution yields the same results as {@link Frequency}
+   * for many (random) values, including negative ones.
+   */
+  @Test
+  public void testSameResultsAsFrequency()
+  {
+    final Random rnd = new Random( 1234L );
+
+    final IntFrequency f = new IntFrequency();
+    final Frequency<Integer> expected = new Frequency<Integer>();
+
+    for ( int i = 0; i < 100000; i++ )
+    {
+      final int value = ( int )( rnd.nextGaussian() * 1000.0 );
+      f.addValue( value );
+      expected.addValue( Integer.valueOf( value ) );
+    }
+
+    assertEquals( expected.getTotalCount(), f.getTotalCount() );
+    assertEquals( expected.getUniqueValueCount(), f.getUniqueValueCount() );
+    assertEquals( expected.getHighestRanked().intValue(), f.getHighestRanked( 0 ) );
+    assertEquals( expected.getLowestRanked().intValue(), f.getLowestRanked( 0 ) );
+
+    final int[] values = f.values();
+    int idx = 0;
+    for ( Integer value : expected.values() )
+    {
+      assertEquals( value.intValue(), values[idx++] );
+      assertEquals( expected.getCount( value ), f.getCount( value.intValue() ) );
+    }
+    assertEquals( values.length, idx );
+  }
+
+  /**
+   * Test method for {@link IntFrequency#clear()}.
+   */
+  @Test
+  public void testClear()
+  {
+    final IntFrequency f = createDistribution();
+    f.clear();
+
+    assertTrue( f.isEmpty() );
+    assertEquals( 0, f.getTotalCount() );
+    assertEquals( 0, f.getCount( 10 ) );
+    assertEquals( -1, f.getHighestRanked( -1 ) );
+    assertEquals( 0, f.values().length );
+  }
+
+  /**
+   * Creates a distribution with each value 1..10 added as many times as its
+   * value.
+   */
+  private IntFrequency createDistribution()
+  {
+    final IntFrequency f = new IntFrequency( 4 );
+    for ( int i = 0; i <= 10; i++ )
+    {
+      f.addValue( i, i );
+    }
+    return f;
+  }
+}
+
+/* EOF */